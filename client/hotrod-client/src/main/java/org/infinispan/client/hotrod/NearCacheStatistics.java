@@ -0,0 +1,38 @@
+package org.infinispan.client.hotrod;
+
+import java.util.Map;
+
+/**
+ * Defines the statistics of the near cache of a client.
+ * Can be obtained through {@link RemoteCache#nearCacheStats()}
+ *
+ * @since 9.1
+ */
+public interface NearCacheStatistics {
+
+   /**
+    * Number of entries currently in the near cache.
+    */
+   String CURRENT_NR_OF_ENTRIES = "currentNumberOfEntries";
+
+   /**
+    * Number of reads found in the near cache.
+    */
+   String HITS = "hits";
+
+   /**
+    * Number of reads not found in the near cache, that had to go to the server.
+    */
+   String MISSES = "misses";
+
+   /**
+    * Number of entries evicted from the near cache to respect its bounds.
+    */
+   String EVICTIONS = "evictions";
+
+   Map<String, String> getStatsMap();
+
+   String getStatistic(String statsName);
+
+   Long getLongStatistic(String statsName);
+}
@@ -7,6 +7,7 @@
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
+import org.infinispan.client.hotrod.impl.NearCacheStatisticsImpl;
 import org.infinispan.commons.api.BasicCache;
 import org.infinispan.commons.util.CloseableIterator;
 import org.infinispan.commons.util.CloseableIteratorCollection;
@@ -366,6 +367,15 @@
 
    ServerStatistics stats();
 
+   /**
+    * Returns the statistics of the near cache of this client. The statistics are empty if the near cache is disabled.
+    *
+    * @since 9.1
+    */
+   default NearCacheStatistics nearCacheStats() {
+      return new NearCacheStatisticsImpl();
+   }
+
    /**
     * Applies one or more {@link Flag}s to the scope of a single invocation.  See the {@link Flag} enumeration to for
     * information on available flags.
@@ -7,6 +7,8 @@
 import java.util.Properties;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.infinispan.client.hotrod.configuration.Configuration;
@@ -19,6 +21,7 @@
 import org.infinispan.client.hotrod.impl.RemoteCacheManagerAdminImpl;
 import org.infinispan.client.hotrod.impl.operations.OperationsFactory;
 import org.infinispan.client.hotrod.impl.operations.PingOperation.PingResult;
+import org.infinispan.client.hotrod.impl.operations.RequestCoalescer;
 import org.infinispan.client.hotrod.impl.protocol.Codec;
 import org.infinispan.client.hotrod.impl.protocol.CodecFactory;
 import org.infinispan.client.hotrod.impl.protocol.HotRodConstants;
@@ -68,6 +71,7 @@ public class RemoteCacheManager implements RemoteCacheContainer {
    private Marshaller marshaller;
    protected TransportFactory transportFactory;
    private ExecutorService asyncExecutorService;
+   private ScheduledExecutorService requestCoalescingScheduler;
    protected ClientListenerNotifier listenerNotifier;
    private final Runnable start = this::start;
    private final Runnable stop = this::stop;
@@ -198,6 +202,13 @@ public void start() {
       codec = CodecFactory.getCodec(configuration.version());
 
       createExecutorService();
+      if (configuration.requestCoalescing().enabled()) {
+         requestCoalescingScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread th = new Thread(r, "HotRod-client-coalescer");
+            th.setDaemon(true);
+            return th;
+         });
+      }
 
       listenerNotifier = ClientListenerNotifier.create(codec, marshaller, transportFactory, configuration.serialWhitelist());
       transportFactory.start(codec, configuration, defaultCacheTopologyId, listenerNotifier);
@@ -243,6 +254,11 @@ private final void warnAboutUberJarDuplicates() {
    @Override
    public void stop() {
       if (isStarted()) {
+         if (requestCoalescingScheduler != null) {
+            // send the batches that are still waiting, instead of leaving their callers blocked
+            requestCoalescingScheduler.shutdownNow().forEach(Runnable::run);
+            requestCoalescingScheduler = null;
+         }
          listenerNotifier.stop();
          transportFactory.destroy();
          asyncExecutorService.shutdownNow();
@@ -322,8 +338,10 @@ private void startRemoteCache(RemoteCacheHolder remoteCacheHolder) {
       OperationsFactory operationsFactory = new OperationsFactory(
               transportFactory, remoteCache.getName(), remoteCacheHolder.forceReturnValue, codec, listenerNotifier,
             asyncExecutorService, configuration);
+      RequestCoalescer requestCoalescer = requestCoalescingScheduler == null ? null :
+            operationsFactory.newRequestCoalescer(requestCoalescingScheduler, configuration.requestCoalescing());
       remoteCache.init(marshaller, asyncExecutorService, operationsFactory, configuration.keySizeEstimate(),
-            configuration.valueSizeEstimate(), configuration.batchSize());
+            configuration.valueSizeEstimate(), configuration.batchSize(), requestCoalescer);
    }
 
    @Override
@@ -50,13 +50,15 @@ public class Configuration {
    private final List<ClusterConfiguration> clusters;
    private final List<String> serialWhitelist;
    private final int batchSize;
+   private final RequestCoalescingConfiguration requestCoalescing;
 
    Configuration(ExecutorFactoryConfiguration asyncExecutorFactory, Class<? extends FailoverRequestBalancingStrategy> balancingStrategyClass, FailoverRequestBalancingStrategy balancingStrategy, ClassLoader classLoader,
          ClientIntelligence clientIntelligence, ConnectionPoolConfiguration connectionPool, int connectionTimeout, Class<? extends ConsistentHash>[] consistentHashImpl, boolean forceReturnValues, int keySizeEstimate,
          Marshaller marshaller, Class<? extends Marshaller> marshallerClass,
          ProtocolVersion protocolVersion, List<ServerConfiguration> servers, int socketTimeout, SecurityConfiguration security, boolean tcpNoDelay, boolean tcpKeepAlive,
          Class<? extends TransportFactory> transportFactory, int valueSizeEstimate, int maxRetries, NearCacheConfiguration nearCache,
-         List<ClusterConfiguration> clusters, List<String> serialWhitelist, int batchSize) {
+         List<ClusterConfiguration> clusters, List<String> serialWhitelist, int batchSize,
+         RequestCoalescingConfiguration requestCoalescing) {
       this.asyncExecutorFactory = asyncExecutorFactory;
       this.balancingStrategyClass = balancingStrategyClass;
       this.balancingStrategy = balancingStrategy;
@@ -82,6 +84,7 @@ public class Configuration {
       this.clusters = clusters;
       this.serialWhitelist = serialWhitelist;
       this.batchSize = batchSize;
+      this.requestCoalescing = requestCoalescing;
    }
 
    public ExecutorFactoryConfiguration asyncExecutorFactory() {
@@ -197,6 +200,13 @@ public int batchSize() {
       return batchSize;
    }
 
+   /**
+    * @since 9.1
+    */
+   public RequestCoalescingConfiguration requestCoalescing() {
+      return requestCoalescing;
+   }
+
    @Override
    public String toString() {
       return "Configuration [asyncExecutorFactory=" + asyncExecutorFactory + ", balancingStrategyClass=" + balancingStrategyClass + ", balancingStrategy=" + balancingStrategy
@@ -207,6 +217,7 @@ public String toString() {
             + ", transportFactory=" + transportFactory + ", valueSizeEstimate=" + valueSizeEstimate + ", maxRetries=" + maxRetries
             + ", serialWhiteList=" + serialWhitelist
             + ", batchSize=" + batchSize
+            + ", requestCoalescing=" + requestCoalescing
             + "nearCache=" + nearCache + "]";
    }
 
@@ -256,6 +267,7 @@ public Properties properties() {
       properties.setProperty("testOnBorrow", Boolean.toString(connectionPool().testOnBorrow()));
       properties.setProperty("testOnReturn", Boolean.toString(connectionPool().testOnReturn()));
       properties.setProperty("testWhileIdle", Boolean.toString(connectionPool().testWhileIdle()));
+      properties.setProperty("multiplexedConnections", Integer.toString(connectionPool().multiplexedConnections()));
 
       StringBuilder servers = new StringBuilder();
       for(ServerConfiguration server : servers()) {
@@ -312,6 +324,9 @@ public Properties properties() {
       properties.setProperty(ConfigurationProperties.JAVA_SERIAL_WHITELIST, String.join(",", serialWhitelist));
 
       properties.setProperty(ConfigurationProperties.BATCH_SIZE, Integer.toString(batchSize));
+      properties.setProperty(ConfigurationProperties.REQUEST_COALESCING, Boolean.toString(requestCoalescing.enabled()));
+      properties.setProperty(ConfigurationProperties.REQUEST_COALESCING_WINDOW, Long.toString(requestCoalescing.window()));
+      properties.setProperty(ConfigurationProperties.REQUEST_COALESCING_MAX_BATCH_SIZE, Integer.toString(requestCoalescing.maxBatchSize()));
 
       return properties;
    }
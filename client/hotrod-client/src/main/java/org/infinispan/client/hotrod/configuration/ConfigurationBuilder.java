@@ -70,6 +70,7 @@ public class ConfigurationBuilder implements ConfigurationChildBuilder, Builder<
    private int valueSizeEstimate = ConfigurationProperties.DEFAULT_VALUE_SIZE;
    private int maxRetries = ConfigurationProperties.DEFAULT_MAX_RETRIES;
    private final NearCacheConfigurationBuilder nearCache;
+   private final RequestCoalescingConfigurationBuilder requestCoalescing;
    private final List<String> whiteListRegExs = new ArrayList<>();
    private int batchSize = ConfigurationProperties.DEFAULT_BATCH_SIZE;
 
@@ -81,6 +82,7 @@ public ConfigurationBuilder() {
       this.asyncExecutorFactory = new ExecutorFactoryConfigurationBuilder(this);
       this.security = new SecurityConfigurationBuilder(this);
       this.nearCache = new NearCacheConfigurationBuilder(this);
+      this.requestCoalescing = new RequestCoalescingConfigurationBuilder(this);
    }
 
    @Override
@@ -222,6 +224,15 @@ public NearCacheConfigurationBuilder nearCache() {
       return nearCache;
    }
 
+   /**
+    * Configures the coalescing of concurrent single-key gets and puts into multi-key operations.
+    *
+    * @since 9.1
+    */
+   public RequestCoalescingConfigurationBuilder requestCoalescing() {
+      return requestCoalescing;
+   }
+
    /**
     * @deprecated Use {@link ConfigurationBuilder#version(ProtocolVersion)} instead.
     */
@@ -352,6 +363,7 @@ public ConfigurationBuilder withProperties(Properties properties) {
       }
 
       this.batchSize(typed.getIntProperty(ConfigurationProperties.BATCH_SIZE, batchSize, true));
+      this.requestCoalescing.withCoalescingProperties(typed);
 
       return this;
    }
@@ -362,6 +374,10 @@ public void validate() {
       asyncExecutorFactory.validate();
       security.validate();
       nearCache.validate();
+      requestCoalescing.validate();
+      if (requestCoalescing.create().enabled() && connectionPool.create().multiplexedConnections() <= 0) {
+         throw log.requestCoalescingWithoutMultiplexedConnections();
+      }
       if (maxRetries < 0) {
          throw log.invalidMaxRetries(maxRetries);
       }
@@ -393,7 +409,8 @@ public Configuration create() {
 
       return new Configuration(asyncExecutorFactory.create(), balancingStrategyClass, balancingStrategy, classLoader == null ? null : classLoader.get(), clientIntelligence, connectionPool.create(), connectionTimeout,
             consistentHashImpl, forceReturnValues, keySizeEstimate, marshaller, marshallerClass, protocolVersion, servers, socketTimeout, security.create(), tcpNoDelay, tcpKeepAlive, transportFactory,
-            valueSizeEstimate, maxRetries, nearCache.create(), serverClusterConfigs, whiteListRegExs, batchSize);
+            valueSizeEstimate, maxRetries, nearCache.create(), serverClusterConfigs, whiteListRegExs, batchSize,
+            requestCoalescing.create());
    }
 
    @Override
@@ -436,6 +453,7 @@ public ConfigurationBuilder read(Configuration template) {
       this.valueSizeEstimate = template.valueSizeEstimate();
       this.maxRetries = template.maxRetries();
       this.nearCache.read(template.nearCache());
+      this.requestCoalescing.read(template.requestCoalescing());
       this.whiteListRegExs.addAll(template.serialWhitelist());
 
       return this;
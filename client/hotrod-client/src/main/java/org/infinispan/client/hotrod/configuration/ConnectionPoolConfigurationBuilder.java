@@ -25,6 +25,7 @@ public class ConnectionPoolConfigurationBuilder extends AbstractConfigurationChi
    private boolean testOnBorrow = false;
    private boolean testOnReturn = false;
    private boolean testWhileIdle = true;
+   private int multiplexedConnections = 0;
 
    ConnectionPoolConfigurationBuilder(ConfigurationBuilder builder) {
       super(builder);
@@ -167,6 +168,18 @@ public ConnectionPoolConfigurationBuilder testWhileIdle(boolean testWhileIdle) {
       return this;
    }
 
+   /**
+    * Sets the number of connections to each server that are shared by concurrent operations. The requests are written
+    * one after the other on these connections, and the responses are matched with the requests by their message id,
+    * so an operation waiting for its response doesn't hold a connection of its own. Client listeners, iterations and
+    * streaming operations still take a connection from the pool. When non-positive, every operation takes a connection
+    * from the pool. The default setting for this parameter is 0.
+    */
+   public ConnectionPoolConfigurationBuilder multiplexedConnections(int multiplexedConnections) {
+      this.multiplexedConnections = multiplexedConnections;
+      return this;
+   }
+
    /**
     * Configures the connection pool parameter according to properties
     */
@@ -185,6 +198,7 @@ public ConnectionPoolConfigurationBuilder withPoolProperties(Properties properti
       testOnBorrow(typed.getBooleanProperty("testOnBorrow", testOnBorrow, true));
       testOnReturn(typed.getBooleanProperty("testOnReturn", testOnReturn, true));
       testWhileIdle(typed.getBooleanProperty("testWhileIdle", testWhileIdle, true));
+      multiplexedConnections(typed.getIntProperty("multiplexedConnections", multiplexedConnections, true));
       return this;
    }
 
@@ -195,7 +209,7 @@ public void validate() {
    @Override
    public ConnectionPoolConfiguration create() {
       return new ConnectionPoolConfiguration(exhaustedAction, lifo, maxActive, maxTotal, maxWait, maxIdle, minIdle, numTestsPerEvictionRun, timeBetweenEvictionRuns,
-            minEvictableIdleTime, testOnBorrow, testOnReturn, testWhileIdle);
+            minEvictableIdleTime, testOnBorrow, testOnReturn, testWhileIdle, multiplexedConnections);
    }
 
    @Override
@@ -213,6 +227,7 @@ public ConnectionPoolConfigurationBuilder read(ConnectionPoolConfiguration templ
       testOnBorrow = template.testOnBorrow();
       testOnReturn = template.testOnReturn();
       testWhileIdle = template.testWhileIdle();
+      multiplexedConnections = template.multiplexedConnections();
       return this;
    }
 
@@ -4,16 +4,38 @@ public class NearCacheConfiguration {
    // TODO: Consider an option to configure key equivalence function for near cache (e.g. for byte arrays)
    private final NearCacheMode mode;
    private final int maxEntries;
+   private final long maxMemory;
+   private final boolean storeAsBinary;
 
    public NearCacheConfiguration(NearCacheMode mode, int maxEntries) {
+      this(mode, maxEntries, -1, false);
+   }
+
+   public NearCacheConfiguration(NearCacheMode mode, int maxEntries, long maxMemory, boolean storeAsBinary) {
       this.mode = mode;
       this.maxEntries = maxEntries;
+      this.maxMemory = maxMemory;
+      this.storeAsBinary = storeAsBinary;
    }
 
    public int maxEntries() {
       return maxEntries;
    }
 
+   /**
+    * @since 9.1
+    */
+   public long maxMemory() {
+      return maxMemory;
+   }
+
+   /**
+    * @since 9.1
+    */
+   public boolean storeAsBinary() {
+      return storeAsBinary;
+   }
+
    public NearCacheMode mode() {
       return mode;
    }
@@ -23,6 +45,8 @@ public String toString() {
       return "NearCacheConfiguration{" +
             "mode=" + mode +
             ", maxEntries=" + maxEntries +
+            ", maxMemory=" + maxMemory +
+            ", storeAsBinary=" + storeAsBinary +
             '}';
    }
 }
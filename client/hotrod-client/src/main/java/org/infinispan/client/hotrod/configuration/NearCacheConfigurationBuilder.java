@@ -10,6 +10,8 @@ public class NearCacheConfigurationBuilder extends AbstractConfigurationChildBui
 
    private NearCacheMode mode = NearCacheMode.DISABLED;
    private Integer maxEntries = null; // undefined
+   private long maxMemory = -1;
+   private boolean storeAsBinary = false;
 
    protected NearCacheConfigurationBuilder(ConfigurationBuilder builder) {
       super(builder);
@@ -20,6 +22,32 @@ public NearCacheConfigurationBuilder maxEntries(int maxEntries) {
       return this;
    }
 
+   /**
+    * Bounds the near cache by the approximate memory used by its entries instead of their number. Each entry counts
+    * for the length of the marshalled value, plus the {@link ConfigurationBuilder#keySizeEstimate(int) key size
+    * estimate}, plus a fixed overhead for the objects holding the entry. The key is not marshalled to be counted.
+    * Requires {@link #storeAsBinary(boolean)}, so that the counted bytes are the ones actually held. Can't be used
+    * together with {@link #maxEntries(int)}.
+    *
+    * @param maxMemory the maximum number of bytes
+    * @since 9.1
+    */
+   public NearCacheConfigurationBuilder maxMemory(long maxMemory) {
+      this.maxMemory = maxMemory;
+      return this;
+   }
+
+   /**
+    * Whether the near cache stores the values in marshalled form, which often uses less memory than the objects, but
+    * they have to be unmarshalled on every read. Defaults to <code>false</code>.
+    *
+    * @since 9.1
+    */
+   public NearCacheConfigurationBuilder storeAsBinary(boolean storeAsBinary) {
+      this.storeAsBinary = storeAsBinary;
+      return this;
+   }
+
    public NearCacheConfigurationBuilder mode(NearCacheMode mode) {
       this.mode = mode;
       return this;
@@ -27,19 +55,25 @@ public NearCacheConfigurationBuilder mode(NearCacheMode mode) {
 
    @Override
    public void validate() {
-      if (mode.enabled() && maxEntries == null)
+      if (mode.enabled() && maxEntries == null && maxMemory <= 0)
          throw log.nearCacheMaxEntriesUndefined();
+      if (maxEntries != null && maxEntries > 0 && maxMemory > 0)
+         throw log.nearCacheMaxEntriesAndMaxMemory();
+      if (maxMemory > 0 && !storeAsBinary)
+         throw log.nearCacheMaxMemoryWithoutStoreAsBinary();
    }
 
    @Override
    public NearCacheConfiguration create() {
-      return new NearCacheConfiguration(mode, maxEntries == null ? -1 : maxEntries);
+      return new NearCacheConfiguration(mode, maxEntries == null ? -1 : maxEntries, maxMemory, storeAsBinary);
    }
 
    @Override
    public Builder<?> read(NearCacheConfiguration template) {
       mode = template.mode();
       maxEntries = template.maxEntries();
+      maxMemory = template.maxMemory();
+      storeAsBinary = template.storeAsBinary();
       return this;
    }
 }
@@ -0,0 +1,42 @@
+package org.infinispan.client.hotrod.configuration;
+
+/**
+ * Configures the coalescing of concurrent single-key gets and puts into multi-key operations.
+ *
+ * @since 9.1
+ */
+public class RequestCoalescingConfiguration {
+   private final boolean enabled;
+   private final long window;
+   private final int maxBatchSize;
+
+   RequestCoalescingConfiguration(boolean enabled, long window, int maxBatchSize) {
+      this.enabled = enabled;
+      this.window = window;
+      this.maxBatchSize = maxBatchSize;
+   }
+
+   public boolean enabled() {
+      return enabled;
+   }
+
+   /**
+    * @return the time, in microseconds, an operation waits for other operations to join its batch.
+    */
+   public long window() {
+      return window;
+   }
+
+   public int maxBatchSize() {
+      return maxBatchSize;
+   }
+
+   @Override
+   public String toString() {
+      return "RequestCoalescingConfiguration{" +
+            "enabled=" + enabled +
+            ", window=" + window +
+            ", maxBatchSize=" + maxBatchSize +
+            '}';
+   }
+}
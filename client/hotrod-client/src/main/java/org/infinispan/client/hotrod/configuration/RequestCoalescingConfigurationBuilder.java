@@ -0,0 +1,92 @@
+package org.infinispan.client.hotrod.configuration;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.infinispan.client.hotrod.impl.ConfigurationProperties;
+import org.infinispan.client.hotrod.logging.Log;
+import org.infinispan.client.hotrod.logging.LogFactory;
+import org.infinispan.commons.configuration.Builder;
+import org.infinispan.commons.util.TypedProperties;
+
+/**
+ * Coalesces the single-key gets and puts issued concurrently by different threads, or asynchronously, into one
+ * getAll or putAll operation per server. A batch is sent when the window of the first operation ends, or when it
+ * reaches the maximum batch size, whichever comes first.
+ * <p>
+ * Puts are only coalesced when they don't need the previous value, i.e. without
+ * {@link org.infinispan.client.hotrod.Flag#FORCE_RETURN_VALUE}. Coalesced operations on different keys are not
+ * ordered with respect to each other. Requires {@link ConnectionPoolConfigurationBuilder#multiplexedConnections(int)
+ * multiplexed connections}. Disabled by default.
+ *
+ * @since 9.1
+ */
+public class RequestCoalescingConfigurationBuilder extends AbstractConfigurationChildBuilder
+      implements Builder<RequestCoalescingConfiguration> {
+   private static final Log log = LogFactory.getLog(RequestCoalescingConfigurationBuilder.class, Log.class);
+
+   private boolean enabled = false;
+   private long window = ConfigurationProperties.DEFAULT_REQUEST_COALESCING_WINDOW;
+   private int maxBatchSize = ConfigurationProperties.DEFAULT_REQUEST_COALESCING_MAX_BATCH_SIZE;
+
+   RequestCoalescingConfigurationBuilder(ConfigurationBuilder builder) {
+      super(builder);
+   }
+
+   public RequestCoalescingConfigurationBuilder enable() {
+      return enabled(true);
+   }
+
+   public RequestCoalescingConfigurationBuilder disable() {
+      return enabled(false);
+   }
+
+   public RequestCoalescingConfigurationBuilder enabled(boolean enabled) {
+      this.enabled = enabled;
+      return this;
+   }
+
+   /**
+    * How long an operation waits for other operations to join its batch. Defaults to 500 microseconds.
+    */
+   public RequestCoalescingConfigurationBuilder window(long time, TimeUnit unit) {
+      this.window = unit.toMicros(time);
+      return this;
+   }
+
+   /**
+    * The maximum number of keys in a batch. A full batch is sent without waiting for the end of the window. Defaults
+    * to 100.
+    */
+   public RequestCoalescingConfigurationBuilder maxBatchSize(int maxBatchSize) {
+      this.maxBatchSize = maxBatchSize;
+      return this;
+   }
+
+   public RequestCoalescingConfigurationBuilder withCoalescingProperties(Properties properties) {
+      TypedProperties typed = TypedProperties.toTypedProperties(properties);
+      enabled(typed.getBooleanProperty(ConfigurationProperties.REQUEST_COALESCING, enabled, true));
+      window(typed.getLongProperty(ConfigurationProperties.REQUEST_COALESCING_WINDOW, window, true), TimeUnit.MICROSECONDS);
+      maxBatchSize(typed.getIntProperty(ConfigurationProperties.REQUEST_COALESCING_MAX_BATCH_SIZE, maxBatchSize, true));
+      return this;
+   }
+
+   @Override
+   public void validate() {
+      if (enabled && (window < 0 || maxBatchSize <= 0))
+         throw log.invalidRequestCoalescingSettings(window, maxBatchSize);
+   }
+
+   @Override
+   public RequestCoalescingConfiguration create() {
+      return new RequestCoalescingConfiguration(enabled, window, maxBatchSize);
+   }
+
+   @Override
+   public RequestCoalescingConfigurationBuilder read(RequestCoalescingConfiguration template) {
+      enabled = template.enabled();
+      window = template.window();
+      maxBatchSize = template.maxBatchSize();
+      return this;
+   }
+}
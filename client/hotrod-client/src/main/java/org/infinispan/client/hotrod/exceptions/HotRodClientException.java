@@ -31,6 +31,13 @@ public HotRodClientException(String remoteMessage, long messageId, int errorStat
       this.errorStatusCode = errorStatusCode;
    }
 
+   /**
+    * @return <code>true</code> if the server answered the request with an error status.
+    */
+   public boolean isServerError() {
+      return errorStatusCode != -1;
+   }
+
    @Override
    public String toString() {
       StringBuilder sb = new StringBuilder(getClass().getName());
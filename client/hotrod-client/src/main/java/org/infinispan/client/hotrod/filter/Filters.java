@@ -21,6 +21,12 @@ public final class Filters {
 
    public static final String CONTINUOUS_QUERY_FILTER_FACTORY_NAME = "continuous-query-filter-converter-factory";
 
+   /**
+    * The name of the factory used for converting all the values to empty byte arrays, in order to iterate over the keys
+    * only. This factory is provided internally by the server.
+    */
+   public static final String TO_EMPTY_BYTES_FILTER_CONVERTER_FACTORY_NAME = "org.infinispan.server.hotrod.HotRodServer$ToEmptyBytesKeyValueFilterConverter";
+
    private Filters() {
    }
 
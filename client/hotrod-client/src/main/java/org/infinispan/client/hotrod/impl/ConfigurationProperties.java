@@ -63,6 +63,9 @@ public class ConfigurationProperties {
          Pattern.compile('^' + ConfigurationProperties.SASL_PROPERTIES_PREFIX + '.');
    public static final String JAVA_SERIAL_WHITELIST = "infinispan.client.hotrod.java_serial_whitelist";
    public static final String BATCH_SIZE = "infinispan.client.hotrod.batch_size";
+   public static final String REQUEST_COALESCING = "infinispan.client.hotrod.request_coalescing";
+   public static final String REQUEST_COALESCING_WINDOW = "infinispan.client.hotrod.request_coalescing_window";
+   public static final String REQUEST_COALESCING_MAX_BATCH_SIZE = "infinispan.client.hotrod.request_coalescing_max_batch_size";
 
    // defaults
 
@@ -73,6 +76,8 @@ public class ConfigurationProperties {
    public static final int DEFAULT_CONNECT_TIMEOUT = 60000;
    public static final int DEFAULT_MAX_RETRIES = 10;
    public static final int DEFAULT_BATCH_SIZE = 10000;
+   public static final long DEFAULT_REQUEST_COALESCING_WINDOW = 500; // microseconds
+   public static final int DEFAULT_REQUEST_COALESCING_MAX_BATCH_SIZE = 100;
 
    private final TypedProperties props;
 
@@ -194,6 +199,18 @@ public int getBatchSize() {
       return props.getIntProperty(BATCH_SIZE, DEFAULT_BATCH_SIZE);
    }
 
+   public boolean getRequestCoalescing() {
+      return props.getBooleanProperty(REQUEST_COALESCING, false);
+   }
+
+   public long getRequestCoalescingWindow() {
+      return props.getLongProperty(REQUEST_COALESCING_WINDOW, DEFAULT_REQUEST_COALESCING_WINDOW);
+   }
+
+   public int getRequestCoalescingMaxBatchSize() {
+      return props.getIntProperty(REQUEST_COALESCING_MAX_BATCH_SIZE, DEFAULT_REQUEST_COALESCING_MAX_BATCH_SIZE);
+   }
+
    /**
     * Is version previous to, and not including, 1.2?
     */
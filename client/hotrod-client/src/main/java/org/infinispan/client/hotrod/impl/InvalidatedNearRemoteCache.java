@@ -4,8 +4,11 @@
 import java.util.concurrent.TimeUnit;
 
 import org.infinispan.client.hotrod.Flag;
+import org.infinispan.client.hotrod.MetadataValue;
+import org.infinispan.client.hotrod.NearCacheStatistics;
 import org.infinispan.client.hotrod.RemoteCacheManager;
 import org.infinispan.client.hotrod.VersionedValue;
+import org.infinispan.client.hotrod.impl.operations.GetWithMetadataOperation;
 import org.infinispan.client.hotrod.near.NearCacheService;
 
 /**
@@ -34,7 +37,9 @@ public V get(Object key) {
    public VersionedValue<V> getVersioned(K key) {
       VersionedValue<V> nearValue = nearcache.get(key);
       if (nearValue == null) {
-         VersionedValue<V> remoteValue = super.getVersioned(key);
+         VersionedValue<V> remoteValue = nearcache.storesAsBinary() && !isVersionPre12()
+               ? getMarshalledWithMetadata(key)
+               : super.getVersioned(key);
          if (remoteValue != null)
             nearcache.putIfAbsent(key, remoteValue);
 
@@ -44,6 +49,21 @@ public VersionedValue<V> getVersioned(K key) {
       return nearValue;
    }
 
+   /**
+    * Same as {@link #getWithMetadata(Object)}, but the value is kept as received from the server, so that the near cache
+    * stores it without marshalling it again.
+    */
+   private MetadataValue<V> getMarshalledWithMetadata(K key) {
+      assertRemoteCacheManagerIsStarted();
+      GetWithMetadataOperation<V> op = operationsFactory.newGetWithMetadataOperation(
+            compatKeyIfNeeded(key), obj2bytes(key, true), true);
+      return op.execute();
+   }
+
+   private boolean isVersionPre12() {
+      return ConfigurationProperties.isVersionPre12(getRemoteCacheManager().getConfiguration());
+   }
+
    @Override
    public V put(K key, V value, long lifespan, TimeUnit lifespanUnit, long maxIdleTime, TimeUnit maxIdleTimeUnit) {
       V ret = super.put(key, value, lifespan, lifespanUnit, maxIdleTime, maxIdleTimeUnit);
@@ -93,6 +113,17 @@ public void clear() {
       nearcache.clear(); // Clear near cache too
    }
 
+   @Override
+   public NearCacheStatistics nearCacheStats() {
+      return nearcache.getStatistics();
+   }
+
+   @Override
+   protected boolean useAsyncOperations() {
+      // the near cache is only updated by the synchronous methods
+      return false;
+   }
+
    @SuppressWarnings("unchecked")
    void invalidateNearCacheIfNeeded(boolean hasForceReturnValue, Object key, Object prev) {
       if (!hasForceReturnValue || prev != null)
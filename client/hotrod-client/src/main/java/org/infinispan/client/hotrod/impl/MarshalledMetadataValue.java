@@ -0,0 +1,51 @@
+package org.infinispan.client.hotrod.impl;
+
+import java.util.List;
+
+import org.infinispan.client.hotrod.MetadataValue;
+import org.infinispan.client.hotrod.marshall.MarshallerUtil;
+import org.infinispan.commons.marshall.Marshaller;
+import org.infinispan.commons.util.Util;
+
+/**
+ * A value kept in marshalled form, as received from the server, and unmarshalled on every read. Used by the near cache
+ * to store the values as binary.
+ *
+ * @since 9.1
+ */
+public final class MarshalledMetadataValue<V> extends VersionedMetadataImpl implements MetadataValue<V> {
+
+   private final byte[] valueBytes;
+   private final short status;
+   private final Marshaller marshaller;
+   private final List<String> whitelist;
+
+   public MarshalledMetadataValue(long created, int lifespan, long lastUsed, int maxIdle, long version,
+                                  byte[] valueBytes, short status, Marshaller marshaller, List<String> whitelist) {
+      super(created, lifespan, lastUsed, maxIdle, version);
+      this.valueBytes = valueBytes;
+      this.status = status;
+      this.marshaller = marshaller;
+      this.whitelist = whitelist;
+   }
+
+   @Override
+   public V getValue() {
+      return MarshallerUtil.bytes2obj(marshaller, valueBytes, status, whitelist);
+   }
+
+   /**
+    * @return the number of bytes of the marshalled value
+    */
+   public int valueSize() {
+      return valueBytes.length;
+   }
+
+   @Override
+   public String toString() {
+      return "MarshalledMetadataValue{" +
+            "version=" + getVersion() +
+            ", valueBytes=" + Util.printArray(valueBytes) +
+            '}';
+   }
+}
@@ -0,0 +1,40 @@
+package org.infinispan.client.hotrod.impl;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.infinispan.client.hotrod.NearCacheStatistics;
+
+/**
+ * @since 9.1
+ */
+public class NearCacheStatisticsImpl implements NearCacheStatistics {
+
+   private Map<String, String> stats = new HashMap<>();
+
+   @Override
+   public Map<String, String> getStatsMap() {
+      return Collections.unmodifiableMap(stats);
+   }
+
+   @Override
+   public String getStatistic(String statsName) {
+      return stats.get(statsName);
+   }
+
+   public void addStats(String name, long value) {
+      stats.put(name, String.valueOf(value));
+   }
+
+   @Override
+   public Long getLongStatistic(String statsName) {
+      String value = stats.get(statsName);
+      return value == null ? null : Long.parseLong(value);
+   }
+
+   @Override
+   public String toString() {
+      return "NearCacheStatistics" + stats;
+   }
+}
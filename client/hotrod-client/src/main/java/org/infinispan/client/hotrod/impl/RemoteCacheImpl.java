@@ -17,6 +17,7 @@
 import java.util.Spliterator;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
@@ -55,6 +56,7 @@
 import org.infinispan.client.hotrod.impl.operations.RemoveOperation;
 import org.infinispan.client.hotrod.impl.operations.ReplaceIfUnmodifiedOperation;
 import org.infinispan.client.hotrod.impl.operations.ReplaceOperation;
+import org.infinispan.client.hotrod.impl.operations.RequestCoalescer;
 import org.infinispan.client.hotrod.impl.operations.SizeOperation;
 import org.infinispan.client.hotrod.impl.operations.StatsOperation;
 import org.infinispan.client.hotrod.logging.Log;
@@ -87,6 +89,7 @@
    private int estimateValueSize;
    private int batchSize;
    private volatile boolean hasCompatibility;
+   private RequestCoalescer requestCoalescer;
 
    private final Runnable clear = this::clear;
 
@@ -100,12 +103,18 @@ public RemoteCacheImpl(RemoteCacheManager rcm, String name) {
 
    public void init(Marshaller marshaller, ExecutorService executorService, OperationsFactory operationsFactory,
          int estimateKeySize, int estimateValueSize, int batchSize) {
+      init(marshaller, executorService, operationsFactory, estimateKeySize, estimateValueSize, batchSize, null);
+   }
+
+   public void init(Marshaller marshaller, ExecutorService executorService, OperationsFactory operationsFactory,
+         int estimateKeySize, int estimateValueSize, int batchSize, RequestCoalescer requestCoalescer) {
       this.marshaller = marshaller;
       this.executorService = executorService;
       this.operationsFactory = operationsFactory;
       this.estimateKeySize = estimateKeySize;
       this.estimateValueSize = estimateValueSize;
       this.batchSize = batchSize;
+      this.requestCoalescer = requestCoalescer;
    }
 
    public OperationsFactory getOperationsFactory() {
@@ -129,7 +138,12 @@ public boolean removeWithVersion(K key, long version) {
    @Override
    public CompletableFuture<Boolean> removeWithVersionAsync(final K key, final long version) {
       assertRemoteCacheManagerIsStarted();
-      return CompletableFuture.supplyAsync(() -> removeWithVersion(key, version), executorService);
+      if (!useAsyncOperations()) {
+         return CompletableFuture.supplyAsync(() -> removeWithVersion(key, version), executorService);
+      }
+      RemoveIfUnmodifiedOperation<V> op = operationsFactory.newRemoveIfUnmodifiedOperation(
+         compatKeyIfNeeded(key), obj2bytes(key, true), version);
+      return op.executeAsync(executorService).thenApply(response -> response.getCode().isUpdated());
    }
 
    @Override
@@ -149,8 +163,15 @@ public boolean replaceWithVersion(K key, V newValue, long version, long lifespan
    @Override
    public CompletableFuture<Boolean> replaceWithVersionAsync(final K key, final V newValue, final long version, final int lifespanSeconds, final int maxIdleSeconds) {
       assertRemoteCacheManagerIsStarted();
-      return CompletableFuture.supplyAsync(() ->
-              replaceWithVersion(key, newValue, version, lifespanSeconds, maxIdleSeconds), executorService);
+      if (!useAsyncOperations()) {
+         return CompletableFuture.supplyAsync(() ->
+                 replaceWithVersion(key, newValue, version, lifespanSeconds, maxIdleSeconds), executorService);
+      }
+      ReplaceIfUnmodifiedOperation op = operationsFactory.newReplaceIfUnmodifiedOperation(
+         compatKeyIfNeeded(key), obj2bytes(key, true), obj2bytes(newValue, false), lifespanSeconds, TimeUnit.SECONDS,
+         maxIdleSeconds, TimeUnit.SECONDS, version);
+      CompletableFuture<VersionedOperationResponse> future = op.executeAsync(executorService);
+      return future.thenApply(response -> response.getCode().isUpdated());
    }
 
    @Override
@@ -265,6 +286,10 @@ public V put(K key, V value, long lifespan, TimeUnit lifespanUnit, long maxIdleT
       if (trace) {
          log.tracef("About to add (K,V): (%s, %s) lifespan:%d, maxIdle:%d", key, value, lifespan, maxIdleTime);
       }
+      if (useRequestCoalescing() && requestCoalescer.canCoalescePut()) {
+         return await(requestCoalescer.put(obj2bytes(key, true), obj2bytes(value, false), lifespan, lifespanUnit,
+               maxIdleTime, maxIdleTimeUnit));
+      }
       PutOperation<V> op = operationsFactory.newPutKeyValueOperation(compatKeyIfNeeded(key),
          obj2bytes(key, true), obj2bytes(value, false), lifespan, lifespanUnit, maxIdleTime, maxIdleTimeUnit);
       return op.execute();
@@ -300,12 +325,21 @@ public boolean replace(K key, V oldValue, V value, long lifespan, TimeUnit lifes
    @Override
    public CompletableFuture<V> putAsync(final K key, final V value, final long lifespan, final TimeUnit lifespanUnit, final long maxIdle, final TimeUnit maxIdleUnit) {
       assertRemoteCacheManagerIsStarted();
-      int flags = operationsFactory.flags();
-      return CompletableFuture.supplyAsync(() -> {
-         if (flags != 0)
-            operationsFactory.setFlags(flags);
-         return put(key, value, lifespan, lifespanUnit, maxIdle, maxIdleUnit);
-      }, executorService);
+      if (useRequestCoalescing() && requestCoalescer.canCoalescePut()) {
+         return requestCoalescer.put(obj2bytes(key, true), obj2bytes(value, false), lifespan, lifespanUnit, maxIdle,
+               maxIdleUnit);
+      }
+      if (!useAsyncOperations()) {
+         int flags = operationsFactory.flags();
+         return CompletableFuture.supplyAsync(() -> {
+            if (flags != 0)
+               operationsFactory.setFlags(flags);
+            return put(key, value, lifespan, lifespanUnit, maxIdle, maxIdleUnit);
+         }, executorService);
+      }
+      PutOperation<V> op = operationsFactory.newPutKeyValueOperation(compatKeyIfNeeded(key),
+         obj2bytes(key, true), obj2bytes(value, false), lifespan, lifespanUnit, maxIdle, maxIdleUnit);
+      return op.executeAsync(executorService);
    }
 
    @Override
@@ -317,34 +351,48 @@ public CompletableFuture<Void> clearAsync() {
    @Override
    public CompletableFuture<V> putIfAbsentAsync(final K key,final V value,final long lifespan,final TimeUnit lifespanUnit,final long maxIdle,final TimeUnit maxIdleUnit) {
       assertRemoteCacheManagerIsStarted();
-      int flags = operationsFactory.flags();
-      return CompletableFuture.supplyAsync(() -> {
-         if (flags != 0)
-            operationsFactory.setFlags(flags);
-         return putIfAbsent(key, value, lifespan, lifespanUnit, maxIdle, maxIdleUnit);
-      }, executorService);
+      if (!useAsyncOperations()) {
+         int flags = operationsFactory.flags();
+         return CompletableFuture.supplyAsync(() -> {
+            if (flags != 0)
+               operationsFactory.setFlags(flags);
+            return putIfAbsent(key, value, lifespan, lifespanUnit, maxIdle, maxIdleUnit);
+         }, executorService);
+      }
+      PutIfAbsentOperation<V> op = operationsFactory.newPutIfAbsentOperation(compatKeyIfNeeded(key),
+         obj2bytes(key, true), obj2bytes(value, false), lifespan, lifespanUnit, maxIdle, maxIdleUnit);
+      return op.executeAsync(executorService);
    }
 
    @Override
    public CompletableFuture<V> removeAsync(final Object key) {
       assertRemoteCacheManagerIsStarted();
-      int flags = operationsFactory.flags();
-      return CompletableFuture.supplyAsync(() -> {
-         if (flags != 0)
-            operationsFactory.setFlags(flags);
-         return remove(key);
-      }, executorService);
+      if (!useAsyncOperations()) {
+         int flags = operationsFactory.flags();
+         return CompletableFuture.supplyAsync(() -> {
+            if (flags != 0)
+               operationsFactory.setFlags(flags);
+            return remove(key);
+         }, executorService);
+      }
+      RemoveOperation<V> op = operationsFactory.newRemoveOperation(compatKeyIfNeeded(key), obj2bytes(key, true));
+      return op.executeAsync(executorService);
    }
 
    @Override
    public CompletableFuture<V> replaceAsync(final K key,final V value,final long lifespan,final TimeUnit lifespanUnit,final long maxIdle,final TimeUnit maxIdleUnit) {
       assertRemoteCacheManagerIsStarted();
-      int flags = operationsFactory.flags();
-      return CompletableFuture.supplyAsync(() -> {
-         if (flags != 0)
-            operationsFactory.setFlags(flags);
-         return replace(key, value, lifespan, lifespanUnit, maxIdle, maxIdleUnit);
-      }, executorService);
+      if (!useAsyncOperations()) {
+         int flags = operationsFactory.flags();
+         return CompletableFuture.supplyAsync(() -> {
+            if (flags != 0)
+               operationsFactory.setFlags(flags);
+            return replace(key, value, lifespan, lifespanUnit, maxIdle, maxIdleUnit);
+         }, executorService);
+      }
+      ReplaceOperation<V> op = operationsFactory.newReplaceOperation(compatKeyIfNeeded(key),
+         obj2bytes(key, true), obj2bytes(value, false), lifespan, lifespanUnit, maxIdle, maxIdleUnit);
+      return op.executeAsync(executorService);
    }
 
    @Override
@@ -365,8 +413,13 @@ public boolean containsValue(Object value) {
    public V get(Object key) {
       assertRemoteCacheManagerIsStarted();
       byte[] keyBytes = obj2bytes(key, true);
-      GetOperation<V> gco = operationsFactory.newGetKeyOperation(compatKeyIfNeeded(key), keyBytes);
-      V result = gco.execute();
+      V result;
+      if (useRequestCoalescing()) {
+         result = await(requestCoalescer.get(keyBytes));
+      } else {
+         GetOperation<V> gco = operationsFactory.newGetKeyOperation(compatKeyIfNeeded(key), keyBytes);
+         result = gco.execute();
+      }
       if (trace) {
          log.tracef("For key(%s) returning %s", key, result);
       }
@@ -503,7 +556,44 @@ public RemoteCache<K, V> withFlags(Flag... flags) {
    @Override
    public CompletableFuture<V> getAsync(final K key) {
       assertRemoteCacheManagerIsStarted();
-      return CompletableFuture.supplyAsync(() -> get(key), executorService);
+      if (useRequestCoalescing()) {
+         return requestCoalescer.get(obj2bytes(key, true));
+      }
+      if (!useAsyncOperations()) {
+         return CompletableFuture.supplyAsync(() -> get(key), executorService);
+      }
+      GetOperation<V> gco = operationsFactory.newGetKeyOperation(compatKeyIfNeeded(key), obj2bytes(key, true));
+      return gco.executeAsync(executorService);
+   }
+
+   /**
+    * The asynchronous methods send the request and complete the future when the response arrives, without blocking
+    * any thread, when the transport supports it. Otherwise they invoke the synchronous methods in the executor.
+    */
+   protected boolean useAsyncOperations() {
+      return operationsFactory.supportsAsyncOperations();
+   }
+
+   /**
+    * The single-key gets and puts are coalesced into multi-key operations when enabled, except in compatibility mode,
+    * where the keys are routed in unmarshalled form.
+    */
+   private boolean useRequestCoalescing() {
+      return requestCoalescer != null && !hasCompatibility && operationsFactory.supportsAsyncOperations();
+   }
+
+   private static <T> T await(CompletableFuture<T> future) {
+      try {
+         return future.get();
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new HotRodClientException(e);
+      } catch (ExecutionException e) {
+         Throwable cause = e.getCause();
+         if (cause instanceof RuntimeException)
+            throw (RuntimeException) cause;
+         throw new HotRodClientException(cause);
+      }
    }
 
    public PingOperation.PingResult ping() {
@@ -522,7 +612,7 @@ byte[] obj2bytes(Object o, boolean isKey) {
       }
    }
 
-   private void assertRemoteCacheManagerIsStarted() {
+   void assertRemoteCacheManagerIsStarted() {
       if (!remoteCacheManager.isStarted()) {
          String message = "Cannot perform operations on a cache associated with an unstarted RemoteCacheManager. Use RemoteCacheManager.start before using the remote cache.";
          if (log.isInfoEnabled()) {
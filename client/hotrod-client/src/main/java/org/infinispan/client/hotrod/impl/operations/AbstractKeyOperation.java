@@ -21,7 +21,7 @@
  * @since 4.1
  */
 @Immutable
-public abstract class AbstractKeyOperation<T> extends RetryOnFailureOperation<T> {
+public abstract class AbstractKeyOperation<T> extends AsyncRetryOnFailureOperation<T> {
    protected final Object key;
    protected final byte[] keyBytes;
 
@@ -41,14 +41,11 @@ protected Transport getTransport(int retryCount, Set<SocketAddress> failedServer
       }
    }
 
-   protected short sendKeyOperation(byte[] key, Transport transport, byte opCode, byte opRespCode) {
-      // 1) write [header][key length][key]
+   protected HeaderParams writeKeyRequest(Transport transport, short opCode) {
+      // write [header][key length][key]
       HeaderParams params = writeHeader(transport, opCode);
-      transport.writeArray(key);
-      transport.flush();
-
-      // 2) now read the header
-      return readHeaderAndValidate(transport, params);
+      transport.writeArray(keyBytes);
+      return params;
    }
 
    protected T returnPossiblePrevValue(Transport transport, short status) {
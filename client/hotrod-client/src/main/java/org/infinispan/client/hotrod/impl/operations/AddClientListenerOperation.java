@@ -67,7 +67,7 @@ private byte[] generateListenerId() {
 
    @Override
    protected Transport getTransport(int retryCount, Set<SocketAddress> failedServers) {
-      this.dedicatedTransport = transportFactory.getTransport(failedServers, cacheName);
+      this.dedicatedTransport = transportFactory.getExclusiveTransport(failedServers, cacheName);
       return dedicatedTransport;
    }
 
@@ -0,0 +1,151 @@
+package org.infinispan.client.hotrod.impl.operations;
+
+import java.net.SocketAddress;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.infinispan.client.hotrod.configuration.Configuration;
+import org.infinispan.client.hotrod.exceptions.RemoteIllegalLifecycleStateException;
+import org.infinispan.client.hotrod.exceptions.RemoteNodeSuspectException;
+import org.infinispan.client.hotrod.exceptions.TransportException;
+import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.protocol.HeaderParams;
+import org.infinispan.client.hotrod.impl.transport.Transport;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+import org.infinispan.client.hotrod.logging.Log;
+import org.infinispan.client.hotrod.logging.LogFactory;
+
+import net.jcip.annotations.Immutable;
+
+/**
+ * Base class for the operations that can also be executed without waiting for the response, because the request and
+ * the response can be written and read separately.
+ *
+ * @since 9.1
+ * @param T the return type of this operation
+ */
+@Immutable
+public abstract class AsyncRetryOnFailureOperation<T> extends RetryOnFailureOperation<T> {
+
+   private static final Log log = LogFactory.getLog(AsyncRetryOnFailureOperation.class, Log.class);
+   private static final boolean trace = log.isTraceEnabled();
+
+   protected AsyncRetryOnFailureOperation(Codec codec, TransportFactory transportFactory,
+                                          byte[] cacheName, AtomicInteger topologyId, int flags, Configuration cfg) {
+      super(codec, transportFactory, cacheName, topologyId, flags, cfg);
+   }
+
+   @Override
+   protected T executeOperation(Transport transport) {
+      HeaderParams params = writeRequest(transport);
+      transport.flush(t -> readResponse(t, params));
+      return readResponse(transport, params);
+   }
+
+   /**
+    * Writes the request, without flushing it.
+    */
+   protected abstract HeaderParams writeRequest(Transport transport);
+
+   /**
+    * Reads the response of a request written by {@link #writeRequest(Transport)}.
+    */
+   protected abstract T readResponse(Transport transport, HeaderParams params);
+
+   /**
+    * Executes the operation without waiting for the response. The response is decoded by the thread that receives it,
+    * see {@link Transport#flushAsync(java.util.function.BiConsumer, java.util.function.Consumer)}, and the returned
+    * future is then completed in {@code executor}, so that the dependent stages can't block the connection. The retries
+    * on failure are executed asynchronously as well.
+    * <p>
+    * The executor rejects the completion when it is shut down, but also when its queue is full. The server has already
+    * executed the operation by then, so the returned future is still completed with its outcome, in the thread that
+    * received the response.
+    */
+   public CompletableFuture<T> executeAsync(Executor executor) {
+      CompletableFuture<T> future = new CompletableFuture<>();
+      executeAsync(future, 0, null);
+      CompletableFuture<T> result = new CompletableFuture<>();
+      future.whenComplete((value, throwable) -> {
+         Runnable completion = () -> {
+            if (throwable != null) {
+               result.completeExceptionally(throwable);
+            } else {
+               result.complete(value);
+            }
+         };
+         try {
+            executor.execute(completion);
+         } catch (RejectedExecutionException e) {
+            if (trace)
+               log.tracef(e, "The async executor rejected the completion of %s, completing it in the calling thread", this);
+            completion.run();
+         }
+      });
+      return result;
+   }
+
+   private void executeAsync(CompletableFuture<T> future, int retryCount, Set<SocketAddress> failedServers) {
+      if (!shouldRetry(retryCount)) {
+         future.completeExceptionally(new IllegalStateException("We should not reach here!"));
+         return;
+      }
+      Transport transport = null;
+      String currentClusterName = transportFactory.getCurrentClusterName();
+      try {
+         transport = getTransport(retryCount, failedServers);
+         HeaderParams params = writeRequest(transport);
+         transport.flushAsync((t, failure) -> {
+            if (failure != null) {
+               retryAsync(future, retryCount, failedServers, currentClusterName, t, failure);
+               return;
+            }
+            T result;
+            try {
+               result = readResponse(t, params);
+            } catch (Throwable e) {
+               retryAsync(future, retryCount, failedServers, currentClusterName, t, e);
+               return;
+            }
+            releaseTransport(t);
+            future.complete(result);
+         }, t -> readResponse(t, params));
+      } catch (Throwable e) {
+         retryAsync(future, retryCount, failedServers, currentClusterName, transport, e);
+      }
+   }
+
+   /**
+    * Same as the exception handling in {@link #execute()}, but the next attempt is executed asynchronously.
+    */
+   private void retryAsync(CompletableFuture<T> future, int retryCount, Set<SocketAddress> failedServers,
+                           String currentClusterName, Transport transport, Throwable t) {
+      try {
+         if (t instanceof TransportException) {
+            SocketAddress address = ((TransportException) t).getServerAddress();
+            failedServers = updateFailedServers(address, failedServers);
+            invalidateTransport(transport, address);
+            retryCount = logTransportErrorAndThrowExceptionIfNeeded(retryCount, currentClusterName, (TransportException) t);
+         } else if (t instanceof RemoteIllegalLifecycleStateException) {
+            SocketAddress address = ((RemoteIllegalLifecycleStateException) t).getServerAddress();
+            failedServers = updateFailedServers(address, failedServers);
+            invalidateTransport(transport, address);
+            retryCount = logTransportErrorAndThrowExceptionIfNeeded(retryCount, currentClusterName, (RemoteIllegalLifecycleStateException) t);
+         } else if (t instanceof RemoteNodeSuspectException) {
+            logErrorAndThrowExceptionIfNeeded(retryCount, (RemoteNodeSuspectException) t);
+         } else {
+            future.completeExceptionally(t);
+            return;
+         }
+      } catch (Throwable e) {
+         future.completeExceptionally(e);
+         return;
+      } finally {
+         releaseTransport(transport);
+      }
+      executeAsync(future, retryCount + 1, failedServers);
+   }
+}
@@ -21,7 +21,7 @@
  * @since 7.2
  */
 @Immutable
-public class GetAllOperation<K, V> extends RetryOnFailureOperation<Map<K, V>> {
+public class GetAllOperation<K, V> extends AsyncRetryOnFailureOperation<Map<K, V>> {
 
    public GetAllOperation(Codec codec, TransportFactory transportFactory,
                           Set<byte[]> keys, byte[] cacheName, AtomicInteger topologyId,
@@ -33,25 +33,32 @@ public GetAllOperation(Codec codec, TransportFactory transportFactory,
    protected final Set<byte[]> keys;
 
    @Override
-   protected Map<K, V> executeOperation(Transport transport) {
+   protected HeaderParams writeRequest(Transport transport) {
       HeaderParams params = writeHeader(transport, GET_ALL_REQUEST);
       transport.writeVInt(keys.size());
       for (byte[] key : keys) {
          transport.writeArray(key);
       }
-      transport.flush();
+      return params;
+   }
 
+   @Override
+   protected Map<K, V> readResponse(Transport transport, HeaderParams params) {
       short status = readHeaderAndValidate(transport, params);
       int size = transport.readVInt();
       Map<K, V> result = new HashMap<K, V>(size);
       for (int i = 0; i < size; ++i) {
-         K key = codec.readUnmarshallByteArray(transport, status, cfg.serialWhitelist());
+         K key = readKey(transport, status);
          V value = codec.readUnmarshallByteArray(transport, status, cfg.serialWhitelist());
          result.put(key, value);
       }
       return result;
    }
 
+   protected K readKey(Transport transport, short status) {
+      return codec.readUnmarshallByteArray(transport, status, cfg.serialWhitelist());
+   }
+
    @Override
    protected Transport getTransport(int retryCount, Set<SocketAddress> failedServers) {
       return transportFactory.getTransport(keys.iterator().next(), failedServers, cacheName);
@@ -1,6 +1,8 @@
 package org.infinispan.client.hotrod.impl.operations;
 
 import java.io.InputStream;
+import java.net.SocketAddress;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.infinispan.client.hotrod.VersionedMetadata;
@@ -21,13 +23,17 @@
  * @since 9.0
  */
 @Immutable
-public class GetStreamOperation<T extends InputStream & VersionedMetadata> extends AbstractKeyOperation<T> {
+public class GetStreamOperation<T extends InputStream & VersionedMetadata> extends RetryOnFailureOperation<T> {
+   private final Object key;
+   private final byte[] keyBytes;
    private final int offset;
    private boolean retryable;
 
    public GetStreamOperation(Codec codec, TransportFactory transportFactory,
                              Object key, byte[] keyBytes, int offset, byte[] cacheName, AtomicInteger topologyId, int flags, Configuration cfg) {
-      super(codec, transportFactory, key, keyBytes, cacheName, topologyId, flags, cfg);
+      super(codec, transportFactory, cacheName, topologyId, flags, cfg);
+      this.key = key;
+      this.keyBytes = keyBytes;
       this.offset = offset;
       retryable = true;
    }
@@ -72,6 +78,16 @@ public T executeOperation(Transport transport) {
       return result;
    }
 
+   @Override
+   protected Transport getTransport(int retryCount, Set<SocketAddress> failedServers) {
+      // the stream keeps using the transport after the operation returns
+      if (retryCount == 0) {
+         return transportFactory.getExclusiveTransport(key == null ? keyBytes : key, failedServers, cacheName);
+      } else {
+         return transportFactory.getExclusiveTransport(failedServers, cacheName);
+      }
+   }
+
    @Override
    protected boolean shouldRetry(int retryCount) {
       return retryable && super.shouldRetry(retryCount);
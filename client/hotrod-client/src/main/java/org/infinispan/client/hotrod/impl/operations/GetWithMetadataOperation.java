@@ -4,8 +4,10 @@
 
 import org.infinispan.client.hotrod.MetadataValue;
 import org.infinispan.client.hotrod.configuration.Configuration;
+import org.infinispan.client.hotrod.impl.MarshalledMetadataValue;
 import org.infinispan.client.hotrod.impl.MetadataValueImpl;
 import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.protocol.HeaderParams;
 import org.infinispan.client.hotrod.impl.protocol.HotRodConstants;
 import org.infinispan.client.hotrod.impl.transport.Transport;
 import org.infinispan.client.hotrod.impl.transport.TransportFactory;
@@ -27,15 +29,33 @@
    private static final Log log = LogFactory.getLog(GetWithMetadataOperation.class);
    private static final boolean trace = log.isTraceEnabled();
 
+   private final boolean keepValueBytes;
+
    public GetWithMetadataOperation(Codec codec, TransportFactory transportFactory, Object key, byte[] keyBytes,
                                    byte[] cacheName, AtomicInteger topologyId, int flags,
                                    Configuration cfg) {
+      this(codec, transportFactory, key, keyBytes, cacheName, topologyId, flags, cfg, false);
+   }
+
+   /**
+    * @param keepValueBytes whether the value is returned as a {@link MarshalledMetadataValue}, which keeps the bytes
+    *                       received from the server instead of unmarshalling them
+    */
+   public GetWithMetadataOperation(Codec codec, TransportFactory transportFactory, Object key, byte[] keyBytes,
+                                   byte[] cacheName, AtomicInteger topologyId, int flags,
+                                   Configuration cfg, boolean keepValueBytes) {
       super(codec, transportFactory, key, keyBytes, cacheName, topologyId, flags, cfg);
+      this.keepValueBytes = keepValueBytes;
    }
 
    @Override
-   protected MetadataValue<V> executeOperation(Transport transport) {
-      short status = sendKeyOperation(keyBytes, transport, GET_WITH_METADATA, GET_WITH_METADATA_RESPONSE);
+   protected HeaderParams writeRequest(Transport transport) {
+      return writeKeyRequest(transport, GET_WITH_METADATA);
+   }
+
+   @Override
+   protected MetadataValue<V> readResponse(Transport transport, HeaderParams params) {
+      short status = readHeaderAndValidate(transport, params);
       MetadataValue<V> result = null;
       if (HotRodConstants.isNotExist(status)) {
          result = null;
@@ -57,8 +77,13 @@ protected MetadataValue<V> executeOperation(Transport transport) {
          if (trace) {
             log.tracef("Received version: %d", version);
          }
-         V value = codec.readUnmarshallByteArray(transport, status, cfg.serialWhitelist());
-         result = new MetadataValueImpl<V>(creation, lifespan, lastUsed, maxIdle, version, value);
+         if (keepValueBytes) {
+            result = new MarshalledMetadataValue<>(creation, lifespan, lastUsed, maxIdle, version,
+                  transport.readArray(), status, transportFactory.getMarshaller(), cfg.serialWhitelist());
+         } else {
+            V value = codec.readUnmarshallByteArray(transport, status, cfg.serialWhitelist());
+            result = new MetadataValueImpl<V>(creation, lifespan, lastUsed, maxIdle, version, value);
+         }
       }
       return result;
    }
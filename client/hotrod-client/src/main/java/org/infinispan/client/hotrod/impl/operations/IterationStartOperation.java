@@ -41,7 +41,7 @@ public class IterationStartOperation extends RetryOnFailureOperation<IterationSt
 
    @Override
    protected Transport getTransport(int retryCount, Set<SocketAddress> failedServers) {
-      return transportFactory.getTransport(failedServers, cacheName);
+      return transportFactory.getExclusiveTransport(failedServers, cacheName);
    }
 
    @Override
@@ -3,6 +3,7 @@
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -10,6 +11,7 @@
 import org.infinispan.client.hotrod.Flag;
 import org.infinispan.client.hotrod.RemoteCacheManager;
 import org.infinispan.client.hotrod.configuration.Configuration;
+import org.infinispan.client.hotrod.configuration.RequestCoalescingConfiguration;
 import org.infinispan.client.hotrod.event.ClientListenerNotifier;
 import org.infinispan.client.hotrod.impl.iteration.KeyTracker;
 import org.infinispan.client.hotrod.impl.protocol.Codec;
@@ -113,6 +115,11 @@ public <V> GetWithMetadataOperation<V> newGetWithMetadataOperation(Object key, b
             codec, transportFactory, key, keyBytes, cacheNameBytes, topologyId, flags(), cfg);
    }
 
+   public <V> GetWithMetadataOperation<V> newGetWithMetadataOperation(Object key, byte[] keyBytes, boolean keepValueBytes) {
+      return new GetWithMetadataOperation<>(
+            codec, transportFactory, key, keyBytes, cacheNameBytes, topologyId, flags(), cfg, keepValueBytes);
+   }
+
    public StatsOperation newStatsOperation() {
       return new StatsOperation(
             codec, transportFactory, cacheNameBytes, topologyId, flags(), cfg);
@@ -220,7 +227,7 @@ public <T> ExecuteOperation<T> newExecuteOperation(String taskName, Map<String,
             topologyId, flags(), cfg, taskName, marshalledParams);
    }
 
-   private int flags(long lifespan, long maxIdle) {
+   int flags(long lifespan, long maxIdle) {
       int intFlags = flags();
       if (lifespan == 0) {
          intFlags |= Flag.DEFAULT_LIFESPAN.getFlagInt();
@@ -231,6 +238,26 @@ private int flags(long lifespan, long maxIdle) {
       return intFlags;
    }
 
+   /**
+    * @return <code>true</code> if {@link AsyncRetryOnFailureOperation#executeAsync(java.util.concurrent.Executor)} doesn't
+    * block the caller.
+    */
+   public boolean supportsAsyncOperations() {
+      return transportFactory != null && transportFactory.isAsyncTransport();
+   }
+
+   /**
+    * @return <code>true</code> if the next operation must return the previous value.
+    */
+   boolean forcesReturnValue() {
+      return forceReturnValue || hasFlag(Flag.FORCE_RETURN_VALUE);
+   }
+
+   public RequestCoalescer newRequestCoalescer(ScheduledExecutorService scheduler, RequestCoalescingConfiguration config) {
+      return new RequestCoalescer(this, codec, transportFactory, cacheNameBytes, topologyId, cfg, scheduler,
+            executorService, config);
+   }
+
    public int flags() {
       Integer threadLocalFlags = this.flagsMap.get();
       this.flagsMap.remove();
@@ -24,7 +24,7 @@
  * @since 7.2
  */
 @Immutable
-public class PutAllOperation extends RetryOnFailureOperation<Void> {
+public class PutAllOperation extends AsyncRetryOnFailureOperation<Void> {
 
    public PutAllOperation(Codec codec, TransportFactory transportFactory,
                           Map<byte[], byte[]> map, byte[] cacheName, AtomicInteger topologyId,
@@ -45,7 +45,7 @@ public PutAllOperation(Codec codec, TransportFactory transportFactory,
    private final TimeUnit maxIdleTimeUnit;
 
    @Override
-   protected Void executeOperation(Transport transport) {
+   protected HeaderParams writeRequest(Transport transport) {
       HeaderParams params = writeHeader(transport, PUT_ALL_REQUEST);
       codec.writeExpirationParams(transport, lifespan, lifespanTimeUnit, maxIdle, maxIdleTimeUnit);
       transport.writeVInt(map.size());
@@ -53,8 +53,11 @@ protected Void executeOperation(Transport transport) {
          transport.writeArray(entry.getKey());
          transport.writeArray(entry.getValue());
       }
-      transport.flush();
+      return params;
+   }
 
+   @Override
+   protected Void readResponse(Transport transport, HeaderParams params) {
       short status = readHeaderAndValidate(transport, params);
       if (!HotRodConstants.isSuccess(status)) {
          throw new InvalidResponseException("Unexpected response status: " + Integer.toHexString(status));
@@ -1,6 +1,8 @@
 package org.infinispan.client.hotrod.impl.operations;
 
 import java.io.OutputStream;
+import java.net.SocketAddress;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -21,9 +23,11 @@
  * @since 9.0
  */
 @Immutable
-public class PutStreamOperation extends AbstractKeyOperation<OutputStream> {
+public class PutStreamOperation extends RetryOnFailureOperation<OutputStream> {
    static final long VERSION_PUT = 0;
    static final long VERSION_PUT_IF_ABSENT = -1;
+   private final Object key;
+   private final byte[] keyBytes;
    private final long version;
    private final long lifespan;
    private final long maxIdle;
@@ -35,8 +39,9 @@ public PutStreamOperation(Codec codec, TransportFactory transportFactory,
                              Object key, byte[] keyBytes, byte[] cacheName, AtomicInteger topologyId,
                              int flags, Configuration cfg, long version,
                              long lifespan, TimeUnit lifespanTimeUnit, long maxIdle, TimeUnit maxIdleTimeUnit) {
-      super(codec, transportFactory, key, keyBytes, cacheName, topologyId,
-         flags, cfg);
+      super(codec, transportFactory, cacheName, topologyId, flags, cfg);
+      this.key = key;
+      this.keyBytes = keyBytes;
       this.version = version;
       this.lifespan = lifespan;
       this.maxIdle = maxIdle;
@@ -68,6 +73,16 @@ public OutputStream executeOperation(Transport transport) {
       });
    }
 
+   @Override
+   protected Transport getTransport(int retryCount, Set<SocketAddress> failedServers) {
+      // the stream keeps using the transport after the operation returns
+      if (retryCount == 0) {
+         return transportFactory.getExclusiveTransport(key == null ? keyBytes : key, failedServers, cacheName);
+      } else {
+         return transportFactory.getExclusiveTransport(failedServers, cacheName);
+      }
+   }
+
    @Override
    protected boolean shouldRetry(int retryCount) {
       return retryable && super.shouldRetry(retryCount);
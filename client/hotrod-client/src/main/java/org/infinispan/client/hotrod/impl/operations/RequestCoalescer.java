@@ -0,0 +1,248 @@
+package org.infinispan.client.hotrod.impl.operations;
+
+import java.net.SocketAddress;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.infinispan.client.hotrod.configuration.Configuration;
+import org.infinispan.client.hotrod.configuration.RequestCoalescingConfiguration;
+import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.transport.Transport;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+import org.infinispan.client.hotrod.logging.Log;
+import org.infinispan.client.hotrod.logging.LogFactory;
+import org.infinispan.commons.marshall.WrappedByteArray;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * Coalesces the single-key gets and puts issued within a short window into one {@link GetAllOperation} or {@link
+ * PutAllOperation} per server, see {@link org.infinispan.client.hotrod.configuration.RequestCoalescingConfigurationBuilder}.
+ * <p>
+ * The keys are grouped by the server that owns them according to the consistent hash, and by the flags and the
+ * expiration parameters, which are shared by all the keys of a multi-key operation. A batch is sent by the scheduler
+ * when its window ends, or by the thread that fills it up.
+ * <p>
+ * The batches are sent with {@link AsyncRetryOnFailureOperation#executeAsync(Executor)}, so the coalescer must only be used
+ * when {@link OperationsFactory#supportsAsyncOperations()}: otherwise the scheduler would be blocked by the operations,
+ * and the threads waiting for a coalesced operation could be the ones that have to read its response. The futures of
+ * the coalesced operations are completed in the async executor of the client.
+ *
+ * @since 9.1
+ */
+@ThreadSafe
+public class RequestCoalescer {
+   private static final Log log = LogFactory.getLog(RequestCoalescer.class, Log.class);
+   private static final boolean trace = log.isTraceEnabled();
+
+   private final OperationsFactory operationsFactory;
+   private final Codec codec;
+   private final TransportFactory transportFactory;
+   private final byte[] cacheName;
+   private final AtomicInteger topologyId;
+   private final Configuration cfg;
+   private final ScheduledExecutorService scheduler;
+   private final Executor executor;
+   private final long window;
+   private final int maxBatchSize;
+   private final ConcurrentMap<BatchKey, Batch> batches = new ConcurrentHashMap<>();
+
+   RequestCoalescer(OperationsFactory operationsFactory, Codec codec, TransportFactory transportFactory,
+                    byte[] cacheName, AtomicInteger topologyId, Configuration cfg, ScheduledExecutorService scheduler,
+                    Executor executor, RequestCoalescingConfiguration config) {
+      this.operationsFactory = operationsFactory;
+      this.codec = codec;
+      this.transportFactory = transportFactory;
+      this.cacheName = cacheName;
+      this.topologyId = topologyId;
+      this.cfg = cfg;
+      this.scheduler = scheduler;
+      this.executor = executor;
+      this.window = config.window();
+      this.maxBatchSize = config.maxBatchSize();
+   }
+
+   /**
+    * @return <code>true</code> if the next put can be coalesced, i.e. it doesn't have to return the previous value.
+    */
+   public boolean canCoalescePut() {
+      return !operationsFactory.forcesReturnValue();
+   }
+
+   public <V> CompletableFuture<V> get(byte[] key) {
+      BatchKey batchKey = new BatchKey(server(key), operationsFactory.flags(), false, 0, null, 0, null);
+      return enqueue(batchKey, key, null);
+   }
+
+   /**
+    * Completes the returned future with <code>null</code> once the value is written, as the previous value isn't
+    * returned by a putAll.
+    */
+   public <V> CompletableFuture<V> put(byte[] key, byte[] value, long lifespan, TimeUnit lifespanUnit, long maxIdle,
+                                       TimeUnit maxIdleUnit) {
+      BatchKey batchKey = new BatchKey(server(key), operationsFactory.flags(lifespan, maxIdle), true,
+            lifespan, lifespanUnit, maxIdle, maxIdleUnit);
+      return enqueue(batchKey, key, value);
+   }
+
+   private SocketAddress server(byte[] key) {
+      return transportFactory.getSocketAddress(key, cacheName);
+   }
+
+   @SuppressWarnings("unchecked")
+   private <V> CompletableFuture<V> enqueue(BatchKey batchKey, byte[] key, byte[] value) {
+      for (;;) {
+         Batch batch = batches.computeIfAbsent(batchKey, this::newBatch);
+         CompletableFuture<Object> future = batch.add(new WrappedByteArray(key), value);
+         if (future == null) {
+            // the batch was sent just now
+            continue;
+         }
+         if (batch.size() >= maxBatchSize) {
+            send(batchKey, batch);
+         }
+         return (CompletableFuture<V>) future;
+      }
+   }
+
+   private Batch newBatch(BatchKey batchKey) {
+      Batch batch = new Batch();
+      batch.timeout = scheduler.schedule(() -> send(batchKey, batch), window, TimeUnit.MICROSECONDS);
+      return batch;
+   }
+
+   private void send(BatchKey batchKey, Batch batch) {
+      batches.remove(batchKey, batch);
+      Map<WrappedByteArray, PendingKey> keys = batch.close();
+      if (keys == null)
+         return;
+
+      if (trace)
+         log.tracef("Sending %d coalesced %s to %s", keys.size(), batchKey.put ? "puts" : "gets", batchKey.server);
+      AsyncRetryOnFailureOperation<?> operation = batchKey.put
+            ? newPutAllOperation(batchKey, keys) : newGetAllOperation(batchKey, keys);
+      operation.executeAsync(executor).whenComplete((values, throwable) -> {
+         if (throwable != null) {
+            keys.values().forEach(pending -> pending.future.completeExceptionally(throwable));
+         } else if (batchKey.put) {
+            keys.values().forEach(pending -> pending.future.complete(null));
+         } else {
+            keys.forEach((key, pending) -> pending.future.complete(((Map<?, ?>) values).get(key)));
+         }
+      });
+   }
+
+   private GetAllOperation<WrappedByteArray, Object> newGetAllOperation(BatchKey batchKey,
+                                                                      Map<WrappedByteArray, PendingKey> keys) {
+      Set<byte[]> keyBytes = keys.values().stream().map(pending -> pending.key).collect(Collectors.toSet());
+      return new GetAllOperation<WrappedByteArray, Object>(codec, transportFactory, keyBytes, cacheName, topologyId,
+            batchKey.flags, cfg) {
+         @Override
+         protected WrappedByteArray readKey(Transport transport, short status) {
+            // the keys are matched with the pending gets in marshalled form
+            return new WrappedByteArray(transport.readArray());
+         }
+      };
+   }
+
+   private PutAllOperation newPutAllOperation(BatchKey batchKey, Map<WrappedByteArray, PendingKey> keys) {
+      Map<byte[], byte[]> entries = new HashMap<>(keys.size());
+      keys.values().forEach(pending -> entries.put(pending.key, pending.value));
+      return new PutAllOperation(codec, transportFactory, entries, cacheName, topologyId, batchKey.flags, cfg,
+            batchKey.lifespan, batchKey.lifespanUnit, batchKey.maxIdle, batchKey.maxIdleUnit);
+   }
+
+   /**
+    * The operations that share a multi-key operation.
+    */
+   private static final class BatchKey {
+      final SocketAddress server;
+      final int flags;
+      final boolean put;
+      final long lifespan;
+      final TimeUnit lifespanUnit;
+      final long maxIdle;
+      final TimeUnit maxIdleUnit;
+
+      BatchKey(SocketAddress server, int flags, boolean put, long lifespan, TimeUnit lifespanUnit, long maxIdle,
+               TimeUnit maxIdleUnit) {
+         this.server = server;
+         this.flags = flags;
+         this.put = put;
+         this.lifespan = lifespan;
+         this.lifespanUnit = lifespanUnit;
+         this.maxIdle = maxIdle;
+         this.maxIdleUnit = maxIdleUnit;
+      }
+
+      @Override
+      public boolean equals(Object o) {
+         if (this == o) return true;
+         if (o == null || getClass() != o.getClass()) return false;
+         BatchKey batchKey = (BatchKey) o;
+         return flags == batchKey.flags && put == batchKey.put && lifespan == batchKey.lifespan &&
+               maxIdle == batchKey.maxIdle && Objects.equals(server, batchKey.server) &&
+               lifespanUnit == batchKey.lifespanUnit && maxIdleUnit == batchKey.maxIdleUnit;
+      }
+
+      @Override
+      public int hashCode() {
+         return Objects.hash(server, flags, put, lifespan, lifespanUnit, maxIdle, maxIdleUnit);
+      }
+   }
+
+   private static final class PendingKey {
+      final byte[] key;
+      byte[] value;
+      final CompletableFuture<Object> future = new CompletableFuture<>();
+
+      PendingKey(byte[] key) {
+         this.key = key;
+      }
+   }
+
+   private static final class Batch {
+      @GuardedBy("this")
+      private Map<WrappedByteArray, PendingKey> keys = new LinkedHashMap<>();
+      volatile ScheduledFuture<?> timeout;
+
+      /**
+       * @return the future completed with the result for the key, or <code>null</code> if the batch was already sent.
+       */
+      synchronized CompletableFuture<Object> add(WrappedByteArray key, byte[] value) {
+         if (keys == null)
+            return null;
+         PendingKey pending = keys.computeIfAbsent(key, k -> new PendingKey(k.getBytes()));
+         // the last value wins when the same key is written twice in the same window
+         pending.value = value;
+         return pending.future.thenApply(v -> v);
+      }
+
+      synchronized int size() {
+         return keys == null ? 0 : keys.size();
+      }
+
+      synchronized Map<WrappedByteArray, PendingKey> close() {
+         Map<WrappedByteArray, PendingKey> result = keys;
+         keys = null;
+         ScheduledFuture<?> timeout = this.timeout;
+         if (result != null && timeout != null) {
+            timeout.cancel(false);
+         }
+         return result;
+      }
+   }
+}
@@ -84,7 +84,7 @@ public T execute() {
       throw new IllegalStateException("We should not reach here!");
    }
 
-   private void invalidateTransport(Transport transport, SocketAddress address) {
+   protected void invalidateTransport(Transport transport, SocketAddress address) {
       if (transport != null) {
          if (trace)
             log.tracef("Invalidating transport %s as a result of transport exception", transport);
@@ -93,7 +93,7 @@ private void invalidateTransport(Transport transport, SocketAddress address) {
       }
    }
 
-   private Set<SocketAddress> updateFailedServers(SocketAddress address, Set<SocketAddress> failedServers) {
+   protected Set<SocketAddress> updateFailedServers(SocketAddress address, Set<SocketAddress> failedServers) {
       if (failedServers == null) {
          failedServers = new HashSet<>();
       }
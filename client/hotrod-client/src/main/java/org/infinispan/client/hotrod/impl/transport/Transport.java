@@ -1,6 +1,10 @@
 package org.infinispan.client.hotrod.impl.transport;
 
 import java.net.SocketAddress;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import org.infinispan.client.hotrod.exceptions.TransportException;
 
 /**
  * Transport abstraction.
@@ -32,6 +36,30 @@ public interface Transport {
 
    void flush();
 
+   /**
+    * Sends the request written so far like {@link #flush()}. If the response doesn't arrive in time, the operation
+    * fails, and {@code lateResponseReader} is invoked with this transport to skip the response if it arrives later, so
+    * that a transport shared with other requests can still be used.
+    * <p>
+    * By default the request is sent with {@link #flush()} and {@code lateResponseReader} is never invoked.
+    */
+   default void flush(Consumer<Transport> lateResponseReader) {
+      flush();
+   }
+
+   /**
+    * Sends the request written so far without waiting for the response. The callback is invoked with this transport
+    * once the response can be read, or with the failure if the response will never arrive or doesn't arrive in time,
+    * and it must release the transport in both cases. The callback is only invoked once: a response arriving after the
+    * timeout is skipped with {@code lateResponseReader}, like in {@link #flush(Consumer)}.
+    * <p>
+    * By default the request is sent with {@link #flush()} and the callback is invoked in the calling thread.
+    */
+   default void flushAsync(BiConsumer<Transport, TransportException> callback, Consumer<Transport> lateResponseReader) {
+      flush();
+      callback.accept(this, null);
+   }
+
    short readByte();
 
    void release();
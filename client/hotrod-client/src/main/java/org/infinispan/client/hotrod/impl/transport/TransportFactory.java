@@ -58,6 +58,31 @@ void updateHashFunction(SocketAddress[][] segmentOwners, int numSegments, short
 
    Transport getTransport(Object key, Set<SocketAddress> failedServers, byte[] cacheName);
 
+   /**
+    * Same as {@link #getTransport(Set, byte[])}, but the returned transport is never shared with other operations,
+    * so it can still be used after the response was read.
+    */
+   default Transport getExclusiveTransport(Set<SocketAddress> failedServers, byte[] cacheName) {
+      return getTransport(failedServers, cacheName);
+   }
+
+   /**
+    * Same as {@link #getTransport(Object, Set, byte[])}, but the returned transport is never shared with other
+    * operations, so it can still be used after the response was read.
+    */
+   default Transport getExclusiveTransport(Object key, Set<SocketAddress> failedServers, byte[] cacheName) {
+      return getTransport(key, failedServers, cacheName);
+   }
+
+   /**
+    * @return <code>true</code> if the transports returned by {@link #getTransport(Object, Set, byte[])} read the
+    * responses in a separate thread, so {@link Transport#flushAsync(java.util.function.BiConsumer,
+    * java.util.function.Consumer)} doesn't block.
+    */
+   default boolean isAsyncTransport() {
+      return false;
+   }
+
    boolean isTcpNoDelay();
 
    boolean isTcpKeepAlive();
@@ -0,0 +1,196 @@
+package org.infinispan.client.hotrod.impl.transport.tcp;
+
+import java.io.ByteArrayOutputStream;
+import java.net.SocketAddress;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.infinispan.client.hotrod.exceptions.InvalidResponseException;
+import org.infinispan.client.hotrod.exceptions.TransportException;
+import org.infinispan.client.hotrod.impl.protocol.HotRodConstants;
+import org.infinispan.client.hotrod.logging.Log;
+import org.infinispan.client.hotrod.logging.LogFactory;
+
+/**
+ * A connection to a server shared by many concurrent requests. The requests are written one after the other, and a
+ * reader thread matches the responses with the requests by their message id, so the server can answer them in any
+ * order.
+ * <p>
+ * The reader only decodes the magic byte and the message id of each response, the rest of the response is decoded
+ * by the thread that sent the request. The reader waits for it to finish before looking at the next response.
+ * Asynchronous requests have nobody waiting for them, so their responses are decoded by the reader thread itself,
+ * and their timeouts are checked by a task scheduled when they are sent.
+ * <p>
+ * A request that times out stays pending, so its response is still matched and discarded if it arrives later, see
+ * {@link MultiplexedTransport}. The reader waits for each response to be read for at most the socket timeout, and
+ * closes the connection if it isn't.
+ *
+ * @since 9.1
+ */
+class MultiplexedConnection implements Runnable {
+   private static final Log log = LogFactory.getLog(MultiplexedConnection.class, Log.class);
+   private static final boolean trace = log.isTraceEnabled();
+
+   private final TcpTransport transport;
+   private final ScheduledExecutorService timeoutScheduler;
+   private final Lock writeLock = new ReentrantLock();
+   private final ConcurrentMap<Long, MultiplexedTransport> pendingRequests = new ConcurrentHashMap<>();
+   private final AtomicBoolean closed = new AtomicBoolean();
+   private final Thread reader;
+
+   MultiplexedConnection(TcpTransport transport, ScheduledExecutorService timeoutScheduler) {
+      this.transport = transport;
+      this.timeoutScheduler = timeoutScheduler;
+      this.reader = new ReaderThread(this, "HotRod-client-reader-" + transport.getId());
+      reader.setDaemon(true);
+      reader.start();
+   }
+
+   /**
+    * @return <code>true</code> if the current thread reads the responses of a multiplexed connection, so it must not
+    * wait for a response on any multiplexed connection.
+    */
+   static boolean isReaderThread() {
+      return Thread.currentThread() instanceof ReaderThread;
+   }
+
+   TcpTransport getTransport() {
+      return transport;
+   }
+
+   SocketAddress getServerAddress() {
+      return transport.getServerAddress();
+   }
+
+   boolean isValid() {
+      return !closed.get() && transport.isValid();
+   }
+
+   int getPendingRequests() {
+      return pendingRequests.size();
+   }
+
+   /**
+    * Writes the request. If the connection is closed, the request fails only once: either {@link #close(Throwable)}
+    * finds it pending and fails it, in which case this method returns normally, or this method throws.
+    */
+   void send(MultiplexedTransport request, long messageId, byte[] buffer, int length) {
+      TransportException failure = null;
+      pendingRequests.put(messageId, request);
+      writeLock.lock();
+      try {
+         if (!closed.get()) {
+            transport.writeBytes(buffer, 0, length);
+            transport.flush();
+            return;
+         }
+      } catch (TransportException e) {
+         failure = e;
+         close(e);
+      } finally {
+         writeLock.unlock();
+      }
+      if (pendingRequests.remove(messageId, request)) {
+         throw failure != null ? failure : new TransportException("Connection closed", getServerAddress());
+      }
+   }
+
+   /**
+    * Fails the request if its response didn't arrive once the timeout elapses. The reader thread only wakes up when it
+    * receives something, so it can't notice a missing response on a busy connection.
+    */
+   ScheduledFuture<?> scheduleTimeout(MultiplexedTransport request, long messageId, long timeout) {
+      return timeoutScheduler.schedule(() -> {
+         if (pendingRequests.get(messageId) == request) {
+            request.asyncTimeout();
+         }
+      }, timeout, TimeUnit.MILLISECONDS);
+   }
+
+   @Override
+   public void run() {
+      try {
+         while (!closed.get()) {
+            short magic = transport.pollByte();
+            if (magic < 0) {
+               // nothing received within the socket timeout, the requests time out on their own
+               continue;
+            }
+            if (magic != HotRodConstants.RESPONSE_MAGIC) {
+               throw new InvalidResponseException(String.format("Invalid magic number. Expected %#x and received %#x",
+                     HotRodConstants.RESPONSE_MAGIC, magic));
+            }
+            ByteArrayOutputStream header = new ByteArrayOutputStream(10);
+            header.write(magic);
+            long messageId = readMessageId(header);
+            MultiplexedTransport request = pendingRequests.remove(messageId);
+            if (request == null) {
+               // the rest of the response can't be skipped without knowing the operation
+               throw new InvalidResponseException(String.format("Received response with unknown message id %d", messageId));
+            }
+            if (trace)
+               log.tracef("Received response for messageId=%d on %s", messageId, transport);
+
+            if (!request.responseReceived(header.toByteArray()) || !request.awaitResponseRead() || !transport.isValid()) {
+               throw new TransportException("Response for messageId=" + messageId + " was not read", getServerAddress());
+            }
+         }
+      } catch (Throwable t) {
+         close(t);
+      }
+   }
+
+   private long readMessageId(ByteArrayOutputStream header) {
+      long messageId = 0;
+      for (int shift = 0; ; shift += 7) {
+         short b = transport.readByte();
+         header.write(b);
+         messageId |= (long) (b & 0x7F) << shift;
+         if ((b & 0x80) == 0)
+            return messageId;
+      }
+   }
+
+   void close(Throwable cause) {
+      if (!closed.compareAndSet(false, true))
+         return;
+
+      if (trace)
+         log.tracef(cause, "Closing multiplexed connection %s", transport);
+
+      transport.invalidate();
+      transport.destroy();
+      if (Thread.currentThread() != reader) {
+         reader.interrupt();
+      }
+      TransportException exception = cause instanceof TransportException ? (TransportException) cause :
+            new TransportException(cause, getServerAddress());
+      for (Iterator<MultiplexedTransport> it = pendingRequests.values().iterator(); it.hasNext(); ) {
+         MultiplexedTransport request = it.next();
+         it.remove();
+         request.failed(exception);
+      }
+   }
+
+   @Override
+   public String toString() {
+      return "MultiplexedConnection{" +
+            "transport=" + transport +
+            ", pendingRequests=" + pendingRequests.size() +
+            ", closed=" + closed +
+            '}';
+   }
+
+   private static class ReaderThread extends Thread {
+      ReaderThread(Runnable target, String name) {
+         super(target, name);
+      }
+   }
+}
@@ -0,0 +1,102 @@
+package org.infinispan.client.hotrod.impl.transport.tcp;
+
+import java.net.SocketAddress;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.infinispan.client.hotrod.exceptions.TransportException;
+import org.infinispan.client.hotrod.impl.transport.Transport;
+import org.infinispan.client.hotrod.logging.Log;
+import org.infinispan.client.hotrod.logging.LogFactory;
+
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * Keeps a fixed number of {@link MultiplexedConnection}s to each server, and spreads the operations among them.
+ * Broken connections are replaced the next time they are picked.
+ *
+ * @since 9.1
+ */
+@ThreadSafe
+class MultiplexedConnectionPool {
+   private static final Log log = LogFactory.getLog(MultiplexedConnectionPool.class, Log.class);
+   private static final boolean trace = log.isTraceEnabled();
+
+   private final TransportObjectFactory connectionFactory;
+   private final TcpTransportFactory transportFactory;
+   private final int connectionsPerServer;
+   private final ConcurrentMap<SocketAddress, AtomicReferenceArray<MultiplexedConnection>> connections = new ConcurrentHashMap<>();
+   private final AtomicInteger counter = new AtomicInteger();
+   private final ScheduledThreadPoolExecutor timeoutScheduler;
+
+   MultiplexedConnectionPool(TransportObjectFactory connectionFactory, TcpTransportFactory transportFactory,
+                             int connectionsPerServer) {
+      this.connectionFactory = connectionFactory;
+      this.transportFactory = transportFactory;
+      this.connectionsPerServer = connectionsPerServer;
+      this.timeoutScheduler = new ScheduledThreadPoolExecutor(1, r -> {
+         Thread th = new Thread(r, "HotRod-client-timeouts");
+         th.setDaemon(true);
+         return th;
+      });
+      // most requests get their response before the timeout
+      timeoutScheduler.setRemoveOnCancelPolicy(true);
+   }
+
+   Transport getTransport(SocketAddress server) {
+      AtomicReferenceArray<MultiplexedConnection> serverConnections = connections.computeIfAbsent(server,
+            s -> new AtomicReferenceArray<>(connectionsPerServer));
+      int index = (counter.getAndIncrement() & Integer.MAX_VALUE) % connectionsPerServer;
+      MultiplexedConnection connection = serverConnections.get(index);
+      if (connection == null || !connection.isValid()) {
+         synchronized (serverConnections) {
+            connection = serverConnections.get(index);
+            if (connection == null || !connection.isValid()) {
+               connection = connect(server);
+               serverConnections.set(index, connection);
+            }
+         }
+      }
+      return new MultiplexedTransport(connection, transportFactory);
+   }
+
+   private MultiplexedConnection connect(SocketAddress server) {
+      try {
+         MultiplexedConnection connection = new MultiplexedConnection(connectionFactory.makeObject(server), timeoutScheduler);
+         if (trace)
+            log.tracef("Created multiplexed connection %s", connection);
+         return connection;
+      } catch (TransportException e) {
+         throw e;
+      } catch (Exception e) {
+         throw new TransportException("Could not create connection", e, server);
+      }
+   }
+
+   void clear(SocketAddress server) {
+      AtomicReferenceArray<MultiplexedConnection> serverConnections = connections.remove(server);
+      if (serverConnections != null) {
+         close(serverConnections, server);
+      }
+   }
+
+   void close() {
+      connections.forEach((server, serverConnections) -> close(serverConnections, server));
+      connections.clear();
+      timeoutScheduler.shutdownNow();
+   }
+
+   private void close(AtomicReferenceArray<MultiplexedConnection> serverConnections, SocketAddress server) {
+      synchronized (serverConnections) {
+         for (int i = 0; i < serverConnections.length(); i++) {
+            MultiplexedConnection connection = serverConnections.get(i);
+            if (connection != null) {
+               connection.close(new TransportException("Connection pool closed", server));
+            }
+         }
+      }
+   }
+}
@@ -0,0 +1,427 @@
+package org.infinispan.client.hotrod.impl.transport.tcp;
+
+import static org.infinispan.commons.io.SignedNumeric.writeSignedInt;
+import static org.infinispan.commons.io.UnsignedNumeric.writeUnsignedInt;
+import static org.infinispan.commons.io.UnsignedNumeric.writeUnsignedLong;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import org.infinispan.client.hotrod.exceptions.HotRodClientException;
+import org.infinispan.client.hotrod.exceptions.TransportException;
+import org.infinispan.client.hotrod.impl.transport.AbstractTransport;
+import org.infinispan.client.hotrod.impl.transport.Transport;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+import org.infinispan.client.hotrod.logging.Log;
+import org.infinispan.client.hotrod.logging.LogFactory;
+import org.infinispan.commons.io.ExposedByteArrayOutputStream;
+import org.infinispan.commons.io.UnsignedNumeric;
+
+import net.jcip.annotations.GuardedBy;
+
+/**
+ * The transport used by a single operation on a {@link MultiplexedConnection}.
+ * <p>
+ * A request is buffered until {@link #flush()}, and then written in one go. The response is read from the shared
+ * connection once the reader thread finds its message id, and until the operation {@link #release() releases} the
+ * transport or sends another request.
+ * <p>
+ * When the request is sent with {@link #flushAsync(BiConsumer, Consumer)}, the response is read by the reader thread
+ * itself, from the callback.
+ * <p>
+ * When the response doesn't arrive within the socket timeout, only this request fails. The response can't be skipped
+ * without decoding it, so the reader thread decodes and discards it with the late response reader of the operation if
+ * it arrives later. The connection is only closed when the operation has no late response reader.
+ *
+ * @since 9.1
+ */
+class MultiplexedTransport extends AbstractTransport {
+   private static final Log log = LogFactory.getLog(MultiplexedTransport.class, Log.class);
+   private static final boolean trace = log.isTraceEnabled();
+
+   private final MultiplexedConnection connection;
+   private final ExposedByteArrayOutputStream request = new ExposedByteArrayOutputStream(256);
+
+   // the magic byte and message id of the response, already read by the reader thread
+   private volatile byte[] header;
+   private int headerPosition;
+   private volatile TransportException failure;
+   private volatile CountDownLatch responseLatch;
+   private volatile CountDownLatch readLatch;
+   private volatile boolean abandoned;
+   private boolean reading;
+   private volatile BiConsumer<Transport, TransportException> callback;
+   private volatile Consumer<Transport> lateResponseReader;
+   // the operation failed with a timeout, so the response is discarded when it arrives
+   @GuardedBy("this")
+   private boolean timedOut;
+   private long messageId;
+   private volatile ScheduledFuture<?> timeout;
+
+   MultiplexedTransport(MultiplexedConnection connection, TransportFactory transportFactory) {
+      super(transportFactory);
+      this.connection = connection;
+   }
+
+   MultiplexedConnection getConnection() {
+      return connection;
+   }
+
+   @Override
+   public void writeVInt(int vint) {
+      try {
+         writeUnsignedInt(request, vint);
+      } catch (IOException e) {
+         throw new TransportException(e, getServerAddress());
+      }
+   }
+
+   @Override
+   public void writeSignedVInt(int vint) {
+      try {
+         writeSignedInt(request, vint);
+      } catch (IOException e) {
+         throw new TransportException(e, getServerAddress());
+      }
+   }
+
+   @Override
+   public void writeVLong(long l) {
+      try {
+         writeUnsignedLong(request, l);
+      } catch (IOException e) {
+         throw new TransportException(e, getServerAddress());
+      }
+   }
+
+   @Override
+   public void writeByte(short toWrite) {
+      request.write(toWrite);
+   }
+
+   @Override
+   protected void writeBytes(byte[] toAppend) {
+      request.write(toAppend, 0, toAppend.length);
+   }
+
+   @Override
+   protected void writeBytes(byte[] toAppend, int offset, int count) {
+      request.write(toAppend, offset, count);
+   }
+
+   @Override
+   public void flush() {
+      flush(null);
+   }
+
+   @Override
+   public void flush(Consumer<Transport> lateResponseReader) {
+      if (request.size() == 0)
+         return;
+
+      // a new request is only sent once the previous response is read
+      responseRead();
+      // skip the magic byte
+      messageId = UnsignedNumeric.readUnsignedLong(request.getRawBuffer(), 1);
+      header = null;
+      headerPosition = 0;
+      failure = null;
+      abandoned = false;
+      this.lateResponseReader = lateResponseReader;
+      responseLatch = new CountDownLatch(1);
+      readLatch = new CountDownLatch(1);
+      try {
+         connection.send(this, messageId, request.getRawBuffer(), request.size());
+      } finally {
+         request.reset();
+      }
+   }
+
+   @Override
+   public void flushAsync(BiConsumer<Transport, TransportException> callback, Consumer<Transport> lateResponseReader) {
+      this.callback = callback;
+      flush(lateResponseReader);
+      int soTimeout = getTransportFactory().getSoTimeout();
+      if (soTimeout > 0) {
+         timeout = connection.scheduleTimeout(this, messageId, soTimeout);
+      }
+   }
+
+   private void cancelTimeout() {
+      ScheduledFuture<?> timeout = this.timeout;
+      if (timeout != null) {
+         timeout.cancel(false);
+      }
+   }
+
+   /**
+    * Invoked by the reader thread when the response arrives, it then waits for {@link #awaitResponseRead()}.
+    *
+    * @return <code>false</code> if the response can't be read any more.
+    */
+   boolean responseReceived(byte[] header) {
+      BiConsumer<Transport, TransportException> callback = this.callback;
+      boolean late;
+      synchronized (this) {
+         if (abandoned)
+            return false;
+         this.header = header;
+         late = timedOut;
+         if (!late && callback == null) {
+            responseLatch.countDown();
+            return true;
+         }
+      }
+      if (late)
+         return readLateResponse();
+      cancelTimeout();
+      // the callback reads the response and releases the transport in this thread
+      reading = true;
+      callback.accept(this, null);
+      return true;
+   }
+
+   private boolean readLateResponse() {
+      reading = true;
+      try {
+         lateResponseReader.accept(this);
+      } catch (HotRodClientException e) {
+         if (!e.isServerError()) {
+            if (trace)
+               log.tracef(e, "Could not read the late response for messageId=%d", messageId);
+            return false;
+         }
+         // the error response was read completely
+         if (trace)
+            log.tracef(e, "Discarded the late error response for messageId=%d", messageId);
+      } catch (Throwable t) {
+         if (trace)
+            log.tracef(t, "Could not read the late response for messageId=%d", messageId);
+         return false;
+      } finally {
+         reading = false;
+      }
+      readLatch.countDown();
+      return true;
+   }
+
+   /**
+    * Waits until the operation has read the response, for at most the socket timeout.
+    *
+    * @return <code>false</code> if the response was not read completely.
+    */
+   boolean awaitResponseRead() throws InterruptedException {
+      int timeout = getTransportFactory().getSoTimeout();
+      if (timeout > 0) {
+         if (!readLatch.await(timeout, TimeUnit.MILLISECONDS))
+            return false;
+      } else {
+         readLatch.await();
+      }
+      return failure == null && !abandoned;
+   }
+
+   void failed(TransportException cause) {
+      BiConsumer<Transport, TransportException> callback = this.callback;
+      synchronized (this) {
+         if (timedOut)
+            // the operation has already failed
+            return;
+         failure = cause;
+         if (callback == null) {
+            CountDownLatch latch = responseLatch;
+            if (latch != null)
+               latch.countDown();
+            return;
+         }
+      }
+      cancelTimeout();
+      callback.accept(this, cause);
+   }
+
+   /**
+    * Invoked when the timeout of an asynchronous request elapses before its response arrives.
+    */
+   void asyncTimeout() {
+      if (timeOut() && lateResponseReader != null) {
+         callback.accept(this, timeoutException());
+      }
+   }
+
+   /**
+    * Gives up waiting for the response. If the operation can't read the response later, the connection is closed, and
+    * so the pending asynchronous requests fail.
+    *
+    * @return <code>false</code> if the response or a failure arrived in the meantime, so it must be handled as usual.
+    */
+   private boolean timeOut() {
+      synchronized (this) {
+         if (header != null || failure != null)
+            return false;
+         if (lateResponseReader != null) {
+            timedOut = true;
+            return true;
+         }
+         abandoned = true;
+      }
+      // the response can't be skipped when it arrives, so the connection can't be used any more
+      connection.close(timeoutException());
+      return true;
+   }
+
+   private TransportException timeoutException() {
+      return new TransportException(new SocketTimeoutException("Read timed out"), getServerAddress());
+   }
+
+   private void awaitResponse() {
+      if (reading)
+         return;
+
+      CountDownLatch latch = responseLatch;
+      if (latch == null)
+         throw new IllegalStateException("No request was sent");
+      try {
+         int timeout = getTransportFactory().getSoTimeout();
+         if (timeout > 0) {
+            if (!latch.await(timeout, TimeUnit.MILLISECONDS) && timeOut()) {
+               throw timeoutException();
+            }
+         } else {
+            latch.await();
+         }
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         abandoned = true;
+         throw new TransportException(e, getServerAddress());
+      }
+      if (failure != null)
+         throw failure;
+      reading = true;
+   }
+
+   private void responseRead() {
+      synchronized (this) {
+         if (timedOut)
+            // the reader thread discards the response
+            return;
+      }
+      if (reading) {
+         reading = false;
+         readLatch.countDown();
+      } else if (responseLatch != null && header == null) {
+         // the operation gave up before reading the response
+         abandoned = true;
+         readLatch.countDown();
+      }
+   }
+
+   @Override
+   public short readByte() {
+      awaitResponse();
+      if (headerPosition < header.length) {
+         return (short) (header[headerPosition++] & 0xFF);
+      }
+      return connection.getTransport().readByte();
+   }
+
+   @Override
+   public long readVLong() {
+      awaitResponse();
+      if (headerPosition < header.length) {
+         long result = 0;
+         for (int shift = 0; ; shift += 7) {
+            short b = readByte();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+               return result;
+         }
+      }
+      return connection.getTransport().readVLong();
+   }
+
+   @Override
+   public int readVInt() {
+      awaitResponse();
+      if (headerPosition < header.length) {
+         int result = 0;
+         for (int shift = 0; ; shift += 7) {
+            short b = readByte();
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+               return result;
+         }
+      }
+      return connection.getTransport().readVInt();
+   }
+
+   @Override
+   public void readByteArray(byte[] buffer, int size) {
+      awaitResponse();
+      int offset = 0;
+      while (offset < size && headerPosition < header.length) {
+         buffer[offset++] = header[headerPosition++];
+      }
+      if (offset == size)
+         return;
+      if (offset == 0) {
+         connection.getTransport().readByteArray(buffer, size);
+      } else {
+         byte[] remaining = connection.getTransport().readByteArray(size - offset);
+         System.arraycopy(remaining, 0, buffer, offset, remaining.length);
+      }
+   }
+
+   @Override
+   public byte[] readByteArray(int size) {
+      byte[] result = new byte[size];
+      readByteArray(result, size);
+      return result;
+   }
+
+   @Override
+   public void release() {
+      responseRead();
+   }
+
+   @Override
+   public byte[] dumpStream() {
+      return reading ? connection.getTransport().dumpStream() : new byte[0];
+   }
+
+   @Override
+   public SocketAddress getRemoteSocketAddress() {
+      return connection.getTransport().getRemoteSocketAddress();
+   }
+
+   public SocketAddress getServerAddress() {
+      return connection.getServerAddress();
+   }
+
+   @Override
+   public void invalidate() {
+      synchronized (this) {
+         if (timedOut)
+            // only this request failed, the connection is still usable
+            return;
+      }
+      connection.close(new TransportException("Connection invalidated", getServerAddress()));
+   }
+
+   @Override
+   public boolean isValid() {
+      return connection.isValid();
+   }
+
+   @Override
+   public String toString() {
+      return "MultiplexedTransport{" +
+            "connection=" + connection +
+            '}';
+   }
+}
@@ -15,6 +15,8 @@
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.SocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
 import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicLong;
@@ -82,7 +84,7 @@ public TcpTransport(SocketAddress originalServerAddress, TransportFactory transp
          socket.setSoTimeout(transportFactory.getSoTimeout());
          socketInputStream = new BufferedInputStream(socket.getInputStream(), SOCKET_STREAM_BUFFER);
          // ensure we don't send a packet for every output byte
-         socketOutputStream = new BufferedOutputStream(socket.getOutputStream(), SOCKET_STREAM_BUFFER);
+         socketOutputStream = new BufferedOutputStream(rawOutputStream(), SOCKET_STREAM_BUFFER);
       } catch (Exception e) {
          String message = String.format("Could not connect to server: %s", serverAddress);
          log.tracef(e, "Could not connect to server: %s", serverAddress);
@@ -99,11 +101,35 @@ private void setSniHostName(String sniHostName) {
       }
    }
 
+   /**
+    * The output stream of the socket adaptor of a channel holds the blocking lock of the channel while writing, and so
+    * does its input stream while waiting for data, so a request couldn't be written to a multiplexed connection while
+    * its reader thread waits for the next response. Writing to the channel directly doesn't take that lock.
+    */
+   private OutputStream rawOutputStream() throws IOException {
+      if (socketChannel == null)
+         return socket.getOutputStream();
+      return new OutputStream() {
+         @Override
+         public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+         }
+
+         @Override
+         public void write(byte[] b, int off, int len) throws IOException {
+            ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+            while (buffer.hasRemaining()) {
+               socketChannel.write(buffer);
+            }
+         }
+      };
+   }
+
    void setSaslClient(SaslClient saslClient) {
       this.saslClient = saslClient;
       try {
          this.socketInputStream = new SaslInputStream(socket.getInputStream(), saslClient);
-         this.socketOutputStream = new SaslOutputStream(socket.getOutputStream(), saslClient);
+         this.socketOutputStream = new SaslOutputStream(rawOutputStream(), saslClient);
       } catch (IOException e) {
          invalid = true;
          throw new TransportException(e, serverAddress);
@@ -227,6 +253,26 @@ public short readByte() {
       return (short) resultInt;
    }
 
+   /**
+    * Waits for the next byte like {@link #readByte()}, but returns <code>-1</code> instead of failing when the socket
+    * timeout expires before anything is received.
+    */
+   short pollByte() {
+      int resultInt;
+      try {
+         resultInt = socketInputStream.read();
+      } catch (SocketTimeoutException e) {
+         return -1;
+      } catch (IOException e) {
+         invalid = true;
+         throw new TransportException(e, serverAddress);
+      }
+      if (resultInt == -1) {
+         throw new TransportException("End of stream reached!", serverAddress);
+      }
+      return (short) resultInt;
+   }
+
    @Override
    public void release() {
       destroy();
@@ -66,6 +66,8 @@ public class TcpTransportFactory implements TransportFactory {
    private final Object lock = new Object();
    // The connection pool implementation is assumed to be thread-safe, so we need to synchronize just the access to this field and not the method calls
    private GenericKeyedObjectPool<SocketAddress, TcpTransport> connectionPool;
+   // The connections shared by concurrent operations, null unless enabled
+   private MultiplexedConnectionPool multiplexedConnectionPool;
    // Per cache request balancing strategy
    private Map<WrappedByteArray, FailoverRequestBalancingStrategy> balancers;
    private Configuration configuration;
@@ -159,6 +161,10 @@ public void start(Codec codec, Configuration configuration, AtomicInteger defaul
                          connectionFactory,
                          configuration.connectionPool());
          createAndPreparePool(poolFactory);
+         int multiplexedConnections = configuration.connectionPool().multiplexedConnections();
+         if (multiplexedConnections > 0) {
+            multiplexedConnectionPool = new MultiplexedConnectionPool(connectionFactory, this, multiplexedConnections);
+         }
          balancers = new HashMap<>();
          addBalancer(new WrappedByteArray(RemoteCacheManager.cacheNameBytes()));
 
@@ -216,6 +222,9 @@ private void createAndPreparePool(PropsKeyedObjectPoolFactory<SocketAddress, Tcp
    @Override
    public void destroy() {
       synchronized (lock) {
+         if (multiplexedConnectionPool != null) {
+            multiplexedConnectionPool.close();
+         }
          connectionPool.clear();
          try {
             connectionPool.close();
@@ -251,6 +260,15 @@ public void updateHashFunction(SocketAddress[][] segmentOwners, int numSegments,
 
    @Override
    public Transport getTransport(Set<SocketAddress> failedServers, byte[] cacheName) {
+      SocketAddress server;
+      synchronized (lock) {
+         server = getNextServer(failedServers, cacheName);
+      }
+      return getSharedTransport(server);
+   }
+
+   @Override
+   public Transport getExclusiveTransport(Set<SocketAddress> failedServers, byte[] cacheName) {
       SocketAddress server;
       synchronized (lock) {
          server = getNextServer(failedServers, cacheName);
@@ -288,13 +306,20 @@ public SocketAddress getSocketAddress(Object key, byte[] cacheName) {
    }
 
    public Transport getTransport(Object key, Set<SocketAddress> failedServers, byte[] cacheName) {
-      SocketAddress server;
+      return getSharedTransport(getServer(key, failedServers, cacheName));
+   }
+
+   @Override
+   public Transport getExclusiveTransport(Object key, Set<SocketAddress> failedServers, byte[] cacheName) {
+      return borrowTransportFromPool(getServer(key, failedServers, cacheName));
+   }
+
+   private SocketAddress getServer(Object key, Set<SocketAddress> failedServers, byte[] cacheName) {
       synchronized (lock) {
          Optional<SocketAddress> hashAwareServer = topologyInfo.getHashAwareServer(key, cacheName);
          Optional<SocketAddress> filtered = hashAwareServer.filter(a -> failedServers == null || !failedServers.contains(a));
-         server = filtered.orElse(getNextServer(failedServers, cacheName));
+         return filtered.orElse(getNextServer(failedServers, cacheName));
       }
-      return borrowTransportFromPool(server);
    }
 
    @Override
@@ -305,6 +330,10 @@ public void releaseTransport(Transport transport) {
          }
          return;
       }
+      if (transport instanceof MultiplexedTransport) {
+         transport.release();
+         return;
+      }
       // The invalidateObject()/returnObject() calls could take a long time, so we hold the lock only until we get the connection pool reference
       KeyedObjectPool<SocketAddress, TcpTransport> pool = getConnectionPool();
       TcpTransport tcpTransport = (TcpTransport) transport;
@@ -387,6 +416,9 @@ private Collection<SocketAddress> updateTopologyInfo(byte[] cacheName, Collectio
       for (SocketAddress server : failedServers) {
          log.removingServer(server);
          connectionPool.clear(server);
+         if (multiplexedConnectionPool != null) {
+            multiplexedConnectionPool.clear(server);
+         }
       }
 
       servers = Collections.unmodifiableList(new ArrayList(newServers));
@@ -413,6 +445,20 @@ private void logConnectionInfo(SocketAddress server) {
       }
    }
 
+   private Transport getSharedTransport(SocketAddress server) {
+      MultiplexedConnectionPool pool;
+      synchronized (lock) {
+         pool = multiplexedConnectionPool;
+      }
+      // asynchronous operations are completed by the reader threads, which can't wait for another response
+      if (pool == null || MultiplexedConnection.isReaderThread()) {
+         return borrowTransportFromPool(server);
+      }
+      Transport transport = pool.getTransport(server);
+      reconnectListenersIfNeeded();
+      return transport;
+   }
+
    private Transport borrowTransportFromPool(SocketAddress server) {
       // The borrowObject() call could take a long time, so we hold the lock only until we get the connection pool reference
       KeyedObjectPool<SocketAddress, TcpTransport> pool = getConnectionPool();
@@ -457,6 +503,16 @@ public ConsistentHashFactory getConsistentHashFactory() {
       return topologyInfo.getConsistentHashFactory();
    }
 
+   @Override
+   public boolean isAsyncTransport() {
+      // the reader threads get exclusive transports, see getSharedTransport
+      if (MultiplexedConnection.isReaderThread())
+         return false;
+      synchronized (lock) {
+         return multiplexedConnectionPool != null;
+      }
+   }
+
    @Override
    public boolean isTcpNoDelay() {
       return tcpNoDelay;
@@ -258,4 +258,16 @@ public interface Log extends BasicLogger {
    @Message(value = "Class '%s' blocked by Java standard deserialization white list. Adjust the client configuration java serialization white list regular expression to include this class.", id = 4068)
    CacheException classNotInWhitelist(String className);
 
+   @Message(value = "Near cache max entries and max memory can't be configured at the same time", id = 4069)
+   CacheConfigurationException nearCacheMaxEntriesAndMaxMemory();
+
+   @Message(value = "Invalid request coalescing window %d or maximum batch size %d", id = 4070)
+   CacheConfigurationException invalidRequestCoalescingSettings(long window, int maxBatchSize);
+
+   @Message(value = "Request coalescing requires multiplexed connections", id = 4071)
+   CacheConfigurationException requestCoalescingWithoutMultiplexedConnections();
+
+   @Message(value = "Near cache max memory requires the values to be stored as binary", id = 4072)
+   CacheConfigurationException nearCacheMaxMemoryWithoutStoreAsBinary();
+
 }
@@ -1,52 +1,86 @@
 package org.infinispan.client.hotrod.near;
 
 import java.util.concurrent.ConcurrentMap;
+import java.util.function.ToIntFunction;
 
 import org.infinispan.client.hotrod.VersionedValue;
 import org.infinispan.client.hotrod.configuration.NearCacheConfiguration;
-import org.infinispan.commons.util.CollectionFactory;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 
 /**
- * Near cache based on {@link BoundedConcurrentMapNearCache}
+ * Near cache based on a Caffeine cache, which uses a frequency based admission policy (W-TinyLFU), so entries read
+ * only once don't evict the frequently read ones. It is bounded either by the number of entries or by their
+ * approximate size in memory.
  *
  * @since 7.2
  */
 final class BoundedConcurrentMapNearCache<K, V> implements NearCache<K, V> {
 
-   private final ConcurrentMap<K, VersionedValue<V>> cache;
+   private final Cache<K, VersionedValue<V>> cache;
+   private final ConcurrentMap<K, VersionedValue<V>> map;
 
-   private BoundedConcurrentMapNearCache(ConcurrentMap<K, VersionedValue<V>> cache) {
+   private BoundedConcurrentMapNearCache(Cache<K, VersionedValue<V>> cache) {
       this.cache = cache;
+      this.map = cache.asMap();
    }
 
    public static <K, V> NearCache<K, V> create(final NearCacheConfiguration config) {
       return new BoundedConcurrentMapNearCache<K, V>(
-         CollectionFactory.<K, VersionedValue<V>>makeBoundedConcurrentMap(config.maxEntries()));
+         newBuilder().maximumSize(config.maxEntries()).build());
+   }
+
+   /**
+    * @param entrySize computes the size in bytes of the entry holding a value, as counted against
+    *                  {@link NearCacheConfiguration#maxMemory()}
+    * @since 9.1
+    */
+   public static <K, V> NearCache<K, V> createMemoryBounded(final NearCacheConfiguration config,
+                                                             ToIntFunction<VersionedValue<V>> entrySize) {
+      return new BoundedConcurrentMapNearCache<K, V>(
+         newBuilder().<K, VersionedValue<V>>weigher((k, v) -> entrySize.applyAsInt(v))
+               .maximumWeight(config.maxMemory()).build());
+   }
+
+   private static Caffeine<Object, Object> newBuilder() {
+      // evict in the caller thread, so the near cache never grows past its bound
+      return Caffeine.newBuilder().executor(Runnable::run).recordStats();
    }
 
    @Override
    public void put(K key, VersionedValue<V> value) {
-      cache.put(key, value);
+      map.put(key, value);
    }
 
    @Override
    public void putIfAbsent(K key, VersionedValue<V> value) {
-      cache.putIfAbsent(key, value);
+      map.putIfAbsent(key, value);
    }
 
    @Override
    public void remove(K key) {
-      cache.remove(key);
+      map.remove(key);
    }
 
    @Override
    public VersionedValue<V> get(K key) {
-      return cache.get(key);
+      return map.get(key);
    }
 
    @Override
    public void clear() {
-      cache.clear();
+      map.clear();
+   }
+
+   @Override
+   public int size() {
+      return (int) cache.estimatedSize();
+   }
+
+   @Override
+   public long evictions() {
+      return cache.stats().evictionCount();
    }
 
 }
@@ -40,6 +40,16 @@ public void clear() {
       cache.clear();
    }
 
+   @Override
+   public int size() {
+      return cache.size();
+   }
+
+   @Override
+   public long evictions() {
+      return 0;
+   }
+
    public static <K, V> NearCache<K, V> create() {
       return new ConcurrentMapNearCache<K, V>();
    }
@@ -2,6 +2,7 @@
 
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -23,8 +24,11 @@
 
    private final ReadWriteLock rwlock = new ReentrantReadWriteLock();
 
-   protected LinkedMapNearCache(LinkedHashMap<K, VersionedValue<V>> cache) {
+   private final LongAdder evictions;
+
+   protected LinkedMapNearCache(LinkedHashMap<K, VersionedValue<V>> cache, LongAdder evictions) {
       this.cache = cache;
+      this.evictions = evictions;
    }
 
    @Override
@@ -84,14 +88,34 @@ public void clear() {
       }
    }
 
+   @Override
+   public int size() {
+      Lock lock = rwlock.readLock();
+      try {
+         lock.lock();
+         return cache.size();
+      } finally {
+         lock.unlock();
+      }
+   }
+
+   @Override
+   public long evictions() {
+      return evictions.sum();
+   }
+
    public static <K, V> NearCache<K, V> create(final NearCacheConfiguration config) {
+      LongAdder evictions = new LongAdder();
       return new LinkedMapNearCache<K, V>(
             new LinkedHashMap<K, VersionedValue<V>>(1 << 4, 0.75f, true) {
          @Override
          protected boolean removeEldestEntry(Map.Entry eldest) {
-            return size() > config.maxEntries();
+            boolean evict = size() > config.maxEntries();
+            if (evict)
+               evictions.increment();
+            return evict;
          }
-      });
+      }, evictions);
    }
 
 }
@@ -13,4 +13,6 @@
    void remove(K key);
    VersionedValue<V> get(K key);
    void clear();
+   int size();
+   long evictions();
 }
@@ -1,8 +1,12 @@
 package org.infinispan.client.hotrod.near;
 
 import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
 
+import org.infinispan.client.hotrod.NearCacheStatistics;
 import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.client.hotrod.RemoteCacheManager;
 import org.infinispan.client.hotrod.VersionedValue;
 import org.infinispan.client.hotrod.annotation.ClientCacheEntryCreated;
 import org.infinispan.client.hotrod.annotation.ClientCacheEntryModified;
@@ -16,9 +20,12 @@
 import org.infinispan.client.hotrod.event.ClientCacheEntryRemovedEvent;
 import org.infinispan.client.hotrod.event.ClientCacheFailoverEvent;
 import org.infinispan.client.hotrod.event.ClientListenerNotifier;
+import org.infinispan.client.hotrod.impl.MarshalledMetadataValue;
+import org.infinispan.client.hotrod.impl.NearCacheStatisticsImpl;
 import org.infinispan.client.hotrod.impl.VersionedValueImpl;
 import org.infinispan.client.hotrod.logging.Log;
 import org.infinispan.client.hotrod.logging.LogFactory;
+import org.infinispan.client.hotrod.marshall.MarshallerUtil;
 import org.infinispan.commons.io.UnsignedNumeric;
 import org.infinispan.commons.marshall.Marshaller;
 import org.infinispan.commons.util.Util;
@@ -31,12 +38,20 @@
 public class NearCacheService<K, V> implements NearCache<K, V> {
    private static final Log log = LogFactory.getLog(NearCacheService.class);
    private static final boolean trace = log.isTraceEnabled();
+   // approximate size of the map node, the stored value and the header of its byte array
+   private static final int ENTRY_OVERHEAD = 128;
 
    private final NearCacheConfiguration config;
    private final ClientListenerNotifier listenerNotifier;
    private Object listener;
    private byte[] listenerId;
    private NearCache<K, V> cache;
+   private Marshaller marshaller;
+   private List<String> serialWhitelist;
+   private int keySizeEstimate;
+   private int valueSizeEstimate;
+   private final LongAdder hits = new LongAdder();
+   private final LongAdder misses = new LongAdder();
 
    protected NearCacheService(NearCacheConfiguration config, ClientListenerNotifier listenerNotifier) {
       this.config = config;
@@ -44,6 +59,11 @@ protected NearCacheService(NearCacheConfiguration config, ClientListenerNotifier
    }
 
    public void start(RemoteCache<K, V> remote) {
+      RemoteCacheManager remoteCacheManager = remote.getRemoteCacheManager();
+      marshaller = remoteCacheManager.getMarshaller();
+      serialWhitelist = remoteCacheManager.getConfiguration().serialWhitelist();
+      keySizeEstimate = remoteCacheManager.getConfiguration().keySizeEstimate();
+      valueSizeEstimate = remoteCacheManager.getConfiguration().valueSizeEstimate();
       // Create near cache
       cache = createNearCache(config);
       // Add a listener that updates the near cache
@@ -70,6 +90,9 @@ public void stop(RemoteCache<K, V> remote) {
    }
 
    protected NearCache<K, V> createNearCache(NearCacheConfiguration config) {
+      if (config.maxMemory() > 0)
+         return BoundedConcurrentMapNearCache.createMemoryBounded(config, this::entrySize);
+
       return config.maxEntries() > 0
             ? BoundedConcurrentMapNearCache.<K, V>create(config)
             : ConcurrentMapNearCache.<K, V>create();
@@ -82,7 +105,7 @@ public static <K, V> NearCacheService<K, V> create(
 
    @Override
    public void put(K key, VersionedValue<V> value) {
-       cache.put(key, value);
+      cache.put(key, toStoredValue(value));
 
       if (trace)
          log.tracef("Put key=%s and value=%s in near cache (listenerId=%s)",
@@ -91,7 +114,7 @@ public void put(K key, VersionedValue<V> value) {
 
    @Override
    public void putIfAbsent(K key, VersionedValue<V> value) {
-      cache.putIfAbsent(key, value);
+      cache.putIfAbsent(key, toStoredValue(value));
 
       if (trace)
          log.tracef("Conditionally put key=%s and value=%s if absent in near cache (listenerId=%s)",
@@ -111,12 +134,18 @@ public VersionedValue<V> get(K key) {
       boolean listenerConnected = isConnected();
       if (listenerConnected) {
          VersionedValue<V> value = cache.get(key);
+         if (value != null) {
+            hits.increment();
+         } else {
+            misses.increment();
+         }
          if (trace)
             log.tracef("Get key=%s returns value=%s (listenerId=%s)", key, value, Util.printArray(listenerId));
 
          return value;
       }
 
+      misses.increment();
       if (trace)
          log.tracef("Near cache disconnected from server, returning null for key=%s (listenedId=%s)",
                key, Util.printArray(listenerId));
@@ -130,6 +159,63 @@ public void clear() {
       if (trace) log.tracef("Cleared near cache (listenerId=%s)", Util.printArray(listenerId));
    }
 
+   /**
+    * @since 9.1
+    */
+   public NearCacheStatistics getStatistics() {
+      NearCacheStatisticsImpl stats = new NearCacheStatisticsImpl();
+      stats.addStats(NearCacheStatistics.CURRENT_NR_OF_ENTRIES, cache.size());
+      stats.addStats(NearCacheStatistics.HITS, hits.sum());
+      stats.addStats(NearCacheStatistics.MISSES, misses.sum());
+      stats.addStats(NearCacheStatistics.EVICTIONS, cache.evictions());
+      return stats;
+   }
+
+   @Override
+   public int size() {
+      return cache.size();
+   }
+
+   @Override
+   public long evictions() {
+      return cache.evictions();
+   }
+
+   /**
+    * @return whether the values are stored as binary, in which case they should be passed to {@link #put} and
+    * {@link #putIfAbsent} as the {@link MarshalledMetadataValue} received from the server, so that they are not
+    * unmarshalled and marshalled again
+    * @since 9.1
+    */
+   public boolean storesAsBinary() {
+      return config.storeAsBinary();
+   }
+
+   private VersionedValue<V> toStoredValue(VersionedValue<V> value) {
+      if (!config.storeAsBinary() || value instanceof MarshalledMetadataValue)
+         return value;
+
+      // e.g. a server which doesn't support getWithMetadata
+      byte[] valueBytes = marshall(value.getValue());
+      return valueBytes != null
+            ? new MarshalledMetadataValue<>(-1, -1, -1, -1, value.getVersion(), valueBytes, (short) 0, marshaller, serialWhitelist)
+            : value;
+   }
+
+   /**
+    * Weighs an entry of a memory bounded near cache, which stores the values as binary. The weight is approximate: the
+    * stored bytes of the value are counted as they are, but the key is counted for the key size estimate instead of
+    * being marshalled, and the objects holding the entry for a fixed {@link #ENTRY_OVERHEAD}.
+    */
+   private int entrySize(VersionedValue<V> value) {
+      int valueSize = value instanceof MarshalledMetadataValue ? ((MarshalledMetadataValue<V>) value).valueSize() : 0;
+      return ENTRY_OVERHEAD + keySizeEstimate + valueSize;
+   }
+
+   private byte[] marshall(Object value) {
+      return MarshallerUtil.obj2bytes(marshaller, value, false, valueSizeEstimate, valueSizeEstimate);
+   }
+
    private boolean isConnected() {
       return listenerNotifier.isListenerConnected(listenerId);
    }
@@ -0,0 +1,61 @@
+package org.infinispan.client.hotrod;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.infinispan.client.hotrod.configuration.ConfigurationBuilder;
+import org.infinispan.client.hotrod.test.InternalRemoteCacheManager;
+import org.infinispan.client.hotrod.test.SingleHotRodServerTest;
+import org.testng.annotations.Test;
+
+/**
+ * Tests that the asynchronous operations are completed with their outcome when the async executor rejects their
+ * completion.
+ *
+ * @since 9.1
+ */
+@Test(groups = "functional", testName = "client.hotrod.AsyncExecutorRejectionTest")
+public class AsyncExecutorRejectionTest extends SingleHotRodServerTest {
+
+   private volatile boolean rejecting;
+
+   @Override
+   protected RemoteCacheManager getRemoteCacheManager() {
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.forceReturnValues(true);
+      builder.addServer().host("127.0.0.1").port(hotrodServer.getPort())
+            .connectionPool().multiplexedConnections(1);
+      builder.asyncExecutorFactory().factory(p -> rejectingExecutor());
+      return new InternalRemoteCacheManager(builder.build());
+   }
+
+   private ExecutorService rejectingExecutor() {
+      return new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>()) {
+         @Override
+         public void execute(Runnable command) {
+            if (rejecting)
+               throw new RejectedExecutionException();
+            super.execute(command);
+         }
+      };
+   }
+
+   public void testRejectedCompletion() throws Exception {
+      RemoteCache<String, String> remote = remoteCacheManager.getCache();
+      rejecting = true;
+      try {
+         assertNull(remote.putAsync("k", "v").get(10, TimeUnit.SECONDS));
+         assertEquals("v", remote.getAsync("k").get(10, TimeUnit.SECONDS));
+         assertEquals("v", remote.removeAsync("k").get(10, TimeUnit.SECONDS));
+      } finally {
+         rejecting = false;
+      }
+      assertNull(remote.get("k"));
+   }
+}
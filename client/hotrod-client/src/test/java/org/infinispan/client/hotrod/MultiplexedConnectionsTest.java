@@ -0,0 +1,83 @@
+package org.infinispan.client.hotrod;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import org.apache.commons.pool.impl.GenericKeyedObjectPool;
+import org.infinispan.client.hotrod.configuration.ConfigurationBuilder;
+import org.infinispan.client.hotrod.impl.transport.tcp.TcpTransport;
+import org.infinispan.client.hotrod.impl.transport.tcp.TcpTransportFactory;
+import org.infinispan.client.hotrod.test.InternalRemoteCacheManager;
+import org.infinispan.client.hotrod.test.SingleHotRodServerTest;
+import org.testng.annotations.Test;
+
+/**
+ * Tests concurrent operations sharing a single connection to the server.
+ *
+ * @since 9.1
+ */
+@Test(testName = "client.hotrod.MultiplexedConnectionsTest", groups = "functional")
+public class MultiplexedConnectionsTest extends SingleHotRodServerTest {
+
+   private static final int NUM_THREADS = 10;
+   private static final int NUM_KEYS = 100;
+
+   @Override
+   protected RemoteCacheManager getRemoteCacheManager() {
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.addServer().host("127.0.0.1").port(hotrodServer.getPort())
+            .connectionPool().multiplexedConnections(1);
+      return new InternalRemoteCacheManager(builder.build());
+   }
+
+   public void testConcurrentOperations() throws Exception {
+      RemoteCache<String, String> remoteCache = remoteCacheManager.getCache();
+      TcpTransportFactory transportFactory =
+            (TcpTransportFactory) ((InternalRemoteCacheManager) remoteCacheManager).getTransportFactory();
+      GenericKeyedObjectPool<SocketAddress, TcpTransport> pool = transportFactory.getConnectionPool();
+      int pooledConnections = pool.getNumActive() + pool.getNumIdle();
+      List<Future<Void>> futures = new ArrayList<>();
+      for (int t = 0; t < NUM_THREADS; t++) {
+         String prefix = "t" + t + "-";
+         futures.add(fork(() -> {
+            for (int i = 0; i < NUM_KEYS; i++) {
+               assertNull(remoteCache.put(prefix + i, "v" + i));
+               assertEquals("v" + i, remoteCache.get(prefix + i));
+            }
+            return null;
+         }));
+      }
+      for (Future<Void> future : futures) {
+         future.get();
+      }
+      assertEquals(NUM_THREADS * NUM_KEYS, remoteCache.size());
+
+      // the concurrent operations didn't open more pooled connections, they shared the multiplexed one
+      assertEquals(pooledConnections, pool.getNumActive() + pool.getNumIdle());
+   }
+
+   public void testStreamingOperations() throws Exception {
+      StreamingRemoteCache<String> streamingCache = remoteCacheManager.<String, String>getCache().streaming();
+      try (OutputStream os = streamingCache.put("stream")) {
+         for (int i = 0; i < 1000; i++) {
+            os.write(i % 256);
+         }
+      }
+      // a regular operation while the stream is open
+      try (InputStream is = streamingCache.get("stream")) {
+         remoteCacheManager.getCache().put("k", "v");
+         for (int i = 0; i < 1000; i++) {
+            assertEquals(i % 256, is.read());
+         }
+         assertEquals(-1, is.read());
+      }
+      assertEquals("v", remoteCacheManager.getCache().get("k"));
+   }
+}
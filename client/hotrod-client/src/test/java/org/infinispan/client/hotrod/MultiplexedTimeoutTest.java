@@ -0,0 +1,161 @@
+package org.infinispan.client.hotrod;
+
+import static org.infinispan.server.hotrod.test.HotRodTestingUtil.hotRodCacheConfiguration;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+import static org.testng.AssertJUnit.fail;
+
+import java.net.SocketTimeoutException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.infinispan.client.hotrod.exceptions.TransportException;
+import org.infinispan.client.hotrod.test.HotRodClientTestingUtil;
+import org.infinispan.client.hotrod.test.InternalRemoteCacheManager;
+import org.infinispan.client.hotrod.test.SingleHotRodServerTest;
+import org.infinispan.commands.write.PutKeyValueCommand;
+import org.infinispan.commons.marshall.Marshaller;
+import org.infinispan.commons.marshall.WrappedByteArray;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.context.InvocationContext;
+import org.infinispan.interceptors.base.CommandInterceptor;
+import org.infinispan.interceptors.impl.EntryWrappingInterceptor;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.marshall.core.JBossMarshaller;
+import org.infinispan.server.hotrod.HotRodServer;
+import org.infinispan.server.hotrod.configuration.HotRodServerConfigurationBuilder;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.Test;
+
+/**
+ * Tests that a request timing out on a multiplexed connection doesn't fail the other requests sharing the connection,
+ * and that its response is discarded when it arrives later.
+ *
+ * @since 9.1
+ */
+@Test(groups = "functional", testName = "client.hotrod.MultiplexedTimeoutTest")
+public class MultiplexedTimeoutTest extends SingleHotRodServerTest {
+
+   private static final int SOCKET_TIMEOUT = 3000;
+   private static final ConcurrentMap<String, CountDownLatch> blockedKeys = new ConcurrentHashMap<>();
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.customInterceptors().addInterceptor().interceptor(
+            new BlockingInterceptor()).after(EntryWrappingInterceptor.class);
+      return TestCacheManagerFactory.createCacheManager(hotRodCacheConfiguration(builder));
+   }
+
+   @Override
+   protected HotRodServer createHotRodServer() {
+      HotRodServerConfigurationBuilder builder = new HotRodServerConfigurationBuilder();
+      builder.workerThreads(6);
+      return HotRodClientTestingUtil.startHotRodServer(cacheManager, builder);
+   }
+
+   @Override
+   protected RemoteCacheManager getRemoteCacheManager() {
+      org.infinispan.client.hotrod.configuration.ConfigurationBuilder builder =
+            new org.infinispan.client.hotrod.configuration.ConfigurationBuilder();
+      builder.addServer().host("127.0.0.1").port(hotrodServer.getPort())
+            .connectionPool().multiplexedConnections(1);
+      builder.socketTimeout(SOCKET_TIMEOUT);
+      builder.maxRetries(0);
+      return new InternalRemoteCacheManager(builder.build());
+   }
+
+   public void testSyncTimeout() throws Exception {
+      RemoteCache<String, String> cache = remoteCacheManager.getCache();
+      CountDownLatch timedOutLatch = block("sync-timed-out");
+      try {
+         Future<String> timedOut = fork(() -> cache.put("sync-timed-out", "v"));
+         CompletableFuture<String> other = sendOtherRequest(cache, "sync-other");
+         assertTimedOut(timedOut);
+         assertOtherRequestCompletes(cache, other, "sync-other");
+      } finally {
+         timedOutLatch.countDown();
+      }
+      assertLateResponseDiscarded(cache, "sync-timed-out");
+   }
+
+   public void testAsyncTimeout() throws Exception {
+      RemoteCache<String, String> cache = remoteCacheManager.getCache();
+      CountDownLatch timedOutLatch = block("async-timed-out");
+      try {
+         CompletableFuture<String> timedOut = cache.putAsync("async-timed-out", "v");
+         CompletableFuture<String> other = sendOtherRequest(cache, "async-other");
+         assertTimedOut(timedOut);
+         assertOtherRequestCompletes(cache, other, "async-other");
+      } finally {
+         timedOutLatch.countDown();
+      }
+      assertLateResponseDiscarded(cache, "async-timed-out");
+   }
+
+   private CountDownLatch block(String key) {
+      CountDownLatch latch = new CountDownLatch(1);
+      blockedKeys.put(key, latch);
+      return latch;
+   }
+
+   /**
+    * Sends a request that is still pending when the first one times out, but that is answered before its own timeout.
+    */
+   private CompletableFuture<String> sendOtherRequest(RemoteCache<String, String> cache, String key)
+         throws InterruptedException {
+      block(key);
+      Thread.sleep(SOCKET_TIMEOUT / 3);
+      return cache.putAsync(key, "v");
+   }
+
+   private void assertTimedOut(Future<String> timedOut) throws Exception {
+      try {
+         timedOut.get(2 * SOCKET_TIMEOUT, TimeUnit.MILLISECONDS);
+         fail("The put should have timed out");
+      } catch (ExecutionException e) {
+         assertTrue(e.getCause() instanceof TransportException);
+         assertTrue(e.getCause().getCause() instanceof SocketTimeoutException);
+      }
+   }
+
+   private void assertOtherRequestCompletes(RemoteCache<String, String> cache, CompletableFuture<String> other,
+                                            String key) throws Exception {
+      assertFalse(other.isDone());
+      blockedKeys.remove(key).countDown();
+      assertNull(other.get(SOCKET_TIMEOUT, TimeUnit.MILLISECONDS));
+      assertEquals("v", cache.get(key));
+   }
+
+   private void assertLateResponseDiscarded(RemoteCache<String, String> cache, String key) throws Exception {
+      blockedKeys.remove(key);
+      eventuallyEquals("v", () -> cache.get(key));
+      // the connection can still be used once the late response is discarded
+      cache.put("after-" + key, "v");
+      assertEquals("v", cache.get("after-" + key));
+   }
+
+   public static class BlockingInterceptor extends CommandInterceptor {
+
+      @Override
+      public Object visitPutKeyValueCommand(InvocationContext ctx, PutKeyValueCommand command) throws Throwable {
+         CountDownLatch latch = blockedKeys.get(unmarshall(command.getKey()));
+         if (latch != null) {
+            latch.await(10, TimeUnit.SECONDS);
+         }
+         return super.visitPutKeyValueCommand(ctx, command);
+      }
+
+      private String unmarshall(Object key) throws Exception {
+         Marshaller marshaller = new JBossMarshaller();
+         return (String) marshaller.objectFromByteBuffer(((WrappedByteArray) key).getBytes());
+      }
+   }
+}
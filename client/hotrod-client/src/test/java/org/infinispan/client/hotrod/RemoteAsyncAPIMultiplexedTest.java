@@ -0,0 +1,69 @@
+package org.infinispan.client.hotrod;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.infinispan.client.hotrod.configuration.ConfigurationBuilder;
+import org.infinispan.client.hotrod.test.InternalRemoteCacheManager;
+import org.testng.annotations.Test;
+
+/**
+ * Runs the asynchronous operations on multiplexed connections, where the responses are decoded by the thread reading
+ * the connection and the futures are completed in the async executor.
+ *
+ * @since 9.1
+ */
+@Test(groups = "functional", testName = "client.hotrod.RemoteAsyncAPIMultiplexedTest")
+public class RemoteAsyncAPIMultiplexedTest extends RemoteAsyncAPITest {
+
+   @Override
+   protected RemoteCacheManager getRemoteCacheManager() {
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.forceReturnValues(isForceReturnValuesViaConfiguration());
+      builder.addServer().host("127.0.0.1").port(hotrodServer.getPort())
+            .connectionPool().multiplexedConnections(1);
+      return new InternalRemoteCacheManager(builder.build());
+   }
+
+   public void testSyncOperationInCallback() throws Exception {
+      remote().put("k", "v");
+      // the callback must not run in the reader thread, which would then wait for the response of the nested get
+      CompletableFuture<String> f = remote().putAsync("k2", "v2").thenApply(prev -> remote().get("k"));
+      assertEquals("v", f.get(10, TimeUnit.SECONDS));
+   }
+
+   public void testBlockingDependentStage() throws Exception {
+      remote().put("k", "v");
+      CompletableFuture<Boolean> f = remote().putAsync("k2", "v2").thenApply(prev -> {
+         CountDownLatch latch = new CountDownLatch(1);
+         remote().getAsync("k").thenRun(latch::countDown);
+         try {
+            // the response of the get is only read if this stage doesn't block the reader thread
+            return latch.await(10, TimeUnit.SECONDS);
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+         }
+      });
+      assertTrue(f.get(20, TimeUnit.SECONDS));
+   }
+
+   public void testManyConcurrentOperations() throws Exception {
+      CompletableFuture<?>[] futures = new CompletableFuture[1000];
+      for (int i = 0; i < futures.length; i++) {
+         futures[i] = remote().putAsync("k" + i, "v" + i);
+      }
+      CompletableFuture.allOf(futures).get(10, TimeUnit.SECONDS);
+      for (int i = 0; i < futures.length; i++) {
+         futures[i] = remote().getAsync("k" + i);
+      }
+      CompletableFuture.allOf(futures).get(10, TimeUnit.SECONDS);
+      for (int i = 0; i < futures.length; i++) {
+         assertEquals("v" + i, futures[i].join());
+      }
+   }
+}
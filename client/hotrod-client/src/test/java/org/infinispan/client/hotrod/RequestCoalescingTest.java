@@ -0,0 +1,119 @@
+package org.infinispan.client.hotrod;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.infinispan.client.hotrod.configuration.ConfigurationBuilder;
+import org.infinispan.client.hotrod.test.HotRodClientTestingUtil;
+import org.infinispan.client.hotrod.test.InternalRemoteCacheManager;
+import org.infinispan.client.hotrod.test.SingleHotRodServerTest;
+import org.testng.annotations.Test;
+
+/**
+ * Tests the coalescing of concurrent single-key gets and puts into multi-key operations.
+ *
+ * @since 9.1
+ */
+@Test(testName = "client.hotrod.RequestCoalescingTest", groups = "functional")
+public class RequestCoalescingTest extends SingleHotRodServerTest {
+
+   private static final int NUM_THREADS = 10;
+   private static final int NUM_KEYS = 100;
+   private static final int MAX_BATCH_SIZE = 10;
+
+   @Override
+   protected RemoteCacheManager getRemoteCacheManager() {
+      return createRemoteCacheManager(1, TimeUnit.MILLISECONDS);
+   }
+
+   private RemoteCacheManager createRemoteCacheManager(long window, TimeUnit unit) {
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.addServer().host("127.0.0.1").port(hotrodServer.getPort())
+            .connectionPool().multiplexedConnections(1);
+      builder.requestCoalescing().enable().window(window, unit).maxBatchSize(MAX_BATCH_SIZE);
+      return new InternalRemoteCacheManager(builder.build());
+   }
+
+   public void testConcurrentOperations() throws Exception {
+      RemoteCache<String, String> remoteCache = remoteCacheManager.getCache();
+      List<Future<Void>> futures = new ArrayList<>();
+      for (int t = 0; t < NUM_THREADS; t++) {
+         String prefix = "t" + t + "-";
+         futures.add(fork(() -> {
+            for (int i = 0; i < NUM_KEYS; i++) {
+               assertNull(remoteCache.get(prefix + i));
+               assertNull(remoteCache.put(prefix + i, "v" + i));
+               assertEquals("v" + i, remoteCache.get(prefix + i));
+            }
+            return null;
+         }));
+      }
+      for (Future<Void> future : futures) {
+         future.get(30, TimeUnit.SECONDS);
+      }
+      assertEquals(NUM_THREADS * NUM_KEYS, remoteCache.size());
+   }
+
+   public void testFullBatchIsSentBeforeWindowEnds() throws Exception {
+      RemoteCacheManager manager = createRemoteCacheManager(1, TimeUnit.HOURS);
+      try {
+         RemoteCache<String, String> remoteCache = manager.getCache();
+         CompletableFuture<?>[] futures = new CompletableFuture[MAX_BATCH_SIZE];
+         for (int i = 0; i < MAX_BATCH_SIZE - 1; i++) {
+            futures[i] = remoteCache.putAsync("k" + i, "v" + i);
+         }
+         Thread.sleep(100);
+         assertFalse(futures[0].isDone());
+
+         futures[MAX_BATCH_SIZE - 1] = remoteCache.putAsync("k" + (MAX_BATCH_SIZE - 1), "v" + (MAX_BATCH_SIZE - 1));
+         CompletableFuture.allOf(futures).get(10, TimeUnit.SECONDS);
+
+         for (int i = 0; i < MAX_BATCH_SIZE; i++) {
+            futures[i] = remoteCache.getAsync("k" + i);
+         }
+         CompletableFuture.allOf(futures).get(10, TimeUnit.SECONDS);
+         for (int i = 0; i < MAX_BATCH_SIZE; i++) {
+            assertEquals("v" + i, futures[i].join());
+         }
+      } finally {
+         HotRodClientTestingUtil.killRemoteCacheManager(manager);
+      }
+   }
+
+   public void testSameKeyInBatch() throws Exception {
+      RemoteCacheManager manager = createRemoteCacheManager(1, TimeUnit.HOURS);
+      try {
+         RemoteCache<String, String> remoteCache = manager.getCache();
+         CompletableFuture<?>[] futures = new CompletableFuture[MAX_BATCH_SIZE + 1];
+         futures[0] = remoteCache.putAsync("k", "v1");
+         futures[1] = remoteCache.putAsync("k", "v2");
+         for (int i = 2; i < futures.length; i++) {
+            futures[i] = remoteCache.putAsync("k" + i, "v" + i);
+         }
+         CompletableFuture.allOf(futures).get(10, TimeUnit.SECONDS);
+         // the last write of a key in the same batch wins
+         assertEquals("v2", remoteCache.withFlags(Flag.FORCE_RETURN_VALUE).put("k", "v3"));
+      } finally {
+         HotRodClientTestingUtil.killRemoteCacheManager(manager);
+      }
+   }
+
+   public void testForceReturnValueIsNotCoalesced() {
+      RemoteCacheManager manager = createRemoteCacheManager(1, TimeUnit.HOURS);
+      try {
+         RemoteCache<String, String> remoteCache = manager.getCache();
+         // a coalesced put would wait for the end of the window
+         assertNull(remoteCache.withFlags(Flag.FORCE_RETURN_VALUE).put("k", "v1"));
+         assertEquals("v1", remoteCache.withFlags(Flag.FORCE_RETURN_VALUE).put("k", "v2"));
+      } finally {
+         HotRodClientTestingUtil.killRemoteCacheManager(manager);
+      }
+   }
+}
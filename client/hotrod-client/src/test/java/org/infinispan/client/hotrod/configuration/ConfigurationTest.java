@@ -13,6 +13,9 @@
 import static org.infinispan.client.hotrod.impl.ConfigurationProperties.MAX_RETRIES;
 import static org.infinispan.client.hotrod.impl.ConfigurationProperties.PROTOCOL_VERSION;
 import static org.infinispan.client.hotrod.impl.ConfigurationProperties.REQUEST_BALANCING_STRATEGY;
+import static org.infinispan.client.hotrod.impl.ConfigurationProperties.REQUEST_COALESCING;
+import static org.infinispan.client.hotrod.impl.ConfigurationProperties.REQUEST_COALESCING_MAX_BATCH_SIZE;
+import static org.infinispan.client.hotrod.impl.ConfigurationProperties.REQUEST_COALESCING_WINDOW;
 import static org.infinispan.client.hotrod.impl.ConfigurationProperties.SASL_MECHANISM;
 import static org.infinispan.client.hotrod.impl.ConfigurationProperties.SASL_PROPERTIES_PREFIX;
 import static org.infinispan.client.hotrod.impl.ConfigurationProperties.JAVA_SERIAL_WHITELIST;
@@ -42,6 +45,7 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 import javax.net.ssl.SSLContext;
@@ -86,6 +90,7 @@ public class ConfigurationTest {
       OPTIONS.put("testOnBorrow", c -> c.connectionPool().testOnBorrow());
       OPTIONS.put("testOnReturn", c -> c.connectionPool().testOnReturn());
       OPTIONS.put("testWhileIdle", c -> c.connectionPool().testWhileIdle());
+      OPTIONS.put("multiplexedConnections", c -> c.connectionPool().multiplexedConnections());
       OPTIONS.put(CONNECT_TIMEOUT, Configuration::connectionTimeout);
       OPTIONS.put(PROTOCOL_VERSION, Configuration::version);
       OPTIONS.put(SO_TIMEOUT, Configuration::socketTimeout);
@@ -112,6 +117,9 @@ public class ConfigurationTest {
       OPTIONS.put(SASL_PROPERTIES_PREFIX + ".B", c -> c.security().authentication().saslProperties().get("B"));
       OPTIONS.put(SASL_PROPERTIES_PREFIX + ".C", c -> c.security().authentication().saslProperties().get("C"));
       OPTIONS.put(JAVA_SERIAL_WHITELIST, Configuration::serialWhitelist);
+      OPTIONS.put(REQUEST_COALESCING, c -> c.requestCoalescing().enabled());
+      OPTIONS.put(REQUEST_COALESCING_WINDOW, c -> c.requestCoalescing().window());
+      OPTIONS.put(REQUEST_COALESCING_MAX_BATCH_SIZE, c -> c.requestCoalescing().maxBatchSize());
 
       TYPES.put(Boolean.class, b -> Boolean.toString((Boolean) b));
       TYPES.put(ExhaustedAction.class, e -> Integer.toString(((ExhaustedAction) e).ordinal()));
@@ -170,6 +178,7 @@ public void testConfiguration() {
             .testOnBorrow(true)
             .testOnReturn(true)
             .testWhileIdle(false)
+            .multiplexedConnections(2)
             .minEvictableIdleTime(12000)
             .timeBetweenEvictionRuns(15000)
          .connectionTimeout(100)
@@ -200,6 +209,10 @@ public void testConfiguration() {
                .clientSubject(clientSubject)
                .saslProperties(saslProperties)
          .addJavaSerialWhiteList(".*Person.*", ".*Employee.*");
+      builder.requestCoalescing()
+            .enable()
+            .window(2, TimeUnit.MILLISECONDS)
+            .maxBatchSize(50);
 
       Configuration configuration = builder.build();
       validateConfiguration(configuration);
@@ -230,6 +243,7 @@ public void testWithProperties() {
       p.setProperty("testOnBorrow", "true");
       p.setProperty("testOnReturn", "true");
       p.setProperty("testWhileIdle", "false");
+      p.setProperty("multiplexedConnections", "2");
       p.setProperty(CONNECT_TIMEOUT, "100");
       p.setProperty(PROTOCOL_VERSION, "1.3");
       p.setProperty(SO_TIMEOUT, "100");
@@ -254,6 +268,9 @@ public void testWithProperties() {
       p.setProperty(SASL_PROPERTIES_PREFIX + ".B", "2");
       p.setProperty(SASL_PROPERTIES_PREFIX + ".C", "3");
       p.setProperty(JAVA_SERIAL_WHITELIST, ".*Person.*,.*Employee.*");
+      p.setProperty(REQUEST_COALESCING, "true");
+      p.setProperty(REQUEST_COALESCING_WINDOW, "2000");
+      p.setProperty(REQUEST_COALESCING_MAX_BATCH_SIZE, "50");
 
       Configuration configuration = builder.withProperties(p).build();
       validateConfiguration(configuration);
@@ -442,6 +459,20 @@ public void testInvalidAuthenticationConfig() {
       builder.build();
    }
 
+   @Test(expectedExceptions = CacheConfigurationException.class)
+   public void testRequestCoalescingWithoutMultiplexedConnections() {
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.requestCoalescing().enable();
+      builder.build();
+   }
+
+   @Test(expectedExceptions = CacheConfigurationException.class)
+   public void testNearCacheMaxMemoryWithoutStoreAsBinary() {
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.nearCache().mode(NearCacheMode.INVALIDATED).maxMemory(1024);
+      builder.build();
+   }
+
    public void testValidAuthenticationSubjectNoCBH() {
       ConfigurationBuilder builder = new ConfigurationBuilder();
       builder.security().authentication().enable().saslMechanism("PLAIN").clientSubject(new Subject());
@@ -494,6 +525,7 @@ private void validateConfiguration(Configuration configuration) {
       assertEqualsConfig(true, "testOnBorrow", configuration);
       assertEqualsConfig(true, "testOnReturn", configuration);
       assertEqualsConfig(false, "testWhileIdle", configuration);
+      assertEqualsConfig(2, "multiplexedConnections", configuration);
       assertEqualsConfig(100, CONNECT_TIMEOUT, configuration);
       assertEqualsConfig(100, SO_TIMEOUT, configuration);
       assertEqualsConfig(false, TCP_NO_DELAY, configuration);
@@ -518,6 +550,9 @@ private void validateConfiguration(Configuration configuration) {
       assertEqualsConfig("3", SASL_PROPERTIES_PREFIX + ".C", configuration);
       assertEqualsConfig(ProtocolVersion.PROTOCOL_VERSION_13, PROTOCOL_VERSION, configuration);
       assertEqualsConfig(Arrays.asList(".*Person.*", ".*Employee.*"), JAVA_SERIAL_WHITELIST, configuration);
+      assertEqualsConfig(true, REQUEST_COALESCING, configuration);
+      assertEqualsConfig(2000L, REQUEST_COALESCING_WINDOW, configuration);
+      assertEqualsConfig(50, REQUEST_COALESCING_MAX_BATCH_SIZE, configuration);
    }
 
    private void validateSSLContextConfiguration(Configuration configuration) {
@@ -0,0 +1,126 @@
+package org.infinispan.client.hotrod.near;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import org.infinispan.client.hotrod.NearCacheStatistics;
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.client.hotrod.RemoteCacheManager;
+import org.infinispan.client.hotrod.configuration.ConfigurationBuilder;
+import org.infinispan.client.hotrod.configuration.NearCacheMode;
+import org.infinispan.client.hotrod.test.HotRodClientTestingUtil;
+import org.infinispan.client.hotrod.test.InternalRemoteCacheManager;
+import org.infinispan.client.hotrod.test.SingleHotRodServerTest;
+import org.testng.annotations.Test;
+
+/**
+ * Tests the eviction policy, the memory bound and the statistics of the near cache.
+ *
+ * @since 9.1
+ */
+@Test(groups = "functional", testName = "client.hotrod.near.BoundedNearCacheTest")
+public class BoundedNearCacheTest extends SingleHotRodServerTest {
+
+   private static final int NUM_KEYS = 100;
+
+   @Override
+   protected RemoteCacheManager getRemoteCacheManager() {
+      return createRemoteCacheManager(false);
+   }
+
+   private RemoteCacheManager createRemoteCacheManager(boolean memoryBounded) {
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.addServer().host("127.0.0.1").port(hotrodServer.getPort());
+      builder.nearCache().mode(NearCacheMode.INVALIDATED);
+      if (memoryBounded) {
+         builder.nearCache().maxMemory(2000).storeAsBinary(true);
+      } else {
+         builder.nearCache().maxEntries(10);
+      }
+      return new InternalRemoteCacheManager(builder.build());
+   }
+
+   public void testFrequentlyReadKeySurvivesScan() {
+      RemoteCache<String, String> remote = remoteCacheManager.getCache();
+      for (int i = 0; i < NUM_KEYS; i++) {
+         remote.put("k" + i, "v" + i);
+      }
+      remote.put("hot", "v");
+      awaitNearCacheHit(remote, "hot");
+      for (int i = 0; i < 10; i++) {
+         assertEquals("v", remote.get("hot"));
+      }
+      // each key is read once, so none of them should evict the hot key
+      for (int i = 0; i < NUM_KEYS; i++) {
+         assertEquals("v" + i, remote.get("k" + i));
+      }
+
+      NearCacheStatistics before = remote.nearCacheStats();
+      assertEquals("v", remote.get("hot"));
+      NearCacheStatistics after = remote.nearCacheStats();
+      assertEquals(before.getLongStatistic(NearCacheStatistics.HITS) + 1,
+            after.getLongStatistic(NearCacheStatistics.HITS).longValue());
+      assertTrue(after.getLongStatistic(NearCacheStatistics.CURRENT_NR_OF_ENTRIES) <= 10);
+      assertTrue(after.getLongStatistic(NearCacheStatistics.EVICTIONS) > 0);
+   }
+
+   public void testStatistics() {
+      RemoteCache<String, String> remote = remoteCacheManager.getCache();
+      remote.clear();
+      remote.put("k", "v");
+      awaitNearCacheHit(remote, "k");
+      NearCacheStatistics before = remote.nearCacheStats();
+      assertEquals("v", remote.get("k"));
+      assertNull(remote.get("missing"));
+      NearCacheStatistics after = remote.nearCacheStats();
+      assertEquals(before.getLongStatistic(NearCacheStatistics.HITS) + 1,
+            after.getLongStatistic(NearCacheStatistics.HITS).longValue());
+      assertEquals(before.getLongStatistic(NearCacheStatistics.MISSES) + 1,
+            after.getLongStatistic(NearCacheStatistics.MISSES).longValue());
+   }
+
+   public void testMemoryBound() {
+      RemoteCacheManager memoryBoundedManager = createRemoteCacheManager(true);
+      try {
+         RemoteCache<String, String> remote = memoryBoundedManager.getCache();
+         StringBuilder value = new StringBuilder();
+         for (int i = 0; i < 100; i++) {
+            value.append('x');
+         }
+         for (int i = 0; i < NUM_KEYS; i++) {
+            remote.put("k" + i, value + "-" + i);
+         }
+         for (int i = 0; i < NUM_KEYS; i++) {
+            assertEquals(value + "-" + i, remote.get("k" + i));
+            assertEquals(value + "-" + i, remote.get("k" + i));
+         }
+         NearCacheStatistics stats = remote.nearCacheStats();
+         // every entry takes more than 100 bytes
+         assertTrue(stats.getLongStatistic(NearCacheStatistics.CURRENT_NR_OF_ENTRIES) < 20);
+         assertTrue(stats.getLongStatistic(NearCacheStatistics.EVICTIONS) > 0);
+      } finally {
+         HotRodClientTestingUtil.killRemoteCacheManager(memoryBoundedManager);
+      }
+   }
+
+   public void testNoStatisticsWithoutNearCache() {
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.addServer().host("127.0.0.1").port(hotrodServer.getPort());
+      RemoteCacheManager manager = new InternalRemoteCacheManager(builder.build());
+      try {
+         assertTrue(manager.getCache().nearCacheStats().getStatsMap().isEmpty());
+      } finally {
+         HotRodClientTestingUtil.killRemoteCacheManager(manager);
+      }
+   }
+
+   private void awaitNearCacheHit(RemoteCache<String, String> remote, String key) {
+      // the invalidation event of the last write may arrive after the value was read again
+      eventually(() -> {
+         long hits = remote.nearCacheStats().getLongStatistic(NearCacheStatistics.HITS);
+         remote.get(key);
+         return remote.nearCacheStats().getLongStatistic(NearCacheStatistics.HITS) > hits;
+      });
+   }
+}
@@ -74,6 +74,16 @@ public void clear() {
          events.clear();
          events.add(new MockClearEvent());
       }
+
+      @Override
+      public int size() {
+         return delegate.size();
+      }
+
+      @Override
+      public long evictions() {
+         return delegate.evictions();
+      }
    }
 
    static class MockPutEvent<K, V> extends MockKeyValueEvent<K, V> {
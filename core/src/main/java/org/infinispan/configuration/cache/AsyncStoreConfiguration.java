@@ -15,14 +15,21 @@ public class AsyncStoreConfiguration {
    public static final AttributeDefinition<Boolean> ENABLED = AttributeDefinition.builder("enabled", false).immutable().build();
    public static final AttributeDefinition<Integer> MODIFICATION_QUEUE_SIZE  = AttributeDefinition.builder("modificationQueueSize", 1024).immutable().build();
    public static final AttributeDefinition<Integer> THREAD_POOL_SIZE = AttributeDefinition.builder("threadPoolSize", 1).immutable().build();
+   public static final AttributeDefinition<Long> FLUSH_INTERVAL = AttributeDefinition.builder("flushInterval", 0L).immutable().build();
+   public static final AttributeDefinition<Integer> FLUSH_BATCH_SIZE = AttributeDefinition.builder("flushBatchSize", 0).immutable().build();
+   public static final AttributeDefinition<Long> FLUSH_BATCH_BYTES = AttributeDefinition.builder("flushBatchBytes", 0L).immutable().build();
 
    static AttributeSet attributeDefinitionSet() {
-      return new AttributeSet(AsyncStoreConfiguration.class, ENABLED, MODIFICATION_QUEUE_SIZE, THREAD_POOL_SIZE);
+      return new AttributeSet(AsyncStoreConfiguration.class, ENABLED, MODIFICATION_QUEUE_SIZE, THREAD_POOL_SIZE,
+            FLUSH_INTERVAL, FLUSH_BATCH_SIZE, FLUSH_BATCH_BYTES);
    }
 
    private final Attribute<Boolean> enabled;
    private final Attribute<Integer> modificationQueueSize;
    private final Attribute<Integer> threadPoolSize;
+   private final Attribute<Long> flushInterval;
+   private final Attribute<Integer> flushBatchSize;
+   private final Attribute<Long> flushBatchBytes;
 
    private final AttributeSet attributes;
 
@@ -31,6 +38,9 @@ static AttributeSet attributeDefinitionSet() {
       enabled = attributes.attribute(ENABLED);
       modificationQueueSize = attributes.attribute(MODIFICATION_QUEUE_SIZE);
       threadPoolSize = attributes.attribute(THREAD_POOL_SIZE);
+      flushInterval = attributes.attribute(FLUSH_INTERVAL);
+      flushBatchSize = attributes.attribute(FLUSH_BATCH_SIZE);
+      flushBatchBytes = attributes.attribute(FLUSH_BATCH_BYTES);
    }
 
    /**
@@ -89,6 +99,31 @@ public int threadPoolSize() {
       return threadPoolSize.get();
    }
 
+   /**
+    * Maximum time (in milliseconds) the modifications are kept in the queue, so that the modifications of the same key
+    * are coalesced and written to the store in larger batches. If 0, the modifications are written as soon as the
+    * previous batch is stored.
+    */
+   public long flushInterval() {
+      return flushInterval.get();
+   }
+
+   /**
+    * Number of distinct keys in the queue which triggers a flush before the flush interval elapses. If 0, the number
+    * of keys doesn't trigger a flush.
+    */
+   public int flushBatchSize() {
+      return flushBatchSize.get();
+   }
+
+   /**
+    * Size (in bytes) of the marshalled entries in the queue which triggers a flush before the flush interval elapses.
+    * If 0, the size of the entries doesn't trigger a flush.
+    */
+   public long flushBatchBytes() {
+      return flushBatchBytes.get();
+   }
+
    public AttributeSet attributes() {
       return attributes;
    }
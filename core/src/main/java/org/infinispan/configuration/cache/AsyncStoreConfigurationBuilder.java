@@ -1,11 +1,15 @@
 package org.infinispan.configuration.cache;
 
 import static org.infinispan.configuration.cache.AsyncStoreConfiguration.ENABLED;
+import static org.infinispan.configuration.cache.AsyncStoreConfiguration.FLUSH_BATCH_BYTES;
+import static org.infinispan.configuration.cache.AsyncStoreConfiguration.FLUSH_BATCH_SIZE;
+import static org.infinispan.configuration.cache.AsyncStoreConfiguration.FLUSH_INTERVAL;
 import static org.infinispan.configuration.cache.AsyncStoreConfiguration.MODIFICATION_QUEUE_SIZE;
 import static org.infinispan.configuration.cache.AsyncStoreConfiguration.THREAD_POOL_SIZE;
 
 import java.util.concurrent.TimeUnit;
 
+import org.infinispan.commons.CacheConfigurationException;
 import org.infinispan.commons.configuration.Builder;
 import org.infinispan.commons.configuration.attributes.AttributeSet;
 import org.infinispan.configuration.global.GlobalConfiguration;
@@ -94,9 +98,55 @@ public AsyncStoreConfigurationBuilder<S> threadPoolSize(int i) {
       return this;
    }
 
+   /**
+    * Maximum time (in milliseconds) the modifications are kept in the queue, so that the modifications of the same key
+    * are coalesced and written to the store in larger batches. If 0 (the default), the modifications are written as
+    * soon as the previous batch is stored.
+    */
+   public AsyncStoreConfigurationBuilder<S> flushInterval(long l) {
+      attributes.attribute(FLUSH_INTERVAL).set(l);
+      return this;
+   }
+
+   /**
+    * Maximum time the modifications are kept in the queue.
+    *
+    * @see #flushInterval(long)
+    */
+   public AsyncStoreConfigurationBuilder<S> flushInterval(long l, TimeUnit unit) {
+      return flushInterval(unit.toMillis(l));
+   }
+
+   /**
+    * Number of distinct keys in the queue which triggers a flush before the flush interval elapses. If 0 (the default),
+    * the number of keys doesn't trigger a flush.
+    */
+   public AsyncStoreConfigurationBuilder<S> flushBatchSize(int i) {
+      attributes.attribute(FLUSH_BATCH_SIZE).set(i);
+      return this;
+   }
+
+   /**
+    * Size (in bytes) of the marshalled entries in the queue which triggers a flush before the flush interval elapses.
+    * If 0 (the default), the size of the entries doesn't trigger a flush.
+    */
+   public AsyncStoreConfigurationBuilder<S> flushBatchBytes(long l) {
+      attributes.attribute(FLUSH_BATCH_BYTES).set(l);
+      return this;
+   }
+
    @Override
    public
    void validate() {
+      if (attributes.attribute(FLUSH_INTERVAL).get() < 0) {
+         throw new CacheConfigurationException("The write-behind flush interval cannot be negative");
+      }
+      if (attributes.attribute(FLUSH_BATCH_SIZE).get() < 0) {
+         throw new CacheConfigurationException("The write-behind flush batch size cannot be negative");
+      }
+      if (attributes.attribute(FLUSH_BATCH_BYTES).get() < 0) {
+         throw new CacheConfigurationException("The write-behind flush batch bytes cannot be negative");
+      }
    }
 
    @Override
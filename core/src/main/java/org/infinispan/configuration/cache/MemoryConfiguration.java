@@ -6,6 +6,7 @@
 import org.infinispan.commons.configuration.attributes.AttributeSet;
 import org.infinispan.commons.configuration.attributes.IdentityAttributeCopier;
 import org.infinispan.eviction.EvictionType;
+import org.infinispan.eviction.OffHeapEvictionPolicy;
 
 /**
  * Controls the memory storage configuration for the cache.
@@ -18,16 +19,24 @@ public class MemoryConfiguration {
          .builder("storage", StorageType.OBJECT).copier(IdentityAttributeCopier.INSTANCE).immutable().build();
    public static final AttributeDefinition<Long> SIZE  = AttributeDefinition.builder("size", -1l).build();
    public static final AttributeDefinition<EvictionType> EVICTION_TYPE  = AttributeDefinition.builder("type", EvictionType.COUNT).build();
+   public static final AttributeDefinition<OffHeapEvictionPolicy> EVICTION_POLICY = AttributeDefinition.builder("eviction-policy", OffHeapEvictionPolicy.LRU).immutable().build();
+   public static final AttributeDefinition<Float> LOAD_FACTOR = AttributeDefinition.builder("load-factor", 0.75f).immutable().build();
+   public static final AttributeDefinition<Boolean> SEGMENTED = AttributeDefinition.builder("segmented", false).immutable().build();
+   public static final AttributeDefinition<Boolean> POOLED = AttributeDefinition.builder("pooled", false).immutable().build();
 
    static public AttributeSet attributeDefinitionSet() {
       return new AttributeSet(MemoryConfiguration.class, AbstractTypedPropertiesConfiguration.attributeSet(),
-            STORAGE_TYPE, SIZE, EVICTION_TYPE, ADDRESS_COUNT);
+            STORAGE_TYPE, SIZE, EVICTION_TYPE, ADDRESS_COUNT, LOAD_FACTOR, EVICTION_POLICY, SEGMENTED, POOLED);
    }
 
    private final Attribute<Long> size;
    private final Attribute<EvictionType> evictionType;
    private final Attribute<StorageType> storageType;
    private final Attribute<Integer> addressCount;
+   private final Attribute<Float> loadFactor;
+   private final Attribute<OffHeapEvictionPolicy> evictionPolicy;
+   private final Attribute<Boolean> segmented;
+   private final Attribute<Boolean> pooled;
    private final AttributeSet attributes;
 
    MemoryConfiguration(AttributeSet attributes) {
@@ -36,6 +45,10 @@ static public AttributeSet attributeDefinitionSet() {
       size = attributes.attribute(SIZE);
       evictionType = attributes.attribute(EVICTION_TYPE);
       addressCount = attributes.attribute(ADDRESS_COUNT);
+      loadFactor = attributes.attribute(LOAD_FACTOR);
+      evictionPolicy = attributes.attribute(EVICTION_POLICY);
+      segmented = attributes.attribute(SEGMENTED);
+      pooled = attributes.attribute(POOLED);
    }
 
    /**
@@ -74,6 +87,38 @@ public int addressCount() {
       return addressCount.get();
    }
 
+   /**
+    * The load factor of the off-heap address pointers before they are resized
+    * @return
+    */
+   public float loadFactor() {
+      return loadFactor.get();
+   }
+
+   /**
+    * The policy used to choose which entries to evict when using bounded off-heap storage
+    * @return
+    */
+   public OffHeapEvictionPolicy evictionPolicy() {
+      return evictionPolicy.get();
+   }
+
+   /**
+    * Whether the data container keeps a separate map per segment
+    * @return <code>true</code> if the entries are stored in one map per segment
+    */
+   public boolean segmented() {
+      return segmented.get();
+   }
+
+   /**
+    * Whether the off-heap memory is allocated from pools of slabs instead of one system allocation per entry
+    * @return <code>true</code> if the off-heap memory is pooled
+    */
+   public boolean pooled() {
+      return pooled.get();
+   }
+
    public AttributeSet attributes() {
       return attributes;
    }
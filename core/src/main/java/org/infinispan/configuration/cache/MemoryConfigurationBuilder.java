@@ -1,7 +1,11 @@
 package org.infinispan.configuration.cache;
 
 import static org.infinispan.configuration.cache.MemoryConfiguration.ADDRESS_COUNT;
+import static org.infinispan.configuration.cache.MemoryConfiguration.EVICTION_POLICY;
 import static org.infinispan.configuration.cache.MemoryConfiguration.EVICTION_TYPE;
+import static org.infinispan.configuration.cache.MemoryConfiguration.LOAD_FACTOR;
+import static org.infinispan.configuration.cache.MemoryConfiguration.POOLED;
+import static org.infinispan.configuration.cache.MemoryConfiguration.SEGMENTED;
 import static org.infinispan.configuration.cache.MemoryConfiguration.SIZE;
 import static org.infinispan.configuration.cache.MemoryConfiguration.STORAGE_TYPE;
 
@@ -10,6 +14,7 @@
 import org.infinispan.commons.configuration.attributes.AttributeSet;
 import org.infinispan.configuration.global.GlobalConfiguration;
 import org.infinispan.eviction.EvictionType;
+import org.infinispan.eviction.OffHeapEvictionPolicy;
 
 /**
  * Controls the data container for the cache.
@@ -77,6 +82,55 @@ public MemoryConfigurationBuilder addressCount(int addressCount) {
       return this;
    }
 
+   /**
+    * Configuration setting when using bounded off-heap storage that defines how entries are chosen for eviction.
+    * See {@link OffHeapEvictionPolicy} for the available policies.
+    * @param evictionPolicy the policy to use
+    * @return this
+    */
+   public MemoryConfigurationBuilder evictionPolicy(OffHeapEvictionPolicy evictionPolicy) {
+      attributes.attribute(EVICTION_POLICY).set(evictionPolicy);
+      return this;
+   }
+
+   /**
+    * Configuration setting when using off-heap that defines how many entries there can be per address pointer on
+    * average before the address pointers are doubled.  Lower values reduce collisions at the cost of more memory
+    * used by the address pointers.  The {@link #addressCount(int)} is then only the initial amount of pointers.
+    * @param loadFactor the load factor, must be greater than 0
+    * @return this
+    */
+   public MemoryConfigurationBuilder loadFactor(float loadFactor) {
+      attributes.attribute(LOAD_FACTOR).set(loadFactor);
+      return this;
+   }
+
+   /**
+    * Configures the data container to keep its entries in a separate map per segment. This allows state transfer,
+    * segment filtered streams and the removal of segments that are no longer owned to only visit the entries of the
+    * involved segments instead of the whole container. Only supported for unbounded {@link StorageType#OBJECT} and
+    * {@link StorageType#BINARY} storage.
+    * @param segmented whether the data container should be segmented
+    * @return this
+    */
+   public MemoryConfigurationBuilder segmented(boolean segmented) {
+      attributes.attribute(SEGMENTED).set(segmented);
+      return this;
+   }
+
+   /**
+    * Configuration setting when using off-heap that allocates the memory of the entries from slabs pooled per size
+    * class instead of allocating every entry from the system.  This reduces the cost of allocations, but the slabs are
+    * only given back to the system when the cache is stopped, so the memory used after a burst of writes or after
+    * eviction is not released.  Disabled by default.
+    * @param pooled whether the off-heap memory should be pooled
+    * @return this
+    */
+   public MemoryConfigurationBuilder pooled(boolean pooled) {
+      attributes.attribute(POOLED).set(pooled);
+      return this;
+   }
+
    @Override
    public void validate() {
       StorageType type = attributes.attribute(STORAGE_TYPE).get();
@@ -90,6 +144,20 @@ public void validate() {
             throw new CacheConfigurationException("MEMORY based eviction requires binary but was : " + type);
          }
       }
+      if (!(attributes.attribute(LOAD_FACTOR).get() > 0)) {
+         throw new CacheConfigurationException("Load factor must be greater than 0 but was: " + attributes.attribute(LOAD_FACTOR).get());
+      }
+      if (attributes.attribute(SEGMENTED).get()) {
+         if (type == StorageType.OFF_HEAP) {
+            throw new CacheConfigurationException("A segmented data container is not supported with OFF_HEAP storage");
+         }
+         if (size > 0) {
+            throw new CacheConfigurationException("A segmented data container does not support eviction");
+         }
+      }
+      if (attributes.attribute(POOLED).get() && type != StorageType.OFF_HEAP) {
+         throw new CacheConfigurationException("Pooled memory requires OFF_HEAP storage but was: " + type);
+      }
    }
 
    @Override
@@ -3,7 +3,9 @@
 import static org.infinispan.configuration.cache.SingleFileStoreConfiguration.FRAGMENTATION_FACTOR;
 import static org.infinispan.configuration.cache.SingleFileStoreConfiguration.LOCATION;
 import static org.infinispan.configuration.cache.SingleFileStoreConfiguration.MAX_ENTRIES;
+import static org.infinispan.configuration.cache.SingleFileStoreConfiguration.SEGMENTED;
 
+import org.infinispan.commons.CacheConfigurationException;
 import org.infinispan.commons.configuration.Builder;
 import org.infinispan.commons.configuration.attributes.AttributeSet;
 
@@ -72,6 +74,25 @@ public SingleFileStoreConfigurationBuilder fragmentationFactor(float fragmentati
       return this;
    }
 
+   /**
+    * Stores the entries of each segment in a separate file, <tt>&lt;location&gt;/&lt;cache name&gt;/&lt;segment&gt;.dat</tt>,
+    * instead of a single file for the whole cache. State transfer can then read only the files of the requested
+    * segments, and the files of the segments that are no longer owned are deleted as a whole. The store cannot be
+    * bounded with {@link #maxEntries(int)} when segmented.
+    */
+   public SingleFileStoreConfigurationBuilder segmented(boolean segmented) {
+      attributes.attribute(SEGMENTED).set(segmented);
+      return this;
+   }
+
+   @Override
+   public void validate() {
+      super.validate();
+      if (attributes.attribute(SEGMENTED).get() && attributes.attribute(MAX_ENTRIES).get() > 0) {
+         throw new CacheConfigurationException("A segmented single file store cannot be bounded by maxEntries");
+      }
+   }
+
    @Override
    public SingleFileStoreConfiguration create() {
       return new SingleFileStoreConfiguration(attributes.protect(), async.create(), singletonStore.create());
@@ -69,6 +69,11 @@ public ThreadPoolConfigurationBuilder persistenceThreadPool() {
       return globalConfig.persistenceThreadPool();
    }
 
+   @Override
+   public ThreadPoolConfigurationBuilder storeThreadPool() {
+      return globalConfig.storeThreadPool();
+   }
+
    @Override
    public ThreadPoolConfigurationBuilder stateTransferThreadPool() {
       return globalConfig.stateTransferThreadPool();
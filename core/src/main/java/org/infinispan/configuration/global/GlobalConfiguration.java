@@ -50,6 +50,7 @@ public class GlobalConfiguration {
    private final ThreadPoolConfiguration listenerThreadPool;
    private final ThreadPoolConfiguration replicationQueueThreadPool;
    private final ThreadPoolConfiguration persistenceThreadPool;
+   private final ThreadPoolConfiguration storeThreadPool;
    private final ThreadPoolConfiguration stateTransferThreadPool;
    private final ThreadPoolConfiguration asyncThreadPool;
    private final Optional<String> defaultCacheName;
@@ -58,6 +59,7 @@ public class GlobalConfiguration {
          ThreadPoolConfiguration listenerThreadPool,
          ThreadPoolConfiguration replicationQueueThreadPool,
          ThreadPoolConfiguration persistenceThreadPool,
+         ThreadPoolConfiguration storeThreadPool,
          ThreadPoolConfiguration stateTransferThreadPool,
          ThreadPoolConfiguration asyncThreadPool,
          GlobalJmxStatisticsConfiguration globalJmxStatistics,
@@ -69,6 +71,7 @@ public class GlobalConfiguration {
       this.listenerThreadPool = listenerThreadPool;
       this.replicationQueueThreadPool = replicationQueueThreadPool;
       this.persistenceThreadPool = persistenceThreadPool;
+      this.storeThreadPool = storeThreadPool;
       this.stateTransferThreadPool = stateTransferThreadPool;
       this.asyncThreadPool = asyncThreadPool;
       this.globalJmxStatistics = globalJmxStatistics;
@@ -162,6 +165,15 @@ public ThreadPoolConfiguration persistenceThreadPool() {
       return persistenceThreadPool;
    }
 
+   /**
+    * The thread pool the blocking stores are invoked on by the non-blocking persistence operations.
+    *
+    * @since 9.1
+    */
+   public ThreadPoolConfiguration storeThreadPool() {
+      return storeThreadPool;
+   }
+
    public ThreadPoolConfiguration stateTransferThreadPool() {
       return stateTransferThreadPool;
    }
@@ -224,6 +236,7 @@ public String toString() {
             "listenerThreadPool=" + listenerThreadPool +
             ", expirationThreadPool=" + expirationThreadPool +
             ", persistenceThreadPool=" + persistenceThreadPool +
+            ", storeThreadPool=" + storeThreadPool +
             ", stateTransferThreadPool=" + stateTransferThreadPool +
             ", replicationQueueThreadPool=" + replicationQueueThreadPool +
             ", globalJmxStatistics=" + globalJmxStatistics +
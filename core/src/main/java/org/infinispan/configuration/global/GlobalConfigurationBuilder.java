@@ -24,6 +24,7 @@ public class GlobalConfigurationBuilder implements GlobalConfigurationChildBuild
    private final ThreadPoolConfigurationBuilder listenerThreadPool;
    private final ThreadPoolConfigurationBuilder replicationQueueThreadPool;
    private final ThreadPoolConfigurationBuilder persistenceThreadPool;
+   private final ThreadPoolConfigurationBuilder storeThreadPool;
    private final ThreadPoolConfigurationBuilder stateTransferThreadPool;
    private final ThreadPoolConfigurationBuilder asyncThreadPool;
    private final ShutdownConfigurationBuilder shutdown;
@@ -49,6 +50,7 @@ public GlobalConfigurationBuilder() {
       this.listenerThreadPool = new ThreadPoolConfigurationBuilder(this);
       this.replicationQueueThreadPool = new ThreadPoolConfigurationBuilder(this);
       this.persistenceThreadPool = new ThreadPoolConfigurationBuilder(this);
+      this.storeThreadPool = new ThreadPoolConfigurationBuilder(this);
       this.stateTransferThreadPool = new ThreadPoolConfigurationBuilder(this);
       this.asyncThreadPool = new ThreadPoolConfigurationBuilder(this);
       this.defaultCacheName = Optional.empty();
@@ -131,6 +133,11 @@ public ThreadPoolConfigurationBuilder persistenceThreadPool() {
       return persistenceThreadPool;
    }
 
+   @Override
+   public ThreadPoolConfigurationBuilder storeThreadPool() {
+      return storeThreadPool;
+   }
+
    @Override
    public ThreadPoolConfigurationBuilder stateTransferThreadPool() {
       return stateTransferThreadPool;
@@ -200,6 +207,7 @@ public void validate() {
             listenerThreadPool,
             replicationQueueThreadPool,
             persistenceThreadPool,
+            storeThreadPool,
             stateTransferThreadPool,
             asyncThreadPool,
             globalJmxStatistics,
@@ -237,6 +245,7 @@ public GlobalConfiguration build() {
             listenerThreadPool.create(),
             replicationQueueThreadPool.create(),
             persistenceThreadPool.create(),
+            storeThreadPool.create(),
             stateTransferThreadPool.create(),
             asyncThreadPool.create(),
             globalJmxStatistics.create(),
@@ -265,6 +274,7 @@ public GlobalConfigurationBuilder read(GlobalConfiguration template) {
       listenerThreadPool.read(template.listenerThreadPool());
       replicationQueueThreadPool.read(template.replicationQueueThreadPool());
       persistenceThreadPool.read(template.persistenceThreadPool());
+      storeThreadPool.read(template.storeThreadPool());
       stateTransferThreadPool.read(template.stateTransferThreadPool());
       asyncThreadPool.read(template.asyncThreadPool());
       globalJmxStatistics.read(template.globalJmxStatistics());
@@ -294,6 +304,7 @@ public String toString() {
             ", serialization=" + serialization +
             ", replicationQueueThreadPool=" + replicationQueueThreadPool +
             ", persistenceThreadPool=" + persistenceThreadPool +
+            ", storeThreadPool=" + storeThreadPool +
             ", stateTransferThreadPool=" + stateTransferThreadPool +
             ", asyncThreadPool=" + asyncThreadPool +
             ", security=" + security +
@@ -318,6 +329,8 @@ public boolean equals(Object o) {
          return false;
       if (!persistenceThreadPool.equals(that.persistenceThreadPool))
          return false;
+      if (!storeThreadPool.equals(that.storeThreadPool))
+         return false;
       if (!stateTransferThreadPool.equals(that.stateTransferThreadPool))
          return false;
       if (!asyncThreadPool.equals(that.asyncThreadPool))
@@ -352,6 +365,7 @@ public int hashCode() {
       result = 31 * result + (listenerThreadPool.hashCode());
       result = 31 * result + (replicationQueueThreadPool.hashCode());
       result = 31 * result + (persistenceThreadPool.hashCode());
+      result = 31 * result + (storeThreadPool.hashCode());
       result = 31 * result + (stateTransferThreadPool.hashCode());
       result = 31 * result + (asyncThreadPool.hashCode());
       result = 31 * result + (shutdown.hashCode());
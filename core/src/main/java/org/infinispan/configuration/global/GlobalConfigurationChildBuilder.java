@@ -48,6 +48,11 @@ public interface GlobalConfigurationChildBuilder {
     */
    ThreadPoolConfigurationBuilder persistenceThreadPool();
 
+   /**
+    * Configuration for the thread pool the blocking stores are invoked on
+    */
+   ThreadPoolConfigurationBuilder storeThreadPool();
+
    /**
     * Configuration for the state-transfer thread pool
     */
@@ -42,11 +42,15 @@ public enum Attribute {
     ENABLED("enabled"),
     EXECUTOR("executor"),
     EVICTION("eviction"),
+    EVICTION_POLICY("eviction-policy"),
     @Deprecated
     EVICTION_EXECUTOR("eviction-executor"),
     EXPIRATION_EXECUTOR("expiration-executor"),
     FAILURE_POLICY_CLASS("failure-policy-class"),
     FETCH_STATE("fetch-state"),
+    FLUSH_BATCH_BYTES("flush-batch-bytes"),
+    FLUSH_BATCH_SIZE("flush-batch-size"),
+    FLUSH_INTERVAL("flush-interval"),
     @Deprecated
     FLUSH_LOCK_TIMEOUT("flush-lock-timeout"),
     GROUP_NAME("group-name"),
@@ -66,6 +70,7 @@ public enum Attribute {
     L1_LIFESPAN("l1-lifespan"),
     LIFESPAN("lifespan"),
     LISTENER_EXECUTOR("listener-executor"),
+    LOAD_FACTOR("load-factor"),
     LOCATION("location"),
     LOCK_TIMEOUT("lock-timeout"),
     LOCKING("locking"),
@@ -93,6 +98,7 @@ public enum Attribute {
     PERMISSIONS("permissions"),
     PERSISTENCE_EXECUTOR("persistence-executor"),
     POSITION("position"),
+    POOLED("pooled"),
     PRELOAD("preload"),
     PRIORITY("priority"),
     PURGE("purge"),
@@ -113,6 +119,7 @@ public enum Attribute {
     @Deprecated
     REPLICATION_QUEUE_EXECUTOR("replication-queue-executor"),
     ROLES("roles"),
+    SEGMENTED("segmented"),
     SEGMENTS("segments"),
     SHARED("shared"),
     SHUTDOWN_HOOK("shutdown-hook"),
@@ -129,6 +136,7 @@ public enum Attribute {
     STATISTICS_AVAILABLE("statistics-available"),
     START("start"),
     STATE_TRANSFER_EXECUTOR("state-transfer-executor"),
+    STORE_EXECUTOR("store-executor"),
     STORE_KEYS_AS_BINARY("keys"),
     STORE_VALUES_AS_BINARY("values"),
     STRATEGY("strategy"),
@@ -8,6 +8,7 @@
 import static org.infinispan.factories.KnownComponentNames.PERSISTENCE_EXECUTOR;
 import static org.infinispan.factories.KnownComponentNames.REMOTE_COMMAND_EXECUTOR;
 import static org.infinispan.factories.KnownComponentNames.STATE_TRANSFER_EXECUTOR;
+import static org.infinispan.factories.KnownComponentNames.STORE_EXECUTOR;
 import static org.infinispan.factories.KnownComponentNames.shortened;
 
 import java.util.Collections;
@@ -64,6 +65,7 @@
 import org.infinispan.eviction.EvictionStrategy;
 import org.infinispan.eviction.EvictionThreadPolicy;
 import org.infinispan.eviction.EvictionType;
+import org.infinispan.eviction.OffHeapEvictionPolicy;
 import org.infinispan.factories.threads.DefaultThreadFactory;
 import org.infinispan.partitionhandling.PartitionHandling;
 import org.infinispan.persistence.cluster.ClusterLoader;
@@ -548,6 +550,14 @@ private void parseContainer(XMLExtendedStreamReader reader, ConfigurationBuilder
                      createThreadPoolConfiguration(value, STATE_TRANSFER_EXECUTOR));
                break;
             }
+            case STORE_EXECUTOR: {
+               if (reader.getSchema().since(9, 1)) {
+                  builder.storeThreadPool().read(createThreadPoolConfiguration(value, STORE_EXECUTOR));
+               } else {
+                  throw ParseUtils.unexpectedAttribute(reader, i);
+               }
+               break;
+            }
             case MODULE: {
                log.ignoreXmlAttribute(attribute);
                break;
@@ -1065,6 +1075,8 @@ private void parseTransport(XMLExtendedStreamReader reader, ConfigurationBuilder
                break;
             case STATE_TRANSFER_EXECUTOR:
                break;
+            case STORE_EXECUTOR:
+               break;
             case STORE_KEYS_AS_BINARY:
                break;
             case STORE_VALUES_AS_BINARY:
@@ -1623,6 +1635,15 @@ private void parseOffHeapMemoryAttributes(final XMLExtendedStreamReader reader,
             case ADDRESS_COUNT:
                memoryBuilder.addressCount(Integer.parseInt(value));
                break;
+            case LOAD_FACTOR:
+               memoryBuilder.loadFactor(Float.parseFloat(value));
+               break;
+            case EVICTION_POLICY:
+               memoryBuilder.evictionPolicy(OffHeapEvictionPolicy.valueOf(value));
+               break;
+            case POOLED:
+               memoryBuilder.pooled(Boolean.parseBoolean(value));
+               break;
             default:
                throw ParseUtils.unexpectedAttribute(reader, i);
          }
@@ -1640,6 +1661,9 @@ private void parseObjectMemoryAttributes(final XMLExtendedStreamReader reader, f
             case SIZE:
                memoryBuilder.size(Long.parseLong(value));
                break;
+            case SEGMENTED:
+               memoryBuilder.segmented(Boolean.parseBoolean(value));
+               break;
             default:
                throw ParseUtils.unexpectedAttribute(reader, i);
          }
@@ -1660,6 +1684,9 @@ private void parseBinaryMemoryAttributes(final XMLExtendedStreamReader reader, f
             case EVICTION:
                memoryBuilder.evictionType(EvictionType.valueOf(value));
                break;
+            case SEGMENTED:
+               memoryBuilder.segmented(Boolean.parseBoolean(value));
+               break;
             default:
                throw ParseUtils.unexpectedAttribute(reader, i);
          }
@@ -2291,6 +2318,10 @@ protected void parseFileStore(XMLExtendedStreamReader reader, ConfigurationBuild
                storeBuilder.fragmentationFactor(Float.parseFloat(value));
                break;
             }
+            case SEGMENTED: {
+               storeBuilder.segmented(Boolean.parseBoolean(value));
+               break;
+            }
             default: {
                parseStoreAttribute(reader, i, storeBuilder);
             }
@@ -2372,6 +2403,18 @@ public static void parseStoreWriteBehind(XMLExtendedStreamReader reader, AsyncSt
          String value = replaceProperties(reader.getAttributeValue(i));
          Attribute attribute = Attribute.forName(reader.getAttributeLocalName(i));
          switch (attribute) {
+            case FLUSH_BATCH_BYTES: {
+               storeBuilder.flushBatchBytes(Long.parseLong(value));
+               break;
+            }
+            case FLUSH_BATCH_SIZE: {
+               storeBuilder.flushBatchSize(Integer.parseInt(value));
+               break;
+            }
+            case FLUSH_INTERVAL: {
+               storeBuilder.flushInterval(Long.parseLong(value));
+               break;
+            }
             case FLUSH_LOCK_TIMEOUT: {
                if (reader.getSchema().since(9, 0)) {
                   throw ParseUtils.unexpectedAttribute(reader, attribute.getLocalName());
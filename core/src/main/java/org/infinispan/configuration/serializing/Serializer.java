@@ -111,7 +111,8 @@ private void writeThreads(XMLExtendedStreamWriter writer, GlobalConfiguration gl
       writer.writeStartElement(Element.THREADS);
       ConcurrentMap<String, DefaultThreadFactory> threadFactories = CollectionFactory.makeConcurrentMap();
       for (ThreadPoolConfiguration threadPoolConfiguration : Arrays.asList(globalConfiguration.expirationThreadPool(), globalConfiguration.listenerThreadPool(),
-            globalConfiguration.persistenceThreadPool(), globalConfiguration.replicationQueueThreadPool(), globalConfiguration.stateTransferThreadPool(),
+            globalConfiguration.persistenceThreadPool(), globalConfiguration.storeThreadPool(),
+            globalConfiguration.replicationQueueThreadPool(), globalConfiguration.stateTransferThreadPool(),
             globalConfiguration.transport().remoteCommandThreadPool(), globalConfiguration.transport().transportThreadPool())) {
          ThreadFactory threadFactory = threadPoolConfiguration.threadFactory();
          if (threadFactory instanceof DefaultThreadFactory) {
@@ -126,6 +127,7 @@ private void writeThreads(XMLExtendedStreamWriter writer, GlobalConfiguration gl
       writeThreadPool(writer, "expiration-pool", globalConfiguration.expirationThreadPool());
       writeThreadPool(writer, "listener-pool", globalConfiguration.listenerThreadPool());
       writeThreadPool(writer, "persistence-pool", globalConfiguration.persistenceThreadPool());
+      writeThreadPool(writer, "store-pool", globalConfiguration.storeThreadPool());
       writeThreadPool(writer, "replication-queue-pool", globalConfiguration.replicationQueueThreadPool());
       writeThreadPool(writer, "state-transfer-pool", globalConfiguration.stateTransferThreadPool());
       writeThreadPool(writer, "remote-command-pool", globalConfiguration.transport().remoteCommandThreadPool());
@@ -186,6 +188,9 @@ private void writeCacheContainer(XMLExtendedStreamWriter writer, ConfigurationHo
       if (globalConfiguration.stateTransferThreadPool().threadPoolFactory() != null) {
          writer.writeAttribute(Attribute.STATE_TRANSFER_EXECUTOR, "state-transfer-pool");
       }
+      if (globalConfiguration.storeThreadPool().threadPoolFactory() != null) {
+         writer.writeAttribute(Attribute.STORE_EXECUTOR, "store-pool");
+      }
       writeTransport(writer, globalConfiguration);
       writeSerialization(writer, globalConfiguration);
       writeJMX(writer, globalConfiguration);
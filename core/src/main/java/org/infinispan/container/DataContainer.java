@@ -3,7 +3,9 @@
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.Set;
+import java.util.Spliterators;
 import java.util.function.BiConsumer;
+import java.util.stream.StreamSupport;
 
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.factories.annotations.Stop;
@@ -193,6 +195,19 @@
     */
    Iterator<InternalCacheEntry<K, V>> iteratorIncludingExpired();
 
+   /**
+    * Returns the entries which are expired at the given time. This is used by the expiration reaper, so the
+    * implementations are encouraged to keep an index of the entries which can expire instead of iterating over all of
+    * them, like the default implementation does.
+    * @param currentTimeMillis the current wall clock time
+    * @return iterator that returns the expired entries
+    */
+   default Iterator<InternalCacheEntry<K, V>> iteratorExpired(long currentTimeMillis) {
+      return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iteratorIncludingExpired(), 0), false)
+            .filter(e -> e.canExpire() && e.isExpired(currentTimeMillis))
+            .iterator();
+   }
+
    interface ComputeAction<K, V> {
 
       /**
@@ -32,6 +32,7 @@
 import org.infinispan.eviction.EvictionType;
 import org.infinispan.eviction.PassivationManager;
 import org.infinispan.expiration.ExpirationManager;
+import org.infinispan.expiration.impl.ExpirationIndex;
 import org.infinispan.factories.annotations.Inject;
 import org.infinispan.filter.KeyFilter;
 import org.infinispan.filter.KeyValueFilter;
@@ -79,6 +80,7 @@
    private TimeService timeService;
    private CacheNotifier cacheNotifier;
    private ExpirationManager<K, V> expirationManager;
+   private final ExpirationIndex<K, V> expirationIndex = new ExpirationIndex<>();
 
    public DefaultDataContainer(int concurrencyLevel) {
       // If no comparing implementations passed, could fallback on JDK CHM
@@ -132,6 +134,7 @@ public void write(K key, InternalCacheEntry<K, V> value) {
          @Override
          public void delete(K key, InternalCacheEntry<K, V> value, RemovalCause cause) {
             if (cause == RemovalCause.SIZE) {
+               expirationIndex.remove(key, ExpirationIndex.expiryTime(value));
                listener.onEntryChosenForEviction(new ImmortalCacheEntry(key, value));
             }
          }
@@ -217,6 +220,8 @@ public void put(K k, V v, Metadata metadata) {
          l1Entry = true;
       }
       InternalCacheEntry<K, V> e = entries.get(k);
+      // the factory may update the existing entry in place
+      long oldExpiryTime = ExpirationIndex.expiryTime(e);
 
       if (trace) {
          log.tracef("Creating new ICE for writing. Existing=%s, metadata=%s, new value=%s", e, metadata, toStr(v));
@@ -236,6 +241,8 @@ public void put(K k, V v, Metadata metadata) {
 
       entries.compute(copy.getKey(), (key, entry) -> {
          activator.onUpdate(key, entry == null);
+         expirationIndex.update(key, entry == e ? oldExpiryTime : ExpirationIndex.expiryTime(entry),
+               ExpirationIndex.expiryTime(copy));
          return copy;
       });
    }
@@ -258,6 +265,7 @@ public InternalCacheEntry<K, V> remove(Object k) {
       final InternalCacheEntry<K,V>[] reference = new InternalCacheEntry[1];
       entries.compute((K) k, (key, entry) -> {
          activator.onRemove(key, entry == null);
+         expirationIndex.remove(key, ExpirationIndex.expiryTime(entry));
          reference[0] = entry;
          return null;
       });
@@ -309,6 +317,7 @@ public int sizeIncludingExpired() {
    @Override
    public void clear() {
       log.tracef("Clearing data container");
+      expirationIndex.clear();
       entries.clear();
    }
 
@@ -331,6 +340,7 @@ public Set<InternalCacheEntry<K, V>> entrySet() {
    public void evict(K key) {
       entries.computeIfPresent(key, (o, entry) -> {
          passivator.passivate(entry);
+         expirationIndex.remove(key, ExpirationIndex.expiryTime(entry));
          return null;
       });
    }
@@ -338,7 +348,10 @@ public void evict(K key) {
    @Override
    public InternalCacheEntry<K, V> compute(K key, ComputeAction<K, V> action) {
       return entries.compute(key, (k, oldEntry) -> {
+         // the action may update the existing entry in place
+         long oldExpiryTime = ExpirationIndex.expiryTime(oldEntry);
          InternalCacheEntry<K, V> newEntry = action.compute(k, oldEntry, entryFactory);
+         expirationIndex.update(k, oldExpiryTime, ExpirationIndex.expiryTime(newEntry));
          if (newEntry == oldEntry) {
             return oldEntry;
          } else if (newEntry == null) {
@@ -357,6 +370,11 @@ public Iterator<InternalCacheEntry<K, V>> iterator() {
       return new EntryIterator(entries.values().iterator(), false);
    }
 
+   @Override
+   public Iterator<InternalCacheEntry<K, V>> iteratorExpired(long currentTimeMillis) {
+      return expirationIndex.expired(currentTimeMillis, this::peek);
+   }
+
    @Override
    public Iterator<InternalCacheEntry<K, V>> iteratorIncludingExpired() {
       return new EntryIterator(entries.values().iterator(), true);
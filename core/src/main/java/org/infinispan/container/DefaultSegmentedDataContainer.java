@@ -0,0 +1,560 @@
+package org.infinispan.container;
+
+import static org.infinispan.commons.util.Util.toStr;
+
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.stream.IntStream;
+
+import org.infinispan.commons.logging.Log;
+import org.infinispan.commons.logging.LogFactory;
+import org.infinispan.commons.util.CollectionFactory;
+import org.infinispan.commons.util.IteratorMapper;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.distribution.ch.KeyPartitioner;
+import org.infinispan.eviction.ActivationManager;
+import org.infinispan.eviction.PassivationManager;
+import org.infinispan.expiration.ExpirationManager;
+import org.infinispan.expiration.impl.ExpirationIndex;
+import org.infinispan.factories.annotations.Inject;
+import org.infinispan.filter.KeyFilter;
+import org.infinispan.filter.KeyValueFilter;
+import org.infinispan.metadata.Metadata;
+import org.infinispan.metadata.impl.L1Metadata;
+import org.infinispan.util.CoreImmutables;
+import org.infinispan.util.TimeService;
+
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * Unbounded data container that keeps a separate map for each segment. Operations that are limited to a set of
+ * segments, such as state transfer or segment filtered streams, only touch the maps of the requested segments.
+ * <p>
+ * Maps are created lazily the first time an entry is written to a segment, and are released when the segment is
+ * removed via {@link #removeSegments(Set)}. A removed segment only accepts L1 entries until it is added again via
+ * {@link #addSegments(Set)}, any other write to it is ignored.
+ *
+ * @since 9.1
+ */
+@ThreadSafe
+public class DefaultSegmentedDataContainer<K, V> implements SegmentedDataContainer<K, V> {
+
+   private static final Log log = LogFactory.getLog(DefaultSegmentedDataContainer.class);
+   private static final boolean trace = log.isTraceEnabled();
+
+   private final AtomicReferenceArray<ConcurrentMap<K, InternalCacheEntry<K, V>>> maps;
+   private final int concurrencyLevel;
+   protected InternalEntryFactory entryFactory;
+   private KeyPartitioner keyPartitioner;
+   private PassivationManager passivator;
+   private ActivationManager activator;
+   private TimeService timeService;
+   private ExpirationManager<K, V> expirationManager;
+   private final ExpirationIndex<K, V> expirationIndex = new ExpirationIndex<>();
+
+   public DefaultSegmentedDataContainer(int concurrencyLevel, int numSegments) {
+      this.concurrencyLevel = concurrencyLevel;
+      this.maps = new AtomicReferenceArray<>(numSegments);
+   }
+
+   @Inject
+   public void initialize(KeyPartitioner keyPartitioner, PassivationManager passivator,
+                          InternalEntryFactory entryFactory, ActivationManager activator, TimeService timeService,
+                          ExpirationManager<K, V> expirationManager) {
+      this.keyPartitioner = keyPartitioner;
+      this.passivator = passivator;
+      this.entryFactory = entryFactory;
+      this.activator = activator;
+      this.timeService = timeService;
+      this.expirationManager = expirationManager;
+   }
+
+   private ConcurrentMap<K, InternalCacheEntry<K, V>> mapForKey(Object key) {
+      return maps.get(keyPartitioner.getSegment(key));
+   }
+
+   /**
+    * @return the map of the segment, created if needed; the map of a removed segment is a {@link RemovedSegmentMap}
+    */
+   private ConcurrentMap<K, InternalCacheEntry<K, V>> mapForWrite(int segment) {
+      ConcurrentMap<K, InternalCacheEntry<K, V>> map = maps.get(segment);
+      if (map == null) {
+         // Segments are allocated lazily, so only the segments that actually hold data take up memory
+         ConcurrentMap<K, InternalCacheEntry<K, V>> newMap = CollectionFactory.makeConcurrentParallelMap(16,
+               concurrencyLevel);
+         if (maps.compareAndSet(segment, null, newMap)) {
+            return newMap;
+         }
+         map = maps.get(segment);
+      }
+      return map;
+   }
+
+   @Override
+   public InternalCacheEntry<K, V> peek(Object key) {
+      ConcurrentMap<K, InternalCacheEntry<K, V>> map = mapForKey(key);
+      return map == null ? null : map.get(key);
+   }
+
+   @Override
+   public InternalCacheEntry<K, V> get(Object k) {
+      InternalCacheEntry<K, V> e = peek(k);
+      if (e != null && e.canExpire()) {
+         long currentTimeMillis = timeService.wallClockTime();
+         if (e.isExpired(currentTimeMillis)) {
+            expirationManager.handleInMemoryExpiration(e, currentTimeMillis);
+            e = null;
+         } else {
+            e.touch(currentTimeMillis);
+         }
+      }
+      return e;
+   }
+
+   @Override
+   public void put(K k, V v, Metadata metadata) {
+      boolean l1Entry = false;
+      if (metadata instanceof L1Metadata) {
+         metadata = ((L1Metadata) metadata).metadata();
+         l1Entry = true;
+      }
+      ConcurrentMap<K, InternalCacheEntry<K, V>> map = mapForWrite(keyPartitioner.getSegment(k));
+      if (map instanceof RemovedSegmentMap && !l1Entry) {
+         if (trace)
+            log.tracef("Ignoring write of %s, its segment was removed", toStr(k));
+         return;
+      }
+      InternalCacheEntry<K, V> e = map.get(k);
+      // the factory may update the existing entry in place
+      long oldExpiryTime = ExpirationIndex.expiryTime(e);
+
+      if (trace) {
+         log.tracef("Creating new ICE for writing. Existing=%s, metadata=%s, new value=%s", e, metadata, toStr(v));
+      }
+      final InternalCacheEntry<K, V> copy;
+      if (l1Entry) {
+         copy = entryFactory.createL1(k, v, metadata);
+      } else if (e != null) {
+         copy = entryFactory.update(e, v, metadata);
+      } else {
+         // this is a brand-new entry
+         copy = entryFactory.create(k, v, metadata);
+      }
+
+      if (trace)
+         log.tracef("Store %s in container", copy);
+
+      map.compute(copy.getKey(), (key, entry) -> {
+         activator.onUpdate(key, entry == null);
+         expirationIndex.update(key, entry == e ? oldExpiryTime : ExpirationIndex.expiryTime(entry),
+               ExpirationIndex.expiryTime(copy));
+         return copy;
+      });
+   }
+
+   @Override
+   public boolean containsKey(Object k) {
+      InternalCacheEntry<K, V> ice = peek(k);
+      if (ice != null && ice.canExpire()) {
+         long currentTimeMillis = timeService.wallClockTime();
+         if (ice.isExpired(currentTimeMillis)) {
+            expirationManager.handleInMemoryExpiration(ice, currentTimeMillis);
+            ice = null;
+         }
+      }
+      return ice != null;
+   }
+
+   @Override
+   public InternalCacheEntry<K, V> remove(Object k) {
+      ConcurrentMap<K, InternalCacheEntry<K, V>> map = mapForKey(k);
+      if (map == null) {
+         activator.onRemove(k, true);
+         return null;
+      }
+      final InternalCacheEntry<K, V>[] reference = new InternalCacheEntry[1];
+      map.compute((K) k, (key, entry) -> {
+         activator.onRemove(key, entry == null);
+         expirationIndex.remove(key, ExpirationIndex.expiryTime(entry));
+         reference[0] = entry;
+         return null;
+      });
+      InternalCacheEntry<K, V> e = reference[0];
+      if (trace) {
+         log.tracef("Removed %s from container", e);
+      }
+      return e == null || (e.canExpire() && e.isExpired(timeService.wallClockTime())) ? null : e;
+   }
+
+   @Override
+   public int size() {
+      return countNonExpired(iterator());
+   }
+
+   @Override
+   public int size(Set<Integer> segments) {
+      return countNonExpired(iterator(segments));
+   }
+
+   private int countNonExpired(Iterator<InternalCacheEntry<K, V>> iter) {
+      int size = 0;
+      // We have to loop through to make sure to remove expired entries
+      while (iter.hasNext()) {
+         iter.next();
+         if (++size == Integer.MAX_VALUE) return Integer.MAX_VALUE;
+      }
+      return size;
+   }
+
+   @Override
+   public int sizeIncludingExpired() {
+      int size = 0;
+      for (int i = 0; i < maps.length(); ++i) {
+         size += sizeOf(maps.get(i));
+         if (size < 0) return Integer.MAX_VALUE;
+      }
+      return size;
+   }
+
+   @Override
+   public int sizeIncludingExpired(Set<Integer> segments) {
+      int size = 0;
+      for (int segment : segments) {
+         size += sizeOf(maps.get(segment));
+         if (size < 0) return Integer.MAX_VALUE;
+      }
+      return size;
+   }
+
+   private static int sizeOf(Map<?, ?> map) {
+      return map == null ? 0 : map.size();
+   }
+
+   @Override
+   public void clear() {
+      log.tracef("Clearing data container");
+      expirationIndex.clear();
+      for (int i = 0; i < maps.length(); ++i) {
+         ConcurrentMap<K, InternalCacheEntry<K, V>> map = maps.get(i);
+         if (map != null) {
+            map.clear();
+         }
+      }
+   }
+
+   @Override
+   public void removeSegments(Set<Integer> segments) {
+      if (trace) {
+         log.tracef("Removing segments %s from data container", segments);
+      }
+      for (int segment : segments) {
+         // A write that already obtained the map is lost with it, like a write that comes after the removal
+         ConcurrentMap<K, InternalCacheEntry<K, V>> map = maps.getAndSet(segment, new RemovedSegmentMap<>());
+         if (map != null) {
+            map.clear();
+         }
+      }
+   }
+
+   @Override
+   public void addSegments(Set<Integer> segments) {
+      if (trace) {
+         log.tracef("Adding segments %s to data container", segments);
+      }
+      for (int segment : segments) {
+         ConcurrentMap<K, InternalCacheEntry<K, V>> map = maps.get(segment);
+         // The L1 entries kept while the segment wasn't owned are dropped, state transfer brings the owned entries
+         if (map instanceof RemovedSegmentMap) {
+            maps.compareAndSet(segment, map, null);
+         }
+      }
+   }
+
+   @Override
+   public Set<K> keySet() {
+      return new KeySet();
+   }
+
+   @Override
+   public Collection<V> values() {
+      return new Values();
+   }
+
+   @Override
+   public Set<InternalCacheEntry<K, V>> entrySet() {
+      return new EntrySet();
+   }
+
+   @Override
+   public void evict(K key) {
+      ConcurrentMap<K, InternalCacheEntry<K, V>> map = mapForKey(key);
+      if (map != null) {
+         map.computeIfPresent(key, (o, entry) -> {
+            passivator.passivate(entry);
+            expirationIndex.remove(key, ExpirationIndex.expiryTime(entry));
+            return null;
+         });
+      }
+   }
+
+   @Override
+   public InternalCacheEntry<K, V> compute(K key, ComputeAction<K, V> action) {
+      ConcurrentMap<K, InternalCacheEntry<K, V>> map = mapForWrite(keyPartitioner.getSegment(key));
+      BiFunction<K, InternalCacheEntry<K, V>, InternalCacheEntry<K, V>> remappingFunction = (k, oldEntry) -> {
+         // the action may update the existing entry in place
+         long oldExpiryTime = ExpirationIndex.expiryTime(oldEntry);
+         InternalCacheEntry<K, V> newEntry = action.compute(k, oldEntry, entryFactory);
+         expirationIndex.update(k, oldExpiryTime, ExpirationIndex.expiryTime(newEntry));
+         if (newEntry == oldEntry) {
+            return oldEntry;
+         } else if (newEntry == null) {
+            activator.onRemove(k, false);
+            return null;
+         }
+         activator.onUpdate(k, oldEntry == null);
+         if (trace)
+            log.tracef("Store %s in container", newEntry);
+         return newEntry;
+      };
+      if (map instanceof RemovedSegmentMap) {
+         // Only the L1 entries of a removed segment can still be updated or removed
+         InternalCacheEntry<K, V> result = map.computeIfPresent(key, remappingFunction);
+         if (trace && result == null)
+            log.tracef("Ignoring compute of %s, its segment was removed", toStr(key));
+         return result;
+      }
+      return map.compute(key, remappingFunction);
+   }
+
+   @Override
+   public Iterator<InternalCacheEntry<K, V>> iterator() {
+      return new EntryIterator(IntStream.range(0, maps.length()).iterator(), false);
+   }
+
+   @Override
+   public Iterator<InternalCacheEntry<K, V>> iteratorExpired(long currentTimeMillis) {
+      return expirationIndex.expired(currentTimeMillis, this::peek);
+   }
+
+   @Override
+   public Iterator<InternalCacheEntry<K, V>> iteratorIncludingExpired() {
+      return new EntryIterator(IntStream.range(0, maps.length()).iterator(), true);
+   }
+
+   @Override
+   public Iterator<InternalCacheEntry<K, V>> iterator(Set<Integer> segments) {
+      return new EntryIterator(segments.iterator(), false);
+   }
+
+   @Override
+   public Iterator<InternalCacheEntry<K, V>> iteratorIncludingExpired(Set<Integer> segments) {
+      return new EntryIterator(segments.iterator(), true);
+   }
+
+   /**
+    * Iterator that goes through the maps of the provided segments one after the other, skipping segments that
+    * have no map allocated.
+    */
+   private class EntryIterator implements Iterator<InternalCacheEntry<K, V>> {
+      private final Iterator<Integer> segmentIterator;
+      private final boolean includeExpired;
+
+      private Iterator<InternalCacheEntry<K, V>> current = Collections.emptyIterator();
+      private InternalCacheEntry<K, V> next;
+
+      EntryIterator(Iterator<Integer> segmentIterator, boolean includeExpired) {
+         this.segmentIterator = segmentIterator;
+         this.includeExpired = includeExpired;
+      }
+
+      private InternalCacheEntry<K, V> getNext() {
+         boolean initializedTime = false;
+         long now = 0;
+         while (true) {
+            while (!current.hasNext()) {
+               if (!segmentIterator.hasNext()) {
+                  return null;
+               }
+               ConcurrentMap<K, InternalCacheEntry<K, V>> map = maps.get(segmentIterator.next());
+               if (map != null) {
+                  current = map.values().iterator();
+               }
+            }
+            InternalCacheEntry<K, V> entry = current.next();
+            if (includeExpired || !entry.canExpire()) {
+               return entry;
+            }
+            if (!initializedTime) {
+               now = timeService.wallClockTime();
+               initializedTime = true;
+            }
+            if (!entry.isExpired(now)) {
+               return entry;
+            }
+         }
+      }
+
+      @Override
+      public InternalCacheEntry<K, V> next() {
+         if (next == null) {
+            next = getNext();
+         }
+         if (next == null) {
+            throw new NoSuchElementException();
+         }
+         InternalCacheEntry<K, V> toReturn = next;
+         next = null;
+         return toReturn;
+      }
+
+      @Override
+      public boolean hasNext() {
+         if (next == null) {
+            next = getNext();
+         }
+         return next != null;
+      }
+   }
+
+   /**
+    * Minimal implementation needed for unmodifiable Set
+    */
+   private class EntrySet extends AbstractSet<InternalCacheEntry<K, V>> {
+
+      @Override
+      public boolean contains(Object o) {
+         if (!(o instanceof Map.Entry)) {
+            return false;
+         }
+
+         @SuppressWarnings("rawtypes")
+         Map.Entry e = (Map.Entry) o;
+         InternalCacheEntry ice = peek(e.getKey());
+         if (ice == null) {
+            return false;
+         }
+         return ice.getValue().equals(e.getValue());
+      }
+
+      @Override
+      public Iterator<InternalCacheEntry<K, V>> iterator() {
+         return new IteratorMapper<>(DefaultSegmentedDataContainer.this.iterator(),
+               CoreImmutables::immutableInternalCacheEntry);
+      }
+
+      @Override
+      public int size() {
+         return sizeIncludingExpired();
+      }
+
+      @Override
+      public Spliterator<InternalCacheEntry<K, V>> spliterator() {
+         return Spliterators.spliterator(this, Spliterator.DISTINCT | Spliterator.CONCURRENT);
+      }
+   }
+
+   /**
+    * Minimal implementation needed for unmodifiable Set
+    */
+   private class KeySet extends AbstractSet<K> {
+      @Override
+      public boolean contains(Object o) {
+         return peek(o) != null;
+      }
+
+      @Override
+      public Iterator<K> iterator() {
+         return new IteratorMapper<>(iteratorIncludingExpired(), InternalCacheEntry::getKey);
+      }
+
+      @Override
+      public int size() {
+         return sizeIncludingExpired();
+      }
+   }
+
+   /**
+    * Minimal implementation needed for unmodifiable Collection
+    */
+   private class Values extends AbstractCollection<V> {
+      @Override
+      public Iterator<V> iterator() {
+         return new IteratorMapper<>(iteratorIncludingExpired(), InternalCacheEntry::getValue);
+      }
+
+      @Override
+      public int size() {
+         return sizeIncludingExpired();
+      }
+
+      @Override
+      public Spliterator<V> spliterator() {
+         return Spliterators.spliterator(this, Spliterator.CONCURRENT);
+      }
+   }
+
+   @Override
+   public void executeTask(final KeyFilter<? super K> filter, final BiConsumer<? super K, InternalCacheEntry<K, V>> action)
+         throws InterruptedException {
+      if (filter == null)
+         throw new IllegalArgumentException("No filter specified");
+      if (action == null)
+         throw new IllegalArgumentException("No action specified");
+
+      for (int i = 0; i < maps.length(); ++i) {
+         ConcurrentMap<K, InternalCacheEntry<K, V>> map = maps.get(i);
+         if (map != null) {
+            map.forEach((K key, InternalCacheEntry<K, V> value) -> {
+               if (filter.accept(key)) {
+                  action.accept(key, value);
+               }
+            });
+         }
+         if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedException();
+         }
+      }
+   }
+
+   @Override
+   public void executeTask(final KeyValueFilter<? super K, ? super V> filter, final BiConsumer<? super K, InternalCacheEntry<K, V>> action)
+         throws InterruptedException {
+      if (filter == null)
+         throw new IllegalArgumentException("No filter specified");
+      if (action == null)
+         throw new IllegalArgumentException("No action specified");
+
+      for (int i = 0; i < maps.length(); ++i) {
+         ConcurrentMap<K, InternalCacheEntry<K, V>> map = maps.get(i);
+         if (map != null) {
+            map.forEach((K key, InternalCacheEntry<K, V> value) -> {
+               if (filter.accept(key, value.getValue(), value.getMetadata())) {
+                  action.accept(key, value);
+               }
+            });
+         }
+         if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedException();
+         }
+      }
+   }
+
+   /**
+    * Map of a segment removed by {@link #removeSegments(Set)}, it only holds L1 entries.
+    */
+   private static class RemovedSegmentMap<K, V> extends ConcurrentHashMap<K, V> {
+   }
+}
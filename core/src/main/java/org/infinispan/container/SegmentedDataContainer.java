@@ -0,0 +1,67 @@
+package org.infinispan.container;
+
+import java.util.Iterator;
+import java.util.Set;
+
+import org.infinispan.container.entries.InternalCacheEntry;
+
+/**
+ * A {@link DataContainer} that keeps its entries partitioned by segment, so that operations that only need a
+ * subset of the segments (such as state transfer, segment filtered streams or removal of segments that are no longer
+ * owned) only have to touch the entries of those segments instead of scanning the whole container.
+ * <p>
+ * The segment of a key is determined by the {@link org.infinispan.distribution.ch.KeyPartitioner} of the cache.
+ *
+ * @since 9.1
+ */
+public interface SegmentedDataContainer<K, V> extends DataContainer<K, V> {
+
+   /**
+    * Same as {@link DataContainer#iterator()} except that only entries that map to the given segments are returned.
+    * @param segments the segments to return entries for
+    * @return iterator that doesn't produce expired entries
+    */
+   Iterator<InternalCacheEntry<K, V>> iterator(Set<Integer> segments);
+
+   /**
+    * Same as {@link DataContainer#iteratorIncludingExpired()} except that only entries that map to the given segments
+    * are returned.
+    * @param segments the segments to return entries for
+    * @return iterator that returns all entries of the segments including expired ones
+    */
+   Iterator<InternalCacheEntry<K, V>> iteratorIncludingExpired(Set<Integer> segments);
+
+   /**
+    * Returns how many non expired entries are present in the given segments
+    * @param segments the segments to count entries for
+    * @return count of the non expired entries in the given segments
+    */
+   int size(Set<Integer> segments);
+
+   /**
+    * Returns how many entries are present in the given segments, including expired entries. This is a constant time
+    * operation per segment.
+    * @param segments the segments to count entries for
+    * @return count of the entries in the given segments
+    */
+   int sizeIncludingExpired(Set<Integer> segments);
+
+   /**
+    * Removes all the entries that map to the given segments and releases the memory backing them. No notifications,
+    * passivation or activation is performed for the removed entries, so callers should invoke this only after
+    * the entries have been invalidated through the regular cache operations or when those side effects are not
+    * desired.
+    * <p>
+    * Until they are added again with {@link #addSegments(Set)}, the removed segments only accept L1 entries: any other
+    * write to them, including one concurrent with the removal, is ignored.
+    * @param segments the segments to drop
+    */
+   void removeSegments(Set<Integer> segments);
+
+   /**
+    * Allows writes to segments that were removed with {@link #removeSegments(Set)}, because they are owned again.
+    * The L1 entries kept for those segments are dropped. Segments that were not removed are not affected.
+    * @param segments the segments that are owned
+    */
+   void addSegments(Set<Integer> segments);
+}
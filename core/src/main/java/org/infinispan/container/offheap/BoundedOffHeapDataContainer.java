@@ -28,7 +28,11 @@ public class BoundedOffHeapDataContainer extends OffHeapDataContainer {
    private long lastAddress;
 
    public BoundedOffHeapDataContainer(int desiredSize, long maxSize, EvictionType type) {
-      super(desiredSize);
+      this(desiredSize, 0.75f, maxSize, type);
+   }
+
+   public BoundedOffHeapDataContainer(int desiredSize, float loadFactor, long maxSize, EvictionType type) {
+      super(desiredSize, loadFactor);
       this.maxSize = maxSize;
       if (type == EvictionType.COUNT) {
          sizeCalculator = i -> 1;
@@ -223,7 +227,9 @@ private void ensureSize() {
                      addressToRemove, currentSize, maxSize);
             }
             try {
-               performRemove(addressToRemove, offHeapEntryFactory.getKey(addressToRemove));
+               WrappedBytes key = offHeapEntryFactory.getKey(addressToRemove);
+               // Removal has to start from the head of the bucket, as the entry may not be the first one in it
+               performRemove(memoryLookup(key).getMemoryAddress(key), key);
             } finally {
                entryWriteLock.unlock();
             }
@@ -0,0 +1,151 @@
+package org.infinispan.container.offheap;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.function.LongUnaryOperator;
+
+import org.infinispan.commons.marshall.WrappedBytes;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.eviction.EvictionType;
+import org.infinispan.metadata.Metadata;
+
+/**
+ * Data Container implementation that stores entries in native memory (off-heap) that is also bounded.  This
+ * implementation uses the CLOCK (second chance) algorithm to choose which entries to evict.
+ * <p>
+ * The first 8 bytes of every entry, reserved for eviction, hold a reference flag instead of a pointer to an LRU node.
+ * The flag is set when the entry is created or read, which only requires the lock of the entry's stripe, so reads
+ * never contend on a shared lock.  When the container is over its maximum size a clock hand per stripe goes through
+ * the buckets of the stripe clearing the flags it finds set, and evicts the first entry whose flag is not set.  The
+ * stripe to evict from is chosen in a round robin fashion.
+ *
+ * @since 9.1
+ */
+public class ClockBoundedOffHeapDataContainer extends OffHeapDataContainer {
+   private final long maxSize;
+   private final LongUnaryOperator sizeCalculator;
+   private final AtomicLong currentSize = new AtomicLong();
+   private final AtomicInteger nextStripe = new AtomicInteger();
+   // Bucket each stripe's clock hand points at, guarded by the write lock of the stripe
+   private final int[] hands;
+
+   public ClockBoundedOffHeapDataContainer(int desiredSize, float loadFactor, long maxSize, EvictionType type) {
+      super(desiredSize, loadFactor);
+      this.maxSize = maxSize;
+      if (type == EvictionType.COUNT) {
+         sizeCalculator = i -> 1;
+      } else {
+         sizeCalculator = i -> offHeapEntryFactory.determineSize(i);
+      }
+      this.hands = new int[lockCount];
+   }
+
+   @Override
+   public void put(WrappedBytes key, WrappedBytes value, Metadata metadata) {
+      super.put(key, value, metadata);
+      // The following is called outside of the write lock specifically - since we may not have to evict and even
+      // if we did it would quite possibly need a different lock
+      ensureSize();
+   }
+
+   @Override
+   public InternalCacheEntry<WrappedBytes, WrappedBytes> compute(WrappedBytes key, ComputeAction<WrappedBytes, WrappedBytes> action) {
+      InternalCacheEntry<WrappedBytes, WrappedBytes> result = super.compute(key, action);
+      if (result != null) {
+         // Means we had a put or replace called so we have to confirm sizes
+         ensureSize();
+      }
+      return result;
+   }
+
+   @Override
+   protected void entryCreated(long newAddress) {
+      UNSAFE.putLong(newAddress, 1);
+      currentSize.addAndGet(sizeCalculator.applyAsLong(newAddress));
+      super.entryCreated(newAddress);
+   }
+
+   @Override
+   protected void entryReplaced(long newAddress, long oldAddress) {
+      UNSAFE.putLong(newAddress, 1);
+      currentSize.addAndGet(sizeCalculator.applyAsLong(newAddress) - sizeCalculator.applyAsLong(oldAddress));
+      super.entryReplaced(newAddress, oldAddress);
+   }
+
+   @Override
+   protected void entryRemoved(long removedAddress) {
+      currentSize.addAndGet(-sizeCalculator.applyAsLong(removedAddress));
+      super.entryRemoved(removedAddress);
+   }
+
+   @Override
+   protected void entryRetrieved(long entryAddress) {
+      // Only write when needed so reads of hot entries don't keep dirtying the memory
+      if (UNSAFE.getLong(entryAddress) == 0) {
+         UNSAFE.putLong(entryAddress, 1);
+      }
+      super.entryRetrieved(entryAddress);
+   }
+
+   @Override
+   protected void performClear() {
+      super.performClear();
+      currentSize.set(0);
+   }
+
+   private void ensureSize() {
+      while (currentSize.get() > maxSize) {
+         int stripe = nextStripe.getAndIncrement() & (lockCount - 1);
+         Lock lock = locks.getLockWithOffset(stripe).writeLock();
+         if (!lock.tryLock()) {
+            // Another thread is using this stripe, let it continue and try the next one
+            Thread.yield();
+            continue;
+         }
+         try {
+            long addressToRemove = findEvictionCandidate(stripe);
+            if (addressToRemove != 0) {
+               if (trace) {
+                  log.tracef("Removing entry: %d due to eviction due to size %d being larger than maximum of %d",
+                        addressToRemove, currentSize.get(), maxSize);
+               }
+               WrappedBytes key = offHeapEntryFactory.getKey(addressToRemove);
+               performRemove(memoryLookup(key).getMemoryAddress(key), key);
+            }
+         } finally {
+            lock.unlock();
+         }
+      }
+   }
+
+   /**
+    * Advances the clock hand of the given stripe until an entry that was not referenced since the last visit is
+    * found, clearing the reference flag of the entries it passes.  The write lock for the stripe <b>must</b> be held.
+    * @param stripe the stripe to find an entry in
+    * @return the address of the entry to evict or 0 if the stripe is empty
+    */
+   private long findEvictionCandidate(int stripe) {
+      if (stripeSizes[stripe] == 0) {
+         return 0;
+      }
+      MemoryAddressHash memoryLookup = memoryLookups[stripe];
+      int pointerMask = memoryLookup.getPointerCount() - 1;
+      // The table may have been resized since the hand was last moved
+      int hand = hands[stripe] & pointerMask;
+      // After a full rotation all flags were cleared, so the second one always finds an entry
+      for (long i = 0; i <= (((long) pointerMask + 1) << 1); ++i) {
+         long address = memoryLookup.getMemoryAddressOffset(hand);
+         while (address != 0) {
+            if (UNSAFE.getLong(address) == 0) {
+               hands[stripe] = hand;
+               return address;
+            }
+            UNSAFE.putLong(address, 0);
+            address = offHeapEntryFactory.getNextLinkedPointerAddress(address);
+         }
+         hand = (hand + 1) & pointerMask;
+      }
+      return 0;
+   }
+}
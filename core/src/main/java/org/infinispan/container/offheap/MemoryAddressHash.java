@@ -15,9 +15,22 @@ public class MemoryAddressHash {
 
    private final long memory;
    private final int pointerCount;
+   private final int shift;
 
    public MemoryAddressHash(int pointers) {
+      this(pointers, 0);
+   }
+
+   /**
+    * Creates a hash where the lowest {@code shift} bits of the spread hash code are ignored when determining the
+    * offset.  This is useful when those bits were already used to select this instance among others, such as
+    * when there is a hash per lock stripe.
+    * @param pointers how many pointers to allocate, rounded up to the next power of two
+    * @param shift how many of the lower bits of the hash code to ignore
+    */
+   public MemoryAddressHash(int pointers, int shift) {
       this.pointerCount = nextPowerOfTwo(pointers);
+      this.shift = shift;
       long bytes = ((long) pointerCount) << 3;
       memory = UNSAFE.allocateMemory(bytes);
       // Have to clear out bytes to make sure no bad stuff was read in
@@ -25,24 +38,44 @@ public MemoryAddressHash(int pointers) {
    }
 
    private int findOffset(Object instance) {
-      int h = spread(instance.hashCode());
+      return findOffset(instance.hashCode());
+   }
+
+   /**
+    * Returns the offset of the pointer that an object with the given hash code maps to
+    * @param hashCode the hash code of the object
+    * @return the offset of the pointer
+    */
+   public int findOffset(int hashCode) {
+      int h = spread(hashCode) >>> shift;
       int pointerMask = pointerCount - 1;
       return h & pointerMask;
    }
 
+   /**
+    * @return how many pointers this hash holds
+    */
+   public int getPointerCount() {
+      return pointerCount;
+   }
+
    public void putMemoryAddress(Object instance, long address) {
       int offset = findOffset(instance);
       UNSAFE.putLong(memory + (((long) offset) << 3), address);
    }
 
    public long getMemoryAddress(Object instance) {
-      return UNSAFE.getLong(memory + (findOffset(instance) << 3));
+      return UNSAFE.getLong(memory + (((long) findOffset(instance)) << 3));
    }
 
    public long getMemoryAddressOffset(int offset) {
       return UNSAFE.getLong(memory + (((long) offset) << 3));
    }
 
+   public void putMemoryAddressOffset(int offset, long address) {
+      UNSAFE.putLong(memory + (((long) offset) << 3), address);
+   }
+
    public void deallocate() {
       UNSAFE.freeMemory(memory);
    }
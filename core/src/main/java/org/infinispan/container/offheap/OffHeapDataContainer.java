@@ -23,6 +23,8 @@
 import org.infinispan.eviction.PassivationManager;
 import org.infinispan.factories.annotations.Inject;
 import org.infinispan.factories.annotations.Stop;
+import org.infinispan.jmx.annotations.MBean;
+import org.infinispan.jmx.annotations.ManagedAttribute;
 import org.infinispan.filter.KeyFilter;
 import org.infinispan.filter.KeyValueFilter;
 import org.infinispan.metadata.Metadata;
@@ -32,9 +34,14 @@
 
 /**
  * Data Container implementation that stores entries in native memory (off-heap).
+ * <p>
+ * Each lock stripe owns its own table of memory address pointers, guarded by the lock of the stripe.  When the number
+ * of entries in a stripe exceeds the configured load factor the table of that stripe is doubled in size while holding
+ * only its write lock, so the other stripes can still be read and written.
  * @author wburns
  * @since 9.0
  */
+@MBean(objectName = "OffHeapDataContainer", description = "Stores entries in native memory")
 public class OffHeapDataContainer implements DataContainer<WrappedBytes, WrappedBytes> {
    protected final Log log = LogFactory.getLog(getClass());
    protected final boolean trace = log.isTraceEnabled();
@@ -44,7 +51,15 @@ public class OffHeapDataContainer implements DataContainer<WrappedBytes, Wrapped
    protected final int lockCount;
    protected final int memoryAddressCount;
    protected final StripedLock locks;
-   protected final MemoryAddressHash memoryLookup;
+   // One table per lock stripe, each only read or replaced while holding the lock of the stripe
+   protected final MemoryAddressHash[] memoryLookups;
+   // How many entries are in each stripe, guarded by the write lock of the stripe
+   protected final int[] stripeSizes;
+   private final int lockShift;
+   // How many pointers each stripe started with, tables only grow in multiples of this
+   private final int initialStripeAddressCount;
+   private final float loadFactor;
+   private final AtomicLong resizeCount = new AtomicLong();
    protected OffHeapMemoryAllocator allocator;
    protected OffHeapEntryFactory offHeapEntryFactory;
    protected InternalEntryFactory internalEntryFactory;
@@ -68,13 +83,25 @@ static int nextPowerOfTwo(int target) {
    }
 
    public OffHeapDataContainer(int desiredSize) {
+      this(desiredSize, 0.75f);
+   }
+
+   public OffHeapDataContainer(int desiredSize, float loadFactor) {
       lockCount = nextPowerOfTwo(Runtime.getRuntime().availableProcessors()) << 1;
       int memoryAddresses = desiredSize >= MAX_LOCK_COUNT ? MAX_LOCK_COUNT : lockCount;
       while (memoryAddresses < desiredSize) {
          memoryAddresses <<= 1;
       }
       memoryAddressCount = memoryAddresses;
-      memoryLookup = new MemoryAddressHash(memoryAddressCount);
+      this.loadFactor = loadFactor;
+      lockShift = Integer.numberOfTrailingZeros(lockCount);
+      initialStripeAddressCount = memoryAddressCount / lockCount;
+      memoryLookups = new MemoryAddressHash[lockCount];
+      for (int i = 0; i < lockCount; ++i) {
+         // The lower bits of the hash already determined the stripe so they are ignored in the stripe table
+         memoryLookups[i] = new MemoryAddressHash(initialStripeAddressCount, lockShift);
+      }
+      stripeSizes = new int[lockCount];
       // Unfortunately desired size directly correlates to lock size
       locks = new StripedLock(lockCount);
    }
@@ -101,7 +128,9 @@ public void deallocate() {
                   "will have occurred!");
          }
          clear();
-         memoryLookup.deallocate();
+         for (MemoryAddressHash memoryLookup : memoryLookups) {
+            memoryLookup.deallocate();
+         }
          dellocated = true;
       } finally {
          locks.unlockAll();
@@ -115,6 +144,24 @@ static WrappedByteArray toWrapper(Object obj) {
       throw new IllegalArgumentException("Require WrappedByteArray: got " + obj.getClass());
    }
 
+   /**
+    * Returns the offset of the lock stripe, and thus the memory lookup table, the given hash code maps to
+    * @param hashCode the hash code of the key
+    * @return the offset of the stripe
+    */
+   protected int stripeOffset(int hashCode) {
+      return MemoryAddressHash.spread(hashCode) & (lockCount - 1);
+   }
+
+   /**
+    * Returns the memory lookup table for the given key.  The lock for the given key <b>must</b> be held.
+    * @param key the key to find the table for
+    * @return the table holding the pointers for the key
+    */
+   protected MemoryAddressHash memoryLookup(Object key) {
+      return memoryLookups[stripeOffset(key.hashCode())];
+   }
+
    protected void checkDeallocation() {
       if (dellocated) {
          throw new IllegalStateException("Container was already shut down!");
@@ -127,7 +174,7 @@ public InternalCacheEntry<WrappedBytes, WrappedBytes> get(Object k) {
       lock.lock();
       try {
          checkDeallocation();
-         long address = memoryLookup.getMemoryAddress(k);
+         long address = memoryLookup(k).getMemoryAddress(k);
          if (address == 0) {
             return null;
          }
@@ -178,6 +225,8 @@ public void put(WrappedBytes key, WrappedBytes value, Metadata metadata) {
     * @param key the key of the entry
     */
    protected void performPut(long newAddress, WrappedBytes key) {
+      int stripe = stripeOffset(key.hashCode());
+      MemoryAddressHash memoryLookup = memoryLookups[stripe];
       long address = memoryLookup.getMemoryAddress(key);
       boolean shouldCreate = false;
       // Have to start new linked node list
@@ -185,6 +234,7 @@ protected void performPut(long newAddress, WrappedBytes key) {
          memoryLookup.putMemoryAddress(key, newAddress);
          entryCreated(newAddress);
          size.incrementAndGet();
+         stripeSizes[stripe]++;
       } else {
          // Whether the key was found or not - short circuit equality checks
          boolean foundKey = false;
@@ -225,6 +275,7 @@ protected void performPut(long newAddress, WrappedBytes key) {
          if (!foundKey) {
             entryCreated(newAddress);
             size.incrementAndGet();
+            stripeSizes[stripe]++;
          }
          if (shouldCreate) {
             memoryLookup.putMemoryAddress(key, newAddress);
@@ -233,6 +284,58 @@ protected void performPut(long newAddress, WrappedBytes key) {
             offHeapEntryFactory.updateNextLinkedPointerAddress(prevAddress, newAddress);
          }
       }
+      if (stripeSizes[stripe] > memoryLookup.getPointerCount() * loadFactor) {
+         resizeStripe(stripe);
+      }
+   }
+
+   /**
+    * Doubles the memory lookup table of the given stripe, splitting the entries of each bucket between the two
+    * buckets it maps to in the new table.  The write lock for the stripe <b>must</b> be held before calling this
+    * method.
+    * @param stripe the stripe to resize
+    */
+   private void resizeStripe(int stripe) {
+      MemoryAddressHash oldLookup = memoryLookups[stripe];
+      int oldPointerCount = oldLookup.getPointerCount();
+      if (oldPointerCount >= MAX_LOCK_COUNT) {
+         return;
+      }
+      if (trace) {
+         log.tracef("Resizing memory lookup of stripe %d from %d to %d pointers with %d entries", stripe,
+               oldPointerCount, oldPointerCount << 1, stripeSizes[stripe]);
+      }
+      MemoryAddressHash newLookup = new MemoryAddressHash(oldPointerCount << 1, lockShift);
+      for (int i = 0; i < oldPointerCount; ++i) {
+         long address = oldLookup.getMemoryAddressOffset(i);
+         // Entries are appended to keep the same relative order in both buckets
+         long lowTail = 0;
+         long highTail = 0;
+         while (address != 0) {
+            long nextAddress = offHeapEntryFactory.getNextLinkedPointerAddress(address);
+            offHeapEntryFactory.updateNextLinkedPointerAddress(address, 0);
+            int offset = newLookup.findOffset(offHeapEntryFactory.getHashCodeForAddress(address));
+            if (offset == i) {
+               if (lowTail == 0) {
+                  newLookup.putMemoryAddressOffset(offset, address);
+               } else {
+                  offHeapEntryFactory.updateNextLinkedPointerAddress(lowTail, address);
+               }
+               lowTail = address;
+            } else {
+               if (highTail == 0) {
+                  newLookup.putMemoryAddressOffset(offset, address);
+               } else {
+                  offHeapEntryFactory.updateNextLinkedPointerAddress(highTail, address);
+               }
+               highTail = address;
+            }
+            address = nextAddress;
+         }
+      }
+      memoryLookups[stripe] = newLookup;
+      oldLookup.deallocate();
+      resizeCount.incrementAndGet();
    }
 
    /**
@@ -270,7 +373,7 @@ public boolean containsKey(Object k) {
       lock.lock();
       try {
          checkDeallocation();
-         long address = memoryLookup.getMemoryAddress(k);
+         long address = memoryLookup(k).getMemoryAddress(k);
          if (address == 0) {
             return false;
          }
@@ -304,7 +407,7 @@ public InternalCacheEntry<WrappedBytes, WrappedBytes> remove(Object key) {
       lock.lock();
       try {
          checkDeallocation();
-         long address = memoryLookup.getMemoryAddress(key);
+         long address = memoryLookup(key).getMemoryAddress(key);
          if (address == 0) {
             return null;
          }
@@ -334,9 +437,10 @@ protected InternalCacheEntry<WrappedBytes, WrappedBytes> performRemove(long addr
             if (prevAddress != 0) {
                UNSAFE.putLong(prevAddress, nextAddress);
             } else {
-               memoryLookup.putMemoryAddress(key, nextAddress);
+               memoryLookup(key).putMemoryAddress(key, nextAddress);
             }
             size.decrementAndGet();
+            stripeSizes[stripeOffset(key.hashCode())]--;
             return ice;
          }
          prevAddress = address;
@@ -379,13 +483,16 @@ protected void performClear() {
       if (trace) {
          log.trace("Clearing off heap data");
       }
-      memoryLookup.toStreamRemoved().forEach(address -> {
-         while (address != 0) {
-            long nextAddress = offHeapEntryFactory.getNextLinkedPointerAddress(address);
-            allocator.deallocate(address);
-            address = nextAddress;
-         }
-      });
+      for (int i = 0; i < lockCount; ++i) {
+         memoryLookups[i].toStreamRemoved().forEach(address -> {
+            while (address != 0) {
+               long nextAddress = offHeapEntryFactory.getNextLinkedPointerAddress(address);
+               allocator.deallocate(address);
+               address = nextAddress;
+            }
+         });
+         stripeSizes[i] = 0;
+      }
       size.set(0);
       if (trace) {
          log.trace("Cleared off heap data");
@@ -526,7 +633,8 @@ private void executeTask(Consumer<InternalCacheEntry<WrappedBytes, WrappedBytes>
          lock.lock();
          try {
             checkDeallocation();
-            for (int j = i; j < memoryAddressCount; j += lockCount) {
+            MemoryAddressHash memoryLookup = memoryLookups[i];
+            for (int j = 0; j < memoryLookup.getPointerCount(); ++j) {
                long address = memoryLookup.getMemoryAddressOffset(j);
                while (address != 0) {
                   long nextAddress = offHeapEntryFactory.getNextLinkedPointerAddress(address);
@@ -564,27 +672,77 @@ public void executeTask(KeyValueFilter<? super WrappedBytes, ? super WrappedByte
    private Stream<InternalCacheEntry<WrappedBytes, WrappedBytes>> entryStream() {
       return IntStream.range(0, memoryAddressCount)
             .mapToObj(a -> {
-               Lock lock = locks.getLockWithOffset(a % lockCount).readLock();
+               int stripe = a % lockCount;
+               int initialOffset = a / lockCount;
+               Lock lock = locks.getLockWithOffset(stripe).readLock();
                lock.lock();
                try {
                   checkDeallocation();
-                  long address = memoryLookup.getMemoryAddressOffset(a);
-                  if (address == 0) {
-                     return null;
+                  MemoryAddressHash memoryLookup = memoryLookups[stripe];
+                  Stream.Builder<InternalCacheEntry<WrappedBytes, WrappedBytes>> builder = null;
+                  // Tables only grow by doubling, so the entries that were in the initial bucket are now in every
+                  // bucket congruent to it, which means every entry is returned exactly once even if the table was
+                  // resized while iterating
+                  for (int i = initialOffset; i < memoryLookup.getPointerCount(); i += initialStripeAddressCount) {
+                     long address = memoryLookup.getMemoryAddressOffset(i);
+                     while (address != 0) {
+                        if (builder == null) {
+                           builder = Stream.builder();
+                        }
+                        long nextAddress = offHeapEntryFactory.getNextLinkedPointerAddress(address);
+                        builder.accept(offHeapEntryFactory.fromMemory(address));
+                        address = nextAddress;
+                     }
                   }
-                  Stream.Builder<InternalCacheEntry<WrappedBytes, WrappedBytes>> builder = Stream.builder();
-                  long nextAddress;
-                  do {
-                     nextAddress = offHeapEntryFactory.getNextLinkedPointerAddress(address);
-                     builder.accept(offHeapEntryFactory.fromMemory(address));
-                  } while ((address = nextAddress) != 0);
-                  return builder.build();
+                  return builder == null ? null : builder.build();
                } finally {
                   lock.unlock();
                }
             }).flatMap(Function.identity());
    }
 
+   @ManagedAttribute(description = "The amount of memory address pointers currently allocated",
+         displayName = "Memory address count")
+   public long getAddressCount() {
+      long count = 0;
+      for (int i = 0; i < lockCount; ++i) {
+         Lock lock = locks.getLockWithOffset(i).readLock();
+         lock.lock();
+         try {
+            count += memoryLookups[i].getPointerCount();
+         } finally {
+            lock.unlock();
+         }
+      }
+      return count;
+   }
+
+   @ManagedAttribute(description = "The average amount of entries in each non empty bucket of the memory lookups",
+         displayName = "Average chain length")
+   public double getAverageChainLength() {
+      long entries = 0;
+      long usedBuckets = 0;
+      for (int i = 0; i < lockCount; ++i) {
+         Lock lock = locks.getLockWithOffset(i).readLock();
+         lock.lock();
+         try {
+            if (dellocated) {
+               return 0;
+            }
+            entries += stripeSizes[i];
+            usedBuckets += memoryLookups[i].toStream().count();
+         } finally {
+            lock.unlock();
+         }
+      }
+      return usedBuckets == 0 ? 0 : (double) entries / usedBuckets;
+   }
+
+   @ManagedAttribute(description = "How many times a memory lookup table has been resized", displayName = "Resize count")
+   public long getResizeCount() {
+      return resizeCount.get();
+   }
+
    @Override
    public Iterator<InternalCacheEntry<WrappedBytes, WrappedBytes>> iterator() {
       long time = timeService.wallClockTime();
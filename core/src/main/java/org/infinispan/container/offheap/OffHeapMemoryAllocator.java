@@ -27,5 +27,18 @@ public interface OffHeapMemoryAllocator {
     */
    void deallocate(long memoryAddress, long size);
 
+   /**
+    * Returns the amount of memory currently allocated and not yet deallocated
+    * @return the amount of bytes
+    */
    long getAllocatedAmount();
+
+   /**
+    * Returns the amount of native memory held by the allocator, which may include memory that was deallocated but is
+    * kept for later allocations
+    * @return the amount of bytes
+    */
+   default long getReservedAmount() {
+      return getAllocatedAmount();
+   }
 }
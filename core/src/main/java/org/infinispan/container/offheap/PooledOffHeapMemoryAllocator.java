@@ -0,0 +1,392 @@
+package org.infinispan.container.offheap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongUnaryOperator;
+
+import org.infinispan.factories.annotations.Inject;
+import org.infinispan.factories.annotations.Start;
+import org.infinispan.factories.annotations.Stop;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import sun.misc.Unsafe;
+
+/**
+ * Memory allocator that pools memory instead of going to the system allocator for every entry.
+ * <p>
+ * Requests up to {@link #MAX_POOLED_SIZE} bytes are rounded up to a size class, 16 byte steps up to 128 bytes and then
+ * 4 steps per power of two, so that above 128 bytes at most 25% of a block is wasted.  Blocks of a size class are
+ * carved out of large slabs that are allocated through {@link Unsafe} and freed blocks are kept to satisfy later
+ * requests of the same size class.  Each thread keeps a small cache of free blocks per size class and only goes to the
+ * shared free list of the size class when its cache is empty or full, and then it moves blocks in batches.  Larger
+ * requests are allocated directly like {@link UnpooledOffHeapMemoryAllocator} does.
+ * <p>
+ * The blocks cached by threads that died are given back to the size classes before a size class allocates a new slab
+ * and when a thread starts using the allocator.  The thread caches don't reference the allocator, so the threads of a
+ * shared pool don't keep it and its memory reachable after the cache is stopped.
+ * <p>
+ * Slabs are only freed when the allocator is stopped and all the memory it handed out has been deallocated, so the
+ * native memory held never shrinks while the cache is running.  That's why this allocator is only used when enabled
+ * with {@link org.infinispan.configuration.cache.MemoryConfigurationBuilder#pooled(boolean)}.
+ * {@link #getAllocatedAmount()} returns the amount of memory in the blocks currently handed out, while
+ * {@link #getReservedAmount()} returns the amount of native memory held by the allocator, which includes free blocks
+ * and therefore reflects the actual memory footprint.
+ * @since 9.1
+ */
+public class PooledOffHeapMemoryAllocator implements OffHeapMemoryAllocator {
+   private static final Unsafe UNSAFE = UnsafeHolder.UNSAFE;
+   private static final Log log = LogFactory.getLog(PooledOffHeapMemoryAllocator.class, Log.class);
+   private static final boolean trace = log.isTraceEnabled();
+
+   /**
+    * Largest request that is served from a pool
+    */
+   public static final int MAX_POOLED_SIZE = 16 * 1024;
+   // Minimum size of a slab, size classes with large blocks use bigger slabs so a slab holds at least 16 blocks
+   private static final int SLAB_SIZE = 64 * 1024;
+   private static final int MIN_BLOCKS_PER_SLAB = 16;
+   // Approximate amount of memory a thread may cache per size class
+   private static final int THREAD_CACHE_SIZE = 64 * 1024;
+   private static final int MAX_THREAD_CACHE_BLOCKS = 64;
+   private static final int SIZE_CLASS_COUNT = sizeClassIndex(MAX_POOLED_SIZE) + 1;
+
+   private final SizeClass[] sizeClasses = new SizeClass[SIZE_CLASS_COUNT];
+   private final ThreadLocal<ThreadCache> threadCaches = new ThreadLocal<>();
+   // The caches of the current generation, so the blocks of the threads that died can be reclaimed
+   private final Set<ThreadCache> registeredCaches = ConcurrentHashMap.newKeySet();
+   private final List<Long> slabs = new ArrayList<>();
+   // Native memory held by the allocator, slabs and directly allocated memory
+   private final AtomicLong amountAllocated = new AtomicLong();
+   // Memory handed out and not yet deallocated
+   private final AtomicLong amountUsed = new AtomicLong();
+   // Incremented every time the slabs are freed, so that threads discard the blocks they cached before
+   private volatile int generation;
+   private volatile boolean stopped;
+   private LongUnaryOperator sizeCalculator;
+
+   public PooledOffHeapMemoryAllocator() {
+      for (int i = 0; i < SIZE_CLASS_COUNT; ++i) {
+         sizeClasses[i] = new SizeClass(sizeClassSize(i));
+      }
+   }
+
+   @Inject
+   public void inject(OffHeapEntryFactory offHeapEntryFactory) {
+      sizeCalculator = offHeapEntryFactory::determineSize;
+   }
+
+   @Start
+   public void start() {
+      stopped = false;
+   }
+
+   /**
+    * Frees the slabs if all the memory was deallocated already, otherwise they are freed as soon as the last block
+    * is deallocated, which happens when the data container is cleared.
+    */
+   @Stop(priority = Integer.MAX_VALUE)
+   public void stop() {
+      stopped = true;
+      if (amountUsed.get() == 0) {
+         releaseSlabs();
+      }
+   }
+
+   @Override
+   public long allocate(long memoryLength) {
+      long memoryLocation;
+      long size;
+      if (memoryLength > MAX_POOLED_SIZE) {
+         memoryLocation = UNSAFE.allocateMemory(memoryLength);
+         amountAllocated.addAndGet(memoryLength);
+         size = memoryLength;
+      } else {
+         int index = sizeClassIndex(memoryLength);
+         ThreadCache cache = threadCache();
+         memoryLocation = cache.pop(sizeClasses[index], index, false);
+         if (memoryLocation == 0) {
+            // The blocks cached by dead threads are reused before the size class grows
+            reclaimDeadThreadCaches();
+            memoryLocation = cache.pop(sizeClasses[index], index, true);
+         }
+         size = sizeClasses[index].blockSize;
+      }
+      long currentSize = amountUsed.addAndGet(size);
+      if (trace) {
+         log.tracef("Allocated off heap memory at %d with %d bytes.  Total size: %d", memoryLocation, size,
+               currentSize);
+      }
+      return memoryLocation;
+   }
+
+   @Override
+   public void deallocate(long memoryAddress) {
+      deallocate(memoryAddress, sizeCalculator.applyAsLong(memoryAddress));
+   }
+
+   @Override
+   public void deallocate(long memoryAddress, long size) {
+      long actualSize;
+      if (size > MAX_POOLED_SIZE) {
+         UNSAFE.freeMemory(memoryAddress);
+         amountAllocated.addAndGet(-size);
+         actualSize = size;
+      } else {
+         int index = sizeClassIndex(size);
+         threadCache().push(sizeClasses[index], index, memoryAddress);
+         actualSize = sizeClasses[index].blockSize;
+      }
+      long currentSize = amountUsed.addAndGet(-actualSize);
+      if (trace) {
+         log.tracef("Deallocating off heap memory at %d with %d bytes.  Total size: %d", memoryAddress, actualSize,
+               currentSize);
+      }
+      if (currentSize == 0 && stopped) {
+         releaseSlabs();
+      }
+   }
+
+   /**
+    * Returns the amount of memory currently handed out by this allocator, rounded up to the size class of each block.
+    * @return the amount of bytes
+    */
+   @Override
+   public long getAllocatedAmount() {
+      return amountUsed.get();
+   }
+
+   /**
+    * Returns the amount of native memory held by this allocator, including blocks that are free but pooled.
+    * @return the amount of bytes
+    */
+   @Override
+   public long getReservedAmount() {
+      return amountAllocated.get();
+   }
+
+   private ThreadCache threadCache() {
+      ThreadCache cache = threadCaches.get();
+      int currentGeneration = generation;
+      if (cache == null) {
+         reclaimDeadThreadCaches();
+         cache = new ThreadCache(currentGeneration);
+         threadCaches.set(cache);
+         registeredCaches.add(cache);
+      } else if (cache.generation != currentGeneration) {
+         cache.reset(currentGeneration);
+         registeredCaches.add(cache);
+      }
+      return cache;
+   }
+
+   /**
+    * Gives the blocks cached by the threads that terminated back to their size classes.
+    */
+   private synchronized void reclaimDeadThreadCaches() {
+      for (ThreadCache cache : registeredCaches) {
+         // The termination of the owner, detected by isAlive(), makes its last changes to the cache visible
+         if (!cache.owner.isAlive() && registeredCaches.remove(cache)) {
+            // The blocks of an older generation belong to slabs that were already freed
+            if (cache.generation == generation) {
+               cache.drain(sizeClasses);
+            }
+         }
+      }
+   }
+
+   private long allocateSlab(long slabSize) {
+      long slab = UNSAFE.allocateMemory(slabSize);
+      synchronized (slabs) {
+         slabs.add(slab);
+      }
+      long currentSize = amountAllocated.addAndGet(slabSize);
+      if (trace) {
+         log.tracef("Allocated off heap slab at %d with %d bytes.  Total size: %d", slab, slabSize, currentSize);
+      }
+      return slab;
+   }
+
+   private synchronized void releaseSlabs() {
+      generation++;
+      // The live threads discard their cached blocks the next time they use the allocator
+      registeredCaches.clear();
+      for (SizeClass sizeClass : sizeClasses) {
+         amountAllocated.addAndGet(-sizeClass.reset());
+      }
+      synchronized (slabs) {
+         for (Long slab : slabs) {
+            UNSAFE.freeMemory(slab);
+         }
+         if (trace) {
+            log.tracef("Released %d off heap slabs", slabs.size());
+         }
+         slabs.clear();
+      }
+   }
+
+   static int sizeClassIndex(long size) {
+      if (size <= 128) {
+         return size <= 16 ? 0 : (int) ((size - 1) >>> 4);
+      }
+      // size is in (2^log, 2^(log + 1)] which is split in 4 classes
+      int exponent = 63 - Long.numberOfLeadingZeros(size - 1);
+      int sub = (int) ((size - 1 - (1L << exponent)) >>> (exponent - 2));
+      return 8 + ((exponent - 7) << 2) + sub;
+   }
+
+   static int sizeClassSize(int index) {
+      if (index < 8) {
+         return (index + 1) << 4;
+      }
+      int exponent = ((index - 8) >>> 2) + 7;
+      int sub = (index - 8) & 3;
+      return (1 << exponent) + ((sub + 1) << (exponent - 2));
+   }
+
+   /**
+    * Shared state of a size class: the blocks that were freed and the remaining space of the slab blocks are
+    * currently carved out of.
+    */
+   private class SizeClass {
+      private final int blockSize;
+      private final int slabSize;
+      private final int threadCacheCapacity;
+      private long[] freeBlocks = new long[MAX_THREAD_CACHE_BLOCKS];
+      private int freeCount;
+      private long slabPosition;
+      private long slabEnd;
+      // Bytes of slabs allocated for this size class
+      private long slabBytes;
+
+      SizeClass(int blockSize) {
+         this.blockSize = blockSize;
+         // Slabs hold a whole number of blocks
+         this.slabSize = Math.max(SLAB_SIZE / blockSize, MIN_BLOCKS_PER_SLAB) * blockSize;
+         this.threadCacheCapacity = Math.max(2, Math.min(MAX_THREAD_CACHE_BLOCKS, THREAD_CACHE_SIZE / blockSize));
+      }
+
+      /**
+       * Moves up to <b>count</b> free blocks into the given array, allocating a new slab if needed and allowed.  At
+       * least one block is moved, unless a slab is needed and <b>grow</b> is <code>false</code>.
+       */
+      synchronized int take(long[] blocks, int offset, int count, boolean grow) {
+         int moved = Math.min(count, freeCount);
+         freeCount -= moved;
+         System.arraycopy(freeBlocks, freeCount, blocks, offset, moved);
+         if (moved == 0) {
+            if (slabPosition == slabEnd) {
+               if (!grow) {
+                  return 0;
+               }
+               slabPosition = allocateSlab(slabSize);
+               slabEnd = slabPosition + slabSize;
+               slabBytes += slabSize;
+            }
+            while (moved < count && slabPosition != slabEnd) {
+               blocks[offset + moved++] = slabPosition;
+               slabPosition += blockSize;
+            }
+         }
+         return moved;
+      }
+
+      synchronized void give(long[] blocks, int offset, int count) {
+         if (freeCount + count > freeBlocks.length) {
+            long[] newFreeBlocks = new long[Math.max(freeBlocks.length << 1, freeCount + count)];
+            System.arraycopy(freeBlocks, 0, newFreeBlocks, 0, freeCount);
+            freeBlocks = newFreeBlocks;
+         }
+         System.arraycopy(blocks, offset, freeBlocks, freeCount, count);
+         freeCount += count;
+      }
+
+      /**
+       * Forgets all the blocks of the size class, as its slabs are about to be freed
+       * @return the amount of slab memory that was allocated for this size class
+       */
+      synchronized long reset() {
+         long released = slabBytes;
+         freeBlocks = new long[MAX_THREAD_CACHE_BLOCKS];
+         freeCount = 0;
+         slabPosition = 0;
+         slabEnd = 0;
+         slabBytes = 0;
+         return released;
+      }
+   }
+
+   /**
+    * Free blocks cached by a thread, a stack per size class.  It doesn't reference the allocator, so it doesn't keep it
+    * reachable from the thread local map of a long-lived thread.
+    */
+   private static final class ThreadCache {
+      private final Thread owner = Thread.currentThread();
+      private final long[][] blocks = new long[SIZE_CLASS_COUNT][];
+      private final int[] counts = new int[SIZE_CLASS_COUNT];
+      private int generation;
+
+      ThreadCache(int generation) {
+         this.generation = generation;
+      }
+
+      /**
+       * @return the address of a free block, or 0 if the size class needs a new slab and <b>grow</b> is
+       * <code>false</code>
+       */
+      long pop(SizeClass sizeClass, int index, boolean grow) {
+         int count = counts[index];
+         long[] cached = blocks[index];
+         if (count == 0) {
+            if (cached == null) {
+               cached = blocks[index] = new long[sizeClass.threadCacheCapacity];
+            }
+            // Refill half of the cache, so the next frees don't immediately overflow it
+            count = sizeClass.take(cached, 0, Math.max(1, cached.length >>> 1), grow);
+            if (count == 0) {
+               return 0;
+            }
+         }
+         counts[index] = --count;
+         return cached[count];
+      }
+
+      void push(SizeClass sizeClass, int index, long address) {
+         int count = counts[index];
+         long[] cached = blocks[index];
+         if (cached == null) {
+            cached = blocks[index] = new long[sizeClass.threadCacheCapacity];
+         } else if (count == cached.length) {
+            // Give back the oldest half of the cache to the size class
+            int toMove = cached.length >>> 1;
+            sizeClass.give(cached, 0, toMove);
+            System.arraycopy(cached, toMove, cached, 0, count - toMove);
+            count -= toMove;
+         }
+         cached[count++] = address;
+         counts[index] = count;
+      }
+
+      /**
+       * Gives all the cached blocks back to their size classes
+       */
+      void drain(SizeClass[] sizeClasses) {
+         for (int i = 0; i < SIZE_CLASS_COUNT; ++i) {
+            if (counts[i] > 0) {
+               sizeClasses[i].give(blocks[i], 0, counts[i]);
+               counts[i] = 0;
+            }
+         }
+      }
+
+      void reset(int generation) {
+         for (int i = 0; i < SIZE_CLASS_COUNT; ++i) {
+            counts[i] = 0;
+         }
+         this.generation = generation;
+      }
+   }
+}
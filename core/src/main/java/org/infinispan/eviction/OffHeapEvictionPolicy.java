@@ -0,0 +1,20 @@
+package org.infinispan.eviction;
+
+/**
+ * Supported policies to choose which entries to evict when the off-heap data container is bounded
+ *
+ * @since 9.1
+ */
+public enum OffHeapEvictionPolicy {
+   /**
+    * Entries are evicted in least recently used order.  Every read and write updates a single ordered list, which
+    * requires a lock shared by all operations.
+    */
+   LRU,
+   /**
+    * Entries are evicted using the CLOCK (second chance) algorithm.  Reads only set a reference bit in the entry,
+    * without acquiring any lock other than the one for the key, and eviction skips entries referenced since the
+    * last time they were visited.
+    */
+   CLOCK,
+}
@@ -0,0 +1,153 @@
+package org.infinispan.expiration.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.infinispan.container.entries.InternalCacheEntry;
+
+/**
+ * Index of the keys of the entries which can expire, grouped in buckets by their expiration time, so that the
+ * expiration reaper only visits the entries which are due instead of iterating over the whole data container.
+ * <p>
+ * The data container updates the index whenever it writes or removes an entry which can expire. The index is allowed
+ * to be stale: an entry whose expiration time was extended (e.g. by accessing a transient entry) is found not expired
+ * when its bucket is due and it is moved to the bucket matching its new expiration time, and keys of entries which are
+ * no longer in the container are simply dropped.
+ *
+ * @since 9.1
+ */
+public class ExpirationIndex<K, V> {
+   private static final long BUCKET_INTERVAL = TimeUnit.SECONDS.toMillis(1);
+
+   private final ConcurrentSkipListMap<Long, Set<K>> buckets = new ConcurrentSkipListMap<>();
+
+   /**
+    * @return the expiration time of the entry if it can expire, -1 otherwise
+    */
+   public static long expiryTime(InternalCacheEntry<?, ?> entry) {
+      return entry != null && entry.canExpire() ? entry.getExpiryTime() : -1;
+   }
+
+   /**
+    * Adds the key to the bucket of the given expiration time.
+    */
+   public void add(K key, long expiryTime) {
+      // If the bucket is being removed by the reaper concurrently, compute() retries and adds the key to a new bucket
+      buckets.compute(bucket(expiryTime), (bucket, keys) -> {
+         if (keys == null) {
+            keys = ConcurrentHashMap.newKeySet();
+         }
+         keys.add(key);
+         return keys;
+      });
+   }
+
+   /**
+    * Removes the key from the bucket of the given expiration time. Empty buckets are only removed by the reaper, as
+    * removing them here could lose a key added concurrently.
+    */
+   public void remove(K key, long expiryTime) {
+      Set<K> keys = buckets.get(bucket(expiryTime));
+      if (keys != null) {
+         keys.remove(key);
+      }
+   }
+
+   /**
+    * Moves the key after its entry was written or removed.
+    *
+    * @param oldExpiryTime expiration time of the previous entry, or -1 if there was none or it could not expire
+    * @param newExpiryTime expiration time of the new entry, or -1 if it was removed or it cannot expire
+    */
+   public void update(K key, long oldExpiryTime, long newExpiryTime) {
+      if (oldExpiryTime >= 0) {
+         if (newExpiryTime >= 0 && bucket(oldExpiryTime) == bucket(newExpiryTime)) {
+            return;
+         }
+         remove(key, oldExpiryTime);
+      }
+      if (newExpiryTime >= 0) {
+         add(key, newExpiryTime);
+      }
+   }
+
+   public void clear() {
+      buckets.clear();
+   }
+
+   /**
+    * Removes the buckets which are due and returns the expired entries whose keys they contained. The keys of the
+    * entries which are not expired yet are moved to the buckets matching their expiration time, and the keys of the
+    * expired entries are kept in the index until the following bucket, in case their removal fails.
+    *
+    * @param currentTimeMillis the current wall clock time
+    * @param lookup finds the entry in the data container without touching it
+    */
+   public Iterator<InternalCacheEntry<K, V>> expired(long currentTimeMillis,
+                                                     Function<? super K, InternalCacheEntry<K, V>> lookup) {
+      return new ExpiredIterator(currentTimeMillis, lookup);
+   }
+
+   private static long bucket(long expiryTime) {
+      return expiryTime / BUCKET_INTERVAL;
+   }
+
+   private class ExpiredIterator implements Iterator<InternalCacheEntry<K, V>> {
+      private final long currentTimeMillis;
+      private final Function<? super K, InternalCacheEntry<K, V>> lookup;
+      // Buckets added after the iteration started are left for the next iteration
+      private final Iterator<Long> dueBuckets;
+      private Iterator<K> keys = Collections.emptyIterator();
+      private InternalCacheEntry<K, V> next;
+
+      ExpiredIterator(long currentTimeMillis, Function<? super K, InternalCacheEntry<K, V>> lookup) {
+         this.currentTimeMillis = currentTimeMillis;
+         this.lookup = lookup;
+         this.dueBuckets = new ArrayList<>(buckets.headMap(bucket(currentTimeMillis), true).keySet()).iterator();
+      }
+
+      @Override
+      public boolean hasNext() {
+         while (next == null) {
+            if (keys.hasNext()) {
+               K key = keys.next();
+               InternalCacheEntry<K, V> entry = lookup.apply(key);
+               if (entry == null || !entry.canExpire()) {
+                  continue;
+               }
+               if (entry.isExpired(currentTimeMillis)) {
+                  add(key, currentTimeMillis + BUCKET_INTERVAL);
+                  next = entry;
+               } else {
+                  add(key, entry.getExpiryTime());
+               }
+            } else if (dueBuckets.hasNext()) {
+               Set<K> bucket = buckets.remove(dueBuckets.next());
+               if (bucket != null) {
+                  keys = bucket.iterator();
+               }
+            } else {
+               return false;
+            }
+         }
+         return true;
+      }
+
+      @Override
+      public InternalCacheEntry<K, V> next() {
+         if (!hasNext()) {
+            throw new NoSuchElementException();
+         }
+         InternalCacheEntry<K, V> entry = next;
+         next = null;
+         return entry;
+      }
+   }
+}
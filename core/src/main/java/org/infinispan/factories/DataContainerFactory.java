@@ -4,9 +4,12 @@
 import org.infinispan.configuration.cache.MemoryConfiguration;
 import org.infinispan.container.DataContainer;
 import org.infinispan.container.DefaultDataContainer;
+import org.infinispan.container.DefaultSegmentedDataContainer;
 import org.infinispan.configuration.cache.StorageType;
 import org.infinispan.container.offheap.BoundedOffHeapDataContainer;
+import org.infinispan.container.offheap.ClockBoundedOffHeapDataContainer;
 import org.infinispan.container.offheap.OffHeapDataContainer;
+import org.infinispan.eviction.OffHeapEvictionPolicy;
 import org.infinispan.factories.annotations.DefaultFactoryFor;
 
 /**
@@ -34,7 +37,10 @@ public <T> T construct(Class<T> componentType) {
          //handle case when < 0 value signifies unbounded container
          if(thresholdSize < 0) {
             if (configuration.memory().storageType() == StorageType.OFF_HEAP) {
-               return (T) new OffHeapDataContainer(configuration.memory().addressCount());
+               return (T) new OffHeapDataContainer(configuration.memory().addressCount(),
+                     configuration.memory().loadFactor());
+            } else if (configuration.memory().segmented()) {
+               return (T) new DefaultSegmentedDataContainer<>(level, configuration.clustering().hash().numSegments());
             } else {
                return (T) DefaultDataContainer.unBoundedDataContainer(level);
             }
@@ -42,8 +48,14 @@ public <T> T construct(Class<T> componentType) {
 
          DataContainer dataContainer;
          if (configuration.memory().storageType() == StorageType.OFF_HEAP) {
-            dataContainer = new BoundedOffHeapDataContainer(configuration.memory().addressCount(), thresholdSize,
-                  configuration.memory().evictionType());
+            if (configuration.memory().evictionPolicy() == OffHeapEvictionPolicy.CLOCK) {
+               dataContainer = new ClockBoundedOffHeapDataContainer(configuration.memory().addressCount(),
+                     configuration.memory().loadFactor(), thresholdSize, configuration.memory().evictionType());
+            } else {
+               dataContainer = new BoundedOffHeapDataContainer(configuration.memory().addressCount(),
+                     configuration.memory().loadFactor(), thresholdSize,
+                     configuration.memory().evictionType());
+            }
          } else {
             dataContainer = DefaultDataContainer.boundedDataContainer(level, thresholdSize,
                   configuration.memory().evictionType());
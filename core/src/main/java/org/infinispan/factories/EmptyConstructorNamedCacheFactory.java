@@ -11,6 +11,9 @@
 import org.infinispan.commons.io.ByteBufferFactory;
 import org.infinispan.commons.io.ByteBufferFactoryImpl;
 import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.container.offheap.OffHeapMemoryAllocator;
+import org.infinispan.container.offheap.PooledOffHeapMemoryAllocator;
+import org.infinispan.container.offheap.UnpooledOffHeapMemoryAllocator;
 import org.infinispan.context.InvocationContextFactory;
 import org.infinispan.context.NonTransactionalInvocationContextFactory;
 import org.infinispan.context.TransactionalInvocationContextFactory;
@@ -73,7 +76,8 @@
                               RemoteValueRetrievedListener.class, InvocationContextFactory.class, CommitManager.class,
                               XSiteStateTransferManager.class, XSiteStateConsumer.class, XSiteStateProvider.class,
                               FunctionalNotifier.class, CommandAckCollector.class, TriangleOrderManager.class,
-                              OrderedUpdatesManager.class, ScatteredVersionManager.class})
+                              OrderedUpdatesManager.class, ScatteredVersionManager.class,
+                              OffHeapMemoryAllocator.class})
 public class EmptyConstructorNamedCacheFactory extends AbstractNamedCacheComponentFactory implements AutoInstantiableFactory {
 
    @Override
@@ -159,6 +163,9 @@ public <T> T construct(Class<T> componentType) {
             return componentType.cast(new OrderedUpdatesManagerImpl());
          } else if (componentType.equals(ScatteredVersionManager.class)) {
             return componentType.cast(new ScatteredVersionManagerImpl());
+         } else if (componentType.equals(OffHeapMemoryAllocator.class)) {
+            return componentType.cast(configuration.memory().pooled() ? new PooledOffHeapMemoryAllocator() :
+                  new UnpooledOffHeapMemoryAllocator());
          }
       }
 
@@ -17,6 +17,12 @@ public class KnownComponentNames {
    public static final String REMOTE_COMMAND_EXECUTOR = "org.infinispan.executors.remote";
    public static final String ASYNC_NOTIFICATION_EXECUTOR = "org.infinispan.executors.notification";
    public static final String PERSISTENCE_EXECUTOR = "org.infinispan.executors.persistence";
+   /**
+    * The executor the blocking stores are invoked on by the non-blocking persistence operations.
+    *
+    * @since 9.1
+    */
+   public static final String STORE_EXECUTOR = "org.infinispan.executors.store";
    public static final String EXPIRATION_SCHEDULED_EXECUTOR = "org.infinispan.executors.expiration";
    /**
     * @deprecated Since 9.0, no longer used.
@@ -34,8 +40,8 @@ public class KnownComponentNames {
 
    // Please make sure this is kept up to date
    public static final Collection<String> ALL_KNOWN_COMPONENT_NAMES = Arrays.asList(
-      ASYNC_TRANSPORT_EXECUTOR, ASYNC_NOTIFICATION_EXECUTOR, PERSISTENCE_EXECUTOR, ASYNC_OPERATIONS_EXECUTOR,
-      EXPIRATION_SCHEDULED_EXECUTOR,
+      ASYNC_TRANSPORT_EXECUTOR, ASYNC_NOTIFICATION_EXECUTOR, PERSISTENCE_EXECUTOR, STORE_EXECUTOR,
+      ASYNC_OPERATIONS_EXECUTOR, EXPIRATION_SCHEDULED_EXECUTOR,
       MODULE_COMMAND_INITIALIZERS, MODULE_COMMAND_FACTORIES, CLASS_LOADER,
       REMOTE_COMMAND_EXECUTOR, STATE_TRANSFER_EXECUTOR, TRANSACTION_VERSION_GENERATOR,
       TIMEOUT_SCHEDULE_EXECUTOR
@@ -50,6 +56,7 @@ public class KnownComponentNames {
       DEFAULT_THREAD_COUNT.put(ASYNC_TRANSPORT_EXECUTOR, 25);
       DEFAULT_THREAD_COUNT.put(EXPIRATION_SCHEDULED_EXECUTOR, 1);
       DEFAULT_THREAD_COUNT.put(PERSISTENCE_EXECUTOR, 4);
+      DEFAULT_THREAD_COUNT.put(STORE_EXECUTOR, 25);
       DEFAULT_THREAD_COUNT.put(REMOTE_COMMAND_EXECUTOR, 200);
       DEFAULT_THREAD_COUNT.put(STATE_TRANSFER_EXECUTOR, 60);
       DEFAULT_THREAD_COUNT.put(ASYNC_OPERATIONS_EXECUTOR, 25);
@@ -58,6 +65,7 @@ public class KnownComponentNames {
       DEFAULT_QUEUE_SIZE.put(ASYNC_TRANSPORT_EXECUTOR, 100000);
       DEFAULT_QUEUE_SIZE.put(EXPIRATION_SCHEDULED_EXECUTOR, 0);
       DEFAULT_QUEUE_SIZE.put(PERSISTENCE_EXECUTOR, 0);
+      DEFAULT_QUEUE_SIZE.put(STORE_EXECUTOR, 1000);
       DEFAULT_QUEUE_SIZE.put(REMOTE_COMMAND_EXECUTOR, 0);
       DEFAULT_QUEUE_SIZE.put(STATE_TRANSFER_EXECUTOR, 0);
       DEFAULT_QUEUE_SIZE.put(ASYNC_OPERATIONS_EXECUTOR, 1000);
@@ -66,6 +74,7 @@ public class KnownComponentNames {
       DEFAULT_THREAD_PRIORITY.put(ASYNC_TRANSPORT_EXECUTOR, Thread.NORM_PRIORITY);
       DEFAULT_THREAD_PRIORITY.put(EXPIRATION_SCHEDULED_EXECUTOR, Thread.MIN_PRIORITY);
       DEFAULT_THREAD_PRIORITY.put(PERSISTENCE_EXECUTOR, Thread.NORM_PRIORITY);
+      DEFAULT_THREAD_PRIORITY.put(STORE_EXECUTOR, Thread.NORM_PRIORITY);
       DEFAULT_THREAD_PRIORITY.put(REMOTE_COMMAND_EXECUTOR, Thread.NORM_PRIORITY);
       DEFAULT_THREAD_PRIORITY.put(STATE_TRANSFER_EXECUTOR, Thread.NORM_PRIORITY);
       DEFAULT_THREAD_PRIORITY.put(ASYNC_OPERATIONS_EXECUTOR, Thread.NORM_PRIORITY);
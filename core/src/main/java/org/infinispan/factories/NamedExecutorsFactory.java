@@ -7,6 +7,7 @@
 import static org.infinispan.factories.KnownComponentNames.PERSISTENCE_EXECUTOR;
 import static org.infinispan.factories.KnownComponentNames.REMOTE_COMMAND_EXECUTOR;
 import static org.infinispan.factories.KnownComponentNames.STATE_TRANSFER_EXECUTOR;
+import static org.infinispan.factories.KnownComponentNames.STORE_EXECUTOR;
 import static org.infinispan.factories.KnownComponentNames.TIMEOUT_SCHEDULE_EXECUTOR;
 import static org.infinispan.factories.KnownComponentNames.getDefaultThreadPrio;
 import static org.infinispan.factories.KnownComponentNames.shortened;
@@ -44,6 +45,7 @@ public class NamedExecutorsFactory extends NamedComponentFactory implements Auto
    private ExecutorService notificationExecutor;
    private ExecutorService asyncTransportExecutor;
    private ExecutorService persistenceExecutor;
+   private ExecutorService storeExecutor;
    private BlockingTaskAwareExecutorService remoteCommandsExecutor;
    private ScheduledExecutorService expirationExecutor;
    private ExecutorService stateTransferExecutor;
@@ -76,6 +78,16 @@ public <T> T construct(Class<T> componentType, String componentName) {
                }
             }
             return (T) persistenceExecutor;
+         } else if (componentName.equals(STORE_EXECUTOR)) {
+            synchronized (this) {
+               if (storeExecutor == null) {
+                  storeExecutor = createExecutorService(
+                        globalConfiguration.storeThreadPool(),
+                        STORE_EXECUTOR,
+                        ExecutorServiceType.DEFAULT);
+               }
+            }
+            return (T) storeExecutor;
          } else if (componentName.equals(ASYNC_TRANSPORT_EXECUTOR)) {
             synchronized (this) {
                if (asyncTransportExecutor == null) {
@@ -147,6 +159,7 @@ public void stop() {
       if (remoteCommandsExecutor != null) remoteCommandsExecutor.shutdownNow();
       if (notificationExecutor != null) notificationExecutor.shutdownNow();
       if (persistenceExecutor != null) persistenceExecutor.shutdownNow();
+      if (storeExecutor != null) storeExecutor.shutdownNow();
       if (asyncTransportExecutor != null) asyncTransportExecutor.shutdownNow();
       if (expirationExecutor != null) expirationExecutor.shutdownNow();
       if (stateTransferExecutor != null) stateTransferExecutor.shutdownNow();
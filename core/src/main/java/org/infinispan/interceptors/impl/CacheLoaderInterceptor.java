@@ -1,14 +1,16 @@
 package org.infinispan.interceptors.impl;
 
-import static org.infinispan.factories.KnownComponentNames.PERSISTENCE_EXECUTOR;
 import static org.infinispan.persistence.PersistenceUtil.convert;
+import static org.infinispan.persistence.manager.PersistenceManager.AccessMode.BOTH;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.Spliterator;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
@@ -51,7 +53,6 @@
 import org.infinispan.context.impl.FlagBitSets;
 import org.infinispan.distribution.group.impl.GroupFilter;
 import org.infinispan.distribution.group.impl.GroupManager;
-import org.infinispan.factories.annotations.ComponentName;
 import org.infinispan.factories.annotations.Inject;
 import org.infinispan.factories.annotations.Start;
 import org.infinispan.filter.CollectionKeyFilter;
@@ -68,16 +69,16 @@
 import org.infinispan.persistence.PersistenceUtil;
 import org.infinispan.persistence.manager.PersistenceManager;
 import org.infinispan.persistence.spi.AdvancedCacheLoader;
-import org.infinispan.persistence.util.PersistenceManagerCloseableSupplier;
 import org.infinispan.stream.impl.interceptor.AbstractDelegatingEntryCacheSet;
 import org.infinispan.stream.impl.interceptor.AbstractDelegatingKeyCacheSet;
 import org.infinispan.stream.impl.spliterators.IteratorAsSpliterator;
-import org.infinispan.util.CloseableSuppliedIterator;
 import org.infinispan.util.DistinctKeyDoubleEntryCloseableIterator;
 import org.infinispan.util.TimeService;
-import org.infinispan.util.function.CloseableSupplier;
+import org.infinispan.util.concurrent.CompletableFutures;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
+import org.infinispan.util.reactive.Publisher;
+import org.infinispan.util.reactive.Publishers;
 
 /**
  * @since 9.0
@@ -94,18 +95,18 @@
    private InternalEntryFactory iceFactory;
    private DataContainer<K, V> dataContainer;
    private GroupManager groupManager;
-   private ExecutorService executorService;
    private Cache<K, V> cache;
    private boolean activation;
 
    private static final Log log = LogFactory.getLog(CacheLoaderInterceptor.class);
    private static final boolean trace = log.isTraceEnabled();
+   // How many entries are requested from the stores at a time when iterating over them
+   private static final int STORE_BATCH_SIZE = 256;
 
    @Inject
    protected void injectDependencies(PersistenceManager clm, EntryFactory entryFactory, CacheNotifier notifier,
                                      TimeService timeService, InternalEntryFactory iceFactory, DataContainer<K, V> dataContainer,
-                                     GroupManager groupManager, @ComponentName(PERSISTENCE_EXECUTOR) ExecutorService persistenceExecutor,
-                                     Cache<K, V> cache) {
+                                     GroupManager groupManager, Cache<K, V> cache) {
       this.persistenceManager = clm;
       this.notifier = notifier;
       this.entryFactory = entryFactory;
@@ -113,7 +114,6 @@ protected void injectDependencies(PersistenceManager clm, EntryFactory entryFact
       this.iceFactory = iceFactory;
       this.dataContainer = dataContainer;
       this.groupManager = groupManager;
-      this.executorService = persistenceExecutor;
       this.cache = cache;
    }
 
@@ -144,10 +144,7 @@ public Object visitGetCacheEntryCommand(InvocationContext ctx,
    @Override
    public Object visitGetAllCommand(InvocationContext ctx, GetAllCommand command)
          throws Throwable {
-      for (Object key : command.getKeys()) {
-         loadIfNeeded(ctx, key, command);
-      }
-      return invokeNext(ctx, command);
+      return visitManyDataCommand(ctx, command, command.getKeys());
    }
 
    @Override
@@ -186,17 +183,18 @@ public Object visitComputeIfAbsentCommand(InvocationContext ctx, ComputeIfAbsent
 
    private Object visitManyDataCommand(InvocationContext ctx, FlagAffectedCommand command, Collection<?> keys)
          throws Throwable {
-      for (Object key : keys) {
-         loadIfNeeded(ctx, key, command);
-      }
-      return invokeNext(ctx, command);
+      CompletableFuture<Void> loaded = loadAllIfNeededAsync(ctx, keys, command);
+      return loaded == null ? invokeNext(ctx, command) : asyncInvokeNext(ctx, command, loaded);
    }
 
    private Object visitDataCommand(InvocationContext ctx, AbstractDataCommand command)
          throws Throwable {
       Object key;
       if ((key = command.getKey()) != null) {
-         loadIfNeeded(ctx, key, command);
+         CompletableFuture<Void> loaded = loadAllIfNeededAsync(ctx, Collections.singleton(key), command);
+         if (loaded != null) {
+            return asyncInvokeNext(ctx, command, loaded);
+         }
       }
       return invokeNext(ctx, command);
    }
@@ -235,28 +233,6 @@ public Object visitEntrySetCommand(InvocationContext ctx, EntrySetCommand comman
       });
    }
 
-   class SupplierFunction<K, V> implements CloseableSupplier<K> {
-      private final CloseableSupplier<CacheEntry<K, V>> supplier;
-
-      SupplierFunction(CloseableSupplier<CacheEntry<K, V>> supplier) {
-         this.supplier = supplier;
-      }
-
-      @Override
-      public K get() {
-         CacheEntry<K, V> entry = supplier.get();
-         if (entry != null) {
-            return entry.getKey();
-         }
-         return null;
-      }
-
-      @Override
-      public void close() {
-         supplier.close();
-      }
-   }
-
    @Override
    public Object visitKeySetCommand(InvocationContext ctx, KeySetCommand command)
          throws Throwable {
@@ -334,11 +310,53 @@ protected final Boolean loadIfNeeded(final InvocationContext ctx, Object key, fi
       return loadInContext(ctx, key, cmd);
    }
 
+   /**
+    * Loads the entries for the given keys like {@link #loadIfNeeded(InvocationContext, Object, FlagAffectedCommand)}
+    * does, but without blocking the invoking thread while the stores are queried.  The stores are queried for all the
+    * keys concurrently, and the loaded entries are added to the context once all of them completed, so the context is
+    * only updated by one thread.
+    * <p>
+    * Transactional contexts are still loaded synchronously, as the transaction may be bound to the invoking thread.
+    * @return a future completed once the context was updated, or {@code null} if no entry had to be loaded
+    */
+   protected final CompletableFuture<Void> loadAllIfNeededAsync(InvocationContext ctx, Collection<?> keys,
+                                                                FlagAffectedCommand cmd) {
+      if (ctx.isInTxScope()) {
+         for (Object key : keys) {
+            loadIfNeeded(ctx, key, cmd);
+         }
+         return null;
+      }
+      List<CompletableFuture<Runnable>> contextUpdates = null;
+      for (Object key : keys) {
+         if (skipLoad(cmd, key, ctx)) {
+            continue;
+         }
+         if (contextUpdates == null) {
+            contextUpdates = new ArrayList<>(keys.size());
+         }
+         AtomicReference<Boolean> isLoaded = new AtomicReference<>();
+         contextUpdates.add(PersistenceUtil.loadAndStoreInDataContainerAsync(dataContainer, persistenceManager,
+               (K) key, ctx, timeService, isLoaded).toCompletableFuture()
+               .thenApply(entry -> () -> updateContext(ctx, key, cmd, entry, isLoaded.get())));
+      }
+      if (contextUpdates == null) {
+         return null;
+      }
+      return CompletableFutures.sequence(contextUpdates).thenAccept(updates -> updates.forEach(Runnable::run));
+   }
+
    private Boolean loadInContext(InvocationContext ctx, Object key, FlagAffectedCommand cmd) {
       final AtomicReference<Boolean> isLoaded = new AtomicReference<>();
       InternalCacheEntry<K, V> entry = PersistenceUtil.loadAndStoreInDataContainer(dataContainer, persistenceManager, (K) key,
                                                                              ctx, timeService, isLoaded);
       Boolean isLoadedValue = isLoaded.get();
+      updateContext(ctx, key, cmd, entry, isLoadedValue);
+      return isLoadedValue;
+   }
+
+   private void updateContext(InvocationContext ctx, Object key, FlagAffectedCommand cmd, InternalCacheEntry<K, V> entry,
+                              Boolean isLoadedValue) {
       if (trace) {
          log.tracef("Entry was loaded? %s", isLoadedValue);
       }
@@ -362,7 +380,6 @@ private Boolean loadInContext(InvocationContext ctx, Object key, FlagAffectedCom
             sendNotification(key, value, false, ctx, cmd);
          }
       }
-      return isLoadedValue;
    }
 
    private boolean skipLoad(FlagAffectedCommand cmd, Object key, InvocationContext ctx) {
@@ -512,11 +529,10 @@ public CloseableIterator<CacheEntry<K, V>> iterator() {
          CloseableIterator<CacheEntry<K, V>> iterator = Closeables.iterator(entrySet.stream());
          Set<K> seenKeys = new HashSet<>(cache.getAdvancedCache().getDataContainer().sizeIncludingExpired());
          // TODO: how to handle concurrent activation....
-         return new DistinctKeyDoubleEntryCloseableIterator<>(iterator, new CloseableSuppliedIterator<>(
-               // TODO: how to pass in key filter...
-               new PersistenceManagerCloseableSupplier<>(executorService, persistenceManager, iceFactory,
-                     new CollectionKeyFilter<>(seenKeys), calculateTimeoutSeconds(), TimeUnit.SECONDS, 2048)),
-                     CacheEntry::getKey, seenKeys);
+         Publisher<CacheEntry<K, V>> storePublisher = Publishers.map(persistenceManager.<K, V>publishEntries(
+               new CollectionKeyFilter<>(seenKeys), true, true, BOTH), me -> convert(me, iceFactory));
+         return new DistinctKeyDoubleEntryCloseableIterator<>(iterator, Publishers.toIterator(storePublisher,
+               STORE_BATCH_SIZE, calculateTimeoutSeconds(), TimeUnit.SECONDS), CacheEntry::getKey, seenKeys);
       }
 
       @Override
@@ -553,11 +569,10 @@ public CloseableIterator<K> iterator() {
          CloseableIterator<K> iterator = Closeables.iterator(keySet.stream());
          Set<K> seenKeys = new HashSet<>(cache.getAdvancedCache().getDataContainer().sizeIncludingExpired());
          // TODO: how to handle concurrent activation....
-         return new DistinctKeyDoubleEntryCloseableIterator<>(iterator, new CloseableSuppliedIterator<>(new SupplierFunction<>(
-               new PersistenceManagerCloseableSupplier<>(executorService, persistenceManager,
-                     // TODO: how to pass in key filter...
-                     iceFactory, new CollectionKeyFilter<>(seenKeys), 10, TimeUnit.SECONDS, 2048))),
-               Function.identity(), seenKeys);
+         // Only the keys are read from the stores
+         Publisher<K> storePublisher = persistenceManager.publishKeys(new CollectionKeyFilter<>(seenKeys), BOTH);
+         return new DistinctKeyDoubleEntryCloseableIterator<>(iterator, Publishers.toIterator(storePublisher,
+               STORE_BATCH_SIZE, 10, TimeUnit.SECONDS), Function.identity(), seenKeys);
       }
 
       @Override
@@ -400,6 +400,15 @@ public long getOffHeapMemoryUsed() {
       return allocator.getAllocatedAmount();
    }
 
+   @ManagedAttribute(
+         description = "Amount of memory in bytes held by the off-heap allocator, including freed memory kept for reuse",
+         displayName = "Off-Heap Memory Reserved",
+         displayType = DisplayType.SUMMARY
+   )
+   public long getOffHeapMemoryReserved() {
+      return allocator.getReservedAmount();
+   }
+
    @ManagedAttribute(
          description = "Number of seconds since cache started",
          displayName = "Seconds since cache started",
@@ -5,6 +5,9 @@
 import static org.infinispan.persistence.manager.PersistenceManager.AccessMode.PRIVATE;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Predicate;
 
@@ -52,8 +55,10 @@
 import org.infinispan.jmx.annotations.ManagedAttribute;
 import org.infinispan.jmx.annotations.ManagedOperation;
 import org.infinispan.jmx.annotations.MeasurementType;
+import org.infinispan.jmx.annotations.Units;
 import org.infinispan.marshall.core.MarshalledEntry;
 import org.infinispan.marshall.core.MarshalledEntryImpl;
+import org.infinispan.persistence.async.AsyncCacheWriter;
 import org.infinispan.persistence.manager.PersistenceManager;
 import org.infinispan.persistence.support.BatchModification;
 import org.infinispan.transaction.xa.GlobalTransaction;
@@ -154,15 +159,12 @@ private Transaction suspendRunningTx(TxInvocationContext ctx) throws SystemExcep
 
    @Override
    public Object visitRemoveCommand(InvocationContext ctx, RemoveCommand command) throws Throwable {
-      return invokeNextThenAccept(ctx, command, (rCtx, rCommand, rv) -> {
+      return invokeNextThenApply(ctx, command, (rCtx, rCommand, rv) -> {
          RemoveCommand removeCommand = (RemoveCommand) rCommand;
-         if (!isStoreEnabled(removeCommand) || rCtx.isInTxScope() || !removeCommand.isSuccessful()) return;
-         if (!isProperWriter(rCtx, removeCommand, removeCommand.getKey())) return;
+         if (!isStoreEnabled(removeCommand) || rCtx.isInTxScope() || !removeCommand.isSuccessful()) return rv;
+         if (!isProperWriter(rCtx, removeCommand, removeCommand.getKey())) return rv;
 
-         Object key = removeCommand.getKey();
-         boolean resp = persistenceManager.deleteFromAllStores(key, BOTH);
-         if (trace)
-            getLog().tracef("Removed entry under key %s and got response %s from CacheStore", key, resp);
+         return delayedValue(deleteEntryAsync(removeCommand.getKey(), BOTH), rv);
       });
    }
 
@@ -176,71 +178,73 @@ public Object visitClearCommand(InvocationContext ctx, ClearCommand command) thr
 
    @Override
    public Object visitPutKeyValueCommand(InvocationContext ctx, PutKeyValueCommand command) throws Throwable {
-      return invokeNextThenAccept(ctx, command, (rCtx, rCommand, rv) -> {
+      return invokeNextThenApply(ctx, command, (rCtx, rCommand, rv) -> {
          PutKeyValueCommand putKeyValueCommand = (PutKeyValueCommand) rCommand;
          if (!isStoreEnabled(putKeyValueCommand) || rCtx.isInTxScope() || !putKeyValueCommand.isSuccessful())
-            return;
+            return rv;
          if (!isProperWriter(rCtx, putKeyValueCommand, putKeyValueCommand.getKey()))
-            return;
+            return rv;
 
          Object key = putKeyValueCommand.getKey();
-         storeEntry(rCtx, key, putKeyValueCommand);
+         CompletionStage<Void> stage = storeEntryAsync(rCtx, key, putKeyValueCommand);
          if (getStatisticsEnabled())
             cacheStores.incrementAndGet();
+         return delayedValue(stage, rv);
       });
    }
 
    @Override
    public Object visitReplaceCommand(InvocationContext ctx, ReplaceCommand command) throws Throwable {
-      return invokeNextThenAccept(ctx, command, (rCtx, rCommand, rv) -> {
+      return invokeNextThenApply(ctx, command, (rCtx, rCommand, rv) -> {
          ReplaceCommand replaceCommand = (ReplaceCommand) rCommand;
          if (!isStoreEnabled(replaceCommand) || rCtx.isInTxScope() || !replaceCommand.isSuccessful())
-            return;
+            return rv;
          if (!isProperWriter(rCtx, replaceCommand, replaceCommand.getKey()))
-            return;
+            return rv;
 
          Object key = replaceCommand.getKey();
-         storeEntry(rCtx, key, replaceCommand);
+         CompletionStage<Void> stage = storeEntryAsync(rCtx, key, replaceCommand);
          if (getStatisticsEnabled())
             cacheStores.incrementAndGet();
+         return delayedValue(stage, rv);
       });
    }
 
    @Override
    public Object visitComputeCommand(InvocationContext ctx, ComputeCommand command) throws Throwable {
-      return invokeNextThenAccept(ctx, command, (rCtx, rCommand, rv) -> {
+      return invokeNextThenApply(ctx, command, (rCtx, rCommand, rv) -> {
          ComputeCommand computeCommand = (ComputeCommand) rCommand;
          if (!isStoreEnabled(computeCommand) || rCtx.isInTxScope() || !computeCommand.isSuccessful())
-            return;
+            return rv;
          if (!isProperWriter(rCtx, computeCommand, computeCommand.getKey()))
-            return;
+            return rv;
 
          Object key = computeCommand.getKey();
          if(rv == null) {
-            boolean resp = persistenceManager.deleteFromAllStores(key, BOTH);
-            if (trace)
-               getLog().tracef("Removed entry under key %s and got response %s from CacheStore", key, resp);
+            return delayedValue(deleteEntryAsync(key, BOTH), rv);
          } else {
-            storeEntry(rCtx, key, computeCommand);
+            CompletionStage<Void> stage = storeEntryAsync(rCtx, key, computeCommand);
             if (getStatisticsEnabled())
                cacheStores.incrementAndGet();
+            return delayedValue(stage, rv);
          }
       });
    }
 
    @Override
    public Object visitComputeIfAbsentCommand(InvocationContext ctx, ComputeIfAbsentCommand command) throws Throwable {
-      return invokeNextThenAccept(ctx, command, (rCtx, rCommand, rv) -> {
+      return invokeNextThenApply(ctx, command, (rCtx, rCommand, rv) -> {
          ComputeIfAbsentCommand computeIfAbsentCommand = (ComputeIfAbsentCommand) rCommand;
          if (!isStoreEnabled(computeIfAbsentCommand) || rCtx.isInTxScope() || !computeIfAbsentCommand.isSuccessful())
-            return;
+            return rv;
          if (!isProperWriter(rCtx, computeIfAbsentCommand, computeIfAbsentCommand.getKey()))
-            return;
+            return rv;
 
          Object key = computeIfAbsentCommand.getKey();
-         storeEntry(rCtx, key, computeIfAbsentCommand);
+         CompletionStage<Void> stage = storeEntryAsync(rCtx, key, computeIfAbsentCommand);
          if (getStatisticsEnabled())
             cacheStores.incrementAndGet();
+         return delayedValue(stage, rv);
       });
    }
 
@@ -436,6 +440,7 @@ protected boolean isProperWriter(InvocationContext ctx, FlagAffectedCommand comm
    )
    public void resetStatistics() {
       cacheStores.set(0);
+      persistenceManager.getAsyncWriters().forEach(AsyncCacheWriter::resetStatistics);
    }
 
    @ManagedAttribute(
@@ -447,12 +452,86 @@ public long getWritesToTheStores() {
       return cacheStores.get();
    }
 
+   @ManagedAttribute(
+         description = "Number of modifications waiting in the write-behind queues to be written to the stores",
+         displayName = "Write-behind queue depth",
+         measurementType = MeasurementType.DYNAMIC
+   )
+   public int getWriteBehindQueueDepth() {
+      int depth = 0;
+      for (AsyncCacheWriter writer : persistenceManager.getAsyncWriters()) {
+         depth += writer.getQueueDepth();
+      }
+      return depth;
+   }
+
+   @ManagedAttribute(
+         description = "Ratio of the modifications submitted to the write-behind queues to the modifications written to the stores",
+         displayName = "Write-behind coalescing ratio",
+         measurementType = MeasurementType.DYNAMIC
+   )
+   public double getWriteBehindCoalescingRatio() {
+      long submitted = 0, written = 0;
+      for (AsyncCacheWriter writer : persistenceManager.getAsyncWriters()) {
+         submitted += writer.getSubmittedModifications();
+         written += writer.getWrittenModifications();
+      }
+      return written == 0 ? 0 : (double) submitted / written;
+   }
+
+   @ManagedAttribute(
+         description = "Average time to write a batch of modifications from the write-behind queues to the stores",
+         displayName = "Write-behind average flush latency",
+         units = Units.MILLISECONDS,
+         measurementType = MeasurementType.DYNAMIC
+   )
+   public long getWriteBehindAverageFlushLatency() {
+      long flushes = 0, flushTime = 0;
+      for (AsyncCacheWriter writer : persistenceManager.getAsyncWriters()) {
+         flushes += writer.getFlushes();
+         flushTime += writer.getFlushTime();
+      }
+      return flushes == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(flushTime / flushes);
+   }
+
    void storeEntry(InvocationContext ctx, Object key, FlagAffectedCommand command) {
       MarshalledEntry entry = createMarshalledEntry(ctx, key);
       persistenceManager.writeToAllNonTxStores(entry, skipSharedStores(ctx, key, command) ? PRIVATE : BOTH, command.getFlagsBitSet());
       if (trace) getLog().tracef("Stored entry %s under key %s", entry.getValue(), key);
    }
 
+   CompletionStage<Void> storeEntryAsync(InvocationContext ctx, Object key, FlagAffectedCommand command) {
+      MarshalledEntry entry = createMarshalledEntry(ctx, key);
+      CompletionStage<Void> stage = persistenceManager.writeToAllNonTxStoresAsync(entry,
+            skipSharedStores(ctx, key, command) ? PRIVATE : BOTH, command.getFlagsBitSet());
+      if (trace) getLog().tracef("Storing entry %s under key %s", entry.getValue(), key);
+      return stage;
+   }
+
+   CompletionStage<Boolean> deleteEntryAsync(Object key, PersistenceManager.AccessMode mode) {
+      CompletionStage<Boolean> stage = persistenceManager.deleteFromAllStoresAsync(key, mode);
+      if (trace) {
+         stage = stage.thenApply(resp -> {
+            getLog().tracef("Removed entry under key %s and got response %s from CacheStore", key, resp);
+            return resp;
+         });
+      }
+      return stage;
+   }
+
+   /**
+    * Returns the given return value once the store operation has completed.  If the operation is still in progress
+    * the invocation is suspended instead of blocking the invoking thread, keeping the key locked until the store is
+    * updated, as the synchronous store operations did.
+    */
+   protected static Object delayedValue(CompletionStage<?> stage, Object rv) {
+      CompletableFuture<?> future = stage.toCompletableFuture();
+      if (future.isDone() && !future.isCompletedExceptionally()) {
+         return rv;
+      }
+      return asyncValue(future.thenApply(ignore -> rv));
+   }
+
    MarshalledEntry createMarshalledEntry(InvocationContext ctx, Object key) {
       InternalCacheValue sv = entryFactory.getValueFromCtxOrCreateNew(key, ctx);
       return new MarshalledEntryImpl(key, sv.getValue(), internalMetadata(sv), marshaller);
@@ -3,6 +3,8 @@
 import static org.infinispan.persistence.manager.PersistenceManager.AccessMode.BOTH;
 import static org.infinispan.persistence.manager.PersistenceManager.AccessMode.PRIVATE;
 
+import java.util.concurrent.CompletionStage;
+
 import org.infinispan.commands.FlagAffectedCommand;
 import org.infinispan.commands.VisitableCommand;
 import org.infinispan.commands.write.ComputeCommand;
@@ -72,10 +74,10 @@ public Object visitPutKeyValueCommand(InvocationContext ctx, PutKeyValueCommand
          if (!isProperWriter(rCtx, putKeyValueCommand, putKeyValueCommand.getKey()))
             return rv;
 
-         storeEntry(rCtx, key, putKeyValueCommand);
+         CompletionStage<Void> stage = storeEntryAsync(rCtx, key, putKeyValueCommand);
          if (getStatisticsEnabled())
             cacheStores.incrementAndGet();
-         return rv;
+         return delayedValue(stage, rv);
       });
    }
 
@@ -117,12 +119,7 @@ public Object visitRemoveCommand(InvocationContext ctx, RemoveCommand command) t
          if (!isProperWriter(rCtx, removeCommand, key))
             return rv;
 
-         boolean resp = persistenceManager
-               .deleteFromAllStores(key, skipSharedStores(rCtx, key, removeCommand) ? PRIVATE : BOTH);
-         if (trace)
-            log.tracef("Removed entry under key %s and got response %s from CacheStore", key, resp);
-
-         return rv;
+         return delayedValue(deleteEntryAsync(key, skipSharedStores(rCtx, key, removeCommand) ? PRIVATE : BOTH), rv);
       });
    }
 
@@ -137,11 +134,11 @@ public Object visitReplaceCommand(InvocationContext ctx, ReplaceCommand command)
          if (!isProperWriter(rCtx, replaceCommand, replaceCommand.getKey()))
             return rv;
 
-         storeEntry(rCtx, key, replaceCommand);
+         CompletionStage<Void> stage = storeEntryAsync(rCtx, key, replaceCommand);
          if (getStatisticsEnabled())
             cacheStores.incrementAndGet();
 
-         return rv;
+         return delayedValue(stage, rv);
       });
    }
 
@@ -156,14 +153,12 @@ public Object visitComputeCommand(InvocationContext ctx, ComputeCommand command)
             return rv;
 
          if (command.isSuccessful() && rv == null) {
-            boolean resp = persistenceManager
-                  .deleteFromAllStores(key, skipSharedStores(rCtx, key, command) ? PRIVATE : BOTH);
-            if (trace)
-               log.tracef("Removed entry under key %s and got response %s from CacheStore", key, resp);
+            return delayedValue(deleteEntryAsync(key, skipSharedStores(rCtx, key, command) ? PRIVATE : BOTH), rv);
          } else if (command.isSuccessful()) {
-            storeEntry(rCtx, key, computeCommand);
+            CompletionStage<Void> stage = storeEntryAsync(rCtx, key, computeCommand);
             if (getStatisticsEnabled())
                cacheStores.incrementAndGet();
+            return delayedValue(stage, rv);
          }
          return rv;
       });
@@ -179,11 +174,11 @@ public Object visitComputeIfAbsentCommand(InvocationContext ctx, ComputeIfAbsent
          if (!isProperWriter(rCtx, computeIfAbsentCommand, computeIfAbsentCommand.getKey()))
             return rv;
 
-         storeEntry(rCtx, key, computeIfAbsentCommand);
+         CompletionStage<Void> stage = storeEntryAsync(rCtx, key, computeIfAbsentCommand);
          if (getStatisticsEnabled())
             cacheStores.incrementAndGet();
 
-         return rv;
+         return delayedValue(stage, rv);
       });
    }
 
@@ -112,4 +112,10 @@ void notifyCacheEntryPassivated(K key, V value, boolean pre,
 
    void notifyPartitionStatusChanged(AvailabilityMode mode, boolean pre);
 
+   /**
+    * @return whether any registered listener is notified in the thread invoking the cache operation
+    * @since 9.1
+    */
+   boolean hasSyncListeners();
+
 }
@@ -688,6 +688,16 @@ public void notifyPartitionStatusChanged(AvailabilityMode mode, boolean pre) {
       }
    }
 
+   @Override
+   public boolean hasSyncListeners() {
+      for (List<CacheEntryListenerInvocation<K, V>> listeners : listenersMap.values()) {
+         for (CacheEntryListenerInvocation<K, V> listener : listeners) {
+            if (listener.isSync()) return true;
+         }
+      }
+      return false;
+   }
+
    @Override
    public void notifyClusterListeners(Collection<? extends CacheEntryEvent<K, V>> events, UUID uuid) {
       // We don't need to unwrap key or value as the node where the event originated did this already
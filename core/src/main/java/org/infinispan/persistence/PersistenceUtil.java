@@ -3,6 +3,8 @@
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -31,6 +33,8 @@ public class PersistenceUtil {
 
    private static Log log = LogFactory.getLog(PersistenceUtil.class);
    private static final boolean trace = log.isTraceEnabled();
+   // Number of times an entry is loaded without holding the lock of the key before falling back to a locked load
+   private static final int MAX_ASYNC_LOAD_ATTEMPTS = 3;
 
    public static KeyFilter notNull(KeyFilter filter) {
       return filter == null ? KeyFilter.ACCEPT_ALL_FILTER : filter;
@@ -99,6 +103,80 @@ public static <K, V> InternalCacheEntry<K,V> loadAndStoreInDataContainer(DataCon
       });
    }
 
+   /**
+    * Same as {@link #loadAndStoreInDataContainer(DataContainer, PersistenceManager, Object, InvocationContext,
+    * TimeService, AtomicReference)} except that the stores are queried without holding the lock of the key in the data
+    * container and without blocking the invoking thread.  If an entry was added to the data container while the
+    * stores were queried, that entry is kept and returned instead of the loaded one.  If the entry was removed from
+    * the data container or the stores were modified for the key in the meantime, e.g. because the entry was
+    * passivated, the loaded entry may be stale and the stores are queried again.  After a few stale loads, the entry is
+    * loaded by {@link #loadAndStoreInDataContainer(DataContainer, PersistenceManager, Object, InvocationContext,
+    * TimeService, AtomicReference)}, so that concurrent modifications can't make the load retry forever.
+    */
+   public static <K, V> CompletionStage<InternalCacheEntry<K,V>> loadAndStoreInDataContainerAsync(DataContainer<K, V> dataContainer,
+                                                                         final PersistenceManager persistenceManager,
+                                                                         K key, final InvocationContext ctx, final TimeService timeService,
+                                                                         final AtomicReference<Boolean> isLoaded) {
+      return loadAndStoreInDataContainerAsync(dataContainer, persistenceManager, key, ctx, timeService, isLoaded, 1);
+   }
+
+   private static <K, V> CompletionStage<InternalCacheEntry<K,V>> loadAndStoreInDataContainerAsync(DataContainer<K, V> dataContainer,
+                                                                          final PersistenceManager persistenceManager,
+                                                                          K key, final InvocationContext ctx, final TimeService timeService,
+                                                                          final AtomicReference<Boolean> isLoaded, int attempt) {
+      if (attempt > MAX_ASYNC_LOAD_ATTEMPTS) {
+         if (trace) {
+            log.tracef("Key %s was modified while it was loaded %d times, loading it with the key locked", key,
+                  MAX_ASYNC_LOAD_ATTEMPTS);
+         }
+         return CompletableFuture.completedFuture(
+               loadAndStoreInDataContainer(dataContainer, persistenceManager, key, ctx, timeService, isLoaded));
+      }
+      long stamp = persistenceManager.modificationStamp(key);
+      InternalCacheEntry<K, V> existing = dataContainer.peek(key);
+      if (existing != null && (!existing.canExpire() || !existing.isExpired(timeService.wallClockTime()))) {
+         if (isLoaded != null) {
+            isLoaded.set(null); //not loaded
+         }
+         return CompletableFuture.completedFuture(existing);
+      }
+      return persistenceManager.loadFromAllStoresAsync(key, ctx).thenCompose(loaded -> {
+         MarshalledEntry<K, V> unexpired = checkExpiration(loaded, key, timeService);
+         boolean[] stale = new boolean[1];
+         InternalCacheEntry<K, V> entry = dataContainer.compute(key, (k, oldEntry, factory) -> {
+            //under the lock, check if the entry was added to the DataContainer in the meantime
+            if (oldEntry != null && (!oldEntry.canExpire() || !oldEntry.isExpired(timeService.wallClockTime()))) {
+               if (isLoaded != null) {
+                  isLoaded.set(null); //not loaded
+               }
+               return oldEntry; //no changes in container
+            }
+            if (oldEntry != existing || stamp == -1 || stamp != persistenceManager.modificationStamp(k)) {
+               stale[0] = true;
+               return oldEntry; //no changes in container, the load is retried
+            }
+            if (unexpired == null) {
+               if (isLoaded != null) {
+                  isLoaded.set(Boolean.FALSE); //not loaded
+               }
+               return null; //no changed in container
+            }
+            if (isLoaded != null) {
+               isLoaded.set(Boolean.TRUE); //loaded!
+            }
+            return convert(unexpired, factory);
+         });
+         if (stale[0]) {
+            if (trace) {
+               log.tracef("Key %s was modified while it was loaded, loading it again", key);
+            }
+            return loadAndStoreInDataContainerAsync(dataContainer, persistenceManager, key, ctx, timeService, isLoaded,
+                  attempt + 1);
+         }
+         return CompletableFuture.completedFuture(entry);
+      });
+   }
+
    public static <K, V> InternalCacheEntry<K,V> loadAndComputeInDataContainer(DataContainer<K, V> dataContainer, final PersistenceManager persistenceManager,
                                                                               K key, final InvocationContext ctx, final TimeService timeService,
                                                                               DataContainer.ComputeAction<K, V> action) {
@@ -120,7 +198,11 @@ public static <K, V> InternalCacheEntry<K,V> loadAndComputeInDataContainer(DataC
 
    public static MarshalledEntry loadAndCheckExpiration(PersistenceManager persistenceManager, Object key,
                                                         InvocationContext context, TimeService timeService) {
-      final MarshalledEntry loaded = persistenceManager.loadFromAllStores(key, context);
+      return checkExpiration(persistenceManager.loadFromAllStores(key, context), key, timeService);
+   }
+
+   private static <K, V> MarshalledEntry<K, V> checkExpiration(MarshalledEntry<K, V> loaded, Object key,
+                                                              TimeService timeService) {
       if (trace) {
          log.tracef("Loaded %s for key %s from persistence.", loaded, key);
       }
@@ -30,6 +30,7 @@ public void clear() {
          stateLock.reset(1);
          stateLock.writeUnlock();
       }
+      requestFlush();
    }
 
    @Override
@@ -11,7 +11,10 @@
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
@@ -30,6 +33,7 @@
 import org.infinispan.persistence.spi.InitializationContext;
 import org.infinispan.persistence.spi.PersistenceException;
 import org.infinispan.persistence.support.DelegatingCacheWriter;
+import org.infinispan.util.TimeService;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
@@ -53,6 +57,14 @@
  * <p/>
  * Write operations affecting same key are now coalesced so that only the final state is actually stored.
  * <p/>
+ * By default the buffered modifications are written as soon as the previous batch is stored. When
+ * {@link AsyncStoreConfiguration#flushInterval()} is set, the modifications are kept in the buffer for up to that time,
+ * so that more writes can be coalesced and the store receives larger batches; the buffer is flushed earlier when it
+ * holds {@link AsyncStoreConfiguration#flushBatchSize()} keys or {@link AsyncStoreConfiguration#flushBatchBytes()} bytes.
+ * <p/>
+ * When the buffer is more than half full, writers are delayed proportionally to the buffer usage and the recent flush
+ * latency, and they are blocked only when the buffer is full.
+ * <p/>
  *
  * @author Manik Surtani
  * @author Galder Zamarreño
@@ -64,12 +76,27 @@
 public class AsyncCacheWriter extends DelegatingCacheWriter {
    private static final Log log = LogFactory.getLog(AsyncCacheWriter.class);
    private static final boolean trace = log.isTraceEnabled();
+   private static final long NOT_BUFFERED = Long.MAX_VALUE;
+   private static final long MAX_BACKPRESSURE_DELAY = TimeUnit.MILLISECONDS.toNanos(10);
 
    private ExecutorService executor;
    private Thread coordinator;
    private int concurrencyLevel;
    private String cacheName;
    private String nodeName;
+   private TimeService timeService;
+   private long flushInterval;
+   private int flushBatchSize;
+   private long flushBatchBytes;
+   // time when the first modification was added to the current state, or NOT_BUFFERED
+   private final AtomicLong bufferedSince = new AtomicLong(NOT_BUFFERED);
+   // size of the entries in the current state, tracked only when flushBatchBytes is set
+   private final AtomicLong bufferedBytes = new AtomicLong();
+   private final LongAdder submittedModifications = new LongAdder();
+   private final LongAdder writtenModifications = new LongAdder();
+   private final LongAdder flushes = new LongAdder();
+   private final LongAdder flushTime = new LongAdder();
+   private volatile long lastFlushLatency;
 
    protected BufferLock stateLock;
    @GuardedBy("stateLock")
@@ -93,6 +120,10 @@ public void init(InitializationContext ctx) {
       concurrencyLevel = cacheCfg != null ? cacheCfg.locking().concurrencyLevel() : 16;
       cacheName = cache != null ? cache.getName() : null;
       nodeName = cache != null ? cache.getCacheManager().getCacheManagerConfiguration().transport().nodeName() : null;
+      timeService = ctx.getTimeService();
+      flushInterval = TimeUnit.MILLISECONDS.toNanos(asyncConfiguration.flushInterval());
+      flushBatchSize = asyncConfiguration.flushBatchSize();
+      flushBatchBytes = asyncConfiguration.flushBatchBytes();
    }
 
    @Override
@@ -100,6 +131,8 @@ public void start() {
       log.debugf("Async cache loader starting %s", this);
       state.set(newState(false, null));
       stopped = false;
+      bufferedSince.set(NOT_BUFFERED);
+      bufferedBytes.set(0);
       stateLock = new BufferLock(asyncConfiguration.modificationQueueSize());
 
       // Create a thread pool with unbounded work queue, so that all work is accepted and eventually
@@ -125,6 +158,7 @@ public void stop() {
       stateLock.writeLock(0);
       stopped = true;
       stateLock.writeUnlock();
+      requestFlush();
       try {
          // It is safe to wait without timeout because the thread pool uses an unbounded work queue (i.e.
          // all work handed to the pool will be accepted and eventually executed) and AsyncStoreProcessors
@@ -202,25 +236,180 @@ void assertNotStopped() throws CacheException {
    }
 
    private void put(Modification mod, int count) {
+      applyBackpressure();
       stateLock.writeLock(count);
       try {
          if (trace)
             log.tracef("Queue modification: %s", mod);
 
          assertNotStopped();
-         state.get().put(mod);
+         buffered(mod, count);
       } finally {
          stateLock.writeUnlock();
       }
+      if (flushInterval > 0 && isFlushRequired())
+         requestFlush();
    }
 
    private void putAll(List<Modification> mods) {
+      applyBackpressure();
       stateLock.writeLock(mods.size());
       try {
-         state.get().put(new ModificationsList(mods));
+         buffered(new ModificationsList(mods), mods.size());
       } finally {
          stateLock.writeUnlock();
       }
+      if (flushInterval > 0 && isFlushRequired())
+         requestFlush();
+   }
+
+   @GuardedBy("stateLock")
+   private void buffered(Modification mod, int count) {
+      int added = state.get().put(mod);
+      // coalesced modifications don't take space in the buffer
+      if (added < count)
+         stateLock.release(count - added);
+      submittedModifications.add(count);
+      if (flushInterval > 0)
+         bufferedSince.compareAndSet(NOT_BUFFERED, timeService.time());
+      if (flushBatchBytes > 0)
+         bufferedBytes.addAndGet(size(mod));
+   }
+
+   private static long size(Modification mod) {
+      switch (mod.getType()) {
+         case STORE:
+            MarshalledEntry entry = ((Store) mod).getStoredValue();
+            long size = entry.getKeyBytes().getLength();
+            if (entry.getValueBytes() != null)
+               size += entry.getValueBytes().getLength();
+            if (entry.getMetadataBytes() != null)
+               size += entry.getMetadataBytes().getLength();
+            return size;
+         case LIST:
+            long total = 0;
+            for (Modification m : ((ModificationsList) mod).getList())
+               total += size(m);
+            return total;
+         default:
+            return 0;
+      }
+   }
+
+   /**
+    * Delays the writer when the buffer is more than half full, so that the writers slow down gradually instead of
+    * being blocked when the buffer is full.
+    */
+   private void applyBackpressure() {
+      int capacity = asyncConfiguration.modificationQueueSize();
+      int threshold = capacity / 2;
+      int count = stateLock.count();
+      if (capacity <= 0 || count <= threshold)
+         return;
+      requestFlush();
+      long delay = Math.min(lastFlushLatency, MAX_BACKPRESSURE_DELAY) * Math.min(count - threshold, capacity - threshold)
+            / (capacity - threshold);
+      if (delay > 0)
+         LockSupport.parkNanos(this, delay);
+   }
+
+   private boolean isFlushRequired() {
+      State s = state.get();
+      if (stopped || s.clear)
+         return true;
+      if (flushBatchSize > 0 && s.modifications.size() >= flushBatchSize)
+         return true;
+      if (flushBatchBytes > 0 && bufferedBytes.get() >= flushBatchBytes)
+         return true;
+      int capacity = asyncConfiguration.modificationQueueSize();
+      return capacity > 0 && stateLock.count() > capacity / 2;
+   }
+
+   /**
+    * Wakes up the coordinator waiting for the flush interval.
+    */
+   protected void requestFlush() {
+      Thread coordinator = this.coordinator;
+      if (coordinator != null)
+         LockSupport.unpark(coordinator);
+   }
+
+   /**
+    * Waits until the buffered modifications should be written to the store, according to the flush policy.
+    */
+   private void awaitFlush() {
+      if (flushInterval <= 0)
+         return;
+      for (;;) {
+         if (isFlushRequired())
+            return;
+         long since = bufferedSince.get();
+         long remaining = since == NOT_BUFFERED ? flushInterval : since + flushInterval - timeService.time();
+         if (remaining <= 0)
+            return;
+         LockSupport.parkNanos(this, remaining);
+      }
+   }
+
+   /**
+    * @return number of modifications buffered or being written to the store
+    */
+   public int getQueueDepth() {
+      int depth = 0;
+      for (State s = state.get(); s != null; s = s.next)
+         depth += s.modifications.size();
+      return depth;
+   }
+
+   /**
+    * @return number of modifications submitted to this writer
+    */
+   public long getSubmittedModifications() {
+      return submittedModifications.sum();
+   }
+
+   /**
+    * @return number of modifications written to the store, after coalescing the modifications of the same key
+    */
+   public long getWrittenModifications() {
+      return writtenModifications.sum();
+   }
+
+   /**
+    * @return ratio of the submitted to the written modifications, or 0 if nothing was written yet
+    */
+   public double getCoalescingRatio() {
+      long written = writtenModifications.sum();
+      return written == 0 ? 0 : (double) submittedModifications.sum() / written;
+   }
+
+   /**
+    * @return number of batches of modifications written to the store
+    */
+   public long getFlushes() {
+      return flushes.sum();
+   }
+
+   /**
+    * @return total time (in nanoseconds) spent writing the batches of modifications to the store
+    */
+   public long getFlushTime() {
+      return flushTime.sum();
+   }
+
+   /**
+    * @return average time (in milliseconds) spent writing a batch of modifications to the store
+    */
+   public long getAverageFlushLatency() {
+      long count = flushes.sum();
+      return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(flushTime.sum() / count);
+   }
+
+   public void resetStatistics() {
+      submittedModifications.reset();
+      writtenModifications.reset();
+      flushes.reset();
+      flushTime.reset();
    }
 
    public AtomicReference<State> getState() {
@@ -240,8 +429,12 @@ public void run() {
             for (;;) {
                final State s, head, tail;
                final boolean shouldStop;
+               stateLock.awaitAvailable();
+               awaitFlush();
                stateLock.readLock();
                try {
+                  bufferedSince.set(NOT_BUFFERED);
+                  bufferedBytes.set(0);
                   s = state.get();
                   shouldStop = stopped;
                   tail = s.next;
@@ -280,6 +473,7 @@ public void run() {
                   final List<AsyncStoreProcessor> procs = createProcessors(s, mods);
                   final List<AsyncStoreProcessor> deferredProcs = createProcessors(s, deferredMods);
                   s.workerThreads = new CountDownLatch(procs.size() + deferredProcs.size());
+                  s.flushStart = timeService.time();
 
                   // schedule AsyncStoreProcessors that don't conflict with tail's processors
                   for (AsyncStoreProcessor processor : procs)
@@ -345,8 +539,15 @@ public void run() {
             retryWork(3);
 
          } finally {
+            writtenModifications.add(modifications.size());
             // decrement active worker threads and disconnect myState if this was the last one
             myState.workerThreads.countDown();
+            if (myState.workerThreads.getCount() == 0) {
+               long latency = timeService.timeDuration(myState.flushStart, TimeUnit.NANOSECONDS);
+               lastFlushLatency = latency;
+               flushTime.add(latency);
+               flushes.increment();
+            }
             if (myState.workerThreads.getCount() == 0 && myState.next == null)
                for (State s = state.get(); s != null; s = s.next)
                   if (s.next == myState)
@@ -48,10 +48,16 @@ protected int tryAcquireShared(int count) {
          }
       }
 
+      int count() {
+         return getState();
+      }
+
       @Override
       protected boolean tryReleaseShared(int state) {
-         setState(state);
-         return state < size;
+         // negative argument only wakes up the writers after the counter was decreased by add()
+         if (state >= 0)
+            setState(state);
+         return getState() < size;
       }
    }
 
@@ -182,6 +188,34 @@ void reset(int count) {
       available.releaseShared(count);
    }
 
+   /**
+    * Returns buffer space consumed by a writer that did not add any items (e.g. because the items replaced
+    * other items in the buffer). Must be called while holding the write lock.
+    *
+    * @param count
+    *           number of items to remove from the buffer counter
+    */
+   void release(int count) {
+      if (counter != null) {
+         counter.add(-count);
+         counter.releaseShared(-1);
+      }
+   }
+
+   /**
+    * Returns the number of items in the buffer, or 0 if the buffer is unbounded.
+    */
+   int count() {
+      return counter != null ? counter.count() : 0;
+   }
+
+   /**
+    * Blocks until some data is available, without acquiring the read lock.
+    */
+   void awaitAvailable() {
+      available.acquireShared(1);
+   }
+
    /**
     * Modifies the buffer counter by the specified value.
     *
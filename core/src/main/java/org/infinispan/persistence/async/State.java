@@ -40,6 +40,11 @@ public class State {
     */
    CountDownLatch workerThreads;
 
+   /**
+    * Time (in nanoseconds) when the modifications were handed to the worker threads.
+    */
+   long flushStart;
+
    public State(boolean clear, ConcurrentMap<Object, Modification> modMap, State next) {
       this.clear = clear;
       this.modifications = modMap;
@@ -71,19 +76,20 @@ else if (state.clear)
     *
     * @param mod
     *           the Modification to add, supports modification types STORE, REMOVE and LIST
+    * @return the number of keys that were not in the state map yet; the other modifications were coalesced
+    *         with the modifications of the same key
     */
-   void put(Modification mod) {
+   int put(Modification mod) {
       switch (mod.getType()) {
          case STORE:
-            modifications.put(((Store) mod).getKey(), mod);
-            break;
+            return modifications.put(((Store) mod).getKey(), mod) == null ? 1 : 0;
          case REMOVE:
-            modifications.put(((Remove) mod).getKey(), mod);
-            break;
+            return modifications.put(((Remove) mod).getKey(), mod) == null ? 1 : 0;
          case LIST:
+            int added = 0;
             for (Modification m : ((ModificationsList) mod).getList())
-               put(m);
-            break;
+               added += put(m);
+            return added;
          default:
             throw new IllegalArgumentException("Unknown modification type " + mod.getType());
       }
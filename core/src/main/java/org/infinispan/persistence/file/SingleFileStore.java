@@ -5,35 +5,46 @@
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.infinispan.commons.configuration.ConfiguredBy;
 import org.infinispan.commons.io.ByteBufferFactory;
 import org.infinispan.commons.persistence.Store;
+import org.infinispan.commons.util.CloseableIterator;
 import org.infinispan.commons.util.CollectionFactory;
 import org.infinispan.configuration.cache.SingleFileStoreConfiguration;
+import org.infinispan.distribution.ch.KeyPartitioner;
 import org.infinispan.executors.ExecutorAllCompletionService;
 import org.infinispan.filter.KeyFilter;
 import org.infinispan.marshall.core.MarshalledEntry;
 import org.infinispan.persistence.PersistenceUtil;
 import org.infinispan.persistence.TaskContextImpl;
-import org.infinispan.persistence.spi.AdvancedLoadWriteStore;
 import org.infinispan.persistence.spi.InitializationContext;
 import org.infinispan.persistence.spi.PersistenceException;
+import org.infinispan.persistence.spi.SegmentedAdvancedLoadWriteStore;
 import org.infinispan.util.KeyValuePair;
 import org.infinispan.util.TimeService;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
+import org.infinispan.util.reactive.Publisher;
+import org.infinispan.util.reactive.Publishers;
 
 /**
  * A filesystem-based implementation of a {@link org.infinispan.persistence.spi.CacheLoader}. This file store
@@ -56,8 +67,17 @@
  * data loss, and data can be recomputed or re-queried from the original data
  * source.
  * <p/>
+ * When {@link SingleFileStoreConfiguration#segmented() segmented}, the entries of each segment are stored in a
+ * separate file <tt>&lt;location&gt;/&lt;cache name&gt;/&lt;segment&gt;.dat</tt>, which is created when the first
+ * entry of the segment is written.  The entries of some segments can then be read or removed without visiting the
+ * other files.  The number of segments is recorded in <tt>&lt;location&gt;/&lt;cache name&gt;/num-segments</tt>, and
+ * the store refuses to start if the files were written with a different number of segments, or by a store that was
+ * not segmented, as their entries would not be found.
+ * <p/>
  * This class is fully thread safe, yet allows for concurrent load / store
- * of individual cache entries.
+ * of individual cache entries. Loads don't acquire any lock shared with the
+ * other operations, and the free space of each file is split in several
+ * independently locked lists, so that concurrent writes rarely contend.
  *
  * @author Karsten Blees
  * @author Mircea Markus
@@ -65,7 +85,7 @@
  */
 @Store
 @ConfiguredBy(SingleFileStoreConfiguration.class)
-public class SingleFileStore<K, V> implements AdvancedLoadWriteStore<K, V> {
+public class SingleFileStore<K, V> implements SegmentedAdvancedLoadWriteStore<K, V> {
    private static final Log log = LogFactory.getLog(SingleFileStore.class);
    private static final boolean trace = log.isTraceEnabled();
 
@@ -74,19 +94,21 @@
    private static final int KEYLEN_POS = 4;
    private static final int KEY_POS = 4 + 4 + 4 + 4 + 8;
    private static final int SMALLEST_ENTRY_SIZE = 128;
+   private static final int FREE_LIST_STRIPES = 16;
+   private static final String DATA_FILE_SUFFIX = ".dat";
+   private static final String NUM_SEGMENTS_FILE = "num-segments";
 
    private SingleFileStoreConfiguration configuration;
 
    protected InitializationContext ctx;
 
-   private FileChannel channel;
-   private Map<K, FileEntry> entries;
-   private SortedSet<FileEntry> freeList;
-   private long filePos = MAGIC.length;
-   private File file;
+   // The only data file, if not segmented
+   private DataFile dataFile;
+   // The data file of each segment, if segmented
+   private AtomicReferenceArray<DataFile> segmentFiles;
+   private File segmentsDirectory;
+   private volatile KeyPartitioner keyPartitioner;
    private float fragmentationFactor = .75f;
-   // Prevent clear() from truncating the file after a write() allocated the entry but before it wrote the data
-   private ReadWriteLock resizeLock = new ReentrantReadWriteLock();
    private TimeService timeService;
 
    @Override
@@ -99,117 +121,175 @@ public void init(InitializationContext ctx) {
    @Override
    public void start() {
       try {
-         // open the data file
+         // Initialize the fragmentation factor
+         fragmentationFactor = configuration.fragmentationFactor();
+
          String location = configuration.location();
          if (location == null || location.trim().length() == 0)
             location = "Infinispan-SingleFileStore";
 
-         file = new File(location, ctx.getCache().getName() + ".dat");
-         if (!file.exists()) {
-            File dir = file.getParentFile();
-            if (!dir.mkdirs() && !dir.exists()) {
-               throw log.directoryCannotBeCreated(dir.getAbsolutePath());
+         segmentsDirectory = new File(location, ctx.getCache().getName());
+         File singleFile = new File(location, ctx.getCache().getName() + DATA_FILE_SUFFIX);
+         if (configuration.segmented()) {
+            if (singleFile.exists()) {
+               throw new PersistenceException("The data file " + singleFile + " was written by a non-segmented store");
             }
+            int numSegments = ctx.getCache().getCacheConfiguration().clustering().hash().numSegments();
+            checkNumSegments(numSegments);
+            // open the data files of the segments that have entries
+            segmentFiles = new AtomicReferenceArray<>(numSegments);
+            for (int segment = 0; segment < numSegments; segment++) {
+               File file = segmentFile(segment);
+               if (file.exists()) {
+                  segmentFiles.set(segment, openDataFile(file));
+               }
+            }
+         } else {
+            if (new File(segmentsDirectory, NUM_SEGMENTS_FILE).exists()) {
+               throw new PersistenceException("The data files in " + segmentsDirectory + " were written by a segmented store");
+            }
+            // open the data file
+            dataFile = openDataFile(singleFile);
          }
-         channel = new RandomAccessFile(file, "rw").getChannel();
-
-         // initialize data structures
-         entries = newEntryMap();
-         freeList = Collections.synchronizedSortedSet(new TreeSet<FileEntry>());
+      } catch (PersistenceException e) {
+         throw e;
+      } catch (Exception e) {
+         throw new PersistenceException(e);
+      }
+   }
 
-         // check file format and read persistent state if enabled for the cache
-         byte[] header = new byte[MAGIC.length];
-         if (channel.read(ByteBuffer.wrap(header), 0) == MAGIC.length && Arrays.equals(MAGIC, header)) {
-            rebuildIndex();
-            processFreeEntries();
+   /**
+    * The segment of a key depends on the number of segments, so the data files written with a different number of
+    * segments can't be used.  The number of segments is recorded when the segmented store starts for the first time.
+    */
+   private void checkNumSegments(int numSegments) throws IOException {
+      File numSegmentsFile = new File(segmentsDirectory, NUM_SEGMENTS_FILE);
+      if (numSegmentsFile.exists()) {
+         int storedNumSegments = Integer.parseInt(
+               new String(Files.readAllBytes(numSegmentsFile.toPath()), StandardCharsets.UTF_8).trim());
+         if (storedNumSegments != numSegments) {
+            throw new PersistenceException("The data files in " + segmentsDirectory + " were written with " +
+                  storedNumSegments + " segments, but the cache has " + numSegments);
+         }
+         return;
+      }
+      // The files written before the number of segments was recorded
+      String[] fileNames = segmentsDirectory.list();
+      if (fileNames != null) {
+         for (String fileName : fileNames) {
+            if (fileName.endsWith(DATA_FILE_SUFFIX) &&
+                  Integer.parseInt(fileName.substring(0, fileName.length() - DATA_FILE_SUFFIX.length())) >= numSegments) {
+               throw new PersistenceException("The data files in " + segmentsDirectory + " were written with more than " +
+                     numSegments + " segments");
+            }
          }
-         else
-            clear(); // otherwise (unknown file format or no preload) just reset the file
+      }
+      if (!segmentsDirectory.mkdirs() && !segmentsDirectory.exists()) {
+         throw log.directoryCannotBeCreated(segmentsDirectory.getAbsolutePath());
+      }
+      Files.write(numSegmentsFile.toPath(), Integer.toString(numSegments).getBytes(StandardCharsets.UTF_8));
+   }
 
-         // Initialize the fragmentation factor
-         fragmentationFactor = configuration.fragmentationFactor();
-      } catch (Exception e) {
-         throw new PersistenceException(e);
+   private File segmentFile(int segment) {
+      return new File(segmentsDirectory, segment + DATA_FILE_SUFFIX);
+   }
+
+   private DataFile openDataFile(File file) throws Exception {
+      if (!file.exists()) {
+         File dir = file.getParentFile();
+         if (!dir.mkdirs() && !dir.exists()) {
+            throw log.directoryCannotBeCreated(dir.getAbsolutePath());
+         }
       }
+      DataFile dataFile = new DataFile(file);
+      // check file format and read persistent state if enabled for the cache
+      byte[] header = new byte[MAGIC.length];
+      if (dataFile.channel.read(ByteBuffer.wrap(header), 0) == MAGIC.length && Arrays.equals(MAGIC, header)) {
+         dataFile.rebuildIndex();
+         dataFile.processFreeEntries();
+      }
+      else
+         dataFile.clear(); // otherwise (unknown file format or no preload) just reset the file
+      return dataFile;
    }
 
    private <Key> Map<Key, FileEntry> newEntryMap() {
       // only use LinkedHashMap (LRU) for entries when cache store is bounded
-      final Map<Key, FileEntry> entryMap;
       if (configuration.maxEntries() > 0)
-         entryMap = CollectionFactory.makeLinkedMap(16, 0.75f, true);
+         return Collections.synchronizedMap(CollectionFactory.makeLinkedMap(16, 0.75f, true));
       else
-         entryMap = CollectionFactory.makeMap();
-
-      return Collections.synchronizedMap(entryMap);
+         return CollectionFactory.makeConcurrentMap();
    }
 
    @Override
    public void stop() {
       try {
-         if (channel != null) {
-            log.tracef("Stopping store %s, size = %d, file size = %d", ctx.getCache().getName(), entries.size(), channel.size());
-
-            // reset state
-            channel.close();
-            channel = null;
-            entries = null;
-            freeList = null;
-            filePos = MAGIC.length;
+         for (DataFile dataFile : dataFiles()) {
+            log.tracef("Stopping store %s, size = %d, file size = %d", ctx.getCache().getName(),
+                  dataFile.entries.size(), dataFile.channel.size());
+            dataFile.channel.close();
          }
+         // reset state
+         dataFile = null;
+         segmentFiles = null;
       } catch (Exception e) {
          throw new PersistenceException(e);
       }
    }
 
    /**
-    * Rebuilds the in-memory index from file.
+    * @return the data files that currently exist
     */
-   private void rebuildIndex() throws Exception {
-      ByteBuffer buf = ByteBuffer.allocate(KEY_POS);
-      for (; ; ) {
-         // read FileEntry fields from file (size, keyLen etc.)
-         buf.clear().limit(KEY_POS);
-         channel.read(buf, filePos);
-         // return if end of file is reached
-         if (buf.remaining() > 0)
-            return;
-         buf.flip();
-
-         // initialize FileEntry from buffer
-         int entrySize = buf.getInt();
-         int keyLen = buf.getInt();
-         int dataLen = buf.getInt();
-         int metadataLen = buf.getInt();
-         long expiryTime = buf.getLong();
-         FileEntry fe = new FileEntry(filePos, entrySize, keyLen, dataLen, metadataLen, expiryTime);
-
-         // sanity check
-         if (fe.size < KEY_POS + fe.keyLen + fe.dataLen + fe.metadataLen) {
-            throw log.errorReadingFileStore(file.getPath(), filePos);
+   private List<DataFile> dataFiles() {
+      if (segmentFiles == null) {
+         return dataFile == null ? Collections.emptyList() : Collections.singletonList(dataFile);
+      }
+      List<DataFile> dataFiles = new ArrayList<>();
+      for (int segment = 0; segment < segmentFiles.length(); segment++) {
+         DataFile dataFile = segmentFiles.get(segment);
+         if (dataFile != null) {
+            dataFiles.add(dataFile);
          }
+      }
+      return dataFiles;
+   }
 
-         // update file pointer
-         filePos += fe.size;
-
-         // check if the entry is used or free
-         if (fe.keyLen > 0) {
-            // load the key from file
-            if (buf.capacity() < fe.keyLen)
-               buf = ByteBuffer.allocate(fe.keyLen);
-
-            buf.clear().limit(fe.keyLen);
-            channel.read(buf, fe.offset + KEY_POS);
+   /**
+    * @return the data file that contains the key, or {@code null} if its segment has no file
+    */
+   private DataFile dataFile(Object key) {
+      if (segmentFiles == null)
+         return dataFile;
+      return segmentFiles.get(getKeyPartitioner().getSegment(key));
+   }
 
-            // deserialize key and add to entries map
-            // Marshaller should allow for provided type return for safety
-            K key = (K) ctx.getMarshaller().objectFromByteBuffer(buf.array(), 0, fe.keyLen);
-            entries.put(key, fe);
-         } else {
-            // add to free list
-            freeList.add(fe);
+   /**
+    * @return the data file the key must be written to, creating it if its segment has no file yet
+    */
+   private DataFile dataFileForWrite(Object key) throws Exception {
+      if (segmentFiles == null)
+         return dataFile;
+      int segment = getKeyPartitioner().getSegment(key);
+      DataFile dataFile = segmentFiles.get(segment);
+      if (dataFile == null) {
+         synchronized (segmentFiles) {
+            dataFile = segmentFiles.get(segment);
+            if (dataFile == null) {
+               dataFile = openDataFile(segmentFile(segment));
+               segmentFiles.set(segment, dataFile);
+            }
          }
       }
+      return dataFile;
+   }
+
+   private KeyPartitioner getKeyPartitioner() {
+      KeyPartitioner keyPartitioner = this.keyPartitioner;
+      if (keyPartitioner == null) {
+         keyPartitioner = ctx.getCache().getAdvancedCache().getComponentRegistry().getComponent(KeyPartitioner.class);
+         this.keyPartitioner = keyPartitioner;
+      }
+      return keyPartitioner;
    }
 
    /**
@@ -218,105 +298,367 @@ private void rebuildIndex() throws Exception {
     */
    @Override
    public boolean contains(Object key) {
-      FileEntry entry = entries.get(key);
-      return entry != null && !entry.isExpired(timeService.wallClockTime());
+      DataFile dataFile = dataFile(key);
+      return dataFile != null && dataFile.contains(key);
    }
 
-   /**
-    * Allocates the requested space in the file.
-    *
-    * @param len requested space
-    * @return allocated file position and length as FileEntry object
-    */
-   private FileEntry allocate(int len) {
-      synchronized (freeList) {
-         // lookup a free entry of sufficient size
-         SortedSet<FileEntry> candidates = freeList.tailSet(new FileEntry(0, len));
-         for (Iterator<FileEntry> it = candidates.iterator(); it.hasNext(); ) {
-            FileEntry free = it.next();
-            // ignore entries that are still in use by concurrent readers
-            if (free.isLocked())
-               continue;
+   @Override
+   public void write(MarshalledEntry<? extends K, ? extends V> marshalledEntry) {
+      try {
+         DataFile dataFile;
+         do {
+            dataFile = dataFileForWrite(marshalledEntry.getKey());
+            // retry if the segment was removed concurrently, the entry is then written to a new file
+         } while (!dataFile.write(marshalledEntry));
+      } catch (PersistenceException e) {
+         throw e;
+      } catch (Exception e) {
+         throw new PersistenceException(e);
+      }
+   }
+
+   @Override
+   public void clear() {
+      if (segmentFiles == null) {
+         dataFile.clear();
+      } else {
+         synchronized (segmentFiles) {
+            for (int segment = 0; segment < segmentFiles.length(); segment++) {
+               removeSegmentFile(segment);
+            }
+         }
+      }
+   }
 
-            // There's no race condition risk between locking the entry on
-            // loading and checking whether it's locked (or store allocation),
-            // because for the entry to be lockable, it needs to be in the
-            // entries collection, in which case it's not in the free list.
-            // The only way an entry can be found in the free list is if it's
-            // been removed, and to remove it, lock on "entries" needs to be
-            // acquired, which is also a pre-requisite for loading data.
+   @Override
+   public boolean delete(Object key) {
+      DataFile dataFile = dataFile(key);
+      return dataFile != null && dataFile.delete(key);
+   }
 
-            // found one, remove from freeList
-            it.remove();
-            return allocateExistingEntry(free, len);
+   @Override
+   public MarshalledEntry<K, V> load(Object key) {
+      DataFile dataFile = dataFile(key);
+      return dataFile == null ? null : dataFile.load(key, true, true);
+   }
+
+   @Override
+   public void process(KeyFilter<? super K> filter, final CacheLoaderTask<K, V> task, Executor executor, final boolean fetchValue, final boolean fetchMetadata) {
+      ExecutorAllCompletionService eacs = new ExecutorAllCompletionService(executor);
+      final TaskContextImpl taskContext = new TaskContextImpl();
+      for (DataFile dataFile : dataFiles()) {
+         for (K key : dataFile.keysToLoad(filter)) {
+            if (taskContext.isStopped())
+               break;
+
+            eacs.submit(() -> {
+               try {
+                  final MarshalledEntry marshalledEntry = dataFile.load(key, fetchValue, fetchMetadata);
+                  if (marshalledEntry != null) {
+                     task.processEntry(marshalledEntry, taskContext);
+                  }
+                  return null;
+               } catch (Exception e) {
+                  log.errorExecutingParallelStoreTask(e);
+                  throw e;
+               }
+            });
          }
+      }
+      eacs.waitUntilAllCompleted();
+      if (eacs.isExceptionThrown()) {
+         throw new PersistenceException("Execution exception!", eacs.getFirstException());
+      }
+   }
 
-         // no appropriate free section available, append at end of file
-         FileEntry fe = new FileEntry(filePos, len);
-         filePos += len;
-         if (trace) log.tracef("New entry allocated at %d:%d, %d free entries, file size is %d", fe.offset, fe.size, freeList.size(), filePos);
-         return fe;
+   /**
+    * Reads the entries from the file as they are requested, in the requesting thread.  Only the keys that pass the
+    * filter are collected when the subscriber first requests entries.
+    */
+   @Override
+   public Publisher<MarshalledEntry<K, V>> publishEntries(KeyFilter<? super K> filter, boolean fetchValue,
+                                                         boolean fetchMetadata, Executor executor) {
+      return publishEntries(dataFiles(), filter, fetchValue, fetchMetadata);
+   }
+
+   @Override
+   public Publisher<MarshalledEntry<K, V>> publishEntries(Set<Integer> segments, KeyFilter<? super K> filter,
+                                                         boolean fetchValue, boolean fetchMetadata) {
+      if (segmentFiles == null) {
+         return publishEntries(dataFiles(), segmentFilter(segments, filter), fetchValue, fetchMetadata);
       }
+      return publishEntries(segmentDataFiles(segments), filter, fetchValue, fetchMetadata);
    }
 
-   private FileEntry allocateExistingEntry(FileEntry free, int len) {
-      int remainder = free.size - len;
-      // If the entry is quite bigger than configured threshold, then split it
-      if ((remainder >= SMALLEST_ENTRY_SIZE) && (len <= (free.size * fragmentationFactor))) {
-         try {
-            // Add remainder of the space as a fileEntry
-            FileEntry newFreeEntry = new FileEntry(free.offset + len, remainder);
-            addNewFreeEntry(newFreeEntry);
-            FileEntry newEntry = new FileEntry(free.offset, len);
-            if (trace) log.tracef("Split entry at %d:%d, allocated %d:%d, free %d:%d, %d free entries",
-                  free.offset, free.size, newEntry.offset, newEntry.size, newFreeEntry.offset, newFreeEntry.size,
-                  freeList.size());
-            return newEntry;
-         } catch (IOException e) {
-            throw new PersistenceException("Cannot add new free entry", e);
+   private Publisher<MarshalledEntry<K, V>> publishEntries(List<DataFile> dataFiles, KeyFilter<? super K> filter,
+                                                          boolean fetchValue, boolean fetchMetadata) {
+      List<Publisher<MarshalledEntry<K, V>>> publishers = new ArrayList<>(dataFiles.size());
+      for (DataFile dataFile : dataFiles) {
+         publishers.add(Publishers.fromIterator(() -> new LoadingIterator(dataFile,
+               dataFile.keysToLoad(filter).iterator(), fetchValue, fetchMetadata)));
+      }
+      return Publishers.concat(publishers);
+   }
+
+   private KeyFilter<K> segmentFilter(Set<Integer> segments, KeyFilter<? super K> filter) {
+      KeyPartitioner keyPartitioner = getKeyPartitioner();
+      KeyFilter<? super K> notNullFilter = PersistenceUtil.notNull(filter);
+      return key -> segments.contains(keyPartitioner.getSegment(key)) && notNullFilter.accept(key);
+   }
+
+   private List<DataFile> segmentDataFiles(Set<Integer> segments) {
+      List<DataFile> dataFiles = new ArrayList<>(segments.size());
+      for (int segment : segments) {
+         DataFile dataFile = segmentFiles.get(segment);
+         if (dataFile != null) {
+            dataFiles.add(dataFile);
          }
       }
+      return dataFiles;
+   }
 
-      if (trace) log.tracef("Existing free entry allocated at %d:%d, %d free entries", free.offset, free.size, freeList.size());
-      return free;
+   @Override
+   public void removeSegments(Set<Integer> segments) {
+      if (segmentFiles == null) {
+         for (K key : dataFile.keysToLoad(segmentFilter(segments, null))) {
+            dataFile.delete(key);
+         }
+      } else {
+         synchronized (segmentFiles) {
+            for (int segment : segments) {
+               removeSegmentFile(segment);
+            }
+         }
+      }
    }
 
    /**
-    * Writes a new free entry to the file and also adds it to the free list
+    * Removes the file of the segment, if it has one.
+    * <p/>
+    * Note: Caller must hold the {@code segmentFiles} monitor, so that the file is not created again before it is
+    * deleted.
     */
-   private void addNewFreeEntry(FileEntry fe) throws IOException {
-      ByteBuffer buf = ByteBuffer.allocate(KEY_POS);
-      buf.putInt(fe.size);
-      buf.putInt(0);
-      buf.putInt(0);
-      buf.putInt(0);
-      buf.putLong(-1);
-      buf.flip();
-      channel.write(buf, fe.offset);
-      freeList.add(fe);
+   private void removeSegmentFile(int segment) {
+      DataFile dataFile = segmentFiles.getAndSet(segment, null);
+      if (dataFile != null) {
+         dataFile.delete();
+      }
+   }
+
+   @Override
+   public void purge(Executor threadPool, final PurgeListener task) {
+      long now = timeService.wallClockTime();
+      for (DataFile dataFile : dataFiles()) {
+         dataFile.purge(now, task);
+      }
+   }
+
+   @Override
+   public int size() {
+      int size = 0;
+      for (DataFile dataFile : dataFiles()) {
+         size += dataFile.entries.size();
+      }
+      return size;
+   }
+
+   @Override
+   public boolean isStoredBySegment() {
+      return segmentFiles != null;
+   }
+
+   @Override
+   public int size(Set<Integer> segments) {
+      if (segmentFiles == null) {
+         return dataFile.keysToLoad(segmentFilter(segments, null)).size();
+      }
+      int size = 0;
+      for (DataFile dataFile : segmentDataFiles(segments)) {
+         size += dataFile.entries.size();
+      }
+      return size;
+   }
+
+   Map<K, FileEntry> getEntries() {
+      return dataFile.entries;
+   }
+
+   List<FileEntry> getFreeList() {
+      return dataFile.freeList.entries();
+   }
+
+   long getFileSize() {
+      return dataFile.filePos.get();
+   }
+
+   public SingleFileStoreConfiguration getConfiguration() {
+      return configuration;
    }
 
    /**
-    * Frees the space of the specified file entry (for reuse by allocate).
+    * A data file with its in-memory index and free space.
     * <p/>
-    * Note: Caller must hold the {@code resizeLock} in shared mode.
+    * Writes and deletes hold the {@code resizeLock} in shared mode, while the operations that move or reset the end
+    * of the file hold it in exclusive mode.  Loads don't hold it: they lock the {@link FileEntry} they read and then
+    * check that it is still the one mapped to the key, so the file entry cannot be freed, truncated or reused while
+    * its data is read.
     */
-   private void free(FileEntry fe) throws IOException {
-      if (fe != null) {
-         // Invalidate entry on disk (by setting keyLen field to 0)
-         // No need to wait for readers to unlock here, the FileEntry instance is not modified,
-         // and allocate() won't return an entry as long as it has a reader.
-         channel.write(ByteBuffer.wrap(ZERO_INT), fe.offset + KEYLEN_POS);
-         if (!freeList.add(fe)) {
-            throw new IllegalStateException(String.format("Trying to free an entry that was not allocated: %s", fe));
+   private class DataFile {
+      private final File file;
+      private final FileChannel channel;
+      private final Map<K, FileEntry> entries = newEntryMap();
+      private final FreeList freeList = new FreeList();
+      private final AtomicLong filePos = new AtomicLong(MAGIC.length);
+      // Prevent clear() from truncating the file after a write() allocated the entry but before it wrote the data
+      private final ReadWriteLock resizeLock = new ReentrantReadWriteLock();
+      // Guarded by resizeLock
+      private boolean deleted;
+
+      DataFile(File file) throws IOException {
+         this.file = file;
+         this.channel = new RandomAccessFile(file, "rw").getChannel();
+      }
+
+      /**
+       * Rebuilds the in-memory index from file.
+       */
+      void rebuildIndex() throws Exception {
+         long filePos = this.filePos.get();
+         ByteBuffer buf = ByteBuffer.allocate(KEY_POS);
+         try {
+            for (; ; ) {
+               // read FileEntry fields from file (size, keyLen etc.)
+               buf.clear().limit(KEY_POS);
+               channel.read(buf, filePos);
+               // return if end of file is reached
+               if (buf.remaining() > 0)
+                  return;
+               buf.flip();
+
+               // initialize FileEntry from buffer
+               int entrySize = buf.getInt();
+               int keyLen = buf.getInt();
+               int dataLen = buf.getInt();
+               int metadataLen = buf.getInt();
+               long expiryTime = buf.getLong();
+               FileEntry fe = new FileEntry(filePos, entrySize, keyLen, dataLen, metadataLen, expiryTime);
+
+               // sanity check
+               if (fe.size < KEY_POS + fe.keyLen + fe.dataLen + fe.metadataLen) {
+                  throw log.errorReadingFileStore(file.getPath(), filePos);
+               }
+
+               // update file pointer
+               filePos += fe.size;
+
+               // check if the entry is used or free
+               if (fe.keyLen > 0) {
+                  // load the key from file
+                  if (buf.capacity() < fe.keyLen)
+                     buf = ByteBuffer.allocate(fe.keyLen);
+
+                  buf.clear().limit(fe.keyLen);
+                  channel.read(buf, fe.offset + KEY_POS);
+
+                  // deserialize key and add to entries map
+                  // Marshaller should allow for provided type return for safety
+                  K key = (K) ctx.getMarshaller().objectFromByteBuffer(buf.array(), 0, fe.keyLen);
+                  entries.put(key, fe);
+               } else {
+                  // add to free list
+                  freeList.add(fe);
+               }
+            }
+         } finally {
+            this.filePos.set(filePos);
          }
-         if (trace) log.tracef("Deleted entry at %d:%d, there are now %d free entries", fe.offset, fe.size, freeList.size());
       }
-   }
 
-   @Override
-   public void write(MarshalledEntry<? extends K, ? extends V> marshalledEntry) {
-      try {
+      boolean contains(Object key) {
+         FileEntry entry = entries.get(key);
+         return entry != null && !entry.isExpired(timeService.wallClockTime());
+      }
+
+      /**
+       * Allocates the requested space in the file.
+       * <p/>
+       * Note: Caller must hold the {@code resizeLock} in shared mode.
+       *
+       * @param len requested space
+       * @return allocated file position and length as FileEntry object
+       */
+      private FileEntry allocate(int len) {
+         // lookup a free entry of sufficient size
+         FileEntry free = freeList.allocate(len);
+         if (free != null) {
+            return allocateExistingEntry(free, len);
+         }
+
+         // no appropriate free section available, append at end of file
+         FileEntry fe = new FileEntry(filePos.getAndAdd(len), len);
+         if (trace) log.tracef("New entry allocated at %d:%d, %d free entries, file size is %d", fe.offset, fe.size, freeList.size(), filePos.get());
+         return fe;
+      }
+
+      private FileEntry allocateExistingEntry(FileEntry free, int len) {
+         int remainder = free.size - len;
+         // If the entry is quite bigger than configured threshold, then split it
+         if ((remainder >= SMALLEST_ENTRY_SIZE) && (len <= (free.size * fragmentationFactor))) {
+            try {
+               // Add remainder of the space as a fileEntry
+               FileEntry newFreeEntry = new FileEntry(free.offset + len, remainder);
+               addNewFreeEntry(newFreeEntry);
+               FileEntry newEntry = new FileEntry(free.offset, len);
+               if (trace) log.tracef("Split entry at %d:%d, allocated %d:%d, free %d:%d, %d free entries",
+                     free.offset, free.size, newEntry.offset, newEntry.size, newFreeEntry.offset, newFreeEntry.size,
+                     freeList.size());
+               return newEntry;
+            } catch (IOException e) {
+               throw new PersistenceException("Cannot add new free entry", e);
+            }
+         }
+
+         if (trace) log.tracef("Existing free entry allocated at %d:%d, %d free entries", free.offset, free.size, freeList.size());
+         return free;
+      }
+
+      /**
+       * Writes a new free entry to the file and also adds it to the free list
+       */
+      private void addNewFreeEntry(FileEntry fe) throws IOException {
+         ByteBuffer buf = ByteBuffer.allocate(KEY_POS);
+         buf.putInt(fe.size);
+         buf.putInt(0);
+         buf.putInt(0);
+         buf.putInt(0);
+         buf.putLong(-1);
+         buf.flip();
+         channel.write(buf, fe.offset);
+         freeList.add(fe);
+      }
+
+      /**
+       * Frees the space of the specified file entry (for reuse by allocate).
+       * <p/>
+       * Note: Caller must hold the {@code resizeLock} in shared mode.
+       */
+      private void free(FileEntry fe) throws IOException {
+         if (fe != null) {
+            // Invalidate entry on disk (by setting keyLen field to 0)
+            // No need to wait for readers to unlock here, the FileEntry instance is not modified,
+            // and allocate() won't return an entry as long as it has a reader.
+            channel.write(ByteBuffer.wrap(ZERO_INT), fe.offset + KEYLEN_POS);
+            if (!freeList.add(fe)) {
+               throw new IllegalStateException(String.format("Trying to free an entry that was not allocated: %s", fe));
+            }
+            if (trace) log.tracef("Deleted entry at %d:%d, there are now %d free entries", fe.offset, fe.size, freeList.size());
+         }
+      }
+
+      /**
+       * @return {@code false} if the file was deleted, and the entry was not written
+       */
+      boolean write(MarshalledEntry<? extends K, ? extends V> marshalledEntry) throws Exception {
          // serialize cache value
          org.infinispan.commons.io.ByteBuffer key = marshalledEntry.getKeyBytes();
          org.infinispan.commons.io.ByteBuffer data = marshalledEntry.getValueBytes();
@@ -329,6 +671,9 @@ public void write(MarshalledEntry<? extends K, ? extends V> marshalledEntry) {
          FileEntry oldEntry = null;
          resizeLock.readLock().lock();
          try {
+            if (deleted)
+               return false;
+
             newEntry = allocate(len);
             long expiryTime = metadata != null ? marshalledEntry.getMetadata().expiryTime() : -1;
             newEntry = new FileEntry(newEntry, key.getLength(), data.getLength(), metadataLength, expiryTime);
@@ -353,6 +698,7 @@ public void write(MarshalledEntry<? extends K, ? extends V> marshalledEntry) {
             // if we added an entry, check if we need to evict something
             if (oldEntry == null)
                oldEntry = evict();
+            return true;
          } finally {
             // in case we replaced or evicted an entry, add to freeList
             try {
@@ -361,348 +707,469 @@ public void write(MarshalledEntry<? extends K, ? extends V> marshalledEntry) {
                resizeLock.readLock().unlock();
             }
          }
-      } catch (Exception e) {
-         throw new PersistenceException(e);
       }
-   }
 
-   /**
-    * Try to evict an entry if the capacity of the cache store is reached.
-    *
-    * @return FileEntry to evict, or null (if unbounded or capacity is not yet reached)
-    */
-   private FileEntry evict() {
-      if (configuration.maxEntries() > 0) {
-         synchronized (entries) {
-            if (entries.size() > configuration.maxEntries()) {
-               Iterator<FileEntry> it = entries.values().iterator();
-               FileEntry fe = it.next();
-               it.remove();
-               return fe;
+      /**
+       * Try to evict an entry if the capacity of the cache store is reached.
+       *
+       * @return FileEntry to evict, or null (if unbounded or capacity is not yet reached)
+       */
+      private FileEntry evict() {
+         if (configuration.maxEntries() > 0) {
+            synchronized (entries) {
+               if (entries.size() > configuration.maxEntries()) {
+                  Iterator<FileEntry> it = entries.values().iterator();
+                  FileEntry fe = it.next();
+                  it.remove();
+                  return fe;
+               }
             }
          }
+         return null;
       }
-      return null;
-   }
 
-   @Override
-   public void clear() {
-      resizeLock.writeLock().lock();
-      try {
-         synchronized (entries) {
-            synchronized (freeList) {
-               // wait until all readers are done reading file entries
-               for (FileEntry fe : entries.values())
-                  fe.waitUnlocked();
-               for (FileEntry fe : freeList)
-                  fe.waitUnlocked();
-
-               // clear in-memory state
-               entries.clear();
-               freeList.clear();
-
-               // reset file
-               if (trace) log.tracef("Truncating file, current size is %d", filePos);
-               channel.truncate(0);
-               channel.write(ByteBuffer.wrap(MAGIC), 0);
-               filePos = MAGIC.length;
+      void clear() {
+         resizeLock.writeLock().lock();
+         try {
+            // remove the entries first, so that readers stop locking them
+            List<FileEntry> removed = removeAllEntries();
+            // wait until all readers are done reading file entries
+            for (FileEntry fe : removed)
+               fe.waitUnlocked();
+            for (FileEntry fe : freeList.entries())
+               fe.waitUnlocked();
+            freeList.clear();
+
+            // reset file
+            if (trace) log.tracef("Truncating file, current size is %d", filePos.get());
+            channel.truncate(0);
+            channel.write(ByteBuffer.wrap(MAGIC), 0);
+            filePos.set(MAGIC.length);
+         } catch (Exception e) {
+            throw new PersistenceException(e);
+         } finally {
+            resizeLock.writeLock().unlock();
+         }
+      }
+
+      /**
+       * Removes the file from disk, after the readers are done with it.  Writes to the file are rejected afterwards.
+       */
+      void delete() {
+         resizeLock.writeLock().lock();
+         try {
+            deleted = true;
+            for (FileEntry fe : removeAllEntries())
+               fe.waitUnlocked();
+            for (FileEntry fe : freeList.entries())
+               fe.waitUnlocked();
+            freeList.clear();
+
+            if (trace) log.tracef("Deleting file %s, current size is %d", file, filePos.get());
+            channel.close();
+            if (!file.delete() && file.exists()) {
+               throw new PersistenceException("Cannot delete file " + file);
             }
+         } catch (IOException e) {
+            throw new PersistenceException(e);
+         } finally {
+            resizeLock.writeLock().unlock();
          }
-      } catch (Exception e) {
-         throw new PersistenceException(e);
-      } finally {
-         resizeLock.writeLock().unlock();
       }
-   }
 
-   @Override
-   public boolean delete(Object key) {
-      resizeLock.readLock().lock();
-      try {
-         FileEntry fe = entries.remove(key);
-         free(fe);
-         return fe != null;
-      } catch (Exception e) {
-         throw new PersistenceException(e);
-      } finally {
-         resizeLock.readLock().unlock();
+      private List<FileEntry> removeAllEntries() {
+         synchronized (entries) {
+            List<FileEntry> removed = new ArrayList<>(entries.values());
+            entries.clear();
+            return removed;
+         }
       }
-   }
 
-   @Override
-   public MarshalledEntry<K, V> load(Object key) {
-      return _load(key, true, true);
-   }
+      boolean delete(Object key) {
+         resizeLock.readLock().lock();
+         try {
+            FileEntry fe = entries.remove(key);
+            free(fe);
+            return fe != null;
+         } catch (Exception e) {
+            throw new PersistenceException(e);
+         } finally {
+            resizeLock.readLock().unlock();
+         }
+      }
 
-   private MarshalledEntry<K, V> _load(Object key, boolean loadValue, boolean loadMetadata) {
-      final FileEntry fe;
-      resizeLock.readLock().lock();
-      try {
-         synchronized (entries) {
+      MarshalledEntry<K, V> load(Object key, boolean loadValue, boolean loadMetadata) {
+         FileEntry fe;
+         for (; ; ) {
             // lookup FileEntry of the key
             fe = entries.get(key);
             if (fe == null)
                return null;
 
             // Entries are removed due to expiration from {@link SingleFileStore#purge}
-            if (fe.isExpired(timeService.wallClockTime())) {
+            if (fe.isExpired(timeService.wallClockTime()))
                return null;
-            } else {
-               // lock entry for reading before releasing entries monitor
-               fe.lock();
-            }
+
+            // lock entry for reading, and check that it was not removed before it was locked,
+            // otherwise it could be freed and its space reused or truncated while it is read
+            fe.lock();
+            if (entries.get(key) == fe)
+               break;
+            fe.unlock();
          }
-      } finally {
-         resizeLock.readLock().unlock();
-      }
 
-      org.infinispan.commons.io.ByteBuffer valueBb = null;
-      org.infinispan.commons.io.ByteBuffer metadataBb = null;
+         org.infinispan.commons.io.ByteBuffer valueBb = null;
+         org.infinispan.commons.io.ByteBuffer metadataBb = null;
+
+         // If we only require the key, then no need to read disk
+         if (!loadValue && !loadMetadata) {
+            try {
+               return ctx.getMarshalledEntryFactory().newMarshalledEntry(key, valueBb, metadataBb);
+            } finally {
+               fe.unlock();
+            }
+         }
 
-      // If we only require the key, then no need to read disk
-      if (!loadValue && !loadMetadata) {
+         final byte[] data;
          try {
-            return ctx.getMarshalledEntryFactory().newMarshalledEntry(key, valueBb, metadataBb);
+            // load serialized data from disk
+            data = new byte[fe.keyLen + fe.dataLen + (loadMetadata ? fe.metadataLen : 0)];
+            // The entry lock will prevent clear() from truncating the file at this point
+            channel.read(ByteBuffer.wrap(data), fe.offset + KEY_POS);
+         } catch (Exception e) {
+            throw new PersistenceException(e);
          } finally {
+            // No need to keep the lock for deserialization.
+            // FileEntry is immutable, so its members can't be changed by another thread.
             fe.unlock();
          }
-      }
 
-      final byte[] data;
-      try {
-         // load serialized data from disk
-         data = new byte[fe.keyLen + fe.dataLen + (loadMetadata ? fe.metadataLen : 0)];
-         // The entry lock will prevent clear() from truncating the file at this point
-         channel.read(ByteBuffer.wrap(data), fe.offset + KEY_POS);
-      } catch (Exception e) {
-         throw new PersistenceException(e);
-      } finally {
-         // No need to keep the lock for deserialization.
-         // FileEntry is immutable, so its members can't be changed by another thread.
-         fe.unlock();
+         if (trace) log.tracef("Read entry %s at %d:%d", key, fe.offset, fe.actualSize());
+         ByteBufferFactory factory = ctx.getByteBufferFactory();
+         org.infinispan.commons.io.ByteBuffer keyBb = factory.newByteBuffer(data, 0, fe.keyLen);
+         if (loadValue) {
+            valueBb = factory.newByteBuffer(data, fe.keyLen, fe.dataLen);
+         }
+         if (loadMetadata && fe.metadataLen > 0) {
+            metadataBb = factory.newByteBuffer(data, fe.keyLen + fe.dataLen, fe.metadataLen);
+         }
+         return ctx.getMarshalledEntryFactory().newMarshalledEntry(keyBb, valueBb, metadataBb);
       }
 
-      if (trace) log.tracef("Read entry %s at %d:%d", key, fe.offset, fe.actualSize());
-      ByteBufferFactory factory = ctx.getByteBufferFactory();
-      org.infinispan.commons.io.ByteBuffer keyBb = factory.newByteBuffer(data, 0, fe.keyLen);
-      if (loadValue) {
-         valueBb = factory.newByteBuffer(data, fe.keyLen, fe.dataLen);
+      /**
+       * @return the keys that pass the filter, sorted by their position in the file so that they are read sequentially
+       */
+      List<K> keysToLoad(KeyFilter<? super K> filter) {
+         filter = PersistenceUtil.notNull(filter);
+         List<KeyValuePair<K, FileEntry>> keysToLoad = new ArrayList<>(entries.size());
+         for (KeyValuePair<K, FileEntry> e : snapshot()) {
+            if (filter.accept(e.getKey()))
+               keysToLoad.add(e);
+         }
+
+         keysToLoad.sort((o1, o2) -> {
+            long offset1 = o1.getValue().offset;
+            long offset2 = o2.getValue().offset;
+            return offset1 < offset2 ? -1 : offset1 == offset2 ? 0 : 1;
+         });
+         // keysToLoad values (i.e. FileEntries) must not be used past this point
+         List<K> keys = new ArrayList<>(keysToLoad.size());
+         for (KeyValuePair<K, FileEntry> keyToLoad : keysToLoad) {
+            keys.add(keyToLoad.getKey());
+         }
+         return keys;
       }
-      if (loadMetadata && fe.metadataLen > 0) {
-         metadataBb = factory.newByteBuffer(data, fe.keyLen + fe.dataLen, fe.metadataLen);
+
+      private List<KeyValuePair<K, FileEntry>> snapshot() {
+         // the bounded map must be locked while iterating, the concurrent map doesn't mind
+         synchronized (entries) {
+            List<KeyValuePair<K, FileEntry>> snapshot = new ArrayList<>(entries.size());
+            for (Map.Entry<K, FileEntry> e : entries.entrySet()) {
+               snapshot.add(new KeyValuePair<>(e.getKey(), e.getValue()));
+            }
+            return snapshot;
+         }
       }
-      return ctx.getMarshalledEntryFactory().newMarshalledEntry(keyBb, valueBb, metadataBb);
-   }
 
-   @Override
-   public void process(KeyFilter<? super K> filter, final CacheLoaderTask<K, V> task, Executor executor, final boolean fetchValue, final boolean fetchMetadata) {
-      filter = PersistenceUtil.notNull(filter);
-      ArrayList<KeyValuePair<K, FileEntry>> keysToLoad = new ArrayList<>(entries.size());
-      synchronized (entries) {
-         for (Map.Entry<K, FileEntry> e : entries.entrySet()) {
-            if (filter.accept(e.getKey()))
-               keysToLoad.add(new KeyValuePair<>(e.getKey(), e.getValue()));
+      void purge(long now, PurgeListener task) {
+         List<KeyValuePair<K, FileEntry>> entriesToPurge = new ArrayList<>();
+         for (KeyValuePair<K, FileEntry> e : snapshot()) {
+            // only remove the entry if it wasn't replaced in the meantime
+            if (e.getValue().isExpired(now) && entries.remove(e.getKey(), e.getValue())) {
+               entriesToPurge.add(e);
+            }
+         }
+
+         resizeLock.readLock().lock();
+         try {
+            for (KeyValuePair<K, FileEntry> next : entriesToPurge) {
+               try {
+                  free(next.getValue());
+               } catch (Exception e) {
+                  throw new PersistenceException(e);
+               }
+               if (task != null) task.entryPurged(next.getKey());
+            }
+         } finally {
+            resizeLock.readLock().unlock();
+         }
+
+         // Disk space optimizations
+         resizeLock.writeLock().lock();
+         try {
+            if (!deleted) {
+               processFreeEntries();
+            }
+         } finally {
+            resizeLock.writeLock().unlock();
          }
       }
 
-      keysToLoad.sort((o1, o2) -> {
-         long offset1 = o1.getValue().offset;
-         long offset2 = o2.getValue().offset;
-         return offset1 < offset2 ? -1 : offset1 == offset2 ? 0 : 1;
-      });
-      // keysToLoad values (i.e. FileEntries) must not be used past this point
+      /**
+       * Manipulates the free entries for optimizing disk space.
+       * <p/>
+       * Note: Caller must hold the {@code resizeLock} in exclusive mode, or be the only thread using the file.
+       */
+      void processFreeEntries() {
+         // Get a reverse sorted list of free entries based on file offset (bigger entries will be ahead of smaller entries)
+         // This helps to work backwards with free entries at end of the file
+         List<FileEntry> l = freeList.entries();
+         l.sort((o1, o2) -> {
+            long diff = o1.offset - o2.offset;
+            return (diff == 0) ? 0 : ((diff > 0) ? -1 : 1);
+         });
 
+         truncateFile(l);
+         mergeFreeEntries(l);
+      }
 
-      ExecutorAllCompletionService eacs = new ExecutorAllCompletionService(executor);
-      final TaskContextImpl taskContext = new TaskContextImpl();
-      for (KeyValuePair<K, FileEntry> entry : keysToLoad) {
-         if (taskContext.isStopped())
-            break;
+      /**
+       * Removes free entries towards the end of the file and truncates the file.
+       */
+      private void truncateFile(List<FileEntry> entries) {
+         long startTime = 0;
+         if (trace) startTime = timeService.wallClockTime();
+
+         int reclaimedSpace = 0;
+         int removedEntries = 0;
+         long truncateOffset = -1;
+         for (Iterator<FileEntry> it = entries.iterator() ; it.hasNext(); ) {
+            FileEntry fe = it.next();
+            // Till we have free entries at the end of the file,
+            // we can remove them and contract the file to release disk
+            // space.
+            if (!fe.isLocked() && ((fe.offset + fe.size) == filePos.get())) {
+               truncateOffset = fe.offset;
+               filePos.set(fe.offset);
+               freeList.remove(fe);
+               it.remove();
+               reclaimedSpace += fe.size;
+               removedEntries++;
+            } else {
+               break;
+            }
+         }
 
-         final K key = entry.getKey();
-         eacs.submit(() -> {
+         if (truncateOffset > 0) {
             try {
-               final MarshalledEntry marshalledEntry = _load(key, fetchValue, fetchMetadata);
-               if (marshalledEntry != null) {
-                  task.processEntry(marshalledEntry, taskContext);
+               channel.truncate(truncateOffset);
+            } catch (IOException e) {
+               throw new PersistenceException("Error while truncating file", e);
+            }
+         }
+
+         if (trace) {
+            log.tracef("Removed entries: " + removedEntries + ", Reclaimed Space: " + reclaimedSpace);
+            log.tracef("Time taken for truncateFile: " + (timeService.wallClockTime() - startTime) + " (ms)");
+         }
+      }
+
+      /**
+       * Coalesces adjacent free entries to create larger free entries (so that the probability of finding a free entry during allocation increases)
+       */
+      private void mergeFreeEntries(List<FileEntry> entries) {
+         long startTime = 0;
+         if (trace) startTime = timeService.wallClockTime();
+         FileEntry lastEntry = null;
+         FileEntry newEntry = null;
+         int mergeCounter = 0;
+         for (FileEntry fe : entries) {
+            if (fe.isLocked())
+               continue;
+
+            // Merge any holes created (consecutive free entries) in the file
+            if ((lastEntry != null) && (lastEntry.offset == (fe.offset + fe.size))) {
+               if (newEntry == null) {
+                  newEntry = new FileEntry(fe.offset, fe.size + lastEntry.size);
+                  freeList.remove(lastEntry);
+                  mergeCounter++;
+               } else {
+                  newEntry = new FileEntry(fe.offset, fe.size + newEntry.size);
+               }
+               freeList.remove(fe);
+               mergeCounter++;
+            } else {
+               if (newEntry != null) {
+                  mergeAndLogEntry(newEntry, mergeCounter);
+                  newEntry = null;
+                  mergeCounter = 0;
                }
-               return null;
-            } catch (Exception e) {
-               log.errorExecutingParallelStoreTask(e);
-               throw e;
             }
-         });
+            lastEntry = fe;
+         }
+
+         if (newEntry != null)
+            mergeAndLogEntry(newEntry, mergeCounter);
+
+         if (trace) log.tracef("Total time taken for mergeFreeEntries: " + (timeService.wallClockTime() - startTime) + " (ms)");
       }
-      eacs.waitUntilAllCompleted();
-      if (eacs.isExceptionThrown()) {
-         throw new PersistenceException("Execution exception!", eacs.getFirstException());
+
+      private void mergeAndLogEntry(FileEntry entry, int mergeCounter) {
+         try {
+            addNewFreeEntry(entry);
+            if (trace) log.tracef("Merged %d entries at %d:%d, %d free entries", mergeCounter, entry.offset, entry.size, freeList.size());
+         } catch (IOException e) {
+            throw new PersistenceException("Could not add new merged entry", e);
+         }
       }
    }
 
    /**
-    * Manipulates the free entries for optimizing disk space.
+    * Loads the entries of the given keys, skipping the ones removed or expired since the keys were collected.
     */
-   private void processFreeEntries() {
-      // Get a reverse sorted list of free entries based on file offset (bigger entries will be ahead of smaller entries)
-      // This helps to work backwards with free entries at end of the file
-      List<FileEntry> l  = new ArrayList<>(freeList);
-      l.sort((o1, o2) -> {
-         long diff = o1.offset - o2.offset;
-         return (diff == 0) ? 0 : ((diff > 0) ? -1 : 1);
-      });
-
-      truncateFile(l);
-      mergeFreeEntries(l);
-   }
+   private class LoadingIterator implements CloseableIterator<MarshalledEntry<K, V>> {
+      private final DataFile dataFile;
+      private final Iterator<K> keys;
+      private final boolean fetchValue;
+      private final boolean fetchMetadata;
+      private MarshalledEntry<K, V> next;
+
+      LoadingIterator(DataFile dataFile, Iterator<K> keys, boolean fetchValue, boolean fetchMetadata) {
+         this.dataFile = dataFile;
+         this.keys = keys;
+         this.fetchValue = fetchValue;
+         this.fetchMetadata = fetchMetadata;
+      }
 
-   /**
-    * Removes free entries towards the end of the file and truncates the file.
-    */
-   private void truncateFile(List<FileEntry> entries) {
-      long startTime = 0;
-      if (trace) startTime = timeService.wallClockTime();
-
-      int reclaimedSpace = 0;
-      int removedEntries = 0;
-      long truncateOffset = -1;
-      for (Iterator<FileEntry> it = entries.iterator() ; it.hasNext(); ) {
-         FileEntry fe = it.next();
-         // Till we have free entries at the end of the file,
-         // we can remove them and contract the file to release disk
-         // space.
-         if (!fe.isLocked() && ((fe.offset + fe.size) == filePos)) {
-            truncateOffset = fe.offset;
-            filePos = fe.offset;
-            freeList.remove(fe);
-            it.remove();
-            reclaimedSpace += fe.size;
-            removedEntries++;
-         } else {
-            break;
+      @Override
+      public boolean hasNext() {
+         while (next == null && keys.hasNext()) {
+            next = dataFile.load(keys.next(), fetchValue, fetchMetadata);
          }
+         return next != null;
       }
 
-      if (truncateOffset > 0) {
-         try {
-            channel.truncate(truncateOffset);
-         } catch (IOException e) {
-            throw new PersistenceException("Error while truncating file", e);
+      @Override
+      public MarshalledEntry<K, V> next() {
+         if (!hasNext()) {
+            throw new NoSuchElementException();
          }
+         MarshalledEntry<K, V> entry = next;
+         next = null;
+         return entry;
       }
 
-      if (trace) {
-         log.tracef("Removed entries: " + removedEntries + ", Reclaimed Space: " + reclaimedSpace);
-         log.tracef("Time taken for truncateFile: " + (timeService.wallClockTime() - startTime) + " (ms)");
+      @Override
+      public void close() {
       }
    }
 
    /**
-    * Coalesces adjacent free entries to create larger free entries (so that the probability of finding a free entry during allocation increases)
+    * The free entries of a file, sorted by size.  The entries are spread over several independently locked stripes
+    * by their offset, and an allocation takes the smallest sufficient entry of the first stripe that has one,
+    * starting from a random stripe.
     */
-   private void mergeFreeEntries(List<FileEntry> entries) {
-      long startTime = 0;
-      if (trace) startTime = timeService.wallClockTime();
-      FileEntry lastEntry = null;
-      FileEntry newEntry = null;
-      int mergeCounter = 0;
-      for (FileEntry fe : entries) {
-         if (fe.isLocked())
-            continue;
-
-         // Merge any holes created (consecutive free entries) in the file
-         if ((lastEntry != null) && (lastEntry.offset == (fe.offset + fe.size))) {
-            if (newEntry == null) {
-               newEntry = new FileEntry(fe.offset, fe.size + lastEntry.size);
-               freeList.remove(lastEntry);
-               mergeCounter++;
-            } else {
-               newEntry = new FileEntry(fe.offset, fe.size + newEntry.size);
-            }
-            freeList.remove(fe);
-            mergeCounter++;
-         } else {
-            if (newEntry != null) {
-               mergeAndLogEntry(newEntry, mergeCounter);
-               newEntry = null;
-               mergeCounter = 0;
-            }
+   private static class FreeList {
+      private final SortedSet<FileEntry>[] stripes;
+
+      FreeList() {
+         stripes = new SortedSet[FREE_LIST_STRIPES];
+         for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new TreeSet<>();
          }
-         lastEntry = fe;
       }
 
-      if (newEntry != null)
-         mergeAndLogEntry(newEntry, mergeCounter);
-
-      if (trace) log.tracef("Total time taken for mergeFreeEntries: " + (timeService.wallClockTime() - startTime) + " (ms)");
-   }
+      private SortedSet<FileEntry> stripe(FileEntry fe) {
+         int h = Long.hashCode(fe.offset) * 0x9E3779B9;
+         return stripes[(h >>> 16) % stripes.length];
+      }
 
-   private void mergeAndLogEntry(FileEntry entry, int mergeCounter) {
-      try {
-         addNewFreeEntry(entry);
-         if (trace) log.tracef("Merged %d entries at %d:%d, %d free entries", mergeCounter, entry.offset, entry.size, freeList.size());
-      } catch (IOException e) {
-         throw new PersistenceException("Could not add new merged entry", e);
+      boolean add(FileEntry fe) {
+         SortedSet<FileEntry> stripe = stripe(fe);
+         synchronized (stripe) {
+            return stripe.add(fe);
+         }
       }
-   }
-   @Override
-   public void purge(Executor threadPool, final PurgeListener task) {
-      long now = timeService.wallClockTime();
-      List<KeyValuePair<Object, FileEntry>> entriesToPurge = new ArrayList<KeyValuePair<Object, FileEntry>>();
-      synchronized (entries) {
-         for (Iterator<Map.Entry<K, FileEntry>> it = entries.entrySet().iterator(); it.hasNext(); ) {
-            Map.Entry<K, FileEntry> next = it.next();
-            FileEntry fe = next.getValue();
-            if (fe.isExpired(now)) {
-               it.remove();
-               entriesToPurge.add(new KeyValuePair<Object, FileEntry>(next.getKey(), fe));
-            }
+
+      boolean remove(FileEntry fe) {
+         SortedSet<FileEntry> stripe = stripe(fe);
+         synchronized (stripe) {
+            return stripe.remove(fe);
          }
       }
 
-      resizeLock.readLock().lock();
-      try {
-         for (Iterator<KeyValuePair<Object, FileEntry>> it = entriesToPurge.iterator(); it.hasNext(); ) {
-            KeyValuePair<Object, FileEntry> next = it.next();
-            FileEntry fe = next.getValue();
-            if (fe.isExpired(now)) {
-               it.remove();
-               try {
-                  free(fe);
-               } catch (Exception e) {
-                  throw new PersistenceException(e);
+      /**
+       * Removes a free entry of at least {@code len} bytes.
+       *
+       * @return the removed entry, or {@code null} if none was found
+       */
+      FileEntry allocate(int len) {
+         FileEntry lowerBound = new FileEntry(0, len);
+         int start = ThreadLocalRandom.current().nextInt(stripes.length);
+         for (int i = 0; i < stripes.length; i++) {
+            SortedSet<FileEntry> stripe = stripes[(start + i) % stripes.length];
+            synchronized (stripe) {
+               for (Iterator<FileEntry> it = stripe.tailSet(lowerBound).iterator(); it.hasNext(); ) {
+                  FileEntry free = it.next();
+                  // ignore entries that are still in use by concurrent readers
+                  if (free.isLocked())
+                     continue;
+
+                  // There's no race condition risk between locking the entry on
+                  // loading and checking whether it's locked (or store allocation),
+                  // because a reader only uses an entry after checking that it is
+                  // still in the entries map once locked, and an entry is removed
+                  // from the entries map before it is added to the free list.
+
+                  // found one, remove from freeList
+                  it.remove();
+                  return free;
                }
-               if (task != null) task.entryPurged(next.getKey());
             }
          }
+         return null;
+      }
 
-         // Disk space optimizations
-         synchronized (freeList) {
-           processFreeEntries();
+      /**
+       * @return a copy of the free entries
+       */
+      List<FileEntry> entries() {
+         List<FileEntry> entries = new ArrayList<>();
+         for (SortedSet<FileEntry> stripe : stripes) {
+            synchronized (stripe) {
+               entries.addAll(stripe);
+            }
          }
-      } finally {
-         resizeLock.readLock().unlock();
+         return entries;
       }
-   }
-
-   @Override
-   public int size() {
-      return entries.size();
-   }
-
-   Map<K, FileEntry> getEntries() {
-      return entries;
-   }
 
-   SortedSet<FileEntry> getFreeList() {
-      return freeList;
-   }
-
-   long getFileSize() {
-      return filePos;
-   }
+      int size() {
+         int size = 0;
+         for (SortedSet<FileEntry> stripe : stripes) {
+            synchronized (stripe) {
+               size += stripe.size();
+            }
+         }
+         return size;
+      }
 
-   public SingleFileStoreConfiguration getConfiguration() {
-      return configuration;
+      void clear() {
+         for (SortedSet<FileEntry> stripe : stripes) {
+            synchronized (stripe) {
+               stripe.clear();
+            }
+         }
+      }
    }
 
    /**
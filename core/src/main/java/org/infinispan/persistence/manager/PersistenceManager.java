@@ -1,7 +1,9 @@
 package org.infinispan.persistence.manager;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.Executor;
 
 import javax.transaction.Transaction;
@@ -11,9 +13,11 @@
 import org.infinispan.context.InvocationContext;
 import org.infinispan.filter.KeyFilter;
 import org.infinispan.marshall.core.MarshalledEntry;
+import org.infinispan.persistence.async.AsyncCacheWriter;
 import org.infinispan.persistence.spi.AdvancedCacheLoader;
 import org.infinispan.persistence.spi.PersistenceException;
 import org.infinispan.persistence.support.BatchModification;
+import org.infinispan.util.reactive.Publisher;
 
 /**
  * Defines the logic for interacting with the chain of external storage.
@@ -44,6 +48,11 @@ public interface PersistenceManager extends Lifecycle {
 
    Collection<String> getStoresAsString();
 
+   /**
+    * @return the write-behind wrappers of the stores configured with {@code write-behind}
+    */
+   List<AsyncCacheWriter> getAsyncWriters();
+
    /**
     * Removes the expired entries from all the existing storage.
     */
@@ -54,8 +63,23 @@ public interface PersistenceManager extends Lifecycle {
     */
    void clearAllStores(AccessMode mode);
 
+   /**
+    * Invokes {@link org.infinispan.persistence.spi.SegmentedAdvancedLoadWriteStore#removeSegments(Set)} on all the
+    * stores that allow it and {@link org.infinispan.persistence.spi.SegmentedAdvancedLoadWriteStore#isStoredBySegment()
+    * store their entries by segment}.  The entries of the segments are not removed from the other stores.
+    */
+   void removeSegmentsFromAllStores(Set<Integer> segments, AccessMode mode);
+
    boolean deleteFromAllStores(Object key, AccessMode mode);
 
+   /**
+    * Same as {@link #deleteFromAllStores(Object, AccessMode)} except that the invoking thread is not blocked while
+    * the stores are updated.
+    *
+    * @return a stage completed with {@code true} if the entry was removed from any store
+    */
+   CompletionStage<Boolean> deleteFromAllStoresAsync(Object key, AccessMode mode);
+
    void processOnAllStores(KeyFilter keyFilter, AdvancedCacheLoader.CacheLoaderTask task, boolean fetchValue, boolean fetchMetadata);
 
    void processOnAllStores(Executor executor, KeyFilter keyFilter, AdvancedCacheLoader.CacheLoaderTask task, boolean fetchValue, boolean fetchMetadata);
@@ -64,8 +88,41 @@ public interface PersistenceManager extends Lifecycle {
 
    void processOnAllStores(Executor executor, KeyFilter keyFilter, AdvancedCacheLoader.CacheLoaderTask task, boolean fetchValue, boolean fetchMetadata, AccessMode mode);
 
+   /**
+    * Publishes the entries of all the stores that pass the <b>filter</b>, one store after the other.  Entries are only
+    * read from the stores as the subscriber requests them.
+    *
+    * @see AdvancedCacheLoader#publishEntries(KeyFilter, boolean, boolean, Executor)
+    */
+   <K, V> Publisher<MarshalledEntry<K, V>> publishEntries(KeyFilter<? super K> keyFilter, boolean fetchValue,
+                                                         boolean fetchMetadata, AccessMode mode);
+
+   /**
+    * Publishes the keys of all the stores that pass the <b>filter</b>, one store after the other, without reading
+    * their values or metadata.
+    *
+    * @see AdvancedCacheLoader#publishKeys(KeyFilter, Executor)
+    */
+   <K> Publisher<K> publishKeys(KeyFilter<? super K> keyFilter, AccessMode mode);
+
    MarshalledEntry loadFromAllStores(Object key, InvocationContext context);
 
+   /**
+    * Same as {@link #loadFromAllStores(Object, InvocationContext)} except that the invoking thread is not blocked
+    * while the stores are queried.
+    *
+    * @return a stage completed with the entry from the first store that contains it, or with {@code null}
+    */
+   CompletionStage<MarshalledEntry> loadFromAllStoresAsync(Object key, InvocationContext context);
+
+   /**
+    * Returns a stamp that changes every time the stores are modified in a way that may affect the given key. It is
+    * used to detect that an entry loaded without holding the lock of the key in the data container may be stale.
+    *
+    * @return the stamp, or -1 while a modification that may affect the key is in progress
+    */
+   long modificationStamp(Object key);
+
    /**
     * Returns the store one configured with fetch persistent state, or null if none exist.
     */
@@ -138,6 +195,14 @@ protected boolean canPerform(StoreConfiguration configuration) {
     */
    void writeToAllNonTxStores(MarshalledEntry marshalledEntry, AccessMode modes, long flags);
 
+   /**
+    * Same as {@link #writeToAllNonTxStores(MarshalledEntry, AccessMode, long)} except that the invoking thread is not
+    * blocked while the stores are updated.
+    *
+    * @return a stage completed when the entry was written to all the stores
+    */
+   CompletionStage<Void> writeToAllNonTxStoresAsync(MarshalledEntry marshalledEntry, AccessMode modes, long flags);
+
    /**
     * Perform the prepare phase of 2PC on all Tx stores.
     *
@@ -174,6 +239,15 @@ void prepareAllTxStores(Transaction transaction, BatchModification batchModifica
     */
    void writeBatchToAllNonTxStores(Iterable<MarshalledEntry> entries, AccessMode accessMode, long flags);
 
+   /**
+    * Same as {@link #writeBatchToAllNonTxStores(Iterable, AccessMode, long)} except that the invoking thread is not
+    * blocked while the stores are updated.
+    *
+    * @return a stage completed when the entries were written to all the stores
+    */
+   CompletionStage<Void> writeBatchToAllNonTxStoresAsync(Iterable<MarshalledEntry> entries, AccessMode accessMode,
+                                                         long flags);
+
    /**
     * Remove all entries from the underlying non-transactional stores as a single batch.
     *
@@ -182,4 +256,12 @@ void prepareAllTxStores(Transaction transaction, BatchModification batchModifica
     * @param flags Flags used during command invocation
     */
    void deleteBatchFromAllNonTxStores(Iterable<Object> keys, AccessMode accessMode, long flags);
+
+   /**
+    * Same as {@link #deleteBatchFromAllNonTxStores(Iterable, AccessMode, long)} except that the invoking thread is not
+    * blocked while the stores are updated.
+    *
+    * @return a stage completed when the keys were removed from all the stores
+    */
+   CompletionStage<Void> deleteBatchFromAllNonTxStoresAsync(Iterable<Object> keys, AccessMode accessMode, long flags);
 }
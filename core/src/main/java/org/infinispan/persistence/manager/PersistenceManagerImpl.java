@@ -8,7 +8,9 @@
 import static org.infinispan.context.Flag.SKIP_LOCKING;
 import static org.infinispan.context.Flag.SKIP_OWNERSHIP_CHECK;
 import static org.infinispan.context.Flag.SKIP_XSITE_BACKUP;
+import static org.infinispan.factories.KnownComponentNames.ASYNC_OPERATIONS_EXECUTOR;
 import static org.infinispan.factories.KnownComponentNames.PERSISTENCE_EXECUTOR;
+import static org.infinispan.factories.KnownComponentNames.STORE_EXECUTOR;
 import static org.infinispan.persistence.manager.PersistenceManager.AccessMode.BOTH;
 
 import java.util.ArrayList;
@@ -21,14 +23,23 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 import javax.transaction.Transaction;
 import javax.transaction.TransactionManager;
@@ -38,12 +49,13 @@
 import org.infinispan.commons.api.Lifecycle;
 import org.infinispan.commons.io.ByteBufferFactory;
 import org.infinispan.commons.marshall.StreamingMarshaller;
-import org.infinispan.commons.util.ByRef;
 import org.infinispan.commons.util.Util;
 import org.infinispan.configuration.cache.CacheMode;
 import org.infinispan.configuration.cache.Configuration;
 import org.infinispan.configuration.cache.EvictionConfigurationBuilder;
+import org.infinispan.configuration.cache.StorageType;
 import org.infinispan.configuration.cache.StoreConfiguration;
+import org.infinispan.container.DataContainer;
 import org.infinispan.context.Flag;
 import org.infinispan.context.InvocationContext;
 import org.infinispan.eviction.EvictionType;
@@ -58,10 +70,15 @@
 import org.infinispan.interceptors.impl.CacheLoaderInterceptor;
 import org.infinispan.interceptors.impl.CacheWriterInterceptor;
 import org.infinispan.interceptors.impl.TransactionalStoreInterceptor;
+import org.infinispan.jmx.annotations.MBean;
+import org.infinispan.jmx.annotations.ManagedAttribute;
+import org.infinispan.jmx.annotations.MeasurementType;
 import org.infinispan.marshall.core.MarshalledEntry;
 import org.infinispan.marshall.core.MarshalledEntryFactory;
+import org.infinispan.metadata.EmbeddedMetadata;
 import org.infinispan.metadata.Metadata;
 import org.infinispan.metadata.impl.InternalMetadataImpl;
+import org.infinispan.notifications.cachelistener.CacheNotifier;
 import org.infinispan.persistence.InitializationContextImpl;
 import org.infinispan.persistence.async.AdvancedAsyncCacheLoader;
 import org.infinispan.persistence.async.AdvancedAsyncCacheWriter;
@@ -76,22 +93,31 @@
 import org.infinispan.persistence.spi.CacheWriter;
 import org.infinispan.persistence.spi.FlagAffectedStore;
 import org.infinispan.persistence.spi.LocalOnlyCacheLoader;
+import org.infinispan.persistence.spi.NonBlockingStore;
 import org.infinispan.persistence.spi.PersistenceException;
+import org.infinispan.persistence.spi.SegmentedAdvancedLoadWriteStore;
 import org.infinispan.persistence.spi.TransactionalCacheWriter;
 import org.infinispan.persistence.support.AdvancedSingletonCacheWriter;
 import org.infinispan.persistence.support.BatchModification;
 import org.infinispan.persistence.support.DelegatingCacheLoader;
 import org.infinispan.persistence.support.DelegatingCacheWriter;
+import org.infinispan.persistence.support.NonBlockingStoreAdapter;
 import org.infinispan.persistence.support.SingletonCacheWriter;
 import org.infinispan.util.TimeService;
-import org.infinispan.util.concurrent.WithinThreadExecutor;
+import org.infinispan.util.concurrent.CompletableFutures;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
+import org.infinispan.util.reactive.Publisher;
+import org.infinispan.util.reactive.Publishers;
 
+@MBean(objectName = "Persistence", description = "Component that manages the cache loaders and writers")
 public class PersistenceManagerImpl implements PersistenceManager {
 
    private static final Log log = LogFactory.getLog(PersistenceManagerImpl.class);
    private static final boolean trace = log.isTraceEnabled();
+   private static final int MODIFICATION_STRIPES = 64;
+   // The modifications that may affect any key are counted in an extra stripe
+   private static final int BULK_MODIFICATION_STRIPE = MODIFICATION_STRIPES;
 
    Configuration configuration;
    AdvancedCache<Object, Object> cache;
@@ -105,6 +131,12 @@ public class PersistenceManagerImpl implements PersistenceManager {
 
    private final ReadWriteLock storesMutex = new ReentrantReadWriteLock();
    private final Map<Object, StoreConfiguration> configMap = new HashMap<>();
+   // The non blocking view of every loader and writer, used while processing commands
+   private final Map<Object, NonBlockingStore> nonBlockingStores = new HashMap<>();
+   // Incremented when a modification of the stores starts, see modificationStamp(Object)
+   private final AtomicLongArray modificationCounts = new AtomicLongArray(MODIFICATION_STRIPES + 1);
+   // Number of modifications of the stores in progress
+   private final AtomicIntegerArray modificationsInProgress = new AtomicIntegerArray(MODIFICATION_STRIPES + 1);
 
    private CacheStoreFactoryRegistry cacheStoreFactoryRegistry;
    private ExpirationManager expirationManager;
@@ -117,17 +149,23 @@ public class PersistenceManagerImpl implements PersistenceManager {
     */
    volatile boolean enabled;
    private Executor persistenceExecutor;
+   private Executor storeExecutor;
+   private Executor asyncExecutor;
    private ByteBufferFactory byteBufferFactory;
    private MarshalledEntryFactory marshalledEntryFactory;
    private volatile boolean clearOnStop;
    private boolean preloaded;
+   private volatile boolean preloading;
+   private final AtomicLong preloadedEntries = new AtomicLong();
 
    @Inject
    public void inject(AdvancedCache<Object, Object> cache, StreamingMarshaller marshaller,
                       Configuration configuration, TransactionManager transactionManager,
                       TimeService timeService, @ComponentName(PERSISTENCE_EXECUTOR) ExecutorService persistenceExecutor,
                       ByteBufferFactory byteBufferFactory, MarshalledEntryFactory marshalledEntryFactory,
-                      CacheStoreFactoryRegistry cacheStoreFactoryRegistry, ExpirationManager expirationManager) {
+                      CacheStoreFactoryRegistry cacheStoreFactoryRegistry, ExpirationManager expirationManager,
+                      @ComponentName(STORE_EXECUTOR) ExecutorService storeExecutor,
+                      @ComponentName(ASYNC_OPERATIONS_EXECUTOR) ExecutorService asyncExecutor) {
       this.cache = cache;
       this.m = marshaller;
       this.configuration = configuration;
@@ -138,6 +176,8 @@ public void inject(AdvancedCache<Object, Object> cache, StreamingMarshaller mars
       this.marshalledEntryFactory = marshalledEntryFactory;
       this.cacheStoreFactoryRegistry = cacheStoreFactoryRegistry;
       this.expirationManager = expirationManager;
+      this.storeExecutor = storeExecutor;
+      this.asyncExecutor = asyncExecutor;
 
       this.advancedListener = new AdvancedPurgeListener(expirationManager);
    }
@@ -262,24 +302,65 @@ public void preload() {
 
       long start = timeService.time();
 
-
       final long maxEntries = getMaxEntries();
       final AtomicInteger loadedEntries = new AtomicInteger(0);
       final AdvancedCache<Object, Object> flaggedCache = getCacheForStateInsertion();
-      ByRef.Boolean preloaded = new ByRef.Boolean(true);
-      preloadCl.process(null, (me, taskContext) -> {
-         if (loadedEntries.getAndIncrement() >= maxEntries) {
-            taskContext.stop();
-            preloaded.set(false);
-            return;
-         }
-         Metadata metadata = me.getMetadata() != null ? ((InternalMetadataImpl) me.getMetadata()).actual() :
-               null; //the downcast will go away with ISPN-3460
-         preloadKey(flaggedCache, me.getKey(), me.getValue(), metadata);
-      }, new WithinThreadExecutor(), true, true);
+      final DataContainer<Object, Object> dataContainer = canPreloadIntoDataContainer() ?
+            cache.getComponentRegistry().getComponent(DataContainer.class) : null;
+      final AtomicBoolean preloaded = new AtomicBoolean(true);
+      preloadedEntries.set(0);
+      preloading = true;
+      try {
+         // the loader decides how to split the work (e.g. by segment or by file region) among the persistence threads
+         preloadCl.process(null, (me, taskContext) -> {
+            if (loadedEntries.getAndIncrement() >= maxEntries) {
+               taskContext.stop();
+               preloaded.set(false);
+               return;
+            }
+            Metadata metadata = me.getMetadata() != null ? ((InternalMetadataImpl) me.getMetadata()).actual() :
+                  null; //the downcast will go away with ISPN-3460
+            if (dataContainer != null) {
+               dataContainer.put(cache.getKeyWrapper().wrap(me.getKey()), cache.getValueWrapper().wrap(me.getValue()),
+                     metadata != null ? metadata : new EmbeddedMetadata.Builder().build());
+            } else {
+               preloadKey(flaggedCache, me.getKey(), me.getValue(), metadata);
+            }
+            preloadedEntries.incrementAndGet();
+         }, persistenceExecutor, true, true);
+      } finally {
+         preloading = false;
+      }
       this.preloaded = preloaded.get();
 
-      log.debugf("Preloaded %d keys in %s", loadedEntries.get(), Util.prettyPrintTime(timeService.timeDuration(start, MILLISECONDS)));
+      log.debugf("Preloaded %d keys in %s", preloadedEntries.get(), Util.prettyPrintTime(timeService.timeDuration(start, MILLISECONDS)));
+   }
+
+   /**
+    * Entries can be stored directly in the data container, without going through the interceptor chain, when there
+    * are no transactions, indexes, versions or conversions involved, and nothing expects to intercept or be notified of
+    * the preloaded entries.
+    */
+   private boolean canPreloadIntoDataContainer() {
+      return configuration.customInterceptors().interceptors().isEmpty() &&
+            cache.getComponentRegistry().getComponent(CacheNotifier.class).getListeners().isEmpty() &&
+            !configuration.transaction().transactionMode().isTransactional() &&
+            !configuration.indexing().index().isEnabled() &&
+            !configuration.compatibility().enabled() &&
+            !configuration.persistence().passivation() &&
+            !configuration.clustering().cacheMode().isScattered() &&
+            configuration.memory().storageType() == StorageType.OBJECT;
+   }
+
+   @ManagedAttribute(description = "Number of entries loaded from the stores by the last preload",
+         displayName = "Number of preloaded entries", measurementType = MeasurementType.TRENDSUP)
+   public long getPreloadedEntries() {
+      return preloadedEntries.get();
+   }
+
+   @ManagedAttribute(description = "Whether the entries are being preloaded from the stores", displayName = "Preloading")
+   public boolean isPreloading() {
+      return preloading;
    }
 
    @Override
@@ -344,6 +425,23 @@ public <T> Set<T> getStores(Class<T> storeClass) {
       }
    }
 
+   @Override
+   public List<AsyncCacheWriter> getAsyncWriters() {
+      storesMutex.readLock().lock();
+      try {
+         List<AsyncCacheWriter> result = new ArrayList<>();
+         Consumer<CacheWriter> getWriters = writer -> {
+            if (writer instanceof AsyncCacheWriter)
+               result.add((AsyncCacheWriter) writer);
+         };
+         nonTxWriters.forEach(getWriters);
+         txWriters.forEach(getWriters);
+         return result;
+      } finally {
+         storesMutex.readLock().unlock();
+      }
+   }
+
    @Override
    public Collection<String> getStoresAsString() {
       storesMutex.readLock().lock();
@@ -432,8 +530,34 @@ public void clearAllStores(AccessMode mode) {
                }
             }
          };
-         nonTxWriters.forEach(clearWriter);
-         txWriters.forEach(clearWriter);
+         modify(BULK_MODIFICATION_STRIPE, () -> {
+            nonTxWriters.forEach(clearWriter);
+            txWriters.forEach(clearWriter);
+            return null;
+         });
+      } finally {
+         storesMutex.readLock().unlock();
+      }
+   }
+
+   @Override
+   public void removeSegmentsFromAllStores(Set<Integer> segments, AccessMode mode) {
+      storesMutex.readLock().lock();
+      try {
+         Consumer<CacheWriter> removeSegments = writer -> {
+            // The other stores would have to visit all their entries
+            if (writer instanceof SegmentedAdvancedLoadWriteStore &&
+                  ((SegmentedAdvancedLoadWriteStore) writer).isStoredBySegment()) {
+               if (mode.canPerform(configMap.get(writer))) {
+                  ((SegmentedAdvancedLoadWriteStore) writer).removeSegments(segments);
+               }
+            }
+         };
+         modify(BULK_MODIFICATION_STRIPE, () -> {
+            nonTxWriters.forEach(removeSegments);
+            txWriters.forEach(removeSegments);
+            return null;
+         });
       } finally {
          storesMutex.readLock().unlock();
       }
@@ -443,18 +567,32 @@ public void clearAllStores(AccessMode mode) {
    public boolean deleteFromAllStores(Object key, AccessMode mode) {
       storesMutex.readLock().lock();
       try {
-         boolean removed = false;
-         for (CacheWriter w : nonTxWriters) {
-            if (mode.canPerform(configMap.get(w))) {
-               removed |= w.delete(key);
+         return modify(modificationStripe(key), () -> {
+            boolean removed = false;
+            for (CacheWriter w : nonTxWriters) {
+               if (mode.canPerform(configMap.get(w))) {
+                  removed |= w.delete(key);
+               }
             }
-         }
-         return removed;
+            return removed;
+         });
       } finally {
          storesMutex.readLock().unlock();
       }
    }
 
+   @Override
+   public CompletionStage<Boolean> deleteFromAllStoresAsync(Object key, AccessMode mode) {
+      return modifyAsync(modificationStripe(key), () -> {
+         List<CompletableFuture<Boolean>> stages = performOnAllNonTxStores(
+               writer -> mode.canPerform(configMap.get(writer)), store -> store.deleteAsync(key));
+         if (stages.size() == 1) {
+            return stages.get(0);
+         }
+         return CompletableFutures.sequence(stages).thenApply(results -> results.contains(Boolean.TRUE));
+      });
+   }
+
    @Override
    public void processOnAllStores(KeyFilter keyFilter, AdvancedCacheLoader.CacheLoaderTask task,
                                   boolean fetchValue, boolean fetchMetadata) {
@@ -486,6 +624,34 @@ public void processOnAllStores(Executor executor, KeyFilter keyFilter, AdvancedC
       }
    }
 
+   @Override
+   public <K, V> Publisher<MarshalledEntry<K, V>> publishEntries(KeyFilter<? super K> keyFilter, boolean fetchValue,
+                                                                boolean fetchMetadata, AccessMode mode) {
+      return Publishers.concat(publishOnAllStores(mode,
+            loader -> loader.publishEntries(keyFilter, fetchValue, fetchMetadata, persistenceExecutor)));
+   }
+
+   @Override
+   public <K> Publisher<K> publishKeys(KeyFilter<? super K> keyFilter, AccessMode mode) {
+      return Publishers.concat(publishOnAllStores(mode, loader -> loader.publishKeys(keyFilter, persistenceExecutor)));
+   }
+
+   private <T> List<Publisher<T>> publishOnAllStores(AccessMode mode,
+                                                     Function<AdvancedCacheLoader, Publisher<T>> publisherFunction) {
+      storesMutex.readLock().lock();
+      try {
+         List<Publisher<T>> publishers = new ArrayList<>(loaders.size());
+         for (CacheLoader loader : loaders) {
+            if (mode.canPerform(configMap.get(loader)) && loader instanceof AdvancedCacheLoader) {
+               publishers.add(publisherFunction.apply((AdvancedCacheLoader) loader));
+            }
+         }
+         return publishers;
+      } finally {
+         storesMutex.readLock().unlock();
+      }
+   }
+
    @Override
    public MarshalledEntry loadFromAllStores(Object key, InvocationContext context) {
       storesMutex.readLock().lock();
@@ -504,6 +670,33 @@ public MarshalledEntry loadFromAllStores(Object key, InvocationContext context)
       }
    }
 
+   @Override
+   public CompletionStage<MarshalledEntry> loadFromAllStoresAsync(Object key, InvocationContext context) {
+      List<NonBlockingStore> stores;
+      storesMutex.readLock().lock();
+      try {
+         stores = new ArrayList<>(loaders.size());
+         for (CacheLoader l : loaders) {
+            if (context.isOriginLocal() || !isLocalOnlyLoader(l)) {
+               stores.add(nonBlockingStores.get(l));
+            }
+         }
+      } finally {
+         storesMutex.readLock().unlock();
+      }
+      return loadFromStores(stores.iterator(), key);
+   }
+
+   private CompletionStage<MarshalledEntry> loadFromStores(Iterator<NonBlockingStore> stores, Object key) {
+      if (!stores.hasNext()) {
+         return CompletableFutures.completedNull();
+      }
+      CompletionStage<MarshalledEntry> stage = stores.next().loadAsync(key);
+      // Only query the next store if the entry was not found in this one, as the sync version does
+      return stage.thenCompose(entry -> entry != null ? CompletableFuture.completedFuture(entry) :
+            loadFromStores(stores, key));
+   }
+
    private boolean isLocalOnlyLoader(CacheLoader loader) {
       if (loader instanceof LocalOnlyCacheLoader) return true;
       if (loader instanceof DelegatingCacheLoader) {
@@ -523,35 +716,155 @@ public void writeToAllNonTxStores(MarshalledEntry marshalledEntry, AccessMode ac
    public void writeToAllNonTxStores(MarshalledEntry marshalledEntry, AccessMode accessMode, long flags) {
       storesMutex.readLock().lock();
       try {
-         nonTxWriters.stream()
-               .filter(writer -> !(writer instanceof FlagAffectedStore) || FlagAffectedStore.class.cast(writer).shouldWrite(flags))
-               .filter(writer -> accessMode.canPerform(configMap.get(writer)))
-               .forEach(writer -> writer.write(marshalledEntry));
+         modify(modificationStripe(marshalledEntry.getKey()), () -> {
+            nonTxWriters.stream()
+                  .filter(writer -> !(writer instanceof FlagAffectedStore) || FlagAffectedStore.class.cast(writer).shouldWrite(flags))
+                  .filter(writer -> accessMode.canPerform(configMap.get(writer)))
+                  .forEach(writer -> writer.write(marshalledEntry));
+            return null;
+         });
       } finally {
          storesMutex.readLock().unlock();
       }
    }
 
+   @Override
+   public CompletionStage<Void> writeToAllNonTxStoresAsync(MarshalledEntry marshalledEntry, AccessMode accessMode,
+                                                           long flags) {
+      return modifyAsync(modificationStripe(marshalledEntry.getKey()),
+            () -> allOf(performOnAllNonTxStores(writerFilter(accessMode, flags),
+                  store -> store.writeAsync(marshalledEntry))));
+   }
+
    @Override
    public void writeBatchToAllNonTxStores(Iterable<MarshalledEntry> entries, AccessMode accessMode, long flags) {
       storesMutex.readLock().lock();
       try {
-         nonTxWriters.stream()
-               .filter(writer -> !(writer instanceof FlagAffectedStore) || FlagAffectedStore.class.cast(writer).shouldWrite(flags))
-               .filter(writer -> accessMode.canPerform(configMap.get(writer)))
-               .forEach(writer -> writer.writeBatch(entries));
+         modify(BULK_MODIFICATION_STRIPE, () -> {
+            nonTxWriters.stream()
+                  .filter(writer -> !(writer instanceof FlagAffectedStore) || FlagAffectedStore.class.cast(writer).shouldWrite(flags))
+                  .filter(writer -> accessMode.canPerform(configMap.get(writer)))
+                  .forEach(writer -> writer.writeBatch(entries));
+            return null;
+         });
       } finally {
          storesMutex.readLock().unlock();
       }
    }
 
+   @Override
+   public CompletionStage<Void> writeBatchToAllNonTxStoresAsync(Iterable<MarshalledEntry> entries,
+                                                                AccessMode accessMode, long flags) {
+      return modifyAsync(BULK_MODIFICATION_STRIPE, () -> allOf(performOnAllNonTxStores(writerFilter(accessMode, flags),
+            store -> store.writeBatchAsync((Iterable) entries))));
+   }
+
+   @Override
+   public CompletionStage<Void> deleteBatchFromAllNonTxStoresAsync(Iterable<Object> keys, AccessMode accessMode,
+                                                                   long flags) {
+      return modifyAsync(BULK_MODIFICATION_STRIPE, () -> allOf(performOnAllNonTxStores(
+            writer -> accessMode.canPerform(configMap.get(writer)), store -> store.deleteBatchAsync(keys))));
+   }
+
+   private Predicate<CacheWriter> writerFilter(AccessMode accessMode, long flags) {
+      return writer -> (!(writer instanceof FlagAffectedStore) || ((FlagAffectedStore) writer).shouldWrite(flags)) &&
+            accessMode.canPerform(configMap.get(writer));
+   }
+
+   /**
+    * Starts the given operation on the non blocking view of every non transactional writer accepted by the filter.
+    * The stores lock is only held while the operations are started, not until they complete.
+    */
+   private <T> List<CompletableFuture<T>> performOnAllNonTxStores(Predicate<CacheWriter> filter,
+                                                                 Function<NonBlockingStore, CompletionStage<T>> operation) {
+      storesMutex.readLock().lock();
+      try {
+         List<CompletableFuture<T>> stages = new ArrayList<>(nonTxWriters.size());
+         for (CacheWriter writer : nonTxWriters) {
+            if (filter.test(writer)) {
+               stages.add(operation.apply(nonBlockingStores.get(writer)).toCompletableFuture());
+            }
+         }
+         return stages;
+      } finally {
+         storesMutex.readLock().unlock();
+      }
+   }
+
+   /**
+    * The stamp is -1 as long as any modification of the key's stripe is in progress, even when several of them overlap,
+    * so an entry loaded concurrently is never considered valid.
+    */
+   @Override
+   public long modificationStamp(Object key) {
+      int stripe = modificationStripe(key);
+      // The counts are read first: a modification counted here is either still in progress below or already applied
+      long bulkCount = modificationCounts.get(BULK_MODIFICATION_STRIPE);
+      long keyCount = modificationCounts.get(stripe);
+      if (modificationsInProgress.get(BULK_MODIFICATION_STRIPE) != 0 || modificationsInProgress.get(stripe) != 0) {
+         return -1;
+      }
+      // Both counters only grow, so the combination changes whenever one of them does
+      return bulkCount * (MODIFICATION_STRIPES + 1) + keyCount;
+   }
+
+   private static int modificationStripe(Object key) {
+      int h = key.hashCode();
+      return (h ^ (h >>> 16)) & (MODIFICATION_STRIPES - 1);
+   }
+
+   private void startModification(int stripe) {
+      // In progress before counted, see modificationStamp(Object)
+      modificationsInProgress.incrementAndGet(stripe);
+      modificationCounts.incrementAndGet(stripe);
+   }
+
+   private void endModification(int stripe) {
+      modificationsInProgress.decrementAndGet(stripe);
+   }
+
+   private <T> T modify(int stripe, Supplier<T> operation) {
+      startModification(stripe);
+      try {
+         return operation.get();
+      } finally {
+         endModification(stripe);
+      }
+   }
+
+   private <T> CompletionStage<T> modifyAsync(int stripe, Supplier<CompletionStage<T>> operation) {
+      startModification(stripe);
+      CompletionStage<T> stage;
+      try {
+         stage = operation.get();
+      } catch (RuntimeException | Error e) {
+         endModification(stripe);
+         throw e;
+      }
+      return stage.whenComplete((result, throwable) -> endModification(stripe));
+   }
+
+   private static CompletionStage<Void> allOf(List<CompletableFuture<Void>> stages) {
+      switch (stages.size()) {
+         case 0:
+            return CompletableFutures.completedNull();
+         case 1:
+            return stages.get(0);
+         default:
+            return CompletableFuture.allOf(stages.toArray(new CompletableFuture[stages.size()]));
+      }
+   }
+
    @Override
    public void deleteBatchFromAllNonTxStores(Iterable<Object> keys, AccessMode accessMode, long flags) {
       storesMutex.readLock().lock();
       try {
-         nonTxWriters.stream()
-               .filter(writer -> accessMode.canPerform(configMap.get(writer)))
-               .forEach(writer -> writer.deleteBatch(keys));
+         modify(BULK_MODIFICATION_STRIPE, () -> {
+            nonTxWriters.stream()
+                  .filter(writer -> accessMode.canPerform(configMap.get(writer)))
+                  .forEach(writer -> writer.deleteBatch(keys));
+            return null;
+         });
       } finally {
          storesMutex.readLock().unlock();
       }
@@ -562,12 +875,15 @@ public void prepareAllTxStores(Transaction transaction, BatchModification batchM
                                   AccessMode accessMode) throws PersistenceException {
       storesMutex.readLock().lock();
       try {
-         for (CacheWriter writer : txWriters) {
-            if (accessMode.canPerform(configMap.get(writer)) || configuration.clustering().cacheMode().equals(CacheMode.LOCAL)) {
-               TransactionalCacheWriter txWriter = (TransactionalCacheWriter) undelegate(writer);
-               txWriter.prepareWithModifications(transaction, batchModification);
+         modify(BULK_MODIFICATION_STRIPE, () -> {
+            for (CacheWriter writer : txWriters) {
+               if (accessMode.canPerform(configMap.get(writer)) || configuration.clustering().cacheMode().equals(CacheMode.LOCAL)) {
+                  TransactionalCacheWriter txWriter = (TransactionalCacheWriter) undelegate(writer);
+                  txWriter.prepareWithModifications(transaction, batchModification);
+               }
             }
-         }
+            return null;
+         });
       } finally {
          storesMutex.readLock().unlock();
       }
@@ -575,7 +891,10 @@ public void prepareAllTxStores(Transaction transaction, BatchModification batchM
 
    @Override
    public void commitAllTxStores(Transaction transaction, AccessMode accessMode) {
-      performOnAllTxStores(accessMode, writer -> writer.commit(transaction));
+      modify(BULK_MODIFICATION_STRIPE, () -> {
+         performOnAllTxStores(accessMode, writer -> writer.commit(transaction));
+         return null;
+      });
    }
 
    @Override
@@ -700,6 +1019,7 @@ private void initializeWriter(StoreConfiguration cfg, CacheWriter writer, Initia
          }
 
          configMap.put(writer, cfg);
+         nonBlockingStores.put(writer, createNonBlockingStore(writer));
       }
    }
 
@@ -709,7 +1029,20 @@ private void initializeLoader(StoreConfiguration cfg, CacheLoader loader, Initia
             loader.init(ctx);
          loaders.add(loader);
          configMap.put(loader, cfg);
+         nonBlockingStores.put(loader, createNonBlockingStore(loader));
+      }
+   }
+
+   /**
+    * Stores that don't implement {@link NonBlockingStore} themselves, including all the wrapped ones, are invoked on
+    * the store executor, and the non-blocking operations resume on the async operations executor.
+    */
+   private NonBlockingStore createNonBlockingStore(Object store) {
+      if (store instanceof NonBlockingStore) {
+         return (NonBlockingStore) store;
       }
+      return new NonBlockingStoreAdapter(store instanceof CacheLoader ? (CacheLoader) store : null,
+            store instanceof CacheWriter ? (CacheWriter) store : null, storeExecutor, asyncExecutor);
    }
 
    private void initializeBareInstance(Object instance, InitializationContextImpl ctx) {
@@ -774,8 +1107,8 @@ private boolean indexShareable() {
 
    private long getMaxEntries() {
       long ne = EvictionConfigurationBuilder.EVICTION_MAX_SIZE;
-      if (configuration.eviction().strategy().isEnabled() && configuration.eviction().type() == EvictionType.COUNT)
-         ne = configuration.eviction().maxEntries();
+      if (configuration.memory().size() > 0 && configuration.memory().evictionType() == EvictionType.COUNT)
+         ne = configuration.memory().size();
       return ne;
    }
 
@@ -873,6 +1206,8 @@ private void doRemove(Iterator<? extends Lifecycle> it, String storeType, Lifecy
             actual.stop();
          }
          it.remove();
+         nonBlockingStores.remove(wrapper);
+         configMap.remove(wrapper);
       }
    }
 
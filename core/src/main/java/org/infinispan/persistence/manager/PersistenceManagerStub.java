@@ -2,7 +2,10 @@
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.Executor;
 
 import javax.transaction.Transaction;
@@ -11,9 +14,13 @@
 import org.infinispan.factories.annotations.SurvivesRestarts;
 import org.infinispan.filter.KeyFilter;
 import org.infinispan.marshall.core.MarshalledEntry;
+import org.infinispan.persistence.async.AsyncCacheWriter;
 import org.infinispan.persistence.spi.AdvancedCacheLoader;
 import org.infinispan.persistence.spi.PersistenceException;
 import org.infinispan.persistence.support.BatchModification;
+import org.infinispan.util.concurrent.CompletableFutures;
+import org.infinispan.util.reactive.Publisher;
+import org.infinispan.util.reactive.Publishers;
 
 /**
  * @author Radim Vansa &lt;rvansa@redhat.com&gt;
@@ -51,6 +58,11 @@ public Collection<String> getStoresAsString() {
       return Collections.EMPTY_SET;
    }
 
+   @Override
+   public List<AsyncCacheWriter> getAsyncWriters() {
+      return Collections.emptyList();
+   }
+
    @Override
    public void purgeExpired() {
    }
@@ -59,11 +71,20 @@ public void purgeExpired() {
    public void clearAllStores(AccessMode mode) {
    }
 
+   @Override
+   public void removeSegmentsFromAllStores(Set<Integer> segments, AccessMode mode) {
+   }
+
    @Override
    public boolean deleteFromAllStores(Object key, AccessMode mode) {
       return false;
    }
 
+   @Override
+   public CompletionStage<Boolean> deleteFromAllStoresAsync(Object key, AccessMode mode) {
+      return CompletableFuture.completedFuture(Boolean.FALSE);
+   }
+
    @Override
    public void processOnAllStores(KeyFilter keyFilter, AdvancedCacheLoader.CacheLoaderTask task, boolean fetchValue, boolean fetchMetadata) {
    }
@@ -80,11 +101,32 @@ public void processOnAllStores(KeyFilter keyFilter, AdvancedCacheLoader.CacheLoa
    public void processOnAllStores(Executor executor, KeyFilter keyFilter, AdvancedCacheLoader.CacheLoaderTask task, boolean fetchValue, boolean fetchMetadata, AccessMode mode) {
    }
 
+   @Override
+   public <K, V> Publisher<MarshalledEntry<K, V>> publishEntries(KeyFilter<? super K> keyFilter, boolean fetchValue,
+                                                                boolean fetchMetadata, AccessMode mode) {
+      return Publishers.empty();
+   }
+
+   @Override
+   public <K> Publisher<K> publishKeys(KeyFilter<? super K> keyFilter, AccessMode mode) {
+      return Publishers.empty();
+   }
+
    @Override
    public MarshalledEntry loadFromAllStores(Object key, InvocationContext context) {
       return null;
    }
 
+   @Override
+   public CompletionStage<MarshalledEntry> loadFromAllStoresAsync(Object key, InvocationContext context) {
+      return CompletableFutures.completedNull();
+   }
+
+   @Override
+   public long modificationStamp(Object key) {
+      return 0;
+   }
+
    @Override
    public void writeToAllNonTxStores(MarshalledEntry marshalledEntry, AccessMode modes) {
    }
@@ -93,6 +135,11 @@ public void writeToAllNonTxStores(MarshalledEntry marshalledEntry, AccessMode mo
    public void writeToAllNonTxStores(MarshalledEntry marshalledEntry, AccessMode modes, long flags) {
    }
 
+   @Override
+   public CompletionStage<Void> writeToAllNonTxStoresAsync(MarshalledEntry marshalledEntry, AccessMode modes, long flags) {
+      return CompletableFutures.completedNull();
+   }
+
    @Override
    public AdvancedCacheLoader getStateTransferProvider() {
       return null;
@@ -123,7 +170,19 @@ public void rollbackAllTxStores(Transaction transaction, AccessMode accessMode)
    public void writeBatchToAllNonTxStores(Iterable<MarshalledEntry> entries, AccessMode accessMode, long flags) {
    }
 
+   @Override
+   public CompletionStage<Void> writeBatchToAllNonTxStoresAsync(Iterable<MarshalledEntry> entries, AccessMode accessMode,
+                                                                long flags) {
+      return CompletableFutures.completedNull();
+   }
+
    @Override
    public void deleteBatchFromAllNonTxStores(Iterable<Object> keys, AccessMode accessMode, long flags) {
    }
+
+   @Override
+   public CompletionStage<Void> deleteBatchFromAllNonTxStoresAsync(Iterable<Object> keys, AccessMode accessMode,
+                                                                   long flags) {
+      return CompletableFutures.completedNull();
+   }
 }
@@ -4,6 +4,9 @@
 
 import org.infinispan.filter.KeyFilter;
 import org.infinispan.marshall.core.MarshalledEntry;
+import org.infinispan.persistence.util.ProcessPublisher;
+import org.infinispan.util.reactive.Publisher;
+import org.infinispan.util.reactive.Publishers;
 
 import net.jcip.annotations.ThreadSafe;
 
@@ -40,6 +43,41 @@
     */
    void process(KeyFilter<? super K> filter, CacheLoaderTask<K, V> task, Executor executor, boolean fetchValue, boolean fetchMetadata);
 
+   /**
+    * Publishes the entries in the storage that pass the <b>filter</b>.  Unlike {@link #process(KeyFilter,
+    * CacheLoaderTask, Executor, boolean, boolean)}, entries are only read from the storage as the subscriber requests
+    * them, so the memory used while iterating over a large store is bounded by the subscriber's demand.
+    * <p>
+    * The default implementation invokes {@link #process(KeyFilter, CacheLoaderTask, Executor, boolean, boolean)} in a
+    * thread of the <b>executor</b>, which waits while the subscriber has no outstanding demand.  Implementations that
+    * are able to read their entries on demand should override this method.
+    *
+    * @param filter        to validate which entries should be published. Might be null.
+    * @param fetchValue    whether or not to fetch the value from the persistent store
+    * @param fetchMetadata whether or not to fetch the metadata from the persistent store
+    * @param executor      an external thread pool that may be used to read the entries
+    * @return a publisher of the entries, that reads them again for each subscription.  Errors communicating with the
+    * external storage are reported to the subscriber as a {@link PersistenceException}.
+    * @since 9.1
+    */
+   default Publisher<MarshalledEntry<K, V>> publishEntries(KeyFilter<? super K> filter, boolean fetchValue,
+                                                          boolean fetchMetadata, Executor executor) {
+      return new ProcessPublisher<>(this, filter, fetchValue, fetchMetadata, executor);
+   }
+
+   /**
+    * Publishes the keys in the storage that pass the <b>filter</b>, without reading their values or metadata.
+    *
+    * @param filter   to validate which keys should be published. Might be null.
+    * @param executor an external thread pool that may be used to read the keys
+    * @return a publisher of the keys
+    * @see #publishEntries(KeyFilter, boolean, boolean, Executor)
+    * @since 9.1
+    */
+   default Publisher<K> publishKeys(KeyFilter<? super K> filter, Executor executor) {
+      return Publishers.map(publishEntries(filter, false, false, executor), MarshalledEntry::getKey);
+   }
+
    /**
     * Returns the number of elements in the store.
     *
@@ -0,0 +1,83 @@
+package org.infinispan.persistence.spi;
+
+import java.util.concurrent.CompletionStage;
+
+import org.infinispan.marshall.core.MarshalledEntry;
+
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * Asynchronous counterpart of the {@link CacheLoader}, {@link CacheWriter} and {@link AdvancedCacheLoader} operations
+ * that are invoked while a command is processed.
+ * <p>
+ * A store that is able to perform its I/O without blocking the invoking thread can implement this interface in
+ * addition to {@link CacheLoader} and/or {@link CacheWriter}, which are still used for the store's lifecycle and for
+ * the operations not listed here.  The {@link org.infinispan.persistence.manager.PersistenceManager} then uses the
+ * methods of this interface while processing commands, so the invoking thread is never parked waiting for the store.
+ * Stores that don't implement this interface are invoked on a dedicated store executor through a
+ * {@link org.infinispan.persistence.support.NonBlockingStoreAdapter}.
+ * <p>
+ * Implementations must not block the invoking thread.  The returned stages may be completed by any thread, and any
+ * {@link PersistenceException} must be reported by completing the stage exceptionally.
+ *
+ * @since 9.1
+ */
+@ThreadSafe
+public interface NonBlockingStore<K, V> {
+
+   /**
+    * Asynchronous version of {@link CacheLoader#load(Object)}.
+    *
+    * @return a stage completed with the entry, or with {@code null} if the entry does not exist in the store
+    */
+   CompletionStage<MarshalledEntry<K, V>> loadAsync(Object key);
+
+   /**
+    * Asynchronous version of {@link CacheLoader#contains(Object)}.
+    *
+    * @return a stage completed with {@code true} if the entry exists in the store
+    */
+   CompletionStage<Boolean> containsAsync(Object key);
+
+   /**
+    * Asynchronous version of {@link CacheWriter#write(MarshalledEntry)}.
+    *
+    * @return a stage completed when the entry was persisted
+    */
+   CompletionStage<Void> writeAsync(MarshalledEntry<? extends K, ? extends V> entry);
+
+   /**
+    * Asynchronous version of {@link CacheWriter#delete(Object)}.
+    *
+    * @return a stage completed with {@code true} if the entry existed in the store and it was deleted
+    */
+   CompletionStage<Boolean> deleteAsync(Object key);
+
+   /**
+    * Asynchronous version of {@link CacheWriter#writeBatch(Iterable)}.
+    *
+    * @return a stage completed when all the entries were persisted
+    */
+   CompletionStage<Void> writeBatchAsync(Iterable<MarshalledEntry<? extends K, ? extends V>> entries);
+
+   /**
+    * Asynchronous version of {@link CacheWriter#deleteBatch(Iterable)}.
+    *
+    * @return a stage completed when all the keys were removed
+    */
+   CompletionStage<Void> deleteBatchAsync(Iterable<Object> keys);
+
+   /**
+    * Asynchronous version of {@link AdvancedCacheWriter#clear()}.
+    *
+    * @return a stage completed when the store was cleared
+    */
+   CompletionStage<Void> clearAsync();
+
+   /**
+    * Asynchronous version of {@link AdvancedCacheLoader#size()}.
+    *
+    * @return a stage completed with the number of entries in the store
+    */
+   CompletionStage<Integer> sizeAsync();
+}
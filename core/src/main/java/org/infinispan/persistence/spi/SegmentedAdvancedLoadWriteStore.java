@@ -0,0 +1,73 @@
+package org.infinispan.persistence.spi;
+
+import java.util.Set;
+
+import org.infinispan.filter.KeyFilter;
+import org.infinispan.marshall.core.MarshalledEntry;
+import org.infinispan.util.reactive.Publisher;
+import org.infinispan.util.reactive.Publishers;
+
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * An {@link AdvancedLoadWriteStore} that is able to operate on the entries of a subset of the segments, so that
+ * operations that only need some segments (such as state transfer or the removal of the segments that are no longer
+ * owned) don't have to read the whole store.  Stores that keep their entries partitioned by segment can implement
+ * these operations without visiting the entries of the other segments.
+ * <p>
+ * The segment of a key is determined by the {@link org.infinispan.distribution.ch.KeyPartitioner} of the cache.
+ *
+ * @since 9.1
+ */
+@ThreadSafe
+public interface SegmentedAdvancedLoadWriteStore<K, V> extends AdvancedLoadWriteStore<K, V> {
+
+   /**
+    * Returns the number of elements in the given segments of the store.
+    *
+    * @param segments the segments to count entries for
+    * @throws PersistenceException in case of an error, e.g. communicating with the external storage
+    */
+   int size(Set<Integer> segments);
+
+   /**
+    * Same as {@link #publishEntries(KeyFilter, boolean, boolean, java.util.concurrent.Executor)} except that only the
+    * entries that map to the given segments are published.
+    *
+    * @param segments      the segments to publish entries for
+    * @param filter        to validate which entries should be published. Might be null.
+    * @param fetchValue    whether or not to fetch the value from the persistent store
+    * @param fetchMetadata whether or not to fetch the metadata from the persistent store
+    * @return a publisher of the entries, that reads them again for each subscription
+    */
+   Publisher<MarshalledEntry<K, V>> publishEntries(Set<Integer> segments, KeyFilter<? super K> filter,
+                                                   boolean fetchValue, boolean fetchMetadata);
+
+   /**
+    * Same as {@link #publishKeys(KeyFilter, java.util.concurrent.Executor)} except that only the keys that map to
+    * the given segments are published.
+    *
+    * @param segments the segments to publish keys for
+    * @param filter   to validate which keys should be published. Might be null.
+    * @return a publisher of the keys
+    */
+   default Publisher<K> publishKeys(Set<Integer> segments, KeyFilter<? super K> filter) {
+      return Publishers.map(publishEntries(segments, filter, false, false), MarshalledEntry::getKey);
+   }
+
+   /**
+    * Removes all the entries that map to the given segments.  No notifications are sent for the removed entries.
+    *
+    * @param segments the segments to remove
+    * @throws PersistenceException in case of an error, e.g. communicating with the external storage
+    */
+   void removeSegments(Set<Integer> segments);
+
+   /**
+    * @return whether the entries are stored by segment, so that {@link #removeSegments(Set)} doesn't have to visit the
+    * entries of the other segments
+    */
+   default boolean isStoredBySegment() {
+      return true;
+   }
+}
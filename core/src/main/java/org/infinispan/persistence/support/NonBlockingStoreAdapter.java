@@ -0,0 +1,95 @@
+package org.infinispan.persistence.support;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+import org.infinispan.marshall.core.MarshalledEntry;
+import org.infinispan.persistence.spi.AdvancedCacheLoader;
+import org.infinispan.persistence.spi.AdvancedCacheWriter;
+import org.infinispan.persistence.spi.CacheLoader;
+import org.infinispan.persistence.spi.CacheWriter;
+import org.infinispan.persistence.spi.NonBlockingStore;
+
+/**
+ * Exposes a blocking {@link CacheLoader} and/or {@link CacheWriter} as a {@link NonBlockingStore} by invoking them on
+ * a dedicated executor, so that the threads processing commands are not blocked while the store performs its I/O.
+ * <p>
+ * The returned stages are completed on a second executor, so that the operations depending on them don't run on the
+ * threads reserved for the store, and can't prevent it from serving other requests.
+ *
+ * @since 9.1
+ */
+public class NonBlockingStoreAdapter<K, V> implements NonBlockingStore<K, V> {
+   private final CacheLoader<K, V> loader;
+   private final CacheWriter<K, V> writer;
+   private final Executor blockingExecutor;
+   private final Executor resumeExecutor;
+
+   /**
+    * @param loader the loader to invoke for the read operations, may be {@code null} if the store is only written to
+    * @param writer the writer to invoke for the write operations, may be {@code null} if the store is only read from
+    * @param blockingExecutor the executor the operations are invoked on, which should not be shared with other tasks
+    * @param resumeExecutor the executor the returned stages are completed on
+    */
+   public NonBlockingStoreAdapter(CacheLoader<K, V> loader, CacheWriter<K, V> writer, Executor blockingExecutor,
+                                  Executor resumeExecutor) {
+      this.loader = loader;
+      this.writer = writer;
+      this.blockingExecutor = blockingExecutor;
+      this.resumeExecutor = resumeExecutor;
+   }
+
+   @Override
+   public CompletionStage<MarshalledEntry<K, V>> loadAsync(Object key) {
+      return invoke(() -> loader.load(key));
+   }
+
+   @Override
+   public CompletionStage<Boolean> containsAsync(Object key) {
+      return invoke(() -> loader.contains(key));
+   }
+
+   @Override
+   public CompletionStage<Void> writeAsync(MarshalledEntry<? extends K, ? extends V> entry) {
+      return invoke(() -> writer.write(entry));
+   }
+
+   @Override
+   public CompletionStage<Boolean> deleteAsync(Object key) {
+      return invoke(() -> writer.delete(key));
+   }
+
+   @Override
+   public CompletionStage<Void> writeBatchAsync(Iterable<MarshalledEntry<? extends K, ? extends V>> entries) {
+      return invoke(() -> writer.writeBatch(entries));
+   }
+
+   @Override
+   public CompletionStage<Void> deleteBatchAsync(Iterable<Object> keys) {
+      return invoke(() -> writer.deleteBatch(keys));
+   }
+
+   @Override
+   public CompletionStage<Void> clearAsync() {
+      return invoke(() -> ((AdvancedCacheWriter) writer).clear());
+   }
+
+   @Override
+   public CompletionStage<Integer> sizeAsync() {
+      return invoke(() -> ((AdvancedCacheLoader) loader).size());
+   }
+
+   private CompletionStage<Void> invoke(Runnable operation) {
+      return invoke(() -> {
+         operation.run();
+         return null;
+      });
+   }
+
+   private <T> CompletionStage<T> invoke(Supplier<T> operation) {
+      return CompletableFuture.supplyAsync(operation, blockingExecutor)
+            .whenCompleteAsync((value, throwable) -> { }, resumeExecutor);
+   }
+}
@@ -0,0 +1,151 @@
+package org.infinispan.persistence.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+/**
+ * Groups the writes of concurrent threads into batches.
+ * <p>
+ * The first thread to write while no batch is being written becomes the leader: it writes the entries queued by all
+ * the threads, a batch at a time, until its own entry is written. It then hands the lead over to the thread of the
+ * oldest entry still queued, so that no thread keeps writing the entries of others for longer than it takes to write
+ * the entries queued before its own. The other threads wait for their entry to be written or for their turn to lead.
+ * A write without concurrent writes is written immediately by its own thread, so it doesn't wait for other writes to
+ * come.
+ * <p>
+ * If a batch fails, its entries are written one by one, so that only the threads whose entries fail get an exception.
+ *
+ * @since 9.1
+ */
+public class WriteCombiner<E> {
+   private static final Log log = LogFactory.getLog(WriteCombiner.class);
+   private static final boolean trace = log.isTraceEnabled();
+
+   private final Queue<PendingWrite<E>> queue = new ConcurrentLinkedQueue<>();
+   private final AtomicBoolean writing = new AtomicBoolean();
+   private final int maxBatchSize;
+   private final Consumer<List<E>> batchWriter;
+   private final Consumer<E> writer;
+
+   /**
+    * @param maxBatchSize the maximum number of entries written in a batch, or a non-positive value for no limit
+    * @param batchWriter writes several entries
+    * @param writer writes a single entry
+    */
+   public WriteCombiner(int maxBatchSize, Consumer<List<E>> batchWriter, Consumer<E> writer) {
+      this.maxBatchSize = maxBatchSize > 0 ? maxBatchSize : Integer.MAX_VALUE;
+      this.batchWriter = batchWriter;
+      this.writer = writer;
+   }
+
+   /**
+    * Writes the entry, possibly along with the entries of other threads, and waits until it is written.
+    */
+   public void write(E entry) {
+      PendingWrite<E> pendingWrite = new PendingWrite<>(entry);
+      queue.add(pendingWrite);
+      while (!pendingWrite.isDone()) {
+         if (writing.compareAndSet(false, true)) {
+            try {
+               List<PendingWrite<E>> batch;
+               while (!pendingWrite.isDone() && !(batch = poll()).isEmpty()) {
+                  write(batch);
+               }
+            } finally {
+               writing.set(false);
+            }
+            // Entries queued while the flag was held would wait forever if nobody was told to take the lead
+            PendingWrite<E> next = queue.peek();
+            if (next != null) {
+               next.wakeUp();
+            }
+         } else {
+            // Woken up when the entry is written or when the thread has to take the lead
+            LockSupport.park(this);
+         }
+      }
+      try {
+         pendingWrite.join();
+      } catch (CompletionException e) {
+         Throwable cause = e.getCause();
+         if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+         }
+         throw e;
+      }
+   }
+
+   /**
+    * @return the number of entries waiting to be written
+    */
+   public int pendingWrites() {
+      return queue.size();
+   }
+
+   private List<PendingWrite<E>> poll() {
+      List<PendingWrite<E>> batch = new ArrayList<>();
+      PendingWrite<E> pendingWrite;
+      while (batch.size() < maxBatchSize && (pendingWrite = queue.poll()) != null) {
+         batch.add(pendingWrite);
+      }
+      return batch;
+   }
+
+   private void write(List<PendingWrite<E>> batch) {
+      if (batch.size() > 1) {
+         List<E> entries = new ArrayList<>(batch.size());
+         for (PendingWrite<E> pendingWrite : batch) {
+            entries.add(pendingWrite.entry);
+         }
+         try {
+            batchWriter.accept(entries);
+            batch.forEach(pendingWrite -> pendingWrite.done(null));
+            return;
+         } catch (Throwable t) {
+            if (trace) {
+               log.tracef(t, "Failed to write a batch of %d entries, writing them one by one", batch.size());
+            }
+         }
+      }
+      for (PendingWrite<E> pendingWrite : batch) {
+         try {
+            writer.accept(pendingWrite.entry);
+            pendingWrite.done(null);
+         } catch (Throwable t) {
+            pendingWrite.done(t);
+         }
+      }
+   }
+
+   private static class PendingWrite<E> extends CompletableFuture<Void> {
+      final E entry;
+      final Thread thread = Thread.currentThread();
+
+      PendingWrite(E entry) {
+         this.entry = entry;
+      }
+
+      void done(Throwable throwable) {
+         if (throwable == null) {
+            complete(null);
+         } else {
+            completeExceptionally(throwable);
+         }
+         wakeUp();
+      }
+
+      void wakeUp() {
+         LockSupport.unpark(thread);
+      }
+   }
+}
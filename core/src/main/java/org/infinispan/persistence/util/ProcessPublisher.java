@@ -0,0 +1,187 @@
+package org.infinispan.persistence.util;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.infinispan.filter.KeyFilter;
+import org.infinispan.marshall.core.MarshalledEntry;
+import org.infinispan.persistence.spi.AdvancedCacheLoader;
+import org.infinispan.util.concurrent.WithinThreadExecutor;
+import org.infinispan.util.reactive.Publisher;
+import org.infinispan.util.reactive.Subscriber;
+import org.infinispan.util.reactive.Subscription;
+
+/**
+ * Publishes the entries of an {@link AdvancedCacheLoader} through
+ * {@link AdvancedCacheLoader#process(KeyFilter, AdvancedCacheLoader.CacheLoaderTask, Executor, boolean, boolean)}.
+ * <p>
+ * The iteration is started in a thread of the executor when the subscriber first requests entries.  The entries are
+ * queued and published by whichever thread finds outstanding demand, either the iterating thread or a thread
+ * requesting more entries, and never concurrently.  The iterating thread waits until its entry is published, so no
+ * more than one entry is queued.  If the executor runs the iteration in the requesting thread instead, as the
+ * persistence executor does when all its threads are busy, waiting would block the subscriber forever, so then the
+ * entries are queued until they are requested.
+ *
+ * @since 9.1
+ */
+public class ProcessPublisher<K, V> implements Publisher<MarshalledEntry<K, V>> {
+   private final AdvancedCacheLoader<K, V> loader;
+   private final KeyFilter<? super K> filter;
+   private final boolean fetchValue;
+   private final boolean fetchMetadata;
+   private final Executor executor;
+
+   public ProcessPublisher(AdvancedCacheLoader<K, V> loader, KeyFilter<? super K> filter, boolean fetchValue,
+                           boolean fetchMetadata, Executor executor) {
+      this.loader = loader;
+      this.filter = filter;
+      this.fetchValue = fetchValue;
+      this.fetchMetadata = fetchMetadata;
+      this.executor = executor;
+   }
+
+   @Override
+   public void subscribe(Subscriber<? super MarshalledEntry<K, V>> subscriber) {
+      subscriber.onSubscribe(new ProcessSubscription(subscriber));
+   }
+
+   private class ProcessSubscription implements Subscription, AdvancedCacheLoader.CacheLoaderTask<K, V> {
+      private final Subscriber<? super MarshalledEntry<K, V>> subscriber;
+      private final Queue<MarshalledEntry<K, V>> queue = new ConcurrentLinkedQueue<>();
+      private final AtomicLong requested = new AtomicLong();
+      private final AtomicBoolean started = new AtomicBoolean();
+      // Number of publish() invocations that still have to run, only the first one publishes
+      private final AtomicInteger publishers = new AtomicInteger();
+      // Signalled when the queue is emptied or the subscription cancelled
+      private final Lock lock = new ReentrantLock();
+      private final Condition published = lock.newCondition();
+      private volatile boolean cancelled;
+      private volatile boolean done;
+      private volatile Throwable error;
+      // The thread submitting the iteration to the executor, while it does
+      private volatile Thread startingThread;
+      // Whether the iteration runs in the thread that first requested entries
+      private volatile boolean inRequestingThread;
+
+      ProcessSubscription(Subscriber<? super MarshalledEntry<K, V>> subscriber) {
+         this.subscriber = subscriber;
+      }
+
+      @Override
+      public void request(long n) {
+         if (n <= 0) {
+            throw new IllegalArgumentException("The number of requested elements must be positive, was " + n);
+         }
+         requested.getAndUpdate(r -> {
+            long total = r + n;
+            return total < 0 ? Long.MAX_VALUE : total;
+         });
+         if (!cancelled && started.compareAndSet(false, true)) {
+            startingThread = Thread.currentThread();
+            executor.execute(this::iterate);
+            startingThread = null;
+         }
+         publish();
+      }
+
+      @Override
+      public void cancel() {
+         cancelled = true;
+         publish();
+      }
+
+      private void iterate() {
+         inRequestingThread = Thread.currentThread() == startingThread;
+         try {
+            // Iterate in this thread only, it is the one waiting for its entries to be published
+            loader.process(filter, this, new WithinThreadExecutor(), fetchValue, fetchMetadata);
+         } catch (Throwable t) {
+            error = t;
+         }
+         done = true;
+         publish();
+      }
+
+      @Override
+      public void processEntry(MarshalledEntry<K, V> marshalledEntry, AdvancedCacheLoader.TaskContext taskContext)
+            throws InterruptedException {
+         if (cancelled) {
+            taskContext.stop();
+            return;
+         }
+         queue.add(marshalledEntry);
+         publish();
+         if (inRequestingThread) {
+            // The subscriber may only request more entries after this thread returns
+            return;
+         }
+         lock.lock();
+         try {
+            while (!cancelled && !queue.isEmpty()) {
+               published.await();
+            }
+         } finally {
+            lock.unlock();
+         }
+         if (cancelled) {
+            taskContext.stop();
+         }
+      }
+
+      /**
+       * Publishes the queued entries while there is demand, and completes the subscriber once the iteration is done and
+       * all of them are published.  If another thread is publishing, it publishes for this invocation as well, so the
+       * subscriber is never invoked concurrently nor while holding a lock.
+       */
+      private void publish() {
+         if (publishers.getAndIncrement() != 0) {
+            return;
+         }
+         int missed = 1;
+         do {
+            while (!cancelled && requested.get() != 0) {
+               MarshalledEntry<K, V> entry = queue.poll();
+               if (entry == null) {
+                  break;
+               }
+               if (requested.get() != Long.MAX_VALUE) {
+                  requested.decrementAndGet();
+               }
+               subscriber.onNext(entry);
+            }
+            if (cancelled) {
+               queue.clear();
+            } else if (done && queue.isEmpty()) {
+               // Nothing is published after the subscriber is completed
+               cancelled = true;
+               Throwable t = error;
+               if (t != null) {
+                  subscriber.onError(t);
+               } else {
+                  subscriber.onComplete();
+               }
+            }
+            if (queue.isEmpty()) {
+               signalPublished();
+            }
+            missed = publishers.addAndGet(-missed);
+         } while (missed != 0);
+      }
+
+      private void signalPublished() {
+         lock.lock();
+         try {
+            published.signalAll();
+         } finally {
+            lock.unlock();
+         }
+      }
+   }
+}
@@ -2,6 +2,7 @@
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -18,11 +19,14 @@
 import org.infinispan.commons.util.SmallIntSet;
 import org.infinispan.container.DataContainer;
 import org.infinispan.container.InternalEntryFactory;
+import org.infinispan.container.SegmentedDataContainer;
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.distribution.ch.KeyPartitioner;
+import org.infinispan.filter.KeyFilter;
 import org.infinispan.marshall.core.MarshalledEntry;
 import org.infinispan.persistence.manager.PersistenceManager;
 import org.infinispan.persistence.spi.AdvancedCacheLoader;
+import org.infinispan.persistence.spi.SegmentedAdvancedLoadWriteStore;
 import org.infinispan.remoting.rpc.ResponseMode;
 import org.infinispan.remoting.rpc.RpcManager;
 import org.infinispan.remoting.rpc.RpcOptions;
@@ -31,6 +35,8 @@
 import org.infinispan.util.concurrent.WithinThreadExecutor;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
+import org.infinispan.util.reactive.Publisher;
+import org.infinispan.util.reactive.Publishers;
 
 /**
  * Outbound state transfer task. Pushes data segments to another cluster member on request. Instances of
@@ -165,34 +171,53 @@ public int getTopologyId() {
    public void run() {
       try {
          // send data container entries
-         for (InternalCacheEntry ice : dataContainer) {
-            Object key = ice.getKey();  //todo [anistor] should we check for expired entries?
-            int segmentId = keyPartitioner.getSegment(key);
-            if (segments.contains(segmentId) && !ice.isL1Entry()) {
-               InternalCacheEntry entry = mapEntryFromDataContainer.apply(ice, entryFactory);
-               if (entry != null) {
-                  sendEntry(entry, segmentId);
+         if (dataContainer instanceof SegmentedDataContainer) {
+            // only visit the entries of the requested segments
+            SegmentedDataContainer<Object, Object> segmentedDataContainer = (SegmentedDataContainer<Object, Object>) dataContainer;
+            for (Integer segmentId : segments) {
+               Iterator<InternalCacheEntry<Object, Object>> iterator =
+                     segmentedDataContainer.iterator(Collections.singleton(segmentId));
+               while (iterator.hasNext()) {
+                  sendDataContainerEntry(iterator.next(), segmentId);
+               }
+            }
+         } else {
+            for (InternalCacheEntry ice : dataContainer) {
+               Object key = ice.getKey();  //todo [anistor] should we check for expired entries?
+               int segmentId = keyPartitioner.getSegment(key);
+               if (segments.contains(segmentId)) {
+                  sendDataContainerEntry(ice, segmentId);
                }
             }
          }
 
-         AdvancedCacheLoader stProvider = persistenceManager.getStateTransferProvider();
+         AdvancedCacheLoader<Object, Object> stProvider = persistenceManager.getStateTransferProvider();
          if (stProvider != null) {
             try {
-               AdvancedCacheLoader.CacheLoaderTask task = (me, taskContext) -> {
-                  int segmentId = keyPartitioner.getSegment(me.getKey());
-                  if (segments.contains(segmentId)) {
-                     try {
-                        InternalCacheEntry entry = mapEntryFromStore.apply(me, entryFactory);
-                        if (entry != null) {
-                           sendEntry(entry, segmentId);
-                        }
-                     } catch (CacheException e) {
-                        log.failedLoadingValueFromCacheStore(me.getKey(), e);
+               Publisher<MarshalledEntry<Object, Object>> publisher;
+               if (stProvider instanceof SegmentedAdvancedLoadWriteStore) {
+                  // only read the entries of the requested segments
+                  KeyFilter<Object> filter = k -> !dataContainer.containsKey(k);
+                  publisher = ((SegmentedAdvancedLoadWriteStore<Object, Object>) stProvider)
+                        .publishEntries(segments, filter, true, true);
+               } else {
+                  // Check the segment before the entry is read, so the values of other segments are never loaded
+                  KeyFilter<Object> filter = k -> segments.contains(keyPartitioner.getSegment(k)) &&
+                        !dataContainer.containsKey(k);
+                  // Stores that can't read their entries on demand iterate in this thread, queueing the entries beyond
+                  // the demand, but that is fine because the entries are sent synchronously
+                  publisher = stProvider.publishEntries(filter, true, true, new WithinThreadExecutor());
+               }
+               Publishers.forEach(publisher, chunkSize, me -> {
+                  try {
+                     InternalCacheEntry entry = mapEntryFromStore.apply(me, entryFactory);
+                     if (entry != null) {
+                        sendEntry(entry, keyPartitioner.getSegment(me.getKey()));
                      }
+                  } catch (CacheException e) {
+                     log.failedLoadingValueFromCacheStore(me.getKey(), e);
                   }
-               };
-               stProvider.process(k -> !dataContainer.containsKey(k), task, new WithinThreadExecutor(), true, true);
+               });
             } catch (CacheException e) {
                log.failedLoadingKeysFromCacheStore(e);
             }
@@ -216,6 +241,15 @@ public void run() {
       }
    }
 
+   private void sendDataContainerEntry(InternalCacheEntry ice, int segmentId) {
+      if (!ice.isL1Entry()) {
+         InternalCacheEntry entry = mapEntryFromDataContainer.apply(ice, entryFactory);
+         if (entry != null) {
+            sendEntry(entry, segmentId);
+         }
+      }
+   }
+
    private void sendEntry(InternalCacheEntry ice, int segmentId) {
       // send if we have a full chunk
       if (accumulatedEntries >= chunkSize) {
@@ -45,6 +45,7 @@
 import org.infinispan.configuration.cache.PartitionHandlingConfiguration;
 import org.infinispan.conflict.impl.InternalConflictManager;
 import org.infinispan.container.DataContainer;
+import org.infinispan.container.SegmentedDataContainer;
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.context.InvocationContext;
 import org.infinispan.context.InvocationContextFactory;
@@ -340,6 +341,10 @@ public void onTopologyUpdate(final CacheTopology cacheTopology, final boolean is
          distributionManager.setCacheTopology(cacheTopology);
          conflictManager.onTopologyUpdate(distributionManager.getCacheTopology());
       }
+      if (dataContainer instanceof SegmentedDataContainer) {
+         // Segments removed while they were not owned accept writes again once they are owned
+         ((SegmentedDataContainer<Object, Object>) dataContainer).addSegments(getOwnedSegments(newWriteCh));
+      }
 
       // We need to track changes so that user puts during conflict resolution are prioritised over MergePolicy updates
       // Tracking is stopped once the subsequent rebalance completes
@@ -1002,13 +1007,18 @@ protected void removeStaleData(final Set<Integer> removedSegments) throws Interr
       // Keys that we used to own, and need to be removed from the data container AND the cache stores
       final ConcurrentHashSet<Object> keysToRemove = new ConcurrentHashSet<>();
 
-      dataContainer.executeTask(KeyFilter.ACCEPT_ALL_FILTER, (o, ice) -> {
-         Object key = ice.getKey();
-         int keySegment = getSegment(key);
-         if (removedSegments.contains(keySegment)) {
-            keysToRemove.add(key);
-         }
-      });
+      if (dataContainer instanceof SegmentedDataContainer) {
+         ((SegmentedDataContainer<Object, Object>) dataContainer).iteratorIncludingExpired(removedSegments)
+               .forEachRemaining(ice -> keysToRemove.add(ice.getKey()));
+      } else {
+         dataContainer.executeTask(KeyFilter.ACCEPT_ALL_FILTER, (o, ice) -> {
+            Object key = ice.getKey();
+            int keySegment = getSegment(key);
+            if (removedSegments.contains(keySegment)) {
+               keysToRemove.add(key);
+            }
+         });
+      }
 
       // gather all keys from cache store that belong to the segments that are being removed/moved to L1
       if (!removedSegments.isEmpty()) {
@@ -1038,6 +1048,18 @@ protected void removeStaleData(final Set<Integer> removedSegments) throws Interr
             log.failedToInvalidateKeys(e);
          }
       }
+
+      if (dataContainer instanceof SegmentedDataContainer) {
+         // The entries have been invalidated, release the maps of the segments we no longer own
+         ((SegmentedDataContainer<Object, Object>) dataContainer).removeSegments(removedSegments);
+      }
+
+      try {
+         // Stores that keep their entries per segment can also release the storage of the removed segments
+         persistenceManager.removeSegmentsFromAllStores(removedSegments, PRIVATE);
+      } catch (CacheException e) {
+         log.failedToInvalidateKeys(e);
+      }
    }
 
    /**
@@ -5,6 +5,7 @@
 import java.util.BitSet;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
 
@@ -33,12 +34,24 @@
    private final Cache<K, V> cache;
    private final ConsistentHash hash;
    private final Supplier<Stream<CacheEntry<K, V>>> supplier;
+   private final Function<Set<Integer>, Stream<CacheEntry<K, V>>> segmentedSupplier;
    private final Wrapper wrapper = new ByteArrayWrapper();
 
    public EntryStreamSupplier(Cache<K, V> cache, ConsistentHash hash, Supplier<Stream<CacheEntry<K, V>>> supplier) {
+      this(cache, hash, supplier, null);
+   }
+
+   /**
+    * Same as the other constructor except that a segment aware supplier can be provided, which is used instead of
+    * {@code supplier} when only some segments are requested, so that the other segments are not iterated over.
+    * @param segmentedSupplier supplier that only returns the elements of the given segments, may be null
+    */
+   public EntryStreamSupplier(Cache<K, V> cache, ConsistentHash hash, Supplier<Stream<CacheEntry<K, V>>> supplier,
+         Function<Set<Integer>, Stream<CacheEntry<K, V>>> segmentedSupplier) {
       this.cache = cache;
       this.hash = hash;
       this.supplier = supplier;
+      this.segmentedSupplier = segmentedSupplier;
    }
 
    @Override
@@ -63,6 +76,13 @@ public Stream<CacheEntry<K, V>> buildStream(Set<Integer> segmentsToFilter, Set<?
                .map(o -> toStorage(o, encoder, wrapper))
                .map(advancedCache::getCacheEntry)
                .filter(e -> e != null);
+      } else if (segmentsToFilter != null && segmentedSupplier != null) {
+         if (trace) {
+            log.tracef("Retrieving only segments %s", segmentsToFilter);
+         }
+         // The supplier skips the other segments of the container, but the container's segments are not necessarily
+         // the ones of the consistent hash, so the elements are still filtered below
+         stream = segmentedSupplier.apply(segmentsToFilter);
       } else {
          stream = supplier.get();
       }
@@ -2,6 +2,7 @@
 
 import java.util.BitSet;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
 
@@ -27,11 +28,23 @@
    private final Cache<K, V> cache;
    private final ConsistentHash hash;
    private final Supplier<Stream<K>> supplier;
+   private final Function<Set<Integer>, Stream<K>> segmentedSupplier;
 
    public KeyStreamSupplier(Cache<K, V> cache, ConsistentHash hash, Supplier<Stream<K>> supplier) {
+      this(cache, hash, supplier, null);
+   }
+
+   /**
+    * Same as the other constructor except that a segment aware supplier can be provided, which is used instead of
+    * {@code supplier} when only some segments are requested, so that the other segments are not iterated over.
+    * @param segmentedSupplier supplier that only returns the elements of the given segments, may be null
+    */
+   public KeyStreamSupplier(Cache<K, V> cache, ConsistentHash hash, Supplier<Stream<K>> supplier,
+         Function<Set<Integer>, Stream<K>> segmentedSupplier) {
       this.cache = cache;
       this.hash = hash;
       this.supplier = supplier;
+      this.segmentedSupplier = segmentedSupplier;
    }
 
    @Override
@@ -49,6 +62,13 @@ public Stream<K> buildStream(Set<Integer> segmentsToFilter, Set<?> keysToFilter)
          stream = (Stream<K>) keysToFilter.stream()
                .map(k -> cache1.keyToStorage(k))
                .filter(advancedCache::containsKey);
+      } else if (segmentsToFilter != null && segmentedSupplier != null) {
+         if (trace) {
+            log.tracef("Retrieving only segments %s", segmentsToFilter);
+         }
+         // The supplier skips the other segments of the container, but the container's segments are not necessarily
+         // the ones of the consistent hash, so the elements are still filtered below
+         stream = segmentedSupplier.apply(segmentsToFilter);
       } else {
          stream = supplier.get();
       }
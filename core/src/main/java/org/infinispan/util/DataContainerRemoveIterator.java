@@ -23,11 +23,15 @@ public DataContainerRemoveIterator(Cache<K, V> cache) {
    }
 
    public DataContainerRemoveIterator(Cache<K, V> cache, DataContainer<K, V> dataContainer) {
-      if (cache == null || dataContainer == null) {
+      this(cache, dataContainer.iterator());
+   }
+
+   public DataContainerRemoveIterator(Cache<K, V> cache, Iterator<InternalCacheEntry<K, V>> dataContainerIterator) {
+      if (cache == null || dataContainerIterator == null) {
          throw new NullPointerException();
       }
       this.cache = cache;
-      this.dataContainerIterator = dataContainer.iterator();
+      this.dataContainerIterator = dataContainerIterator;
    }
 
    @Override
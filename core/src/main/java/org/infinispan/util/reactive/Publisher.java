@@ -0,0 +1,26 @@
+package org.infinispan.util.reactive;
+
+/**
+ * A provider of a potentially unbounded number of elements, which are only published as they are requested by a
+ * {@link Subscriber}.
+ * <p>
+ * This interface, {@link Subscriber} and {@link Subscription} have the same methods and contract as the Reactive
+ * Streams API (and the {@code java.util.concurrent.Flow} interfaces in JDK 9), so they can be adapted to any other
+ * implementation trivially.
+ *
+ * @param <T> the type of the published elements
+ * @since 9.1
+ */
+@FunctionalInterface
+public interface Publisher<T> {
+
+   /**
+    * Requests the publisher to start publishing elements to the given subscriber.  The publisher invokes
+    * {@link Subscriber#onSubscribe(Subscription)} first, and then only publishes as many elements as the subscriber
+    * requests through {@link Subscription#request(long)}.  A publisher may be subscribed to multiple times, each
+    * subscription then receives all the elements again.
+    *
+    * @param subscriber the subscriber that will receive the elements
+    */
+   void subscribe(Subscriber<? super T> subscriber);
+}
@@ -0,0 +1,550 @@
+package org.infinispan.util.reactive;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.infinispan.commons.CacheException;
+import org.infinispan.commons.util.CloseableIterator;
+import org.infinispan.util.concurrent.TimeoutException;
+
+/**
+ * Static factory and utility methods for {@link Publisher}s.
+ *
+ * @since 9.1
+ */
+public final class Publishers {
+   private Publishers() {
+   }
+
+   /**
+    * @return a publisher that completes without publishing any element
+    */
+   public static <T> Publisher<T> empty() {
+      return subscriber -> {
+         subscriber.onSubscribe(EmptySubscription.INSTANCE);
+         subscriber.onComplete();
+      };
+   }
+
+   /**
+    * @return a publisher that publishes the elements of the given publisher transformed by the function
+    */
+   public static <T, R> Publisher<R> map(Publisher<T> publisher, Function<? super T, ? extends R> function) {
+      return subscriber -> publisher.subscribe(new MapSubscriber<>(subscriber, function));
+   }
+
+   /**
+    * Returns a publisher that publishes all the elements of the given publishers, in order.  A publisher is only
+    * subscribed to once all the elements of the previous one have been published.
+    */
+   public static <T> Publisher<T> concat(List<? extends Publisher<? extends T>> publishers) {
+      if (publishers.isEmpty()) {
+         return empty();
+      }
+      return subscriber -> new ConcatSubscription<T>(subscriber, publishers.iterator()).start();
+   }
+
+   /**
+    * Returns a publisher that publishes the elements of an iterator, in the thread that requests them.  The iterator is
+    * obtained from the supplier on the first request of each subscription, and it is closed when the subscription
+    * completes or is cancelled.
+    */
+   public static <T> Publisher<T> fromIterator(Supplier<? extends CloseableIterator<? extends T>> supplier) {
+      return subscriber -> subscriber.onSubscribe(new IteratorSubscription<>(subscriber, supplier));
+   }
+
+   /**
+    * Returns an iterator over the elements of the given publisher.  The publisher is only subscribed to when the
+    * iterator is first used, and then the iterator requests <b>batchSize</b> elements at a time, so that it never holds
+    * more than that many elements that weren't returned yet.  Closing the iterator cancels the subscription.
+    *
+    * @param publisher the publisher to subscribe to
+    * @param batchSize how many elements are requested at a time
+    * @param timeout how long to wait for the publisher to publish an element before throwing a
+    *                {@link TimeoutException}
+    * @param unit the unit of <b>timeout</b>
+    */
+   public static <T> CloseableIterator<T> toIterator(Publisher<T> publisher, int batchSize, long timeout,
+                                                     TimeUnit unit) {
+      return new PublisherIterator<>(publisher, batchSize, unit.toNanos(timeout));
+   }
+
+   /**
+    * Invokes the consumer for each element of the given publisher, requesting <b>batchSize</b> elements at a time, and
+    * waits until all of them have been consumed.  The consumer is invoked in the thread publishing the elements, which
+    * may be the invoking thread.
+    *
+    * @throws CacheException if the publisher or the consumer failed, unless the failure is already a
+    *                        {@link RuntimeException}
+    */
+   public static <T> void forEach(Publisher<T> publisher, int batchSize, Consumer<? super T> consumer) {
+      ForEachSubscriber<T> subscriber = new ForEachSubscriber<>(batchSize, consumer);
+      publisher.subscribe(subscriber);
+      try {
+         subscriber.done.get();
+      } catch (InterruptedException e) {
+         subscriber.subscription.cancel();
+         Thread.currentThread().interrupt();
+         throw new CacheException(e);
+      } catch (ExecutionException e) {
+         Throwable cause = e.getCause();
+         throw cause instanceof RuntimeException ? (RuntimeException) cause : new CacheException(cause);
+      }
+   }
+
+   static long addCapped(long requested, long n) {
+      long result = requested + n;
+      return result < 0 ? Long.MAX_VALUE : result;
+   }
+
+   static void checkRequest(long n) {
+      if (n <= 0) {
+         throw new IllegalArgumentException("The number of requested elements must be positive, was " + n);
+      }
+   }
+
+   private enum EmptySubscription implements Subscription {
+      INSTANCE;
+
+      @Override
+      public void request(long n) {
+      }
+
+      @Override
+      public void cancel() {
+      }
+   }
+
+   private static class MapSubscriber<T, R> implements Subscriber<T> {
+      private final Subscriber<? super R> subscriber;
+      private final Function<? super T, ? extends R> function;
+      private Subscription subscription;
+      private boolean failed;
+
+      MapSubscriber(Subscriber<? super R> subscriber, Function<? super T, ? extends R> function) {
+         this.subscriber = subscriber;
+         this.function = function;
+      }
+
+      @Override
+      public void onSubscribe(Subscription subscription) {
+         this.subscription = subscription;
+         subscriber.onSubscribe(subscription);
+      }
+
+      @Override
+      public void onNext(T item) {
+         if (failed) {
+            return;
+         }
+         R mapped;
+         try {
+            mapped = function.apply(item);
+         } catch (Throwable t) {
+            failed = true;
+            subscription.cancel();
+            subscriber.onError(t);
+            return;
+         }
+         subscriber.onNext(mapped);
+      }
+
+      @Override
+      public void onError(Throwable throwable) {
+         if (!failed) {
+            subscriber.onError(throwable);
+         }
+      }
+
+      @Override
+      public void onComplete() {
+         if (!failed) {
+            subscriber.onComplete();
+         }
+      }
+   }
+
+   /**
+    * Subscribes to each publisher after the previous one completed, passing the outstanding demand of the subscriber
+    * to each of them.
+    */
+   private static class ConcatSubscription<T> implements Subscription, Subscriber<T> {
+      private final Subscriber<? super T> subscriber;
+      private final Iterator<? extends Publisher<? extends T>> publishers;
+      // All guarded by this
+      private Subscription current;
+      private long requested;
+      private boolean cancelled;
+
+      ConcatSubscription(Subscriber<? super T> subscriber, Iterator<? extends Publisher<? extends T>> publishers) {
+         this.subscriber = subscriber;
+         this.publishers = publishers;
+      }
+
+      void start() {
+         subscriber.onSubscribe(this);
+         subscribeNext();
+      }
+
+      private void subscribeNext() {
+         synchronized (this) {
+            if (cancelled) {
+               return;
+            }
+            current = null;
+         }
+         if (publishers.hasNext()) {
+            publishers.next().subscribe(this);
+         } else {
+            subscriber.onComplete();
+         }
+      }
+
+      @Override
+      public void onSubscribe(Subscription subscription) {
+         boolean wasCancelled;
+         long outstanding;
+         synchronized (this) {
+            wasCancelled = cancelled;
+            current = subscription;
+            outstanding = requested;
+         }
+         if (wasCancelled) {
+            subscription.cancel();
+         } else if (outstanding > 0) {
+            subscription.request(outstanding);
+         }
+      }
+
+      @Override
+      public void onNext(T item) {
+         synchronized (this) {
+            if (requested != Long.MAX_VALUE) {
+               requested--;
+            }
+         }
+         subscriber.onNext(item);
+      }
+
+      @Override
+      public void onError(Throwable throwable) {
+         subscriber.onError(throwable);
+      }
+
+      @Override
+      public void onComplete() {
+         subscribeNext();
+      }
+
+      @Override
+      public void request(long n) {
+         checkRequest(n);
+         Subscription subscription;
+         synchronized (this) {
+            requested = addCapped(requested, n);
+            subscription = current;
+         }
+         // If the current publisher completes concurrently, the next one receives the demand in onSubscribe
+         if (subscription != null) {
+            subscription.request(n);
+         }
+      }
+
+      @Override
+      public void cancel() {
+         Subscription subscription;
+         synchronized (this) {
+            cancelled = true;
+            subscription = current;
+         }
+         if (subscription != null) {
+            subscription.cancel();
+         }
+      }
+   }
+
+   /**
+    * Publishes the elements of the iterator in the thread that increases the demand from 0, any other thread requesting
+    * elements concurrently only adds to the demand.
+    */
+   private static class IteratorSubscription<T> implements Subscription {
+      private final Subscriber<? super T> subscriber;
+      private final Supplier<? extends CloseableIterator<? extends T>> supplier;
+      private final AtomicLong requested = new AtomicLong();
+      // Only accessed by the thread publishing the elements
+      private CloseableIterator<? extends T> iterator;
+      private volatile boolean done;
+
+      IteratorSubscription(Subscriber<? super T> subscriber,
+                           Supplier<? extends CloseableIterator<? extends T>> supplier) {
+         this.subscriber = subscriber;
+         this.supplier = supplier;
+      }
+
+      @Override
+      public void request(long n) {
+         checkRequest(n);
+         if (addRequested(n) == 0) {
+            publish();
+         }
+      }
+
+      @Override
+      public void cancel() {
+         done = true;
+         // Close the iterator now unless another thread is publishing, then that thread closes it
+         if (addRequested(1) == 0) {
+            publish();
+         }
+      }
+
+      private long addRequested(long n) {
+         return requested.getAndUpdate(r -> addCapped(r, n));
+      }
+
+      private void publish() {
+         long demand = requested.get();
+         long published = 0;
+         while (true) {
+            while (published != demand) {
+               if (done) {
+                  close();
+                  return;
+               }
+               T next;
+               try {
+                  if (iterator == null) {
+                     iterator = supplier.get();
+                  }
+                  if (!iterator.hasNext()) {
+                     done = true;
+                     close();
+                     subscriber.onComplete();
+                     return;
+                  }
+                  next = iterator.next();
+               } catch (Throwable t) {
+                  done = true;
+                  close();
+                  subscriber.onError(t);
+                  return;
+               }
+               subscriber.onNext(next);
+               published++;
+            }
+            if (done) {
+               close();
+               return;
+            }
+            demand = requested.addAndGet(-published);
+            if (demand == 0) {
+               return;
+            }
+            published = 0;
+         }
+      }
+
+      private void close() {
+         if (iterator != null) {
+            iterator.close();
+            iterator = null;
+         }
+      }
+   }
+
+   private static class ForEachSubscriber<T> implements Subscriber<T> {
+      private final int batchSize;
+      private final Consumer<? super T> consumer;
+      private final CompletableFuture<Void> done = new CompletableFuture<>();
+      private volatile Subscription subscription;
+      private int consumed;
+
+      ForEachSubscriber(int batchSize, Consumer<? super T> consumer) {
+         this.batchSize = batchSize;
+         this.consumer = consumer;
+      }
+
+      @Override
+      public void onSubscribe(Subscription subscription) {
+         this.subscription = subscription;
+         subscription.request(batchSize);
+      }
+
+      @Override
+      public void onNext(T item) {
+         if (done.isDone()) {
+            return;
+         }
+         try {
+            consumer.accept(item);
+         } catch (Throwable t) {
+            subscription.cancel();
+            done.completeExceptionally(t);
+            return;
+         }
+         if (++consumed == batchSize) {
+            consumed = 0;
+            subscription.request(batchSize);
+         }
+      }
+
+      @Override
+      public void onError(Throwable throwable) {
+         done.completeExceptionally(throwable);
+      }
+
+      @Override
+      public void onComplete() {
+         done.complete(null);
+      }
+   }
+
+   private static class PublisherIterator<T> implements CloseableIterator<T>, Subscriber<T> {
+      private final Publisher<T> publisher;
+      private final int batchSize;
+      private final long timeoutNanos;
+      // Holds at most batchSize elements, as more are only requested once a whole batch was returned
+      private final Queue<T> queue = new ConcurrentLinkedQueue<>();
+      private final Lock lock = new ReentrantLock();
+      private final Condition published = lock.newCondition();
+      private volatile Subscription subscription;
+      private volatile boolean completed;
+      private volatile Throwable error;
+      // Only accessed by the thread iterating
+      private boolean subscribed;
+      private boolean closed;
+      private int returned;
+      private T next;
+
+      PublisherIterator(Publisher<T> publisher, int batchSize, long timeoutNanos) {
+         this.publisher = publisher;
+         this.batchSize = batchSize;
+         this.timeoutNanos = timeoutNanos;
+      }
+
+      @Override
+      public void onSubscribe(Subscription subscription) {
+         this.subscription = subscription;
+         subscription.request(batchSize);
+      }
+
+      @Override
+      public void onNext(T item) {
+         queue.offer(item);
+         signal();
+      }
+
+      @Override
+      public void onError(Throwable throwable) {
+         error = throwable;
+         completed = true;
+         signal();
+      }
+
+      @Override
+      public void onComplete() {
+         completed = true;
+         signal();
+      }
+
+      private void signal() {
+         lock.lock();
+         try {
+            published.signalAll();
+         } finally {
+            lock.unlock();
+         }
+      }
+
+      @Override
+      public boolean hasNext() {
+         if (next == null && !closed) {
+            if (!subscribed) {
+               subscribed = true;
+               publisher.subscribe(this);
+            }
+            next = poll();
+         }
+         return next != null;
+      }
+
+      @Override
+      public T next() {
+         if (!hasNext()) {
+            throw new NoSuchElementException();
+         }
+         T result = next;
+         next = null;
+         return result;
+      }
+
+      private T poll() {
+         T item = queue.poll();
+         if (item == null) {
+            item = await();
+            if (item == null) {
+               return null;
+            }
+         }
+         if (++returned == batchSize) {
+            returned = 0;
+            subscription.request(batchSize);
+         }
+         return item;
+      }
+
+      private T await() {
+         long remaining = timeoutNanos;
+         lock.lock();
+         try {
+            T item;
+            while ((item = queue.poll()) == null) {
+               if (completed) {
+                  // The last elements may have been published right before completing
+                  item = queue.poll();
+                  if (item == null && error != null) {
+                     throw error instanceof RuntimeException ? (RuntimeException) error : new CacheException(error);
+                  }
+                  return item;
+               }
+               if (remaining <= 0) {
+                  throw new TimeoutException("Couldn't retrieve an element in the allotted timeout: " +
+                        TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + " ms");
+               }
+               remaining = published.awaitNanos(remaining);
+            }
+            return item;
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CacheException(e);
+         } finally {
+            lock.unlock();
+         }
+      }
+
+      @Override
+      public void close() {
+         if (!closed) {
+            closed = true;
+            Subscription subscription = this.subscription;
+            if (subscription != null && !completed) {
+               subscription.cancel();
+            }
+            queue.clear();
+         }
+      }
+   }
+}
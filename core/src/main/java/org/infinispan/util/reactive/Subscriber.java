@@ -0,0 +1,31 @@
+package org.infinispan.util.reactive;
+
+/**
+ * Receives the elements published by a {@link Publisher}.  The methods of a subscriber are never invoked concurrently
+ * for the same subscription, although they may be invoked from different threads.
+ *
+ * @param <T> the type of the received elements
+ * @since 9.1
+ */
+public interface Subscriber<T> {
+
+   /**
+    * Invoked before any other method, no elements are published until they are requested from the subscription.
+    */
+   void onSubscribe(Subscription subscription);
+
+   /**
+    * Invoked for each published element, at most as many times as the number of elements requested.
+    */
+   void onNext(T item);
+
+   /**
+    * Invoked when the publisher failed, no other method is invoked afterwards.
+    */
+   void onError(Throwable throwable);
+
+   /**
+    * Invoked once all the elements have been published, no other method is invoked afterwards.
+    */
+   void onComplete();
+}
@@ -0,0 +1,22 @@
+package org.infinispan.util.reactive;
+
+/**
+ * Link between a {@link Publisher} and a {@link Subscriber}, that is used by the subscriber to signal demand.
+ *
+ * @since 9.1
+ */
+public interface Subscription {
+
+   /**
+    * Adds <b>n</b> elements to the demand of the subscriber.  The publisher never publishes more elements than
+    * requested, and it may be invoked from within {@link Subscriber#onNext(Object)}.
+    *
+    * @param n the number of additional elements, must be positive.  {@link Long#MAX_VALUE} means unbounded demand.
+    */
+   void request(long n);
+
+   /**
+    * Requests the publisher to stop publishing elements.  Some elements may still be published after this is invoked.
+    */
+   void cancel();
+}
@@ -115,6 +115,13 @@ private static void configurationCheck91(EmbeddedCacheManager cm) {
       assertFalse(ph.enabled());
       assertEquals(PartitionHandling.ALLOW_READ_WRITES, ph.whenSplit());
       assertNull(ph.mergePolicy());
+
+      DefaultThreadFactory threadFactory = cm.getCacheManagerConfiguration().storeThreadPool().threadFactory();
+      assertEquals("infinispan", threadFactory.threadGroup().getName());
+      BlockingThreadPoolExecutorFactory threadPool = cm.getCacheManagerConfiguration().storeThreadPool().threadPoolFactory();
+      assertEquals(2, threadPool.coreThreads());
+      assertEquals(3, threadPool.maxThreads());
+      assertEquals(20, threadPool.queueLength());
    }
 
    private static void configurationCheck90(EmbeddedCacheManager cm) {
@@ -0,0 +1,148 @@
+package org.infinispan.container;
+
+import static org.mockito.Mockito.mock;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.distribution.ch.KeyPartitioner;
+import org.infinispan.eviction.ActivationManager;
+import org.infinispan.eviction.PassivationManager;
+import org.infinispan.expiration.ExpirationManager;
+import org.infinispan.metadata.EmbeddedMetadata;
+import org.infinispan.metadata.impl.L1Metadata;
+import org.infinispan.util.ControlledTimeService;
+import org.testng.annotations.Test;
+
+@Test(groups = "unit", testName = "container.SegmentedDataContainerTest")
+public class SegmentedDataContainerTest extends SimpleDataContainerTest {
+   private static final int NUM_SEGMENTS = 4;
+   private static final KeyPartitioner PARTITIONER = key -> Math.abs(key.hashCode() % NUM_SEGMENTS);
+
+   @Override
+   protected DataContainer<String, String> createContainer() {
+      DefaultSegmentedDataContainer<String, String> dc = new DefaultSegmentedDataContainer<>(16, NUM_SEGMENTS);
+      InternalEntryFactoryImpl internalEntryFactory = new InternalEntryFactoryImpl();
+      timeService = new ControlledTimeService();
+      internalEntryFactory.injectTimeService(timeService);
+      dc.initialize(PARTITIONER, mock(PassivationManager.class), internalEntryFactory, mock(ActivationManager.class),
+            timeService, mock(ExpirationManager.class));
+      return dc;
+   }
+
+   private SegmentedDataContainer<String, String> fill(int entries) {
+      SegmentedDataContainer<String, String> dc = (SegmentedDataContainer<String, String>) createContainer();
+      for (int i = 0; i < entries; ++i) {
+         dc.put("k" + i, "v" + i, new EmbeddedMetadata.Builder().build());
+      }
+      return dc;
+   }
+
+   public void testSegmentIteration() {
+      SegmentedDataContainer<String, String> dc = fill(100);
+      for (int segment = 0; segment < NUM_SEGMENTS; ++segment) {
+         Set<Integer> segments = Collections.singleton(segment);
+         int count = 0;
+         for (Iterator<InternalCacheEntry<String, String>> iter = dc.iterator(segments); iter.hasNext(); ) {
+            assertEquals(segment, PARTITIONER.getSegment(iter.next().getKey()));
+            count++;
+         }
+         assertEquals(count, dc.size(segments));
+         assertEquals(count, dc.sizeIncludingExpired(segments));
+      }
+      assertEquals(100, dc.size());
+   }
+
+   public void testSegmentSizeWithExpiredEntries() {
+      SegmentedDataContainer<String, String> dc = (SegmentedDataContainer<String, String>) createContainer();
+      dc.put("k1", "v1", new EmbeddedMetadata.Builder().lifespan(10, TimeUnit.MILLISECONDS).build());
+      dc.put("k2", "v2", new EmbeddedMetadata.Builder().build());
+      Set<Integer> segments = new HashSet<>();
+      segments.add(PARTITIONER.getSegment("k1"));
+      segments.add(PARTITIONER.getSegment("k2"));
+      timeService.advance(100);
+      assertEquals(1, dc.size(segments));
+      assertEquals(2, dc.sizeIncludingExpired(segments));
+   }
+
+   public void testRemoveSegments() {
+      SegmentedDataContainer<String, String> dc = fill(100);
+      Set<Integer> removed = new HashSet<>();
+      removed.add(0);
+      removed.add(2);
+      int remaining = dc.sizeIncludingExpired() - dc.sizeIncludingExpired(removed);
+      dc.removeSegments(removed);
+
+      assertEquals(remaining, dc.sizeIncludingExpired());
+      assertEquals(0, dc.sizeIncludingExpired(removed));
+      assertFalse(dc.iterator(removed).hasNext());
+      for (int i = 0; i < 100; ++i) {
+         String key = "k" + i;
+         if (removed.contains(PARTITIONER.getSegment(key))) {
+            assertNull(dc.get(key));
+         } else {
+            assertEquals("v" + i, dc.get(key).getValue());
+         }
+      }
+
+      // Removed segments ignore writes, except for L1 entries, until they are added again
+      String key = "k0";
+      for (int i = 1; !removed.contains(PARTITIONER.getSegment(key)); ++i) {
+         key = "k" + i;
+      }
+      Set<Integer> keySegment = Collections.singleton(PARTITIONER.getSegment(key));
+      dc.put(key, "v", new EmbeddedMetadata.Builder().build());
+      assertFalse(dc.containsKey(key));
+      assertNull(dc.compute(key, (k, oldEntry, factory) -> factory.create(k, "v", new EmbeddedMetadata.Builder().build())));
+      assertFalse(dc.containsKey(key));
+
+      dc.put(key, "l1", new L1Metadata(new EmbeddedMetadata.Builder().build()));
+      assertTrue(dc.get(key).isL1Entry());
+      dc.put(key, "v", new EmbeddedMetadata.Builder().build());
+      assertEquals("l1", dc.get(key).getValue());
+
+      dc.addSegments(keySegment);
+      assertFalse(dc.containsKey(key));
+      dc.put(key, "v", new EmbeddedMetadata.Builder().build());
+      assertEquals("v", dc.get(key).getValue());
+      assertEquals(1, dc.sizeIncludingExpired(keySegment));
+   }
+
+   public void testComputeConcurrentWithRemoveSegments() throws Exception {
+      SegmentedDataContainer<String, String> dc = fill(100);
+      int segment = PARTITIONER.getSegment("k0");
+      String otherKey = "k1";
+      for (int i = 2; PARTITIONER.getSegment(otherKey) != segment; ++i) {
+         otherKey = "k" + i;
+      }
+      String otherKeyInSegment = otherKey;
+      dc.remove("k0");
+
+      AtomicInteger invocations = new AtomicInteger();
+      Future<?>[] removal = new Future[1];
+      dc.compute("k0", (key, oldEntry, factory) -> {
+         if (invocations.getAndIncrement() == 0) {
+            // the segment is removed while the entry is being written to its map
+            removal[0] = fork(() -> dc.removeSegments(Collections.singleton(segment)));
+            eventually(() -> dc.peek(otherKeyInSegment) == null);
+         }
+         return factory.create(key, "v", new EmbeddedMetadata.Builder().build());
+      });
+      removal[0].get(10, TimeUnit.SECONDS);
+
+      // the segment was removed while the entry was written, so the write is dropped and the action is not repeated
+      assertEquals(1, invocations.get());
+      assertNull(dc.get("k0"));
+      assertNull(dc.get(otherKeyInSegment));
+   }
+}
@@ -0,0 +1,34 @@
+package org.infinispan.container.offheap;
+
+import static org.testng.AssertJUnit.assertTrue;
+
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.cache.StorageType;
+import org.infinispan.container.DataContainer;
+import org.infinispan.eviction.EvictionType;
+import org.infinispan.eviction.OffHeapEvictionPolicy;
+import org.infinispan.util.concurrent.IsolationLevel;
+import org.testng.annotations.Test;
+
+/**
+ * Runs the bounded off heap tests using the CLOCK eviction policy.
+ */
+@Test(groups = "functional", testName = "container.offheap.OffHeapClockBoundedSingleNodeTest")
+public class OffHeapClockBoundedSingleNodeTest extends OffHeapBoundedSingleNodeTest {
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      ConfigurationBuilder dcc = getDefaultClusteredCacheConfig(CacheMode.LOCAL, true);
+      dcc.memory().storageType(StorageType.OFF_HEAP).size(100).evictionType(EvictionType.COUNT)
+            .evictionPolicy(OffHeapEvictionPolicy.CLOCK);
+      dcc.locking().isolationLevel(IsolationLevel.READ_COMMITTED);
+      // Only start up the 1 cache
+      addClusterEnabledCacheManager(dcc);
+   }
+
+   public void testClockContainerUsed() {
+      DataContainer container = cache(0).getAdvancedCache().getDataContainer();
+      assertTrue(container instanceof ClockBoundedOffHeapDataContainer);
+   }
+}
@@ -0,0 +1,58 @@
+package org.infinispan.container.offheap;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.cache.StorageType;
+import org.infinispan.container.DataContainer;
+import org.testng.annotations.Test;
+
+/**
+ * Runs the off heap tests with the smallest possible amount of address pointers, so that the memory lookups are
+ * continuously resized.
+ */
+@Test(groups = "functional", testName = "container.offheap.OffHeapResizeSingleNodeTest")
+public class OffHeapResizeSingleNodeTest extends OffHeapSingleNodeTest {
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      ConfigurationBuilder dcc = getDefaultClusteredCacheConfig(CacheMode.LOCAL, true);
+      dcc.memory().storageType(StorageType.OFF_HEAP).addressCount(1).loadFactor(0.5f);
+      // Only start up the 1 cache
+      addClusterEnabledCacheManager(dcc);
+   }
+
+   public void testResizeKeepsAllEntries() {
+      Cache<String, String> cache = cache(0);
+      OffHeapDataContainer container = (OffHeapDataContainer) (DataContainer) cache.getAdvancedCache().getDataContainer();
+      long initialAddressCount = container.getAddressCount();
+
+      int count = 10_000;
+      for (int i = 0; i < count; ++i) {
+         cache.put("key" + i, "value" + i);
+      }
+
+      assertTrue(container.getResizeCount() > 0);
+      assertTrue(container.getAddressCount() > initialAddressCount);
+      assertTrue(container.getAverageChainLength() > 0);
+      assertEquals(count, cache.size());
+      for (int i = 0; i < count; ++i) {
+         assertEquals("value" + i, cache.get("key" + i));
+      }
+
+      Set<String> keys = new HashSet<>();
+      cache.keySet().forEach(keys::add);
+      assertEquals(count, keys.size());
+
+      for (int i = 0; i < count; i += 2) {
+         cache.remove("key" + i);
+      }
+      assertEquals(count / 2, cache.size());
+   }
+}
@@ -0,0 +1,175 @@
+package org.infinispan.container.offheap;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.infinispan.test.AbstractInfinispanTest;
+import org.testng.annotations.Test;
+
+import sun.misc.Unsafe;
+
+/**
+ * @since 9.1
+ */
+@Test(groups = "unit", testName = "container.offheap.PooledOffHeapMemoryAllocatorTest")
+public class PooledOffHeapMemoryAllocatorTest extends AbstractInfinispanTest {
+   private static final Unsafe UNSAFE = UnsafeHolder.UNSAFE;
+
+   public void testSizeClasses() {
+      int previousSize = 0;
+      for (int size = 1; size <= PooledOffHeapMemoryAllocator.MAX_POOLED_SIZE; ++size) {
+         int index = PooledOffHeapMemoryAllocator.sizeClassIndex(size);
+         int classSize = PooledOffHeapMemoryAllocator.sizeClassSize(index);
+         assertTrue("Size " + size + " doesn't fit in class of " + classSize, classSize >= size);
+         assertTrue("Size " + size + " wastes too much in class of " + classSize,
+               size <= 128 ? classSize - size < 16 : classSize <= size * 1.25);
+         assertEquals(0, classSize % 16);
+         assertTrue(classSize >= previousSize);
+         previousSize = classSize;
+      }
+      assertEquals(PooledOffHeapMemoryAllocator.MAX_POOLED_SIZE, previousSize);
+   }
+
+   public void testFreedMemoryIsReused() {
+      PooledOffHeapMemoryAllocator allocator = new PooledOffHeapMemoryAllocator();
+      long address = allocator.allocate(100);
+      allocator.deallocate(address, 100);
+      // Any size in the same size class gets the same block back
+      assertEquals(address, allocator.allocate(112));
+      allocator.deallocate(address, 112);
+      allocator.stop();
+   }
+
+   public void testAccounting() {
+      PooledOffHeapMemoryAllocator allocator = new PooledOffHeapMemoryAllocator();
+      int count = 10_000;
+      long[] addresses = new long[count];
+      Set<Long> distinct = new HashSet<>();
+      for (int i = 0; i < count; ++i) {
+         int size = 8 + i % 1000;
+         addresses[i] = allocator.allocate(size);
+         // Write the whole block to make sure blocks don't overlap
+         UNSAFE.setMemory(addresses[i], size, (byte) i);
+         assertTrue(distinct.add(addresses[i]));
+      }
+      long large = allocator.allocate(PooledOffHeapMemoryAllocator.MAX_POOLED_SIZE + 1);
+      for (int i = 0; i < count; ++i) {
+         assertEquals((byte) i, UNSAFE.getByte(addresses[i] + 7));
+      }
+      assertTrue(allocator.getAllocatedAmount() > 0);
+      assertTrue(allocator.getReservedAmount() >= allocator.getAllocatedAmount());
+
+      for (int i = 0; i < count; ++i) {
+         allocator.deallocate(addresses[i], 8 + i % 1000);
+      }
+      allocator.deallocate(large, PooledOffHeapMemoryAllocator.MAX_POOLED_SIZE + 1);
+      assertEquals(0, allocator.getAllocatedAmount());
+      // The freed memory stays pooled until the allocator is stopped
+      assertTrue(allocator.getReservedAmount() > 0);
+
+      allocator.stop();
+      assertEquals(0, allocator.getReservedAmount());
+   }
+
+   public void testSlabsFreedOnceMemoryDeallocatedAfterStop() {
+      PooledOffHeapMemoryAllocator allocator = new PooledOffHeapMemoryAllocator();
+      long address = allocator.allocate(50);
+      allocator.stop();
+      assertTrue(allocator.getReservedAmount() > 0);
+      allocator.deallocate(address, 50);
+      assertEquals(0, allocator.getReservedAmount());
+
+      // Restarting allocates new slabs
+      allocator.start();
+      address = allocator.allocate(50);
+      UNSAFE.putLong(address, 1);
+      allocator.deallocate(address, 50);
+      allocator.stop();
+      assertEquals(0, allocator.getReservedAmount());
+   }
+
+   public void testConcurrentAllocations() throws Exception {
+      PooledOffHeapMemoryAllocator allocator = new PooledOffHeapMemoryAllocator();
+      int threads = 4;
+      List<Future<long[]>> futures = new ArrayList<>(threads);
+      for (int t = 0; t < threads; ++t) {
+         futures.add(fork(() -> {
+            long[] addresses = new long[2_000];
+            for (int round = 0; round < 10; ++round) {
+               for (int i = 0; i < addresses.length; ++i) {
+                  addresses[i] = allocator.allocate(40);
+                  UNSAFE.putLong(addresses[i], addresses[i]);
+               }
+               for (long address : addresses) {
+                  assertEquals(address, UNSAFE.getLong(address));
+               }
+               if (round < 9) {
+                  for (long address : addresses) {
+                     allocator.deallocate(address, 40);
+                  }
+               }
+            }
+            return addresses;
+         }));
+      }
+      // Wait for all the threads before freeing anything, otherwise a block could be legitimately handed out twice
+      List<long[]> results = new ArrayList<>(threads);
+      for (Future<long[]> future : futures) {
+         results.add(future.get(30, TimeUnit.SECONDS));
+      }
+      // The last blocks are freed by this thread, moving them to its own cache and the shared free list
+      Set<Long> distinct = new HashSet<>();
+      for (long[] addresses : results) {
+         for (long address : addresses) {
+            assertTrue(distinct.add(address));
+            allocator.deallocate(address, 40);
+         }
+      }
+      assertEquals(0, allocator.getAllocatedAmount());
+      allocator.stop();
+      assertEquals(0, allocator.getReservedAmount());
+   }
+
+   public void testBlocksOfDeadThreadAreReused() throws Exception {
+      PooledOffHeapMemoryAllocator allocator = new PooledOffHeapMemoryAllocator();
+      int blockSize = PooledOffHeapMemoryAllocator.sizeClassSize(PooledOffHeapMemoryAllocator.sizeClassIndex(40));
+      // This thread already has a cache, so the blocks of the dead thread must be reclaimed before growing the pool
+      allocator.deallocate(allocator.allocate(40), 40);
+      long[] slabBlocks = new long[1];
+      Thread thread = new Thread(() -> {
+         // Allocate all the blocks of the first slab and free them, some stay in the cache of this thread
+         long[] addresses = new long[(int) (allocator.getReservedAmount() / blockSize)];
+         for (int i = 0; i < addresses.length; ++i) {
+            addresses[i] = allocator.allocate(40);
+         }
+         for (long address : addresses) {
+            allocator.deallocate(address, 40);
+         }
+         slabBlocks[0] = addresses.length;
+      });
+      thread.start();
+      thread.join(TimeUnit.SECONDS.toMillis(30));
+      long reserved = allocator.getReservedAmount();
+
+      // The blocks cached by the dead thread are reused instead of allocating a new slab
+      long[] addresses = new long[(int) slabBlocks[0]];
+      for (int i = 0; i < addresses.length; ++i) {
+         addresses[i] = allocator.allocate(40);
+      }
+      assertEquals(reserved, allocator.getReservedAmount());
+      assertEquals(addresses.length * blockSize, allocator.getAllocatedAmount());
+
+      for (long address : addresses) {
+         allocator.deallocate(address, 40);
+      }
+      allocator.stop();
+      assertEquals(0, allocator.getReservedAmount());
+   }
+}
@@ -0,0 +1,102 @@
+package org.infinispan.expiration.impl;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.container.entries.MortalCacheEntry;
+import org.infinispan.container.entries.TransientCacheEntry;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests that the expiration index only visits the entries which are due.
+ *
+ * @since 9.1
+ */
+@Test(groups = "unit", testName = "expiration.impl.ExpirationIndexTest")
+public class ExpirationIndexTest extends AbstractInfinispanTest {
+   private ExpirationIndex<String, String> index;
+   private Map<String, InternalCacheEntry<String, String>> entries;
+   private AtomicInteger lookups;
+
+   @BeforeMethod
+   public void setUp() {
+      index = new ExpirationIndex<>();
+      entries = new HashMap<>();
+      lookups = new AtomicInteger();
+   }
+
+   private void write(InternalCacheEntry<String, String> entry) {
+      InternalCacheEntry<String, String> old = entries.put(entry.getKey(), entry);
+      index.update(entry.getKey(), ExpirationIndex.expiryTime(old), ExpirationIndex.expiryTime(entry));
+   }
+
+   private List<String> expired(long currentTimeMillis) {
+      List<String> keys = new ArrayList<>();
+      for (Iterator<InternalCacheEntry<String, String>> it = index.expired(currentTimeMillis, key -> {
+         lookups.incrementAndGet();
+         return entries.get(key);
+      }); it.hasNext(); ) {
+         keys.add(it.next().getKey());
+      }
+      return keys;
+   }
+
+   public void testOnlyDueEntriesVisited() {
+      for (int i = 0; i < 100; i++) {
+         write(new MortalCacheEntry("k" + i, "v", 10_000 + i * 1000, 0));
+      }
+      assertEquals(0, expired(5_000).size());
+      assertEquals(0, lookups.get());
+
+      List<String> expired = expired(12_500);
+      assertEquals(3, expired.size());
+      assertEquals(3, lookups.get());
+   }
+
+   public void testOverwrittenEntryMovesToNewBucket() {
+      write(new MortalCacheEntry("k", "v1", 10_000, 0));
+      write(new MortalCacheEntry("k", "v2", 20_000, 0));
+      assertEquals(0, expired(15_000).size());
+      assertEquals(0, lookups.get());
+      assertEquals(1, expired(25_000).size());
+   }
+
+   public void testTouchedEntryReindexed() {
+      TransientCacheEntry entry = new TransientCacheEntry("k", "v", 10_000, 0);
+      write(entry);
+      // touching the entry doesn't update the index
+      entry.touch(5_000);
+      assertEquals(0, expired(12_000).size());
+      assertEquals(1, lookups.get());
+      assertEquals(1, expired(16_000).size());
+   }
+
+   public void testExpiredEntryRetriedUntilRemoved() {
+      write(new MortalCacheEntry("k", "v", 10_000, 0));
+      assertEquals(1, expired(10_500).size());
+      // the removal failed, so the entry is found again
+      assertEquals(1, expired(11_500).size());
+      entries.remove("k");
+      assertEquals(0, expired(12_500).size());
+      lookups.set(0);
+      assertEquals(0, expired(13_500).size());
+      assertEquals(0, lookups.get());
+   }
+
+   public void testRemovedEntryNotVisited() {
+      write(new MortalCacheEntry("k", "v", 10_000, 0));
+      index.remove("k", ExpirationIndex.expiryTime(entries.remove("k")));
+      assertFalse(index.expired(20_000, entries::get).hasNext());
+      assertEquals(0, lookups.get());
+   }
+}
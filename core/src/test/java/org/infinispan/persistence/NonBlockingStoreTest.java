@@ -0,0 +1,309 @@
+package org.infinispan.persistence;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.infinispan.Cache;
+import org.infinispan.commons.marshall.StreamingMarshaller;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.cache.CustomStoreConfigurationBuilder;
+import org.infinispan.filter.KeyFilter;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.marshall.core.MarshalledEntry;
+import org.infinispan.marshall.core.MarshalledEntryImpl;
+import org.infinispan.persistence.manager.PersistenceManager;
+import org.infinispan.persistence.spi.AdvancedLoadWriteStore;
+import org.infinispan.persistence.spi.InitializationContext;
+import org.infinispan.persistence.spi.NonBlockingStore;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.CleanupAfterMethod;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.Test;
+
+/**
+ * Tests that stores implementing {@link NonBlockingStore} are invoked through it, and that other stores are invoked
+ * outside of the thread processing the command.
+ *
+ * @since 9.1
+ */
+@Test(testName = "persistence.NonBlockingStoreTest", groups = "functional")
+@CleanupAfterMethod
+public class NonBlockingStoreTest extends SingleCacheManagerTest {
+   private static final String BLOCKING_CACHE = "blocking";
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      ConfigurationBuilder cfg = getDefaultStandaloneCacheConfig(false);
+      cfg.persistence().addStore(CustomStoreConfigurationBuilder.class).customStoreClass(NonBlockingMapStore.class);
+      EmbeddedCacheManager cm = TestCacheManagerFactory.createCacheManager(cfg);
+
+      ConfigurationBuilder blockingCfg = getDefaultStandaloneCacheConfig(false);
+      blockingCfg.persistence().addStore(CustomStoreConfigurationBuilder.class).customStoreClass(MapStore.class);
+      cm.defineConfiguration(BLOCKING_CACHE, blockingCfg.build());
+      return cm;
+   }
+
+   public void testOperationsUseNonBlockingStore() {
+      NonBlockingMapStore store = getStore(cache, NonBlockingMapStore.class);
+
+      cache.put("k1", "v1");
+      cache.put("k2", "v2");
+      assertEquals(2, store.nonBlockingWrites.get());
+
+      // The puts also loaded the previous values
+      int loads = store.nonBlockingLoads.get();
+      cache.evict("k1");
+      assertEquals("v1", cache.get("k1"));
+      assertEquals(loads + 1, store.nonBlockingLoads.get());
+
+      assertEquals("v2", cache.remove("k2"));
+      assertEquals(1, store.nonBlockingDeletes.get());
+      assertFalse(store.entries.containsKey("k2"));
+
+      assertNull(cache.get("k2"));
+      assertEquals(0, store.blockingCalls.get());
+   }
+
+   public void testGetAllLoadsConcurrently() {
+      NonBlockingMapStore store = getStore(cache, NonBlockingMapStore.class);
+      Set<String> keys = new HashSet<>();
+      for (int i = 0; i < 10; ++i) {
+         cache.put("k" + i, "v" + i);
+         keys.add("k" + i);
+      }
+      keys.forEach(cache::evict);
+
+      int loads = store.nonBlockingLoads.get();
+      Map<Object, Object> values = cache.getAdvancedCache().getAll(keys);
+      assertEquals(10, values.size());
+      for (int i = 0; i < 10; ++i) {
+         assertEquals("v" + i, values.get("k" + i));
+      }
+      assertEquals(loads + 10, store.nonBlockingLoads.get());
+      assertEquals(0, store.blockingCalls.get());
+   }
+
+   public void testStoreModifiedWhileLoading() throws Exception {
+      NonBlockingMapStore store = getStore(cache, NonBlockingMapStore.class);
+      cache.put("k", "v1");
+      cache.evict("k");
+
+      // The next load reads the value and waits before completing
+      CompletableFuture<Void> loadRead = new CompletableFuture<>();
+      CompletableFuture<Void> completeLoad = new CompletableFuture<>();
+      store.nextLoadBarrier.set(() -> {
+         loadRead.complete(null);
+         completeLoad.join();
+      });
+      Future<Map<Object, Object>> getAll = fork(() -> cache.getAdvancedCache().getAll(Collections.singleton("k")));
+      loadRead.get(10, TimeUnit.SECONDS);
+
+      // The key is written and evicted before the load completes with the old value
+      cache.put("k", "v2");
+      cache.evict("k");
+      completeLoad.complete(null);
+
+      assertEquals("v2", getAll.get(10, TimeUnit.SECONDS).get("k"));
+      assertEquals("v2", cache.get("k"));
+   }
+
+   public void testOverlappingModificationsInvalidateLoads() {
+      NonBlockingMapStore store = getStore(cache, NonBlockingMapStore.class);
+      PersistenceManager persistenceManager = TestingUtil.extractComponent(cache, PersistenceManager.class);
+      StreamingMarshaller marshaller = cache.getAdvancedCache().getComponentRegistry().getCacheMarshaller();
+      long idleStamp = persistenceManager.modificationStamp("k");
+      assertTrue(idleStamp != -1);
+
+      CompletableFuture<Void> completeFirstWrite = new CompletableFuture<>();
+      store.nextWriteBarrier.set(completeFirstWrite);
+      CompletionStage<Void> firstWrite = persistenceManager.writeToAllNonTxStoresAsync(
+            new MarshalledEntryImpl<>("k", "v1", null, marshaller), PersistenceManager.AccessMode.BOTH, 0);
+      CompletableFuture<Void> completeSecondWrite = new CompletableFuture<>();
+      store.nextWriteBarrier.set(completeSecondWrite);
+      CompletionStage<Void> secondWrite = persistenceManager.writeToAllNonTxStoresAsync(
+            new MarshalledEntryImpl<>("k", "v2", null, marshaller), PersistenceManager.AccessMode.BOTH, 0);
+      assertEquals(-1, persistenceManager.modificationStamp("k"));
+
+      // One of the writes is still in progress
+      completeFirstWrite.complete(null);
+      firstWrite.toCompletableFuture().join();
+      assertEquals(-1, persistenceManager.modificationStamp("k"));
+
+      completeSecondWrite.complete(null);
+      secondWrite.toCompletableFuture().join();
+      long stamp = persistenceManager.modificationStamp("k");
+      assertTrue(stamp != -1);
+      assertTrue(stamp != idleStamp);
+   }
+
+   public void testBlockingStoreInvokedOnPersistenceExecutor() {
+      Cache<Object, Object> blockingCache = cacheManager.getCache(BLOCKING_CACHE);
+      MapStore store = getStore(blockingCache, MapStore.class);
+
+      blockingCache.put("k1", "v1");
+      blockingCache.evict("k1");
+      assertEquals("v1", blockingCache.get("k1"));
+      assertEquals("v1", blockingCache.remove("k1"));
+
+      assertTrue(store.blockingCalls.get() >= 3);
+      assertFalse(store.entries.containsKey("k1"));
+      assertFalse(store.threads.contains(Thread.currentThread()));
+   }
+
+   private <T> T getStore(Cache<?, ?> cache, Class<T> storeClass) {
+      PersistenceManager persistenceManager = TestingUtil.extractComponent(cache, PersistenceManager.class);
+      Set<T> stores = persistenceManager.getStores(storeClass);
+      assertEquals(1, stores.size());
+      return stores.iterator().next();
+   }
+
+   public static class MapStore implements AdvancedLoadWriteStore {
+      final ConcurrentMap<Object, MarshalledEntry> entries = new ConcurrentHashMap<>();
+      final AtomicInteger blockingCalls = new AtomicInteger();
+      final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+
+      @Override
+      public void init(InitializationContext ctx) {
+      }
+
+      @Override
+      public void start() {
+      }
+
+      @Override
+      public void stop() {
+      }
+
+      @Override
+      public MarshalledEntry load(Object key) {
+         blockingCall();
+         return entries.get(key);
+      }
+
+      @Override
+      public boolean contains(Object key) {
+         blockingCall();
+         return entries.containsKey(key);
+      }
+
+      @Override
+      public void write(MarshalledEntry entry) {
+         blockingCall();
+         entries.put(entry.getKey(), entry);
+      }
+
+      @Override
+      public boolean delete(Object key) {
+         blockingCall();
+         return entries.remove(key) != null;
+      }
+
+      @Override
+      public void process(KeyFilter filter, CacheLoaderTask task, Executor executor, boolean fetchValue,
+                          boolean fetchMetadata) {
+      }
+
+      @Override
+      public int size() {
+         return entries.size();
+      }
+
+      @Override
+      public void clear() {
+         entries.clear();
+      }
+
+      @Override
+      public void purge(Executor threadPool, PurgeListener listener) {
+      }
+
+      private void blockingCall() {
+         blockingCalls.incrementAndGet();
+         threads.add(Thread.currentThread());
+      }
+   }
+
+   /**
+    * Completes all its operations in another thread, so that the invocations have to be resumed
+    */
+   public static class NonBlockingMapStore extends MapStore implements NonBlockingStore {
+      final AtomicInteger nonBlockingLoads = new AtomicInteger();
+      final AtomicInteger nonBlockingWrites = new AtomicInteger();
+      final AtomicInteger nonBlockingDeletes = new AtomicInteger();
+      // Runs after the next load read the entry and before it completes
+      final AtomicReference<Runnable> nextLoadBarrier = new AtomicReference<>();
+      // The next write is applied once this completes
+      final AtomicReference<CompletableFuture<Void>> nextWriteBarrier = new AtomicReference<>();
+
+      @Override
+      public CompletionStage<MarshalledEntry> loadAsync(Object key) {
+         nonBlockingLoads.incrementAndGet();
+         Runnable barrier = nextLoadBarrier.getAndSet(null);
+         return CompletableFuture.supplyAsync(() -> {
+            MarshalledEntry entry = entries.get(key);
+            if (barrier != null) {
+               barrier.run();
+            }
+            return entry;
+         });
+      }
+
+      @Override
+      public CompletionStage<Boolean> containsAsync(Object key) {
+         return CompletableFuture.supplyAsync(() -> entries.containsKey(key));
+      }
+
+      @Override
+      public CompletionStage<Void> writeAsync(MarshalledEntry entry) {
+         nonBlockingWrites.incrementAndGet();
+         CompletableFuture<Void> barrier = nextWriteBarrier.getAndSet(null);
+         if (barrier != null) {
+            return barrier.thenRunAsync(() -> entries.put(entry.getKey(), entry));
+         }
+         return CompletableFuture.runAsync(() -> entries.put(entry.getKey(), entry));
+      }
+
+      @Override
+      public CompletionStage<Boolean> deleteAsync(Object key) {
+         nonBlockingDeletes.incrementAndGet();
+         return CompletableFuture.supplyAsync(() -> entries.remove(key) != null);
+      }
+
+      @Override
+      public CompletionStage<Void> writeBatchAsync(Iterable entries) {
+         return CompletableFuture.runAsync(() -> entries.forEach(e -> write((MarshalledEntry) e)));
+      }
+
+      @Override
+      public CompletionStage<Void> deleteBatchAsync(Iterable keys) {
+         return CompletableFuture.runAsync(() -> keys.forEach(this::delete));
+      }
+
+      @Override
+      public CompletionStage<Void> clearAsync() {
+         return CompletableFuture.runAsync(entries::clear);
+      }
+
+      @Override
+      public CompletionStage<Integer> sizeAsync() {
+         return CompletableFuture.completedFuture(entries.size());
+      }
+   }
+}
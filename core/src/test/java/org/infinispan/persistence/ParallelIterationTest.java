@@ -6,20 +6,27 @@
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.infinispan.commons.marshall.StreamingMarshaller;
+import org.infinispan.commons.util.CloseableIterator;
 import org.infinispan.configuration.cache.ConfigurationBuilder;
 import org.infinispan.factories.ComponentRegistry;
 import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.marshall.core.MarshalledEntry;
 import org.infinispan.marshall.core.MarshalledEntryImpl;
 import org.infinispan.metadata.InternalMetadata;
 import org.infinispan.persistence.manager.PersistenceManager;
@@ -30,6 +37,9 @@
 import org.infinispan.test.TestingUtil;
 import org.infinispan.test.fwk.TestCacheManagerFactory;
 import org.infinispan.util.concurrent.WithinThreadExecutor;
+import org.infinispan.util.reactive.Publishers;
+import org.infinispan.util.reactive.Subscriber;
+import org.infinispan.util.reactive.Subscription;
 import org.testng.annotations.Test;
 
 
@@ -131,6 +141,78 @@ public void testCancelingTaskMultipleProcessors() {
       assertTrue(entries.size() >= 100);
    }
 
+   public void testPublishEntries() {
+      insertData();
+      Set<Integer> keys = new HashSet<>();
+      try (CloseableIterator<MarshalledEntry> iterator = Publishers.toIterator(
+            loader.publishEntries(null, true, true, executor), 16, 10, TimeUnit.SECONDS)) {
+         iterator.forEachRemaining(me -> {
+            int key = unwrapKey(me.getKey());
+            assertTrue(keys.add(key), "Key " + key + " published multiple times");
+            assertEquals(unwrapValue(me.getValue()), (Integer) key);
+         });
+      }
+      assertEquals(keys.size(), NUM_ENTRIES);
+   }
+
+   public void testPublishKeys() {
+      insertData();
+      Set<Integer> keys = new HashSet<>();
+      Publishers.forEach(loader.publishKeys(k -> unwrapKey(k) % 2 == 0, executor), 16,
+            k -> assertTrue(keys.add(unwrapKey(k))));
+      assertEquals(keys.size(), NUM_ENTRIES / 2);
+   }
+
+   public void testPublishEntriesOnlyAsRequested() throws Exception {
+      runPublishOnlyAsRequestedTest(executor);
+   }
+
+   public void testPublishEntriesOnlyAsRequestedWhenExecutorRunsInCaller() throws Exception {
+      // Same as a saturated executor with the caller runs policy
+      runPublishOnlyAsRequestedTest(new WithinThreadExecutor());
+   }
+
+   private void runPublishOnlyAsRequestedTest(Executor executor) throws Exception {
+      insertData();
+      BlockingQueue<MarshalledEntry> published = new LinkedBlockingQueue<>();
+      AtomicReference<Subscription> subscriptionRef = new AtomicReference<>();
+      AtomicBoolean completed = new AtomicBoolean();
+      loader.publishEntries(null, true, true, executor).subscribe(new Subscriber<MarshalledEntry>() {
+         @Override
+         public void onSubscribe(Subscription subscription) {
+            subscriptionRef.set(subscription);
+         }
+
+         @Override
+         public void onNext(MarshalledEntry item) {
+            published.add(item);
+         }
+
+         @Override
+         public void onError(Throwable throwable) {
+            log.error("Unexpected error", throwable);
+         }
+
+         @Override
+         public void onComplete() {
+            completed.set(true);
+         }
+      });
+      Subscription subscription = subscriptionRef.get();
+      assertTrue(published.isEmpty());
+
+      subscription.request(10);
+      eventuallyEquals(10, published::size);
+      // Give a publisher ignoring the demand time to publish more
+      Thread.sleep(100);
+      assertEquals(published.size(), 10);
+
+      subscription.request(5);
+      eventuallyEquals(15, published::size);
+      subscription.cancel();
+      assertFalse(completed.get());
+   }
+
    private void runIterationTest(Executor executor, final boolean fetchValues,
          boolean fetchMetadata) {
       final ConcurrentMap<Integer, Integer> entries = new ConcurrentHashMap<>();
@@ -0,0 +1,121 @@
+package org.infinispan.persistence;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.infinispan.Cache;
+import org.infinispan.commands.write.PutKeyValueCommand;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.cache.InterceptorConfiguration;
+import org.infinispan.container.DataContainer;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.context.InvocationContext;
+import org.infinispan.interceptors.DDAsyncInterceptor;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.persistence.dummy.DummyInMemoryStoreConfigurationBuilder;
+import org.infinispan.persistence.manager.PersistenceManager;
+import org.infinispan.persistence.manager.PersistenceManagerImpl;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.Test;
+
+/**
+ * Tests the preload of entries in non transactional caches, which are stored directly in the data container.
+ *
+ * @since 9.1
+ */
+@Test(groups = "functional", testName = "persistence.PreloadTest")
+public class PreloadTest extends SingleCacheManagerTest {
+
+   private static final int NUM_KEYS = 100;
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      return TestCacheManagerFactory.createCacheManager(false);
+   }
+
+   public void testPreload() {
+      ConfigurationBuilder cb = createConfiguration("testPreload");
+      cacheManager.defineConfiguration("testPreload", cb.build());
+      Cache<Object, Object> cache = cacheManager.getCache("testPreload");
+      for (int i = 0; i < NUM_KEYS; i++) {
+         cache.put("k" + i, "v" + i);
+      }
+      cache.put("mortal", "v", 100, TimeUnit.MINUTES);
+      cache.stop();
+
+      cache.start();
+      DataContainer<Object, Object> dataContainer = cache.getAdvancedCache().getDataContainer();
+      assertEquals(NUM_KEYS + 1, dataContainer.size());
+      for (int i = 0; i < NUM_KEYS; i++) {
+         assertEquals("v" + i, dataContainer.get("k" + i).getValue());
+      }
+      InternalCacheEntry mortal = dataContainer.get("mortal");
+      assertEquals(TimeUnit.MINUTES.toMillis(100), mortal.getLifespan());
+
+      PersistenceManagerImpl persistenceManager = (PersistenceManagerImpl) TestingUtil.extractComponent(cache, PersistenceManager.class);
+      assertTrue(persistenceManager.isPreloaded());
+      assertFalse(persistenceManager.isPreloading());
+      assertEquals(NUM_KEYS + 1, persistenceManager.getPreloadedEntries());
+   }
+
+   public void testPreloadStopsAtEvictionSize() {
+      ConfigurationBuilder cb = createConfiguration("testPreloadStopsAtEvictionSize");
+      cb.memory().size(10);
+      cacheManager.defineConfiguration("testPreloadStopsAtEvictionSize", cb.build());
+      Cache<Object, Object> cache = cacheManager.getCache("testPreloadStopsAtEvictionSize");
+      for (int i = 0; i < NUM_KEYS; i++) {
+         cache.put("k" + i, "v" + i);
+      }
+      cache.stop();
+
+      cache.start();
+      assertEquals(10, cache.getAdvancedCache().getDataContainer().size());
+
+      PersistenceManagerImpl persistenceManager = (PersistenceManagerImpl) TestingUtil.extractComponent(cache, PersistenceManager.class);
+      assertFalse(persistenceManager.isPreloaded());
+      assertEquals(10, persistenceManager.getPreloadedEntries());
+   }
+
+   public void testPreloadThroughCustomInterceptor() {
+      ConfigurationBuilder cb = createConfiguration("testPreloadThroughCustomInterceptor");
+      PutCountingInterceptor interceptor = new PutCountingInterceptor();
+      cb.customInterceptors().addInterceptor().interceptor(interceptor).position(InterceptorConfiguration.Position.FIRST);
+      cacheManager.defineConfiguration("testPreloadThroughCustomInterceptor", cb.build());
+      Cache<Object, Object> cache = cacheManager.getCache("testPreloadThroughCustomInterceptor");
+      for (int i = 0; i < NUM_KEYS; i++) {
+         cache.put("k" + i, "v" + i);
+      }
+      cache.stop();
+
+      interceptor.puts.set(0);
+      cache.start();
+      assertEquals(NUM_KEYS, cache.getAdvancedCache().getDataContainer().size());
+      // The custom interceptor sees the preloaded entries
+      assertEquals(NUM_KEYS, interceptor.puts.get());
+   }
+
+   private ConfigurationBuilder createConfiguration(String storeName) {
+      ConfigurationBuilder cb = TestCacheManagerFactory.getDefaultCacheConfiguration(false);
+      cb.persistence()
+            .addStore(DummyInMemoryStoreConfigurationBuilder.class)
+            .storeName(getClass().getName() + storeName)
+            .preload(true);
+      return cb;
+   }
+
+   static class PutCountingInterceptor extends DDAsyncInterceptor {
+      final AtomicInteger puts = new AtomicInteger();
+
+      @Override
+      public Object visitPutKeyValueCommand(InvocationContext ctx, PutKeyValueCommand command) throws Throwable {
+         puts.incrementAndGet();
+         return invokeNext(ctx, command);
+      }
+   }
+}
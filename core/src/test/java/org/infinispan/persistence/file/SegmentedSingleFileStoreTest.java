@@ -0,0 +1,149 @@
+package org.infinispan.persistence.file;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.infinispan.configuration.cache.Configuration;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.cache.SingleFileStoreConfigurationBuilder;
+import org.infinispan.distribution.ch.KeyPartitioner;
+import org.infinispan.distribution.ch.impl.HashFunctionPartitioner;
+import org.infinispan.persistence.spi.AdvancedLoadWriteStore;
+import org.infinispan.persistence.spi.InitializationContext;
+import org.infinispan.persistence.spi.PersistenceException;
+import org.infinispan.persistence.spi.SegmentedAdvancedLoadWriteStore;
+import org.infinispan.test.Exceptions;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.infinispan.util.reactive.Publishers;
+import org.testng.annotations.Test;
+
+/**
+ * Low level single-file cache store tests, with one file per segment.
+ *
+ * @since 9.1
+ */
+@Test(groups = "unit", testName = "persistence.file.SegmentedSingleFileStoreTest")
+public class SegmentedSingleFileStoreTest extends SingleFileStoreTest {
+   private static final int NUM_SEGMENTS = 8;
+
+   private KeyPartitioner keyPartitioner;
+
+   @Override
+   protected AdvancedLoadWriteStore createStore() throws Exception {
+      clearTempDir();
+      SingleFileStore store = new SingleFileStore();
+      ConfigurationBuilder configurationBuilder = TestCacheManagerFactory.getDefaultCacheConfiguration(false);
+      configurationBuilder.clustering().hash().numSegments(NUM_SEGMENTS);
+      configurationBuilder
+            .persistence()
+               .addStore(SingleFileStoreConfigurationBuilder.class)
+                  .location(this.tmpDirectory)
+                  .segmented(true);
+      Configuration configuration = configurationBuilder.build();
+      InitializationContext ctx = createContext(configuration);
+      keyPartitioner = new HashFunctionPartitioner();
+      keyPartitioner.init(configuration.clustering().hash());
+      // the mocked cache doesn't create the key partitioner on demand
+      ctx.getCache().getAdvancedCache().getComponentRegistry().registerComponent(keyPartitioner, KeyPartitioner.class);
+      store.init(ctx);
+      return store;
+   }
+
+   public void testSegmentOperations() {
+      SegmentedAdvancedLoadWriteStore<Object, Object> store = (SegmentedAdvancedLoadWriteStore<Object, Object>) cl;
+      assertTrue(store.isStoredBySegment());
+      Set<Object> keys = new HashSet<>();
+      for (int i = 0; i < 50; i++) {
+         Object key = "k" + i;
+         store.write(marshalledEntry(internalCacheEntry("k" + i, "v" + i, -1)));
+         keys.add(key);
+      }
+      Object someKey = "k0";
+      int segment = keyPartitioner.getSegment(someKey);
+      Set<Integer> segments = Collections.singleton(segment);
+      Set<Object> segmentKeys = new HashSet<>();
+      for (Object key : keys) {
+         if (keyPartitioner.getSegment(key) == segment) {
+            segmentKeys.add(key);
+         }
+      }
+
+      assertEquals(segmentKeys.size(), store.size(segments));
+      Set<Object> published = new HashSet<>();
+      Publishers.forEach(store.publishKeys(segments, null), 10, published::add);
+      assertEquals(segmentKeys, published);
+      File segmentFile = new File(new File(tmpDirectory, cacheName()), segment + ".dat");
+      assertTrue(segmentFile.exists());
+
+      store.removeSegments(segments);
+      assertFalse(segmentFile.exists());
+      assertEquals(0, store.size(segments));
+      assertNull(store.load(someKey));
+      assertEquals(keys.size() - segmentKeys.size(), store.size());
+
+      // the segment file is created again when written to
+      store.write(marshalledEntry(internalCacheEntry("k0", "v0", -1)));
+      assertTrue(segmentFile.exists());
+      assertEquals(1, store.size(segments));
+   }
+
+   public void testDataFileOfNonSegmentedStoreIsRejected() {
+      String location = tmpDirectory + "/non-segmented";
+      SingleFileStore<Object, Object> store = startStore(location, false, NUM_SEGMENTS);
+      store.write(marshalledEntry(internalCacheEntry("k0", "v0", -1)));
+      store.stop();
+
+      // The segmented store would not read the entries of the single data file
+      Exceptions.expectException(PersistenceException.class, ".*non-segmented.*",
+            () -> startStore(location, true, NUM_SEGMENTS));
+   }
+
+   public void testDataFilesWithOtherNumberOfSegmentsAreRejected() {
+      String location = tmpDirectory + "/num-segments";
+      SingleFileStore<Object, Object> store = startStore(location, true, NUM_SEGMENTS);
+      store.write(marshalledEntry(internalCacheEntry("k0", "v0", -1)));
+      store.stop();
+
+      Exceptions.expectException(PersistenceException.class, ".*segments.*",
+            () -> startStore(location, true, NUM_SEGMENTS * 2));
+      Exceptions.expectException(PersistenceException.class, ".*segmented.*",
+            () -> startStore(location, false, NUM_SEGMENTS));
+
+      store = startStore(location, true, NUM_SEGMENTS);
+      try {
+         assertEquals("v0", unwrap(store.load("k0").getValue()));
+      } finally {
+         store.stop();
+      }
+   }
+
+   private SingleFileStore<Object, Object> startStore(String location, boolean segmented, int numSegments) {
+      SingleFileStore<Object, Object> store = new SingleFileStore<>();
+      ConfigurationBuilder configurationBuilder = TestCacheManagerFactory.getDefaultCacheConfiguration(false);
+      configurationBuilder.clustering().hash().numSegments(numSegments);
+      configurationBuilder
+            .persistence()
+               .addStore(SingleFileStoreConfigurationBuilder.class)
+                  .location(location)
+                  .segmented(segmented);
+      Configuration configuration = configurationBuilder.build();
+      InitializationContext ctx = createContext(configuration);
+      KeyPartitioner partitioner = new HashFunctionPartitioner();
+      partitioner.init(configuration.clustering().hash());
+      ctx.getCache().getAdvancedCache().getComponentRegistry().registerComponent(partitioner, KeyPartitioner.class);
+      store.init(ctx);
+      store.start();
+      return store;
+   }
+
+   private String cacheName() {
+      return ((SingleFileStore) cl).ctx.getCache().getName();
+   }
+}
@@ -0,0 +1,110 @@
+package org.infinispan.persistence.support;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import org.infinispan.commons.CacheConfigurationException;
+import org.infinispan.configuration.cache.AsyncStoreConfigurationBuilder;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.marshall.TestObjectStreamMarshaller;
+import org.infinispan.marshall.core.MarshalledEntryImpl;
+import org.infinispan.persistence.async.AdvancedAsyncCacheWriter;
+import org.infinispan.persistence.dummy.DummyInMemoryStore;
+import org.infinispan.persistence.dummy.DummyInMemoryStoreConfigurationBuilder;
+import org.infinispan.persistence.spi.InitializationContext;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.infinispan.util.PersistenceMockUtil;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests the flush policies of the write-behind store.
+ *
+ * @since 9.1
+ */
+@Test(groups = "unit", testName = "persistence.support.CoalescingAsyncStoreTest")
+public class CoalescingAsyncStoreTest extends AbstractInfinispanTest {
+   private TestObjectStreamMarshaller marshaller;
+   private DummyInMemoryStore underlying;
+   private AdvancedAsyncCacheWriter writer;
+
+   @BeforeMethod
+   public void createMarshaller() {
+      marshaller = new TestObjectStreamMarshaller();
+   }
+
+   @AfterMethod
+   public void tearDown() {
+      if (writer != null) writer.stop();
+      if (underlying != null) underlying.stop();
+      marshaller.stop();
+   }
+
+   private void createStore(int queueSize, long flushInterval, int flushBatchSize) {
+      ConfigurationBuilder builder = TestCacheManagerFactory.getDefaultCacheConfiguration(false);
+      builder.persistence()
+            .addStore(DummyInMemoryStoreConfigurationBuilder.class)
+               .storeName(CoalescingAsyncStoreTest.class.getName())
+               .async()
+                  .enable()
+                  .modificationQueueSize(queueSize)
+                  .flushInterval(flushInterval)
+                  .flushBatchSize(flushBatchSize);
+      InitializationContext ctx = PersistenceMockUtil.createContext(getClass().getSimpleName(), builder.build(), marshaller);
+      underlying = new DummyInMemoryStore();
+      underlying.init(ctx);
+      underlying.start();
+      writer = new AdvancedAsyncCacheWriter(underlying);
+      writer.init(ctx);
+      writer.start();
+   }
+
+   @Test(timeOut = 30000)
+   public void testModificationsCoalescedDuringFlushInterval() {
+      createStore(1024, 500, 0);
+      for (int i = 0; i < 100; i++) {
+         writer.write(new MarshalledEntryImpl("k", "v" + i, null, marshaller));
+      }
+      underlying.blockUntilCacheStoreContains("k", "v99", 10000);
+      assertEquals(100, writer.getSubmittedModifications());
+      eventually(() -> writer.getWrittenModifications() > 0);
+      assertTrue(writer.getWrittenModifications() < 100);
+      assertTrue(writer.getCoalescingRatio() > 1);
+      assertEquals(0, writer.getQueueDepth());
+   }
+
+   @Test(timeOut = 30000)
+   public void testFlushBatchSizeTriggersFlush() {
+      createStore(1024, 60000, 10);
+      for (int i = 0; i < 10; i++) {
+         writer.write(new MarshalledEntryImpl("k" + i, "v" + i, null, marshaller));
+      }
+      // the flush interval is longer than the timeout of the test
+      underlying.blockUntilCacheStoreContains("k9", "v9", 10000);
+      eventually(() -> writer.getFlushes() > 0);
+   }
+
+   @Test(timeOut = 30000)
+   public void testCoalescedModificationsDoNotFillQueue() {
+      createStore(10, 60000, 0);
+      // would block on the full queue if each modification of the same key took space in it
+      for (int i = 0; i < 1000; i++) {
+         writer.write(new MarshalledEntryImpl("k" + (i % 5), "v" + i, null, marshaller));
+      }
+      assertEquals(5, writer.getQueueDepth());
+      writer.stop();
+      assertEquals(5, underlying.size());
+      writer = null;
+   }
+
+   @Test(expectedExceptions = CacheConfigurationException.class)
+   public void testNegativeFlushIntervalRejected() {
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      AsyncStoreConfigurationBuilder<?> async = builder.persistence()
+            .addStore(DummyInMemoryStoreConfigurationBuilder.class).async();
+      async.enable().flushInterval(-1);
+      builder.build();
+   }
+}
@@ -0,0 +1,138 @@
+package org.infinispan.persistence.support;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotSame;
+import static org.testng.AssertJUnit.assertTrue;
+import static org.testng.AssertJUnit.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.infinispan.persistence.spi.PersistenceException;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests that {@link WriteCombiner} groups concurrent writes.
+ *
+ * @since 9.1
+ */
+@Test(groups = "unit", testName = "persistence.support.WriteCombinerTest")
+public class WriteCombinerTest extends AbstractInfinispanTest {
+   private CountDownLatch firstWriteStarted;
+   private CountDownLatch releaseFirstWrite;
+
+   @BeforeMethod
+   public void createLatches() {
+      firstWriteStarted = new CountDownLatch(1);
+      releaseFirstWrite = new CountDownLatch(1);
+   }
+
+   public void testSingleWriteNotBatched() {
+      List<List<String>> batches = new ArrayList<>();
+      List<String> writes = new ArrayList<>();
+      WriteCombiner<String> combiner = new WriteCombiner<>(10, batches::add, writes::add);
+      combiner.write("a");
+      combiner.write("b");
+      assertEquals(0, batches.size());
+      assertEquals(2, writes.size());
+   }
+
+   public void testConcurrentWritesBatched() throws Exception {
+      List<List<String>> batches = Collections.synchronizedList(new ArrayList<>());
+      Set<String> written = ConcurrentHashMap.newKeySet();
+      WriteCombiner<String> combiner = new WriteCombiner<>(3, batch -> {
+         batches.add(batch);
+         written.addAll(batch);
+      }, blockFirstWrite(written::add));
+
+      List<Future<?>> futures = writeWhileFirstWriteBlocked(combiner, "k0", "k1", "k2", "k3", "k4");
+      for (Future<?> future : futures) {
+         future.get(10, TimeUnit.SECONDS);
+      }
+      assertEquals(6, written.size());
+      assertEquals(2, batches.size());
+      assertEquals(3, batches.get(0).size());
+      assertEquals(2, batches.get(1).size());
+   }
+
+   public void testFailedBatchRetriedPerEntry() throws Exception {
+      Set<String> written = ConcurrentHashMap.newKeySet();
+      WriteCombiner<String> combiner = new WriteCombiner<>(10, batch -> {
+         throw new PersistenceException("batch failed");
+      }, blockFirstWrite(entry -> {
+         if (entry.equals("bad")) {
+            throw new PersistenceException("bad entry");
+         }
+         written.add(entry);
+      }));
+
+      List<Future<?>> futures = writeWhileFirstWriteBlocked(combiner, "good", "bad");
+      futures.get(0).get(10, TimeUnit.SECONDS);
+      futures.get(1).get(10, TimeUnit.SECONDS);
+      try {
+         futures.get(2).get(10, TimeUnit.SECONDS);
+         fail("Expected a PersistenceException");
+      } catch (ExecutionException e) {
+         assertEquals("bad entry", e.getCause().getMessage());
+      }
+      assertEquals(2, written.size());
+   }
+
+   public void testLeaderStopsAfterOwnWrite() throws Exception {
+      Map<String, Thread> writingThreads = new ConcurrentHashMap<>();
+      WriteCombiner<String> combiner = new WriteCombiner<>(1, batches -> fail("Batches have a single entry"),
+            blockFirstWrite(entry -> writingThreads.put(entry, Thread.currentThread())));
+
+      List<Future<?>> futures = writeWhileFirstWriteBlocked(combiner, "k0", "k1", "k2");
+      for (Future<?> future : futures) {
+         future.get(10, TimeUnit.SECONDS);
+      }
+      assertEquals(4, writingThreads.size());
+      // The entries queued after the leader's own entry are written by another thread
+      Thread leader = writingThreads.remove("first");
+      for (Thread thread : writingThreads.values()) {
+         assertNotSame(leader, thread);
+      }
+   }
+
+   private Consumer<String> blockFirstWrite(Consumer<String> writer) {
+      return entry -> {
+         if (entry.equals("first")) {
+            firstWriteStarted.countDown();
+            try {
+               releaseFirstWrite.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+            }
+         }
+         writer.accept(entry);
+      };
+   }
+
+   /**
+    * The first write blocks its thread, which becomes the leader, so the other writes are queued until it's released.
+    */
+   private List<Future<?>> writeWhileFirstWriteBlocked(WriteCombiner<String> combiner, String... entries)
+         throws InterruptedException {
+      List<Future<?>> futures = new ArrayList<>();
+      futures.add(fork(() -> combiner.write("first")));
+      assertTrue(firstWriteStarted.await(10, TimeUnit.SECONDS));
+      for (String entry : entries) {
+         futures.add(fork(() -> combiner.write(entry)));
+      }
+      eventually(() -> combiner.pendingWrites() == entries.length);
+      releaseFirstWrite.countDown();
+      return futures;
+   }
+}
@@ -0,0 +1,172 @@
+package org.infinispan.persistence.util;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertSame;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.infinispan.marshall.core.MarshalledEntry;
+import org.infinispan.persistence.spi.AdvancedCacheLoader;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.infinispan.util.concurrent.WithinThreadExecutor;
+import org.infinispan.util.reactive.Subscriber;
+import org.infinispan.util.reactive.Subscription;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests that {@link ProcessPublisher} honours the demand of its subscriber.
+ *
+ * @since 9.1
+ */
+@Test(groups = "unit", testName = "persistence.util.ProcessPublisherTest")
+public class ProcessPublisherTest extends AbstractInfinispanTest {
+   private static final int ENTRIES = 100;
+
+   private ThreadPoolExecutor executor;
+   private AtomicInteger processed;
+
+   @BeforeMethod
+   public void createExecutor() {
+      executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(2, getTestThreadFactory("Persistence"));
+      processed = new AtomicInteger();
+   }
+
+   @AfterMethod(alwaysRun = true)
+   public void shutdownExecutor() {
+      executor.shutdownNow();
+   }
+
+   public void testIterationInRequestingThread() {
+      Thread testThread = Thread.currentThread();
+      RecordingSubscriber subscriber = new RecordingSubscriber(testThread);
+      new ProcessPublisher<>(loader(), null, true, true, new WithinThreadExecutor()).subscribe(subscriber);
+
+      subscriber.subscription.request(1);
+      assertEquals(1, subscriber.entries.size());
+      assertFalse(subscriber.completed);
+
+      subscriber.subscription.request(ENTRIES / 2);
+      assertEquals(ENTRIES / 2 + 1, subscriber.entries.size());
+      assertFalse(subscriber.completed);
+
+      subscriber.subscription.request(Long.MAX_VALUE);
+      assertEquals(ENTRIES, subscriber.entries.size());
+      assertTrue(subscriber.completed);
+      assertNull(subscriber.error);
+   }
+
+   public void testIterationInExecutorWaitsForDemand() {
+      RecordingSubscriber subscriber = new RecordingSubscriber(null);
+      new ProcessPublisher<>(loader(), null, true, true, executor).subscribe(subscriber);
+
+      subscriber.subscription.request(10);
+      eventually(() -> subscriber.entries.size() == 10);
+      // The iteration waits for its last entry to be requested
+      eventually(() -> processed.get() == 11);
+      assertEquals(10, subscriber.entries.size());
+
+      for (int i = 10; i < ENTRIES; i++) {
+         subscriber.subscription.request(1);
+      }
+      eventually(() -> subscriber.completed);
+      assertEquals(ENTRIES, subscriber.entries.size());
+      assertEquals(ENTRIES, processed.get());
+      assertFalse(subscriber.concurrentOnNext);
+      assertNull(subscriber.error);
+   }
+
+   public void testCancelStopsIteration() {
+      RecordingSubscriber subscriber = new RecordingSubscriber(null);
+      new ProcessPublisher<>(loader(), null, true, true, executor).subscribe(subscriber);
+
+      subscriber.subscription.request(5);
+      eventually(() -> processed.get() == 6);
+      subscriber.subscription.cancel();
+      eventually(() -> executor.getActiveCount() == 0);
+      assertEquals(6, processed.get());
+      assertEquals(5, subscriber.entries.size());
+      assertFalse(subscriber.completed);
+   }
+
+   private AdvancedCacheLoader<Object, Object> loader() {
+      AdvancedCacheLoader<Object, Object> loader = mock(AdvancedCacheLoader.class);
+      doAnswer(invocation -> {
+         AdvancedCacheLoader.CacheLoaderTask<Object, Object> task =
+               (AdvancedCacheLoader.CacheLoaderTask<Object, Object>) invocation.getArguments()[1];
+         AtomicBoolean stopped = new AtomicBoolean();
+         AdvancedCacheLoader.TaskContext context = new AdvancedCacheLoader.TaskContext() {
+            @Override
+            public void stop() {
+               stopped.set(true);
+            }
+
+            @Override
+            public boolean isStopped() {
+               return stopped.get();
+            }
+         };
+         for (int i = 0; i < ENTRIES && !stopped.get(); i++) {
+            processed.incrementAndGet();
+            task.processEntry(mock(MarshalledEntry.class), context);
+         }
+         return null;
+      }).when(loader).process(any(), any(), any(), anyBoolean(), anyBoolean());
+      return loader;
+   }
+
+   private static class RecordingSubscriber implements Subscriber<MarshalledEntry<Object, Object>> {
+      private final Thread expectedThread;
+      private final List<MarshalledEntry<Object, Object>> entries = Collections.synchronizedList(new ArrayList<>());
+      private final AtomicBoolean inOnNext = new AtomicBoolean();
+      private volatile Subscription subscription;
+      private volatile boolean concurrentOnNext;
+      private volatile boolean completed;
+      private volatile Throwable error;
+
+      RecordingSubscriber(Thread expectedThread) {
+         this.expectedThread = expectedThread;
+      }
+
+      @Override
+      public void onSubscribe(Subscription subscription) {
+         this.subscription = subscription;
+      }
+
+      @Override
+      public void onNext(MarshalledEntry<Object, Object> entry) {
+         if (!inOnNext.compareAndSet(false, true)) {
+            concurrentOnNext = true;
+         }
+         if (expectedThread != null) {
+            assertSame(expectedThread, Thread.currentThread());
+         }
+         entries.add(entry);
+         inOnNext.set(false);
+      }
+
+      @Override
+      public void onError(Throwable t) {
+         error = t;
+      }
+
+      @Override
+      public void onComplete() {
+         completed = true;
+      }
+   }
+}
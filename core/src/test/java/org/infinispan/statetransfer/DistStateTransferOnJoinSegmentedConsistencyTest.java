@@ -0,0 +1,22 @@
+package org.infinispan.statetransfer;
+
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.test.fwk.CleanupAfterMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Same as {@link DistStateTransferOnJoinConsistencyTest} but using a segmented data container.
+ *
+ * @since 9.1
+ */
+@Test(groups = "functional", testName = "statetransfer.DistStateTransferOnJoinSegmentedConsistencyTest")
+@CleanupAfterMethod
+public class DistStateTransferOnJoinSegmentedConsistencyTest extends DistStateTransferOnJoinConsistencyTest {
+
+   @Override
+   protected ConfigurationBuilder createConfigurationBuilder(boolean isOptimistic) {
+      ConfigurationBuilder builder = super.createConfigurationBuilder(isOptimistic);
+      builder.memory().segmented(true);
+      return builder;
+   }
+}
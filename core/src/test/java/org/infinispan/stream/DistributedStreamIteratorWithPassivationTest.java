@@ -11,12 +11,12 @@
 import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 import org.infinispan.Cache;
+import org.infinispan.commons.CacheException;
 import org.infinispan.commons.util.Immutables;
 import org.infinispan.configuration.cache.CacheMode;
 import org.infinispan.configuration.cache.ConfigurationBuilder;
@@ -33,9 +33,10 @@
 import org.infinispan.persistence.dummy.DummyInMemoryStore;
 import org.infinispan.persistence.dummy.DummyInMemoryStoreConfigurationBuilder;
 import org.infinispan.persistence.manager.PersistenceManager;
-import org.infinispan.persistence.spi.AdvancedCacheLoader;
+import org.infinispan.persistence.manager.PersistenceManager.AccessMode;
 import org.infinispan.test.TestingUtil;
 import org.infinispan.test.fwk.CheckPoint;
+import org.infinispan.util.reactive.Publisher;
 import org.mockito.AdditionalAnswers;
 import org.mockito.stubbing.Answer;
 import org.testng.annotations.Test;
@@ -260,14 +261,19 @@ protected PersistenceManager waitUntilAboutToProcessStoreTask(final Cache<?, ?>
       final Answer<Object> forwardedAnswer = AdditionalAnswers.delegatesTo(pm);
       PersistenceManager mockManager = mock(PersistenceManager.class, withSettings().defaultAnswer(forwardedAnswer));
       doAnswer(invocation -> {
-         // Wait for main thread to sync up
-         checkPoint.trigger("pre_process_on_all_stores_invoked");
-         // Now wait until main thread lets us through
-         checkPoint.awaitStrict("pre_process_on_all_stores_released", 10, TimeUnit.SECONDS);
-
-         return forwardedAnswer.answer(invocation);
-      }).when(mockManager).processOnAllStores(any(Executor.class),      any(KeyFilter.class), any(AdvancedCacheLoader.CacheLoaderTask.class),
-                                                  anyBoolean(), anyBoolean());
+         Publisher<?> publisher = (Publisher<?>) forwardedAnswer.answer(invocation);
+         return (Publisher<Object>) subscriber -> {
+            try {
+               // Wait for main thread to sync up
+               checkPoint.trigger("pre_process_on_all_stores_invoked");
+               // Now wait until main thread lets us through
+               checkPoint.awaitStrict("pre_process_on_all_stores_released", 10, TimeUnit.SECONDS);
+            } catch (InterruptedException | TimeoutException e) {
+               throw new CacheException(e);
+            }
+            publisher.subscribe(subscriber);
+         };
+      }).when(mockManager).publishEntries(any(KeyFilter.class), anyBoolean(), anyBoolean(), any(AccessMode.class));
       TestingUtil.replaceComponent(cache, PersistenceManager.class, mockManager, true);
       return pm;
    }
@@ -0,0 +1,15 @@
+package org.infinispan.stream;
+
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.testng.annotations.Test;
+
+/**
+ * Verifies stream tests work on a regular distributed stream with a segmented data container
+ */
+@Test(groups = "functional", testName = "streams.DistributedStreamSegmentedTest")
+public class DistributedStreamSegmentedTest extends DistributedStreamTest {
+   @Override
+   protected void enhanceConfiguration(ConfigurationBuilder builder) {
+      builder.memory().segmented(true);
+   }
+}
@@ -0,0 +1,59 @@
+package org.infinispan.stream.impl.local;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.AssertJUnit.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.infinispan.container.entries.CacheEntry;
+import org.infinispan.container.entries.ImmortalCacheEntry;
+import org.infinispan.distribution.ch.ConsistentHash;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.testng.annotations.Test;
+
+/**
+ * Tests that the elements returned by the segment aware suppliers are filtered by the consistent hash as well.
+ *
+ * @since 9.1
+ */
+@Test(groups = "unit", testName = "stream.impl.local.StreamSupplierSegmentFilterTest")
+public class StreamSupplierSegmentFilterTest extends AbstractInfinispanTest {
+
+   private static final Set<Integer> SEGMENTS = Collections.singleton(0);
+
+   private ConsistentHash consistentHash() {
+      ConsistentHash hash = mock(ConsistentHash.class);
+      when(hash.getNumSegments()).thenReturn(2);
+      when(hash.getSegment("k0")).thenReturn(0);
+      when(hash.getSegment("k1")).thenReturn(1);
+      return hash;
+   }
+
+   @SuppressWarnings("unchecked")
+   private CacheEntry<String, String> entry(String key, String value) {
+      return new ImmortalCacheEntry(key, value);
+   }
+
+   public void testEntryStreamSupplier() {
+      List<CacheEntry<String, String>> entries = Arrays.asList(entry("k0", "v0"), entry("k1", "v1"));
+      EntryStreamSupplier<String, String> supplier = new EntryStreamSupplier<String, String>(null, consistentHash(),
+            Stream::<CacheEntry<String, String>>empty, segments -> entries.stream());
+
+      List<Object> keys = supplier.buildStream(SEGMENTS, null).map(CacheEntry::getKey).collect(Collectors.toList());
+      assertEquals(Collections.singletonList("k0"), keys);
+   }
+
+   public void testKeyStreamSupplier() {
+      KeyStreamSupplier<String, String> supplier = new KeyStreamSupplier<String, String>(null, consistentHash(),
+            Stream::<String>empty, segments -> Stream.of("k0", "k1"));
+
+      List<String> keys = supplier.buildStream(SEGMENTS, null).collect(Collectors.toList());
+      assertEquals(Collections.singletonList("k0"), keys);
+   }
+}
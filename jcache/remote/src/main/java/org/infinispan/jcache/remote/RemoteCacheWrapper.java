@@ -11,6 +11,7 @@
 import org.infinispan.client.hotrod.CacheTopologyInfo;
 import org.infinispan.client.hotrod.Flag;
 import org.infinispan.client.hotrod.MetadataValue;
+import org.infinispan.client.hotrod.NearCacheStatistics;
 import org.infinispan.client.hotrod.RemoteCache;
 import org.infinispan.client.hotrod.RemoteCacheManager;
 import org.infinispan.client.hotrod.ServerStatistics;
@@ -379,6 +380,11 @@ public ServerStatistics stats() {
       return delegate.stats();
    }
 
+   @Override
+   public NearCacheStatistics nearCacheStats() {
+      return delegate.nearCacheStats();
+   }
+
    @Override
    public void stop() {
       delegate.stop();
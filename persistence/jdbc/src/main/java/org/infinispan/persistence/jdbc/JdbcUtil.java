@@ -1,6 +1,7 @@
 package org.infinispan.persistence.jdbc;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
@@ -46,4 +47,15 @@ public static void safeClose(ResultSet rs) {
          }
       }
    }
+
+   /**
+    * Binds a key mapped by the string based store, which is either a string or the marshalled bytes of the key.
+    */
+   public static void setKey(PreparedStatement ps, int index, Object key) throws SQLException {
+      if (key instanceof byte[]) {
+         ps.setBytes(index, (byte[]) key);
+      } else {
+         ps.setString(index, (String) key);
+      }
+   }
 }
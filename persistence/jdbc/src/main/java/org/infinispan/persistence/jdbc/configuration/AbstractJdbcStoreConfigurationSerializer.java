@@ -67,6 +67,9 @@ protected void writeJDBCStoreTable(XMLExtendedStreamWriter writer, Element eleme
       writeJDBCStoreColumn(writer, Element.ID_COLUMN, attributes, TableManipulationConfiguration.ID_COLUMN_NAME, TableManipulationConfiguration.ID_COLUMN_TYPE);
       writeJDBCStoreColumn(writer, Element.DATA_COLUMN, attributes, TableManipulationConfiguration.DATA_COLUMN_NAME, TableManipulationConfiguration.DATA_COLUMN_TYPE);
       writeJDBCStoreColumn(writer, Element.TIMESTAMP_COLUMN, attributes, TableManipulationConfiguration.TIMESTAMP_COLUMN_NAME, TableManipulationConfiguration.TIMESTAMP_COLUMN_TYPE);
+      if (attributes.attribute(TableManipulationConfiguration.SEGMENT_COLUMN_NAME).isModified()) {
+         writeJDBCStoreColumn(writer, Element.SEGMENT_COLUMN, attributes, TableManipulationConfiguration.SEGMENT_COLUMN_NAME, TableManipulationConfiguration.SEGMENT_COLUMN_TYPE);
+      }
 
       writer.writeEndElement();
    }
@@ -14,6 +14,7 @@ public enum Attribute {
    UNKNOWN(null),
 
    BATCH_SIZE("batch-size"),
+   BINARY_KEYS("binary-keys"),
    CONNECTION_URL("connection-url"),
    CREATE_ON_START("create-on-start"),
    DIALECT("dialect"),
@@ -85,6 +85,9 @@ private void parseStringKeyedJdbcStore(final XMLExtendedStreamReader reader,
             case KEY_TO_STRING_MAPPER:
                builder.key2StringMapper(value);
                break;
+            case BINARY_KEYS:
+               builder.binaryKeys(Boolean.parseBoolean(value));
+               break;
             case DIALECT:
                builder.dialect(DatabaseType.valueOf(value));
                break;
@@ -258,6 +261,12 @@ private void parseTableElements(XMLExtendedStreamReader reader, TableManipulatio
                builder.timestampColumnType(column.type);
                break;
             }
+            case SEGMENT_COLUMN: {
+               Column column = parseTableElementAttributes(reader);
+               builder.segmentColumnName(column.name);
+               builder.segmentColumnType(column.type);
+               break;
+            }
             default: {
                throw ParseUtils.unexpectedElement(reader);
             }
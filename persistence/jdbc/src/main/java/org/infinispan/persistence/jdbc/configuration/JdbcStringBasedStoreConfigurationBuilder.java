@@ -1,5 +1,6 @@
 package org.infinispan.persistence.jdbc.configuration;
 
+import static org.infinispan.persistence.jdbc.configuration.JdbcStringBasedStoreConfiguration.BINARY_KEYS;
 import static org.infinispan.persistence.jdbc.configuration.JdbcStringBasedStoreConfiguration.KEY2STRING_MAPPER;
 import static org.infinispan.persistence.jdbc.configuration.JdbcStringBasedStoreConfiguration.PROPERTIES;
 
@@ -51,6 +52,16 @@ public JdbcStringBasedStoreConfigurationBuilder key2StringMapper(Class<? extends
       return this;
    }
 
+   /**
+    * Stores the keys as their marshalled bytes instead of mapping them to strings, in which case the key to string
+    * mapper is not used and the id column must have a binary type which can be used as primary key, such as
+    * VARBINARY or BYTEA. Defaults to false.
+    */
+   public JdbcStringBasedStoreConfigurationBuilder binaryKeys(boolean binaryKeys) {
+      attributes.attribute(BINARY_KEYS).set(binaryKeys);
+      return this;
+   }
+
    /**
     * Allows configuration of table-specific parameters such as column names and types
     */
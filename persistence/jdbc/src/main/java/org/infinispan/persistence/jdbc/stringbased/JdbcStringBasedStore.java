@@ -9,7 +9,16 @@
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 
@@ -19,12 +28,15 @@
 import org.infinispan.commons.io.ByteBuffer;
 import org.infinispan.commons.marshall.StreamingMarshaller;
 import org.infinispan.commons.persistence.Store;
+import org.infinispan.commons.util.CloseableIterator;
 import org.infinispan.commons.util.Util;
 import org.infinispan.configuration.global.GlobalConfiguration;
+import org.infinispan.distribution.ch.KeyPartitioner;
 import org.infinispan.executors.ExecutorAllCompletionService;
 import org.infinispan.filter.KeyFilter;
 import org.infinispan.marshall.core.MarshalledEntry;
 import org.infinispan.marshall.core.MarshalledEntryFactory;
+import org.infinispan.persistence.PersistenceUtil;
 import org.infinispan.persistence.TaskContextImpl;
 import org.infinispan.persistence.jdbc.JdbcUtil;
 import org.infinispan.persistence.jdbc.configuration.JdbcStringBasedStoreConfiguration;
@@ -36,14 +48,17 @@
 import org.infinispan.persistence.keymappers.Key2StringMapper;
 import org.infinispan.persistence.keymappers.TwoWayKey2StringMapper;
 import org.infinispan.persistence.keymappers.UnsupportedKeyTypeException;
-import org.infinispan.persistence.spi.AdvancedLoadWriteStore;
 import org.infinispan.persistence.spi.InitializationContext;
 import org.infinispan.persistence.spi.PersistenceException;
+import org.infinispan.persistence.spi.SegmentedAdvancedLoadWriteStore;
 import org.infinispan.persistence.spi.TransactionalCacheWriter;
 import org.infinispan.persistence.support.BatchModification;
+import org.infinispan.persistence.support.WriteCombiner;
 import org.infinispan.util.KeyValuePair;
 import org.infinispan.util.TimeService;
 import org.infinispan.util.logging.LogFactory;
+import org.infinispan.util.reactive.Publisher;
+import org.infinispan.util.reactive.Publishers;
 
 /**
  * {@link org.infinispan.persistence.spi.AdvancedCacheLoader} implementation that stores the entries in a database. In contrast to the
@@ -74,6 +89,14 @@
  * <b>Rehashing</b>. When a node leaves/joins, Infinispan moves around persistent state as part of rehashing process.
  * For this it needs access to the underlaying key objects, so if distribution is used, the mapper needs to be an
  * {@link org.infinispan.persistence.keymappers.TwoWayKey2StringMapper} otherwise the cache won't start (same constraint as with preloading).
+ * <p/>
+ * <b>Binary keys</b>. If the store is configured with binary keys, the keys are stored as their marshalled bytes in a
+ * binary id column instead of being mapped to strings, so any marshallable key can be stored and no key to string
+ * mapper is needed for preloading or rehashing.
+ * <p/>
+ * <b>Segments</b>. If the table has a segment column, the segment of each key is stored along with the entry, and the
+ * entries of some segments are read, counted and removed with queries on this column. Iterating over all the entries,
+ * e.g. for preloading, then runs a query per group of segments, each on its own connection, in parallel.
  *
  * @author Mircea.Markus@jboss.com
  * @see org.infinispan.persistence.keymappers.Key2StringMapper
@@ -81,13 +104,14 @@
  */
 @Store(shared = true)
 @ConfiguredBy(JdbcStringBasedStoreConfiguration.class)
-public class JdbcStringBasedStore<K,V> implements AdvancedLoadWriteStore<K,V>, TransactionalCacheWriter<K,V> {
+public class JdbcStringBasedStore<K,V> implements SegmentedAdvancedLoadWriteStore<K,V>, TransactionalCacheWriter<K,V> {
 
    private static final Log log = LogFactory.getLog(JdbcStringBasedStore.class, Log.class);
    private static final boolean trace = log.isTraceEnabled();
 
    private final Map<Transaction, Connection> transactionConnectionMap = new ConcurrentHashMap<>();
    private JdbcStringBasedStoreConfiguration configuration;
+   private InitializationContext ctx;
 
    private GlobalConfiguration globalConfiguration;
    private Key2StringMapper key2StringMapper;
@@ -98,9 +122,12 @@
    private TableManager tableManager;
    private TimeService timeService;
    private boolean isDistributedCache;
+   private volatile KeyPartitioner keyPartitioner;
+   private WriteCombiner<MarshalledEntry<? extends K, ? extends V>> writeCombiner;
 
    @Override
    public void init(InitializationContext ctx) {
+      this.ctx = ctx;
       this.configuration = ctx.getConfiguration();
       this.cacheName = ctx.getCache().getName();
       this.globalConfiguration = ctx.getCache().getCacheManager().getCacheManagerConfiguration();
@@ -130,6 +157,10 @@ public void start() {
       if (trace) {
          log.tracef("Using key2StringMapper: %s", key2StringMapper.getClass().getName());
       }
+      if (configuration.binaryKeys()) {
+         // The keys are unmarshalled, so they don't need to be mapped back from strings
+         return;
+      }
       if (configuration.preload()) {
          enforceTwoWayMapper("preload");
       }
@@ -173,22 +204,37 @@ void initializeConnectionFactory(ConnectionFactory connectionFactory) throws Per
       tableManager = getTableManager();
       tableManager.setCacheName(cacheName);
       tableManager.start();
+      // Without upsert the entries of a batch are written one by one anyway
+      writeCombiner = tableManager.isUpsertSupported() ?
+            new WriteCombiner<>(configuration.maxBatchSize(), this::writeBatch, this::writeEntry) : null;
    }
 
    public ConnectionFactory getConnectionFactory() {
       return connectionFactory;
    }
 
+   /**
+    * Writes the entry, in a batch with the entries written concurrently by other threads if the database supports
+    * upsert.
+    */
    @Override
    public void write(MarshalledEntry entry) {
+      if (writeCombiner != null) {
+         writeCombiner.write(entry);
+      } else {
+         writeEntry(entry);
+      }
+   }
+
+   private void writeEntry(MarshalledEntry<? extends K, ? extends V> entry) {
       Connection connection = null;
-      String keyStr = key2Str(entry.getKey());
+      Object dbKey = toDbKey(entry);
       try {
          connection = connectionFactory.getConnection();
-         write(entry, connection, keyStr);
+         write(entry, connection, dbKey);
       } catch (SQLException ex) {
-         log.sqlFailureStoringKey(keyStr, ex);
-         throw new PersistenceException(String.format("Error while storing string key to database; key: '%s'", keyStr), ex);
+         log.sqlFailureStoringKey(printKey(dbKey), ex);
+         throw new PersistenceException(String.format("Error while storing string key to database; key: '%s'", printKey(dbKey)), ex);
       } catch (InterruptedException e) {
          if (trace) {
             log.trace("Interrupted while marshalling to store");
@@ -200,44 +246,45 @@ public void write(MarshalledEntry entry) {
    }
 
    private void write(MarshalledEntry entry, Connection connection) throws SQLException, InterruptedException {
-      write(entry, connection, key2Str(entry.getKey()));
+      write(entry, connection, toDbKey(entry));
    }
 
-   private void write(MarshalledEntry entry, Connection connection, String keyStr) throws SQLException, InterruptedException {
+   private void write(MarshalledEntry entry, Connection connection, Object dbKey) throws SQLException, InterruptedException {
       if (tableManager.isUpsertSupported()) {
-         executeUpsert(connection, entry, keyStr);
+         executeUpsert(connection, entry, dbKey);
       } else {
-         executeLegacyUpdate(connection, entry, keyStr);
+         executeLegacyUpdate(connection, entry, dbKey);
       }
    }
 
-   private void executeUpsert(Connection connection, MarshalledEntry entry, String keyStr)
+   private void executeUpsert(Connection connection, MarshalledEntry entry, Object dbKey)
          throws InterruptedException, SQLException {
       PreparedStatement ps = null;
       String sql = tableManager.getUpsertRowSql();
       if (trace) {
-         log.tracef("Running sql '%s'. Key string is '%s'", sql, keyStr);
+         log.tracef("Running sql '%s'. Key string is '%s'", sql, printKey(dbKey));
       } try {
          ps = connection.prepareStatement(sql);
-         prepareUpdateStatement(entry, keyStr, ps);
+         prepareUpdateStatement(entry, dbKey, ps);
          ps.executeUpdate();
       } finally {
          JdbcUtil.safeClose(ps);
       }
    }
 
-   private void executeLegacyUpdate(Connection connection, MarshalledEntry entry, String keyStr)
+   private void executeLegacyUpdate(Connection connection, MarshalledEntry entry, Object dbKey)
          throws InterruptedException, SQLException {
       String sql = tableManager.getSelectIdRowSql();
       if (trace) {
-         log.tracef("Running sql '%s'. Key string is '%s'", sql, keyStr);
+         log.tracef("Running sql '%s'. Key string is '%s'", sql, printKey(dbKey));
       }
       PreparedStatement ps = null;
       try {
          ps = connection.prepareStatement(sql);
-         ps.setString(1, keyStr);
+         JdbcUtil.setKey(ps, 1, dbKey);
          ResultSet rs = ps.executeQuery();
-         if (rs.next()) {
+         boolean exists = rs.next();
+         if (exists) {
             sql = tableManager.getUpdateRowSql();
          } else {
             sql = tableManager.getInsertRowSql();
@@ -245,10 +292,11 @@ private void executeLegacyUpdate(Connection connection, MarshalledEntry entry, S
          JdbcUtil.safeClose(rs);
          JdbcUtil.safeClose(ps);
          if (trace) {
-            log.tracef("Running sql '%s'. Key string is '%s'", sql, keyStr);
+            log.tracef("Running sql '%s'. Key string is '%s'", sql, printKey(dbKey));
          }
          ps = connection.prepareStatement(sql);
-         prepareUpdateStatement(entry, keyStr, ps);
+         // The segment of a key never changes, so it is only set when inserting the row
+         prepareUpdateStatement(entry, dbKey, ps, !exists);
          ps.executeUpdate();
       } finally {
          JdbcUtil.safeClose(ps);
@@ -259,22 +307,49 @@ private void executeLegacyUpdate(Connection connection, MarshalledEntry entry, S
    public void writeBatch(Iterable<MarshalledEntry<? extends K, ? extends V>> marshalledEntries) {
       // If upsert is not supported, then we must execute the legacy write for each entry; i.e. read then update/insert
       if (!tableManager.isUpsertSupported()) {
-         marshalledEntries.forEach(this::write);
+         marshalledEntries.forEach(this::writeEntry);
          return;
       }
 
       Connection connection = null;
       try {
          connection = connectionFactory.getConnection();
+         upsertBatch(connection, marshalledEntries);
+      } catch (SQLException | InterruptedException e) {
+         throw log.sqlFailureWritingBatch(e);
+      } finally {
+         connectionFactory.releaseConnection(connection);
+      }
+   }
+
+   /**
+    * Upserts the entries with statements of several rows if the database supports them, and with JDBC batches of
+    * single row statements otherwise. A statement has no more rows than the database can bind the parameters of.
+    */
+   private void upsertBatch(Connection connection, Iterable<? extends MarshalledEntry> marshalledEntries)
+         throws SQLException, InterruptedException {
+      // Only the last write of each key is kept, as a statement can't update the same row twice in some databases
+      Map<Object, MarshalledEntry> entries = new LinkedHashMap<>();
+      for (MarshalledEntry entry : marshalledEntries) {
+         entries.put(entry.getKey(), entry);
+      }
+      List<Map.Entry<Object, MarshalledEntry>> rows = new ArrayList<>(entries.size());
+      for (MarshalledEntry entry : entries.values()) {
+         rows.add(new AbstractMap.SimpleImmutableEntry<>(toDbKey(entry), entry));
+      }
+      if (rows.isEmpty()) {
+         return;
+      }
+      int maxBatchSize = maxBatchSize();
+      if (rows.size() == 1 || tableManager.getUpsertRowsSql(1) == null) {
          try (PreparedStatement upsertBatch = connection.prepareStatement(tableManager.getUpsertRowSql())) {
             int batchSize = 0;
-            for (MarshalledEntry entry : marshalledEntries) {
-               String keyStr = key2Str(entry.getKey());
-               prepareUpdateStatement(entry, keyStr, upsertBatch);
+            for (Map.Entry<Object, MarshalledEntry> row : rows) {
+               prepareUpdateStatement(row.getValue(), row.getKey(), upsertBatch);
                upsertBatch.addBatch();
                batchSize++;
 
-               if (batchSize == configuration.maxBatchSize()) {
+               if (batchSize == maxBatchSize) {
                   batchSize = 0;
                   upsertBatch.executeBatch();
                   upsertBatch.clearBatch();
@@ -284,10 +359,34 @@ public void writeBatch(Iterable<MarshalledEntry<? extends K, ? extends V>> marsh
             if (batchSize != 0)
                upsertBatch.executeBatch();
          }
-      } catch (SQLException | InterruptedException e) {
-         throw log.sqlFailureWritingBatch(e);
+         return;
+      }
+
+      int parametersPerRow = tableManager.hasSegmentColumn() ? 4 : 3;
+      int maxRows = Math.min(maxBatchSize, tableManager.getMaxBindParameters() / parametersPerRow);
+      Iterator<Map.Entry<Object, MarshalledEntry>> it = rows.iterator();
+      int remaining = rows.size();
+      PreparedStatement upsertRows = null;
+      try {
+         while (remaining > 0) {
+            int numberOfRows = Math.min(remaining, maxRows);
+            if (upsertRows == null || numberOfRows != maxRows) {
+               JdbcUtil.safeClose(upsertRows);
+               String sql = tableManager.getUpsertRowsSql(numberOfRows);
+               if (trace) {
+                  log.tracef("Running sql '%s'", sql);
+               }
+               upsertRows = connection.prepareStatement(sql);
+            }
+            for (int i = 0; i < numberOfRows; i++) {
+               Map.Entry<Object, MarshalledEntry> row = it.next();
+               prepareUpsertRowsStatement(row.getValue(), row.getKey(), i, upsertRows);
+            }
+            upsertRows.executeUpdate();
+            remaining -= numberOfRows;
+         }
       } finally {
-         connectionFactory.releaseConnection(connection);
+         JdbcUtil.safeClose(upsertRows);
       }
    }
 
@@ -296,34 +395,60 @@ public void deleteBatch(Iterable<Object> keys) {
       Connection connection = null;
       try {
          connection = connectionFactory.getConnection();
-         try (PreparedStatement deleteBatch = connection.prepareStatement(tableManager.getDeleteRowSql())) {
-            int batchSize = 0;
-            for (Object key : keys) {
-               String keyStr = key2Str(key);
-               deleteBatch.setString(1, keyStr);
-               deleteBatch.addBatch();
-               batchSize++;
+         deleteBatch(connection, keys);
+      } catch (SQLException e) {
+         throw log.sqlFailureDeletingBatch(keys, e);
+      } finally {
+         connectionFactory.releaseConnection(connection);
+      }
+   }
 
-               if (batchSize == configuration.maxBatchSize()) {
-                  batchSize = 0;
-                  deleteBatch.executeBatch();
-                  deleteBatch.clearBatch();
+   /**
+    * Deletes the keys with statements of up to max batch size keys each, within the limits of the database.
+    */
+   private void deleteBatch(Connection connection, Iterable<Object> keys) throws SQLException {
+      List<Object> dbKeys = new ArrayList<>();
+      for (Object key : keys) {
+         dbKeys.add(toDbKey(key));
+      }
+      int maxKeys = Math.min(maxBatchSize(),
+            Math.min(tableManager.getMaxBindParameters(), tableManager.getMaxInListSize()));
+      PreparedStatement deleteRows = null;
+      try {
+         int from = 0;
+         while (from < dbKeys.size()) {
+            List<Object> chunk = dbKeys.subList(from, from + Math.min(dbKeys.size() - from, maxKeys));
+            from += chunk.size();
+            if (deleteRows == null || chunk.size() != maxKeys) {
+               JdbcUtil.safeClose(deleteRows);
+               String sql = tableManager.getDeleteRowsSql(chunk.size());
+               if (trace) {
+                  log.tracef("Running sql '%s'", sql);
                }
+               deleteRows = connection.prepareStatement(sql);
             }
-
-            if (batchSize != 0)
-               deleteBatch.executeBatch();
+            for (int i = 0; i < chunk.size(); i++) {
+               JdbcUtil.setKey(deleteRows, i + 1, chunk.get(i));
+            }
+            deleteRows.executeUpdate();
          }
-      } catch (SQLException e) {
-         throw log.sqlFailureDeletingBatch(keys, e);
       } finally {
-         connectionFactory.releaseConnection(connection);
+         JdbcUtil.safeClose(deleteRows);
       }
    }
 
+   /**
+    * @return the maximum number of rows written or deleted by a statement or a JDBC batch, a non-positive
+    * {@link JdbcStringBasedStoreConfiguration#maxBatchSize()} meaning no limit
+    */
+   private int maxBatchSize() {
+      int maxBatchSize = configuration.maxBatchSize();
+      return maxBatchSize > 0 ? maxBatchSize : Integer.MAX_VALUE;
+   }
+
    @Override
    public MarshalledEntry load(Object key) {
-      String lockingKey = key2Str(key);
+      Object dbKey = toDbKey(key);
       Connection conn = null;
       PreparedStatement ps = null;
       ResultSet rs = null;
@@ -332,7 +457,7 @@ public MarshalledEntry load(Object key) {
          String sql = tableManager.getSelectRowSql();
          conn = connectionFactory.getConnection();
          ps = conn.prepareStatement(sql);
-         ps.setString(1, lockingKey);
+         JdbcUtil.setKey(ps, 1, dbKey);
          rs = ps.executeQuery();
          if (rs.next()) {
             InputStream inputStream = rs.getBinaryStream(2);
@@ -340,10 +465,10 @@ public MarshalledEntry load(Object key) {
             storedValue = marshalledEntryFactory.newMarshalledEntry(key, icv.getKey(), icv.getValue());
          }
       } catch (SQLException e) {
-         log.sqlFailureReadingKey(key, lockingKey, e);
+         log.sqlFailureReadingKey(key, printKey(dbKey), e);
          throw new PersistenceException(String.format(
                "SQL error while fetching stored entry with key: %s, lockingKey: %s",
-               key, lockingKey), e);
+               key, printKey(dbKey)), e);
       } finally {
          JdbcUtil.safeClose(rs);
          JdbcUtil.safeClose(ps);
@@ -381,15 +506,15 @@ public void clear() {
    public boolean delete(Object key) {
       Connection connection = null;
       PreparedStatement ps = null;
-      String keyStr = key2Str(key);
+      Object dbKey = toDbKey(key);
       try {
          String sql = tableManager.getDeleteRowSql();
          if (trace) {
-            log.tracef("Running sql '%s' on %s", sql, keyStr);
+            log.tracef("Running sql '%s' on %s", sql, printKey(dbKey));
          }
          connection = connectionFactory.getConnection();
          ps = connection.prepareStatement(sql);
-         ps.setString(1, keyStr);
+         JdbcUtil.setKey(ps, 1, dbKey);
          return ps.executeUpdate() == 1;
       } catch (SQLException ex) {
          log.sqlFailureRemovingKeys(ex);
@@ -414,15 +539,15 @@ public void purge(Executor executor, PurgeListener purgeListener) {
 
          try (PreparedStatement batchDelete = conn.prepareStatement(tableManager.getDeleteRowSql())) {
             int affectedRows = 0;
-            boolean twoWayMapperExists = key2StringMapper instanceof TwoWayKey2StringMapper;
+            boolean twoWayMapperExists = configuration.binaryKeys() || key2StringMapper instanceof TwoWayKey2StringMapper;
             while (rs.next()) {
                affectedRows++;
-               String keyStr = rs.getString(2);
-               batchDelete.setString(1, keyStr);
+               Object dbKey = readDbKey(rs, 2);
+               JdbcUtil.setKey(batchDelete, 1, dbKey);
                batchDelete.addBatch();
 
                if (twoWayMapperExists && purgeListener != null) {
-                  Object key = ((TwoWayKey2StringMapper) key2StringMapper).getKeyMapping(keyStr);
+                  Object key = toKey(dbKey);
                   purgeListener.entryPurged(key);
                }
             }
@@ -453,93 +578,181 @@ public boolean contains(Object key) {
       return load(key) != null;
    }
 
+   /**
+    * Iterates over the entries with a query per group of segments if the table has a segment column, so that the rows
+    * are read and unmarshalled on several connections in parallel, and with a single query otherwise. The entries are
+    * unmarshalled from the result set as it is streamed, so that only a fetch size worth of rows is held in memory for
+    * each query.
+    */
    @Override
    public void process(final KeyFilter filter, final CacheLoaderTask task, Executor executor, final boolean fetchValue, final boolean fetchMetadata) {
+      TaskContext taskContext = new TaskContextImpl();
+      ExecutorAllCompletionService ecs = new ExecutorAllCompletionService(executor);
+      long now = timeService.wallClockTime();
+      for (Set<Integer> segments : segmentPartitions()) {
+         ecs.submit(() -> {
+            try (EntryIterator it = new EntryIterator(segments, filter, fetchValue, fetchMetadata, now)) {
+               while (!taskContext.isStopped() && it.hasNext()) {
+                  task.processEntry(it.next(), taskContext);
+               }
+            }
+            return null;
+         });
+      }
+      ecs.waitUntilAllCompleted();
+      if (ecs.isExceptionThrown()) {
+         throw new PersistenceException("Execution exception!", ecs.getFirstException());
+      }
+   }
+
+   /**
+    * @return the groups of segments to query in parallel, or a single {@code null} group to query the whole table if
+    * it doesn't have a segment column
+    */
+   private List<Set<Integer>> segmentPartitions() {
+      List<Set<Integer>> partitions = new ArrayList<>();
+      if (!tableManager.hasSegmentColumn()) {
+         partitions.add(null);
+         return partitions;
+      }
+      int numSegments = ctx.getCache().getCacheConfiguration().clustering().hash().numSegments();
+      int numPartitions = Math.min(numSegments, Runtime.getRuntime().availableProcessors());
+      for (int i = 0; i < numPartitions; i++) {
+         partitions.add(new HashSet<>());
+      }
+      for (int segment = 0; segment < numSegments; segment++) {
+         partitions.get(segment % numPartitions).add(segment);
+      }
+      return partitions;
+   }
+
+   /**
+    * Reads the entries of the segments as they are requested, in the requesting thread. The connection is held until
+    * all the entries were published or the subscription is cancelled.
+    */
+   @Override
+   public Publisher<MarshalledEntry<K, V>> publishEntries(Set<Integer> segments, KeyFilter<? super K> filter,
+                                                          boolean fetchValue, boolean fetchMetadata) {
+      if (segments.isEmpty()) {
+         return Publishers.empty();
+      }
+      return Publishers.fromIterator(() -> new EntryIterator(segments, segmentFilter(segments, filter), fetchValue,
+                                                             fetchMetadata, timeService.wallClockTime()));
+   }
+
+   @Override
+   public boolean isStoredBySegment() {
+      return tableManager.hasSegmentColumn();
+   }
+
+   @Override
+   public int size(Set<Integer> segments) {
+      if (segments.isEmpty()) {
+         return 0;
+      }
+      if (!tableManager.hasSegmentColumn()) {
+         int size = 0;
+         try (EntryIterator it = new EntryIterator(null, segmentFilter(segments, null), false, false,
+                                                   timeService.wallClockTime())) {
+            while (it.hasNext()) {
+               it.next();
+               size++;
+            }
+         }
+         return size;
+      }
       Connection conn = null;
       PreparedStatement ps = null;
       ResultSet rs = null;
       try {
-         String sql = tableManager.getLoadNonExpiredAllRowsSql();
-         if (trace) {
-            log.tracef("Running sql %s", sql);
-         }
          conn = connectionFactory.getConnection();
-         ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+         ps = conn.prepareStatement(tableManager.getCountRowsForSegmentsSql(segments.size()));
          ps.setLong(1, timeService.wallClockTime());
-         ps.setFetchSize(tableManager.getFetchSize());
+         setSegments(ps, 2, segments);
          rs = ps.executeQuery();
+         rs.next();
+         return rs.getInt(1);
+      } catch (SQLException e) {
+         log.sqlFailureIntegratingState(e);
+         throw new PersistenceException("SQL failure while counting the entries of segments " + segments, e);
+      } finally {
+         JdbcUtil.safeClose(rs);
+         JdbcUtil.safeClose(ps);
+         connectionFactory.releaseConnection(conn);
+      }
+   }
 
-         TaskContext taskContext = new TaskContextImpl();
-         ExecutorAllCompletionService ecs = new ExecutorAllCompletionService(executor);
-         while (rs.next()) {
-            String keyStr = rs.getString(2);
-            Object key = ((TwoWayKey2StringMapper) key2StringMapper).getKeyMapping(keyStr);
-            if (taskContext.isStopped()) break;
-            if (filter != null && !filter.accept(key))
-               continue;
-
-            InputStream inputStream = rs.getBinaryStream(1);
-            ecs.submit(() -> {
-               if (!taskContext.isStopped()) {
-                  MarshalledEntry entry;
-                  if (fetchValue || fetchMetadata) {
-                     KeyValuePair<ByteBuffer, ByteBuffer> kvp = unmarshall(inputStream);
-                     entry = marshalledEntryFactory.newMarshalledEntry(
-                           key, fetchValue ? kvp.getKey() : null, fetchMetadata ? kvp.getValue() : null);
-                  } else {
-                     entry = marshalledEntryFactory.newMarshalledEntry(key, (Object) null, null);
-                  }
-                  task.processEntry(entry, taskContext);
-               }
-               return null;
-            });
+   @Override
+   public void removeSegments(Set<Integer> segments) {
+      if (segments.isEmpty()) {
+         return;
+      }
+      if (!tableManager.hasSegmentColumn()) {
+         List<Object> keys = new ArrayList<>();
+         try (EntryIterator it = new EntryIterator(null, segmentFilter(segments, null), false, false, -1)) {
+            while (it.hasNext()) {
+               keys.add(it.next().getKey());
+            }
+         }
+         deleteBatch(keys);
+         return;
+      }
+      Connection conn = null;
+      PreparedStatement ps = null;
+      try {
+         String sql = tableManager.getDeleteRowsForSegmentsSql(segments.size());
+         if (trace) {
+            log.tracef("Running sql '%s' on segments %s", sql, segments);
          }
-         ecs.waitUntilAllCompleted();
-         if (ecs.isExceptionThrown()) {
-            throw new PersistenceException("Execution exception!", ecs.getFirstException());
+         conn = connectionFactory.getConnection();
+         ps = conn.prepareStatement(sql);
+         setSegments(ps, 1, segments);
+         int result = ps.executeUpdate();
+         if (trace) {
+            log.tracef("Successfully removed %d rows.", result);
          }
       } catch (SQLException e) {
-         log.sqlFailureFetchingAllStoredEntries(e);
-         throw new PersistenceException("SQL error while fetching all StoredEntries", e);
+         log.sqlFailureRemovingKeys(e);
+         throw new PersistenceException("Error while removing the entries of segments " + segments, e);
       } finally {
-         JdbcUtil.safeClose(rs);
          JdbcUtil.safeClose(ps);
          connectionFactory.releaseConnection(conn);
       }
    }
 
+   /**
+    * @return the filter to apply to the keys read from a table without segment column
+    */
+   private KeyFilter<? super K> segmentFilter(Set<Integer> segments, KeyFilter<? super K> filter) {
+      if (tableManager.hasSegmentColumn()) {
+         return filter;
+      }
+      KeyPartitioner keyPartitioner = getKeyPartitioner();
+      KeyFilter<? super K> notNullFilter = PersistenceUtil.notNull(filter);
+      return key -> segments.contains(keyPartitioner.getSegment(key)) && notNullFilter.accept(key);
+   }
+
+   private static void setSegments(PreparedStatement ps, int firstIndex, Set<Integer> segments) throws SQLException {
+      int index = firstIndex;
+      for (int segment : segments) {
+         ps.setInt(index++, segment);
+      }
+   }
+
    @Override
    public void prepareWithModifications(Transaction transaction, BatchModification batchModification) throws PersistenceException {
       try {
          Connection connection = getTxConnection(transaction);
          connection.setAutoCommit(false);
 
-         boolean upsertSupported = tableManager.isUpsertSupported();
-         try (PreparedStatement upsertBatch = upsertSupported ? connection.prepareStatement(tableManager.getUpsertRowSql()) : null;
-              PreparedStatement deleteBatch = connection.prepareStatement(tableManager.getDeleteRowSql())) {
-
+         if (tableManager.isUpsertSupported()) {
+            upsertBatch(connection, batchModification.getMarshalledEntries());
+         } else {
             for (MarshalledEntry entry : batchModification.getMarshalledEntries()) {
-               if (upsertSupported) {
-                  String keyStr = key2Str(entry.getKey());
-                  prepareUpdateStatement(entry, keyStr, upsertBatch);
-                  upsertBatch.addBatch();
-               } else {
-                  write(entry, connection);
-               }
-            }
-
-            for (Object key : batchModification.getKeysToRemove()) {
-               String keyStr = key2Str(key);
-               deleteBatch.setString(1, keyStr);
-               deleteBatch.addBatch();
+               write(entry, connection);
             }
-
-            if (upsertSupported && !batchModification.getMarshalledEntries().isEmpty())
-               upsertBatch.executeBatch();
-
-            if (!batchModification.getKeysToRemove().isEmpty())
-               deleteBatch.executeUpdate();
          }
+         deleteBatch(connection, batchModification.getKeysToRemove());
          // We do not call connection.close() in the event of an exception, as close() on active Tx behaviour is implementation
          // dependent. See https://docs.oracle.com/javase/8/docs/api/java/sql/Connection.html#close--
       } catch (SQLException | InterruptedException e) {
@@ -612,10 +825,99 @@ public int size() {
       }
    }
 
-   private void prepareUpdateStatement(MarshalledEntry entry, String key, PreparedStatement ps) throws InterruptedException, SQLException {
+   private void prepareUpdateStatement(MarshalledEntry entry, Object key, PreparedStatement ps) throws InterruptedException, SQLException {
+      prepareUpdateStatement(entry, key, ps, true);
+   }
+
+   private void prepareUpdateStatement(MarshalledEntry entry, Object key, PreparedStatement ps, boolean withSegment) throws InterruptedException, SQLException {
+      ByteBuffer byteBuffer = marshall(new KeyValuePair(entry.getValueBytes(), entry.getMetadataBytes()));
+      long expiryTime = getExpiryTime(entry.getMetadata());
+      if (withSegment && tableManager.hasSegmentColumn()) {
+         int segment = getKeyPartitioner().getSegment(entry.getKey());
+         tableManager.prepareUpdateStatement(ps, key, segment, expiryTime, byteBuffer);
+      } else {
+         tableManager.prepareUpdateStatement(ps, key, expiryTime, byteBuffer);
+      }
+   }
+
+   private void prepareUpsertRowsStatement(MarshalledEntry entry, Object key, int row, PreparedStatement ps) throws InterruptedException, SQLException {
       ByteBuffer byteBuffer = marshall(new KeyValuePair(entry.getValueBytes(), entry.getMetadataBytes()));
       long expiryTime = getExpiryTime(entry.getMetadata());
-      tableManager.prepareUpdateStatement(ps, key, expiryTime, byteBuffer);
+      int segment = tableManager.hasSegmentColumn() ? getKeyPartitioner().getSegment(entry.getKey()) : -1;
+      tableManager.prepareUpsertRowsStatement(ps, row, key, segment, expiryTime, byteBuffer);
+   }
+
+   private KeyPartitioner getKeyPartitioner() {
+      KeyPartitioner keyPartitioner = this.keyPartitioner;
+      if (keyPartitioner == null) {
+         keyPartitioner = ctx.getCache().getAdvancedCache().getComponentRegistry().getComponent(KeyPartitioner.class);
+         this.keyPartitioner = keyPartitioner;
+      }
+      return keyPartitioner;
+   }
+
+   /**
+    * @return the key stored in the id column of the entry, reusing the marshalled key of the entry with binary keys
+    */
+   private Object toDbKey(MarshalledEntry<?, ?> entry) throws PersistenceException {
+      if (configuration.binaryKeys()) {
+         return toBytes(entry.getKeyBytes());
+      }
+      return key2Str(entry.getKey());
+   }
+
+   /**
+    * @return the key stored in the id column: the marshalled key with binary keys, and the key mapped to a string
+    * otherwise
+    */
+   private Object toDbKey(Object key) throws PersistenceException {
+      if (configuration.binaryKeys()) {
+         try {
+            return toBytes(marshaller.objectToBuffer(key));
+         } catch (IOException e) {
+            log.errorMarshallingObject(e, key);
+            throw new PersistenceException("I/O failure while marshalling key: " + key, e);
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PersistenceException(e);
+         }
+      }
+      return key2Str(key);
+   }
+
+   private static byte[] toBytes(ByteBuffer buffer) {
+      byte[] buf = buffer.getBuf();
+      // The marshalled key usually fills its buffer, so it is bound without copying
+      if (buffer.getOffset() == 0 && buffer.getLength() == buf.length) {
+         return buf;
+      }
+      return Arrays.copyOfRange(buf, buffer.getOffset(), buffer.getOffset() + buffer.getLength());
+   }
+
+   private Object readDbKey(ResultSet rs, int column) throws SQLException {
+      return configuration.binaryKeys() ? rs.getBytes(column) : rs.getString(column);
+   }
+
+   /**
+    * @return the key of the value read from the id column
+    */
+   private Object toKey(Object dbKey) throws PersistenceException {
+      if (dbKey instanceof byte[]) {
+         try {
+            return marshaller.objectFromByteBuffer((byte[]) dbKey);
+         } catch (IOException e) {
+            log.ioErrorUnmarshalling(e);
+            throw new PersistenceException("I/O error while unmarshalling key", e);
+         } catch (ClassNotFoundException e) {
+            log.unexpectedClassNotFoundException(e);
+            throw new PersistenceException("*UNEXPECTED* ClassNotFoundException while unmarshalling key", e);
+         }
+      }
+      return ((TwoWayKey2StringMapper) key2StringMapper).getKeyMapping((String) dbKey);
+   }
+
+   private static String printKey(Object dbKey) {
+      return dbKey instanceof byte[] ? Util.printArray((byte[]) dbKey, false) : (String) dbKey;
    }
 
    private String key2Str(Object key) throws PersistenceException {
@@ -660,4 +962,85 @@ private <T> T unmarshall(InputStream inputStream) throws PersistenceException {
          throw new PersistenceException("*UNEXPECTED* ClassNotFoundException. This should not happen as Bucket class exists", e);
       }
    }
+
+   /**
+    * Iterates over the non expired rows of the segments, or of the whole table if the segments are {@code null}.
+    */
+   private class EntryIterator implements CloseableIterator<MarshalledEntry<K, V>> {
+      private final KeyFilter<? super K> filter;
+      private final boolean fetchValue;
+      private final boolean fetchMetadata;
+      private final Connection conn;
+      private PreparedStatement ps;
+      private ResultSet rs;
+      private MarshalledEntry<K, V> next;
+
+      EntryIterator(Set<Integer> segments, KeyFilter<? super K> filter, boolean fetchValue, boolean fetchMetadata,
+                    long now) {
+         this.filter = filter;
+         this.fetchValue = fetchValue;
+         this.fetchMetadata = fetchMetadata;
+         this.conn = connectionFactory.getConnection();
+         try {
+            String sql = segments == null ? tableManager.getLoadNonExpiredAllRowsSql() :
+                  tableManager.getLoadNonExpiredRowsForSegmentsSql(segments.size());
+            if (trace) {
+               log.tracef("Running sql %s", sql);
+            }
+            ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setLong(1, now);
+            if (segments != null) {
+               setSegments(ps, 2, segments);
+            }
+            ps.setFetchSize(tableManager.getFetchSize());
+            rs = ps.executeQuery();
+         } catch (SQLException e) {
+            close();
+            log.sqlFailureFetchingAllStoredEntries(e);
+            throw new PersistenceException("SQL error while fetching all StoredEntries", e);
+         }
+      }
+
+      @Override
+      @SuppressWarnings("unchecked")
+      public boolean hasNext() {
+         try {
+            while (next == null && rs.next()) {
+               K key = (K) toKey(readDbKey(rs, 2));
+               if (filter != null && !filter.accept(key)) {
+                  continue;
+               }
+               if (fetchValue || fetchMetadata) {
+                  // Unmarshall straight from the stream of the row, before the result set moves to the next one
+                  KeyValuePair<ByteBuffer, ByteBuffer> kvp = unmarshall(rs.getBinaryStream(1));
+                  next = marshalledEntryFactory.newMarshalledEntry(
+                        key, fetchValue ? kvp.getKey() : null, fetchMetadata ? kvp.getValue() : null);
+               } else {
+                  next = marshalledEntryFactory.newMarshalledEntry(key, (Object) null, null);
+               }
+            }
+         } catch (SQLException e) {
+            log.sqlFailureFetchingAllStoredEntries(e);
+            throw new PersistenceException("SQL error while fetching all StoredEntries", e);
+         }
+         return next != null;
+      }
+
+      @Override
+      public MarshalledEntry<K, V> next() {
+         if (!hasNext()) {
+            throw new NoSuchElementException();
+         }
+         MarshalledEntry<K, V> entry = next;
+         next = null;
+         return entry;
+      }
+
+      @Override
+      public void close() {
+         JdbcUtil.safeClose(rs);
+         JdbcUtil.safeClose(ps);
+         connectionFactory.releaseConnection(conn);
+      }
+   }
 }
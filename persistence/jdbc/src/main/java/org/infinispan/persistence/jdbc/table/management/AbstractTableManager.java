@@ -25,6 +25,7 @@ public abstract class AbstractTableManager implements TableManager {
    protected final ConnectionFactory connectionFactory;
    protected final TableManipulationConfiguration config;
    protected final String timestampIndexExt = "timestamp_index";
+   protected final String segmentIndexExt = "segment_index";
 
    protected String identifierQuoteString = "\"";
    protected String cacheName;
@@ -62,6 +63,9 @@ public void start() throws PersistenceException {
                createTable(conn);
             }
             createTimestampIndex(conn);
+            if (hasSegmentColumn()) {
+               createSegmentIndex(conn);
+            }
          } finally {
             connectionFactory.releaseConnection(conn);
          }
@@ -114,9 +118,12 @@ public void createTable(Connection conn) throws PersistenceException {
       if (cacheName == null || cacheName.trim().length() == 0)
          throw new PersistenceException("cacheName needed in order to create table");
 
-      String ddl = String.format("CREATE TABLE %1$s (%2$s %3$s NOT NULL, %4$s %5$s NOT NULL, %6$s %7$s NOT NULL, PRIMARY KEY (%2$s))",
+      String segmentColumn = hasSegmentColumn() ?
+            String.format(", %s %s NOT NULL", config.segmentColumnName(), config.segmentColumnType()) : "";
+      String ddl = String.format("CREATE TABLE %1$s (%2$s %3$s NOT NULL, %4$s %5$s NOT NULL, %6$s %7$s NOT NULL%8$s, PRIMARY KEY (%2$s))",
                                  getTableName(), config.idColumnName(), config.idColumnType(), config.dataColumnName(),
-                                 config.dataColumnType(), config.timestampColumnName(), config.timestampColumnType());
+                                 config.dataColumnType(), config.timestampColumnName(), config.timestampColumnType(),
+                                 segmentColumn);
 
       if (log.isTraceEnabled()) {
          log.tracef("Creating table with following DDL: '%s'.", ddl);
@@ -137,16 +144,34 @@ protected void createTimestampIndex(Connection conn) throws PersistenceException
       }
    }
 
+   protected void createSegmentIndex(Connection conn) throws PersistenceException {
+      if (metaData.isIndexingDisabled()) return;
+
+      if (!indexExists(conn, segmentIndexExt)) {
+         String ddl = String.format("CREATE INDEX %s ON %s (%s)", getIndexName(true, segmentIndexExt), getTableName(),
+                                    config.segmentColumnName());
+         if (log.isTraceEnabled()) {
+            log.tracef("Adding segment index with following DDL: '%s'.", ddl);
+         }
+         executeUpdateSql(conn, ddl);
+      }
+   }
+
    protected boolean timestampIndexExists(Connection conn) throws PersistenceException {
+      return indexExists(conn, timestampIndexExt);
+   }
+
+   protected boolean indexExists(Connection conn, String indexExt) throws PersistenceException {
       ResultSet rs = null;
       try {
          TableName table = getTableName();
          DatabaseMetaData meta = conn.getMetaData();
          rs = meta.getIndexInfo(null, table.getSchema(), table.getName(), false, false);
 
+         String expectedName = getIndexName(false, indexExt);
          while (rs.next()) {
             String indexName = rs.getString("INDEX_NAME");
-            if (indexName != null && indexName.equalsIgnoreCase(getIndexName(false))) {
+            if (indexName != null && indexName.equalsIgnoreCase(expectedName)) {
                return true;
             }
          }
@@ -213,10 +238,19 @@ public TableName getTableName() {
       return tableName;
    }
 
+   @Override
+   public boolean hasSegmentColumn() {
+      return config.segmentColumnName() != null;
+   }
+
    public String getIndexName(boolean withIdentifier) {
+      return getIndexName(withIdentifier, timestampIndexExt);
+   }
+
+   protected String getIndexName(boolean withIdentifier, String indexExt) {
       TableName table = getTableName();
       String tableName = table.toString().replace(identifierQuoteString, "");
-      String indexName = tableName + "_" + timestampIndexExt;
+      String indexName = tableName + "_" + indexExt;
       if (withIdentifier) {
          return identifierQuoteString + indexName + identifierQuoteString;
       }
@@ -226,8 +260,9 @@ public String getIndexName(boolean withIdentifier) {
    @Override
    public String getInsertRowSql() {
       if (insertRowSql == null) {
-         insertRowSql = String.format("INSERT INTO %s (%s,%s,%s) VALUES (?,?,?)", getTableName(),
-                                      config.dataColumnName(), config.timestampColumnName(), config.idColumnName());
+         insertRowSql = String.format("INSERT INTO %s (%s,%s,%s%s) VALUES (?,?,?%s)", getTableName(),
+                                      config.dataColumnName(), config.timestampColumnName(), config.idColumnName(),
+                                      segmentColumn(""), segmentParameter());
       }
       return insertRowSql;
    }
@@ -294,6 +329,34 @@ public String getDeleteRowSql() {
       return deleteRowSql;
    }
 
+   @Override
+   public String getDeleteRowsSql(int numberOfKeys) {
+      StringBuilder sb = new StringBuilder();
+      for (int i = 0; i < numberOfKeys; i++) {
+         if (i > 0) sb.append(", ");
+         sb.append(getIdParameter());
+      }
+      return String.format("DELETE FROM %s WHERE %s IN (%s)", getTableName(), config.idColumnName(), sb);
+   }
+
+   @Override
+   public int getMaxBindParameters() {
+      // Low enough for the databases we don't know the limits of
+      return 2000;
+   }
+
+   @Override
+   public int getMaxInListSize() {
+      return Integer.MAX_VALUE;
+   }
+
+   /**
+    * @return the parameter to compare the id column with
+    */
+   protected String getIdParameter() {
+      return "?";
+   }
+
    @Override
    public String getLoadNonExpiredAllRowsSql() {
       if (loadAllNonExpiredRowsSql == null) {
@@ -304,6 +367,25 @@ public String getLoadNonExpiredAllRowsSql() {
       return loadAllNonExpiredRowsSql;
    }
 
+   @Override
+   public String getLoadNonExpiredRowsForSegmentsSql(int numberOfSegments) {
+      return String.format("SELECT %1$s, %2$s, %3$s FROM %4$s WHERE (%3$s > ? OR %3$s < 0) AND %5$s IN (%6$s)",
+                           config.dataColumnName(), config.idColumnName(), config.timestampColumnName(), getTableName(),
+                           config.segmentColumnName(), parameterList(numberOfSegments));
+   }
+
+   @Override
+   public String getCountRowsForSegmentsSql(int numberOfSegments) {
+      return String.format("%1$s WHERE (%2$s > ? OR %2$s < 0) AND %3$s IN (%4$s)", getCountRowsSql(),
+                           config.timestampColumnName(), config.segmentColumnName(), parameterList(numberOfSegments));
+   }
+
+   @Override
+   public String getDeleteRowsForSegmentsSql(int numberOfSegments) {
+      return String.format("%s WHERE %s IN (%s)", getDeleteAllRowsSql(), config.segmentColumnName(),
+                           parameterList(numberOfSegments));
+   }
+
    @Override
    public String getLoadAllRowsSql() {
       if (loadAllRowsSql == null) {
@@ -340,17 +422,32 @@ public String getSelectOnlyExpiredRowsSql() {
    @Override
    public String getUpsertRowSql() {
       if (upsertRowSql == null) {
-         upsertRowSql = String.format("MERGE INTO %1$s " +
-                              "USING (VALUES (?, ?, ?)) AS tmp (%2$s, %3$s, %4$s) " +
-                              "ON (%2$s = tmp.%2$s) " +
-                              "WHEN MATCHED THEN UPDATE SET %3$s = tmp.%3$s, %4$s = tmp.%4$s " +
-                              "WHEN NOT MATCHED THEN INSERT (%2$s, %3$s, %4$s) VALUES (tmp.%2$s, tmp.%3$s, tmp.%4$s)",
-                              getTableName(), config.dataColumnName(), config.timestampColumnName(), config.idColumnName());
-
+         upsertRowSql = getUpsertRowsSql(1);
       }
       return upsertRowSql;
    }
 
+   @Override
+   public String getUpsertRowsSql(int numberOfRows) {
+      return String.format("MERGE INTO %1$s " +
+                                 "USING (VALUES %5$s) AS tmp (%2$s, %3$s, %4$s%6$s) " +
+                                 "ON (%2$s = tmp.%2$s) " +
+                                 "WHEN MATCHED THEN UPDATE SET %3$s = tmp.%3$s, %4$s = tmp.%4$s " +
+                                 "WHEN NOT MATCHED THEN INSERT (%2$s, %3$s, %4$s%6$s) VALUES (tmp.%2$s, tmp.%3$s, tmp.%4$s%7$s)",
+                           getTableName(), config.dataColumnName(), config.timestampColumnName(), config.idColumnName(),
+                           rowParameters(numberOfRows), segmentColumn(""), segmentColumn("tmp."));
+   }
+
+   /**
+    * @return an insert statement of <b>numberOfRows</b> rows, with the columns in the order of
+    * {@link #prepareUpsertRowsStatement(PreparedStatement, int, String, int, long, ByteBuffer)}
+    */
+   protected String getInsertRowsSql(int numberOfRows) {
+      return String.format("INSERT INTO %s (%s, %s, %s%s) VALUES %s", getTableName(), config.dataColumnName(),
+                           config.timestampColumnName(), config.idColumnName(), segmentColumn(""),
+                           rowParameters(numberOfRows));
+   }
+
    @Override
    public boolean isStringEncodingRequired() {
       return false;
@@ -362,9 +459,62 @@ public String encodeString(String string) {
    }
 
    @Override
-   public void prepareUpdateStatement(PreparedStatement ps, String key, long timestamp, ByteBuffer byteBuffer) throws SQLException {
+   public void prepareUpdateStatement(PreparedStatement ps, Object key, long timestamp, ByteBuffer byteBuffer) throws SQLException {
       ps.setBinaryStream(1, new ByteArrayInputStream(byteBuffer.getBuf(), byteBuffer.getOffset(), byteBuffer.getLength()), byteBuffer.getLength());
       ps.setLong(2, timestamp);
-      ps.setString(3, key);
+      JdbcUtil.setKey(ps, 3, key);
+   }
+
+   @Override
+   public void prepareUpdateStatement(PreparedStatement ps, Object key, int segment, long timestamp, ByteBuffer byteBuffer) throws SQLException {
+      prepareUpdateStatement(ps, key, timestamp, byteBuffer);
+      if (hasSegmentColumn()) {
+         ps.setInt(4, segment);
+      }
+   }
+
+   @Override
+   public void prepareUpsertRowsStatement(PreparedStatement ps, int row, Object key, int segment, long timestamp, ByteBuffer byteBuffer) throws SQLException {
+      int offset = row * (hasSegmentColumn() ? 4 : 3);
+      ps.setBinaryStream(offset + 1, new ByteArrayInputStream(byteBuffer.getBuf(), byteBuffer.getOffset(), byteBuffer.getLength()), byteBuffer.getLength());
+      ps.setLong(offset + 2, timestamp);
+      JdbcUtil.setKey(ps, offset + 3, key);
+      if (hasSegmentColumn()) {
+         ps.setInt(offset + 4, segment);
+      }
+   }
+
+   /**
+    * @return the segment column to append to the column list of an insert statement, or an empty string if the table
+    * doesn't have one
+    */
+   protected String segmentColumn(String qualifier) {
+      return hasSegmentColumn() ? ", " + qualifier + config.segmentColumnName() : "";
+   }
+
+   protected String segmentParameter() {
+      return hasSegmentColumn() ? ", ?" : "";
+   }
+
+   /**
+    * @return the parameters of <b>numberOfRows</b> rows of a values list, e.g. {@code (?, ?, ?), (?, ?, ?)}
+    */
+   protected String rowParameters(int numberOfRows) {
+      String row = "(?, ?, ?" + segmentParameter() + ")";
+      StringBuilder sb = new StringBuilder();
+      for (int i = 0; i < numberOfRows; i++) {
+         if (i > 0) sb.append(", ");
+         sb.append(row);
+      }
+      return sb.toString();
+   }
+
+   private static String parameterList(int numberOfParams) {
+      StringBuilder sb = new StringBuilder();
+      for (int i = 0; i < numberOfParams; i++) {
+         if (i > 0) sb.append(", ");
+         sb.append('?');
+      }
+      return sb.toString();
    }
 }
@@ -22,12 +22,18 @@ class H2TableManager extends AbstractTableManager {
    @Override
    public String getUpsertRowSql() {
       if (upsertRowSql == null) {
-         upsertRowSql = String.format("MERGE INTO %1$s (%2$s, %3$s, %4$s) KEY(%4$s) VALUES(?, ?, ?)", getTableName(),
-                                      config.dataColumnName(), config.timestampColumnName(), config.idColumnName());
+         upsertRowSql = getUpsertRowsSql(1);
       }
       return upsertRowSql;
    }
 
+   @Override
+   public String getUpsertRowsSql(int numberOfRows) {
+      return String.format("MERGE INTO %1$s (%2$s, %3$s, %4$s%5$s) KEY(%4$s) VALUES %6$s", getTableName(),
+                           config.dataColumnName(), config.timestampColumnName(), config.idColumnName(),
+                           segmentColumn(""), rowParameters(numberOfRows));
+   }
+
    @Override
    protected void dropTimestampIndex(Connection conn) throws PersistenceException {
       String dropIndexDdl = String.format("DROP INDEX IF EXISTS  %s", getIndexName(true));
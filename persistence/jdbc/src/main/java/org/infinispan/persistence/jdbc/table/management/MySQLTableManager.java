@@ -24,10 +24,20 @@ public int getFetchSize() {
    @Override
    public String getUpsertRowSql() {
       if (upsertRowSql == null) {
-         // Assumes that config.idColumnName is the primary key
-         upsertRowSql = String.format("%1$s ON DUPLICATE KEY UPDATE %2$s = VALUES(%2$s), %3$s = VALUES(%3$s)", getInsertRowSql(),
-                                      config.dataColumnName(), config.timestampColumnName());
+         upsertRowSql = getUpsertRowsSql(1);
       }
       return upsertRowSql;
    }
+
+   @Override
+   public String getUpsertRowsSql(int numberOfRows) {
+      // Assumes that config.idColumnName is the primary key
+      return String.format("%1$s ON DUPLICATE KEY UPDATE %2$s = VALUES(%2$s), %3$s = VALUES(%3$s)", getInsertRowsSql(numberOfRows),
+                           config.dataColumnName(), config.timestampColumnName());
+   }
+
+   @Override
+   public int getMaxBindParameters() {
+      return 65535;
+   }
 }
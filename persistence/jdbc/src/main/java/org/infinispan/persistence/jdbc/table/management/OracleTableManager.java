@@ -25,6 +25,7 @@ class OracleTableManager extends AbstractTableManager {
 
    private static final int MAX_INDEX_IDENTIFIER_SIZE = 30;
    private static final String INDEX_PREFIX = "IDX";
+   private static final String SEGMENT_INDEX_PREFIX = "SEG";
 
    OracleTableManager(ConnectionFactory connectionFactory, TableManipulationConfiguration config, DbMetaData metaData) {
       super(connectionFactory, config, metaData, LOG);
@@ -49,12 +50,12 @@ public boolean tableExists(Connection connection, TableName tableName) throws Pe
    }
 
    @Override
-   protected boolean timestampIndexExists(Connection conn) throws PersistenceException {
+   protected boolean indexExists(Connection conn, String indexExt) throws PersistenceException {
       ResultSet rs = null;
       try {
          DatabaseMetaData meta = conn.getMetaData();
          rs = meta.getIndexInfo(null, null, getTableName().toString(), false, false);
-         String indexName = getIndexName(false);
+         String indexName = getIndexName(false, indexExt);
          while (rs.next()) {
             if (indexName.equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
                return true;
@@ -69,14 +70,16 @@ protected boolean timestampIndexExists(Connection conn) throws PersistenceExcept
    }
 
    @Override
-   public String getIndexName(boolean withIdentifier) {
-      int maxNameSize = MAX_INDEX_IDENTIFIER_SIZE - INDEX_PREFIX.length() - 1;
+   protected String getIndexName(boolean withIdentifier, String indexExt) {
+      // Index names are too short to contain the extension, so each index has its own prefix instead
+      String prefix = segmentIndexExt.equals(indexExt) ? SEGMENT_INDEX_PREFIX : INDEX_PREFIX;
+      int maxNameSize = MAX_INDEX_IDENTIFIER_SIZE - prefix.length() - 1;
       if (withIdentifier) {
          maxNameSize -= 2;
       }
       String tableName = getTableName().toString().replace(identifierQuoteString, "");
       String truncatedName = tableName.length() > maxNameSize ? tableName.substring(0, maxNameSize) : tableName;
-      String indexName = INDEX_PREFIX + "_" + truncatedName;
+      String indexName = prefix + "_" + truncatedName;
       if (withIdentifier) {
          return identifierQuoteString + indexName + identifierQuoteString;
       }
@@ -86,8 +89,9 @@ public String getIndexName(boolean withIdentifier) {
    @Override
    public String getInsertRowSql() {
       if (insertRowSql == null) {
-         insertRowSql = String.format("INSERT INTO %s (%s,%s,%s) VALUES (?,?,?)", getTableName(),
-               config.idColumnName(), config.timestampColumnName(), config.dataColumnName());
+         insertRowSql = String.format("INSERT INTO %s (%s,%s,%s%s) VALUES (?,?,?%s)", getTableName(),
+               config.idColumnName(), config.timestampColumnName(), config.dataColumnName(), segmentColumn(""),
+               segmentParameter());
       }
       return insertRowSql;
    }
@@ -96,19 +100,37 @@ public String getInsertRowSql() {
    public String getUpsertRowSql() {
       if (upsertRowSql == null) {
          upsertRowSql = String.format("MERGE INTO %1$s t " +
-                     "USING (SELECT ? %2$s, ? %3$s, ? %4$s from dual) tmp ON (t.%2$s = tmp.%2$s) " +
+                     "USING (SELECT ? %2$s, ? %3$s, ? %4$s%5$s from dual) tmp ON (t.%2$s = tmp.%2$s) " +
                      "WHEN MATCHED THEN UPDATE SET t.%3$s = tmp.%3$s, t.%4$s = tmp.%4$s " +
-                     "WHEN NOT MATCHED THEN INSERT (%2$s, %3$s, %4$s) VALUES (tmp.%2$s, tmp.%3$s, tmp.%4$s)",
-               this.getTableName(), config.idColumnName(), config.timestampColumnName(), config.dataColumnName());
+                     "WHEN NOT MATCHED THEN INSERT (%2$s, %3$s, %4$s%6$s) VALUES (tmp.%2$s, tmp.%3$s, tmp.%4$s%7$s)",
+               this.getTableName(), config.idColumnName(), config.timestampColumnName(), config.dataColumnName(),
+               hasSegmentColumn() ? ", ? " + config.segmentColumnName() : "", segmentColumn(""), segmentColumn("tmp."));
       }
       return upsertRowSql;
    }
 
    @Override
-   public void prepareUpdateStatement(PreparedStatement ps, String key, long timestamp, ByteBuffer byteBuffer) throws SQLException {
-      ps.setString(1, key);
+   public String getUpsertRowsSql(int numberOfRows) {
+      // The rows of the merge are selected from dual, one at a time
+      return null;
+   }
+
+   @Override
+   public void prepareUpdateStatement(PreparedStatement ps, Object key, long timestamp, ByteBuffer byteBuffer) throws SQLException {
+      JdbcUtil.setKey(ps, 1, key);
       ps.setLong(2, timestamp);
       // We must use BLOB here to avoid ORA-01461 caused by implicit casts on dual
       ps.setBlob(3, new ByteArrayInputStream(byteBuffer.getBuf(), byteBuffer.getOffset(), byteBuffer.getLength()), byteBuffer.getLength());
    }
+
+   @Override
+   public int getMaxBindParameters() {
+      return 65535;
+   }
+
+   @Override
+   public int getMaxInListSize() {
+      // ORA-01795
+      return 1000;
+   }
 }
@@ -80,10 +80,25 @@ public boolean isUpsertSupported() {
    @Override
    public String getUpsertRowSql() {
       if (upsertRowSql == null) {
-         upsertRowSql = String.format("%1$s ON CONFLICT (%2$s) DO UPDATE SET %3$s = EXCLUDED.%3$s, %4$s = EXCLUDED.%4$s",
-                                      getInsertRowSql(), config.idColumnName(), config.dataColumnName(),
-                                      config.timestampColumnName());
+         upsertRowSql = getUpsertRowsSql(1);
       }
       return upsertRowSql;
    }
+
+   @Override
+   public String getUpsertRowsSql(int numberOfRows) {
+      return String.format("%1$s ON CONFLICT (%2$s) DO UPDATE SET %3$s = EXCLUDED.%3$s, %4$s = EXCLUDED.%4$s",
+                           getInsertRowsSql(numberOfRows), config.idColumnName(), config.dataColumnName(),
+                           config.timestampColumnName());
+   }
+
+   @Override
+   protected String getIdParameter() {
+      return "cast(? as " + config.idColumnType() + ")";
+   }
+
+   @Override
+   public int getMaxBindParameters() {
+      return Short.MAX_VALUE;
+   }
 }
@@ -20,18 +20,24 @@ class SQLServerTableManager extends AbstractTableManager {
    @Override
    public String getUpsertRowSql() {
       if (upsertRowSql == null) {
-         // As SQL Server does not handle a merge atomically, we must acquire the table lock here otherwise it's possible
-         // for deadlocks to occur.
-         upsertRowSql = String.format("MERGE %1$s WITH (TABLOCK) " +
-                     "USING (VALUES (?, ?, ?)) AS tmp (%2$s, %3$s, %4$s) " +
-                     "ON (%1$s.%2$s = tmp.%2$s) " +
-                     "WHEN MATCHED THEN UPDATE SET %3$s = tmp.%3$s, %4$s = tmp.%4$s " +
-                     "WHEN NOT MATCHED THEN INSERT (%2$s, %3$s, %4$s) VALUES (tmp.%2$s, tmp.%3$s, tmp.%4$s);",
-               getTableName(), config.dataColumnName(), config.timestampColumnName(), config.idColumnName());
+         upsertRowSql = getUpsertRowsSql(1);
       }
       return upsertRowSql;
    }
 
+   @Override
+   public String getUpsertRowsSql(int numberOfRows) {
+      // As SQL Server does not handle a merge atomically, we must acquire the table lock here otherwise it's possible
+      // for deadlocks to occur.
+      return String.format("MERGE %1$s WITH (TABLOCK) " +
+                  "USING (VALUES %5$s) AS tmp (%2$s, %3$s, %4$s%6$s) " +
+                  "ON (%1$s.%2$s = tmp.%2$s) " +
+                  "WHEN MATCHED THEN UPDATE SET %3$s = tmp.%3$s, %4$s = tmp.%4$s " +
+                  "WHEN NOT MATCHED THEN INSERT (%2$s, %3$s, %4$s%6$s) VALUES (tmp.%2$s, tmp.%3$s, tmp.%4$s%7$s);",
+            getTableName(), config.dataColumnName(), config.timestampColumnName(), config.idColumnName(),
+            rowParameters(numberOfRows), segmentColumn(""), segmentColumn("tmp."));
+   }
+
    @Override
    public boolean isStringEncodingRequired() {
       return metaData.getMajorVersion() < 13;
@@ -47,4 +53,9 @@ public String encodeString(String string) {
       }
       return string;
    }
+
+   @Override
+   public int getMaxBindParameters() {
+      return 2100;
+   }
 }
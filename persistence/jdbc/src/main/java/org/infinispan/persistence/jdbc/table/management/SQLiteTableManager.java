@@ -26,10 +26,20 @@ public boolean isUpsertSupported() {
    @Override
    public String getUpsertRowSql() {
       if (upsertRowSql == null) {
-         upsertRowSql = String.format("INSERT OR REPLACE INTO %s (%s, %s, %s) VALUES (?, ?, ?)",
-                                      getTableName(), config.dataColumnName(), config.timestampColumnName(),
-                                      config.idColumnName());
+         upsertRowSql = getUpsertRowsSql(1);
       }
       return upsertRowSql;
    }
+
+   @Override
+   public String getUpsertRowsSql(int numberOfRows) {
+      return String.format("INSERT OR REPLACE INTO %s (%s, %s, %s%s) VALUES %s",
+                           getTableName(), config.dataColumnName(), config.timestampColumnName(),
+                           config.idColumnName(), segmentColumn(""), rowParameters(numberOfRows));
+   }
+
+   @Override
+   public int getMaxBindParameters() {
+      return 999;
+   }
 }
@@ -49,6 +49,14 @@ public interface TableManager {
 
    String getUpsertRowSql();
 
+   /**
+    * @return a statement inserting or updating <b>numberOfRows</b> rows at once, to be prepared with
+    * {@link #prepareUpsertRowsStatement(PreparedStatement, int, String, int, long, ByteBuffer)}, or {@code null} if the
+    * database doesn't support upserting several rows with a single statement. The keys of the rows must be distinct,
+    * and their parameters must not exceed {@link #getMaxBindParameters()}.
+    */
+   String getUpsertRowsSql(int numberOfRows);
+
    String getSelectRowSql();
 
    String getSelectMultipleRowSql(int numberOfParams);
@@ -59,10 +67,38 @@ public interface TableManager {
 
    String getDeleteRowSql();
 
+   /**
+    * @return a statement deleting the rows of <b>numberOfKeys</b> keys at once, up to {@link #getMaxInListSize()} and
+    * {@link #getMaxBindParameters()} keys
+    */
+   String getDeleteRowsSql(int numberOfKeys);
+
+   /**
+    * @return the maximum number of parameters the database can bind to a single statement
+    */
+   int getMaxBindParameters();
+
+   /**
+    * @return the maximum number of expressions the database accepts in an {@code IN} list
+    */
+   int getMaxInListSize();
+
    String getLoadNonExpiredAllRowsSql();
 
    String getLoadAllRowsSql();
 
+   /**
+    * @return whether the table stores the segment of each entry in its own column, in which case the following
+    * statements can be used to access the entries of some segments only
+    */
+   boolean hasSegmentColumn();
+
+   String getLoadNonExpiredRowsForSegmentsSql(int numberOfSegments);
+
+   String getCountRowsForSegmentsSql(int numberOfSegments);
+
+   String getDeleteRowsForSegmentsSql(int numberOfSegments);
+
    String getDeleteAllRowsSql();
 
    String getSelectExpiredBucketsSql();
@@ -73,5 +109,19 @@ public interface TableManager {
 
    String encodeString(String stringToEncode);
 
-   void prepareUpdateStatement(PreparedStatement ps, String key, long timestamp, ByteBuffer byteBuffer) throws SQLException;
+   /**
+    * Prepares an update, insert or upsert statement. The key is either a string or the marshalled bytes of the key, if
+    * the store is configured with binary keys.
+    */
+   void prepareUpdateStatement(PreparedStatement ps, Object key, long timestamp, ByteBuffer byteBuffer) throws SQLException;
+
+   /**
+    * Prepares an insert or upsert statement, binding the segment of the key as well if the table has a segment column.
+    */
+   void prepareUpdateStatement(PreparedStatement ps, Object key, int segment, long timestamp, ByteBuffer byteBuffer) throws SQLException;
+
+   /**
+    * Binds the row number <b>row</b>, starting from 0, of a statement returned by {@link #getUpsertRowsSql(int)}.
+    */
+   void prepareUpsertRowsStatement(PreparedStatement ps, int row, Object key, int segment, long timestamp, ByteBuffer byteBuffer) throws SQLException;
 }
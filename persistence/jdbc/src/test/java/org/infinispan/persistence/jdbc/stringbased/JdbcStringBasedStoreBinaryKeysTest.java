@@ -0,0 +1,51 @@
+package org.infinispan.persistence.jdbc.stringbased;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.Collections;
+import java.util.Set;
+
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.persistence.PersistenceUtil;
+import org.infinispan.persistence.jdbc.configuration.JdbcStringBasedStoreConfigurationBuilder;
+import org.infinispan.persistence.spi.AdvancedLoadWriteStore;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.infinispan.test.fwk.UnitTestDatabaseManager;
+import org.testng.annotations.Test;
+
+/**
+ * Tests {@link JdbcStringBasedStore} storing the marshalled keys in a binary id column.
+ *
+ * @since 9.1
+ */
+@Test(groups = "functional", testName = "persistence.jdbc.stringbased.JdbcStringBasedStoreBinaryKeysTest")
+public class JdbcStringBasedStoreBinaryKeysTest extends JdbcStringBasedStoreTest {
+
+   @Override
+   protected AdvancedLoadWriteStore createStore() throws Exception {
+      ConfigurationBuilder builder = TestCacheManagerFactory.getDefaultCacheConfiguration(false);
+      JdbcStringBasedStoreConfigurationBuilder storeBuilder = builder
+            .persistence()
+               .addStore(JdbcStringBasedStoreConfigurationBuilder.class)
+                  .binaryKeys(true);
+      UnitTestDatabaseManager.configureUniqueConnectionFactory(storeBuilder);
+      UnitTestDatabaseManager.buildTableManipulation(storeBuilder.table());
+      storeBuilder.table().idColumnType("VARBINARY(255)");
+      JdbcStringBasedStore stringBasedCacheStore = new JdbcStringBasedStore();
+      stringBasedCacheStore.init(createContext(builder.build()));
+      return stringBasedCacheStore;
+   }
+
+   public void testNonStringKey() {
+      // The default key to string mapper doesn't support this key
+      Person key = new Person("Mircea", "Markus", 28);
+      cl.write(marshalledEntry(key, "value", null));
+      assertEquals("value", cl.load(key).getValue());
+      Set<Object> keys = PersistenceUtil.toKeySet(cl, null);
+      assertEquals(Collections.singleton(key), keys);
+      assertTrue(cl.delete(key));
+      assertNull(cl.load(key));
+   }
+}
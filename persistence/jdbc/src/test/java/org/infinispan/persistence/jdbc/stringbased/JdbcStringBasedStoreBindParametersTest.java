@@ -0,0 +1,86 @@
+package org.infinispan.persistence.jdbc.stringbased;
+
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.intThat;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.testng.AssertJUnit.assertEquals;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.marshall.core.MarshalledEntry;
+import org.infinispan.persistence.jdbc.configuration.JdbcStringBasedStoreConfigurationBuilder;
+import org.infinispan.persistence.jdbc.table.management.TableManager;
+import org.infinispan.persistence.spi.AdvancedLoadWriteStore;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.infinispan.test.fwk.UnitTestDatabaseManager;
+import org.testng.annotations.Test;
+
+/**
+ * Tests {@link JdbcStringBasedStore} with a database that binds fewer parameters and accepts shorter {@code IN} lists
+ * than the batches need, so that the batches are split in several statements.
+ *
+ * @since 9.1
+ */
+@Test(groups = "functional", testName = "persistence.jdbc.stringbased.JdbcStringBasedStoreBindParametersTest")
+public class JdbcStringBasedStoreBindParametersTest extends JdbcStringBasedStoreTest {
+
+   @Override
+   protected AdvancedLoadWriteStore createStore() throws Exception {
+      ConfigurationBuilder builder = TestCacheManagerFactory.getDefaultCacheConfiguration(false);
+      JdbcStringBasedStoreConfigurationBuilder storeBuilder = builder
+            .persistence()
+               .addStore(JdbcStringBasedStoreConfigurationBuilder.class)
+                  .maxBatchSize(0);
+      UnitTestDatabaseManager.configureUniqueConnectionFactory(storeBuilder);
+      UnitTestDatabaseManager.buildTableManipulation(storeBuilder.table());
+      JdbcStringBasedStore stringBasedCacheStore = new LimitedParametersStore();
+      stringBasedCacheStore.init(createContext(builder.build()));
+      return stringBasedCacheStore;
+   }
+
+   public void testStatementsWithinDatabaseLimits() {
+      List<MarshalledEntry<?, ?>> entries = IntStream.range(0, 5)
+            .mapToObj(i -> marshalledEntry("k" + i, "v" + i, null))
+            .collect(Collectors.toList());
+      cl.writeBatch(entries);
+      List<Object> keys = IntStream.range(0, 10).mapToObj(i -> "k" + i).collect(Collectors.toList());
+      cl.deleteBatch(keys);
+      assertEquals(0, cl.size());
+
+      TableManager tableManager = ((JdbcStringBasedStore) cl).getTableManager();
+      verify(tableManager, atLeastOnce()).getUpsertRowsSql(2);
+      verify(tableManager, never()).getUpsertRowsSql(intThat(rows -> rows > 2));
+      verify(tableManager).getDeleteRowsSql(7);
+      verify(tableManager).getDeleteRowsSql(3);
+      verify(tableManager, never()).getDeleteRowsSql(intThat(keysInStatement -> keysInStatement > 7));
+   }
+
+   static class LimitedParametersStore extends JdbcStringBasedStore {
+      private TableManager limitedTableManager;
+
+      @Override
+      public TableManager getTableManager() {
+         if (limitedTableManager == null) {
+            TableManager tableManager = super.getTableManager();
+            limitedTableManager = mock(TableManager.class, delegatesTo(tableManager));
+            // Two rows per upsert statement, and an IN list shorter than the parameters limit
+            doReturn(8).when(limitedTableManager).getMaxBindParameters();
+            doReturn(7).when(limitedTableManager).getMaxInListSize();
+         }
+         return limitedTableManager;
+      }
+
+      @Override
+      public void stop() {
+         super.stop();
+         limitedTableManager = null;
+      }
+   }
+}
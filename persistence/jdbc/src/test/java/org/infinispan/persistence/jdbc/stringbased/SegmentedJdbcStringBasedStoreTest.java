@@ -0,0 +1,99 @@
+package org.infinispan.persistence.jdbc.stringbased;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.infinispan.configuration.cache.Configuration;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.distribution.ch.KeyPartitioner;
+import org.infinispan.distribution.ch.impl.HashFunctionPartitioner;
+import org.infinispan.persistence.jdbc.configuration.JdbcStringBasedStoreConfigurationBuilder;
+import org.infinispan.persistence.spi.AdvancedLoadWriteStore;
+import org.infinispan.persistence.spi.InitializationContext;
+import org.infinispan.persistence.spi.SegmentedAdvancedLoadWriteStore;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.infinispan.test.fwk.UnitTestDatabaseManager;
+import org.infinispan.util.reactive.Publishers;
+import org.testng.annotations.Test;
+
+/**
+ * Tests {@link JdbcStringBasedStore} with a segment column.
+ *
+ * @since 9.1
+ */
+@Test(groups = "functional", testName = "persistence.jdbc.stringbased.SegmentedJdbcStringBasedStoreTest")
+public class SegmentedJdbcStringBasedStoreTest extends JdbcStringBasedStoreTest {
+   private static final int NUM_SEGMENTS = 8;
+
+   private KeyPartitioner keyPartitioner;
+
+   @Override
+   protected AdvancedLoadWriteStore createStore() throws Exception {
+      ConfigurationBuilder builder = TestCacheManagerFactory.getDefaultCacheConfiguration(false);
+      builder.clustering().hash().numSegments(NUM_SEGMENTS);
+      JdbcStringBasedStoreConfigurationBuilder storeBuilder = builder
+            .persistence()
+               .addStore(JdbcStringBasedStoreConfigurationBuilder.class);
+      UnitTestDatabaseManager.configureUniqueConnectionFactory(storeBuilder);
+      UnitTestDatabaseManager.buildTableManipulation(storeBuilder.table());
+      storeBuilder.table()
+            .segmentColumnName("SEGMENT_COLUMN")
+            .segmentColumnType("INTEGER");
+      Configuration configuration = builder.build();
+      InitializationContext ctx = createContext(configuration);
+      keyPartitioner = new HashFunctionPartitioner();
+      keyPartitioner.init(configuration.clustering().hash());
+      // the mocked cache doesn't create the key partitioner on demand
+      ctx.getCache().getAdvancedCache().getComponentRegistry().registerComponent(keyPartitioner, KeyPartitioner.class);
+      JdbcStringBasedStore stringBasedCacheStore = new JdbcStringBasedStore();
+      stringBasedCacheStore.init(ctx);
+      return stringBasedCacheStore;
+   }
+
+   public void testSegmentOperations() {
+      SegmentedAdvancedLoadWriteStore<Object, Object> store = (SegmentedAdvancedLoadWriteStore<Object, Object>) cl;
+      Set<Object> keys = new HashSet<>();
+      for (int i = 0; i < 50; i++) {
+         Object key = "k" + i;
+         store.write(marshalledEntry(internalCacheEntry("k" + i, "v" + i, -1)));
+         keys.add(key);
+      }
+      Object someKey = "k0";
+      int segment = keyPartitioner.getSegment(someKey);
+      Set<Integer> segments = Collections.singleton(segment);
+      Set<Object> segmentKeys = new HashSet<>();
+      for (Object key : keys) {
+         if (keyPartitioner.getSegment(key) == segment) {
+            segmentKeys.add(key);
+         }
+      }
+
+      assertEquals(segmentKeys.size(), store.size(segments));
+      Set<Object> published = new HashSet<>();
+      Publishers.forEach(store.publishKeys(segments, null), 10, published::add);
+      assertEquals(segmentKeys, published);
+
+      store.removeSegments(segments);
+      assertEquals(0, store.size(segments));
+      assertNull(store.load(someKey));
+      assertEquals(keys.size() - segmentKeys.size(), store.size());
+   }
+
+   public void testSegmentSizeIgnoresExpiredEntries() {
+      SegmentedAdvancedLoadWriteStore<Object, Object> store = (SegmentedAdvancedLoadWriteStore<Object, Object>) cl;
+      long lifespan = 1000;
+      store.write(marshalledEntry(internalCacheEntry("k-mortal", "v", lifespan)));
+      store.write(marshalledEntry(internalCacheEntry("k-immortal", "v", -1)));
+      Set<Integer> segments = new HashSet<>();
+      segments.add(keyPartitioner.getSegment("k-mortal"));
+      segments.add(keyPartitioner.getSegment("k-immortal"));
+      assertEquals(2, store.size(segments));
+
+      timeService.advance(lifespan + 1);
+      assertEquals(1, store.size(segments));
+   }
+}
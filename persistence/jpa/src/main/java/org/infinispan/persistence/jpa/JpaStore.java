@@ -1,7 +1,10 @@
 package org.infinispan.persistence.jpa;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
@@ -49,6 +52,7 @@
 import org.infinispan.persistence.jpa.impl.Stats;
 import org.infinispan.persistence.spi.AdvancedLoadWriteStore;
 import org.infinispan.persistence.spi.InitializationContext;
+import org.infinispan.persistence.support.WriteCombiner;
 import org.infinispan.util.TimeService;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
@@ -72,6 +76,7 @@
    private TimeService timeService;
    private Stats stats = new Stats();
    private boolean setFetchSizeMinInteger = false;
+   private WriteCombiner<MarshalledEntry<? extends K, ? extends V>> writeCombiner;
 
    @Override
    public void init(InitializationContext ctx) {
@@ -119,6 +124,10 @@ public void start() {
             setFetchSizeMinInteger = true;
          }
       }
+
+      if (configuration.combineWrites()) {
+         writeCombiner = new WriteCombiner<>(configuration.maxBatchSize(), this::writeBatch, this::writeEntry);
+      }
    }
 
    EntityManagerFactory getEntityManagerFactory() {
@@ -194,6 +203,53 @@ private void mergeMetadata(EntityManager em, MetadataEntity metadata) {
       }
    }
 
+   /**
+    * Removes the metadata of the given keys with a single statement, without loading it first. The keys are compared
+    * by their hash column, as not all the dialects support a list of embedded ids in the IN clause.
+    */
+   private void removeMetadata(EntityManager em, Collection<MetadataEntityKey> keys) {
+      if (keys.isEmpty()) {
+         return;
+      }
+      long begin = timeService.time();
+      try {
+         CriteriaBuilder cb = em.getCriteriaBuilder();
+         CriteriaDelete<MetadataEntity> query = cb.createCriteriaDelete(MetadataEntity.class);
+         Root<MetadataEntity> root = query.from(MetadataEntity.class);
+         SingularAttribute id = getEntityId(em, MetadataEntity.class);
+         List<String> keyShas = keys.stream().map(MetadataEntityKey::getKeySha).collect(Collectors.toList());
+         query.where(root.get(id).get(MetadataEntityKey.KEY_SHA).in(keyShas));
+         em.createQuery(query).executeUpdate();
+      } finally {
+         stats.addMetadataRemove(timeService.time() - begin);
+      }
+   }
+
+   /**
+    * Merges the metadata of the entry, unless the entry has no metadata or is immortal and the metadata of immortal
+    * entries is not stored: in that case the key is added to {@code removedMetadataKeys}, as the metadata of a previous
+    * mortal value must not expire the entry.
+    */
+   private void writeMetadata(EntityManager em, MarshalledEntry entry, Set<MetadataEntityKey> removedMetadataKeys) {
+      if (!configuration.storeMetadata()) {
+         return;
+      }
+      InternalMetadata internalMetadata = entry.getMetadata();
+      long expiryTime = internalMetadata == null ? -1 : internalMetadata.expiryTime();
+      if (expiryTime < 0 && !configuration.storeImmortalMetadata()) {
+         removedMetadataKeys.add(getMetadataKey(entry.getKey()));
+         return;
+      }
+      MetadataEntity metadata = new MetadataEntity(entry.getKeyBytes(), entry.getMetadataBytes(), expiryTime);
+      if (metadata.hasBytes()) {
+         removedMetadataKeys.remove(metadata.getKey());
+         if (trace) log.trace("Writing metadata " + toString(metadata));
+         mergeMetadata(em, metadata);
+      } else {
+         removedMetadataKeys.add(metadata.getKey());
+      }
+   }
+
    @Override
    public void clear() {
       EntityManager emStream = emf.createEntityManager();
@@ -335,11 +391,7 @@ public void deleteBatch(Iterable<Object> keys) {
 
             if (configuration.storeMetadata()) {
                List<MetadataEntityKey> metaKeys = StreamSupport.stream(keys.spliterator(), false).map(this::getMetadataKey).collect(Collectors.toList());
-               CriteriaDelete<MetadataEntity> metaQuery = cb.createCriteriaDelete(MetadataEntity.class);
-               Root<MetadataEntity> metaRoot = metaQuery.from(MetadataEntity.class);
-               id = getEntityId(em, MetadataEntity.class);
-               query.where(metaRoot.get(id).in(metaKeys));
-               em.createQuery(metaQuery).executeUpdate();
+               removeMetadata(em, metaKeys);
             }
             txn.commit();
             stats.addBatchRemoveTxCommitted(timeService.time() - txnBegin);
@@ -377,14 +429,23 @@ private MetadataEntity getMetadata(Object key, EntityManager em) {
       return configuration.storeMetadata() ? findMetadata(em, getMetadataKey(key)) : null;
    }
 
+   /**
+    * Writes the entry in its own transaction, or along with the entries written concurrently by other threads if
+    * writes are combined.
+    */
    @Override
    public void write(MarshalledEntry entry) {
+      if (writeCombiner != null) {
+         writeCombiner.write(entry);
+      } else {
+         writeEntry(entry);
+      }
+   }
+
+   private void writeEntry(MarshalledEntry entry) {
       EntityManager em = emf.createEntityManager();
 
       Object entity = entry.getValue();
-      MetadataEntity metadata = configuration.storeMetadata() ?
-            new MetadataEntity(entry.getKeyBytes(), entry.getMetadataBytes(),
-                  entry.getMetadata() == null ? Long.MAX_VALUE : entry.getMetadata().expiryTime()) : null;
       try {
          validateEntityIsAssignable(entity);
          validateObjectId(entry);
@@ -392,13 +453,13 @@ public void write(MarshalledEntry entry) {
 
          long txnBegin = timeService.time();
          try {
-            if (trace) log.trace("Writing " + entity + "(" + toString(metadata) + ")");
+            if (trace) log.trace("Writing " + entity);
             txn.begin();
 
             mergeEntity(em, entity);
-            if (metadata != null && metadata.hasBytes()) {
-               mergeMetadata(em, metadata);
-            }
+            Set<MetadataEntityKey> removedMetadataKeys = new HashSet<>();
+            writeMetadata(em, entry, removedMetadataKeys);
+            removeMetadata(em, removedMetadataKeys);
 
             txn.commit();
             stats.addWriteTxCommited(timeService.time() - txnBegin);
@@ -414,6 +475,11 @@ public void write(MarshalledEntry entry) {
       }
    }
 
+   /**
+    * Writes all the entries in a single transaction. The session uses JDBC batches of {@code maxBatchSize} statements,
+    * and is flushed and cleared after every {@code maxBatchSize} entries, so that the merged entities don't accumulate
+    * in the persistence context.
+    */
    @Override
    public void writeBatch(Iterable<MarshalledEntry<? extends K, ? extends V>> marshalledEntries) {
       EntityManager em = emf.createEntityManager();
@@ -421,20 +487,26 @@ public void writeBatch(Iterable<MarshalledEntry<? extends K, ? extends V>> marsh
          EntityTransaction txn = em.getTransaction();
          long txnBegin = timeService.time();
          try {
+            int batchSize = configuration.maxBatchSize();
+            if (batchSize > 0) {
+               em.unwrap(Session.class).setJdbcBatchSize(batchSize);
+            }
             txn.begin();
+            Set<MetadataEntityKey> removedMetadataKeys = new HashSet<>();
+            int count = 0;
             for (MarshalledEntry entry : marshalledEntries) {
                Object entity = entry.getValue();
                validateEntityIsAssignable(entity);
                validateObjectId(entry);
 
-               MetadataEntity metadata = configuration.storeMetadata() ?
-                     new MetadataEntity(entry.getKeyBytes(), entry.getMetadataBytes(),
-                           entry.getMetadata() == null ? Long.MAX_VALUE : entry.getMetadata().expiryTime()) : null;
-
                mergeEntity(em, entity);
-               if (metadata != null && metadata.hasBytes())
-                  mergeMetadata(em, metadata);
+               writeMetadata(em, entry, removedMetadataKeys);
+               if (batchSize > 0 && ++count % batchSize == 0) {
+                  em.flush();
+                  em.clear();
+               }
             }
+            removeMetadata(em, removedMetadataKeys);
             txn.commit();
             stats.addBatchWriteTxCommitted(timeService.time() - txnBegin);
          } catch (Exception e) {
@@ -16,7 +16,9 @@ public enum Attribute {
    ENTITY_CLASS_NAME("entity-class"),
    @Deprecated
    BATCH_SIZE("batch-size"),
-   STORE_METADATA("store-metadata")
+   STORE_METADATA("store-metadata"),
+   STORE_IMMORTAL_METADATA("store-immortal-metadata"),
+   COMBINE_WRITES("combine-writes")
    ;
 
    private final String name;
@@ -24,20 +24,27 @@ public class JpaStoreConfiguration extends AbstractStoreConfiguration {
    static final AttributeDefinition<String> PERSISTENCE_UNIT_NAME = AttributeDefinition.builder("persistenceUnitName", null, String.class).immutable().xmlName("persistence-unit").build();
    static final AttributeDefinition<Class> ENTITY_CLASS = AttributeDefinition.builder("entityClass", null, Class.class).immutable().build();
    static final AttributeDefinition<Boolean> STORE_METADATA = AttributeDefinition.builder("storeMetadata", true).immutable().build();
+   static final AttributeDefinition<Boolean> STORE_IMMORTAL_METADATA = AttributeDefinition.builder("storeImmortalMetadata", true).immutable().build();
+   static final AttributeDefinition<Boolean> COMBINE_WRITES = AttributeDefinition.builder("combineWrites", false).immutable().build();
 
    public static AttributeSet attributeDefinitionSet() {
-      return new AttributeSet(JpaStoreConfiguration.class, AbstractStoreConfiguration.attributeDefinitionSet(), PERSISTENCE_UNIT_NAME, ENTITY_CLASS, STORE_METADATA);
+      return new AttributeSet(JpaStoreConfiguration.class, AbstractStoreConfiguration.attributeDefinitionSet(), PERSISTENCE_UNIT_NAME, ENTITY_CLASS, STORE_METADATA,
+            STORE_IMMORTAL_METADATA, COMBINE_WRITES);
    }
 
    private final Attribute<String> persistenceUnitName;
    private final Attribute<Class> entityClass;
    private final Attribute<Boolean> storeMetadata;
+   private final Attribute<Boolean> storeImmortalMetadata;
+   private final Attribute<Boolean> combineWrites;
 
    protected JpaStoreConfiguration(AttributeSet attributes, AsyncStoreConfiguration async, SingletonStoreConfiguration singletonStore) {
       super(attributes, async, singletonStore);
       persistenceUnitName = attributes.attribute(PERSISTENCE_UNIT_NAME);
       entityClass = attributes.attribute(ENTITY_CLASS);
       storeMetadata = attributes.attribute(STORE_METADATA);
+      storeImmortalMetadata = attributes.attribute(STORE_IMMORTAL_METADATA);
+      combineWrites = attributes.attribute(COMBINE_WRITES);
    }
 
    public String persistenceUnitName() {
@@ -55,4 +62,12 @@ public long batchSize() {
    public boolean storeMetadata() {
       return storeMetadata.get();
    }
+
+   public boolean storeImmortalMetadata() {
+      return storeImmortalMetadata.get();
+   }
+
+   public boolean combineWrites() {
+      return combineWrites.get();
+   }
 }
@@ -1,7 +1,9 @@
 package org.infinispan.persistence.jpa.configuration;
 
+import static org.infinispan.persistence.jpa.configuration.JpaStoreConfiguration.COMBINE_WRITES;
 import static org.infinispan.persistence.jpa.configuration.JpaStoreConfiguration.ENTITY_CLASS;
 import static org.infinispan.persistence.jpa.configuration.JpaStoreConfiguration.PERSISTENCE_UNIT_NAME;
+import static org.infinispan.persistence.jpa.configuration.JpaStoreConfiguration.STORE_IMMORTAL_METADATA;
 import static org.infinispan.persistence.jpa.configuration.JpaStoreConfiguration.STORE_METADATA;
 
 import org.infinispan.configuration.cache.AbstractStoreConfigurationBuilder;
@@ -40,6 +42,25 @@ public JpaStoreConfigurationBuilder storeMetadata(boolean storeMetadata) {
       return self();
    }
 
+   /**
+    * Whether the metadata of entries which never expire is stored. If disabled, only the entity is written for these
+    * entries, and their metadata, such as the version, is not loaded back. Only used if the metadata is stored.
+    * Defaults to {@code true}.
+    */
+   public JpaStoreConfigurationBuilder storeImmortalMetadata(boolean storeImmortalMetadata) {
+      attributes.attribute(STORE_IMMORTAL_METADATA).set(storeImmortalMetadata);
+      return self();
+   }
+
+   /**
+    * Whether concurrent writes are combined, so that the entries written by several threads at the same time are
+    * written in a single transaction of at most {@code maxBatchSize} entries. Defaults to {@code false}.
+    */
+   public JpaStoreConfigurationBuilder combineWrites(boolean combineWrites) {
+      attributes.attribute(COMBINE_WRITES).set(combineWrites);
+      return self();
+   }
+
    @Override
    public void validate() {
       // how do you validate required attributes?
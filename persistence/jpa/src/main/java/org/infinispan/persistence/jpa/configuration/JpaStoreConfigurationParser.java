@@ -71,6 +71,14 @@ private void parseJpaCacheStore(XMLExtendedStreamReader reader, JpaStoreConfigur
                builder.storeMetadata(Boolean.valueOf(value));
                break;
             }
+            case STORE_IMMORTAL_METADATA: {
+               builder.storeImmortalMetadata(Boolean.valueOf(value));
+               break;
+            }
+            case COMBINE_WRITES: {
+               builder.combineWrites(Boolean.valueOf(value));
+               break;
+            }
             default: {
                Parser.parseStoreAttribute(reader, i, builder);
             }
@@ -19,6 +19,8 @@
 @Embeddable
 public class MetadataEntityKey implements Serializable {
 
+   public static final String KEY_SHA = "keySha";
+
    private static final long serialVersionUID = 73757405630621L;
    private static final String DIGEST_ALG = "SHA-256";
 
@@ -0,0 +1,32 @@
+package org.infinispan.persistence.jpa;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import org.testng.annotations.Test;
+
+/**
+ * Test with concurrent writes combined and without the metadata of immortal entries.
+ *
+ * @since 9.1
+ */
+@Test(groups = "unit", testName = "persistence.JpaStoreCombinedWritesTest")
+public class JpaStoreCombinedWritesTest extends JpaStoreTest {
+   @Override
+   protected boolean storeImmortalMetadata() {
+      return false;
+   }
+
+   @Override
+   protected boolean combineWrites() {
+      return true;
+   }
+
+   public void testImmortalEntryReplacingMortalEntry() throws Exception {
+      long lifespan = 3000;
+      cl.write(marshalledEntry(internalCacheEntry("k1", "v1", lifespan)));
+      cl.write(marshalledEntry(internalCacheEntry("k1", "v2", -1)));
+      timeService.advance(lifespan + 1);
+      // the metadata of the mortal value must not expire the immortal one
+      assertEquals("v2", unwrap(cl.load("k1").getValue()));
+   }
+}
@@ -56,6 +56,12 @@ public void testReplaceExpiredEntry() throws Exception {
       // no metadata => cannot test lifespan
    }
 
+   @Test(enabled = false)
+   @Override
+   public void testDeleteBatchRemovesMetadata() throws Exception {
+      // no metadata => nothing to remove
+   }
+
    // Without metadata we cannot purge anything - we should test this expected behaviour
    @Override
    public void testPurgeExpired() throws Exception {
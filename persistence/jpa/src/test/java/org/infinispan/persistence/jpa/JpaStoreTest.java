@@ -1,6 +1,12 @@
 package org.infinispan.persistence.jpa;
 
+import static org.testng.AssertJUnit.assertEquals;
+
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
 
 import org.infinispan.configuration.cache.ConfigurationBuilder;
 import org.infinispan.persistence.BaseStoreTest;
@@ -11,6 +17,7 @@
 import org.infinispan.persistence.spi.InitializationContext;
 import org.infinispan.persistence.spi.PersistenceException;
 import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.infinispan.util.concurrent.WithinThreadExecutor;
 import org.testng.annotations.Test;
 
 /**
@@ -27,6 +34,8 @@ protected AdvancedLoadWriteStore createStore() throws Exception {
                      .persistenceUnitName(getPersistenceUnitName())
                      .entityClass(KeyValueEntity.class)
                      .storeMetadata(storeMetadata())
+                     .storeImmortalMetadata(storeImmortalMetadata())
+                     .combineWrites(combineWrites())
                      .create();
       InitializationContext context = createContext(builder.build());
       context.getCache().getAdvancedCache().getComponentRegistry().getGlobalComponentRegistry()
@@ -40,6 +49,14 @@ protected boolean storeMetadata() {
       return true;
    }
 
+   protected boolean storeImmortalMetadata() {
+      return true;
+   }
+
+   protected boolean combineWrites() {
+      return false;
+   }
+
    protected String getPersistenceUnitName() {
       return "org.infinispan.persistence.jpa";
    }
@@ -54,6 +71,28 @@ public String unwrap(Object wrapper) {
       return ((KeyValueEntity) wrapper).getValue();
    }
 
+   public void testEntryWithoutMetadataReplacingMortalEntry() throws Exception {
+      long lifespan = 3000;
+      cl.write(marshalledEntry(internalCacheEntry("k1", "v1", lifespan)));
+      cl.write(marshalledEntry("k1", wrap("k1", "v2"), null));
+      timeService.advance(lifespan + 1);
+      // the metadata of the mortal value must not expire the new one
+      assertEquals("v2", unwrap(cl.load("k1").getValue()));
+   }
+
+   public void testDeleteBatchRemovesMetadata() throws Exception {
+      long lifespan = 3000;
+      for (String key : Arrays.asList("k1", "k2", "k3")) {
+         cl.write(marshalledEntry(internalCacheEntry(key, "v", lifespan)));
+      }
+      cl.deleteBatch(Arrays.asList("k1", "k2"));
+      timeService.advance(lifespan + 1);
+      // only the metadata left behind would be purged
+      Set<Object> purged = new HashSet<>();
+      cl.purge(new WithinThreadExecutor(), purged::add);
+      assertEquals(Collections.singleton("k3"), purged);
+   }
+
    @Test(enabled = false)
    @Override
    public void testLoadAndStoreBytesValues() throws PersistenceException, IOException, InterruptedException {
@@ -1,7 +1,16 @@
 package org.infinispan.persistence.remote;
 
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
@@ -12,17 +21,22 @@
 import org.infinispan.client.hotrod.RemoteCacheManager;
 import org.infinispan.client.hotrod.configuration.ConfigurationBuilder;
 import org.infinispan.client.hotrod.configuration.ExhaustedAction;
+import org.infinispan.client.hotrod.exceptions.HotRodClientException;
+import org.infinispan.client.hotrod.filter.Filters;
 import org.infinispan.commons.api.BasicCacheContainer;
 import org.infinispan.commons.configuration.ConfiguredBy;
 import org.infinispan.commons.marshall.Marshaller;
 import org.infinispan.commons.marshall.WrappedByteArray;
 import org.infinispan.commons.marshall.jboss.GenericJBossMarshaller;
 import org.infinispan.commons.persistence.Store;
+import org.infinispan.commons.util.CloseableIterator;
+import org.infinispan.commons.util.CloseableIteratorMapper;
 import org.infinispan.commons.util.EnumUtil;
 import org.infinispan.commons.util.Util;
 import org.infinispan.container.InternalEntryFactory;
 import org.infinispan.container.versioning.NumericVersion;
 import org.infinispan.context.impl.FlagBitSets;
+import org.infinispan.executors.ExecutorAllCompletionService;
 import org.infinispan.filter.KeyFilter;
 import org.infinispan.marshall.core.MarshalledEntry;
 import org.infinispan.metadata.EmbeddedMetadata;
@@ -54,6 +68,11 @@
  * Purging elements is not possible, as HotRod does not support the fetching of all remote keys (this would be a
  * very costly operation as well). Purging takes place at the remote end (infinispan cluster).
  * <p/>
+ * Batch writes and deletes are sent with the asynchronous operations of the remote cache, so that several requests are
+ * in flight at the same time instead of waiting for each response in turn. The number of concurrent requests is
+ * bounded by the async executor of the client. Iteration uses the remote iteration with one iterator for the segments
+ * owned by each server, consumed in parallel.
+ * <p/>
  *
  * @author Mircea.Markus@jboss.com
  * @see org.infinispan.persistence.remote.configuration.RemoteStoreConfiguration
@@ -77,6 +96,11 @@
    private static final String LIFESPAN = "lifespan";
    private static final String MAXIDLE = "maxidle";
    protected InitializationContext ctx;
+   /**
+    * Whether the server provides the {@link Filters#TO_EMPTY_BYTES_FILTER_CONVERTER_FACTORY_NAME} converter, so that
+    * only the keys are transferred when the values are not needed.
+    */
+   private volatile boolean serverConvertsToEmptyBytes = true;
 
    @Override
    public void init(InitializationContext ctx) {
@@ -116,65 +140,113 @@ public void stop() throws PersistenceException {
    @Override
    public MarshalledEntry load(Object key) throws PersistenceException {
       if (configuration.rawValues()) {
-         Object unwrappedKey;
-         if (key instanceof WrappedByteArray) {
-            unwrappedKey = ((WrappedByteArray) key).getBytes();
-         } else {
-            unwrappedKey = key;
-         }
-         MetadataValue<?> value = remoteCache.getWithMetadata(unwrappedKey);
-         if (value != null) {
-            Metadata metadata = new EmbeddedMetadata.Builder()
-                  .version(new NumericVersion(value.getVersion()))
-                  .lifespan(value.getLifespan(), TimeUnit.SECONDS)
-                  .maxIdle(value.getMaxIdle(), TimeUnit.SECONDS).build();
-            long created = value.getCreated();
-            long lastUsed = value.getLastUsed();
-            Object realValue = value.getValue();
-            if (realValue instanceof byte[]) {
-               realValue = new WrappedByteArray((byte[]) realValue);
-            }
-            return ctx.getMarshalledEntryFactory().newMarshalledEntry(key, realValue,
-                                    new InternalMetadataImpl(metadata, created, lastUsed));
-         } else {
-            return null;
-         }
+         MetadataValue<?> value = remoteCache.getWithMetadata(unwrap(key));
+         return value != null ? toMarshalledEntry(key, value) : null;
       } else {
-         if (key instanceof WrappedByteArray) {
-            key = ((WrappedByteArray) key).getBytes();
-         }
-         return (MarshalledEntry) remoteCache.get(key);
+         return (MarshalledEntry) remoteCache.get(unwrap(key));
       }
    }
 
+   private MarshalledEntry toMarshalledEntry(Object key, MetadataValue<?> value) {
+      Metadata metadata = new EmbeddedMetadata.Builder()
+            .version(new NumericVersion(value.getVersion()))
+            .lifespan(value.getLifespan(), TimeUnit.SECONDS)
+            .maxIdle(value.getMaxIdle(), TimeUnit.SECONDS).build();
+      long created = value.getCreated();
+      long lastUsed = value.getLastUsed();
+      return ctx.getMarshalledEntryFactory().newMarshalledEntry(key, wrap(value.getValue()),
+            new InternalMetadataImpl(metadata, created, lastUsed));
+   }
+
    @Override
    public boolean contains(Object key) throws PersistenceException {
-      if (key instanceof WrappedByteArray) {
-         key = ((WrappedByteArray) key).getBytes();
-      }
-      return remoteCache.containsKey(key);
+      return remoteCache.containsKey(unwrap(key));
    }
 
+   /**
+    * Iterates over the remote entries in parallel, with a remote iteration for the segments owned by each server, so
+    * that the entries are fetched in batches of {@code maxBatchSize} instead of being loaded one by one. A single
+    * iteration is used if the client doesn't know the segments of the remote cache.
+    */
    @Override
    public void process(KeyFilter filter, CacheLoaderTask task, Executor executor, boolean fetchValue, boolean fetchMetadata) {
-      TaskContextImpl taskContext = new TaskContextImpl();
-      for (Object key : remoteCache.keySet()) {
-         if (key instanceof byte[]) {
-            key = new WrappedByteArray((byte[]) key);
+      TaskContext taskContext = new TaskContextImpl();
+      ExecutorAllCompletionService ecs = new ExecutorAllCompletionService(executor);
+      for (Set<Integer> segments : segmentPartitions()) {
+         ecs.submit(() -> {
+            try (CloseableIterator<MarshalledEntry> it = iterate(segments, fetchValue)) {
+               while (!taskContext.isStopped() && it.hasNext()) {
+                  MarshalledEntry entry = it.next();
+                  if (filter == null || filter.accept(entry.getKey())) {
+                     task.processEntry(entry, taskContext);
+                  }
+               }
+            }
+            return null;
+         });
+      }
+      ecs.waitUntilAllCompleted();
+      if (ecs.isExceptionThrown()) {
+         throw new PersistenceException("Execution exception!", ecs.getFirstException());
+      }
+   }
+
+   /**
+    * Assigns each segment to one of its owners, choosing the owner with the fewest segments assigned so far, so that
+    * every segment is iterated once and the iterations are spread over the servers.
+    *
+    * @return the groups of segments to iterate in parallel, or a single {@code null} group to iterate over all the
+    * segments if they are not known
+    */
+   private Collection<Set<Integer>> segmentPartitions() {
+      Map<SocketAddress, Set<Integer>> segmentsPerServer = remoteCache.getCacheTopologyInfo().getSegmentsPerServer();
+      if (segmentsPerServer.isEmpty()) {
+         return Collections.singletonList(null);
+      }
+      Set<Integer> allSegments = new TreeSet<>();
+      segmentsPerServer.values().forEach(allSegments::addAll);
+      Map<SocketAddress, Set<Integer>> partitions = new HashMap<>();
+      for (Integer segment : allSegments) {
+         SocketAddress owner = null;
+         int ownerSegments = Integer.MAX_VALUE;
+         for (Map.Entry<SocketAddress, Set<Integer>> server : segmentsPerServer.entrySet()) {
+            if (server.getValue().contains(segment)) {
+               Set<Integer> partition = partitions.get(server.getKey());
+               int size = partition == null ? 0 : partition.size();
+               if (size < ownerSegments) {
+                  owner = server.getKey();
+                  ownerSegments = size;
+               }
+            }
          }
-         if (taskContext.isStopped())
-            break;
-         if (filter == null || filter.accept(key)) {
+         partitions.computeIfAbsent(owner, k -> new TreeSet<>()).add(segment);
+      }
+      return partitions.values();
+   }
+
+   private CloseableIterator<MarshalledEntry> iterate(Set<Integer> segments, boolean fetchValue) {
+      int batchSize = configuration.maxBatchSize();
+      if (!fetchValue) {
+         CloseableIterator<Map.Entry<Object, Object>> entries = null;
+         if (serverConvertsToEmptyBytes) {
             try {
-               MarshalledEntry marshalledEntry = load(key);
-               if (marshalledEntry != null) {
-                  task.processEntry(marshalledEntry, taskContext);
-               }
-            } catch (InterruptedException e) {
-               Thread.currentThread().interrupt();
-               return;
+               entries = remoteCache.retrieveEntries(Filters.TO_EMPTY_BYTES_FILTER_CONVERTER_FACTORY_NAME, segments, batchSize);
+            } catch (HotRodClientException e) {
+               log.keyOnlyIterationNotSupported(e);
+               serverConvertsToEmptyBytes = false;
             }
          }
+         if (entries == null) {
+            entries = remoteCache.retrieveEntries(null, segments, batchSize);
+         }
+         return new CloseableIteratorMapper<>(entries,
+               e -> ctx.getMarshalledEntryFactory().newMarshalledEntry(wrap(e.getKey()), (Object) null, null));
+      } else if (configuration.rawValues()) {
+         return new CloseableIteratorMapper<>(remoteCache.retrieveEntriesWithMetadata(segments, batchSize),
+               e -> toMarshalledEntry(wrap(e.getKey()), e.getValue()));
+      } else {
+         return new CloseableIteratorMapper<>(remoteCache.retrieveEntries(null, segments, batchSize),
+               e -> (MarshalledEntry) e.getValue());
       }
    }
 
@@ -193,21 +265,21 @@ public void write(MarshalledEntry entry) throws PersistenceException {
       if (trace) {
          log.tracef("Adding entry: %s", entry);
       }
-      InternalMetadata metadata = entry.getMetadata();
-      long lifespan = metadata != null ? metadata.lifespan() : -1;
-      long maxIdle = metadata != null ? metadata.maxIdle() : -1;
-      Object key = getKey(entry);
-      Object value = getValue(entry);
-
-      remoteCache.put(key, value, toSeconds(lifespan, entry.getKey(), LIFESPAN), TimeUnit.SECONDS,
-            toSeconds(maxIdle, entry.getKey(), MAXIDLE), TimeUnit.SECONDS);
+      Expiration expiration = new Expiration(entry);
+      remoteCache.put(getKey(entry), getValue(entry), expiration.lifespan, TimeUnit.SECONDS, expiration.maxIdle,
+            TimeUnit.SECONDS);
    }
 
    private Object getKey(MarshalledEntry entry) {
-      Object key = entry.getKey();
-      if (key instanceof WrappedByteArray)
-         return ((WrappedByteArray) key).getBytes();
-      return key;
+      return unwrap(entry.getKey());
+   }
+
+   private static Object unwrap(Object key) {
+      return key instanceof WrappedByteArray ? ((WrappedByteArray) key).getBytes() : key;
+   }
+
+   private static Object wrap(Object object) {
+      return object instanceof byte[] ? new WrappedByteArray((byte[]) object) : object;
    }
 
    private Object getValue(MarshalledEntry entry) {
@@ -218,19 +290,53 @@ private Object getValue(MarshalledEntry entry) {
       return entry;
    }
 
+   /**
+    * Groups the entries by expiration, as a put all request has a single lifespan and max idle time, and sends each
+    * group in requests of at most {@code maxBatchSize} entries without waiting for the previous requests to complete.
+    */
    @Override
    public void writeBatch(Iterable<MarshalledEntry<? extends K, ? extends V>> marshalledEntries) {
-      Map<Object, Object> batch = new HashMap<>();
+      List<CompletableFuture<?>> futures = new ArrayList<>();
+      Map<Expiration, Map<Object, Object>> batches = new HashMap<>();
       for (MarshalledEntry entry : marshalledEntries) {
+         Expiration expiration = new Expiration(entry);
+         Map<Object, Object> batch = batches.computeIfAbsent(expiration, e -> new HashMap<>());
          batch.put(getKey(entry), getValue(entry));
          if (batch.size() == configuration.maxBatchSize()) {
-            remoteCache.putAll(batch);
-            batch.clear();
+            futures.add(putAllAsync(batch, expiration));
+            batches.remove(expiration);
          }
       }
+      batches.forEach((expiration, batch) -> futures.add(putAllAsync(batch, expiration)));
+      join(futures);
+   }
 
-      if (!batch.isEmpty())
-         remoteCache.putAll(batch);
+   private CompletableFuture<Void> putAllAsync(Map<Object, Object> batch, Expiration expiration) {
+      return remoteCache.putAllAsync(batch, expiration.lifespan, TimeUnit.SECONDS, expiration.maxIdle, TimeUnit.SECONDS);
+   }
+
+   /**
+    * Sends the removals without waiting for each response, with at most {@code maxBatchSize} removals in flight.
+    */
+   @Override
+   public void deleteBatch(Iterable<Object> keys) {
+      List<CompletableFuture<?>> futures = new ArrayList<>();
+      for (Object key : keys) {
+         futures.add(remoteCache.removeAsync(unwrap(key)));
+         if (futures.size() == configuration.maxBatchSize()) {
+            join(futures);
+            futures.clear();
+         }
+      }
+      join(futures);
+   }
+
+   private void join(List<CompletableFuture<?>> futures) {
+      try {
+         CompletableFuture.allOf(futures.toArray(new CompletableFuture[futures.size()])).join();
+      } catch (CompletionException e) {
+         throw new PersistenceException(e.getCause());
+      }
    }
 
    @Override
@@ -240,16 +346,13 @@ public void clear() throws PersistenceException {
 
    @Override
    public boolean delete(Object key) throws PersistenceException {
-      if (key instanceof WrappedByteArray) {
-         key = ((WrappedByteArray) key).getBytes();
-      }
       // Less than ideal, but RemoteCache, since it extends Cache, can only
       // know whether the operation succeeded based on whether the previous
       // value is null or not.
-      return remoteCache.withFlags(Flag.FORCE_RETURN_VALUE).remove(key) != null;
+      return remoteCache.withFlags(Flag.FORCE_RETURN_VALUE).remove(unwrap(key)) != null;
    }
 
-   private long toSeconds(long millis, Object key, String desc) {
+   private static long toSeconds(long millis, Object key, String desc) {
       if (millis > 0 && millis < 1000) {
          if (trace) {
             log.tracef("Adjusting %s time for (k,v): (%s, %s) from %d millis to 1 sec, as milliseconds are not supported by HotRod",
@@ -351,4 +454,31 @@ public RemoteStoreConfiguration getConfiguration() {
    public boolean shouldWrite(long commandFlags) {
       return !EnumUtil.containsAny(FlagBitSets.ROLLING_UPGRADE, commandFlags);
    }
+
+   /**
+    * The lifespan and max idle time of an entry, in seconds.
+    */
+   private static final class Expiration {
+      final long lifespan;
+      final long maxIdle;
+
+      Expiration(MarshalledEntry entry) {
+         InternalMetadata metadata = entry.getMetadata();
+         lifespan = toSeconds(metadata != null ? metadata.lifespan() : -1, entry.getKey(), LIFESPAN);
+         maxIdle = toSeconds(metadata != null ? metadata.maxIdle() : -1, entry.getKey(), MAXIDLE);
+      }
+
+      @Override
+      public boolean equals(Object o) {
+         if (this == o) return true;
+         if (o == null || getClass() != o.getClass()) return false;
+         Expiration that = (Expiration) o;
+         return lifespan == that.lifespan && maxIdle == that.maxIdle;
+      }
+
+      @Override
+      public int hashCode() {
+         return 31 * Long.hashCode(lifespan) + Long.hashCode(maxIdle);
+      }
+   }
 }
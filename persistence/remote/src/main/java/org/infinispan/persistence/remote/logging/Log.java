@@ -1,6 +1,7 @@
 package org.infinispan.persistence.remote.logging;
 
 import static org.jboss.logging.Logger.Level.ERROR;
+import static org.jboss.logging.Logger.Level.WARN;
 
 import org.infinispan.commons.CacheConfigurationException;
 import org.infinispan.commons.CacheException;
@@ -36,4 +37,8 @@ public interface Log extends org.infinispan.util.logging.Log {
    @Message(value = "The RemoteCacheStore for cache %s should be configured with hotRodWrapping enabled", id = 10007)
    CacheException remoteStoreNoHotRodWrapping(String cacheName);
 
+   @LogMessage(level = WARN)
+   @Message(value = "The server can't iterate over the keys only, the values are transferred as well", id = 10008)
+   void keyOnlyIterationNotSupported(@Cause Throwable cause);
+
 }
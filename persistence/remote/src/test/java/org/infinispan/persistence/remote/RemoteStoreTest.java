@@ -1,9 +1,16 @@
 package org.infinispan.persistence.remote;
 
 import static org.infinispan.server.hotrod.test.HotRodTestingUtil.hotRodCacheConfiguration;
+import static org.testng.AssertJUnit.assertEquals;
 import static org.testng.AssertJUnit.assertNull;
 import static org.testng.AssertJUnit.assertTrue;
 
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.infinispan.client.hotrod.filter.Filters;
 import org.infinispan.client.hotrod.test.HotRodClientTestingUtil;
 import org.infinispan.commons.marshall.StreamingMarshaller;
 import org.infinispan.configuration.cache.ConfigurationBuilder;
@@ -18,6 +25,7 @@
 import org.infinispan.test.TestingUtil;
 import org.infinispan.test.fwk.TestCacheManagerFactory;
 import org.infinispan.util.TimeService;
+import org.infinispan.util.concurrent.WithinThreadExecutor;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.Test;
 
@@ -96,4 +104,32 @@ public void testReplaceExpiredEntry() throws Exception {
       cl.write(marshalledEntry(internalCacheEntry("k1", "v2", 100l)));
       assertTrue(cl.load("k1").getValue().equals("v2") || TestingUtil.moreThanDurationElapsed(start, 100));
    }
+
+   public void testKeyOnlyConverterIsRegisteredByServer() {
+      assertEquals(HotRodServer.TO_EMPTY_BYTES_FILTER_CONVERTER_FACTORY_NAME,
+            Filters.TO_EMPTY_BYTES_FILTER_CONVERTER_FACTORY_NAME);
+   }
+
+   public void testProcessKeysWithoutKeyOnlyConverter() {
+      cl.write(marshalledEntry(internalCacheEntry("k1", "v1", -1)));
+      cl.write(marshalledEntry(internalCacheEntry("k2", "v2", -1)));
+      // e.g. a server which doesn't provide the converter
+      hrServer.removeKeyValueFilterConverterFactory(HotRodServer.TO_EMPTY_BYTES_FILTER_CONVERTER_FACTORY_NAME);
+
+      Set<Object> keys = ConcurrentHashMap.newKeySet();
+      cl.process(null, (entry, taskContext) -> {
+         assertNull(entry.getValue());
+         keys.add(entry.getKey());
+      }, new WithinThreadExecutor(), false, false);
+      assertEquals(new HashSet<>(Arrays.asList("k1", "k2")), keys);
+   }
+
+   public void testWriteBatchKeepsExpiration() {
+      cl.writeBatch(Arrays.asList(marshalledEntry(internalCacheEntry("k1", "v1", 100l)),
+            marshalledEntry(internalCacheEntry("k2", "v2", -1))));
+      // the lifespan is rounded to 1 second by Hot Rod
+      timeService.advance(1101);
+      assertNull(cl.load("k1"));
+      assertEquals("v2", cl.load("k2").getValue());
+   }
 }
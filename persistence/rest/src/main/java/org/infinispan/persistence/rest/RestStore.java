@@ -1,14 +1,23 @@
 package org.infinispan.persistence.rest;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.apache.commons.codec.EncoderException;
 import org.apache.commons.codec.net.URLCodec;
@@ -35,32 +44,46 @@
 
 import io.netty.bootstrap.Bootstrap;
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.ByteBufInputStream;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.pool.AbstractChannelPoolHandler;
+import io.netty.channel.pool.ChannelHealthChecker;
+import io.netty.channel.pool.ChannelPool;
+import io.netty.channel.pool.FixedChannelPool;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.codec.http.DefaultFullHttpRequest;
-import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpHeaderNames;
-import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObject;
 import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
 import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.concurrent.Future;
 import net.jcip.annotations.ThreadSafe;
 
 /**
  * RestStore.
+ * <p>
+ * The requests are sent over a pool of persistent HTTP/1.1 connections, sized by
+ * {@link ConnectionPoolConfiguration#maxConnectionsPerHost()}. Batched writes and deletes are pipelined on a single
+ * connection, up to {@link RestStoreConfiguration#maxBatchSize()} requests at a time, and the bulk operations stream the
+ * keys from the server instead of buffering the whole response.
  *
  * @author Tristan Tarrant
  * @since 6.0
@@ -71,9 +94,11 @@
 public class RestStore implements AdvancedLoadWriteStore {
    private static final String MAX_IDLE_TIME_SECONDS = "maxIdleTimeSeconds";
    private static final String TIME_TO_LIVE_SECONDS = "timeToLiveSeconds";
+   private static final int KEY_BATCH_SIZE = 1000;
    private static final Log log = LogFactory.getLog(RestStore.class, Log.class);
    private volatile RestStoreConfiguration configuration;
    private Bootstrap bootstrap;
+   private ChannelPool channelPool;
    private InternalEntryFactory iceFactory;
    private MarshallingTwoWayKey2StringMapper key2StringMapper;
    private String path;
@@ -101,19 +126,21 @@ public void start()   {
       ConnectionPoolConfiguration pool = configuration.connectionPool();
       workerGroup = new NioEventLoopGroup();
       Bootstrap b = new Bootstrap().group(workerGroup).channel(NioSocketChannel.class);
-      b.handler(new ChannelInitializer<SocketChannel>() {
-         @Override
-         protected void initChannel(SocketChannel ch) {
-            ch.pipeline().addLast(new HttpClientCodec());
-         }
-      });
       b.option(ChannelOption.SO_KEEPALIVE, true); // TODO make this part of configuration options
       b.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, pool.connectionTimeout());
       b.option(ChannelOption.SO_SNDBUF, pool.bufferSize());// TODO make sure this is appropriate
       b.option(ChannelOption.SO_RCVBUF, pool.bufferSize());
       b.option(ChannelOption.TCP_NODELAY, pool.tcpNoDelay());
+      b.remoteAddress(configuration.host(), configuration.port());
       bootstrap = b;
       maxContentLength = 10 * 1024 * 1024; // TODO make this part of configuration options.
+      channelPool = new FixedChannelPool(b, new AbstractChannelPoolHandler() {
+         @Override
+         public void channelCreated(Channel ch) {
+            ch.pipeline().addLast(new HttpClientCodec(), new HttpObjectAggregator(maxContentLength), new HttpResponseHandler());
+         }
+      }, ChannelHealthChecker.ACTIVE, FixedChannelPool.AcquireTimeoutAction.FAIL, pool.connectionTimeout(),
+            pool.maxConnectionsPerHost(), Integer.MAX_VALUE);
 
       this.key2StringMapper = Util.getInstance(configuration.key2StringMapper(), ctx.getCache().getAdvancedCache().getClassLoader());
       this.key2StringMapper.setMarshaller(ctx.getMarshaller());
@@ -135,6 +162,7 @@ protected void initChannel(SocketChannel ch) {
 
    @Override
    public void stop()   {
+      channelPool.close();
       workerGroup.shutdownGracefully();
    }
 
@@ -183,64 +211,357 @@ private boolean isTextContentType(String contentType) {
    @Override
    public void write(MarshalledEntry entry) {
       try {
-         String contentType = metadataHelper.getContentType(entry);
-         ByteBuf content = Unpooled.wrappedBuffer(marshall(contentType, entry));
-
-         DefaultFullHttpRequest put = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.PUT, keyToUri(entry.getKey()), content);
-         put.headers().add("Content-Type", contentType);
-         put.headers().add("Content-Length", content.readableBytes());
-         InternalMetadata metadata = entry.getMetadata();
-         if (metadata != null && metadata.expiryTime() > -1) {
-            put.headers().add(TIME_TO_LIVE_SECONDS, Long.toString(timeoutToSeconds(metadata.lifespan())));
-            put.headers().add(MAX_IDLE_TIME_SECONDS, Long.toString(timeoutToSeconds(metadata.maxIdle())));
+         FullHttpResponse response = execute(putRequest(entry));
+         try {
+            if (!isSuccessful(response.status().code())) {
+               throw log.httpError(response.status().toString());
+            }
+         } finally {
+            response.release();
          }
+      } catch (IOException e) {
+         throw log.httpError(e);
+      } catch (PersistenceException e) {
+         throw e;
+      } catch (Exception e) {
+         throw new PersistenceException(e);
+      }
+   }
 
-         Channel ch = bootstrap.connect(configuration.host(), configuration.port()).awaitUninterruptibly().channel().pipeline().addLast(new HttpResponseHandler()).channel();
-         ch.writeAndFlush(put).sync().channel().closeFuture().sync();
-
+   @Override
+   public void writeBatch(Iterable entries) {
+      try {
+         List<FullHttpRequest> batch = new ArrayList<>(configuration.maxBatchSize());
+         for (Object entry : entries) {
+            batch.add(putRequest((MarshalledEntry) entry));
+            if (batch.size() == configuration.maxBatchSize()) {
+               executeBatch(batch, false);
+               batch.clear();
+            }
+         }
+         if (!batch.isEmpty()) {
+            executeBatch(batch, false);
+         }
+      } catch (IOException e) {
+         throw log.httpError(e);
+      } catch (PersistenceException e) {
+         throw e;
       } catch (Exception e) {
          throw new PersistenceException(e);
       }
    }
 
-   private static class HttpResponseHandler extends SimpleChannelInboundHandler<HttpResponse> {
+   @Override
+   public void deleteBatch(Iterable keys) {
+      List<FullHttpRequest> batch = new ArrayList<>(configuration.maxBatchSize());
+      for (Object key : keys) {
+         batch.add(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.DELETE, keyToUri(key)));
+         if (batch.size() == configuration.maxBatchSize()) {
+            executeBatch(batch, true);
+            batch.clear();
+         }
+      }
+      if (!batch.isEmpty()) {
+         executeBatch(batch, true);
+      }
+   }
 
-      private FullHttpResponse response;
+   private FullHttpRequest putRequest(MarshalledEntry entry) throws IOException, InterruptedException {
+      String contentType = metadataHelper.getContentType(entry);
+      ByteBuf content = Unpooled.wrappedBuffer(marshall(contentType, entry));
+
+      DefaultFullHttpRequest put = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.PUT, keyToUri(entry.getKey()), content);
+      put.headers().add("Content-Type", contentType);
+      put.headers().add("Content-Length", content.readableBytes());
+      InternalMetadata metadata = entry.getMetadata();
+      if (metadata != null && metadata.expiryTime() > -1) {
+         put.headers().add(TIME_TO_LIVE_SECONDS, Long.toString(timeoutToSeconds(metadata.lifespan())));
+         put.headers().add(MAX_IDLE_TIME_SECONDS, Long.toString(timeoutToSeconds(metadata.maxIdle())));
+      }
+      return put;
+   }
 
-      private boolean retainResponse;
+   /**
+    * Sends the request over a pooled connection and waits for the response. The caller must release the response.
+    */
+   private FullHttpResponse execute(HttpRequest request) {
+      Channel ch = acquireChannel();
+      boolean reusable = false;
+      try {
+         FullHttpResponse response = await(ch.pipeline().get(HttpResponseHandler.class).send(request, true));
+         reusable = HttpUtil.isKeepAlive(response);
+         return response;
+      } finally {
+         releaseChannel(ch, reusable);
+      }
+   }
 
-      public HttpResponseHandler() {
-         this(false);
+   /**
+    * Pipelines the requests over a single pooled connection: all the requests are sent before waiting for the first
+    * response. Fails if any of the requests was not successful, unless {@code ignoreNotFound} is set and the server
+    * only replied that the entry did not exist.
+    */
+   private void executeBatch(List<FullHttpRequest> requests, boolean ignoreNotFound) {
+      Channel ch = acquireChannel();
+      boolean reusable = false;
+      try {
+         HttpResponseHandler handler = ch.pipeline().get(HttpResponseHandler.class);
+         List<CompletableFuture<FullHttpResponse>> responses = new ArrayList<>(requests.size());
+         for (int i = 0; i < requests.size(); i++) {
+            responses.add(handler.send(requests.get(i), i == requests.size() - 1));
+         }
+         boolean keepAlive = true;
+         HttpResponseStatus failure = null;
+         for (CompletableFuture<FullHttpResponse> future : responses) {
+            FullHttpResponse response = await(future);
+            try {
+               keepAlive &= HttpUtil.isKeepAlive(response);
+               if (failure == null && !isSuccessful(response.status().code())
+                     && !(ignoreNotFound && HttpResponseStatus.NOT_FOUND.equals(response.status()))) {
+                  failure = response.status();
+               }
+            } finally {
+               response.release();
+            }
+         }
+         reusable = keepAlive;
+         if (failure != null) {
+            throw log.httpError(failure.toString());
+         }
+      } finally {
+         releaseChannel(ch, reusable);
       }
+   }
 
-      public HttpResponseHandler(boolean retainResponse) {
-         this.retainResponse = retainResponse;
+   private Channel acquireChannel() {
+      Future<Channel> future = channelPool.acquire().awaitUninterruptibly();
+      if (!future.isSuccess()) {
+         throw new PersistenceException(future.cause());
       }
+      return future.getNow();
+   }
+
+   private void releaseChannel(Channel ch, boolean reusable) {
+      // the responses of a connection which is not reusable might be out of sync with the requests
+      if (!reusable) {
+         ch.close();
+      }
+      channelPool.release(ch);
+   }
+
+   private FullHttpResponse await(CompletableFuture<FullHttpResponse> future) {
+      try {
+         return future.get(configuration.connectionPool().socketTimeout(), TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new PersistenceException(e);
+      } catch (ExecutionException e) {
+         throw new PersistenceException(e.getCause());
+      } catch (TimeoutException e) {
+         throw new PersistenceException(e);
+      }
+   }
+
+   /**
+    * Matches the responses received on a pooled connection with the requests, which may be pipelined.
+    */
+   private static class HttpResponseHandler extends SimpleChannelInboundHandler<FullHttpResponse> {
+
+      private final Queue<CompletableFuture<FullHttpResponse>> pending = new ConcurrentLinkedQueue<>();
+
+      private Channel channel;
 
-      protected void channelRead0(ChannelHandlerContext ctx, HttpResponse msg) throws Exception {
-         if (retainResponse) {
-            this.response = ((FullHttpResponse) msg).retain();
+      @Override
+      public void handlerAdded(ChannelHandlerContext ctx) {
+         channel = ctx.channel();
+      }
+
+      CompletableFuture<FullHttpResponse> send(HttpRequest request, boolean flush) {
+         CompletableFuture<FullHttpResponse> response = new CompletableFuture<>();
+         pending.add(response);
+         (flush ? channel.writeAndFlush(request) : channel.write(request)).addListener(f -> {
+            if (!f.isSuccess()) {
+               response.completeExceptionally(f.cause());
+            }
+         });
+         return response;
+      }
+
+      @Override
+      protected void channelRead0(ChannelHandlerContext ctx, FullHttpResponse msg) throws Exception {
+         CompletableFuture<FullHttpResponse> response = pending.poll();
+         if (response == null || !response.complete(msg.retain())) {
+            // nobody is waiting for the response any more
+            msg.release();
          }
+      }
+
+      @Override
+      public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+         failPending(new PersistenceException("Connection to the REST server was closed"));
+         super.channelInactive(ctx);
+      }
+
+      @Override
+      public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+         failPending(cause);
          ctx.close();
-      };
+      }
+
+      private void failPending(Throwable cause) {
+         for (CompletableFuture<FullHttpResponse> response = pending.poll(); response != null; response = pending.poll()) {
+            response.completeExceptionally(cause);
+         }
+      }
+   }
+
+   /**
+    * Streams the lines of a text response received on a dedicated connection, so that the whole response is never
+    * buffered. Reading from the connection is suspended while the consumer is lagging behind.
+    */
+   private static class KeyStream extends SimpleChannelInboundHandler<HttpObject> implements AutoCloseable {
+      private static final Object END = new Object();
+      private static final int MAX_BUFFERED_KEYS = 10 * KEY_BATCH_SIZE;
+
+      private final BlockingQueue<Object> keys = new LinkedBlockingQueue<>();
+      private final long timeout;
+      private volatile Throwable failure;
+      private volatile Channel channel;
+      private ByteBuf buffer;
+      private HttpResponseStatus status;
+      private boolean ended;
+
+      KeyStream(long timeout) {
+         this.timeout = timeout;
+      }
+
+      @Override
+      public void handlerAdded(ChannelHandlerContext ctx) {
+         channel = ctx.channel();
+         buffer = ctx.alloc().buffer();
+      }
+
+      @Override
+      public void handlerRemoved(ChannelHandlerContext ctx) {
+         buffer.release();
+      }
+
+      @Override
+      protected void channelRead0(ChannelHandlerContext ctx, HttpObject msg) throws Exception {
+         if (msg instanceof HttpResponse) {
+            status = ((HttpResponse) msg).status();
+         }
+         if (msg instanceof HttpContent) {
+            if (HttpResponseStatus.OK.equals(status)) {
+               buffer.writeBytes(((HttpContent) msg).content());
+               readLines(msg instanceof LastHttpContent);
+               if (keys.size() >= MAX_BUFFERED_KEYS) {
+                  ctx.channel().config().setAutoRead(false);
+               }
+            }
+            if (msg instanceof LastHttpContent) {
+               end(HttpResponseStatus.OK.equals(status) ? null : log.httpError(String.valueOf(status)));
+               ctx.close();
+            }
+         }
+      }
+
+      private void readLines(boolean last) {
+         for (;;) {
+            int eol = buffer.indexOf(buffer.readerIndex(), buffer.writerIndex(), (byte) '\n');
+            if (eol < 0) {
+               break;
+            }
+            int length = eol - buffer.readerIndex();
+            if (length > 0 && buffer.getByte(eol - 1) == '\r') {
+               length--;
+            }
+            if (length > 0) {
+               keys.add(buffer.toString(buffer.readerIndex(), length, StandardCharsets.UTF_8));
+            }
+            buffer.readerIndex(eol + 1);
+         }
+         if (last && buffer.isReadable()) {
+            keys.add(buffer.toString(StandardCharsets.UTF_8));
+            buffer.skipBytes(buffer.readableBytes());
+         }
+         buffer.discardSomeReadBytes();
+      }
+
+      @Override
+      public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+         end(new PersistenceException("Connection to the REST server was closed"));
+         super.channelInactive(ctx);
+      }
 
       @Override
       public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
-         throw new PersistenceException(cause);
+         end(cause);
+         ctx.close();
       }
 
-      public FullHttpResponse getResponse() {
-         return response;
+      private void end(Throwable cause) {
+         if (!ended) {
+            ended = true;
+            failure = cause;
+            keys.add(END);
+         }
       }
 
+      /**
+       * @return the next line of the response, or null when the response is complete
+       * @throws PersistenceException if no line was received within the socket timeout
+       */
+      String next() throws InterruptedException {
+         Object key = keys.poll(timeout, TimeUnit.MILLISECONDS);
+         if (key == null) {
+            throw new PersistenceException(new TimeoutException("Timed out waiting for the keys from the REST server"));
+         }
+         if (key == END) {
+            keys.add(END);
+            if (failure != null) {
+               throw new PersistenceException(failure);
+            }
+            return null;
+         }
+         Channel ch = channel;
+         if (keys.size() < MAX_BUFFERED_KEYS / 2 && !ch.config().isAutoRead()) {
+            ch.config().setAutoRead(true);
+         }
+         return (String) key;
+      }
+
+      @Override
+      public void close() {
+         channel.close();
+      }
+   }
+
+   /**
+    * Opens a dedicated connection and requests the keys of all the entries.
+    */
+   private KeyStream streamKeys() throws InterruptedException {
+      DefaultFullHttpRequest get = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, path + "?global");
+      get.headers().add(HttpHeaderNames.ACCEPT, "text/plain");
+      get.headers().add(HttpHeaderNames.ACCEPT_CHARSET, "UTF-8");
+      KeyStream keyStream = new KeyStream(configuration.connectionPool().socketTimeout());
+      Channel ch = bootstrap.clone().handler(new ChannelInitializer<SocketChannel>() {
+         @Override
+         protected void initChannel(SocketChannel ch) {
+            ch.pipeline().addLast(new HttpClientCodec(), keyStream);
+         }
+      }).connect().sync().channel();
+      ch.writeAndFlush(get).addListener(ChannelFutureListener.CLOSE_ON_FAILURE);
+      return keyStream;
    }
 
    @Override
    public void clear() {
-      DefaultHttpRequest delete = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.DELETE, path);
+      DefaultFullHttpRequest delete = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.DELETE, path);
       try {
-         Channel ch = bootstrap.connect(configuration.host(), configuration.port()).awaitUninterruptibly().channel().pipeline().addLast(new HttpResponseHandler()).channel();
-         ch.writeAndFlush(delete).sync().channel().closeFuture().sync();
+         execute(delete).release();
+      } catch (PersistenceException e) {
+         throw e;
       } catch (Exception e) {
          throw new PersistenceException(e);
       }
@@ -248,17 +569,16 @@ public void clear() {
 
    @Override
    public boolean delete(Object key) {
-      DefaultHttpRequest delete = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.DELETE, keyToUri(key));
+      DefaultFullHttpRequest delete = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.DELETE, keyToUri(key));
       try {
-         HttpResponseHandler handler = new HttpResponseHandler(true);
-         Channel ch = bootstrap.connect(configuration.host(), configuration.port()).awaitUninterruptibly().channel().pipeline().addLast(new HttpObjectAggregator(maxContentLength), handler).channel();
-         ch.writeAndFlush(delete).sync().channel().closeFuture().sync();
+         FullHttpResponse response = execute(delete);
          try {
-            return isSuccessful(handler.getResponse().status().code());
+            return isSuccessful(response.status().code());
          } finally {
-            handler.getResponse().release();
+            response.release();
          }
-
+      } catch (PersistenceException e) {
+         throw e;
       } catch (Exception e) {
          throw new PersistenceException(e);
       }
@@ -268,12 +588,9 @@ public boolean delete(Object key) {
    public MarshalledEntry load(Object key) {
 
       try {
-         DefaultHttpRequest get = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, keyToUri(key));
+         DefaultFullHttpRequest get = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, keyToUri(key));
 
-         HttpResponseHandler handler = new HttpResponseHandler(true);
-         Channel ch = bootstrap.connect(configuration.host(), configuration.port()).awaitUninterruptibly().channel().pipeline().addLast(new HttpObjectAggregator(maxContentLength), handler).channel();
-         ch.writeAndFlush(get).sync().channel().closeFuture().sync();
-         FullHttpResponse response = handler.getResponse();
+         FullHttpResponse response = execute(get);
          try {
             if (HttpResponseStatus.OK.equals(response.status())) {
                String contentType = response.headers().get(HttpHeaderNames.CONTENT_TYPE);
@@ -301,6 +618,8 @@ public MarshalledEntry load(Object key) {
          }
       } catch (IOException e) {
          throw log.httpError(e);
+      } catch (PersistenceException e) {
+         throw e;
       } catch (Exception e) {
          throw new PersistenceException(e);
       }
@@ -322,43 +641,31 @@ private long timeHeaderToSeconds(String header) {
 
    @Override
    public void process(KeyFilter keyFilter, final CacheLoaderTask cacheLoaderTask, Executor executor, boolean loadValue, boolean loadMetadata) {
-      DefaultHttpRequest get = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, path + "?global");
-      get.headers().add(HttpHeaderNames.ACCEPT, "text/plain");
-      get.headers().add(HttpHeaderNames.ACCEPT_CHARSET, "UTF-8");
       try {
-         HttpResponseHandler handler = new HttpResponseHandler(true);
-         Channel ch = bootstrap.connect(configuration.host(), configuration.port()).awaitUninterruptibly().channel().pipeline().addLast(
-               new HttpObjectAggregator(maxContentLength), handler).channel();
-         ch.writeAndFlush(get).sync().channel().closeFuture().sync();
-         int batchSize = 1000;
          ExecutorAllCompletionService eacs = new ExecutorAllCompletionService(executor);
          final TaskContext taskContext = new TaskContextImpl();
-         try {
-            BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteBufInputStream(((FullHttpResponse) handler.getResponse()).content()), "UTF-8"));
-            try {
-               Set<Object> entries = new HashSet<Object>(batchSize);
-               for (String stringKey = reader.readLine(); stringKey != null; stringKey = reader.readLine()) {
-                  Object key = key2StringMapper.getKeyMapping(stringKey);
-                  if (keyFilter == null || keyFilter.accept(key))
-                     entries.add(key);
-                  if (entries.size() == batchSize) {
-                     final Set<Object> batch = entries;
-                     entries = new HashSet<Object>(batchSize);
-                     submitProcessTask(cacheLoaderTask, eacs, taskContext, batch, loadValue, loadMetadata);
-                  }
+         // Each batch loads its entries over a pooled connection, so there is no point in having more batches in
+         // flight than connections. Blocking here stops the key stream from being read until a batch completes.
+         Semaphore inFlightBatches = new Semaphore(configuration.connectionPool().maxConnectionsPerHost());
+         try (KeyStream keys = streamKeys()) {
+            Set<Object> entries = new HashSet<Object>(KEY_BATCH_SIZE);
+            for (String stringKey = keys.next(); stringKey != null && !taskContext.isStopped(); stringKey = keys.next()) {
+               Object key = key2StringMapper.getKeyMapping(stringKey);
+               if (keyFilter == null || keyFilter.accept(key))
+                  entries.add(key);
+               if (entries.size() == KEY_BATCH_SIZE) {
+                  final Set<Object> batch = entries;
+                  entries = new HashSet<Object>(KEY_BATCH_SIZE);
+                  submitProcessTask(cacheLoaderTask, eacs, inFlightBatches, taskContext, batch, loadValue, loadMetadata);
                }
-               if (!entries.isEmpty()) {
-                  submitProcessTask(cacheLoaderTask, eacs, taskContext, entries, loadValue, loadMetadata);
-               }
-            } finally {
-               reader.close();
             }
-            eacs.waitUntilAllCompleted();
-            if (eacs.isExceptionThrown()) {
-               throw new PersistenceException("Execution exception!", eacs.getFirstException());
+            if (!entries.isEmpty()) {
+               submitProcessTask(cacheLoaderTask, eacs, inFlightBatches, taskContext, entries, loadValue, loadMetadata);
             }
-         } finally {
-            handler.getResponse().release();
+         }
+         eacs.waitUntilAllCompleted();
+         if (eacs.isExceptionThrown()) {
+            throw new PersistenceException("Execution exception!", eacs.getFirstException());
          }
       } catch (Exception e) {
          throw log.errorLoadingRemoteEntries(e);
@@ -366,33 +673,45 @@ public void process(KeyFilter keyFilter, final CacheLoaderTask cacheLoaderTask,
    }
 
    private void submitProcessTask(final CacheLoaderTask cacheLoaderTask, CompletionService ecs,
-         final TaskContext taskContext, final Set<Object> batch, final boolean loadEntry,
-         final boolean loadMetadata) {
-      ecs.submit(new Callable<Void>() {
-         @Override
-         public Void call() throws Exception {
-            try {
-               for (Object key : batch) {
-                  if (taskContext.isStopped())
-                     break;
-                  MarshalledEntry entry = null;
-                  if (loadEntry || loadMetadata) {
-                     entry = load(key);
-                  }
-                  if (!loadEntry || !loadMetadata) {
-                     entry = ctx.getMarshalledEntryFactory().newMarshalledEntry(key,
-                           loadEntry ? entry.getValue() : null,
-                           loadMetadata ? entry.getMetadata() : null);
+         final Semaphore inFlightBatches, final TaskContext taskContext, final Set<Object> batch,
+         final boolean loadEntry, final boolean loadMetadata) throws InterruptedException {
+      inFlightBatches.acquire();
+      try {
+         ecs.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+               try {
+                  for (Object key : batch) {
+                     if (taskContext.isStopped())
+                        break;
+                     MarshalledEntry entry = null;
+                     if (loadEntry || loadMetadata) {
+                        entry = load(key);
+                        if (entry == null) {
+                           // Removed or expired since the keys were listed
+                           continue;
+                        }
+                     }
+                     if (!loadEntry || !loadMetadata) {
+                        entry = ctx.getMarshalledEntryFactory().newMarshalledEntry(key,
+                              loadEntry ? entry.getValue() : null,
+                              loadMetadata ? entry.getMetadata() : null);
+                     }
+                     cacheLoaderTask.processEntry(entry, taskContext);
                   }
-                  cacheLoaderTask.processEntry(entry, taskContext);
+               } catch (Exception e) {
+                  log.errorExecutingParallelStoreTask(e);
+                  throw e;
+               } finally {
+                  inFlightBatches.release();
                }
-            } catch (Exception e) {
-               log.errorExecutingParallelStoreTask(e);
-               throw e;
+               return null;
             }
-            return null;
-         }
-      });
+         });
+      } catch (RuntimeException e) {
+         inFlightBatches.release();
+         throw e;
+      }
    }
 
    @Override
@@ -402,29 +721,11 @@ public void purge(Executor executor, PurgeListener purgeListener) {
 
    @Override
    public int size() {
-      Channel ch = null;
-      DefaultHttpRequest get = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, path + "?global");
-      get.headers().add(HttpHeaders.Names.ACCEPT, "text/plain");
-
-      try {
-         HttpResponseHandler handler = new HttpResponseHandler(true);
-         ch = bootstrap.connect(configuration.host(), configuration.port()).awaitUninterruptibly().channel().pipeline().addLast(
-               new HttpObjectAggregator(maxContentLength), handler).channel();
-         ch.writeAndFlush(get).sync().channel().closeFuture().sync();
-         try {
-            BufferedReader reader = null;
-            try {
-               reader = new BufferedReader(new InputStreamReader(new ByteBufInputStream(((FullHttpResponse) handler.getResponse()).content())));
-               int count = 0;
-               while (reader.readLine() != null)
-                  count++;
-               return count;
-            } finally {
-               reader.close();
-            }
-         } finally {
-            handler.getResponse().release();
-         }
+      try (KeyStream keys = streamKeys()) {
+         int count = 0;
+         while (keys.next() != null)
+            count++;
+         return count;
       } catch (Exception e) {
          throw log.errorLoadingRemoteEntries(e);
       }
@@ -43,7 +43,8 @@ public class ConnectionPoolConfigurationBuilder extends AbstractRestStoreConfigu
    }
 
    /**
-    * Controls the maximum number of connections per host.
+    * Controls the maximum number of connections per host. The connections are kept open and reused by the subsequent
+    * requests.
     */
    public ConnectionPoolConfigurationBuilder maxConnectionsPerHost(int maxConnectionsPerHost) {
       attributes.attribute(MAX_CONNECTIONS_PER_HOST).set(maxConnectionsPerHost);
@@ -2,8 +2,17 @@
 
 import static org.testng.AssertJUnit.assertEquals;
 import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.infinispan.configuration.cache.ConfigurationBuilder;
 import org.infinispan.configuration.global.GlobalConfigurationBuilder;
@@ -11,6 +20,7 @@
 import org.infinispan.eviction.EvictionStrategy;
 import org.infinispan.factories.GlobalComponentRegistry;
 import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.marshall.core.MarshalledEntry;
 import org.infinispan.persistence.BaseStoreTest;
 import org.infinispan.persistence.rest.configuration.RestStoreConfigurationBuilder;
 import org.infinispan.persistence.spi.AdvancedLoadWriteStore;
@@ -31,6 +41,8 @@
 public class RestStoreTest extends BaseStoreTest {
 
    private static final String REMOTE_CACHE = "remote-cache";
+   private static final String UNBOUNDED_REMOTE_CACHE = "unbounded-remote-cache";
+   private static final int MAX_CONNECTIONS = 10;
    private EmbeddedCacheManager localCacheManager;
    private RestServer restServer;
 
@@ -45,6 +57,9 @@ protected AdvancedLoadWriteStore createStore() throws Exception {
       localCacheManager = TestCacheManagerFactory.createCacheManager(globalConfig, localBuilder);
       localCacheManager.defineConfiguration(REMOTE_CACHE, localCacheManager.getDefaultCacheConfiguration());
       localCacheManager.getCache(REMOTE_CACHE);
+      localCacheManager.defineConfiguration(UNBOUNDED_REMOTE_CACHE,
+            TestCacheManagerFactory.getDefaultCacheConfiguration(false).build());
+      localCacheManager.getCache(UNBOUNDED_REMOTE_CACHE);
       GlobalComponentRegistry gcr = localCacheManager.getGlobalComponentRegistry();
       gcr.registerComponent(timeService, TimeService.class);
       gcr.rewire();
@@ -54,12 +69,15 @@ protected AdvancedLoadWriteStore createStore() throws Exception {
       restServerConfigurationBuilder.port(0);
       restServer = new RestServer();
       restServer.start(restServerConfigurationBuilder.build(), localCacheManager);
+      return createRestStore(REMOTE_CACHE);
+   }
 
+   private RestStore createRestStore(String remoteCache) {
       ConfigurationBuilder builder = TestCacheManagerFactory.getDefaultCacheConfiguration(false);
       RestStoreConfigurationBuilder storeConfigurationBuilder = builder.persistence()
             .addStore(RestStoreConfigurationBuilder.class);
-      storeConfigurationBuilder.host(restServer.getHost()).port(restServer.getPort()).path("/rest/" + REMOTE_CACHE);
-      storeConfigurationBuilder.connectionPool().maxTotalConnections(10).maxConnectionsPerHost(10);
+      storeConfigurationBuilder.host(restServer.getHost()).port(restServer.getPort()).path("/rest/" + remoteCache);
+      storeConfigurationBuilder.connectionPool().maxTotalConnections(MAX_CONNECTIONS).maxConnectionsPerHost(MAX_CONNECTIONS);
       storeConfigurationBuilder.validate();
       RestStore restStore = new RestStore();
       restStore.init(createContext(builder.build()));
@@ -77,6 +95,89 @@ public void tearDown() {
       }
    }
 
+   public void testSequentialOperationsReuseConnection() {
+      for (int i = 0; i < 20; i++) {
+         cl.write(marshalledEntry(internalCacheEntry("k" + i, "v" + i, -1)));
+         assertEquals("v" + i, unwrap(cl.load("k" + i).getValue()));
+      }
+      assertEquals(1, restServer.getTransport().getNumberOfLocalConnections().intValue());
+   }
+
+   public void testBatchesArePipelinedOverOneConnection() {
+      List<MarshalledEntry<?, ?>> entries = IntStream.range(0, 100)
+            .mapToObj(i -> marshalledEntry(internalCacheEntry("k" + i, "v" + i, -1)))
+            .collect(Collectors.toList());
+      cl.writeBatch(entries);
+      assertEquals(100, cl.size());
+      assertEquals("v42", unwrap(cl.load("k42").getValue()));
+      assertEquals(1, restServer.getTransport().getNumberOfLocalConnections().intValue());
+
+      // deleting entries which no longer exist is not an error
+      cl.deleteBatch(IntStream.range(50, 150).mapToObj(i -> "k" + i).collect(Collectors.toList()));
+      assertEquals(50, cl.size());
+      assertNull(cl.load("k50"));
+      assertEquals("v49", unwrap(cl.load("k49").getValue()));
+   }
+
+   public void testProcessStreamsAllKeys() throws Exception {
+      RestStore store = createRestStore(UNBOUNDED_REMOTE_CACHE);
+      store.start();
+      ExecutorService executor = Executors.newFixedThreadPool(MAX_CONNECTIONS * 2, getTestThreadFactory("Process"));
+      try {
+         // more keys than fit in a single batch, and than are buffered before reading from the server is suspended
+         int numEntries = 12_000;
+         store.writeBatch(IntStream.range(0, numEntries)
+               .mapToObj(i -> marshalledEntry(internalCacheEntry("k" + i, "v" + i, -1)))
+               .collect(Collectors.toList()));
+         assertEquals(numEntries, store.size());
+
+         Set<Object> keys = ConcurrentHashMap.newKeySet();
+         AtomicInteger inProgress = new AtomicInteger();
+         AtomicInteger maxInProgress = new AtomicInteger();
+         store.process(null, (entry, taskContext) -> {
+            maxInProgress.accumulateAndGet(inProgress.incrementAndGet(), Math::max);
+            String key = (String) entry.getKey();
+            assertEquals("v" + key.substring(1), unwrap(entry.getValue()));
+            keys.add(key);
+            inProgress.decrementAndGet();
+         }, executor, true, false);
+         assertEquals(numEntries, keys.size());
+         assertTrue(maxInProgress.get() <= MAX_CONNECTIONS);
+         eventually(() -> restServer.getTransport().getNumberOfLocalConnections() <= MAX_CONNECTIONS);
+      } finally {
+         executor.shutdownNow();
+         store.clear();
+         store.stop();
+      }
+   }
+
+   public void testProcessSkipsKeysRemovedAfterListing() throws Exception {
+      RestStore store = createRestStore(UNBOUNDED_REMOTE_CACHE);
+      store.start();
+      ExecutorService executor = Executors.newFixedThreadPool(MAX_CONNECTIONS * 2, getTestThreadFactory("Process"));
+      try {
+         int numEntries = 12_000;
+         store.writeBatch(IntStream.range(0, numEntries)
+               .mapToObj(i -> marshalledEntry(internalCacheEntry("k" + i, "v" + i, -1)))
+               .collect(Collectors.toList()));
+
+         // the keys already listed by the store are removed before their values are loaded
+         AtomicInteger processed = new AtomicInteger();
+         store.process(null, (entry, taskContext) -> {
+            if (processed.getAndIncrement() == 0) {
+               localCacheManager.getCache(UNBOUNDED_REMOTE_CACHE).clear();
+            }
+            String key = (String) entry.getKey();
+            assertEquals("v" + key.substring(1), unwrap(entry.getValue()));
+         }, executor, true, false);
+         assertTrue(processed.get() < numEntries);
+      } finally {
+         executor.shutdownNow();
+         store.clear();
+         store.stop();
+      }
+   }
+
    @Override
    protected boolean storePurgesAllExpired() {
       return false;
@@ -2,19 +2,30 @@
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Optional;
-import java.util.concurrent.BlockingQueue;
+import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executor;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.infinispan.commons.CacheConfigurationException;
 import org.infinispan.commons.configuration.ConfiguredBy;
 import org.infinispan.commons.persistence.Store;
+import org.infinispan.commons.util.CloseableIterator;
 import org.infinispan.commons.util.Util;
+import org.infinispan.distribution.ch.KeyPartitioner;
 import org.infinispan.executors.ExecutorAllCompletionService;
 import org.infinispan.filter.KeyFilter;
 import org.infinispan.marshall.core.MarshalledEntry;
@@ -23,11 +34,17 @@
 import org.infinispan.persistence.TaskContextImpl;
 import org.infinispan.persistence.rocksdb.configuration.RocksDBStoreConfiguration;
 import org.infinispan.persistence.rocksdb.logging.Log;
-import org.infinispan.persistence.spi.AdvancedLoadWriteStore;
 import org.infinispan.persistence.spi.InitializationContext;
 import org.infinispan.persistence.spi.PersistenceException;
+import org.infinispan.persistence.spi.SegmentedAdvancedLoadWriteStore;
 import org.infinispan.util.logging.LogFactory;
+import org.infinispan.util.reactive.Publisher;
+import org.infinispan.util.reactive.Publishers;
+import org.rocksdb.ColumnFamilyDescriptor;
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.ColumnFamilyOptions;
 import org.rocksdb.CompressionType;
+import org.rocksdb.DBOptions;
 import org.rocksdb.Options;
 import org.rocksdb.ReadOptions;
 import org.rocksdb.RocksDB;
@@ -36,15 +53,44 @@
 import org.rocksdb.WriteBatch;
 import org.rocksdb.WriteOptions;
 
+/**
+ * When {@link RocksDBStoreConfiguration#segmented() segmented}, the entries of each segment are stored in a separate
+ * column family, created when the first entry of the segment is written, so that the entries of some segments can be
+ * iterated without visiting the others, and segments are removed by dropping their column family. The number of
+ * segments is recorded in the metadata column family, as the keys would be looked up in the wrong column families with
+ * a different number of segments.
+ * <p/>
+ * Every operation holds a permit of the semaphore while it uses the database, and stopping the store needs all of them.
+ * Removing segments does not: the handles of the dropped column families are only closed once no operation holds a
+ * permit, so that an open iteration never blocks the removal, nor the operations queued behind it. Writes hold the read
+ * lock of {@code segmentsLock} while they use the handles of the segments, and dropping a column family needs the
+ * write lock, so that no write is applied to a dropped column family and lost. Purging expired entries deletes them
+ * under the write lock as well, so that an entry written again since it was found expired is not deleted.
+ */
 @Store
 @ConfiguredBy(RocksDBStoreConfiguration.class)
-public class RocksDBStore<K,V> implements AdvancedLoadWriteStore<K,V> {
+public class RocksDBStore<K,V> implements SegmentedAdvancedLoadWriteStore<K,V> {
     private static final Log log = LogFactory.getLog(RocksDBStore.class, Log.class);
+    private static final byte[] EXPIRATION_COLUMN_FAMILY = "expiration".getBytes();
+    private static final byte[] METADATA_COLUMN_FAMILY = "metadata".getBytes();
+    private static final byte[] NUM_SEGMENTS_KEY = "num-segments".getBytes();
+    private static final String SEGMENT_COLUMN_FAMILY_PREFIX = "segment-";
+    private static final byte[] EMPTY = new byte[0];
 
     private RocksDBStoreConfiguration configuration;
-    private BlockingQueue<ExpiryEntry> expiryEntryQueue;
     private RocksDB db;
-    private RocksDB expiredDb;
+    // Keys of the entries which can expire, prefixed with their expiration time, so that the entries to purge are
+    // found with a range scan. Written in the same batch as the data, and never read on the write path.
+    private ColumnFamilyHandle expirationHandle;
+    private ColumnFamilyHandle defaultHandle;
+    private ColumnFamilyHandle metadataHandle;
+    // The column family of each segment, if segmented
+    private AtomicReferenceArray<ColumnFamilyHandle> segmentHandles;
+    // The handles of the dropped column families, which operations started before they were dropped may still use
+    private final Queue<ColumnFamilyHandle> droppedHandles = new ConcurrentLinkedQueue<>();
+    // Read locked by the writes, write locked to drop column families
+    private final ReadWriteLock segmentsLock = new ReentrantReadWriteLock();
+    private volatile KeyPartitioner keyPartitioner;
     private InitializationContext ctx;
     private Semaphore semaphore;
     private WriteOptions dataWriteOptions;
@@ -59,17 +105,185 @@ public void init(InitializationContext ctx) {
 
     @Override
     public void start() {
-        expiryEntryQueue = new LinkedBlockingQueue<>(configuration.expiryQueueSize());
-
         try {
-            db = openDatabase(getQualifiedLocation(), dataDbOptions());
-            expiredDb = openDatabase(getQualifiedExpiredLocation(), expiredDbOptions());
+            String location = getQualifiedLocation();
+            boolean rebuildExpiration = existsWithoutExpiration(location);
+            openDatabases(location);
+            if (rebuildExpiration) {
+                rebuildExpiration();
+                // Only dropped once the rebuild is complete, so that an interrupted rebuild is resumed on restart
+                if (isPreviousExpiredLocation()) {
+                    destroyDatabase(getQualifiedExpiredLocation());
+                }
+            }
             stopped = false;
+        } catch (CacheConfigurationException e) {
+            throw e;
         } catch (Exception e) {
             throw new CacheConfigurationException("Unable to open database", e);
         }
     }
 
+    private void openDatabases(String location) throws IOException, RocksDBException {
+        List<ColumnFamilyDescriptor> descriptors = new ArrayList<>();
+        descriptors.add(new ColumnFamilyDescriptor(RocksDB.DEFAULT_COLUMN_FAMILY, dataColumnFamilyOptions()));
+        descriptors.add(new ColumnFamilyDescriptor(EXPIRATION_COLUMN_FAMILY, new ColumnFamilyOptions()));
+        descriptors.add(new ColumnFamilyDescriptor(METADATA_COLUMN_FAMILY, new ColumnFamilyOptions()));
+        // All the column families of a database must be opened
+        List<Integer> segments = new ArrayList<>();
+        for (byte[] columnFamily : existingColumnFamilies(location)) {
+            int segment = segmentOf(columnFamily);
+            if (segment >= 0) {
+                segments.add(segment);
+                descriptors.add(new ColumnFamilyDescriptor(columnFamily, dataColumnFamilyOptions()));
+            }
+        }
+        int numSegments = ctx.getCache().getCacheConfiguration().clustering().hash().numSegments();
+        if (!segments.isEmpty() && !configuration.segmented()) {
+            throw new CacheConfigurationException("The RocksDB database " + location + " was written by a segmented store");
+        }
+        if (!segments.isEmpty() && Collections.max(segments) >= numSegments) {
+            throw new CacheConfigurationException("The RocksDB database " + location + " was written with more than " + numSegments + " segments");
+        }
+
+        List<ColumnFamilyHandle> handles = new ArrayList<>(descriptors.size());
+        db = openDatabase(location, dbOptions(), descriptors, handles);
+        defaultHandle = handles.get(0);
+        expirationHandle = handles.get(1);
+        metadataHandle = handles.get(2);
+        if (configuration.segmented()) {
+            segmentHandles = new AtomicReferenceArray<>(numSegments);
+            for (int i = 0; i < segments.size(); i++) {
+                segmentHandles.set(segments.get(i), handles.get(i + 3));
+            }
+            try {
+                checkSegmentedDatabase(location, numSegments);
+            } catch (CacheConfigurationException | RocksDBException e) {
+                closeDatabases();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * A segmented store doesn't read the default column family, so the entries written there by a non-segmented store
+     * would be lost, and the segment of a key depends on the number of segments, so the entries written with a
+     * different number of segments would be looked up in the wrong column families.
+     */
+    private void checkSegmentedDatabase(String location, int numSegments) throws RocksDBException {
+        try (RocksIterator it = db.newIterator(defaultHandle)) {
+            it.seekToFirst();
+            if (it.isValid()) {
+                throw new CacheConfigurationException("The RocksDB database " + location + " was written by a non-segmented store");
+            }
+        }
+        byte[] storedNumSegments = db.get(metadataHandle, NUM_SEGMENTS_KEY);
+        if (storedNumSegments == null) {
+            db.put(metadataHandle, dataWriteOptions(), NUM_SEGMENTS_KEY, ByteBuffer.allocate(4).putInt(numSegments).array());
+        } else if (ByteBuffer.wrap(storedNumSegments).getInt() != numSegments) {
+            throw new CacheConfigurationException("The RocksDB database " + location + " was written with " +
+                  ByteBuffer.wrap(storedNumSegments).getInt() + " segments, but the cache has " + numSegments);
+        }
+    }
+
+    /**
+     * Note: Caller must hold all the permits of the semaphore.
+     */
+    private void closeDatabases() {
+        closeAll(droppedHandles);
+        if (segmentHandles != null) {
+            for (int segment = 0; segment < segmentHandles.length(); segment++) {
+                ColumnFamilyHandle handle = segmentHandles.get(segment);
+                if (handle != null) {
+                    handle.close();
+                }
+            }
+            segmentHandles = null;
+        }
+        metadataHandle.close();
+        expirationHandle.close();
+        defaultHandle.close();
+        db.close();
+    }
+
+    private static List<byte[]> existingColumnFamilies(String location) throws RocksDBException {
+        if (!new File(location, "CURRENT").exists()) {
+            return Collections.emptyList();
+        }
+        try (Options options = new Options()) {
+            return RocksDB.listColumnFamilies(options, location);
+        }
+    }
+
+    private static byte[] segmentColumnFamily(int segment) {
+        return (SEGMENT_COLUMN_FAMILY_PREFIX + segment).getBytes();
+    }
+
+    /**
+     * @return the segment stored in the column family, or -1 if it isn't the column family of a segment
+     */
+    private static int segmentOf(byte[] columnFamily) {
+        String name = new String(columnFamily);
+        return name.startsWith(SEGMENT_COLUMN_FAMILY_PREFIX) ?
+              Integer.parseInt(name.substring(SEGMENT_COLUMN_FAMILY_PREFIX.length())) : -1;
+    }
+
+    /**
+     * Databases created by previous versions kept the expiration times in a separate database, which is not used
+     * anymore, so the expiration column family must be populated from the data. The previous database is deleted
+     * once that is done: if it is still there, the expiration column family may be incomplete.
+     */
+    private boolean existsWithoutExpiration(String location) throws RocksDBException {
+        if (!new File(location, "CURRENT").exists()) {
+            return false;
+        }
+        if (isPreviousExpiredLocation() && new File(getQualifiedExpiredLocation()).exists()) {
+            return true;
+        }
+        for (byte[] columnFamily : existingColumnFamilies(location)) {
+            if (Arrays.equals(columnFamily, EXPIRATION_COLUMN_FAMILY)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return {@code true} if the expired location configured could have been used by a previous version, and not
+     * for the data
+     */
+    private boolean isPreviousExpiredLocation() {
+        return !new File(getQualifiedExpiredLocation()).getAbsoluteFile().equals(
+              new File(getQualifiedLocation()).getAbsoluteFile());
+    }
+
+    private void rebuildExpiration() throws IOException, InterruptedException, ClassNotFoundException, RocksDBException {
+        log.debugf("Rebuilding the expiration column family of %s", getQualifiedLocation());
+        WriteBatch batch = new WriteBatch();
+        try {
+            for (ColumnFamilyHandle handle : dataHandles()) {
+                try (RocksIterator it = db.newIterator(handle, new ReadOptions().setFillCache(false))) {
+                    for (it.seekToFirst(); it.isValid(); it.next()) {
+                        MarshalledEntry entry = (MarshalledEntry) unmarshall(it.value());
+                        long expiry = expiryTime(entry.getMetadata());
+                        if (expiry > -1) {
+                            batch.put(expirationHandle, expirationKey(expiry, it.key()), EMPTY);
+                        }
+                        if (batch.count() == configuration.maxBatchSize()) {
+                            db.write(dataWriteOptions(), batch);
+                            batch.clear();
+                        }
+                    }
+                }
+            }
+            if (batch.count() > 0) {
+                db.write(dataWriteOptions(), batch);
+            }
+        } finally {
+            batch.close();
+        }
+    }
+
     private String sanitizedCacheName() {
         return ctx.getCache().getName().replaceAll("[^a-zA-Z0-9-_\\.]", "_");
     }
@@ -88,24 +302,25 @@ private WriteOptions dataWriteOptions() {
         return dataWriteOptions;
     }
 
-    private Options dataDbOptions() {
-        Options options = new Options().setCreateIfMissing(true);
+    private DBOptions dbOptions() {
+        return new DBOptions().setCreateIfMissing(true).setCreateMissingColumnFamilies(true);
+    }
+
+    private ColumnFamilyOptions dataColumnFamilyOptions() {
+        ColumnFamilyOptions options = new ColumnFamilyOptions();
         options.setCompressionType(CompressionType.getCompressionType(configuration.compressionType().toString()));
 
         return options;
     }
 
-    private Options expiredDbOptions() {
-        return new Options().setCreateIfMissing(true);
-    }
-
     /**
-     * Creates database if it doesn't exist.
+     * Creates database and its column families if they don't exist.
      */
-    protected RocksDB openDatabase(String location, Options options) throws IOException, RocksDBException {
+    protected RocksDB openDatabase(String location, DBOptions options, List<ColumnFamilyDescriptor> descriptors,
+                                   List<ColumnFamilyHandle> handles) throws IOException, RocksDBException {
         File dir = new File(location);
         dir.mkdirs();
-        return RocksDB.open(options, location);
+        return RocksDB.open(options, location, descriptors, handles);
     }
 
     protected void destroyDatabase(String location) throws IOException {
@@ -114,11 +329,6 @@ protected void destroyDatabase(String location) throws IOException {
         Util.recursiveFileRemove(new File(location));
     }
 
-    protected RocksDB reinitDatabase(String location, Options options) throws IOException, RocksDBException {
-        destroyDatabase(location);
-        return openDatabase(location, options);
-    }
-
     protected void reinitAllDatabases() throws IOException, RocksDBException {
         try {
             semaphore.acquire(Integer.MAX_VALUE);
@@ -129,15 +339,79 @@ protected void reinitAllDatabases() throws IOException, RocksDBException {
             if (stopped) {
                 throw new PersistenceException("RocksDB is stopped");
             }
-            db.close();
-            expiredDb.close();
-            db = reinitDatabase(getQualifiedLocation(), dataDbOptions());
-            expiredDb = reinitDatabase(getQualifiedExpiredLocation(), expiredDbOptions());
+            closeDatabases();
+            destroyDatabase(getQualifiedLocation());
+            openDatabases(getQualifiedLocation());
         } finally {
             semaphore.release(Integer.MAX_VALUE);
         }
     }
 
+    private KeyPartitioner getKeyPartitioner() {
+        KeyPartitioner keyPartitioner = this.keyPartitioner;
+        if (keyPartitioner == null) {
+            keyPartitioner = ctx.getCache().getAdvancedCache().getComponentRegistry().getComponent(KeyPartitioner.class);
+            this.keyPartitioner = keyPartitioner;
+        }
+        return keyPartitioner;
+    }
+
+    /**
+     * @return the column family that contains the key, or {@code null} if its segment has no column family
+     */
+    private ColumnFamilyHandle dataHandle(Object key) {
+        if (segmentHandles == null)
+            return defaultHandle;
+        return segmentHandles.get(getKeyPartitioner().getSegment(key));
+    }
+
+    /**
+     * @return the column family the key must be written to, creating it if its segment has no column family yet
+     */
+    private ColumnFamilyHandle dataHandleForWrite(Object key) throws RocksDBException {
+        if (segmentHandles == null)
+            return defaultHandle;
+        int segment = getKeyPartitioner().getSegment(key);
+        ColumnFamilyHandle handle = segmentHandles.get(segment);
+        if (handle == null) {
+            synchronized (segmentHandles) {
+                handle = segmentHandles.get(segment);
+                if (handle == null) {
+                    handle = db.createColumnFamily(new ColumnFamilyDescriptor(segmentColumnFamily(segment),
+                          dataColumnFamilyOptions()));
+                    segmentHandles.set(segment, handle);
+                }
+            }
+        }
+        return handle;
+    }
+
+    private List<ColumnFamilyHandle> dataHandles() {
+        if (segmentHandles == null)
+            return Collections.singletonList(defaultHandle);
+        List<ColumnFamilyHandle> handles = new ArrayList<>();
+        for (int segment = 0; segment < segmentHandles.length(); segment++) {
+            ColumnFamilyHandle handle = segmentHandles.get(segment);
+            if (handle != null) {
+                handles.add(handle);
+            }
+        }
+        return handles;
+    }
+
+    private List<ColumnFamilyHandle> dataHandles(Set<Integer> segments) {
+        if (segmentHandles == null)
+            return Collections.singletonList(defaultHandle);
+        List<ColumnFamilyHandle> handles = new ArrayList<>(segments.size());
+        for (int segment : segments) {
+            ColumnFamilyHandle handle = segmentHandles.get(segment);
+            if (handle != null) {
+                handles.add(handle);
+            }
+        }
+        return handles;
+    }
+
     @Override
     public void stop() {
         try {
@@ -146,8 +420,7 @@ public void stop() {
             throw new PersistenceException("Cannot acquire semaphore", e);
         }
         try {
-            db.close();
-            expiredDb.close();
+            closeDatabases();
         } finally {
             stopped = true;
             semaphore.release(Integer.MAX_VALUE);
@@ -156,6 +429,11 @@ public void stop() {
 
     @Override
     public void clear() {
+        if (configuration.segmented()) {
+            // Dropping the column families is cheaper than deleting the entries or reopening the database
+            removeAllSegments();
+            return;
+        }
         long count = 0;
         boolean destroyDatabase = false;
         try {
@@ -182,6 +460,15 @@ public void clear() {
                 } catch (RocksDBException e) {
                     destroyDatabase = true;
                 }
+                if (!destroyDatabase) {
+                    try (RocksIterator it = db.newIterator(expirationHandle, new ReadOptions().setFillCache(false))) {
+                        for (it.seekToFirst(); it.isValid(); it.next()) {
+                            db.delete(expirationHandle, it.key());
+                        }
+                    } catch (RocksDBException e) {
+                        destroyDatabase = true;
+                    }
+                }
             } else {
                 destroyDatabase = true;
             }
@@ -198,6 +485,137 @@ public void clear() {
         }
     }
 
+    private void removeAllSegments() {
+        try {
+            semaphore.acquire();
+        } catch (InterruptedException e) {
+            throw new PersistenceException("Cannot acquire semaphore", e);
+        }
+        try {
+            if (stopped) {
+                throw new PersistenceException("RocksDB is stopped");
+            }
+            segmentsLock.writeLock().lock();
+            try {
+                for (int segment = 0; segment < segmentHandles.length(); segment++) {
+                    dropSegment(segment);
+                }
+            } finally {
+                segmentsLock.writeLock().unlock();
+            }
+            // The expiration column family is emptied rather than dropped, as concurrent writes may be using it
+            try (RocksIterator it = db.newIterator(expirationHandle, new ReadOptions().setFillCache(false));
+                 WriteBatch batch = new WriteBatch()) {
+                for (it.seekToFirst(); it.isValid(); it.next()) {
+                    batch.remove(expirationHandle, it.key());
+                    if (batch.count() >= configuration.maxBatchSize()) {
+                        db.write(dataWriteOptions(), batch);
+                        batch.clear();
+                    }
+                }
+                if (batch.count() > 0) {
+                    db.write(dataWriteOptions(), batch);
+                }
+            }
+        } catch (RocksDBException e) {
+            throw new PersistenceException(e);
+        } finally {
+            semaphore.release();
+        }
+        closeDroppedHandles();
+    }
+
+    /**
+     * Drops the column family of the segment, if it has one. Its expiration keys are left behind, purge() drops them
+     * once they are due.
+     * <p/>
+     * The handle is not closed, as other operations may still be reading from it: it is closed by
+     * {@link #closeDroppedHandles()} once they are done.
+     * <p/>
+     * Note: Caller must hold the write lock of {@code segmentsLock}, so that no write is using the handle.
+     */
+    private void dropSegment(int segment) throws RocksDBException {
+        ColumnFamilyHandle handle = segmentHandles.getAndSet(segment, null);
+        if (handle != null) {
+            db.dropColumnFamily(handle);
+            droppedHandles.add(handle);
+        }
+    }
+
+    /**
+     * Closes the handles of the dropped column families if no operation is in progress. Doesn't wait for the operations
+     * in progress, the handles are closed by a later call otherwise.
+     */
+    private void closeDroppedHandles() {
+        if (droppedHandles.isEmpty()) {
+            return;
+        }
+        // tryAcquire doesn't queue behind the waiting operations, even with a fair semaphore
+        if (semaphore.tryAcquire(Integer.MAX_VALUE)) {
+            try {
+                closeAll(droppedHandles);
+            } finally {
+                semaphore.release(Integer.MAX_VALUE);
+            }
+        }
+    }
+
+    private static void closeAll(Queue<ColumnFamilyHandle> handles) {
+        ColumnFamilyHandle handle;
+        while ((handle = handles.poll()) != null) {
+            handle.close();
+        }
+    }
+
+    @Override
+    public void removeSegments(Set<Integer> segments) {
+        try {
+            semaphore.acquire();
+        } catch (InterruptedException e) {
+            throw new PersistenceException("Cannot acquire semaphore", e);
+        }
+        try {
+            if (stopped) {
+                throw new PersistenceException("RocksDB is stopped");
+            }
+            if (segmentHandles != null) {
+                segmentsLock.writeLock().lock();
+                try {
+                    for (int segment : segments) {
+                        dropSegment(segment);
+                    }
+                } finally {
+                    segmentsLock.writeLock().unlock();
+                }
+            } else {
+                // The keys are not ordered by segment, so all of them have to be visited
+                KeyPartitioner keyPartitioner = getKeyPartitioner();
+                try (RocksIterator it = db.newIterator(defaultHandle, new ReadOptions().setFillCache(false));
+                     WriteBatch batch = new WriteBatch()) {
+                    for (it.seekToFirst(); it.isValid(); it.next()) {
+                        if (segments.contains(keyPartitioner.getSegment(unmarshall(it.key())))) {
+                            batch.remove(it.key());
+                        }
+                        if (batch.count() >= configuration.maxBatchSize()) {
+                            db.write(dataWriteOptions(), batch);
+                            batch.clear();
+                        }
+                    }
+                    if (batch.count() > 0) {
+                        db.write(dataWriteOptions(), batch);
+                    }
+                }
+            }
+        } catch (PersistenceException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new PersistenceException(e);
+        } finally {
+            semaphore.release();
+        }
+        closeDroppedHandles();
+    }
+
     private static Optional<RocksIterator> wrapIterator(RocksDB db) {
         // Some Cache Store tests use clear and in case of the Rocks DB implementation
         // this clears out internal references and results in throwing exceptions
@@ -210,6 +628,23 @@ public int size() {
         return PersistenceUtil.count(this, null);
     }
 
+    @Override
+    public boolean isStoredBySegment() {
+        return segmentHandles != null;
+    }
+
+    @Override
+    public int size(Set<Integer> segments) {
+        int size = 0;
+        try (EntryIterator it = entryIterator(segments, null, false, false)) {
+            while (it.hasNext()) {
+                it.next();
+                size++;
+            }
+        }
+        return size;
+    }
+
     @Override
     public boolean contains(Object key) {
         try {
@@ -236,33 +671,35 @@ public void process(KeyFilter keyFilter, CacheLoaderTask cacheLoaderTask, Execut
             if (stopped) {
                 throw new PersistenceException("RocksDB is stopped");
             }
-            Optional<RocksIterator> optionalIterator = wrapIterator(this.db);
-            if (optionalIterator.isPresent()) {
-                try (RocksIterator it = optionalIterator.get()) {
-                    for (it.seekToFirst(); it.isValid(); it.next()) {
-                        Entry entry = new Entry(it.key(), it.value());
-                        entries.add(entry);
-                        if (entries.size() == batchSize) {
-                            final List<Entry> batch = entries;
-                            entries = new ArrayList<>(batchSize);
-                            submitProcessTask(cacheLoaderTask, keyFilter, eacs, taskContext, batch, loadValues, loadMetadata);
+            try {
+                for (ColumnFamilyHandle handle : dataHandles()) {
+                    try (RocksIterator it = db.newIterator(handle, new ReadOptions().setFillCache(false))) {
+                        for (it.seekToFirst(); it.isValid(); it.next()) {
+                            Entry entry = new Entry(it.key(), it.value());
+                            entries.add(entry);
+                            if (entries.size() == batchSize) {
+                                final List<Entry> batch = entries;
+                                entries = new ArrayList<>(batchSize);
+                                submitProcessTask(cacheLoaderTask, keyFilter, eacs, taskContext, batch, loadValues, loadMetadata);
+                            }
                         }
                     }
-                    if (!entries.isEmpty()) {
-                        submitProcessTask(cacheLoaderTask, keyFilter, eacs, taskContext, entries, loadValues, loadMetadata);
-                    }
+                }
+                if (!entries.isEmpty()) {
+                    submitProcessTask(cacheLoaderTask, keyFilter, eacs, taskContext, entries, loadValues, loadMetadata);
+                }
 
-                    eacs.waitUntilAllCompleted();
-                    if (eacs.isExceptionThrown()) {
-                        throw new PersistenceException("Execution exception!", eacs.getFirstException());
-                    }
-                } catch (Exception e) {
-                    throw new PersistenceException(e);
+                eacs.waitUntilAllCompleted();
+                if (eacs.isExceptionThrown()) {
+                    throw new PersistenceException("Execution exception!", eacs.getFirstException());
                 }
+            } catch (Exception e) {
+                throw new PersistenceException(e);
             }
         } finally {
             semaphore.release();
         }
+        closeDroppedHandles();
     }
 
     @SuppressWarnings("unchecked")
@@ -276,17 +713,9 @@ private void submitProcessTask(final CacheLoaderTask cacheLoaderTask, final KeyF
                     if (taskContext.isStopped()) {
                         break;
                     }
-                    Object key = unmarshall(pair.key);
-                    if (filter == null || filter.accept(key)) {
-                        MarshalledEntry entry = loadValues || loadMetadata ? (MarshalledEntry) unmarshall(pair.value) : null;
-                        boolean isExpired = entry != null && entry.getMetadata() != null && entry.getMetadata().isExpired(now);
-                        if (!isExpired) {
-                            if (!loadValues || !loadMetadata) {
-                                entry = ctx.getMarshalledEntryFactory().newMarshalledEntry(
-                                      key, loadValues ? entry.getValue() : null, loadMetadata ? entry.getMetadata() : null);
-                            }
-                            cacheLoaderTask.processEntry(entry, taskContext);
-                        }
+                    MarshalledEntry entry = toMarshalledEntry(pair.key, pair.value, filter, loadValues, loadMetadata, now);
+                    if (entry != null) {
+                        cacheLoaderTask.processEntry(entry, taskContext);
                     }
                 }
                 return null;
@@ -297,6 +726,63 @@ private void submitProcessTask(final CacheLoaderTask cacheLoaderTask, final KeyF
         });
     }
 
+    /**
+     * @return the entry, or {@code null} if its key is rejected by the filter or if it is expired
+     */
+    @SuppressWarnings("unchecked")
+    private MarshalledEntry toMarshalledEntry(byte[] keyBytes, byte[] valueBytes, KeyFilter filter,
+                                              boolean loadValues, boolean loadMetadata, long now)
+          throws IOException, ClassNotFoundException {
+        Object key = unmarshall(keyBytes);
+        if (filter != null && !filter.accept(key)) {
+            return null;
+        }
+        MarshalledEntry entry = loadValues || loadMetadata ? (MarshalledEntry) unmarshall(valueBytes) : null;
+        boolean isExpired = entry != null && entry.getMetadata() != null && entry.getMetadata().isExpired(now);
+        if (isExpired) {
+            return null;
+        }
+        if (!loadValues || !loadMetadata) {
+            entry = ctx.getMarshalledEntryFactory().newMarshalledEntry(
+                  key, loadValues ? entry.getValue() : null, loadMetadata ? entry.getMetadata() : null);
+        }
+        return entry;
+    }
+
+    /**
+     * Reads the entries from the column families of the segments as they are requested, in the requesting thread.
+     */
+    @Override
+    public Publisher<MarshalledEntry<K, V>> publishEntries(Set<Integer> segments, KeyFilter<? super K> filter,
+                                                          boolean fetchValue, boolean fetchMetadata) {
+        return Publishers.fromIterator(() -> entryIterator(segments, filter, fetchValue, fetchMetadata));
+    }
+
+    private EntryIterator entryIterator(Set<Integer> segments, KeyFilter<? super K> filter, boolean fetchValue,
+                                        boolean fetchMetadata) {
+        if (segmentHandles == null) {
+            KeyPartitioner keyPartitioner = getKeyPartitioner();
+            KeyFilter<? super K> notNullFilter = PersistenceUtil.notNull(filter);
+            filter = key -> segments.contains(keyPartitioner.getSegment(key)) && notNullFilter.accept(key);
+        }
+        try {
+            semaphore.acquire();
+        } catch (InterruptedException e) {
+            throw new PersistenceException("Cannot acquire semaphore: CacheStore is likely stopped.", e);
+        }
+        // The permit is released when the iterator is closed, so that the column families are not dropped or closed
+        // while they are iterated
+        try {
+            if (stopped) {
+                throw new PersistenceException("RocksDB is stopped");
+            }
+            return new EntryIterator(dataHandles(segments), filter, fetchValue, fetchMetadata);
+        } catch (RuntimeException e) {
+            semaphore.release();
+            throw e;
+        }
+    }
+
     @Override
     public boolean delete(Object key) {
         try {
@@ -306,10 +792,17 @@ public boolean delete(Object key) {
                 if (stopped) {
                     throw new PersistenceException("RocksDB is stopped");
                 }
-                if (db.get(keyBytes) == null) {
-                    return false;
+                segmentsLock.readLock().lock();
+                try {
+                    ColumnFamilyHandle handle = dataHandle(key);
+                    if (handle == null || db.get(handle, keyBytes) == null) {
+                        return false;
+                    }
+                    // The expiration key of the entry is left behind, purge() drops it once it is due
+                    db.delete(handle, keyBytes);
+                } finally {
+                    segmentsLock.readLock().unlock();
                 }
-                db.delete(keyBytes);
             } finally {
                 semaphore.release();
             }
@@ -321,25 +814,7 @@ public boolean delete(Object key) {
 
     @Override
     public void write(MarshalledEntry me) {
-        try {
-            byte[] marshelledKey = marshall(me.getKey());
-            byte[] marshalledEntry = marshall(me);
-            semaphore.acquire();
-            try {
-                if (stopped) {
-                    throw new PersistenceException("RocksDB is stopped");
-                }
-                db.put(marshelledKey, marshalledEntry);
-            } finally {
-                semaphore.release();
-            }
-            InternalMetadata meta = me.getMetadata();
-            if (meta != null && meta.expiryTime() > -1) {
-                addNewExpiry(me);
-            }
-        } catch (Exception e) {
-            throw new PersistenceException(e);
-        }
+        writeEntries(Collections.singletonList(me));
     }
 
     @Override
@@ -351,7 +826,8 @@ public MarshalledEntry load(Object key) {
                 if (stopped) {
                     throw new PersistenceException("RocksDB is stopped");
                 }
-                marshalledEntry = db.get(marshall(key));
+                ColumnFamilyHandle handle = dataHandle(key);
+                marshalledEntry = handle == null ? null : db.get(handle, marshall(key));
             } finally {
                 semaphore.release();
             }
@@ -370,47 +846,51 @@ public MarshalledEntry load(Object key) {
 
     @Override
     public void writeBatch(Iterable<MarshalledEntry<? extends K, ? extends V>> marshalledEntries) {
+        writeEntries(marshalledEntries);
+    }
+
+    private void writeEntries(Iterable<? extends MarshalledEntry> marshalledEntries) {
         try {
+            semaphore.acquire();
+        } catch (InterruptedException e) {
+            throw new PersistenceException("Cannot acquire semaphore: CacheStore is likely stopped.", e);
+        }
+        WriteBatch batch = new WriteBatch();
+        segmentsLock.readLock().lock();
+        try {
+            if (stopped)
+                throw new PersistenceException("RocksDB is stopped");
+
             int batchSize = 0;
-            WriteBatch batch = new WriteBatch();
             for (MarshalledEntry entry : marshalledEntries) {
-                batch.put(marshall(entry.getKey()), marshall(entry));
+                byte[] keyBytes = marshall(entry.getKey());
+                batch.put(dataHandleForWrite(entry.getKey()), keyBytes, marshall(entry));
+                long expiry = expiryTime(entry.getMetadata());
+                if (expiry > -1) {
+                    batch.put(expirationHandle, expirationKey(expiry, keyBytes), EMPTY);
+                }
                 batchSize++;
 
                 if (batchSize == configuration.maxBatchSize()) {
                     batchSize = 0;
-                    writeBatch(batch);
-                    batch = new WriteBatch();
+                    db.write(dataWriteOptions(), batch);
+                    batch.clear();
                 }
             }
 
             if (batchSize != 0)
-                writeBatch(batch);
-
-            // Add metadata only after batch has been written
-            for (MarshalledEntry entry : marshalledEntries) {
-                InternalMetadata meta = entry.getMetadata();
-                if (meta != null && meta.expiryTime() > -1)
-                    addNewExpiry(entry);
-            }
+                db.write(dataWriteOptions(), batch);
+        } catch (PersistenceException e) {
+            throw e;
         } catch (Exception e) {
             throw new PersistenceException(e);
-        }
-    }
-
-    private void writeBatch(WriteBatch batch) throws InterruptedException, RocksDBException {
-        semaphore.acquire();
-        try {
-            if (stopped)
-                throw new PersistenceException("RocksDB is stopped");
-
-            db.write(dataWriteOptions(), batch);
         } finally {
+            segmentsLock.readLock().unlock();
+            batch.close();
             semaphore.release();
         }
     }
 
-    @SuppressWarnings("unchecked")
     @Override
     public void purge(Executor executor, PurgeListener purgeListener) {
         try {
@@ -422,79 +902,30 @@ public void purge(Executor executor, PurgeListener purgeListener) {
             if (stopped) {
                 throw new PersistenceException("RocksDB is stopped");
             }
-            // Drain queue and update expiry tree
-            List<ExpiryEntry> entries = new ArrayList<>();
-            expiryEntryQueue.drainTo(entries);
-            for (ExpiryEntry entry : entries) {
-                final byte[] expiryBytes = marshall(entry.expiry);
-                final byte[] keyBytes = marshall(entry.key);
-                final byte[] existingBytes = expiredDb.get(expiryBytes);
-
-                if (existingBytes != null) {
-                    // in the case of collision make the key a List ...
-                    final Object existing = unmarshall(existingBytes);
-                    if (existing instanceof List) {
-                        ((List<Object>) existing).add(entry.key);
-                        expiredDb.put(expiryBytes, marshall(existing));
-                    } else {
-                        List<Object> al = new ArrayList<>(2);
-                        al.add(existing);
-                        al.add(entry.key);
-                        expiredDb.put(expiryBytes, marshall(al));
-                    }
-                } else {
-                    expiredDb.put(expiryBytes, keyBytes);
-                }
-            }
-
-            List<Long> times = new ArrayList<>();
-            List<Object> keys = new ArrayList<>();
-
             long now = ctx.getTimeService().wallClockTime();
-            Optional<RocksIterator> optionalIterator = wrapIterator(expiredDb);
-            if (optionalIterator.isPresent()) {
-                try (RocksIterator it = optionalIterator.get()) {
-                    for (it.seekToFirst(); it.isValid(); it.next()) {
-                        Long time = (Long) unmarshall(it.key());
-                        if (time > now)
-                            break;
-                        times.add(time);
-                        Object key = unmarshall(it.value());
-                        if (key instanceof List)
-                            keys.addAll((List<?>) key);
-                        else
-                            keys.add(key);
-                    }
-
-                    for (Long time : times) {
-                        expiredDb.delete(marshall(time));
+            List<byte[]> candidates = new ArrayList<>();
+            int count = 0;
+            // The expiration keys are ordered by time, so the scan stops at the first one which is not due yet
+            try (RocksIterator it = db.newIterator(expirationHandle, new ReadOptions().setFillCache(false));
+                 WriteBatch batch = new WriteBatch()) {
+                for (it.seekToFirst(); it.isValid(); it.next()) {
+                    byte[] expirationKey = it.key();
+                    if (ByteBuffer.wrap(expirationKey).getLong() > now)
+                        break;
+                    batch.remove(expirationHandle, expirationKey);
+                    // The entry could have been removed, or overwritten with a different expiration time
+                    byte[] keyBytes = Arrays.copyOfRange(expirationKey, 8, expirationKey.length);
+                    if (loadExpired(keyBytes, now) != null) {
+                        candidates.add(keyBytes);
                     }
-
-                    if (!keys.isEmpty())
-                        log.debugf("purge (up to) %d entries", keys.size());
-                    int count = 0;
-                    for (Object key : keys) {
-                        byte[] keyBytes = marshall(key);
-
-                        byte[] b = db.get(keyBytes);
-                        if (b == null)
-                            continue;
-                        MarshalledEntry me = (MarshalledEntry) ctx.getMarshaller().objectFromByteBuffer(b);
-                        // TODO race condition: the entry could be updated between the get and delete!
-                        if (me.getMetadata() != null && me.getMetadata().isExpired(now)) {
-                            // somewhat inefficient to FIND then REMOVE...
-                            db.delete(keyBytes);
-                            purgeListener.entryPurged(key);
-                            count++;
-                        }
-
+                    if (batch.count() >= configuration.maxBatchSize()) {
+                        count += purgeCandidates(batch, candidates, now, purgeListener);
                     }
-                    if (count != 0)
-                        log.debugf("purged %d entries", count);
-                } catch (Exception e) {
-                    throw new PersistenceException(e);
                 }
+                count += purgeCandidates(batch, candidates, now, purgeListener);
             }
+            if (count != 0)
+                log.debugf("purged %d entries", count);
         } catch (PersistenceException e) {
             throw e;
         } catch (Exception e) {
@@ -504,6 +935,51 @@ public void purge(Executor executor, PurgeListener purgeListener) {
         }
     }
 
+    /**
+     * @return the entry stored with the key if it is expired, {@code null} otherwise
+     */
+    private MarshalledEntry loadExpired(byte[] keyBytes, long now) throws IOException, ClassNotFoundException, RocksDBException {
+        ColumnFamilyHandle handle = segmentHandles == null ? defaultHandle : dataHandle(unmarshall(keyBytes));
+        byte[] b = handle == null ? null : db.get(handle, keyBytes);
+        if (b == null) {
+            return null;
+        }
+        MarshalledEntry me = (MarshalledEntry) unmarshall(b);
+        return me.getMetadata() != null && me.getMetadata().isExpired(now) ? me : null;
+    }
+
+    /**
+     * Deletes the candidates which are still expired, along with the expiration keys in the batch. The candidates are
+     * checked again under the write lock of {@code segmentsLock}, which excludes the writes, so that an entry
+     * overwritten since it was found expired is not deleted.
+     */
+    @SuppressWarnings("unchecked")
+    private int purgeCandidates(WriteBatch batch, List<byte[]> candidates, long now, PurgeListener purgeListener)
+          throws IOException, ClassNotFoundException, RocksDBException {
+        List<Object> purged = new ArrayList<>(candidates.size());
+        segmentsLock.writeLock().lock();
+        try {
+            for (byte[] keyBytes : candidates) {
+                MarshalledEntry me = loadExpired(keyBytes, now);
+                if (me != null) {
+                    batch.remove(dataHandle(me.getKey()), keyBytes);
+                    purged.add(me.getKey());
+                }
+            }
+            if (batch.count() > 0) {
+                db.write(dataWriteOptions(), batch);
+                batch.clear();
+            }
+        } finally {
+            segmentsLock.writeLock().unlock();
+        }
+        candidates.clear();
+        for (Object key : purged) {
+            purgeListener.entryPurged(key);
+        }
+        return purged.size();
+    }
+
     private byte[] marshall(Object entry) throws IOException, InterruptedException {
         return ctx.getMarshaller().objectToByteBuffer(entry);
     }
@@ -515,68 +991,106 @@ private Object unmarshall(byte[] bytes) throws IOException, ClassNotFoundExcepti
         return ctx.getMarshaller().objectFromByteBuffer(bytes);
     }
 
-    private void addNewExpiry(MarshalledEntry entry) throws IOException {
-        long expiry = entry.getMetadata().expiryTime();
-        long maxIdle = entry.getMetadata().maxIdle();
+    private long expiryTime(InternalMetadata metadata) {
+        if (metadata == null || metadata.expiryTime() < 0) {
+            return -1;
+        }
+        long maxIdle = metadata.maxIdle();
         if (maxIdle > 0) {
             // Coding getExpiryTime() for transient entries has the risk of being a moving target
             // which could lead to unexpected results, hence, InternalCacheEntry calls are required
-            expiry = maxIdle + ctx.getTimeService().wallClockTime();
+            return maxIdle + ctx.getTimeService().wallClockTime();
         }
-        Long at = expiry;
-        Object key = entry.getKey();
+        return metadata.expiryTime();
+    }
 
-        try {
-            expiryEntryQueue.put(new ExpiryEntry(at, key));
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt(); // Restore interruption status
-        }
+    /**
+     * The expiration time is encoded big-endian, so that the bytewise ordering of the keys is the ordering of the
+     * (non-negative) expiration times.
+     */
+    private static byte[] expirationKey(long expiry, byte[] keyBytes) {
+        return ByteBuffer.allocate(8 + keyBytes.length).putLong(expiry).put(keyBytes).array();
     }
 
-    private static final class ExpiryEntry {
-        private final Long expiry;
-        private final Object key;
+    private static final class Entry {
+        final byte[] key;
+        final byte[] value;
 
-        private ExpiryEntry(long expiry, Object key) {
-            this.expiry = expiry;
+        Entry(byte[] key, byte[] value) {
             this.key = key;
+            this.value = value;
         }
+    }
 
-        @Override
-        public int hashCode() {
-            final int prime = 31;
-            int result = 1;
-            result = prime * result + ((key == null) ? 0 : key.hashCode());
-            return result;
+    /**
+     * Iterates over the entries of some column families, one after the other. It holds a permit of the semaphore until
+     * it is closed.
+     */
+    private class EntryIterator implements CloseableIterator<MarshalledEntry<K, V>> {
+        private final Iterator<ColumnFamilyHandle> handles;
+        private final KeyFilter<? super K> filter;
+        private final boolean fetchValue;
+        private final boolean fetchMetadata;
+        private final long now = ctx.getTimeService().wallClockTime();
+        private RocksIterator it;
+        private MarshalledEntry<K, V> next;
+        private boolean closed;
+
+        EntryIterator(List<ColumnFamilyHandle> handles, KeyFilter<? super K> filter, boolean fetchValue,
+                      boolean fetchMetadata) {
+            this.handles = handles.iterator();
+            this.filter = filter;
+            this.fetchValue = fetchValue;
+            this.fetchMetadata = fetchMetadata;
         }
 
+        @SuppressWarnings("unchecked")
         @Override
-        public boolean equals(Object obj) {
-            if (this == obj)
+        public boolean hasNext() {
+            try {
+                while (next == null) {
+                    if (it != null && it.isValid()) {
+                        next = toMarshalledEntry(it.key(), it.value(), filter, fetchValue, fetchMetadata, now);
+                        it.next();
+                    } else {
+                        if (it != null) {
+                            it.close();
+                            it = null;
+                        }
+                        if (closed || !handles.hasNext()) {
+                            return false;
+                        }
+                        it = db.newIterator(handles.next(), new ReadOptions().setFillCache(false));
+                        it.seekToFirst();
+                    }
+                }
                 return true;
-            if (obj == null)
-                return false;
-            if (getClass() != obj.getClass())
-                return false;
-            ExpiryEntry other = (ExpiryEntry) obj;
-            if (key == null) {
-                if (other.key != null)
-                    return false;
-            } else if (!key.equals(other.key))
-                return false;
-            return true;
+            } catch (IOException | ClassNotFoundException e) {
+                throw new PersistenceException(e);
+            }
         }
 
-    }
-
-    private static final class Entry {
-        final byte[] key;
-        final byte[] value;
+        @Override
+        public MarshalledEntry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            MarshalledEntry<K, V> entry = next;
+            next = null;
+            return entry;
+        }
 
-        Entry(byte[] key, byte[] value) {
-            this.key = key;
-            this.value = value;
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                if (it != null) {
+                    it.close();
+                    it = null;
+                }
+                semaphore.release();
+                closeDroppedHandles();
+            }
         }
     }
-
 }
@@ -27,10 +27,11 @@ public class RocksDBStoreConfiguration extends AbstractStoreConfiguration {
    final static AttributeDefinition<Long> CACHE_SIZE = AttributeDefinition.builder("cacheSize", 0l).immutable().build();
    final static AttributeDefinition<Integer> EXPIRY_QUEUE_SIZE = AttributeDefinition.builder("expiryQueueSize", 10000).immutable().autoPersist(false).build();
    final static AttributeDefinition<Integer> CLEAR_THRESHOLD = AttributeDefinition.builder("clearThreshold", 10000).immutable().build();
+   final static AttributeDefinition<Boolean> SEGMENTED = AttributeDefinition.builder("segmented", false).immutable().build();
 
    public static AttributeSet attributeDefinitionSet() {
       return new AttributeSet(RocksDBStoreConfiguration.class, AbstractStoreConfiguration.attributeDefinitionSet(), LOCATION, EXPIRED_LOCATION, COMPRESSION_TYPE,
-            BLOCK_SIZE, CACHE_SIZE, EXPIRY_QUEUE_SIZE, CLEAR_THRESHOLD);
+            BLOCK_SIZE, CACHE_SIZE, EXPIRY_QUEUE_SIZE, CLEAR_THRESHOLD, SEGMENTED);
    }
 
    private final Attribute<String> location;
@@ -40,6 +41,7 @@ public static AttributeSet attributeDefinitionSet() {
    private final Attribute<Long> cacheSize;
    private final Attribute<Integer> expiryQueueSize;
    private final Attribute<Integer> clearThreshold;
+   private final Attribute<Boolean> segmented;
 
    public RocksDBStoreConfiguration(AttributeSet attributes, AsyncStoreConfiguration async, SingletonStoreConfiguration singletonStore) {
       super(attributes, async, singletonStore);
@@ -50,12 +52,17 @@ public RocksDBStoreConfiguration(AttributeSet attributes, AsyncStoreConfiguratio
       cacheSize = attributes.attribute(CACHE_SIZE);
       expiryQueueSize = attributes.attribute(EXPIRY_QUEUE_SIZE);
       clearThreshold = attributes.attribute(CLEAR_THRESHOLD);
+      segmented = attributes.attribute(SEGMENTED);
    }
 
    public String location() {
       return location.get();
    }
 
+   /**
+    * @deprecated The expiration times are stored in a column family of the data database.
+    */
+   @Deprecated
    public String expiredLocation() {
       return expiredLocation.get();
    }
@@ -72,6 +79,10 @@ public Long cacheSize() {
       return cacheSize.get();
    }
 
+   /**
+    * @deprecated The expiration times are written together with the entries.
+    */
+   @Deprecated
    public int expiryQueueSize() {
       return expiryQueueSize.get();
    }
@@ -79,4 +90,8 @@ public int expiryQueueSize() {
    public int clearThreshold() {
       return clearThreshold.get();
    }
+
+   public boolean segmented() {
+      return segmented.get();
+   }
 }
@@ -11,6 +11,7 @@
 import static org.infinispan.persistence.rocksdb.configuration.RocksDBStoreConfiguration.EXPIRED_LOCATION;
 import static org.infinispan.persistence.rocksdb.configuration.RocksDBStoreConfiguration.EXPIRY_QUEUE_SIZE;
 import static org.infinispan.persistence.rocksdb.configuration.RocksDBStoreConfiguration.COMPRESSION_TYPE;
+import static org.infinispan.persistence.rocksdb.configuration.RocksDBStoreConfiguration.SEGMENTED;
 
 /**
  *
@@ -28,6 +29,10 @@ public RocksDBStoreConfigurationBuilder location(String location) {
       return self();
    }
 
+   /**
+    * @deprecated The expiration times are stored in a column family of the data database.
+    */
+   @Deprecated
    public RocksDBStoreConfigurationBuilder expiredLocation(String expiredLocation) {
       attributes.attribute(EXPIRED_LOCATION).set(expiredLocation);
       return self();
@@ -43,6 +48,10 @@ public RocksDBStoreConfigurationBuilder cacheSize(long cacheSize) {
       return self();
    }
 
+   /**
+    * @deprecated The expiration times are written together with the entries.
+    */
+   @Deprecated
    public RocksDBStoreConfigurationBuilder expiryQueueSize(int expiryQueueSize) {
       attributes.attribute(EXPIRY_QUEUE_SIZE).set(expiryQueueSize);
       return self();
@@ -58,6 +67,17 @@ public RocksDBStoreConfigurationBuilder compressionType(CompressionType compress
       return self();
    }
 
+   /**
+    * Stores the entries of each segment in a separate column family, created on the first write to the segment.
+    * The entries of some segments can then be iterated without visiting the others, and the segments that are no
+    * longer owned are removed by dropping their column families. A database must always be opened with the same
+    * setting.
+    */
+   public RocksDBStoreConfigurationBuilder segmented(boolean segmented) {
+      attributes.attribute(SEGMENTED).set(segmented);
+      return self();
+   }
+
    @Override
    public void validate() {
       // how do you validate required attributes?
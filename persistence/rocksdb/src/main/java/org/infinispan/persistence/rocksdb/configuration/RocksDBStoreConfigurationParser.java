@@ -78,6 +78,10 @@ private void parseRocksDBCacheStore(XMLExtendedStreamReader reader, RocksDBStore
                builder.cacheSize(Long.valueOf(value));
                break;
             }
+            case SEGMENTED: {
+               builder.segmented(Boolean.valueOf(value));
+               break;
+            }
             default: {
                Parser.parseStoreAttribute(reader, i, builder);
             }
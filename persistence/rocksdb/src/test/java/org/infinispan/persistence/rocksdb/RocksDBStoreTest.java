@@ -1,8 +1,12 @@
 package org.infinispan.persistence.rocksdb;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.fail;
 
+import java.io.File;
+import java.util.Arrays;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -16,10 +20,13 @@
 import org.infinispan.persistence.BaseStoreTest;
 import org.infinispan.persistence.rocksdb.configuration.RocksDBStoreConfigurationBuilder;
 import org.infinispan.persistence.spi.AdvancedLoadWriteStore;
+import org.infinispan.persistence.spi.InitializationContext;
 import org.infinispan.persistence.spi.PersistenceException;
 import org.infinispan.test.TestingUtil;
 import org.infinispan.test.fwk.TestCacheManagerFactory;
 import org.infinispan.test.fwk.TestInternalCacheEntryFactory;
+import org.rocksdb.Options;
+import org.rocksdb.RocksDB;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.Test;
 
@@ -52,6 +59,56 @@ protected AdvancedLoadWriteStore createStore() throws Exception {
       return fcs;
    }
 
+   public void testPurgeIgnoresOverwrittenAndDeletedEntries() throws Exception {
+      cl.write(marshalledEntry(internalCacheEntry("k1", "v1", 100)));
+      cl.write(marshalledEntry(internalCacheEntry("k1", "v1-immortal", -1)));
+      cl.write(marshalledEntry(internalCacheEntry("k2", "v2", 100)));
+      cl.delete("k2");
+      cl.write(marshalledEntry(internalCacheEntry("k3", "v3", 100)));
+      cl.write(marshalledEntry(internalCacheEntry("k4", "v4", 10_000)));
+      timeService.advance(101);
+
+      purgeExpired("k3");
+      assertEquals(unwrap(cl.load("k1").getValue()), "v1-immortal");
+      assertNull(cl.load("k3"));
+      assertEquals(unwrap(cl.load("k4").getValue()), "v4");
+      // the expiration keys which were due are gone, the one which is not due yet is kept
+      purgeExpired();
+      timeService.advance(10_000);
+      purgeExpired("k4");
+   }
+
+   public void testRebuildExpirationOfPreviousVersion() throws Exception {
+      cl.stop();
+      InitializationContext ctx = TestingUtil.extractField(cl, "ctx");
+      String location = tmpDirectory + "/data" + ctx.getCache().getName();
+      String expiredLocation = tmpDirectory + "/expiry" + ctx.getCache().getName();
+      Util.recursiveFileRemove(location);
+      new File(location).mkdirs();
+      new File(expiredLocation).mkdirs();
+      // Previous versions only used the default column family, and kept the expiration times in another database
+      try (Options options = new Options().setCreateIfMissing(true);
+           RocksDB db = RocksDB.open(options, location);
+           RocksDB expiredDb = RocksDB.open(options, expiredLocation)) {
+         for (InternalCacheEntry entry : Arrays.asList(internalCacheEntry("k1", "v1", 100), internalCacheEntry("k2", "v2", -1))) {
+            MarshalledEntry me = marshalledEntry(entry);
+            db.put(getMarshaller().objectToByteBuffer(me.getKey()), getMarshaller().objectToByteBuffer(me));
+         }
+      }
+
+      cl.start();
+      assertFalse(new File(expiredLocation).exists());
+      assertEquals(cl.size(), 2);
+      timeService.advance(101);
+      purgeExpired("k1");
+      assertEquals(unwrap(cl.load("k2").getValue()), "v2");
+
+      // the expiration column family is not rebuilt again
+      cl.stop();
+      cl.start();
+      assertEquals(cl.size(), 1);
+   }
+
    @Test(groups = "stress", timeOut = 15*60*1000)
    public void testConcurrentWriteAndRestart() {
       concurrentWriteAndRestart(true);
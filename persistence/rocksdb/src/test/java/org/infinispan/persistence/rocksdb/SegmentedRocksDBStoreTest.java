@@ -0,0 +1,279 @@
+package org.infinispan.persistence.rocksdb;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.infinispan.commons.CacheConfigurationException;
+import org.infinispan.commons.marshall.Externalizer;
+import org.infinispan.commons.marshall.SerializeWith;
+import org.infinispan.commons.util.CloseableIterator;
+import org.infinispan.configuration.cache.Configuration;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.distribution.ch.KeyPartitioner;
+import org.infinispan.distribution.ch.impl.HashFunctionPartitioner;
+import org.infinispan.marshall.core.MarshalledEntry;
+import org.infinispan.persistence.spi.AdvancedLoadWriteStore;
+import org.infinispan.persistence.spi.InitializationContext;
+import org.infinispan.persistence.spi.SegmentedAdvancedLoadWriteStore;
+import org.infinispan.test.Exceptions;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.infinispan.util.reactive.Publishers;
+import org.rocksdb.Options;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+import org.testng.annotations.Test;
+
+/**
+ * Low level RocksDB cache store tests, with one column family per segment.
+ *
+ * @since 9.1
+ */
+@Test(groups = "unit", testName = "persistence.rocksdb.SegmentedRocksDBStoreTest")
+public class SegmentedRocksDBStoreTest extends RocksDBStoreTest {
+   private static final int NUM_SEGMENTS = 8;
+
+   private KeyPartitioner keyPartitioner;
+   private String cacheName;
+
+   @Override
+   protected AdvancedLoadWriteStore createStore() throws Exception {
+      clearTempDir();
+      RocksDBStore store = new RocksDBStore();
+      ConfigurationBuilder cb = TestCacheManagerFactory.getDefaultCacheConfiguration(false);
+      cb.clustering().hash().numSegments(NUM_SEGMENTS);
+      createCacheStoreConfig(cb.persistence()).segmented(true);
+      Configuration configuration = cb.build();
+      InitializationContext ctx = createContext(configuration);
+      cacheName = ctx.getCache().getName();
+      keyPartitioner = new HashFunctionPartitioner();
+      keyPartitioner.init(configuration.clustering().hash());
+      // the mocked cache doesn't create the key partitioner on demand
+      ctx.getCache().getAdvancedCache().getComponentRegistry().registerComponent(keyPartitioner, KeyPartitioner.class);
+      store.init(ctx);
+      return store;
+   }
+
+   @Override
+   public void testRebuildExpirationOfPreviousVersion() {
+      // Previous versions did not support segmented stores
+   }
+
+   public void testSegmentOperations() {
+      SegmentedAdvancedLoadWriteStore<Object, Object> store = (SegmentedAdvancedLoadWriteStore<Object, Object>) cl;
+      Set<Object> keys = new HashSet<>();
+      for (int i = 0; i < 50; i++) {
+         Object key = "k" + i;
+         store.write(marshalledEntry(internalCacheEntry("k" + i, "v" + i, -1)));
+         keys.add(key);
+      }
+      Object someKey = "k0";
+      int segment = keyPartitioner.getSegment(someKey);
+      Set<Integer> segments = Collections.singleton(segment);
+      Set<Object> segmentKeys = new HashSet<>();
+      for (Object key : keys) {
+         if (keyPartitioner.getSegment(key) == segment) {
+            segmentKeys.add(key);
+         }
+      }
+
+      assertEquals(segmentKeys.size(), store.size(segments));
+      Set<Object> published = new HashSet<>();
+      Publishers.forEach(store.publishKeys(segments, null), 10, published::add);
+      assertEquals(segmentKeys, published);
+
+      store.removeSegments(segments);
+      assertEquals(0, store.size(segments));
+      assertNull(store.load(someKey));
+      assertEquals(keys.size() - segmentKeys.size(), store.size());
+
+      // the column family is created again when written to
+      store.write(marshalledEntry(internalCacheEntry("k0", "v0", -1)));
+      assertEquals(1, store.size(segments));
+   }
+
+   public void testRemoveSegmentsDoesNotWaitForIteration() throws Exception {
+      SegmentedAdvancedLoadWriteStore<Object, Object> store = (SegmentedAdvancedLoadWriteStore<Object, Object>) cl;
+      Set<Integer> allSegments = new HashSet<>();
+      for (int i = 0; i < 50; i++) {
+         store.write(marshalledEntry(internalCacheEntry("k" + i, "v" + i, -1)));
+         allSegments.add(keyPartitioner.getSegment("k" + i));
+      }
+      Object someKey = "k0";
+      int segment = keyPartitioner.getSegment(someKey);
+      Object otherKey = IntStream.range(1, 50).mapToObj(i -> "k" + i)
+            .filter(k -> keyPartitioner.getSegment(k) != segment).findFirst().get();
+
+      // The iteration holds a permit of the store until it is closed
+      try (CloseableIterator<Object> it = Publishers.toIterator(store.publishKeys(allSegments, null), 1, 10, TimeUnit.SECONDS)) {
+         assertNotNull(it.next());
+
+         Future<?> removal = fork(() -> store.removeSegments(Collections.singleton(segment)));
+         removal.get(10, TimeUnit.SECONDS);
+         Future<MarshalledEntry<Object, Object>> load = fork(() -> store.load(otherKey));
+         assertNotNull(load.get(10, TimeUnit.SECONDS));
+         assertNull(store.load(someKey));
+
+         // the column family of the removed segment can be written to again, while its previous one is in use
+         store.write(marshalledEntry(internalCacheEntry("k0", "v0", -1)));
+         assertEquals("v0", unwrap(store.load(someKey).getValue()));
+         while (it.hasNext()) {
+            it.next();
+         }
+      }
+      assertEquals("v0", unwrap(store.load(someKey).getValue()));
+   }
+
+   public void testRemoveSegmentsWaitsForWrites() throws Exception {
+      SegmentedAdvancedLoadWriteStore<Object, Object> store = (SegmentedAdvancedLoadWriteStore<Object, Object>) cl;
+      String key = "k0";
+      Set<Integer> segments = Collections.singleton(keyPartitioner.getSegment(key));
+      store.write(marshalledEntry(internalCacheEntry(key, "v0", -1)));
+
+      // The value is marshalled after the write got the column family of the segment
+      BlockingValue value = new BlockingValue();
+      Future<?> write = fork(() -> store.write(marshalledEntry((Object) key, value, null)));
+      assertTrue(value.marshalling.await(10, TimeUnit.SECONDS));
+      Future<?> removal = fork(() -> store.removeSegments(segments));
+      Thread.sleep(100);
+      // The column family is not dropped under the write
+      assertFalse(removal.isDone());
+
+      value.resume.countDown();
+      write.get(10, TimeUnit.SECONDS);
+      removal.get(10, TimeUnit.SECONDS);
+      assertNull(store.load(key));
+      store.write(marshalledEntry(internalCacheEntry(key, "v1", -1)));
+      assertEquals("v1", unwrap(store.load(key).getValue()));
+   }
+
+   public void testDatabaseOfNonSegmentedStoreIsRejected() {
+      String location = TestingUtil.tmpDirectory(getClass()) + "/non-segmented";
+      RocksDBStore<Object, Object> store = startStore(location, false, NUM_SEGMENTS);
+      store.write(marshalledEntry(internalCacheEntry("k0", "v0", -1)));
+      store.stop();
+
+      // The segmented store would not see the entries of the default column family
+      Exceptions.expectException(CacheConfigurationException.class, ".*non-segmented.*",
+            () -> startStore(location, true, NUM_SEGMENTS));
+   }
+
+   public void testDatabaseWithOtherNumberOfSegmentsIsRejected() {
+      String location = TestingUtil.tmpDirectory(getClass()) + "/num-segments";
+      RocksDBStore<Object, Object> store = startStore(location, true, NUM_SEGMENTS);
+      store.write(marshalledEntry(internalCacheEntry("k0", "v0", -1)));
+      store.stop();
+
+      Exceptions.expectException(CacheConfigurationException.class, ".*segments.*",
+            () -> startStore(location, true, NUM_SEGMENTS * 2));
+
+      store = startStore(location, true, NUM_SEGMENTS);
+      try {
+         assertEquals("v0", unwrap(store.load("k0").getValue()));
+      } finally {
+         store.stop();
+      }
+   }
+
+   public void testColumnFamiliesAcrossRestarts() throws Exception {
+      String location = TestingUtil.tmpDirectory(getClass()) + "/restarts";
+      String key = "k0";
+      int segment = keyPartitioner.getSegment(key);
+      String otherKey = IntStream.range(1, 50).mapToObj(i -> "k" + i)
+            .filter(k -> keyPartitioner.getSegment(k) != segment).findFirst().get();
+      int otherSegment = keyPartitioner.getSegment(otherKey);
+      List<Integer> bothSegments = IntStream.of(segment, otherSegment).sorted().boxed().collect(Collectors.toList());
+
+      RocksDBStore<Object, Object> store = startStore(location, true, NUM_SEGMENTS);
+      store.write(marshalledEntry(internalCacheEntry(key, "v0", -1)));
+      store.write(marshalledEntry(internalCacheEntry(otherKey, "v0", -1)));
+      store.stop();
+      assertEquals(bothSegments, segmentColumnFamilies(location));
+
+      // the column families found on start are written to, not created again
+      store = startStore(location, true, NUM_SEGMENTS);
+      store.write(marshalledEntry(internalCacheEntry(key, "v1", -1)));
+      store.removeSegments(Collections.singleton(segment));
+      // the segment has no column family anymore, so it isn't dropped again
+      store.removeSegments(Collections.singleton(segment));
+      store.stop();
+      assertEquals(Collections.singletonList(otherSegment), segmentColumnFamilies(location));
+
+      store = startStore(location, true, NUM_SEGMENTS);
+      try {
+         assertNull(store.load(key));
+         assertEquals("v0", unwrap(store.load(otherKey).getValue()));
+         store.write(marshalledEntry(internalCacheEntry(key, "v2", -1)));
+      } finally {
+         store.stop();
+      }
+      assertEquals(bothSegments, segmentColumnFamilies(location));
+   }
+
+   /**
+    * @return the segments with a column family in the database, sorted and including duplicates
+    */
+   private List<Integer> segmentColumnFamilies(String location) throws RocksDBException {
+      try (Options options = new Options()) {
+         return RocksDB.listColumnFamilies(options, location + cacheName).stream()
+               .map(String::new)
+               .filter(name -> name.startsWith("segment-"))
+               .map(name -> Integer.valueOf(name.substring("segment-".length())))
+               .sorted()
+               .collect(Collectors.toList());
+      }
+   }
+
+   private RocksDBStore<Object, Object> startStore(String location, boolean segmented, int numSegments) {
+      RocksDBStore<Object, Object> store = new RocksDBStore<>();
+      ConfigurationBuilder cb = TestCacheManagerFactory.getDefaultCacheConfiguration(false);
+      cb.clustering().hash().numSegments(numSegments);
+      createCacheStoreConfig(cb.persistence()).location(location).segmented(segmented);
+      Configuration configuration = cb.build();
+      InitializationContext ctx = createContext(configuration);
+      KeyPartitioner partitioner = new HashFunctionPartitioner();
+      partitioner.init(configuration.clustering().hash());
+      ctx.getCache().getAdvancedCache().getComponentRegistry().registerComponent(partitioner, KeyPartitioner.class);
+      store.init(ctx);
+      store.start();
+      return store;
+   }
+
+   @SerializeWith(BlockingValue.Externalizer0.class)
+   static class BlockingValue {
+      final CountDownLatch marshalling = new CountDownLatch(1);
+      final CountDownLatch resume = new CountDownLatch(1);
+
+      public static class Externalizer0 implements Externalizer<BlockingValue> {
+         @Override
+         public void writeObject(ObjectOutput output, BlockingValue value) {
+            value.marshalling.countDown();
+            try {
+               value.resume.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+            }
+         }
+
+         @Override
+         public BlockingValue readObject(ObjectInput input) {
+            return new BlockingValue();
+         }
+      }
+   }
+}
@@ -1,6 +1,8 @@
 package org.infinispan.persistence.sifs;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -8,6 +10,7 @@
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.infinispan.commons.marshall.Marshaller;
 import org.infinispan.util.TimeService;
@@ -18,10 +21,16 @@
  * Component keeping the data about log file usage - as soon as entries from some file are overwritten so that the file
  * becomes cluttered with old records, the valid records are moved to another file and the old ones are dropped.
  * Expired records are moved as tombstones without values (records of entry removal).
+ * <p>
+ * The scheduled files are compacted by a configurable number of worker threads, each of them writing to its own
+ * output file. The I/O of all workers can be limited to a number of bytes per second, so that the compaction does not
+ * starve the {@link LogAppender} of disk bandwidth. Once some file gets above the compaction threshold, the compaction
+ * also picks up the files above the (lower) compaction stop threshold, until there are no such files left; this way
+ * the compaction runs in longer, less frequent batches.
  *
  * @author Radim Vansa &lt;rvansa@redhat.com&gt;
  */
-class Compactor extends Thread {
+class Compactor implements CompactorMXBean {
    private static final Log log = LogFactory.getLog(Compactor.class);
    private static final boolean trace = log.isTraceEnabled();
 
@@ -34,20 +43,36 @@ class Compactor extends Thread {
    private final TimeService timeService;
    private final int maxFileSize;
    private final double compactionThreshold;
+   private final double compactionStopThreshold;
+   private final long rateLimit;
+   private final Worker[] workers;
+   private final LongAdder bytesRead = new LongAdder();
+   private final LongAdder bytesRewritten = new LongAdder();
+   private final LongAdder bytesAppended = new LongAdder();
+   private final LongAdder filesCompacted = new LongAdder();
+   // the time (in nanoseconds) when the I/O reserved by the workers so far is allowed by the rate limit
+   private long nextIoTime = Long.MIN_VALUE;
 
    private Index index;
    // as processing single scheduled compaction takes a lot of time, we don't use the queue to signalize
    private volatile boolean clearSignal = false;
    private volatile boolean terminateSignal = false;
+   // set when some file exceeds the compaction threshold, until there are no files above the stop threshold
+   private volatile boolean compacting = false;
    private volatile CountDownLatch compactorResume;
    private volatile CountDownLatch compactorStop;
+   private volatile boolean checkpointSignal = false;
+   private volatile CountDownLatch checkpointResume;
+   private volatile CountDownLatch checkpointPause;
+   // files the workers compact into and the offsets where the next records will be written, collected in a pause
+   private final ConcurrentMap<Integer, Integer> pausedFiles = new ConcurrentHashMap<Integer, Integer>();
 
 
    public Compactor(FileProvider fileProvider,
                     TemporaryTable temporaryTable,
                     BlockingQueue<IndexRequest> indexQueue,
-                    Marshaller marshaller, TimeService timeService, int maxFileSize, double compactionThreshold) {
-      super("BCS-Compactor");
+                    Marshaller marshaller, TimeService timeService, int maxFileSize, double compactionThreshold,
+                    double compactionStopThreshold, int compactionThreads, long rateLimit) {
       this.fileProvider = fileProvider;
       this.temporaryTable = temporaryTable;
       this.indexQueue = indexQueue;
@@ -55,7 +80,13 @@ public Compactor(FileProvider fileProvider,
       this.timeService = timeService;
       this.maxFileSize = maxFileSize;
       this.compactionThreshold = compactionThreshold;
-      this.start();
+      this.compactionStopThreshold = compactionStopThreshold < 0 ? compactionThreshold : Math.min(compactionStopThreshold, compactionThreshold);
+      this.rateLimit = rateLimit;
+      this.workers = new Worker[compactionThreads];
+      for (int i = 0; i < workers.length; ++i) {
+         workers[i] = new Worker("BCS-Compactor-" + i);
+         workers[i].start();
+      }
    }
 
    public void setIndex(Index index) {
@@ -72,10 +103,14 @@ public void free(int file, int size) {
       recordFreeSpace(getStats(file), file, size);
    }
 
+   public void appended(int size) {
+      bytesAppended.add(size);
+   }
+
    public void completeFile(int file) {
       Stats stats = getStats(file);
       stats.setCompleted();
-      if (stats.readyToBeScheduled(compactionThreshold, stats.getFree())) {
+      if (stats.readyToBeScheduled(currentThreshold(), stats.getFree())) {
          schedule(file, stats);
       }
    }
@@ -103,7 +138,7 @@ private Stats getStats(int file) {
    }
 
    private void recordFreeSpace(Stats stats, int file, int size) {
-      if (stats.addFree(size, compactionThreshold)) {
+      if (stats.addFree(size, currentThreshold())) {
          schedule(file, stats);
       }
    }
@@ -120,193 +155,312 @@ private void schedule(int file, Stats stats) {
       } catch (InterruptedException e) {
          throw new RuntimeException(e);
       }
+      if (!compacting && compactionStopThreshold < compactionThreshold) {
+         compacting = true;
+         scheduleRemaining();
+      }
+   }
+
+   private double currentThreshold() {
+      return compacting ? compactionStopThreshold : compactionThreshold;
+   }
+
+   /**
+    * Schedules all files above the stop threshold, or ends the current compaction batch when there are none.
+    */
+   private void scheduleRemaining() {
+      if (!compacting) {
+         return;
+      }
+      boolean scheduled = false;
+      for (Map.Entry<Integer, Stats> entry : fileStats.entrySet()) {
+         Stats stats = entry.getValue();
+         if (stats.readyToBeScheduled(compactionStopThreshold, stats.getFree())) {
+            schedule(entry.getKey(), stats);
+            scheduled = true;
+         }
+      }
+      if (!scheduled) {
+         compacting = false;
+      }
+   }
+
+   /**
+    * Blocks the worker until the given amount of I/O is allowed by the rate limit.
+    */
+   private void throttle(int bytes) throws InterruptedException {
+      if (rateLimit <= 0) {
+         return;
+      }
+      long now = timeService.time();
+      long ioTime;
+      synchronized (this) {
+         // don't let the unused bandwidth accumulate while the compactor is idle
+         ioTime = Math.max(nextIoTime, now);
+         nextIoTime = ioTime + TimeUnit.SECONDS.toNanos(bytes) / rateLimit;
+      }
+      if (ioTime > now) {
+         TimeUnit.NANOSECONDS.sleep(ioTime - now);
+      }
    }
 
    @Override
-   public void run() {
-      try {
-         FileProvider.Log logFile = null;
-         int currentOffset = 0;
-         for(;;) {
-            Integer scheduledFile = null;
-            try {
-               scheduledFile = scheduledCompaction.poll(1, TimeUnit.MINUTES);
-            } catch (InterruptedException e) {
-            }
-            if (terminateSignal) {
-               if (logFile != null) {
-                  logFile.close();
-                  completeFile(logFile.fileId);
+   public int getCompactionBacklog() {
+      int backlog = 0;
+      for (Integer file : scheduledCompaction) {
+         if (file >= 0) {
+            ++backlog;
+         }
+      }
+      return backlog;
+   }
+
+   @Override
+   public int getCompactionThreads() {
+      return workers.length;
+   }
+
+   @Override
+   public long getFilesCompacted() {
+      return filesCompacted.sum();
+   }
+
+   @Override
+   public long getBytesRead() {
+      return bytesRead.sum();
+   }
+
+   @Override
+   public long getBytesRewritten() {
+      return bytesRewritten.sum();
+   }
+
+   @Override
+   public long getBytesAppended() {
+      return bytesAppended.sum();
+   }
+
+   @Override
+   public double getWriteAmplification() {
+      long appended = bytesAppended.sum();
+      return appended == 0 ? 0 : (double) (appended + bytesRewritten.sum()) / appended;
+   }
+
+   private class Worker extends Thread {
+      private Worker(String name) {
+         super(name);
+      }
+
+
+      @Override
+      public void run() {
+         try {
+            FileProvider.Log logFile = null;
+            int currentOffset = 0;
+            for(;;) {
+               Integer scheduledFile = null;
+               try {
+                  scheduledFile = scheduledCompaction.poll(1, TimeUnit.MINUTES);
+               } catch (InterruptedException e) {
                }
-               break;
-            }
-            if (clearSignal) {
-               pauseCompactor(logFile);
-               logFile = null;
-               continue;
-            }
-            if (scheduledFile == null) {
-               if (logFile != null) {
-                  logFile.close();
-                  completeFile(logFile.fileId);
+               if (terminateSignal) {
+                  if (logFile != null) {
+                     logFile.close();
+                     completeFile(logFile.fileId);
+                  }
+                  break;
+               }
+               if (clearSignal) {
+                  pauseCompactor(logFile);
                   logFile = null;
+                  continue;
                }
-               continue;
-            }
-
-            log.debugf("Compacting file %d", scheduledFile);
-            int scheduledOffset = 0;
-            FileProvider.Handle handle = fileProvider.getFile(scheduledFile);
-            if (handle == null) {
-               throw new IllegalStateException("Compactor should not get deleted file for compaction!");
-            }
-            try {
-               while (!clearSignal && !terminateSignal) {
-                  EntryHeader header = EntryRecord.readEntryHeader(handle, scheduledOffset);
-                  if (header == null) {
-                     break;
+               if (checkpointSignal) {
+                  pauseForCheckpoint(logFile, currentOffset);
+               }
+               if (scheduledFile == null) {
+                  if (logFile != null) {
+                     logFile.close();
+                     completeFile(logFile.fileId);
+                     logFile = null;
                   }
-                  byte[] serializedKey = EntryRecord.readKey(handle, header, scheduledOffset);
-                  Object key = marshaller.objectFromByteBuffer(serializedKey);
-
-                  int indexedOffset = header.valueLength() > 0 ? scheduledOffset : ~scheduledOffset;
-                  boolean drop = true;
-                  boolean truncate = false;
-                  EntryPosition entry = temporaryTable.get(key);
-                  if (entry != null) {
-                     synchronized (entry) {
-                        if (trace) {
-                           log.tracef("Key for %d:%d was found in temporary table on %d:%d",
-                                 scheduledFile, scheduledOffset, entry.file, entry.offset);
-                        }
-                        if (entry.file == scheduledFile && entry.offset == indexedOffset) {
-                           // It's quite unlikely that we would compact a record that is not indexed yet,
-                           // but let's handle that
-                           if (header.expiryTime() >= 0 && header.expiryTime() <= timeService.wallClockTime()) {
+                  continue;
+               }
+               if (scheduledFile < 0) {
+                  // the worker was woken up for a pause that is already over
+                  continue;
+               }
+
+               log.debugf("Compacting file %d", scheduledFile);
+               int scheduledOffset = 0;
+               FileProvider.Handle handle = fileProvider.getFile(scheduledFile);
+               if (handle == null) {
+                  throw new IllegalStateException("Compactor should not get deleted file for compaction!");
+               }
+               try {
+                  while (!clearSignal && !terminateSignal) {
+                     if (checkpointSignal) {
+                        pauseForCheckpoint(logFile, currentOffset);
+                     }
+                     EntryHeader header = EntryRecord.readEntryHeader(handle, scheduledOffset);
+                     if (header == null) {
+                        break;
+                     }
+                     // The value and metadata are only read, and counted, when the record is kept
+                     int keyRecordLength = EntryHeader.HEADER_SIZE + header.keyLength();
+                     throttle(keyRecordLength);
+                     bytesRead.add(keyRecordLength);
+                     byte[] serializedKey = EntryRecord.readKey(handle, header, scheduledOffset);
+                     Object key = marshaller.objectFromByteBuffer(serializedKey);
+
+                     int indexedOffset = header.valueLength() > 0 ? scheduledOffset : ~scheduledOffset;
+                     boolean drop = true;
+                     boolean truncate = false;
+                     EntryPosition entry = temporaryTable.get(key);
+                     if (entry != null) {
+                        synchronized (entry) {
+                           if (trace) {
+                              log.tracef("Key for %d:%d was found in temporary table on %d:%d",
+                                    scheduledFile, scheduledOffset, entry.file, entry.offset);
+                           }
+                           if (entry.file == scheduledFile && entry.offset == indexedOffset) {
+                              // It's quite unlikely that we would compact a record that is not indexed yet,
+                              // but let's handle that
+                              if (header.expiryTime() >= 0 && header.expiryTime() <= timeService.wallClockTime()) {
+                                 truncate = true;
+                              }
+                           } else {
                               truncate = true;
                            }
-                        } else {
-                           truncate = true;
                         }
-                     }
-                     // When we have found the entry in temporary table, it's possible that the delete operation
-                     // (that was recorded in temporary table) will arrive to index after DROPPED - in that case
-                     // we could remove the entry and delete would not find it
-                     drop = false;
-                  } else {
-                     EntryInfo info = index.getInfo(key, serializedKey);
-                     assert info != null : String.format("Index does not recognize entry on %d:%d");
-                     assert info.numRecords > 0;
-                     if (info.file == scheduledFile && info.offset == scheduledOffset) {
-                        assert header.valueLength() > 0;
-                        // live record with data
-                        truncate = header.expiryTime() >= 0 && header.expiryTime() <= timeService.wallClockTime();
-                        if (trace) {
-                           log.tracef("Is %d:%d expired? %s, numRecords? %d", scheduledFile, scheduledOffset, truncate, info.numRecords);
-                        }
-                        if (!truncate || info.numRecords > 1) {
-                           drop = false;
-                        }
-                        // Drop only when it is expired and has single record
-                     } else if (info.file == scheduledFile && info.offset == ~scheduledOffset && info.numRecords > 1) {
-                        // just tombstone but there are more non-compacted records for this key so we have to keep it
+                        // When we have found the entry in temporary table, it's possible that the delete operation
+                        // (that was recorded in temporary table) will arrive to index after DROPPED - in that case
+                        // we could remove the entry and delete would not find it
                         drop = false;
-                     } else if (trace) {
-                        log.tracef("Key for %d:%d was found in index on %d:%d, %d record => drop",
-                              scheduledFile, scheduledOffset, info.file, info.offset, info.numRecords);
-                     }
-                  }
-                  if (drop) {
-                     if (trace) {
-                        log.tracef("Drop %d:%d (%s)", scheduledFile, (Object)scheduledOffset,
-                              header.valueLength() > 0 ? "record" : "tombstone");
-                     }
-                     indexQueue.put(IndexRequest.dropped(key, serializedKey, scheduledFile, scheduledOffset));
-                  } else {
-                     if (logFile == null || currentOffset + header.totalLength() > maxFileSize) {
-                        if (logFile != null) {
-                           logFile.close();
-                           completeFile(logFile.fileId);
-                        }
-                        currentOffset = 0;
-                        logFile = fileProvider.getFileForLog();
-                        log.debugf("Compacting to %d", (Object) logFile.fileId);
-                     }
-
-                     byte[] serializedValue = null;
-                     byte[] serializedMetadata = null;
-                     int entryOffset;
-                     int writtenLength;
-                     if (header.valueLength() > 0 && !truncate) {
-                        if (header.metadataLength() > 0) {
-                           serializedMetadata = EntryRecord.readMetadata(handle, header, scheduledOffset);
-                        }
-                        serializedValue = EntryRecord.readValue(handle, header, scheduledOffset);
-                        entryOffset = currentOffset;
-                        writtenLength = header.totalLength();
                      } else {
-                        entryOffset = ~currentOffset;
-                        writtenLength = EntryHeader.HEADER_SIZE + header.keyLength();
+                        EntryInfo info = index.getInfo(key, serializedKey);
+                        assert info != null : String.format("Index does not recognize entry on %d:%d");
+                        assert info.numRecords > 0;
+                        if (info.file == scheduledFile && info.offset == scheduledOffset) {
+                           assert header.valueLength() > 0;
+                           // live record with data
+                           truncate = header.expiryTime() >= 0 && header.expiryTime() <= timeService.wallClockTime();
+                           if (trace) {
+                              log.tracef("Is %d:%d expired? %s, numRecords? %d", scheduledFile, scheduledOffset, truncate, info.numRecords);
+                           }
+                           if (!truncate || info.numRecords > 1) {
+                              drop = false;
+                           }
+                           // Drop only when it is expired and has single record
+                        } else if (info.file == scheduledFile && info.offset == ~scheduledOffset && info.numRecords > 1) {
+                           // just tombstone but there are more non-compacted records for this key so we have to keep it
+                           drop = false;
+                        } else if (trace) {
+                           log.tracef("Key for %d:%d was found in index on %d:%d, %d record => drop",
+                                 scheduledFile, scheduledOffset, info.file, info.offset, info.numRecords);
+                        }
                      }
-                     EntryRecord.writeEntry(logFile.fileChannel, serializedKey, serializedMetadata, serializedValue, header.seqId(), header.expiryTime());
-                     TemporaryTable.LockedEntry lockedEntry = temporaryTable.replaceOrLock(key, logFile.fileId, entryOffset, scheduledFile, indexedOffset);
-                     if (lockedEntry == null) {
+                     if (drop) {
                         if (trace) {
-                           log.trace("Found entry in temporary table");
+                           log.tracef("Drop %d:%d (%s)", scheduledFile, (Object)scheduledOffset,
+                                 header.valueLength() > 0 ? "record" : "tombstone");
                         }
+                        indexQueue.put(IndexRequest.dropped(key, serializedKey, scheduledFile, scheduledOffset));
                      } else {
-                        boolean update = false;
-                        try {
-                           EntryInfo info = index.getInfo(key, serializedKey);
-                           if (info == null) {
-                              throw new IllegalStateException(String.format(
-                                    "%s was not found in index but it was not in temporary table and there's entry on %d:%d", key, scheduledFile, indexedOffset));
-                           } else {
-                              update = info.file == scheduledFile && info.offset == indexedOffset;
+                        if (logFile == null || currentOffset + header.totalLength() > maxFileSize) {
+                           if (logFile != null) {
+                              logFile.close();
+                              completeFile(logFile.fileId);
+                           }
+                           currentOffset = 0;
+                           logFile = fileProvider.getFileForLog();
+                           log.debugf("Compacting to %d", (Object) logFile.fileId);
+                        }
+
+                        byte[] serializedValue = null;
+                        byte[] serializedMetadata = null;
+                        int entryOffset;
+                        int writtenLength;
+                        if (header.valueLength() > 0 && !truncate) {
+                           int valueRecordLength = header.metadataLength() + header.valueLength();
+                           throttle(valueRecordLength);
+                           bytesRead.add(valueRecordLength);
+                           if (header.metadataLength() > 0) {
+                              serializedMetadata = EntryRecord.readMetadata(handle, header, scheduledOffset);
                            }
+                           serializedValue = EntryRecord.readValue(handle, header, scheduledOffset);
+                           entryOffset = currentOffset;
+                           writtenLength = header.totalLength();
+                        } else {
+                           entryOffset = ~currentOffset;
+                           writtenLength = EntryHeader.HEADER_SIZE + header.keyLength();
+                        }
+                        throttle(writtenLength);
+                        EntryRecord.writeEntry(logFile.fileChannel, serializedKey, serializedMetadata, serializedValue, header.seqId(), header.expiryTime());
+                        bytesRewritten.add(writtenLength);
+                        TemporaryTable.LockedEntry lockedEntry = temporaryTable.replaceOrLock(key, logFile.fileId, entryOffset, scheduledFile, indexedOffset);
+                        if (lockedEntry == null) {
                            if (trace) {
-                              log.tracef("In index the key is on %d:%d (%s)", info.file, info.offset, String.valueOf(update));
+                              log.trace("Found entry in temporary table");
                            }
-                        } finally {
-                           if (update) {
-                              temporaryTable.updateAndUnlock(lockedEntry, logFile.fileId, entryOffset);
-                           } else {
-                              temporaryTable.removeAndUnlock(lockedEntry, key);
+                        } else {
+                           boolean update = false;
+                           try {
+                              EntryInfo info = index.getInfo(key, serializedKey);
+                              if (info == null) {
+                                 throw new IllegalStateException(String.format(
+                                       "%s was not found in index but it was not in temporary table and there's entry on %d:%d", key, scheduledFile, indexedOffset));
+                              } else {
+                                 update = info.file == scheduledFile && info.offset == indexedOffset;
+                              }
+                              if (trace) {
+                                 log.tracef("In index the key is on %d:%d (%s)", info.file, info.offset, String.valueOf(update));
+                              }
+                           } finally {
+                              if (update) {
+                                 temporaryTable.updateAndUnlock(lockedEntry, logFile.fileId, entryOffset);
+                              } else {
+                                 temporaryTable.removeAndUnlock(lockedEntry, key);
+                              }
                            }
                         }
-                     }
-                     if (trace) {
-                        log.tracef("Update %d:%d -> %d:%d | %d,%d", scheduledFile, indexedOffset,
-                              logFile.fileId, entryOffset, logFile.fileChannel.position(), logFile.fileChannel.size());
-                     }
-                     // entryFile cannot be used as we have to report the file due to free space statistics
-                     indexQueue.put(IndexRequest.moved(key, serializedKey, logFile.fileId, entryOffset, writtenLength,
-                           scheduledFile, indexedOffset));
+                        if (trace) {
+                           log.tracef("Update %d:%d -> %d:%d | %d,%d", scheduledFile, indexedOffset,
+                                 logFile.fileId, entryOffset, logFile.fileChannel.position(), logFile.fileChannel.size());
+                        }
+                        // entryFile cannot be used as we have to report the file due to free space statistics
+                        indexQueue.put(IndexRequest.moved(key, serializedKey, logFile.fileId, entryOffset, writtenLength,
+                              scheduledFile, indexedOffset));
 
-                     currentOffset += writtenLength;
+                        currentOffset += writtenLength;
+                     }
+                     scheduledOffset += header.totalLength();
                   }
-                  scheduledOffset += header.totalLength();
+               } finally {
+                  handle.close();
                }
-            } finally {
-               handle.close();
-            }
-            if (terminateSignal) {
-               if (logFile != null) {
-                  logFile.close();
-                  completeFile(logFile.fileId);
+               if (terminateSignal) {
+                  if (logFile != null) {
+                     logFile.close();
+                     completeFile(logFile.fileId);
+                  }
+                  return;
+               } else if (clearSignal) {
+                  pauseCompactor(logFile);
+                  logFile = null;
+               } else {
+                  // The deletion must be executed only after the index is fully updated.
+                  log.debugf("Finished compacting %d, scheduling delete", scheduledFile);
+                  indexQueue.put(IndexRequest.deleteFileRequest(scheduledFile));
+                  filesCompacted.increment();
+                  if (scheduledCompaction.isEmpty()) {
+                     scheduleRemaining();
+                  }
                }
-               return;
-            } else if (clearSignal) {
-               pauseCompactor(logFile);
-               logFile = null;
-            } else {
-               // The deletion must be executed only after the index is fully updated.
-               log.debugf("Finished compacting %d, scheduling delete", scheduledFile);
-               indexQueue.put(IndexRequest.deleteFileRequest(scheduledFile));
             }
+         } catch (Exception e) {
+            log.error("Compactor failed.", e);
          }
-      } catch (Exception e) {
-         log.error("Compactor failed.", e);
       }
    }
 
@@ -319,14 +473,59 @@ private void pauseCompactor(FileProvider.Log logFile) throws IOException, Interr
       compactorResume.await();
    }
 
+   private void pauseForCheckpoint(FileProvider.Log logFile, int currentOffset) throws InterruptedException {
+      if (logFile != null) {
+         pausedFiles.put(logFile.fileId, currentOffset);
+      }
+      CountDownLatch resume = checkpointResume;
+      checkpointPause.countDown();
+      resume.await();
+   }
+
+   /**
+    * Pauses the workers between two records, so that the index can be checkpointed.
+    *
+    * @return files the workers compact into and offsets where they will continue writing
+    */
+   public Map<Integer, Integer> pauseForCheckpoint() throws InterruptedException {
+      pausedFiles.clear();
+      checkpointResume = new CountDownLatch(1);
+      checkpointPause = new CountDownLatch(workers.length);
+      checkpointSignal = true;
+      for (int i = 0; i < workers.length; ++i) {
+         scheduledCompaction.put(-1);
+      }
+      checkpointPause.await();
+      return new HashMap<Integer, Integer>(pausedFiles);
+   }
+
+   public void resumeAfterCheckpoint() {
+      checkpointSignal = false;
+      checkpointResume.countDown();
+   }
+
+   /**
+    * @return amount of free space in each data file
+    */
+   public Map<Integer, Integer> getFreeSpace() {
+      Map<Integer, Integer> freeSpace = new HashMap<Integer, Integer>();
+      for (Map.Entry<Integer, Stats> entry : fileStats.entrySet()) {
+         freeSpace.put(entry.getKey(), entry.getValue().getFree());
+      }
+      return freeSpace;
+   }
+
    public void clearAndPause() throws InterruptedException {
       compactorResume = new CountDownLatch(1);
-      compactorStop = new CountDownLatch(1);
+      compactorStop = new CountDownLatch(workers.length);
       clearSignal = true;
-      scheduledCompaction.put(-1);
+      for (int i = 0; i < workers.length; ++i) {
+         scheduledCompaction.put(-1);
+      }
       compactorStop.await();
       scheduledCompaction.clear();
       fileStats.clear();
+      compacting = false;
    }
 
    public void resumeAfterPause() {
@@ -336,8 +535,12 @@ public void resumeAfterPause() {
 
    public void stopOperations() throws InterruptedException {
       terminateSignal = true;
-      scheduledCompaction.put(-1);
-      this.join();
+      for (int i = 0; i < workers.length; ++i) {
+         scheduledCompaction.put(-1);
+      }
+      for (Worker worker : workers) {
+         worker.join();
+      }
    }
 
    private static class Stats {
@@ -0,0 +1,45 @@
+package org.infinispan.persistence.sifs;
+
+/**
+ * Statistics of the compaction in {@link SoftIndexFileStore}, registered in JMX along with the other components of
+ * the cache when the cache has statistics enabled.
+ *
+ * @since 9.1
+ */
+public interface CompactorMXBean {
+   /**
+    * @return number of data files waiting for compaction
+    */
+   int getCompactionBacklog();
+
+   /**
+    * @return number of threads compacting the data files
+    */
+   int getCompactionThreads();
+
+   /**
+    * @return number of data files that were compacted and deleted
+    */
+   long getFilesCompacted();
+
+   /**
+    * @return number of bytes read from the compacted files
+    */
+   long getBytesRead();
+
+   /**
+    * @return number of bytes the compaction has written, moving the live records to new files
+    */
+   long getBytesRewritten();
+
+   /**
+    * @return number of bytes written to the data files by the cache operations
+    */
+   long getBytesAppended();
+
+   /**
+    * @return ratio of all bytes written to the data files to the bytes written by the cache operations, or 0 if
+    *         nothing was written yet
+    */
+   double getWriteAmplification();
+}
@@ -303,6 +303,11 @@ public long getFileSize() throws IOException {
          return record.fileChannel.size();
       }
 
+      public void force(boolean metaData) throws IOException {
+         if (!usable) throw new IllegalStateException();
+         record.getFileChannel().force(metaData);
+      }
+
       public int getFileId() {
          return record.getFileId();
       }
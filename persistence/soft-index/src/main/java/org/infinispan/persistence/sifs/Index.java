@@ -4,10 +4,14 @@
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CountDownLatch;
@@ -15,6 +19,7 @@
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
 
 import org.infinispan.commons.equivalence.Equivalence;
 import org.infinispan.util.TimeService;
@@ -25,15 +30,29 @@
  * Keeps the entry positions persisted in a file. It consists of couple of segments, each for one modulo-range
  * of key's hashcodes (according to DataContainer's key equivalence configuration) - writes to each index segment
  * are performed by single thread, having multiple segments spreads the load between them.
+ * <p>
+ * The index file starts with two header slots, each pointing to a root node and a list of free blocks; both the
+ * headers and the nodes are protected by checksums. On graceful shutdown the first slot is written, when the index is
+ * checkpointed the slots are written alternately so that a checkpoint never overwrites the previous one. In order to
+ * keep the nodes of the last checkpoint intact, with checkpoints enabled the nodes are never updated in place and the
+ * index space and data files freed since the last checkpoint are reused/deleted only after the next one is complete.
+ * <p>
+ * The part of the index file that exists when the index is loaded is memory-mapped, so that reading the nodes does
+ * not require any system call.
  *
  * @author Radim Vansa &lt;rvansa@redhat.com&gt;
  */
 class Index {
    private static final Log log = LogFactory.getLog(Index.class);
    private static final boolean trace = log.isTraceEnabled();
-   private static final int GRACEFULLY = 0x512ACEF0;
+   private static final int GRACEFULLY = 0x512ACEF1;
+   private static final int CHECKPOINTED = 0xC4EC4900;
    private static final int DIRTY = 0xD112770C;
-   protected static final int INDEX_FILE_HEADER_SIZE = 30;
+   private static final int HEADER_SLOT_SIZE = 46;
+   protected static final int INDEX_FILE_HEADER_SIZE = 2 * HEADER_SLOT_SIZE;
+   // the mapped chunks overlap, so that each node is fully contained in the chunk where it starts
+   private static final long MAPPED_CHUNK_SIZE = 1 << 30;
+   private static final int MAPPED_CHUNK_OVERLAP = Short.MAX_VALUE;
 
    private final String indexDir;
    private final FileProvider fileProvider;
@@ -44,10 +63,18 @@ class Index {
    private final Segment[] segments;
    private final TimeService timeService;
    private final Equivalence<Object> keyEquivalence;
+   private final IndexQueue indexQueue;
+   private final boolean checkpoints;
+   // data files that can be deleted only after the next checkpoint
+   private final Set<Integer> pendingDeletes = new HashSet<>();
+   private final IndexCheckpoint loadedCheckpoint;
+   // completed data files that were forced to disk by the last checkpoint
+   private Set<Integer> syncedFiles = new HashSet<>();
+   private volatile long generation;
 
    public Index(FileProvider fileProvider, String indexDir, int segments, int minNodeSize, int maxNodeSize,
                 IndexQueue indexQueue, TemporaryTable temporaryTable, Compactor compactor,
-                TimeService timeService, Equivalence<Object> keyEquivalence) throws IOException {
+                TimeService timeService, Equivalence<Object> keyEquivalence, boolean checkpoints) throws IOException {
       this.fileProvider = fileProvider;
       this.compactor = compactor;
       this.timeService = timeService;
@@ -55,12 +82,41 @@ public Index(FileProvider fileProvider, String indexDir, int segments, int minNo
       this.indexDir = indexDir;
       this.minNodeSize = minNodeSize;
       this.maxNodeSize = maxNodeSize;
+      this.indexQueue = indexQueue;
+      this.checkpoints = checkpoints;
       new File(indexDir).mkdirs();
 
+      IndexCheckpoint checkpoint = IndexCheckpoint.read(indexDir);
+      long checkpointGeneration = checkpoint == null ? -1 : checkpoint.getGeneration();
       this.segments = new Segment[segments];
+      boolean fromCheckpoint = checkpoint != null;
       for (int i = 0; i < segments; ++i) {
-         this.segments[i] = new Segment(i, indexQueue.subQueue(i), temporaryTable);
+         this.segments[i] = new Segment(i, indexQueue.subQueue(i), temporaryTable, checkpointGeneration);
+         fromCheckpoint = fromCheckpoint && this.segments[i].loadedGeneration == checkpointGeneration;
+         generation = Math.max(generation, this.segments[i].loadedGeneration);
+      }
+      generation = Math.max(generation, checkpointGeneration);
+      if (fromCheckpoint && !isLoaded()) {
+         loadedCheckpoint = checkpoint;
+      } else {
+         loadedCheckpoint = null;
+         for (Segment segment : this.segments) {
+            if (!segment.loaded) {
+               segment.reset();
+            }
+         }
       }
+      if (!checkpoints || isLoaded()) {
+         // the nodes of the last checkpoint are going to be overwritten
+         IndexCheckpoint.delete(indexDir);
+      }
+   }
+
+   /**
+    * @return The checkpoint the index was loaded from, or null if it was not loaded from a checkpoint
+    */
+   public IndexCheckpoint getLoadedCheckpoint() {
+      return loadedCheckpoint;
    }
 
    /**
@@ -140,6 +196,9 @@ public void clear() throws IOException {
          for (Segment seg : segments) {
             pauses.add(seg.pauseAndClear());
          }
+         // the files are going to be deleted, and the nodes overwritten
+         IndexCheckpoint.delete(indexDir);
+         drainPendingDeletes();
          for (CountDownLatch pause : pauses) {
             pause.countDown();
          }
@@ -154,6 +213,82 @@ public void stopOperations() throws InterruptedException {
       for (Segment seg : segments) {
          seg.stopOperations();
       }
+      // the index is persisted gracefully, the checkpoint is not needed anymore
+      IndexCheckpoint.delete(indexDir);
+      deletePendingFiles(drainPendingDeletes());
+   }
+
+   /**
+    * Forces the index files to disk, so that the checkpoint has less data to flush.
+    */
+   public void flush() throws IOException {
+      for (Segment seg : segments) {
+         seg.flush();
+      }
+   }
+
+   /**
+    * Persists the index and the description of the data files. Must be called when no records are written to the data
+    * files and the index queue contains only the requests for records that are already written.
+    */
+   public void checkpoint(long seqId, Map<Integer, Integer> openFiles) throws IOException, InterruptedException {
+      long generation = ++this.generation;
+      IndexRequest checkpoint = IndexRequest.checkpointRequest();
+      indexQueue.put(checkpoint);
+      Object result = checkpoint.getResult();
+      if (result instanceof Throwable) {
+         throw new IOException("Cannot checkpoint index", (Throwable) result);
+      }
+      Set<Integer> deletes = drainPendingDeletes();
+      Set<Integer> completedFiles = new HashSet<>();
+      for (Iterator<Integer> it = fileProvider.getFileIterator(); it.hasNext(); ) {
+         int file = it.next();
+         if (!deletes.contains(file) && !openFiles.containsKey(file)) {
+            completedFiles.add(file);
+         }
+      }
+      // the index must not point to records that could be lost
+      for (int file : completedFiles) {
+         if (!syncedFiles.contains(file)) {
+            force(file);
+         }
+      }
+      for (int file : openFiles.keySet()) {
+         force(file);
+      }
+      syncedFiles = completedFiles;
+      Map<Integer, Integer> freeSpace = compactor.getFreeSpace();
+      freeSpace.keySet().removeAll(deletes);
+      new IndexCheckpoint(generation, seqId, completedFiles, openFiles, freeSpace).write(indexDir);
+      indexQueue.put(IndexRequest.completeCheckpointRequest());
+      deletePendingFiles(deletes);
+      log.debugf("Index checkpoint %d complete", generation);
+   }
+
+   private void force(int file) throws IOException {
+      FileProvider.Handle handle = fileProvider.getFile(file);
+      if (handle != null) {
+         try {
+            handle.force(false);
+         } finally {
+            handle.close();
+         }
+      }
+   }
+
+   private Set<Integer> drainPendingDeletes() {
+      synchronized (pendingDeletes) {
+         Set<Integer> deletes = new HashSet<>(pendingDeletes);
+         pendingDeletes.clear();
+         return deletes;
+      }
+   }
+
+   private void deletePendingFiles(Set<Integer> files) {
+      for (int file : files) {
+         fileProvider.deleteFile(file);
+         compactor.releaseStats(file);
+      }
    }
 
    public long size() throws InterruptedException {
@@ -171,14 +306,24 @@ class Segment extends Thread {
       private final ReadWriteLock rootLock = new ReentrantReadWriteLock();
       private final File indexFileFile;
       private final boolean loaded;
+      // generation of the checkpoint this segment was loaded from, -1 if it was not loaded from a checkpoint
+      private final long loadedGeneration;
       private FileChannel indexFile;
       private long indexFileSize = 0;
       private AtomicLong size = new AtomicLong();
+      // space freed since the last checkpoint, still used by its nodes
+      private List<IndexSpace> pendingFree = new ArrayList<>();
+      // space freed before the last checkpoint, reusable when the checkpoint is complete
+      private List<IndexSpace> freeOnCompletion = new ArrayList<>();
+      // the list of free blocks written by the last checkpoint
+      private IndexSpace checkpointFreeBlocks;
+      private volatile MappedByteBuffer[] mappedChunks;
+      private volatile long mappedSize;
 
       private volatile IndexNode root;
 
 
-      private Segment(int id, BlockingQueue<IndexRequest> indexQueue, TemporaryTable temporaryTable) throws IOException {
+      private Segment(int id, BlockingQueue<IndexRequest> indexQueue, TemporaryTable temporaryTable, long checkpointGeneration) throws IOException {
          super("BCS-IndexUpdater-" + id);
          this.setDaemon(true);
          this.indexQueue = indexQueue;
@@ -186,50 +331,181 @@ private Segment(int id, BlockingQueue<IndexRequest> indexQueue, TemporaryTable t
 
          this.indexFileFile = new File(indexDir, "index." + id);
          this.indexFile = new RandomAccessFile(indexFileFile, "rw").getChannel();
-         indexFile.position(0);
-         ByteBuffer buffer = ByteBuffer.allocate(INDEX_FILE_HEADER_SIZE);
-         if (indexFile.size() >= INDEX_FILE_HEADER_SIZE && read(indexFile, buffer) && buffer.getInt(0) == GRACEFULLY) {
-            long rootOffset = buffer.getLong(4);
-            short rootOccupied = buffer.getShort(12);
-            long freeBlocksOffset = buffer.getLong(14);
-            size.set(buffer.getLong(22));
+         ByteBuffer header = readHeader(0);
+         if (!isUsable(header, checkpointGeneration)) {
+            header = readHeader(HEADER_SLOT_SIZE);
+            if (!isUsable(header, checkpointGeneration)) {
+               header = null;
+            }
+         }
+         if (header != null) {
+            long rootOffset = header.getLong(4);
+            short rootOccupied = header.getShort(12);
+            long freeBlocksOffset = header.getLong(14);
+            int freeBlocksLength = header.getInt(22);
+            size.set(header.getLong(26));
             root = new IndexNode(this, rootOffset, rootOccupied);
-            loadFreeBlocks(freeBlocksOffset);
-            indexFileSize = freeBlocksOffset;
-            loaded = true;
+            loadFreeBlocks(freeBlocksOffset, freeBlocksLength);
+            if (header.getInt(0) == GRACEFULLY) {
+               indexFileSize = freeBlocksOffset;
+               loaded = true;
+               loadedGeneration = -1;
+            } else {
+               // the free blocks list of the checkpoint must be kept until the next checkpoint is complete
+               indexFileSize = freeBlocksOffset + freeBlocksLength;
+               checkpointFreeBlocks = new IndexSpace(freeBlocksOffset, freeBlocksLength);
+               loaded = false;
+               loadedGeneration = header.getLong(34);
+            }
+            mapIndexFile();
          } else {
-            this.indexFile.truncate(0);
-            root = IndexNode.emptyWithLeaves(this);
+            reset();
             loaded = false;
-            // reserve space for shutdown
-            indexFileSize = INDEX_FILE_HEADER_SIZE;
+            loadedGeneration = -1;
+         }
+         if (loaded) {
+            // the checkpoint headers stay valid, the graceful one would not
+            ByteBuffer buffer = ByteBuffer.allocate(4);
+            buffer.putInt(0, DIRTY);
+            write(indexFile, buffer, 0);
+         }
+      }
+
+      private boolean isUsable(ByteBuffer header, long checkpointGeneration) {
+         if (header == null) {
+            return false;
          }
-         buffer.putInt(0, DIRTY);
-         buffer.position(0);
-         buffer.limit(4);
-         indexFile.position(0);
-         write(indexFile, buffer);
+         return header.getInt(0) == GRACEFULLY || header.getLong(34) == checkpointGeneration;
+      }
+
+      private void reset() throws IOException {
+         mappedChunks = null;
+         mappedSize = 0;
+         this.indexFile.truncate(0);
+         root = IndexNode.emptyWithLeaves(this);
+         freeBlocks.clear();
+         pendingFree.clear();
+         freeOnCompletion.clear();
+         checkpointFreeBlocks = null;
+         size.set(0);
+         // reserve space for shutdown
+         indexFileSize = INDEX_FILE_HEADER_SIZE;
       }
 
-      private void write(FileChannel indexFile, ByteBuffer buffer) throws IOException {
+      /**
+       * @return header from given slot if it is valid, null otherwise
+       */
+      private ByteBuffer readHeader(int slotOffset) throws IOException {
+         ByteBuffer buffer = ByteBuffer.allocate(HEADER_SLOT_SIZE);
+         if (indexFile.size() < slotOffset + HEADER_SLOT_SIZE || !read(indexFile, buffer, slotOffset)) {
+            return null;
+         }
+         int magic = buffer.getInt(0);
+         if (magic != GRACEFULLY && magic != CHECKPOINTED) {
+            return null;
+         }
+         long freeBlocksOffset = buffer.getLong(14);
+         int freeBlocksLength = buffer.getInt(22);
+         if (freeBlocksLength < 4 || freeBlocksOffset + freeBlocksLength > indexFile.size()) {
+            log.debugf("Header of index file %s on %d is corrupt", indexFileFile, slotOffset);
+            return null;
+         }
+         ByteBuffer freeBlocks = ByteBuffer.allocate(freeBlocksLength);
+         if (freeBlocksOffset < INDEX_FILE_HEADER_SIZE || !read(indexFile, freeBlocks, freeBlocksOffset)
+               || buffer.getInt(42) != headerChecksum(buffer, freeBlocks)) {
+            log.debugf("Header of index file %s on %d is corrupt", indexFileFile, slotOffset);
+            return null;
+         }
+         return buffer;
+      }
+
+      private int headerChecksum(ByteBuffer header, ByteBuffer freeBlocks) {
+         CRC32 crc = new CRC32();
+         crc.update(header.array(), 4, 38);
+         crc.update(freeBlocks.array(), 0, freeBlocks.limit());
+         return (int) crc.getValue();
+      }
+
+      private void write(FileChannel indexFile, ByteBuffer buffer, long position) throws IOException {
+         buffer.rewind();
          do {
-            int written = indexFile.write(buffer);
+            int written = indexFile.write(buffer, position + buffer.position());
             if (written < 0) {
                throw new IllegalStateException("Cannot write to index file!");
             }
          } while (buffer.position() < buffer.limit());
       }
 
-      private boolean read(FileChannel indexFile, ByteBuffer buffer) throws IOException {
+      private boolean read(FileChannel indexFile, ByteBuffer buffer, long position) throws IOException {
          do {
-            int read = indexFile.read(buffer);
+            int read = indexFile.read(buffer, position + buffer.position());
             if (read < 0) {
                return false;
             }
          } while (buffer.position() < buffer.limit());
+         buffer.rewind();
          return true;
       }
 
+      private void mapIndexFile() throws IOException {
+         long size = indexFileSize;
+         MappedByteBuffer[] chunks = new MappedByteBuffer[(int) ((size + MAPPED_CHUNK_SIZE - 1) / MAPPED_CHUNK_SIZE)];
+         for (int i = 0; i < chunks.length; ++i) {
+            long start = i * MAPPED_CHUNK_SIZE;
+            chunks[i] = indexFile.map(FileChannel.MapMode.READ_WRITE, start, Math.min(MAPPED_CHUNK_SIZE + MAPPED_CHUNK_OVERLAP, size - start));
+         }
+         mappedChunks = chunks;
+         mappedSize = size;
+      }
+
+      private ByteBuffer mapped(long offset, int length) {
+         MappedByteBuffer[] chunks = mappedChunks;
+         if (chunks == null || offset + length > mappedSize) {
+            return null;
+         }
+         ByteBuffer buffer = chunks[(int) (offset / MAPPED_CHUNK_SIZE)].duplicate();
+         int position = (int) (offset % MAPPED_CHUNK_SIZE);
+         buffer.position(position);
+         buffer.limit(position + length);
+         return buffer.slice();
+      }
+
+      ByteBuffer readNode(long offset, int length) throws IOException {
+         ByteBuffer buffer = mapped(offset, length);
+         if (buffer != null) {
+            return buffer;
+         }
+         buffer = ByteBuffer.allocate(length);
+         if (!read(indexFile, buffer, offset)) {
+            throw new IOException("Cannot read record [" + offset + ":" + length + "], file size is " + indexFile.size());
+         }
+         return buffer;
+      }
+
+      // this should be accessed only from the updater thread
+      void writeNode(ByteBuffer buffer, long offset) throws IOException {
+         ByteBuffer mapped = mapped(offset, buffer.remaining());
+         if (mapped != null) {
+            mapped.put(buffer);
+         } else {
+            write(indexFile, buffer, offset);
+         }
+      }
+
+      boolean isInPlaceUpdateAllowed() {
+         return !checkpoints;
+      }
+
+      void flush() throws IOException {
+         MappedByteBuffer[] chunks = mappedChunks;
+         if (chunks != null) {
+            for (MappedByteBuffer chunk : chunks) {
+               chunk.force();
+            }
+         }
+         indexFile.force(false);
+      }
+
       @Override
       public void run() {
          try {
@@ -256,10 +532,31 @@ public void run() {
                   case DELETE_FILE:
                      // the last segment that processes the delete request actually deletes the file
                      if (request.countDown()) {
-                        fileProvider.deleteFile(request.getFile());
-                        compactor.releaseStats(request.getFile());
+                        if (checkpoints) {
+                           // the last checkpoint may still refer to the records in this file
+                           synchronized (pendingDeletes) {
+                              pendingDeletes.add(request.getFile());
+                           }
+                        } else {
+                           fileProvider.deleteFile(request.getFile());
+                           compactor.releaseStats(request.getFile());
+                        }
                      }
                      continue;
+                  case CHECKPOINT:
+                     try {
+                        checkpoint();
+                     } catch (IOException e) {
+                        log.error("Cannot checkpoint index segment", e);
+                        request.setResult(e);
+                     }
+                     if (request.countDown()) {
+                        request.setResult(Boolean.TRUE);
+                     }
+                     continue;
+                  case COMPLETE_CHECKPOINT:
+                     completeCheckpoint();
+                     continue;
                   case STOP:
                      assert indexQueue.poll() == null;
                      shutdown();
@@ -339,68 +636,112 @@ public void setOverwritten(boolean overwritten, int prevFile, int prevOffset) {
       }
 
       private void shutdown() throws IOException {
-         IndexSpace rootSpace = allocateIndexSpace(root.length());
-         root.store(rootSpace);
-         indexFile.position(indexFileSize);
-         ByteBuffer buffer = ByteBuffer.allocate(4);
-         buffer.putInt(0, freeBlocks.size());
-         write(indexFile, buffer);
+         if (root.getOffset() < 0) {
+            root.store(allocateIndexSpace(root.length()));
+         }
+         // the checkpoint won't be used anymore
+         for (IndexSpace space : pendingFree) {
+            releaseIndexSpace(space);
+         }
+         for (IndexSpace space : freeOnCompletion) {
+            releaseIndexSpace(space);
+         }
+         if (checkpointFreeBlocks != null) {
+            releaseIndexSpace(checkpointFreeBlocks);
+         }
+         pendingFree.clear();
+         freeOnCompletion.clear();
+         checkpointFreeBlocks = null;
+         ByteBuffer freeBlocksBuffer = serializeFreeBlocks(freeBlocks);
+         write(indexFile, freeBlocksBuffer, indexFileSize);
+         flush();
+         write(indexFile, header(GRACEFULLY, indexFileSize, freeBlocksBuffer, generation), 0);
+         ByteBuffer dirty = ByteBuffer.allocate(4);
+         dirty.putInt(0, DIRTY);
+         write(indexFile, dirty, HEADER_SLOT_SIZE);
+         indexFile.force(false);
+      }
+
+      // this should be accessed only from the updater thread
+      private void checkpoint() throws IOException {
+         long generation = Index.this.generation;
+         // the space freed before this checkpoint can be reused once it is complete
+         freeOnCompletion.addAll(pendingFree);
+         pendingFree.clear();
+         if (checkpointFreeBlocks != null) {
+            freeOnCompletion.add(checkpointFreeBlocks);
+         }
+         if (root.getOffset() < 0) {
+            root.store(allocateIndexSpace(root.length()));
+         }
+         TreeMap<Integer, List<IndexSpace>> checkpointFree = new TreeMap<>();
          for (Map.Entry<Integer, List<IndexSpace>> entry : freeBlocks.entrySet()) {
+            checkpointFree.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+         }
+         for (IndexSpace space : freeOnCompletion) {
+            forEachBlock(space, (offset, length) -> addFreeBlock(checkpointFree, new IndexSpace(offset, length)));
+         }
+         ByteBuffer freeBlocksBuffer = serializeFreeBlocks(checkpointFree);
+         checkpointFreeBlocks = new IndexSpace(indexFileSize, freeBlocksBuffer.limit());
+         indexFileSize += freeBlocksBuffer.limit();
+         write(indexFile, freeBlocksBuffer, checkpointFreeBlocks.offset);
+         // the header must not be persisted before the nodes and free blocks it points to
+         flush();
+         write(indexFile, header(CHECKPOINTED, checkpointFreeBlocks.offset, freeBlocksBuffer, generation),
+               (generation % 2) * HEADER_SLOT_SIZE);
+         indexFile.force(false);
+      }
+
+      // this should be accessed only from the updater thread
+      private void completeCheckpoint() {
+         for (IndexSpace space : freeOnCompletion) {
+            releaseIndexSpace(space);
+         }
+         freeOnCompletion.clear();
+      }
+
+      private ByteBuffer header(int magic, long freeBlocksOffset, ByteBuffer freeBlocksBuffer, long generation) {
+         ByteBuffer header = ByteBuffer.allocate(HEADER_SLOT_SIZE);
+         header.putInt(0, magic);
+         header.putLong(4, root.getOffset());
+         header.putShort(12, (short) root.getOccupiedSpace());
+         header.putLong(14, freeBlocksOffset);
+         header.putInt(22, freeBlocksBuffer.limit());
+         header.putLong(26, size.get());
+         header.putLong(34, generation);
+         header.putInt(42, headerChecksum(header, freeBlocksBuffer));
+         return header;
+      }
+
+      private ByteBuffer serializeFreeBlocks(TreeMap<Integer, List<IndexSpace>> blocks) {
+         int length = 4;
+         for (List<IndexSpace> list : blocks.values()) {
+            length += 8 + list.size() * 10;
+         }
+         ByteBuffer buffer = ByteBuffer.allocate(length);
+         buffer.putInt(blocks.size());
+         for (Map.Entry<Integer, List<IndexSpace>> entry : blocks.entrySet()) {
             List<IndexSpace> list = entry.getValue();
-            int requiredSize = 8 + list.size() * 10;
-            buffer = buffer.capacity() < requiredSize ? ByteBuffer.allocate(requiredSize) : buffer;
-            buffer.position(0);
-            buffer.limit(requiredSize);
             buffer.putInt(entry.getKey());
             buffer.putInt(list.size());
             for (IndexSpace space : list) {
                buffer.putLong(space.offset);
                buffer.putShort((short) space.length);
             }
-            buffer.flip();
-            write(indexFile, buffer);
-         }
-         int headerWithoutMagic = INDEX_FILE_HEADER_SIZE - 4;
-         buffer = buffer.capacity() < headerWithoutMagic ? ByteBuffer.allocate(headerWithoutMagic) : buffer;
-         buffer.putLong(0, rootSpace.offset);
-         buffer.putShort(8, (short) rootSpace.length);
-         buffer.putLong(10, indexFileSize);
-         buffer.putLong(18, size.get());
-         buffer.position(0);
-         buffer.limit(headerWithoutMagic);
-         indexFile.position(4);
-         write(indexFile, buffer);
-         buffer.putInt(0, GRACEFULLY);
-         buffer.position(0);
-         buffer.limit(4);
-         indexFile.position(0);
-         write(indexFile, buffer);
-      }
-
-      private void loadFreeBlocks(long freeBlocksOffset) throws IOException {
-         indexFile.position(freeBlocksOffset);
-         ByteBuffer buffer = ByteBuffer.allocate(8);
-         buffer.limit(4);
-         if (!read(indexFile, buffer)) {
+         }
+         buffer.flip();
+         return buffer;
+      }
+
+      private void loadFreeBlocks(long freeBlocksOffset, int freeBlocksLength) throws IOException {
+         ByteBuffer buffer = ByteBuffer.allocate(freeBlocksLength);
+         if (!read(indexFile, buffer, freeBlocksOffset)) {
             throw new IOException("Cannot read free blocks lists!");
          }
-         int numLists = buffer.getInt(0);
+         int numLists = buffer.getInt();
          for (int i = 0; i < numLists; ++i) {
-            buffer.position(0);
-            buffer.limit(8);
-            if (!read(indexFile, buffer)) {
-               throw new IOException("Cannot read free blocks lists!");
-            }
-            int blockLength = buffer.getInt(0);
-            int listSize = buffer.getInt(4);
-            int requiredSize = 10 * listSize;
-            buffer = buffer.capacity() < requiredSize ? ByteBuffer.allocate(requiredSize) : buffer;
-            buffer.position(0);
-            buffer.limit(requiredSize);
-            if (!read(indexFile, buffer)) {
-               throw new IOException("Cannot read free blocks lists!");
-            }
-            buffer.flip();
+            int blockLength = buffer.getInt();
+            int listSize = buffer.getInt();
             ArrayList<IndexSpace> list = new ArrayList<>(listSize);
             for (int j = 0; j < listSize; ++j) {
                list.add(new IndexSpace(buffer.getLong(), buffer.getShort()));
@@ -413,11 +754,7 @@ public CountDownLatch pauseAndClear() throws InterruptedException, IOException {
          IndexRequest clear = IndexRequest.clearRequest();
          indexQueue.put(clear);
          CountDownLatch pause = (CountDownLatch) clear.getResult();
-         root = IndexNode.emptyWithLeaves(this);
-         indexFile.truncate(0);
-         indexFileSize = INDEX_FILE_HEADER_SIZE;
-         freeBlocks.clear();
-         size.set(0);
+         reset();
          return pause;
       }
 
@@ -427,10 +764,6 @@ public long size() throws InterruptedException {
          return (Long) sizeRequest.getResult();
       }
 
-      public FileChannel getIndexFile() {
-         return indexFile;
-      }
-
       public FileProvider getFileProvider() {
          return fileProvider;
       }
@@ -473,9 +806,22 @@ IndexSpace allocateIndexSpace(int length) {
       // this should be accessed only from the updater thread
       void freeIndexSpace(long offset, int length) {
          if (length <= 0) throw new IllegalArgumentException("Offset=" + offset + ", length=" + length);
+         if (checkpoints) {
+            pendingFree.add(new IndexSpace(offset, length));
+         } else {
+            releaseIndexSpace(offset, length);
+         }
+      }
+
+      private void releaseIndexSpace(IndexSpace space) {
+         forEachBlock(space, this::releaseIndexSpace);
+      }
+
+      private void releaseIndexSpace(long offset, int length) {
          // TODO: fragmentation!
          // TODO: memory bounds!
-         if (offset + length < indexFileSize) {
+         // the mapped part of the file must not be truncated
+         if (offset + length < indexFileSize || offset < mappedSize) {
             List<IndexSpace> list = freeBlocks.get(length);
             if (list == null) {
                freeBlocks.put(length, list = new ArrayList<IndexSpace>());
@@ -491,6 +837,24 @@ void freeIndexSpace(long offset, int length) {
          }
       }
 
+      /**
+       * Splits the space (such as the list of free blocks) to blocks that can be reused for the nodes.
+       */
+      private void forEachBlock(IndexSpace space, BlockConsumer consumer) {
+         int maxBlockLength = Math.min(maxNodeSize, Short.MAX_VALUE);
+         for (long offset = space.offset, end = space.offset + space.length; offset < end; offset += maxBlockLength) {
+            consumer.accept(offset, (int) Math.min(maxBlockLength, end - offset));
+         }
+      }
+
+      private void addFreeBlock(TreeMap<Integer, List<IndexSpace>> blocks, IndexSpace space) {
+         List<IndexSpace> list = blocks.get(space.length);
+         if (list == null) {
+            blocks.put(space.length, list = new ArrayList<IndexSpace>());
+         }
+         list.add(space);
+      }
+
       public Lock rootReadLock() {
          return rootLock.readLock();
       }
@@ -505,6 +869,10 @@ public TimeService getTimeService() {
       }
    }
 
+   private interface BlockConsumer {
+      void accept(long offset, int length);
+   }
+
    /**
     * Offset-length pair
     */
@@ -0,0 +1,170 @@
+package org.infinispan.persistence.sifs;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+/**
+ * Describes the state of the data files at the moment the index segments were checkpointed: all records written
+ * before this moment are reflected in the index persisted with the same generation, so that after an unclean shutdown
+ * only the records written later have to be replayed.
+ * <p>
+ * The records written later are those in the files that did not exist at the moment of the checkpoint, and those after
+ * the recorded offset in the files that were open for writing. The free space statistics of the compactor are persisted
+ * as well, as the replayed records can't restore them.
+ *
+ * @since 9.1
+ */
+class IndexCheckpoint {
+   private static final Log log = LogFactory.getLog(IndexCheckpoint.class);
+   private static final int MAGIC = 0xC4EC4901;
+   private static final String FILE_NAME = "checkpoint";
+
+   private final long generation;
+   private final long seqId;
+   private final Set<Integer> completedFiles;
+   private final Map<Integer, Integer> openFiles;
+   private final Map<Integer, Integer> freeSpace;
+
+   IndexCheckpoint(long generation, long seqId, Set<Integer> completedFiles, Map<Integer, Integer> openFiles,
+                   Map<Integer, Integer> freeSpace) {
+      this.generation = generation;
+      this.seqId = seqId;
+      this.completedFiles = completedFiles;
+      this.openFiles = openFiles;
+      this.freeSpace = freeSpace;
+   }
+
+   public long getGeneration() {
+      return generation;
+   }
+
+   /**
+    * @return the highest sequence id of a record written before the checkpoint
+    */
+   public long getSeqId() {
+      return seqId;
+   }
+
+   /**
+    * @return amount of free space in each data file
+    */
+   public Map<Integer, Integer> getFreeSpace() {
+      return Collections.unmodifiableMap(freeSpace);
+   }
+
+   /**
+    * @return the offset from which the records in given file have to be replayed, or -1 if the file is fully indexed
+    */
+   public int getReplayOffset(int file) {
+      Integer offset = openFiles.get(file);
+      if (offset != null) {
+         return offset;
+      }
+      return completedFiles.contains(file) ? -1 : 0;
+   }
+
+   static IndexCheckpoint read(String indexDir) {
+      File file = new File(indexDir, FILE_NAME);
+      if (!file.exists()) {
+         return null;
+      }
+      try {
+         byte[] bytes = Files.readAllBytes(file.toPath());
+         if (bytes.length < 8) {
+            log.debug("Index checkpoint is truncated, ignoring it");
+            return null;
+         }
+         CRC32 crc = new CRC32();
+         crc.update(bytes, 0, bytes.length - 4);
+         if (ByteBuffer.wrap(bytes, bytes.length - 4, 4).getInt() != (int) crc.getValue()) {
+            log.debug("Index checkpoint is corrupt, ignoring it");
+            return null;
+         }
+         DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes));
+         if (input.readInt() != MAGIC) {
+            log.debug("Index checkpoint has unknown format, ignoring it");
+            return null;
+         }
+         long generation = input.readLong();
+         long seqId = input.readLong();
+         int numCompleted = input.readInt();
+         Set<Integer> completedFiles = new HashSet<>(numCompleted);
+         for (int i = 0; i < numCompleted; ++i) {
+            completedFiles.add(input.readInt());
+         }
+         int numOpen = input.readInt();
+         Map<Integer, Integer> openFiles = new HashMap<>(numOpen);
+         for (int i = 0; i < numOpen; ++i) {
+            openFiles.put(input.readInt(), input.readInt());
+         }
+         int numStats = input.readInt();
+         Map<Integer, Integer> freeSpace = new HashMap<>(numStats);
+         for (int i = 0; i < numStats; ++i) {
+            freeSpace.put(input.readInt(), input.readInt());
+         }
+         return new IndexCheckpoint(generation, seqId, completedFiles, openFiles, freeSpace);
+      } catch (IOException e) {
+         log.debug("Cannot read index checkpoint, ignoring it", e);
+         return null;
+      }
+   }
+
+   void write(String indexDir) throws IOException {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream output = new DataOutputStream(bytes);
+      output.writeInt(MAGIC);
+      output.writeLong(generation);
+      output.writeLong(seqId);
+      output.writeInt(completedFiles.size());
+      for (int file : completedFiles) {
+         output.writeInt(file);
+      }
+      output.writeInt(openFiles.size());
+      for (Map.Entry<Integer, Integer> entry : openFiles.entrySet()) {
+         output.writeInt(entry.getKey());
+         output.writeInt(entry.getValue());
+      }
+      output.writeInt(freeSpace.size());
+      for (Map.Entry<Integer, Integer> entry : freeSpace.entrySet()) {
+         output.writeInt(entry.getKey());
+         output.writeInt(entry.getValue());
+      }
+      CRC32 crc = new CRC32();
+      crc.update(bytes.toByteArray());
+      output.writeInt((int) crc.getValue());
+      output.flush();
+
+      // the checkpoint must not be lost nor seen partially written when the new file replaces the previous one
+      File tmpFile = new File(indexDir, FILE_NAME + ".tmp");
+      try (FileOutputStream stream = new FileOutputStream(tmpFile)) {
+         bytes.writeTo(stream);
+         stream.getChannel().force(true);
+      }
+      Files.move(tmpFile.toPath(), new File(indexDir, FILE_NAME).toPath(),
+            StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+   }
+
+   static void delete(String indexDir) {
+      File file = new File(indexDir, FILE_NAME);
+      if (file.exists() && !file.delete()) {
+         log.warn("Cannot delete index checkpoint " + file);
+      }
+   }
+}
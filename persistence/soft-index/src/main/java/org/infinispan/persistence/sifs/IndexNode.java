@@ -3,7 +3,6 @@
 import java.io.IOException;
 import java.lang.ref.SoftReference;
 import java.nio.ByteBuffer;
-import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -13,6 +12,7 @@
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
 
 import org.infinispan.persistence.spi.PersistenceException;
 import org.infinispan.util.TimeService;
@@ -32,7 +32,8 @@ class IndexNode {
 
    private static final byte HAS_LEAVES = 1;
    private static final byte HAS_NODES = 2;
-   private static final int INNER_NODE_HEADER_SIZE = 5;
+   // checksum, prefix length, flags and number of key parts
+   private static final int INNER_NODE_HEADER_SIZE = 9;
    private static final int INNER_NODE_REFERENCE_SIZE = 10;
    private static final int LEAF_NODE_REFERENCE_SIZE = 10;
 
@@ -62,7 +63,8 @@ public IndexNode(Index.Segment segment, long offset, int occupiedSpace) throws I
       this.offset = offset;
       this.occupiedSpace = occupiedSpace;
 
-      ByteBuffer buffer = loadBuffer(segment.getIndexFile(), offset, occupiedSpace);
+      ByteBuffer buffer = segment.readNode(offset, occupiedSpace);
+      int checksum = buffer.getInt();
 
       prefix = new byte[buffer.getShort()];
       buffer.get(prefix);
@@ -91,24 +93,21 @@ public IndexNode(Index.Segment segment, long offset, int occupiedSpace) throws I
          leafNodes = LeafNode.EMPTY_ARRAY;
       }
 
+      if (checksum != checksum(buffer, buffer.position())) {
+         throw new IOException("Index node on " + offset + " (length " + occupiedSpace + ") is corrupt");
+      }
       if (trace) {
          log.tracef("Loaded %08x from %d:%d (length %d)", System.identityHashCode(this), offset, occupiedSpace, length());
       }
    }
 
-   private static ByteBuffer loadBuffer(FileChannel indexFile, long offset, int occupiedSpace) throws IOException {
-      ByteBuffer buffer = ByteBuffer.allocate(occupiedSpace);
-      int read = 0;
-      do {
-         int nowRead = indexFile.read(buffer, offset + read);
-         if (nowRead < 0) {
-            throw new IOException("Cannot read record [" + offset + ":" + occupiedSpace + "] (already read "
-                  + read + "), file size is " + indexFile.size());
-         }
-         read += nowRead;
-      } while (read < occupiedSpace);
-      buffer.rewind();
-      return buffer;
+   private static int checksum(ByteBuffer buffer, int end) {
+      ByteBuffer content = buffer.duplicate();
+      content.position(4);
+      content.limit(end);
+      CRC32 crc = new CRC32();
+      crc.update(content);
+      return (int) crc.getValue();
    }
 
    IndexNode(Index.Segment segment, byte[] newPrefix, byte[][] newKeyParts, LeafNode[] newLeafNodes) {
@@ -169,6 +168,7 @@ void store(Index.IndexSpace indexSpace) throws IOException {
       this.offset = indexSpace.offset;
       this.occupiedSpace = indexSpace.length;
       ByteBuffer buffer = ByteBuffer.allocate(length());
+      buffer.putInt(0);
       buffer.putShort((short) prefix.length);
       buffer.put(prefix);
       byte flags = 0;
@@ -195,8 +195,9 @@ void store(Index.IndexSpace indexSpace) throws IOException {
             buffer.putShort(leafNodes[i].numRecords);
          }
       }
+      buffer.putInt(0, checksum(buffer, buffer.position()));
       buffer.flip();
-      segment.getIndexFile().write(buffer, offset);
+      segment.writeNode(buffer, offset);
 
       if (trace) {
          log.tracef("Persisted %08x (length %d, %d %s) to %d:%d", System.identityHashCode(this), length(),
@@ -403,7 +404,7 @@ private static JoinSplitResult manageLength(Index.Segment segment, Stack<Path> s
          Path parent = stack.peek();
          if (parent.node.innerNodes.length == 1) {
             // we have no siblings - we can't merge with them even when we're really short
-            if (copy.length() <= node.occupiedSpace) {
+            if (copy.length() <= node.occupiedSpace && segment.isInPlaceUpdateAllowed()) {
                node.replaceContent(copy);
                return null;
             } else {
@@ -446,15 +447,13 @@ private static JoinSplitResult manageLength(Index.Segment segment, Stack<Path> s
             to = joinWith;
          }
          garbage.push(joiner);
-      } else if (copy.length() <= node.occupiedSpace) {
-         if (copy.innerNodes != null && copy.innerNodes.length == 1 && stack.isEmpty()) {
-            IndexNode child = copy.innerNodes[0].getIndexNode(copy.segment);
-            return new JoinSplitResult(0, 0, Collections.singletonList(child));
-         } else {
-            // special case where we only overwrite the key
-            node.replaceContent(copy);
-            return null;
-         }
+      } else if (copy.length() <= node.occupiedSpace && copy.innerNodes != null && copy.innerNodes.length == 1 && stack.isEmpty()) {
+         IndexNode child = copy.innerNodes[0].getIndexNode(copy.segment);
+         return new JoinSplitResult(0, 0, Collections.singletonList(child));
+      } else if (copy.length() <= node.occupiedSpace && segment.isInPlaceUpdateAllowed()) {
+         // special case where we only overwrite the key
+         node.replaceContent(copy);
+         return null;
       } else if (stack.isEmpty()) {
          from = to = 0;
       } else {
@@ -888,6 +887,14 @@ public int length() {
       return totalLength = headerLength() + contentLength();
    }
 
+   long getOffset() {
+      return offset;
+   }
+
+   int getOccupiedSpace() {
+      return occupiedSpace;
+   }
+
    public static IndexNode emptyWithLeaves(Index.Segment segment) {
       return new IndexNode(segment, new byte[0], new byte[0][], LeafNode.EMPTY_ARRAY);
    }
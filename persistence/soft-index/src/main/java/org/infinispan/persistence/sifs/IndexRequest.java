@@ -18,7 +18,9 @@ public enum Type {
       CLEAR,
       DELETE_FILE,
       STOP,
-      GET_SIZE
+      GET_SIZE,
+      CHECKPOINT,
+      COMPLETE_CHECKPOINT
    }
 
    private final Type type;
@@ -76,6 +78,14 @@ public static IndexRequest sizeRequest() {
       return new IndexRequest(Type.GET_SIZE, null, null, -1, -1, -1, -1, -1);
    }
 
+   public static IndexRequest checkpointRequest() {
+      return new IndexRequest(Type.CHECKPOINT, null, null, -1, -1, -1, -1, -1);
+   }
+
+   public static IndexRequest completeCheckpointRequest() {
+      return new IndexRequest(Type.COMPLETE_CHECKPOINT, null, null, -1, -1, -1, -1, -1);
+   }
+
    public Type getType() {
       return type;
    }
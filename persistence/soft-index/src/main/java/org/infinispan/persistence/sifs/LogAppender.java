@@ -25,6 +25,9 @@ public class LogAppender extends Thread {
    private final FileProvider fileProvider;
    private LogRequest pausedRequest;
    private long seqId = 0;
+   // position in the current log file, valid while the appender is paused
+   private volatile int pausedFile = -1;
+   private volatile int pausedOffset = 0;
 
    LogAppender(SyncProcessingQueue<LogRequest> inboundQueue,
                BlockingQueue<IndexRequest> indexQueue,
@@ -59,6 +62,27 @@ public void clearAndPause() throws InterruptedException {
       pausedRequest = clear;
    }
 
+   /**
+    * @return the file the records are appended to, only valid while the appender is paused
+    */
+   public int getPausedFile() {
+      return pausedFile;
+   }
+
+   /**
+    * @return the offset where the next record will be appended, only valid while the appender is paused
+    */
+   public int getPausedOffset() {
+      return pausedOffset;
+   }
+
+   /**
+    * @return the sequence id of the last record written, only valid while the appender is paused
+    */
+   public long getLastSeqId() {
+      return seqId - 1;
+   }
+
    public void resumeAfterPause() {
       pausedRequest.resume();
       pausedRequest = null;
@@ -84,6 +108,8 @@ public void run() {
                   queue.notifyNoWait();
                   break;
                } else if (request.isPause()) {
+                  pausedFile = logFile.fileId;
+                  pausedOffset = currentOffset;
                   queue.notifyNoWait();
                   request.pause();
                   continue;
@@ -104,6 +130,7 @@ public void run() {
                      logFile.fileId, offset, request.length());
                request.setIndexRequest(indexRequest);
                indexQueue.put(indexRequest);
+               compactor.appended(request.length());
                currentOffset += request.length();
             } else {
                if (syncWrites) {
@@ -2,15 +2,27 @@
 
 import java.io.IOException;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.infinispan.AdvancedCache;
 import org.infinispan.commons.equivalence.Equivalence;
 import org.infinispan.commons.io.ByteBuffer;
 import org.infinispan.commons.io.ByteBufferFactory;
 import org.infinispan.commons.marshall.StreamingMarshaller;
 import org.infinispan.commons.persistence.Store;
+import org.infinispan.configuration.global.GlobalConfiguration;
 import org.infinispan.filter.KeyFilter;
+import org.infinispan.jmx.CacheJmxRegistration;
+import org.infinispan.jmx.ComponentsJmxRegistration;
+import org.infinispan.jmx.JmxUtil;
 import org.infinispan.marshall.core.MarshalledEntry;
 import org.infinispan.marshall.core.MarshalledEntryFactory;
 import org.infinispan.metadata.InternalMetadata;
@@ -50,7 +62,8 @@
  *                 (file-offset based) request is enqueued into UpdateQueue - therefore
  *                 this operation cannot interfere with concurrent writes overwriting
  *                 the entry. Multiple files can be merged into single file during
- *                 compaction.
+ *                 compaction. Several files may be compacted in parallel and the I/O
+ *                 of the Compactor may be limited, see Compactor for details.
  *
  * Structures:
  * - TemporaryTable: keeps the records about current entry location until this is
@@ -63,6 +76,8 @@
  *                   space for each file.
  * - Index:          B+-tree of IndexNodes. The tree is dropped and built a new if the process
  *                   crashes, it does not need to flush disk operations. On disk it is kept as single random-accessed file, with free blocks list stored in memory.
+ *                   Optionally the index is checkpointed periodically, then after a crash only the records
+ *                   written after the last checkpoint are read to recover it (see Index for details).
  *
  * As IndexUpdater may easily become a bottleneck under heavy load, the IndexUpdater thread,
  * UpdateQueue and tree of IndexNodes may be multiplied several times - the Index is divided
@@ -78,7 +93,7 @@
  * left children (but lesser or equal to all right children) - let us call this key_part.
  * The key_parts are sorted in the IndexNode, naturally. On disk it has this format:
  *
- *  key_prefix_length(2 bytes), key_prefix, num_parts(2 bytes),
+ *  checksum(4 bytes), key_prefix_length(2 bytes), key_prefix, num_parts(2 bytes),
  *     ( key_part_length (2 bytes), key_part, left_child_index_node_offset (8 bytes))+,
  *     right_child_index_node_offset (8 bytes)
  *
@@ -119,10 +134,15 @@ public class SoftIndexFileStore implements AdvancedLoadWriteStore {
    private TimeService timeService;
    private Equivalence<Object> keyEquivalence;
    private int maxKeyLength;
+   private AdvancedCache<?, ?> cache;
+   private MBeanServer mBeanServer;
+   private ObjectName compactorObjectName;
+   private ScheduledExecutorService checkpointExecutor;
 
    @Override
    public void init(InitializationContext ctx) {
       configuration = ctx.getConfiguration();
+      cache = ctx.getCache().getAdvancedCache();
       marshaller = ctx.getMarshaller();
       marshalledEntryFactory = ctx.getMarshalledEntryFactory();
       byteBufferFactory = ctx.getByteBufferFactory();
@@ -141,49 +161,41 @@ public void start() {
       storeQueue = new SyncProcessingQueue<LogRequest>();
       indexQueue = new IndexQueue(configuration.indexSegments(), configuration.indexQueueLength(), keyEquivalence);
       fileProvider = new FileProvider(configuration.dataLocation(), configuration.openFilesLimit());
-      compactor = new Compactor(fileProvider, temporaryTable, indexQueue, marshaller, timeService, configuration.maxFileSize(), configuration.compactionThreshold());
+      compactor = new Compactor(fileProvider, temporaryTable, indexQueue, marshaller, timeService, configuration.maxFileSize(),
+            configuration.compactionThreshold(), configuration.compactionStopThreshold(), configuration.compactionThreads(),
+            configuration.compactionRateLimit());
+      registerCompactorMBean();
       logAppender = new LogAppender(storeQueue, indexQueue, temporaryTable, compactor, fileProvider, configuration.syncWrites(), configuration.maxFileSize());
       try {
          index = new Index(fileProvider, configuration.indexLocation(), configuration.indexSegments(),
                configuration.minNodeSize(), configuration.maxNodeSize(),
-               indexQueue, temporaryTable, compactor, timeService, keyEquivalence);
+               indexQueue, temporaryTable, compactor, timeService, keyEquivalence, configuration.checkpointInterval() > 0);
       } catch (IOException e) {
          throw new PersistenceException("Cannot open index file in " + configuration.indexLocation(), e);
       }
       compactor.setIndex(index);
       startIndex();
       final AtomicLong maxSeqId = new AtomicLong(0);
+      IndexCheckpoint checkpoint = index.getLoadedCheckpoint();
       if (index.isLoaded()) {
          log.debug("Not building the index - loaded from persisted state");
       } else if (configuration.purgeOnStartup()) {
          log.debug("Not building the index - purge will be executed");
-      } else {
-         log.debug("Building the index");
-         forEachOnDisk(false, false, new EntryFunctor() {
+      } else if (checkpoint != null) {
+         log.debugf("Recovering the index from checkpoint %d", checkpoint.getGeneration());
+         maxSeqId.set(checkpoint.getSeqId());
+         for (Map.Entry<Integer, Integer> entry : checkpoint.getFreeSpace().entrySet()) {
+            compactor.free(entry.getKey(), entry.getValue());
+         }
+         forEachOnDisk(checkpoint, false, false, new IndexBuilder(maxSeqId), new FileFunctor() {
             @Override
-            public boolean apply(int file, int offset, int size, byte[] serializedKey, byte[] serializedMetadata, byte[] serializedValue, long seqId, long expiration) throws IOException, ClassNotFoundException {
-               long prevSeqId;
-               while (seqId > (prevSeqId = maxSeqId.get()) && !maxSeqId.compareAndSet(prevSeqId, seqId)) {
-               }
-               Object key = marshaller.objectFromByteBuffer(serializedKey);
-               if (trace) {
-                  log.tracef("Loaded %d:%d (seqId %d, expiration %d)", file, offset, seqId, expiration);
-               }
-               try {
-                  // We may check the seqId safely as we are the only thread writing to index
-                  if (isSeqIdOld(seqId, key, serializedKey)) {
-                     indexQueue.put(IndexRequest.foundOld(key, serializedKey, file, offset));
-                     return true;
-                  }
-                  temporaryTable.set(key, file, offset);
-                  indexQueue.put(IndexRequest.update(key, serializedKey, file, offset, size));
-               } catch (InterruptedException e) {
-                  log.error("Interrupted building of index, the index won't be built properly!", e);
-                  return false;
-               }
-               return true;
+            public void afterFile(int file) {
+               compactor.completeFile(file);
             }
-         }, new FileFunctor() {
+         });
+      } else {
+         log.debug("Building the index");
+         forEachOnDisk(false, false, new IndexBuilder(maxSeqId), new FileFunctor() {
             @Override
             public void afterFile(int file) {
                compactor.completeFile(file);
@@ -191,6 +203,83 @@ public void afterFile(int file) {
          });
       }
       logAppender.setSeqId(maxSeqId.get() + 1);
+      if (configuration.checkpointInterval() > 0) {
+         checkpointExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "BCS-IndexCheckpointer");
+            thread.setDaemon(true);
+            return thread;
+         });
+         checkpointExecutor.scheduleWithFixedDelay(() -> {
+            try {
+               checkpoint();
+            } catch (Throwable t) {
+               log.error("Failed to checkpoint the index", t);
+            }
+         }, configuration.checkpointInterval(), configuration.checkpointInterval(), TimeUnit.MILLISECONDS);
+      }
+   }
+
+   /**
+    * Persists the index along with the positions in the data files, so that the index can be recovered by replaying
+    * only the records written after this moment. Writes and compaction are paused during the checkpoint.
+    */
+   synchronized void checkpoint() {
+      try {
+         // most of the index is flushed before the writes are paused
+         index.flush();
+         logAppender.pause();
+         try {
+            Map<Integer, Integer> openFiles = compactor.pauseForCheckpoint();
+            try {
+               openFiles.put(logAppender.getPausedFile(), logAppender.getPausedOffset());
+               index.checkpoint(logAppender.getLastSeqId(), openFiles);
+            } finally {
+               compactor.resumeAfterCheckpoint();
+            }
+         } finally {
+            logAppender.resumeAfterPause();
+         }
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new PersistenceException("Interrupted when checkpointing the index", e);
+      } catch (IOException e) {
+         throw new PersistenceException("Cannot checkpoint the index", e);
+      }
+   }
+
+   /**
+    * Puts the records read from data files into index, unless the key was already indexed with a newer record.
+    */
+   private class IndexBuilder implements EntryFunctor {
+      private final AtomicLong maxSeqId;
+
+      private IndexBuilder(AtomicLong maxSeqId) {
+         this.maxSeqId = maxSeqId;
+      }
+
+      @Override
+      public boolean apply(int file, int offset, int size, byte[] serializedKey, byte[] serializedMetadata, byte[] serializedValue, long seqId, long expiration) throws IOException, ClassNotFoundException {
+         long prevSeqId;
+         while (seqId > (prevSeqId = maxSeqId.get()) && !maxSeqId.compareAndSet(prevSeqId, seqId)) {
+         }
+         Object key = marshaller.objectFromByteBuffer(serializedKey);
+         if (trace) {
+            log.tracef("Loaded %d:%d (seqId %d, expiration %d)", file, offset, seqId, expiration);
+         }
+         try {
+            // We may check the seqId safely as we are the only thread writing to index
+            if (isSeqIdOld(seqId, key, serializedKey)) {
+               indexQueue.put(IndexRequest.foundOld(key, serializedKey, file, offset));
+               return true;
+            }
+            temporaryTable.set(key, file, offset);
+            indexQueue.put(IndexRequest.update(key, serializedKey, file, offset, size));
+         } catch (InterruptedException e) {
+            log.error("Interrupted building of index, the index won't be built properly!", e);
+            return false;
+         }
+         return true;
+      }
    }
 
    protected boolean isSeqIdOld(long seqId, Object key, byte[] serializedKey) throws IOException {
@@ -236,9 +325,57 @@ protected boolean isIndexLoaded() {
       return index.isLoaded();
    }
 
+   protected boolean isIndexLoadedFromCheckpoint() {
+      return index.getLoadedCheckpoint() != null;
+   }
+
+   CompactorMXBean getCompactorStatistics() {
+      return compactor;
+   }
+
+   private void registerCompactorMBean() {
+      if (!cache.getCacheConfiguration().jmxStatistics().enabled()) {
+         return;
+      }
+      GlobalConfiguration globalConfiguration = cache.getCacheManager().getCacheManagerConfiguration();
+      // Same group as the components of the cache, see CacheJmxRegistration
+      String groupName = CacheJmxRegistration.CACHE_JMX_GROUP + "," + ComponentsJmxRegistration.NAME_KEY + "="
+            + ObjectName.quote(cache.getName() + "(" + cache.getCacheConfiguration().clustering().cacheModeString().toLowerCase() + ")")
+            + ",manager=" + ObjectName.quote(globalConfiguration.globalJmxStatistics().cacheManagerName());
+      try {
+         mBeanServer = JmxUtil.lookupMBeanServer(globalConfiguration);
+         compactorObjectName = new ObjectName(ComponentsJmxRegistration.getObjectName(
+               globalConfiguration.globalJmxStatistics().domain(), groupName, "SoftIndexFileStoreCompactor"));
+         JmxUtil.registerMBean(compactor, compactorObjectName, mBeanServer);
+      } catch (Exception e) {
+         log.warn("Cannot register compactor statistics in JMX", e);
+         compactorObjectName = null;
+      }
+   }
+
+   private void unregisterCompactorMBean() {
+      if (compactorObjectName == null) {
+         return;
+      }
+      try {
+         JmxUtil.unregisterMBean(compactorObjectName, mBeanServer);
+      } catch (Exception e) {
+         log.warn("Cannot unregister compactor statistics from JMX", e);
+      } finally {
+         compactorObjectName = null;
+         mBeanServer = null;
+      }
+   }
+
    @Override
    public void stop() {
+      unregisterCompactorMBean();
       try {
+         if (checkpointExecutor != null) {
+            checkpointExecutor.shutdown();
+            checkpointExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            checkpointExecutor = null;
+         }
          logAppender.stopOperations();
          logAppender = null;
          compactor.stopOperations();
@@ -454,10 +591,22 @@ private interface FileFunctor {
    }
 
    private void forEachOnDisk(boolean readMetadata, boolean readValues, EntryFunctor functor, FileFunctor fileFunctor) throws PersistenceException {
+      forEachOnDisk(null, readMetadata, readValues, functor, fileFunctor);
+   }
+
+   /**
+    * @param checkpoint if not null, only the records written after this checkpoint are read
+    */
+   private void forEachOnDisk(IndexCheckpoint checkpoint, boolean readMetadata, boolean readValues, EntryFunctor functor, FileFunctor fileFunctor) throws PersistenceException {
       try {
          Iterator<Integer> iterator = fileProvider.getFileIterator();
          while (iterator.hasNext()) {
             int file = iterator.next();
+            int offset = checkpoint == null ? 0 : checkpoint.getReplayOffset(file);
+            if (offset < 0) {
+               fileFunctor.afterFile(file);
+               continue;
+            }
             log.debug("Loading entries from file " + file);
             FileProvider.Handle handle = fileProvider.getFile(file);
             if (handle == null) {
@@ -466,7 +615,6 @@ private void forEachOnDisk(boolean readMetadata, boolean readValues, EntryFuncto
                continue;
             }
             try {
-               int offset = 0;
                for (;;) {
                   EntryHeader header = EntryRecord.readEntryHeader(handle, offset);
                   if (header == null) {
@@ -58,7 +58,17 @@ public LockedEntry replaceOrLock(Object key, int file, int offset, int prevFile,
                   continue;
                }
                if (entry.isLocked()) {
-                  throw new IllegalStateException("Unexpected double locking");
+                  // Another compactor thread is moving a different record of the same key
+                  try {
+                     if (trace) {
+                        log.tracef("Waiting for lock on %s", key);
+                     }
+                     entry.wait();
+                     continue;
+                  } catch (InterruptedException e) {
+                     Thread.currentThread().interrupt();
+                     throw new IllegalStateException("Unexpected interruption!", e);
+                  }
                }
                if (entry.getFile() == prevFile && entry.getOffset() == prevOffset) {
                   entry.update(file, offset);
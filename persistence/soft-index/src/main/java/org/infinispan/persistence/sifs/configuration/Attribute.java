@@ -11,6 +11,10 @@
 public enum Attribute {
    // must be first
    UNKNOWN(null),
+   CHECKPOINT_INTERVAL("checkpoint-interval"),
+   COMPACTION_RATE_LIMIT("compaction-rate-limit"),
+   COMPACTION_STOP_THRESHOLD("compaction-stop-threshold"),
+   COMPACTION_THREADS("compaction-threads"),
    COMPACTION_THRESHOLD("compaction-threshold"),
    PATH("path"),
    INDEX_QUEUE_LENGTH("max-queue-length"),
@@ -1,5 +1,9 @@
 package org.infinispan.persistence.sifs.configuration;
 
+import static org.infinispan.persistence.sifs.configuration.SoftIndexFileStoreConfiguration.CHECKPOINT_INTERVAL;
+import static org.infinispan.persistence.sifs.configuration.SoftIndexFileStoreConfiguration.COMPACTION_RATE_LIMIT;
+import static org.infinispan.persistence.sifs.configuration.SoftIndexFileStoreConfiguration.COMPACTION_STOP_THRESHOLD;
+import static org.infinispan.persistence.sifs.configuration.SoftIndexFileStoreConfiguration.COMPACTION_THREADS;
 import static org.infinispan.persistence.sifs.configuration.SoftIndexFileStoreConfiguration.COMPACTION_THRESHOLD;
 import static org.infinispan.persistence.sifs.configuration.SoftIndexFileStoreConfiguration.DATA_LOCATION;
 import static org.infinispan.persistence.sifs.configuration.SoftIndexFileStoreConfiguration.INDEX_LOCATION;
@@ -11,6 +15,7 @@
 import static org.infinispan.persistence.sifs.configuration.SoftIndexFileStoreConfiguration.OPEN_FILES_LIMIT;
 import static org.infinispan.persistence.sifs.configuration.SoftIndexFileStoreConfiguration.SYNC_WRITES;
 
+import org.infinispan.commons.CacheConfigurationException;
 import org.infinispan.commons.configuration.Builder;
 import org.infinispan.configuration.cache.AbstractStoreConfigurationBuilder;
 import org.infinispan.configuration.cache.PersistenceConfigurationBuilder;
@@ -58,6 +63,17 @@ public SoftIndexFileStoreConfigurationBuilder indexQueueLength(int indexQueueLen
       attributes.attribute(INDEX_QUEUE_LENGTH).set(indexQueueLength);
       return this;
    }
+
+   /**
+    * Period (in milliseconds) in which the index is persisted along with the position in data files, so that after
+    * a crash only the records written later have to be read to recover the index. Non-positive value disables the
+    * checkpoints and the index is rebuilt from all data files after a crash.
+    */
+   public SoftIndexFileStoreConfigurationBuilder checkpointInterval(long checkpointInterval) {
+      attributes.attribute(CHECKPOINT_INTERVAL).set(checkpointInterval);
+      return this;
+   }
+
    public SoftIndexFileStoreConfigurationBuilder syncWrites(boolean syncWrites) {
       attributes.attribute(SYNC_WRITES).set(syncWrites);
       return this;
@@ -73,6 +89,33 @@ public SoftIndexFileStoreConfigurationBuilder compactionThreshold(double compact
       return this;
    }
 
+   public SoftIndexFileStoreConfigurationBuilder compactionStopThreshold(double compactionStopThreshold) {
+      attributes.attribute(COMPACTION_STOP_THRESHOLD).set(compactionStopThreshold);
+      return this;
+   }
+
+   public SoftIndexFileStoreConfigurationBuilder compactionThreads(int compactionThreads) {
+      attributes.attribute(COMPACTION_THREADS).set(compactionThreads);
+      return this;
+   }
+
+   public SoftIndexFileStoreConfigurationBuilder compactionRateLimit(long compactionRateLimit) {
+      attributes.attribute(COMPACTION_RATE_LIMIT).set(compactionRateLimit);
+      return this;
+   }
+
+   @Override
+   public void validate() {
+      super.validate();
+      if (attributes.attribute(COMPACTION_THREADS).get() < 1) {
+         throw new CacheConfigurationException("The soft-index file store needs at least one compaction thread");
+      }
+      double stopThreshold = attributes.attribute(COMPACTION_STOP_THRESHOLD).get();
+      if (stopThreshold >= 0 && stopThreshold > attributes.attribute(COMPACTION_THRESHOLD).get()) {
+         throw new CacheConfigurationException("The compaction stop threshold cannot be greater than the compaction threshold");
+      }
+   }
+
    @Override
    public SoftIndexFileStoreConfiguration create() {
       return new SoftIndexFileStoreConfiguration(attributes.protect(),
@@ -23,6 +23,8 @@
 @MetaInfServices
 @Namespaces({
       @Namespace(root = SoftIndexFileStoreConfigurationParser.ROOT_ELEMENT),
+      @Namespace(uri = "urn:infinispan:config:store:soft-index:9.1",
+                 root = SoftIndexFileStoreConfigurationParser.ROOT_ELEMENT),
       @Namespace(uri = "urn:infinispan:config:store:soft-index:9.0",
                  root = SoftIndexFileStoreConfigurationParser.ROOT_ELEMENT),
       @Namespace(uri = "urn:infinispan:config:store:soft-index:8.0",
@@ -74,6 +76,15 @@ private void parseSoftIndexFileStore(XMLExtendedStreamReader reader, SoftIndexFi
             case COMPACTION_THRESHOLD:
                builder.compactionThreshold(Double.parseDouble(value));
                break;
+            case COMPACTION_STOP_THRESHOLD:
+               builder.compactionStopThreshold(Double.parseDouble(value));
+               break;
+            case COMPACTION_THREADS:
+               builder.compactionThreads(Integer.parseInt(value));
+               break;
+            case COMPACTION_RATE_LIMIT:
+               builder.compactionRateLimit(Long.parseLong(value));
+               break;
             default:
                Parser.parseStoreAttribute(reader, i, builder);
                break;
@@ -139,6 +150,9 @@ private void parseIndex(XMLExtendedStreamReader reader, SoftIndexFileStoreConfig
             case MAX_NODE_SIZE:
                builder.maxNodeSize(Integer.parseInt(value));
                break;
+            case CHECKPOINT_INTERVAL:
+               builder.checkpointInterval(Long.parseLong(value));
+               break;
             default:
                throw ParseUtils.unexpectedAttribute(reader, i);
          }
@@ -38,6 +38,7 @@ private void writeIndexElement(XMLExtendedStreamWriter writer, SoftIndexFileStor
             SoftIndexFileStoreConfiguration.INDEX_QUEUE_LENGTH,
             SoftIndexFileStoreConfiguration.INDEX_SEGMENTS,
             SoftIndexFileStoreConfiguration.MIN_NODE_SIZE,
-            SoftIndexFileStoreConfiguration.MAX_NODE_SIZE);
+            SoftIndexFileStoreConfiguration.MAX_NODE_SIZE,
+            SoftIndexFileStoreConfiguration.CHECKPOINT_INTERVAL);
    }
 }
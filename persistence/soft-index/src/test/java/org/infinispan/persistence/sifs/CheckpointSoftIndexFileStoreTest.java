@@ -0,0 +1,97 @@
+package org.infinispan.persistence.sifs;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.infinispan.commons.util.Util;
+import org.infinispan.marshall.core.MarshalledEntry;
+import org.infinispan.persistence.sifs.configuration.SoftIndexFileStoreConfigurationBuilder;
+import org.testng.annotations.Test;
+
+/**
+ * Low level soft-index file store tests, with the index checkpointed.
+ *
+ * @since 9.1
+ */
+@Test(groups = "unit", testName = "persistence.CheckpointSoftIndexFileStoreTest")
+public class CheckpointSoftIndexFileStoreTest extends SoftIndexFileStoreTest {
+
+   @Override
+   protected void configureStore(SoftIndexFileStoreConfigurationBuilder builder) {
+      // the checkpoints are triggered by the tests
+      builder.checkpointInterval(3600000);
+   }
+
+   public void testRecoveryFromCheckpoint() throws IOException {
+      for (int i = 0; i < 100; ++i) {
+         store.write(marshalledEntry(internalCacheEntry("k" + i, "v" + i, -1)));
+      }
+      store.checkpoint();
+      for (int i = 100; i < 150; ++i) {
+         store.write(marshalledEntry(internalCacheEntry("k" + i, "v" + i, -1)));
+      }
+      for (int i = 0; i < 5; ++i) {
+         assertTrue(store.delete("k" + i));
+      }
+      for (int i = 20; i < 25; ++i) {
+         store.write(marshalledEntry(internalCacheEntry("k" + i, "updated" + i, -1)));
+      }
+
+      // copy the files as they would be left by a crash
+      Path snapshot = Paths.get(tmpDirectory + "-crash");
+      Util.recursiveFileRemove(snapshot.toFile());
+      copy(Paths.get(tmpDirectory), snapshot);
+      store.stop();
+      Util.recursiveFileRemove(tmpDirectory);
+      copy(snapshot, Paths.get(tmpDirectory));
+      Util.recursiveFileRemove(snapshot.toFile());
+      store.start();
+
+      assertTrue(store.isIndexLoadedFromCheckpoint());
+      assertEquals(145, store.size());
+      for (int i = 0; i < 150; ++i) {
+         MarshalledEntry entry = store.load("k" + i);
+         if (i < 5) {
+            assertNull(entry);
+         } else {
+            assertNotNull("k" + i, entry);
+            assertEquals(i >= 20 && i < 25 ? "updated" + i : "v" + i, entry.getValue());
+         }
+      }
+   }
+
+   public void testCheckpointDiscardedOnGracefulStop() {
+      store.write(marshalledEntry(internalCacheEntry("k1", "v1", -1)));
+      store.checkpoint();
+      keepIndex = true;
+      try {
+         store.stop();
+         store.start();
+         assertFalse(store.isIndexLoadedFromCheckpoint());
+         assertEquals("v1", store.load("k1").getValue());
+      } finally {
+         keepIndex = false;
+      }
+   }
+
+   private static void copy(Path from, Path to) throws IOException {
+      List<Path> paths;
+      try (Stream<Path> stream = Files.walk(from)) {
+         paths = stream.collect(Collectors.toList());
+      }
+      for (Path path : paths) {
+         Files.copy(path, to.resolve(from.relativize(path)));
+      }
+   }
+}
@@ -10,7 +10,8 @@ public class ConfigurationSerializerTest extends AbstractConfigurationSerializer
    @DataProvider(name = "configurationFiles")
    public Object[][] configurationFiles() {
       return new Object[][] {
-            {"sifs-config.xml"}
+            {"sifs-config.xml"},
+            {"sifs-config-9.1.xml"}
       };
    }
 }
@@ -0,0 +1,31 @@
+package org.infinispan.persistence.sifs;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import org.infinispan.persistence.sifs.configuration.SoftIndexFileStoreConfigurationBuilder;
+import org.testng.annotations.Test;
+
+/**
+ * Low level soft-index file store tests, with several throttled compaction threads.
+ *
+ * @since 9.1
+ */
+@Test(groups = "unit", testName = "persistence.ParallelCompactionSoftIndexFileStoreTest")
+public class ParallelCompactionSoftIndexFileStoreTest extends SoftIndexFileStoreTest {
+
+   @Override
+   protected void configureStore(SoftIndexFileStoreConfigurationBuilder builder) {
+      builder.compactionThreads(3).compactionStopThreshold(0.2).compactionRateLimit(10 * 1024 * 1024);
+   }
+
+   public void testCompactionStatistics() {
+      CompactorMXBean statistics = store.getCompactorStatistics();
+      assertEquals(3, statistics.getCompactionThreads());
+      writeGibberish();
+      eventually(() -> statistics.getFilesCompacted() > 0);
+      assertTrue(statistics.getBytesAppended() > 0);
+      assertTrue(statistics.getBytesRead() > 0);
+      assertTrue(statistics.getWriteAmplification() >= 1);
+   }
+}
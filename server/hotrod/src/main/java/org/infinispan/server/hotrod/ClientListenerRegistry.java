@@ -68,9 +68,14 @@
  */
 class ClientListenerRegistry {
    private final HotRodServerConfiguration configuration;
+   private final Runnable listenersChanged;
 
-   ClientListenerRegistry(HotRodServerConfiguration configuration) {
+   /**
+    * @param listenersChanged invoked after a client listener is added or removed
+    */
+   ClientListenerRegistry(HotRodServerConfiguration configuration, Runnable listenersChanged) {
       this.configuration = configuration;
+      this.listenersChanged = listenersChanged;
    }
 
    private final static Log log = LogFactory.getLog(ClientListenerRegistry.class, Log.class);
@@ -159,6 +164,7 @@ void addClientListener(VersionedDecoder decoder, Channel ch, HotRodHeader h, byt
       }
 
       eventSenders.put(new WrappedByteArray(listenerId), clientEventSender);
+      listenersChanged.run();
 
       if (includeState) {
          // If state included, do it async
@@ -274,13 +280,22 @@ private List<? extends Object> unmarshallParams(List<byte[]> binaryParams, Marsh
    }
 
    boolean removeClientListener(byte[] listenerId, Cache cache) {
-      Object sender = eventSenders.get(new WrappedByteArray(listenerId));
+      Object sender = eventSenders.remove(new WrappedByteArray(listenerId));
       if (sender != null) {
          cache.removeListener(sender);
+         listenersChanged.run();
          return true;
       } else return false;
    }
 
+   /**
+    * @return <code>true</code> if any client listener is registered. Modifications, and reads that expire entries,
+    * block when the event queue of a listener is full.
+    */
+   boolean hasClientListeners() {
+      return !eventSenders.isEmpty();
+   }
+
    public void stop() {
       eventSenders.clear();
       cacheEventFilterFactories.clear();
@@ -394,6 +409,9 @@ boolean isSendEvent(CacheEntryEvent<?, ?> event) {
          if (isChannelDisconnected()) {
             log.debug("Channel disconnected, remove event sender listener");
             event.getCache().removeListener(this);
+            if (eventSenders.remove(new WrappedByteArray(listenerId), this)) {
+               listenersChanged.run();
+            }
             return false;
          } else {
             switch (event.getType()) {
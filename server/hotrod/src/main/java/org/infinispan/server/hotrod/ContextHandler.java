@@ -24,8 +24,12 @@
 import io.netty.channel.SimpleChannelInboundHandler;
 
 /**
- * Handler that performs actual cache operations.  Note this handler should be on a separate executor group than the
- * decoder.
+ * Handler that performs actual cache operations.
+ * <p>
+ * The read operations on local caches that keep all their data in memory can't block, so they are executed directly
+ * in the event loop, unless the cache has custom interceptors or sync listeners. All the other operations may block,
+ * e.g. acquiring a key lock, loading from a store, waiting for a remote node or for a transaction, so they are executed
+ * by the server's worker threads.
  *
  * @author wburns
  * @since 9.0
@@ -47,15 +51,41 @@ public ContextHandler(HotRodServer server, NettyTransport transport, Executor ex
 
    @Override
    protected void channelRead0(ChannelHandlerContext ctx, CacheDecodeContext msg) throws Exception {
-      executor.execute(() -> {
-         try {
-            realRead(ctx, msg);
-         } catch (PrivilegedActionException e) {
-            ctx.fireExceptionCaught(e.getCause());
-         } catch (Exception e) {
-            ctx.fireExceptionCaught(e);
-         }
-      });
+      if (isNonBlocking(msg)) {
+         read(ctx, msg);
+      } else {
+         executor.execute(() -> read(ctx, msg));
+      }
+   }
+
+   private void read(ChannelHandlerContext ctx, CacheDecodeContext msg) {
+      try {
+         realRead(ctx, msg);
+      } catch (PrivilegedActionException e) {
+         ctx.fireExceptionCaught(e.getCause());
+      } catch (Exception e) {
+         ctx.fireExceptionCaught(e);
+      }
+   }
+
+   /**
+    * @return <code>true</code> if the operation can be executed in the event loop.
+    */
+   private boolean isNonBlocking(CacheDecodeContext msg) {
+      switch (msg.header.op) {
+         case PING:
+            return true;
+         case CONTAINS_KEY:
+         case GET:
+         case GET_WITH_VERSION:
+         case GET_WITH_METADATA:
+         case GET_ALL:
+            break;
+         default:
+            // writes acquire key locks even in non-transactional caches and may wait up to the lock acquisition timeout
+            return false;
+      }
+      return server.hasNonBlockingReads(msg.header.cacheName);
    }
 
    protected void realRead(ChannelHandlerContext ctx, CacheDecodeContext msg) throws Exception {
@@ -54,6 +54,7 @@
 import org.infinispan.manager.EmbeddedCacheManager;
 import org.infinispan.metadata.Metadata;
 import org.infinispan.notifications.Listener;
+import org.infinispan.notifications.cachelistener.CacheNotifier;
 import org.infinispan.notifications.cachelistener.annotation.TopologyChanged;
 import org.infinispan.notifications.cachelistener.event.TopologyChangedEvent;
 import org.infinispan.notifications.cachelistener.filter.CacheEventConverterFactory;
@@ -100,6 +101,11 @@ public class HotRodServer extends AbstractProtocolServer<HotRodServerConfigurati
 
    private static final String WORKER_THREADS_SYS_PROP = "infinispan.server.hotrod.workerThreads";
 
+   /**
+    * The name under which {@link ToEmptyBytesFactory} is registered, used by the clients to iterate over the keys only.
+    */
+   public static final String TO_EMPTY_BYTES_FILTER_CONVERTER_FACTORY_NAME = ToEmptyBytesKeyValueFilterConverter.class.getName();
+
    public HotRodServer() {
       super("HotRod");
    }
@@ -111,6 +117,9 @@ public HotRodServer() {
    private Map<String, AdvancedCache> knownCaches = CollectionFactory.makeConcurrentMap(4, 0.9f, 16);
    private Map<String, Configuration> knownCacheConfigurations = CollectionFactory.makeConcurrentMap(4, 0.9f, 16);
    private Map<String, ComponentRegistry> knownCacheRegistries = CollectionFactory.makeConcurrentMap(4, 0.9f, 16);
+   // the notifiers of the caches whose reads only block with sync listeners, or empty if their reads may block anyway;
+   // replaced when a client listener is added or removed, so a result computed before the change is discarded
+   private volatile Map<String, Optional<CacheNotifier>> knownNonBlockingReads = CollectionFactory.makeConcurrentMap(4, 0.9f, 16);
    private QueryFacade queryFacade;
    private Map<String, SaslServerFactory> saslMechFactories = CollectionFactory.makeConcurrentMap(4, 0.9f, 16);
    private ClientListenerRegistry clientListenerRegistry;
@@ -205,9 +214,9 @@ protected void startInternal(HotRodServerConfiguration configuration, EmbeddedCa
       // Initialize query-specific stuff
       List<QueryFacade> queryFacades = loadQueryFacades();
       queryFacade = queryFacades.size() > 0 ? queryFacades.get(0) : null;
-      clientListenerRegistry = new ClientListenerRegistry(configuration);
+      clientListenerRegistry = new ClientListenerRegistry(configuration, this::clientListenersChanged);
 
-      addKeyValueFilterConverterFactory(ToEmptyBytesKeyValueFilterConverter.class.getName(), new ToEmptyBytesFactory());
+      addKeyValueFilterConverterFactory(TO_EMPTY_BYTES_FILTER_CONVERTER_FACTORY_NAME, new ToEmptyBytesFactory());
 
       addCacheEventConverterFactory("key-value-with-previous-converter-factory", new KeyValueWithPreviousEventConverterFactory());
       loadFilterConverterFactories(ParamKeyValueFilterConverterFactory.class, this::addKeyValueFilterConverterFactory);
@@ -414,6 +423,36 @@ ComponentRegistry getCacheRegistry(String cacheName) {
       return knownCacheRegistries.get(cacheName);
    }
 
+   /**
+    * @return <code>true</code> if the reads on the cache can't block, so they can be executed in the event loop. The
+    * result is computed once per cache, and again after a client listener is added or removed, except for the sync
+    * listeners added to the embedded cache directly.
+    */
+   boolean hasNonBlockingReads(String cacheName) {
+      Map<String, Optional<CacheNotifier>> nonBlockingReads = knownNonBlockingReads;
+      Optional<CacheNotifier> notifier = nonBlockingReads.get(cacheName);
+      if (notifier == null) {
+         Configuration cfg = getCacheConfiguration(cacheName);
+         ComponentRegistry registry = getCacheRegistry(cacheName);
+         if (cfg == null || registry == null)
+            return false;
+         // a remote or transactional read may wait for other nodes, a store may read from the disk, a read that
+         // expires an entry may update the index or wait for a client listener's event queue, and custom interceptors
+         // may do anything
+         boolean nonBlocking = !cfg.clustering().cacheMode().isClustered() && !cfg.persistence().usingStores() &&
+               !cfg.transaction().transactionMode().isTransactional() && !cfg.indexing().index().isEnabled() &&
+               cfg.customInterceptors().interceptors().isEmpty() && !clientListenerRegistry.hasClientListeners();
+         notifier = nonBlocking ? Optional.of(registry.getComponent(CacheNotifier.class)) : Optional.empty();
+         nonBlockingReads.put(cacheName, notifier);
+      }
+      // sync listeners may do anything too, and they can be added to the embedded cache without the registry noticing
+      return notifier.isPresent() && !notifier.get().hasSyncListeners();
+   }
+
+   private void clientListenersChanged() {
+      knownNonBlockingReads = CollectionFactory.makeConcurrentMap(4, 0.9f, 16);
+   }
+
    void tryRegisterMigrationManager(String cacheName, AdvancedCache<byte[], byte[]> cache) {
       ComponentRegistry cr = SecurityActions.getCacheComponentRegistry(cache.getAdvancedCache());
       RollingUpgradeManager migrationManager = cr.getComponent(RollingUpgradeManager.class);
@@ -560,6 +599,7 @@ public void cacheStopped(CacheStoppedEvent event) {
          knownCaches.remove(event.getCacheName());
          knownCacheConfigurations.remove(event.getCacheName());
          knownCacheRegistries.remove(event.getCacheName());
+         knownNonBlockingReads.remove(event.getCacheName());
       }
    }
 }
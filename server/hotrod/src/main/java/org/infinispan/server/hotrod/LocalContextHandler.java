@@ -20,9 +20,11 @@
  * @since 9.0
  */
 public class LocalContextHandler extends ChannelInboundHandlerAdapter {
+   private final HotRodServer server;
    private final NettyTransport transport;
 
-   public LocalContextHandler(NettyTransport transport) {
+   public LocalContextHandler(HotRodServer server, NettyTransport transport) {
+      this.server = server;
       this.transport = transport;
    }
 
@@ -40,14 +42,15 @@ private void realChannelRead(ChannelHandlerContext ctx, Object msg, CacheDecodeC
       HotRodHeader h = cdc.header;
       switch (h.op) {
          case CONTAINS_KEY:
-            writeResponse(cdc, ctx.channel(), cdc.containsKey());
-            break;
          case GET:
          case GET_WITH_VERSION:
-            writeResponse(cdc, ctx.channel(), cdc.get());
-            break;
          case GET_WITH_METADATA:
-            writeResponse(cdc, ctx.channel(), cdc.getKeyMetadata());
+            if (server.hasNonBlockingReads(h.cacheName)) {
+               writeResponse(cdc, ctx.channel(), read(cdc));
+            } else {
+               // the read may block, so it's executed by the worker threads
+               super.channelRead(ctx, msg);
+            }
             break;
          case PING:
             writeResponse(cdc, ctx.channel(), new EmptyResponse(h.version, h.messageId, h.cacheName,
@@ -61,4 +64,15 @@ private void realChannelRead(ChannelHandlerContext ctx, Object msg, CacheDecodeC
       }
    }
 
+   private Response read(CacheDecodeContext cdc) {
+      switch (cdc.header.op) {
+         case CONTAINS_KEY:
+            return cdc.containsKey();
+         case GET_WITH_METADATA:
+            return cdc.getKeyMetadata();
+         default:
+            return cdc.get();
+      }
+   }
+
 }
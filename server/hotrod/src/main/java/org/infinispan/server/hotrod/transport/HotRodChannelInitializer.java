@@ -46,7 +46,7 @@ public void initializeChannel(Channel ch) throws Exception {
       if (authHandler != null) {
          ch.pipeline().addLast("authentication-1", authHandler);
       }
-      ch.pipeline().addLast("local-handler", new LocalContextHandler(transport));
+      ch.pipeline().addLast("local-handler", new LocalContextHandler(hotRodServer, transport));
 
       ch.pipeline().addLast("handler", new ContextHandler(hotRodServer, transport, executor));
       ch.pipeline().addLast("exception", new HotRodExceptionHandler());
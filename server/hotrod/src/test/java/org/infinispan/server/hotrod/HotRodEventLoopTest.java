@@ -0,0 +1,185 @@
+package org.infinispan.server.hotrod;
+
+import static org.infinispan.server.hotrod.test.HotRodTestingUtil.hotRodCacheConfiguration;
+import static org.infinispan.server.hotrod.test.HotRodTestingUtil.killClient;
+import static org.infinispan.server.hotrod.test.HotRodTestingUtil.withClientListener;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.lang.reflect.Method;
+import java.util.Optional;
+
+import org.infinispan.commands.read.GetCacheEntryCommand;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.cache.InterceptorConfiguration;
+import org.infinispan.configuration.global.GlobalConfigurationBuilder;
+import org.infinispan.container.DataContainer;
+import org.infinispan.container.DefaultDataContainer;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.context.InvocationContext;
+import org.infinispan.interceptors.DDAsyncInterceptor;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.notifications.Listener;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryCreated;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryVisited;
+import org.infinispan.notifications.cachelistener.event.CacheEntryCreatedEvent;
+import org.infinispan.notifications.cachelistener.event.CacheEntryVisitedEvent;
+import org.infinispan.persistence.dummy.DummyInMemoryStoreConfigurationBuilder;
+import org.infinispan.server.hotrod.event.EventLogListener;
+import org.infinispan.server.hotrod.test.HotRodClient;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.Test;
+
+/**
+ * Tests that the reads that can't block are executed in the event loop, and the other operations by the worker threads.
+ *
+ * @since 9.1
+ */
+@Test(groups = "functional", testName = "server.hotrod.HotRodEventLoopTest")
+public class HotRodEventLoopTest extends HotRodSingleNodeTest {
+
+   private static final String STORE_CACHE_NAME = "HotRodStoreCache";
+   private static final String INTERCEPTOR_CACHE_NAME = "HotRodInterceptorCache";
+   private static final String WORKER_THREAD = "ServerHandler";
+
+   private ThreadRecordingInterceptor interceptor;
+
+   @Override
+   protected EmbeddedCacheManager createTestCacheManager() {
+      EmbeddedCacheManager cacheManager = TestCacheManagerFactory.createCacheManager(
+            new GlobalConfigurationBuilder().nonClusteredDefault().defaultCacheName(cacheName),
+            hotRodCacheConfiguration());
+      ConfigurationBuilder storeBuilder = hotRodCacheConfiguration();
+      storeBuilder.persistence()
+            .addStore(DummyInMemoryStoreConfigurationBuilder.class)
+            .storeName(getClass().getName());
+      cacheManager.defineConfiguration(STORE_CACHE_NAME, storeBuilder.build());
+      ConfigurationBuilder interceptorBuilder = hotRodCacheConfiguration();
+      interceptorBuilder.customInterceptors().addInterceptor()
+            .interceptor(interceptor = new ThreadRecordingInterceptor())
+            .position(InterceptorConfiguration.Position.FIRST);
+      cacheManager.defineConfiguration(INTERCEPTOR_CACHE_NAME, interceptorBuilder.build());
+      return cacheManager;
+   }
+
+   public void testInMemoryReadInEventLoop(Method m) {
+      String threadName = inMemoryReadThreadName(m);
+      assertFalse(threadName, threadName.contains(WORKER_THREAD));
+   }
+
+   public void testReadWithClientListenerInWorkerThread(Method m) {
+      assertFalse(inMemoryReadThreadName(m).contains(WORKER_THREAD));
+      withClientListener(client(), new EventLogListener(), Optional.empty(), Optional.empty(), () -> {
+         String threadName = inMemoryReadThreadName(m);
+         assertTrue(threadName, threadName.contains(WORKER_THREAD));
+      });
+      String threadName = inMemoryReadThreadName(m);
+      assertFalse(threadName, threadName.contains(WORKER_THREAD));
+   }
+
+   private String inMemoryReadThreadName(Method m) {
+      // Listeners and interceptors would move the read to a worker thread, so record the thread reading the container
+      DataContainer<?, ?> dataContainer = advancedCache.getDataContainer();
+      ThreadRecordingDataContainer recordingContainer = new ThreadRecordingDataContainer();
+      TestingUtil.replaceComponent(advancedCache, DataContainer.class, recordingContainer, true);
+      try {
+         client().assertPut(m);
+         client().assertGet(m);
+      } finally {
+         TestingUtil.replaceComponent(advancedCache, DataContainer.class, dataContainer, true);
+      }
+      return recordingContainer.getThreadName;
+   }
+
+   public void testReadWithSyncListenerInWorkerThread(Method m) {
+      client().assertPut(m);
+      ThreadRecorder recorder = new ThreadRecorder();
+      advancedCache.addListener(recorder);
+      try {
+         client().assertGet(m);
+      } finally {
+         advancedCache.removeListener(recorder);
+      }
+      assertTrue(recorder.visitThreadName, recorder.visitThreadName.contains(WORKER_THREAD));
+   }
+
+   public void testReadWithCustomInterceptorInWorkerThread(Method m) {
+      HotRodClient interceptorClient = new HotRodClient("127.0.0.1", hotRodServer.getPort(), INTERCEPTOR_CACHE_NAME, 60,
+            (byte) 21);
+      try {
+         interceptorClient.assertPut(m);
+         interceptorClient.assertGet(m);
+      } finally {
+         killClient(interceptorClient);
+      }
+      assertTrue(interceptor.getThreadName, interceptor.getThreadName.contains(WORKER_THREAD));
+   }
+
+   public void testInMemoryWriteInWorkerThread(Method m) {
+      ThreadRecorder recorder = new ThreadRecorder();
+      advancedCache.addListener(recorder);
+      try {
+         client().assertPut(m);
+      } finally {
+         advancedCache.removeListener(recorder);
+      }
+      assertTrue(recorder.threadName, recorder.threadName.contains(WORKER_THREAD));
+   }
+
+   public void testStoreReadInWorkerThread(Method m) {
+      ThreadRecorder recorder = new ThreadRecorder();
+      HotRodClient storeClient = new HotRodClient("127.0.0.1", hotRodServer.getPort(), STORE_CACHE_NAME, 60, (byte) 21);
+      try {
+         storeClient.assertPut(m);
+         cacheManager.getCache(STORE_CACHE_NAME).addListener(recorder);
+         storeClient.assertGet(m);
+      } finally {
+         cacheManager.getCache(STORE_CACHE_NAME).removeListener(recorder);
+         killClient(storeClient);
+      }
+      assertTrue(recorder.visitThreadName, recorder.visitThreadName.contains(WORKER_THREAD));
+   }
+
+   static class ThreadRecordingDataContainer extends DefaultDataContainer<Object, Object> {
+      volatile String getThreadName;
+
+      ThreadRecordingDataContainer() {
+         super(16);
+      }
+
+      @Override
+      public InternalCacheEntry<Object, Object> get(Object k) {
+         getThreadName = Thread.currentThread().getName();
+         return super.get(k);
+      }
+   }
+
+   static class ThreadRecordingInterceptor extends DDAsyncInterceptor {
+      volatile String getThreadName;
+
+      @Override
+      public Object visitGetCacheEntryCommand(InvocationContext ctx, GetCacheEntryCommand command) throws Throwable {
+         getThreadName = Thread.currentThread().getName();
+         return invokeNext(ctx, command);
+      }
+   }
+
+   @Listener
+   public static class ThreadRecorder {
+      volatile String threadName;
+      volatile String visitThreadName;
+
+      @CacheEntryCreated
+      public void created(CacheEntryCreatedEvent<byte[], byte[]> event) {
+         if (!event.isPre())
+            threadName = Thread.currentThread().getName();
+      }
+
+      @CacheEntryVisited
+      public void visited(CacheEntryVisitedEvent<byte[], byte[]> event) {
+         if (!event.isPre())
+            visitThreadName = Thread.currentThread().getName();
+      }
+   }
+}